@@ -42,6 +42,8 @@ abstract class BaseRowSet implements Comparable<RowSet>, RowSet {
   protected volatile String remoteSlaveServerName;
   private ReadWriteLock lock;
 
+  protected volatile RowSetSignal consumerSignal;
+
   public BaseRowSet() {
     // not done putting data into this RowSet
     done = new AtomicBoolean( false );
@@ -128,6 +130,7 @@ abstract class BaseRowSet implements Comparable<RowSet>, RowSet {
   @Override
   public void setDone() {
     done.set( true );
+    signalConsumer();
   }
 
   /*
@@ -284,6 +287,30 @@ abstract class BaseRowSet implements Comparable<RowSet>, RowSet {
     this.remoteSlaveServerName = remoteSlaveServerName;
   }
 
+  /*
+   * (non-Javadoc)
+   *
+   * @see org.pentaho.di.core.RowSetInterface#setConsumerSignal(org.pentaho.di.core.RowSetSignal)
+   */
+  @Override
+  public boolean setConsumerSignal( RowSetSignal signal ) {
+    // This is called for every row read: avoid the volatile write if nothing changes.
+    if ( consumerSignal != signal ) {
+      consumerSignal = signal;
+    }
+    return true;
+  }
+
+  /**
+   * Wake up the consuming step if it registered a signal. Call this after a row was added.
+   */
+  protected void signalConsumer() {
+    RowSetSignal signal = consumerSignal;
+    if ( signal != null ) {
+      signal.signal();
+    }
+  }
+
   /**
    * By default we don't report blocking, only for monitored transformations.
    *
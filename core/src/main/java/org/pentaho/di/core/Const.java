@@ -1066,6 +1066,178 @@ public class Const {
    */
   public static final String KETTLE_BATCHING_ROWSET = "KETTLE_BATCHING_ROWSET";
 
+  /**
+   * Set this variable to N if you want to use the blocking row set for hops with one producing and one consuming step
+   * copy instead of the lock-free ring buffer row set. (default = Y)
+   */
+  public static final String KETTLE_RING_BUFFER_ROWSET = "KETTLE_RING_BUFFER_ROWSET";
+
+  /**
+   * The name of the variable that optionally contains the wait strategy of the ring buffer row set: SPIN, YIELD or PARK
+   * (default = PARK)
+   */
+  public static final String KETTLE_ROWSET_WAIT_STRATEGY = "KETTLE_ROWSET_WAIT_STRATEGY";
+
+  /**
+   * Set this variable to N if you want steps to poll their input row sets with short sleeps instead of parking until a
+   * producing step signals that rows are available. (default = Y)
+   */
+  public static final String KETTLE_ROWSET_SIGNALS = "KETTLE_ROWSET_SIGNALS";
+
+  /**
+   * The number of rows that steps with a native batch path (Calculator, Filter Rows, Select Values, Memory Group By)
+   * process at once. Leave empty or set to 0 to process row by row. (default = 0)
+   */
+  public static final String KETTLE_ROW_BATCH_SIZE = "KETTLE_ROW_BATCH_SIZE";
+
+  /**
+   * The memory the Sort Rows step may use to buffer rows, in bytes or with a k, m or g suffix. Leave empty to derive it
+   * from the free memory limit of the step.
+   */
+  public static final String KETTLE_SORT_MEMORY_BUDGET = "KETTLE_SORT_MEMORY_BUDGET";
+
+  /**
+   * The number of background threads a Sort Rows step uses to sort and write runs to disk while it keeps reading rows.
+   * Set to 0 to do everything in the step thread. (default = the number of processors - 1, at most 4)
+   */
+  public static final String KETTLE_SORT_THREADS = "KETTLE_SORT_THREADS";
+
+  /**
+   * The name of the compression provider (None, GZip, Snappy, ...) used for the temporary files of the Sort Rows step.
+   * Leave empty to use GZip if the step is set to compress its temporary files.
+   */
+  public static final String KETTLE_SORT_SPILL_COMPRESSION = "KETTLE_SORT_SPILL_COMPRESSION";
+
+  /**
+   * The maximum number of bytes (k, m and g suffixes are allowed) a Memory Group By step keeps its groups in. Once the
+   * groups take more, the rows of new groups are written to partitioned temporary files and aggregated partition by
+   * partition at the end. Leave empty to keep all the groups in memory.
+   */
+  public static final String KETTLE_MEMORY_GROUP_BY_MEMORY_BUDGET = "KETTLE_MEMORY_GROUP_BY_MEMORY_BUDGET";
+
+  /**
+   * Set this variable to N to keep the groups of the Memory Group By step on the Java heap, also when all its
+   * aggregates (sum, average, count, minimum, maximum of integers and numbers) can be kept off-heap. (default = Y)
+   */
+  public static final String KETTLE_MEMORY_GROUP_BY_OFF_HEAP = "KETTLE_MEMORY_GROUP_BY_OFF_HEAP";
+
+  /**
+   * The maximum number of bytes (k, m and g suffixes are allowed) a Stream Lookup step, or a Database Lookup step that
+   * loads all its data in the cache, keeps its lookup rows in. Once the rows take more, the rest of them go to an
+   * on-disk index. Leave empty to keep all the lookup rows in memory.
+   */
+  public static final String KETTLE_LOOKUP_MEMORY_BUDGET = "KETTLE_LOOKUP_MEMORY_BUDGET";
+
+  /**
+   * The directory the on-disk index of the Stream Lookup and Database Lookup steps is created in. Leave empty to use
+   * the temporary directory of the JVM.
+   */
+  public static final String KETTLE_LOOKUP_DISK_DIRECTORY = "KETTLE_LOOKUP_DISK_DIRECTORY";
+
+  /**
+   * The number of recently looked up rows of an on-disk lookup index to keep in memory. (default = 10000)
+   */
+  public static final String KETTLE_LOOKUP_DISK_CACHE_SIZE = "KETTLE_LOOKUP_DISK_CACHE_SIZE";
+
+  /**
+   * The eviction policy of the cache of a Database Lookup step looking up rows on equality conditions: FIFO, LRU or
+   * TINYLFU. (default = TINYLFU)
+   */
+  public static final String KETTLE_DATABASE_LOOKUP_CACHE_POLICY = "KETTLE_DATABASE_LOOKUP_CACHE_POLICY";
+
+  /**
+   * The maximum number of bytes (k, m and g suffixes are allowed) the cache of a Database Lookup step looking up rows
+   * on equality conditions keeps its rows in, on top of the cache size of the step. Leave empty to only limit the
+   * number of rows.
+   */
+  public static final String KETTLE_DATABASE_LOOKUP_CACHE_MEMORY = "KETTLE_DATABASE_LOOKUP_CACHE_MEMORY";
+
+  /**
+   * Set this variable to Y to share the cache of the Database Lookup steps looking up the same rows on equality
+   * conditions, and of their copies, in a transformation. (default = N)
+   */
+  public static final String KETTLE_DATABASE_LOOKUP_SHARED_CACHE = "KETTLE_DATABASE_LOOKUP_SHARED_CACHE";
+
+  /**
+   * The number of input rows a Database Lookup step (equality conditions only), a Combination Lookup step or a
+   * Dimension Lookup step (lookup only) looks up at once, with a single query for all the keys that aren't cached.
+   * Leave empty or set to 1 to look up the rows one by one. (default = 1)
+   */
+  public static final String KETTLE_LOOKUP_BATCH_SIZE = "KETTLE_LOOKUP_BATCH_SIZE";
+
+  /**
+   * The number of connections a Table Output step using batch updates writes its batches over in the background,
+   * while the next batch is filled. The batches are committed in order. Leave empty or set to 0 to write the batches
+   * on the step thread. (default = 0)
+   */
+  public static final String KETTLE_TABLE_OUTPUT_WRITERS = "KETTLE_TABLE_OUTPUT_WRITERS";
+
+  /**
+   * Set this variable to Y to let the JDBC driver rewrite the batches of a Table Output step writing in the background
+   * into multi-row inserts, on databases supporting it (PostgreSQL, MySQL). A failing row then fails its whole batch.
+   * (default = N)
+   */
+  public static final String KETTLE_TABLE_OUTPUT_MULTI_ROW_INSERT = "KETTLE_TABLE_OUTPUT_MULTI_ROW_INSERT";
+
+  /**
+   * The number of uncompressed bytes between two checkpoints of the index a GZIP CSV Input step running in parallel
+   * builds for a file, and saves next to it. A step copy decompresses up to that many bytes before reaching its part of
+   * the file. (default = 16777216)
+   */
+  public static final String KETTLE_GZIP_INDEX_SPAN = "KETTLE_GZIP_INDEX_SPAN";
+
+  /**
+   * Set this variable to N to have the JSON Input step load whole documents before reading their rows, even when the
+   * paths of its fields can be read while parsing. (default = Y)
+   */
+  public static final String KETTLE_JSON_INPUT_STREAMING = "KETTLE_JSON_INPUT_STREAMING";
+
+  /**
+   * Set this variable to N to have the "Get XML data" step build the documents of its files before reading their rows,
+   * even when the paths of its loop and fields can be read while parsing. Read while parsing, the rows before an error
+   * in a file are already passed on when the step fails, as with a prune path. (default = Y)
+   */
+  public static final String KETTLE_GET_XML_DATA_STREAMING = "KETTLE_GET_XML_DATA_STREAMING";
+
+  /**
+   * The number of megabytes the shared strings of a xlsx file read by the streaming Microsoft Excel input can take in
+   * memory. Larger tables are kept in temporary files mapped in memory. (default = 64)
+   */
+  public static final String KETTLE_EXCEL_INPUT_SHARED_STRINGS_MEMORY = "KETTLE_EXCEL_INPUT_SHARED_STRINGS_MEMORY";
+
+  /**
+   * The maximum number of rows sent in a batch by the remote steps of a clustered transformation and by the Socket
+   * Writer step, for example 1000. Only the readers of this version read batches, so leave it at 0 to send the rows
+   * one at a time unless all the servers of the cluster run this version. (default = 0)
+   */
+  public static final String KETTLE_REMOTE_STEP_BATCH_SIZE = "KETTLE_REMOTE_STEP_BATCH_SIZE";
+
+  /**
+   * The name of the compression provider of the batches of rows sent by the remote steps of a clustered transformation
+   * and by the Socket Writer step, for example Snappy or GZip. (default = None)
+   */
+  public static final String KETTLE_REMOTE_STEP_COMPRESSION = "KETTLE_REMOTE_STEP_COMPRESSION";
+
+  /**
+   * A step copy that partitions rows logs the partition that got the most rows when it got more than this number of
+   * times the average number of rows of the partitions. (default = 2)
+   */
+  public static final String KETTLE_PARTITION_SKEW_RATIO = "KETTLE_PARTITION_SKEW_RATIO";
+
+  /**
+   * Set this variable to Y to run the step copies of transformations on virtual threads instead of one OS thread per
+   * step copy. Only has an effect on Java 21 or later. The number of carrier threads is set with the
+   * jdk.virtualThreadScheduler.parallelism system property. (default = N)
+   */
+  public static final String KETTLE_VIRTUAL_STEP_THREADS = "KETTLE_VIRTUAL_STEP_THREADS";
+
+  /**
+   * Set this variable to Y to run the step copies of transformations in slices on a pool with a thread per CPU,
+   * instead of on a thread each. Only the steps supporting it run on the pool, steps reading info streams or rows from
+   * remote steps keep a thread of their own. (default = N)
+   */
+  public static final String KETTLE_COOPERATIVE_STEP_SCHEDULER = "KETTLE_COOPERATIVE_STEP_SCHEDULER";
+
   /**
    * Set this variable to limit max number of files the Text File Output step can have open at one time.
    */
@@ -71,4 +71,11 @@ public class QueueRowSet extends BaseRowSet implements Comparable<RowSet>, RowSe
     done.set( false );
   }
 
+  /**
+   * This row set is only used in single threaded transformations, nobody ever waits for it.
+   */
+  @Override
+  public boolean setConsumerSignal( RowSetSignal signal ) {
+    return false;
+  }
 }
@@ -0,0 +1,345 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.core;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+import org.pentaho.di.core.row.RowMetaInterface;
+
+/**
+ * A lock-free row buffer for hops that have exactly one producing step copy and one consuming step copy. Rows are
+ * handed over through a ring buffer with padded read and write sequences, so the producer and the consumer never share
+ * a lock or a cache line. When the buffer is full or empty the waiting side follows the configured {@link WaitStrategy}.
+ *
+ * This row set is NOT safe for concurrent putRow() calls from several threads, nor for concurrent getRow() calls from
+ * several threads. Trans only allocates it for 1:1 hops.
+ *
+ * @since 11.1
+ */
+public class RingBufferRowSet extends BaseRowSet implements Comparable<RowSet>, RowSet {
+
+  /**
+   * Describes what a thread does while it waits for a free slot (producer) or for a row (consumer).
+   */
+  public enum WaitStrategy {
+    /** Busy spin until the condition is met or the time-out expires. Lowest latency, burns a core. */
+    SPIN,
+    /** Spin briefly, then yield the processor between checks. */
+    YIELD,
+    /** Spin briefly, then park until the other side signals. Lowest CPU use, the default. */
+    PARK;
+
+    /**
+     * @param code the name of the strategy, case insensitive
+     * @param defaultStrategy the strategy to return when the code is empty or unknown
+     * @return the matching wait strategy
+     */
+    public static WaitStrategy getWaitStrategy( String code, WaitStrategy defaultStrategy ) {
+      if ( code != null ) {
+        for ( WaitStrategy strategy : values() ) {
+          if ( strategy.name().equalsIgnoreCase( code.trim() ) ) {
+            return strategy;
+          }
+        }
+      }
+      return defaultStrategy;
+    }
+  }
+
+  /**
+   * The number of busy spins before the YIELD and PARK strategies back off.
+   */
+  private static final int SPIN_TRIES = 100;
+
+  private final Object[][] buffer;
+  private final int mask;
+  private final int capacity;
+
+  /** Written by the producer only: the next slot to write. Its cache holds the last seen read sequence. */
+  private final Sequence writeSequence = new Sequence();
+
+  /** Written by the consumer only: the next slot to read. Its cache holds the last seen write sequence. */
+  private final Sequence readSequence = new Sequence();
+
+  private volatile Thread waitingProducer;
+  private volatile Thread waitingConsumer;
+
+  private final WaitStrategy waitStrategy;
+
+  private int timeoutPut;
+  private int timeoutGet;
+
+  /**
+   * Create a new ring buffer row set with maxSize capacity and the wait strategy configured in
+   * {@link Const#KETTLE_ROWSET_WAIT_STRATEGY}.
+   *
+   * @param maxSize
+   */
+  public RingBufferRowSet( int maxSize ) {
+    this( maxSize, WaitStrategy.getWaitStrategy( System.getProperty( Const.KETTLE_ROWSET_WAIT_STRATEGY ),
+      WaitStrategy.PARK ) );
+  }
+
+  /**
+   * Create a new ring buffer row set with maxSize capacity.
+   *
+   * @param maxSize
+   * @param waitStrategy
+   */
+  public RingBufferRowSet( int maxSize, WaitStrategy waitStrategy ) {
+    super();
+
+    if ( maxSize < 1 ) {
+      throw new IllegalArgumentException( "The size of a row set needs to be at least 1, not " + maxSize );
+    }
+    capacity = maxSize;
+
+    // The slot array is rounded up to a power of 2 so that we can mask instead of using a modulo.
+    // The capacity is still honored so back-pressure behaves exactly like the other row sets.
+    //
+    int slots = Integer.highestOneBit( maxSize );
+    if ( slots < maxSize ) {
+      slots <<= 1;
+    }
+    buffer = new Object[slots][];
+    mask = slots - 1;
+
+    this.waitStrategy = waitStrategy == null ? WaitStrategy.PARK : waitStrategy;
+
+    timeoutGet = Const.toInt( System.getProperty( Const.KETTLE_ROWSET_GET_TIMEOUT ), Const.TIMEOUT_GET_MILLIS );
+    timeoutPut = Const.toInt( System.getProperty( Const.KETTLE_ROWSET_PUT_TIMEOUT ), Const.TIMEOUT_PUT_MILLIS );
+  }
+
+  @Override
+  public boolean putRow( RowMetaInterface rowMeta, Object[] rowData ) {
+    return putRowWait( rowMeta, rowData, timeoutPut, TimeUnit.MILLISECONDS );
+  }
+
+  @Override
+  public boolean putRowWait( RowMetaInterface rowMeta, Object[] rowData, long time, TimeUnit tu ) {
+    this.rowMeta = rowMeta;
+    if ( rowData == null ) {
+      return false;
+    }
+    if ( offer( rowData ) ) {
+      return true;
+    }
+
+    long deadline = System.nanoTime() + tu.toNanos( time );
+    int tries = 0;
+    while ( true ) {
+      if ( waitStrategy == WaitStrategy.PARK && tries >= SPIN_TRIES ) {
+        waitingProducer = Thread.currentThread();
+        if ( offer( rowData ) ) {
+          waitingProducer = null;
+          return true;
+        }
+        long remaining = deadline - System.nanoTime();
+        if ( remaining <= 0 ) {
+          waitingProducer = null;
+          return false;
+        }
+        LockSupport.parkNanos( this, remaining );
+        waitingProducer = null;
+        if ( Thread.interrupted() ) {
+          // Same behavior as the blocking row set: an interrupted wait simply fails the put.
+          return false;
+        }
+      } else {
+        backOff( tries++ );
+      }
+      if ( offer( rowData ) ) {
+        return true;
+      }
+      if ( System.nanoTime() - deadline >= 0 ) {
+        return false;
+      }
+    }
+  }
+
+  @Override
+  public Object[] getRow() {
+    return getRowWait( timeoutGet, TimeUnit.MILLISECONDS );
+  }
+
+  @Override
+  public Object[] getRowImmediate() {
+    return poll();
+  }
+
+  @Override
+  public Object[] getRowWait( long timeout, TimeUnit tu ) {
+    Object[] row = poll();
+    if ( row != null ) {
+      return row;
+    }
+
+    long deadline = System.nanoTime() + tu.toNanos( timeout );
+    int tries = 0;
+    while ( true ) {
+      if ( waitStrategy == WaitStrategy.PARK && tries >= SPIN_TRIES ) {
+        waitingConsumer = Thread.currentThread();
+        row = poll();
+        if ( row != null || done.get() ) {
+          waitingConsumer = null;
+          return row;
+        }
+        long remaining = deadline - System.nanoTime();
+        if ( remaining <= 0 ) {
+          waitingConsumer = null;
+          return null;
+        }
+        LockSupport.parkNanos( this, remaining );
+        waitingConsumer = null;
+        if ( Thread.interrupted() ) {
+          return null;
+        }
+      } else {
+        backOff( tries++ );
+      }
+      row = poll();
+      if ( row != null || System.nanoTime() - deadline >= 0 ) {
+        return row;
+      }
+    }
+  }
+
+  /**
+   * Also signal a consumer that might be parked inside getRowWait() so that it notices the end of the stream right
+   * away.
+   */
+  @Override
+  public void setDone() {
+    super.setDone();
+    signal( waitingConsumer );
+  }
+
+  @Override
+  public int size() {
+    long size = writeSequence.get() - readSequence.get();
+    return size < 0 ? 0 : (int) size;
+  }
+
+  @Override
+  public void clear() {
+    long write = writeSequence.get();
+    for ( long read = readSequence.get(); read < write; read++ ) {
+      buffer[ (int) read & mask ] = null;
+    }
+    readSequence.set( write );
+    readSequence.cache = write;
+    writeSequence.cache = write;
+    done.set( false );
+    signal( waitingProducer );
+  }
+
+  /**
+   * @return the wait strategy used when the buffer is full or empty
+   */
+  public WaitStrategy getWaitStrategy() {
+    return waitStrategy;
+  }
+
+  /**
+   * Producer side: add a row if there is room for it.
+   */
+  private boolean offer( Object[] rowData ) {
+    long write = writeSequence.value;
+    if ( write - writeSequence.cache >= capacity ) {
+      // Only look at the consumer's sequence (and pay for the cache miss) if our cached copy says we're full.
+      writeSequence.cache = readSequence.get();
+      if ( write - writeSequence.cache >= capacity ) {
+        return false;
+      }
+    }
+    buffer[ (int) write & mask ] = rowData;
+    publish( writeSequence, write + 1 );
+    signal( waitingConsumer );
+    signalConsumer();
+    return true;
+  }
+
+  /**
+   * Consumer side: take a row if one is available.
+   */
+  private Object[] poll() {
+    long read = readSequence.value;
+    if ( read >= readSequence.cache ) {
+      readSequence.cache = writeSequence.get();
+      if ( read >= readSequence.cache ) {
+        return null;
+      }
+    }
+    int index = (int) read & mask;
+    Object[] row = buffer[ index ];
+    buffer[ index ] = null;
+    publish( readSequence, read + 1 );
+    signal( waitingProducer );
+    return row;
+  }
+
+  private void publish( Sequence sequence, long value ) {
+    if ( waitStrategy == WaitStrategy.PARK ) {
+      // A full volatile write orders the publication before the read of the waiting thread field.
+      // Without it a parked thread could miss its wake-up call and sleep until its time-out.
+      sequence.set( value );
+    } else {
+      sequence.lazySet( value );
+    }
+  }
+
+  private static void signal( Thread thread ) {
+    if ( thread != null ) {
+      LockSupport.unpark( thread );
+    }
+  }
+
+  private void backOff( int tries ) {
+    if ( waitStrategy == WaitStrategy.SPIN || tries < SPIN_TRIES ) {
+      Thread.onSpinWait();
+    } else {
+      Thread.yield();
+    }
+  }
+
+  /**
+   * A sequence counter padded on both sides to keep it on its own cache line. The cache field is only used by the
+   * thread that owns the sequence and holds its last view of the other side's sequence.
+   */
+  @SuppressWarnings( "unused" )
+  private static class Sequence {
+    private static final AtomicLongFieldUpdater<Sequence> UPDATER =
+      AtomicLongFieldUpdater.newUpdater( Sequence.class, "value" );
+
+    private long p01, p02, p03, p04, p05, p06, p07;
+    private volatile long value;
+    private long cache;
+    private long p11, p12, p13, p14, p15, p16, p17;
+
+    long get() {
+      return value;
+    }
+
+    void set( long newValue ) {
+      value = newValue;
+    }
+
+    void lazySet( long newValue ) {
+      UPDATER.lazySet( this, newValue );
+    }
+  }
+}
@@ -146,4 +146,16 @@ public interface RowSet {
    * Clear this rowset: remove all rows and remove the "done" flag.
    */
   void clear();
+
+  /**
+   * Register the signal to raise whenever a row is added to this row set or when it is marked as done. This allows the
+   * consuming step to park instead of polling while it waits for input.
+   *
+   * @param signal
+   *          the signal of the consuming step copy
+   * @return true if this row set raises the signal, false if the consumer needs to keep polling.
+   */
+  default boolean setConsumerSignal( RowSetSignal signal ) {
+    return false;
+  }
 }
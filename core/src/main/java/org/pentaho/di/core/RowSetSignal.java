@@ -0,0 +1,91 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.core;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A wake-up call shared by all the row sets a step copy reads from. Producers raise the signal after they put a row in
+ * one of those row sets or after they mark one of them as done. The consumer parks on it when none of its input row
+ * sets has anything to offer, instead of sleeping and polling.
+ *
+ * Usage on the consumer side is always: {@link #reset()}, check the row sets, {@link #await(long, TimeUnit)}. That way
+ * a signal raised while the row sets are being checked is never lost.
+ *
+ * @since 11.1
+ */
+public class RowSetSignal {
+
+  private volatile boolean signaled;
+  private volatile Thread waiter;
+
+  /**
+   * Wake up the consumer if it is waiting, or make its next wait return immediately.
+   */
+  public void signal() {
+    // Only write when needed: a producer raising the same signal for every row shouldn't bounce the cache line around.
+    if ( !signaled ) {
+      signaled = true;
+    }
+    Thread thread = waiter;
+    if ( thread != null ) {
+      LockSupport.unpark( thread );
+    }
+  }
+
+  /**
+   * Clear the signal before the consumer checks its row sets.
+   */
+  public void reset() {
+    signaled = false;
+  }
+
+  /**
+   * @return true if the signal was raised since the last reset
+   */
+  public boolean isSignaled() {
+    return signaled;
+  }
+
+  /**
+   * Park the calling thread until the signal is raised, the time-out expires or the thread is interrupted.
+   *
+   * @param timeout
+   *          The number of units of time to wait at most
+   * @param tu
+   *          The unit of time to use
+   * @return true if the signal was raised, false otherwise.
+   */
+  public boolean await( long timeout, TimeUnit tu ) {
+    if ( signaled ) {
+      return true;
+    }
+    long deadline = System.nanoTime() + tu.toNanos( timeout );
+    waiter = Thread.currentThread();
+    try {
+      while ( !signaled ) {
+        long remaining = deadline - System.nanoTime();
+        if ( remaining <= 0 || Thread.currentThread().isInterrupted() ) {
+          return false;
+        }
+        LockSupport.parkNanos( this, remaining );
+      }
+      return true;
+    } finally {
+      waiter = null;
+    }
+  }
+}
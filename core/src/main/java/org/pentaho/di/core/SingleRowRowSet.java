@@ -67,4 +67,11 @@ public class SingleRowRowSet extends BaseRowSet implements Comparable<RowSet>, R
     done.set( false );
   }
 
+  /**
+   * This row set is only used in single threaded transformations, nobody ever waits for it.
+   */
+  @Override
+  public boolean setConsumerSignal( RowSetSignal signal ) {
+    return false;
+  }
 }
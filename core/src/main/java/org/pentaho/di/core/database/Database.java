@@ -131,6 +131,12 @@ public class Database implements VariableSpace, LoggingObjectInterface, Closeabl
 
   private static final Map<String, Set<String>> registeredDrivers = new HashMap<>();
 
+  /**
+   * The maximum number of parameters of a query looking up rows for a list of keys. This stays below the limits of
+   * the databases on the number of expressions in a list and of parameters in a statement.
+   */
+  public static final int MAX_KEYS_LOOKUP_PARAMETERS = 1000;
+
   private DatabaseMeta databaseMeta;
 
   /**
@@ -4126,6 +4132,104 @@ public class Database implements VariableSpace, LoggingObjectInterface, Closeabl
     }
   }
 
+  /**
+   * Get the condition matching the rows of a table with any of a number of keys on equality:
+   * {@code key IN ( ?, ?, ... )} for a single key field, {@code ( ( key1 = ? AND key2 = ? ) OR ( ... ) )} otherwise.
+   *
+   * @param keyFields The key fields of the table
+   * @param keyCount  The number of keys to match
+   * @return the condition, with a parameter per key field and key
+   */
+  public String getKeysCondition( String[] keyFields, int keyCount ) {
+    StringBuilder condition = new StringBuilder();
+    if ( keyFields.length == 1 ) {
+      condition.append( databaseMeta.quoteField( keyFields[ 0 ] ) ).append( " IN ( " );
+      for ( int k = 0; k < keyCount; k++ ) {
+        condition.append( k == 0 ? "?" : ", ?" );
+      }
+      return condition.append( " )" ).toString();
+    }
+
+    condition.append( "( " );
+    for ( int k = 0; k < keyCount; k++ ) {
+      condition.append( k == 0 ? "( " : " OR ( " );
+      for ( int i = 0; i < keyFields.length; i++ ) {
+        if ( i > 0 ) {
+          condition.append( " AND " );
+        }
+        condition.append( databaseMeta.quoteField( keyFields[ i ] ) ).append( " = ?" );
+      }
+      condition.append( " )" );
+    }
+    return condition.append( " )" ).toString();
+  }
+
+  /**
+   * Looks up the rows of a table matching any of the given keys on equality, with one query per
+   * {@link #MAX_KEYS_LOOKUP_PARAMETERS} parameters instead of one per key. The metadata of the rows is available with
+   * {@link #getReturnRowMeta()} afterwards.
+   *
+   * @param sql       The query up to and including its WHERE keyword, e.g. {@code SELECT a, b, key FROM t WHERE }.
+   *                  Any other condition comes before the keys condition and ends with {@code AND }.
+   * @param params    The metadata of the parameters of the other conditions, or null if there are none
+   * @param data      The values of the parameters of the other conditions, or null if there are none
+   * @param keyFields The key fields of the table
+   * @param keyMeta   The metadata of the keys
+   * @param keys      The keys to look up. A key with a null value never matches on equality and is skipped.
+   * @param suffix    What follows the keys condition, like an ORDER BY clause, or null
+   * @return the rows found, in the order of the queries
+   * @throws KettleDatabaseException in case something goes wrong
+   */
+  public List<Object[]> getRowsMatchingKeys( String sql, RowMetaInterface params, Object[] data, String[] keyFields,
+                                             RowMetaInterface keyMeta, List<Object[]> keys, String suffix )
+    throws KettleDatabaseException {
+    List<Object[]> lookupKeys = new ArrayList<>( keys.size() );
+    for ( Object[] key : keys ) {
+      boolean hasNull = false;
+      for ( int i = 0; i < keyFields.length && !hasNull; i++ ) {
+        hasNull = key[ i ] == null;
+      }
+      if ( !hasNull ) {
+        lookupKeys.add( key );
+      }
+    }
+
+    List<Object[]> rows = new ArrayList<>();
+    int paramCount = params == null ? 0 : params.size();
+    int keysPerQuery = Math.max( 1, ( MAX_KEYS_LOOKUP_PARAMETERS - paramCount ) / keyFields.length );
+    for ( int start = 0; start < lookupKeys.size(); start += keysPerQuery ) {
+      List<Object[]> queryKeys = lookupKeys.subList( start, Math.min( lookupKeys.size(), start + keysPerQuery ) );
+      String query = sql + getKeysCondition( keyFields, queryKeys.size() ) + ( suffix == null ? "" : " " + suffix );
+
+      log.snap( Metrics.METRIC_DATABASE_GET_LOOKUP_START, databaseMeta.getName() );
+      try ( PreparedStatement ps = connection.prepareStatement( databaseMeta.stripCR( query ) ) ) {
+        if ( params != null ) {
+          setValues( params, data, ps );
+        }
+        int pos = paramCount + 1;
+        for ( Object[] key : queryKeys ) {
+          for ( int i = 0; i < keyFields.length; i++ ) {
+            setValue( ps, keyMeta.getValueMeta( i ), key[ i ], pos++ );
+          }
+        }
+
+        try ( ResultSet res = ps.executeQuery() ) {
+          rowMeta = getRowInfo( res.getMetaData(), databaseMeta.isMySQLVariant(), false );
+          Object[] row = getRow( res, null, rowMeta );
+          while ( row != null ) {
+            rows.add( row );
+            row = getRow( res, null, rowMeta );
+          }
+        }
+      } catch ( SQLException ex ) {
+        throw new KettleDatabaseException( "Error looking up rows in database with [" + query + "]", ex );
+      } finally {
+        log.snap( Metrics.METRIC_DATABASE_GET_LOOKUP_STOP, databaseMeta.getName() );
+      }
+    }
+    return rows;
+  }
+
   public List<Object[]> getFirstRows( String tableName, int limit ) throws KettleDatabaseException {
     return getFirstRows( tableName, limit, null );
   }
@@ -1285,6 +1285,21 @@ public interface DatabaseInterface extends Cloneable {
   default void putOptionalOptions( Map<String, String> extraOptions ) {
   }
 
+  /**
+   * @return the option of the JDBC driver to rewrite batches of inserts into multi-row inserts, or null if the driver
+   * can't do that
+   */
+  default String getMultiRowInsertOption() {
+    return null;
+  }
+
+  /**
+   * @return true if the database can load rows streamed over the connection with COPY ... FROM STDIN
+   */
+  default boolean supportsCopyFromStdin() {
+    return false;
+  }
+
   default ResultSet getSchemas( DatabaseMetaData databaseMetaData, DatabaseMeta dbMeta ) throws SQLException {
     return databaseMetaData.getSchemas();
   }
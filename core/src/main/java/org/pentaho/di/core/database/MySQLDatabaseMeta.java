@@ -501,6 +501,11 @@ public class MySQLDatabaseMeta extends BaseDatabaseMeta implements DatabaseInter
     return defaultOptions;
   }
 
+  @Override
+  public String getMultiRowInsertOption() {
+    return "rewriteBatchedStatements";
+  }
+
   @Override
   public int getMaxVARCHARLength() {
     return VARCHAR_LIMIT;
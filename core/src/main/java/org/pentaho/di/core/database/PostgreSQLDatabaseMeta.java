@@ -556,4 +556,14 @@ public class PostgreSQLDatabaseMeta extends BaseDatabaseMeta implements Database
   public int getMaxTextFieldLength() {
     return GB_LIMIT;
   }
+
+  @Override
+  public String getMultiRowInsertOption() {
+    return "reWriteBatchedInserts";
+  }
+
+  @Override
+  public boolean supportsCopyFromStdin() {
+    return true;
+  }
 }
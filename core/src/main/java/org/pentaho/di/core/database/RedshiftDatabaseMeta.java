@@ -59,6 +59,22 @@ public class RedshiftDatabaseMeta extends PostgreSQLDatabaseMeta {
     return "com.amazon.redshift.jdbc.Driver";
   }
 
+  /**
+   * The Redshift driver doesn't rewrite batches like the PostgreSQL driver does.
+   */
+  @Override
+  public String getMultiRowInsertOption() {
+    return null;
+  }
+
+  /**
+   * Redshift only copies from S3 and other AWS sources, not from the connection.
+   */
+  @Override
+  public boolean supportsCopyFromStdin() {
+    return false;
+  }
+
   @Override
   public String getURL( String hostname, String port, String databaseName ) {
     if ( Arrays.asList( PROFILE_CREDENTIALS, IAM_CREDENTIALS ).contains( getAttribute( JDBC_AUTH_METHOD, "" ) ) ) {
@@ -0,0 +1,507 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.hash;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.pentaho.di.core.exception.KettleFileException;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.spill.RowSpillReader;
+import org.pentaho.di.core.row.spill.RowSpillWriter;
+
+/**
+ * A key/value index for lookup rows that don't fit on the heap. It's used in two phases:
+ * <ol>
+ * <li>{@link #put(Object[], Object[])} appends the binary key and value to a data file.</li>
+ * <li>{@link #finish()}, or the first {@link #get(Object[])}, reads the data file once to build an open addressing hash
+ * table of (hash, offset) slots in a memory mapped index file, and a bloom filter of the keys on the heap. From then on
+ * the index is read only.</li>
+ * </ol>
+ * A lookup checks the bloom filter first, so most misses never touch the disk, then a small LRU cache of the recently
+ * found rows, then probes the mapped index and reads the row from the data file.
+ * <p>
+ * Keys are compared on their binary form, like in {@link PackedHashIndex}. When a key is put more than once either the
+ * first or the last value is kept, depending on how the index is created.
+ *
+ * @since 11.1
+ */
+public class DiskHashIndex implements Closeable {
+
+  private static final int SLOT_SIZE = 16;
+  /** 2^26 slots of 16 bytes, 1GB per mapped segment of the index file */
+  private static final int SEGMENT_SHIFT = 26;
+  private static final long SEGMENT_MASK = ( 1L << SEGMENT_SHIFT ) - 1;
+  private static final int BLOOM_BITS_PER_KEY = 10;
+  private static final int BLOOM_HASHES = 7;
+  private static final long MAX_BLOOM_BITS = 1L << 31;
+  private static final int HEADER_SIZE = 8;
+  private static final Object[] MISSING = new Object[ 0 ];
+
+  private final boolean keepLast;
+
+  private final File dataFile;
+  private final File indexFile;
+  private DataOutputStream dataOutput;
+  private FileChannel dataChannel;
+  private long dataSize;
+  private long records;
+
+  private MappedByteBuffer[] segments;
+  private long slotMask;
+  private long indexSize;
+  private long size;
+
+  private long[] bloom;
+  private long bloomMask;
+
+  private final Buffer keyBuffer;
+  private final RowSpillWriter keyWriter;
+  private final Buffer valueBuffer;
+  private final RowSpillWriter valueWriter;
+  private final RecordInputStream valueInputStream;
+  private final RowSpillReader valueReader;
+  private byte[] record = new byte[ 512 ];
+  private ByteBuffer recordBuffer = ByteBuffer.wrap( record );
+
+  private final Map<Key, Object[]> cache;
+
+  /**
+   * @param keyMeta
+   *          the layout of the keys, in normal storage
+   * @param valueMeta
+   *          the layout of the values
+   * @param directory
+   *          the directory to create the data and index files in
+   * @param keepLast
+   *          true to keep the last value put for a key, false to keep the first one
+   * @param cacheSize
+   *          the number of recently looked up keys to keep on the heap, 0 for none
+   * @throws KettleFileException
+   *           in case the files can't be created
+   */
+  public DiskHashIndex( RowMetaInterface keyMeta, RowMetaInterface valueMeta, File directory, boolean keepLast,
+    final int cacheSize ) throws KettleFileException {
+    this.keepLast = keepLast;
+
+    keyBuffer = new Buffer();
+    keyWriter = new RowSpillWriter( keyMeta, keyBuffer );
+    valueBuffer = new Buffer();
+    valueWriter = new RowSpillWriter( valueMeta, valueBuffer );
+    valueInputStream = new RecordInputStream();
+    valueReader = new RowSpillReader( valueMeta, valueInputStream );
+
+    cache = cacheSize <= 0 ? null : new LinkedHashMap<Key, Object[]>( 16, 0.75f, true ) {
+      @Override
+      protected boolean removeEldestEntry( Map.Entry<Key, Object[]> eldest ) {
+        return size() > cacheSize;
+      }
+    };
+
+    try {
+      dataFile = File.createTempFile( "lookup", ".dat", directory );
+      indexFile = File.createTempFile( "lookup", ".idx", directory );
+      dataOutput = new DataOutputStream( new BufferedOutputStream( new FileOutputStream( dataFile ), 65536 ) );
+    } catch ( IOException e ) {
+      close();
+      throw new KettleFileException( "Unable to create the files of a lookup index in " + directory, e );
+    }
+  }
+
+  /**
+   * Add a key and its value. This is no longer possible once the index is finished.
+   *
+   * @param keyData
+   *          the key
+   * @param valueData
+   *          the value
+   * @throws KettleFileException
+   *           in case the row can't be encoded or written
+   */
+  public void put( Object[] keyData, Object[] valueData ) throws KettleFileException {
+    if ( dataOutput == null ) {
+      throw new IllegalStateException( "The lookup index is finished, no more rows can be added" );
+    }
+    keyBuffer.reset();
+    keyWriter.writeRow( keyData );
+    valueBuffer.reset();
+    valueWriter.writeRow( valueData );
+    try {
+      dataOutput.writeInt( keyBuffer.size() );
+      dataOutput.writeInt( valueBuffer.size() );
+      dataOutput.write( keyBuffer.getBuffer(), 0, keyBuffer.size() );
+      dataOutput.write( valueBuffer.getBuffer(), 0, valueBuffer.size() );
+    } catch ( IOException e ) {
+      throw new KettleFileException( "Unable to write to lookup index file " + dataFile, e );
+    }
+    dataSize += HEADER_SIZE + keyBuffer.size() + valueBuffer.size();
+    records++;
+  }
+
+  /**
+   * Build the index of the rows put so far. Does nothing if the index is finished already.
+   *
+   * @throws KettleFileException
+   *           in case the files can't be read or written
+   */
+  public void finish() throws KettleFileException {
+    if ( dataOutput == null ) {
+      return;
+    }
+    try {
+      dataOutput.close();
+      dataOutput = null;
+      dataChannel = FileChannel.open( dataFile.toPath() );
+
+      long capacity = Long.highestOneBit( Math.max( 16L, records * 2 - 1 ) ) << 1;
+      slotMask = capacity - 1;
+      indexSize = capacity * SLOT_SIZE;
+      segments = new MappedByteBuffer[ (int) ( ( capacity + SEGMENT_MASK ) >>> SEGMENT_SHIFT ) ];
+      try ( RandomAccessFile index = new RandomAccessFile( indexFile, "rw" ) ) {
+        index.setLength( indexSize );
+        FileChannel indexChannel = index.getChannel();
+        for ( int i = 0; i < segments.length; i++ ) {
+          long position = (long) i << ( SEGMENT_SHIFT + 4 );
+          segments[ i ] = indexChannel.map( FileChannel.MapMode.READ_WRITE, position,
+            Math.min( indexSize - position, 1L << ( SEGMENT_SHIFT + 4 ) ) );
+        }
+      }
+
+      long bloomBits = Long.highestOneBit( Math.max( 64L, Math.min( MAX_BLOOM_BITS, records * BLOOM_BITS_PER_KEY ) ) );
+      bloom = new long[ (int) ( bloomBits >>> 6 ) ];
+      bloomMask = bloomBits - 1;
+
+      try ( DataInputStream input =
+              new DataInputStream( new BufferedInputStream( new FileInputStream( dataFile ), 65536 ) ) ) {
+        byte[] key = new byte[ 256 ];
+        long offset = 0;
+        for ( long r = 0; r < records; r++ ) {
+          int keyLength = input.readInt();
+          int valueLength = input.readInt();
+          if ( keyLength > key.length ) {
+            key = new byte[ Math.max( keyLength, key.length * 2 ) ];
+          }
+          input.readFully( key, 0, keyLength );
+          skipFully( input, valueLength );
+
+          insert( hash( key, keyLength ), offset, key, keyLength );
+          offset += HEADER_SIZE + keyLength + valueLength;
+        }
+      }
+    } catch ( IOException e ) {
+      throw new KettleFileException( "Unable to build lookup index file " + indexFile, e );
+    }
+  }
+
+  /**
+   * @param keyData
+   *          the key to look up
+   * @return the value of the key, or null if the key isn't present
+   * @throws KettleFileException
+   *           in case the key can't be encoded or the row can't be read
+   */
+  public Object[] get( Object[] keyData ) throws KettleFileException {
+    finish();
+
+    keyBuffer.reset();
+    keyWriter.writeRow( keyData );
+    byte[] key = keyBuffer.getBuffer();
+    int keyLength = keyBuffer.size();
+    long hash = hash( key, keyLength );
+    if ( !mightContain( hash ) ) {
+      return null;
+    }
+
+    Key cacheKey = null;
+    if ( cache != null ) {
+      cacheKey = new Key( Arrays.copyOf( key, keyLength ), hash );
+      Object[] cached = cache.get( cacheKey );
+      if ( cached != null ) {
+        return cached == MISSING ? null : cached;
+      }
+    }
+
+    Object[] value = null;
+    try {
+      for ( long slot = hash & slotMask; ; slot = ( slot + 1 ) & slotMask ) {
+        long offset = getSlotOffset( slot );
+        if ( offset < 0 ) {
+          break;
+        }
+        if ( getSlotHash( slot ) == hash && readRecord( offset, key, keyLength ) ) {
+          valueInputStream.set( record, HEADER_SIZE + keyLength );
+          value = valueReader.readRow();
+          break;
+        }
+      }
+    } catch ( IOException e ) {
+      throw new KettleFileException( "Unable to read lookup index file " + dataFile, e );
+    }
+
+    if ( cache != null ) {
+      cache.put( cacheKey, value == null ? MISSING : value );
+    }
+    return value;
+  }
+
+  /**
+   * @return the number of distinct keys, known once the index is finished
+   */
+  public long size() {
+    return size;
+  }
+
+  /**
+   * @return the number of rows put in the index
+   */
+  public long getRecordCount() {
+    return records;
+  }
+
+  /**
+   * @return the number of bytes of the data and index files
+   */
+  public long getDiskUsage() {
+    return dataSize + indexSize;
+  }
+
+  /**
+   * Release the files of the index.
+   */
+  @Override
+  public void close() {
+    try {
+      if ( dataOutput != null ) {
+        dataOutput.close();
+      }
+      if ( dataChannel != null ) {
+        dataChannel.close();
+      }
+    } catch ( IOException e ) {
+      // Ignore, the files are deleted anyway
+    }
+    dataOutput = null;
+    dataChannel = null;
+    segments = null;
+    bloom = null;
+    if ( cache != null ) {
+      cache.clear();
+    }
+    if ( dataFile != null ) {
+      dataFile.delete();
+    }
+    if ( indexFile != null ) {
+      indexFile.delete();
+    }
+  }
+
+  private void insert( long hash, long offset, byte[] key, int keyLength ) throws IOException {
+    for ( long slot = hash & slotMask; ; slot = ( slot + 1 ) & slotMask ) {
+      long slotOffset = getSlotOffset( slot );
+      if ( slotOffset < 0 ) {
+        setSlot( slot, hash, offset );
+        addToBloom( hash );
+        size++;
+        return;
+      }
+      if ( getSlotHash( slot ) == hash && readRecord( slotOffset, key, keyLength ) ) {
+        if ( keepLast ) {
+          setSlot( slot, hash, offset );
+        }
+        return;
+      }
+    }
+  }
+
+  /**
+   * Read the record at an offset of the data file into the record buffer.
+   *
+   * @return true if the key of the record is the given key
+   */
+  private boolean readRecord( long offset, byte[] key, int keyLength ) throws IOException {
+    int read = read( offset, 0, (int) Math.min( record.length, dataSize - offset ) );
+    int length = HEADER_SIZE + recordBuffer.getInt( 0 ) + recordBuffer.getInt( 4 );
+    if ( recordBuffer.getInt( 0 ) != keyLength ) {
+      return false;
+    }
+    if ( length > record.length ) {
+      byte[] bigger = new byte[ Math.max( length, record.length * 2 ) ];
+      System.arraycopy( record, 0, bigger, 0, read );
+      record = bigger;
+      recordBuffer = ByteBuffer.wrap( record );
+    }
+    if ( read < length ) {
+      read( offset + read, read, length - read );
+    }
+    return Arrays.equals( record, HEADER_SIZE, HEADER_SIZE + keyLength, key, 0, keyLength );
+  }
+
+  private int read( long position, int offset, int length ) throws IOException {
+    recordBuffer.clear().position( offset ).limit( offset + length );
+    while ( recordBuffer.hasRemaining() ) {
+      if ( dataChannel.read( recordBuffer, position + recordBuffer.position() - offset ) < 0 ) {
+        throw new EOFException( "Unexpected end of lookup index file " + dataFile );
+      }
+    }
+    return length;
+  }
+
+  private long getSlotHash( long slot ) {
+    return segments[ (int) ( slot >>> SEGMENT_SHIFT ) ].getLong( (int) ( ( slot & SEGMENT_MASK ) * SLOT_SIZE ) );
+  }
+
+  /**
+   * @return the offset of the record of a slot, -1 for an empty slot
+   */
+  private long getSlotOffset( long slot ) {
+    return segments[ (int) ( slot >>> SEGMENT_SHIFT ) ].getLong( (int) ( ( slot & SEGMENT_MASK ) * SLOT_SIZE + 8 ) )
+      - 1;
+  }
+
+  private void setSlot( long slot, long hash, long offset ) {
+    MappedByteBuffer segment = segments[ (int) ( slot >>> SEGMENT_SHIFT ) ];
+    int position = (int) ( ( slot & SEGMENT_MASK ) * SLOT_SIZE );
+    segment.putLong( position, hash );
+    segment.putLong( position + 8, offset + 1 );
+  }
+
+  private void addToBloom( long hash ) {
+    long bloomHash = hash * 0x9E3779B97F4A7C15L;
+    long h1 = bloomHash & 0xFFFFFFFFL;
+    long h2 = ( bloomHash >>> 32 ) | 1L;
+    for ( int i = 0; i < BLOOM_HASHES; i++ ) {
+      long bit = ( h1 + i * h2 ) & bloomMask;
+      bloom[ (int) ( bit >>> 6 ) ] |= 1L << bit;
+    }
+  }
+
+  private boolean mightContain( long hash ) {
+    long bloomHash = hash * 0x9E3779B97F4A7C15L;
+    long h1 = bloomHash & 0xFFFFFFFFL;
+    long h2 = ( bloomHash >>> 32 ) | 1L;
+    for ( int i = 0; i < BLOOM_HASHES; i++ ) {
+      long bit = ( h1 + i * h2 ) & bloomMask;
+      if ( ( bloom[ (int) ( bit >>> 6 ) ] & ( 1L << bit ) ) == 0 ) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * FNV-1a over the key bytes, finished with the murmur3 mix so all the bits are usable as slot index.
+   */
+  private static long hash( byte[] key, int length ) {
+    long hash = 0xCBF29CE484222325L;
+    for ( int i = 0; i < length; i++ ) {
+      hash ^= key[ i ];
+      hash *= 0x100000001B3L;
+    }
+    hash ^= hash >>> 33;
+    hash *= 0xFF51AFD7ED558CCDL;
+    hash ^= hash >>> 33;
+    hash *= 0xC4CEB9FE1A85EC53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+
+  private static void skipFully( InputStream input, long length ) throws IOException {
+    while ( length > 0 ) {
+      long skipped = input.skip( length );
+      if ( skipped <= 0 ) {
+        throw new EOFException();
+      }
+      length -= skipped;
+    }
+  }
+
+  /**
+   * A binary key of the LRU cache.
+   */
+  private static class Key {
+    private final byte[] bytes;
+    private final int hash;
+
+    Key( byte[] bytes, long hash ) {
+      this.bytes = bytes;
+      this.hash = (int) ( hash ^ ( hash >>> 32 ) );
+    }
+
+    @Override
+    public boolean equals( Object other ) {
+      return other instanceof Key && Arrays.equals( bytes, ( (Key) other ).bytes );
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+
+  /**
+   * A byte array output stream that gives access to its buffer, to encode a row without copying it.
+   */
+  private static class Buffer extends ByteArrayOutputStream {
+    byte[] getBuffer() {
+      return buf;
+    }
+  }
+
+  /**
+   * Reads a value from the record buffer. The spill row format starts with the size of the row, so the reader never
+   * reads past the value.
+   */
+  private static class RecordInputStream extends InputStream {
+    private byte[] bytes;
+    private int position;
+
+    void set( byte[] bytes, int position ) {
+      this.bytes = bytes;
+      this.position = position;
+    }
+
+    @Override
+    public int read() {
+      return position < bytes.length ? bytes[ position++ ] & 0xFF : -1;
+    }
+
+    @Override
+    public int read( byte[] b, int off, int len ) {
+      if ( position >= bytes.length ) {
+        return -1;
+      }
+      int n = Math.min( len, bytes.length - position );
+      System.arraycopy( bytes, position, b, off, n );
+      position += n;
+      return n;
+    }
+  }
+}
@@ -0,0 +1,409 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.hash;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.pentaho.di.core.Const;
+import org.pentaho.di.core.exception.KettleFileException;
+import org.pentaho.di.core.exception.KettleValueException;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.spill.RowSpillReader;
+import org.pentaho.di.core.row.spill.RowSpillWriter;
+import org.pentaho.di.i18n.BaseMessages;
+
+/**
+ * A memory compact key/value index for lookup rows. There are no objects per entry:
+ * <ul>
+ * <li>A single integer key is kept in a primitive open addressing table of longs.</li>
+ * <li>Other keys (strings, composite keys) are dictionary encoded: the binary form of every distinct key is stored once
+ * in a contiguous byte array and an open addressing table of ints maps it to a dense id.</li>
+ * <li>The values are packed in the binary row format of {@link RowSpillWriter}, in contiguous byte arrays, found by the
+ * id of their key.</li>
+ * </ul>
+ * Keys are compared on their binary form, like in {@link ByteArrayHashIndex}. Putting a key twice replaces its value.
+ *
+ * @since 11.1
+ */
+public class PackedHashIndex {
+  private static Class<?> PKG = Const.class; // for i18n purposes, needed by Translator2!!
+
+  private static final int CHUNK_SIZE = 1 << 20;
+  private static final int INITIAL_CAPACITY = 1024;
+
+  private final RowMetaInterface keyMeta;
+  private final boolean longKeys;
+
+  /** The number of distinct keys, ids go from 0 to size - 1 */
+  private int size;
+
+  /** Single integer keys: the keys and their id + 1 (0 is an empty slot). The id of the null key is kept apart. */
+  private long[] longSlots;
+  private int[] longIds;
+  private int nullId = -1;
+
+  /** Other keys: id + 1 per slot, the hash and the address of the binary key per id */
+  private int[] slots;
+  private int[] hashes;
+  private long[] keyAddresses;
+  private final ByteChunks keys;
+  private final RowSpillWriter keyWriter;
+  private final Buffer keyBuffer;
+
+  /** The address of the value per id */
+  private long[] valueAddresses;
+  private final ByteChunks values;
+  private final RowSpillWriter valueWriter;
+  private final Buffer valueBuffer;
+  private final RowSpillReader valueReader;
+  private final ChunkInputStream valueInputStream;
+
+  private int capacity;
+
+  /**
+   * @param keyMeta
+   *          the layout of the keys, in normal storage
+   * @param valueMeta
+   *          the layout of the values
+   */
+  public PackedHashIndex( RowMetaInterface keyMeta, RowMetaInterface valueMeta ) {
+    this.keyMeta = keyMeta;
+    this.longKeys = keyMeta.size() == 1 && keyMeta.getValueMeta( 0 ).isInteger()
+      && keyMeta.getValueMeta( 0 ).isStorageNormal();
+
+    capacity = INITIAL_CAPACITY;
+    if ( longKeys ) {
+      longSlots = new long[ capacity ];
+      longIds = new int[ capacity ];
+      keys = null;
+      keyWriter = null;
+      keyBuffer = null;
+    } else {
+      slots = new int[ capacity ];
+      hashes = new int[ capacity ];
+      keyAddresses = new long[ capacity ];
+      keys = new ByteChunks();
+      keyBuffer = new Buffer();
+      keyWriter = new RowSpillWriter( keyMeta, keyBuffer );
+    }
+
+    valueAddresses = new long[ capacity ];
+    values = new ByteChunks();
+    valueBuffer = new Buffer();
+    valueWriter = new RowSpillWriter( valueMeta, valueBuffer );
+    valueInputStream = new ChunkInputStream( values );
+    valueReader = new RowSpillReader( valueMeta, valueInputStream );
+  }
+
+  /**
+   * Add a key and its value, replace the value if the key is present already.
+   *
+   * @param keyData
+   *          the key
+   * @param valueData
+   *          the value
+   * @throws KettleValueException
+   *           in case the key or value can't be encoded
+   */
+  public void put( Object[] keyData, Object[] valueData ) throws KettleValueException {
+    int id = longKeys ? putLong( keyMeta.getInteger( keyData, 0 ) ) : putKey( keyData );
+
+    valueBuffer.reset();
+    write( valueWriter, valueData );
+    valueAddresses[ id ] = values.append( valueBuffer.getBuffer(), valueBuffer.size() );
+  }
+
+  /**
+   * @param keyData
+   *          the key to look up
+   * @return the value of the key, or null if the key isn't present
+   * @throws KettleValueException
+   *           in case the key can't be encoded or the value can't be decoded
+   */
+  public Object[] get( Object[] keyData ) throws KettleValueException {
+    int id = longKeys ? getLong( keyMeta.getInteger( keyData, 0 ) ) : getKey( keyData );
+    if ( id < 0 ) {
+      return null;
+    }
+    valueInputStream.seek( valueAddresses[ id ] );
+    try {
+      return valueReader.readRow();
+    } catch ( KettleFileException e ) {
+      throw new KettleValueException(
+        BaseMessages.getString( PKG, "PackedHashIndex.Exception.UnableToDecodeValue" ), e );
+    }
+  }
+
+  /**
+   * @return the number of distinct keys
+   */
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * @return the number of bytes taken by the index, a close estimate as it's all arrays
+   */
+  public long getMemoryUsage() {
+    long usage = 8L * valueAddresses.length + values.getMemoryUsage();
+    if ( longKeys ) {
+      usage += 12L * capacity;
+    } else {
+      usage += 16L * capacity + keys.getMemoryUsage();
+    }
+    return usage;
+  }
+
+  private int putLong( Long key ) {
+    if ( key == null ) {
+      if ( nullId < 0 ) {
+        nullId = newId();
+      }
+      return nullId;
+    }
+    int mask = capacity - 1;
+    int slot = mix( key ) & mask;
+    while ( longIds[ slot ] != 0 ) {
+      if ( longSlots[ slot ] == key ) {
+        return longIds[ slot ] - 1;
+      }
+      slot = ( slot + 1 ) & mask;
+    }
+    int id = newId();
+    longSlots[ slot ] = key;
+    longIds[ slot ] = id + 1;
+    if ( size * 4L > capacity * 3L ) {
+      grow();
+    }
+    return id;
+  }
+
+  private int getLong( Long key ) {
+    if ( key == null ) {
+      return nullId;
+    }
+    int mask = capacity - 1;
+    for ( int slot = mix( key ) & mask; longIds[ slot ] != 0; slot = ( slot + 1 ) & mask ) {
+      if ( longSlots[ slot ] == key ) {
+        return longIds[ slot ] - 1;
+      }
+    }
+    return -1;
+  }
+
+  private int putKey( Object[] keyData ) throws KettleValueException {
+    int hash = encodeKey( keyData );
+    int found = findKey( hash );
+    if ( found >= 0 ) {
+      return found;
+    }
+
+    int id = newId();
+    hashes[ id ] = hash;
+    keyAddresses[ id ] = keys.append( keyBuffer.getBuffer(), keyBuffer.size() );
+    insertSlot( hash, id );
+    if ( size * 4L > capacity * 3L ) {
+      grow();
+    }
+    return id;
+  }
+
+  private int getKey( Object[] keyData ) throws KettleValueException {
+    return findKey( encodeKey( keyData ) );
+  }
+
+  private int encodeKey( Object[] keyData ) throws KettleValueException {
+    keyBuffer.reset();
+    write( keyWriter, keyData );
+    byte[] bytes = keyBuffer.getBuffer();
+    int hash = 1;
+    for ( int i = 0; i < keyBuffer.size(); i++ ) {
+      hash = 31 * hash + bytes[ i ];
+    }
+    return hash;
+  }
+
+  private int findKey( int hash ) {
+    int mask = capacity - 1;
+    for ( int slot = mix( hash ) & mask; slots[ slot ] != 0; slot = ( slot + 1 ) & mask ) {
+      int id = slots[ slot ] - 1;
+      if ( hashes[ id ] == hash && keys.equals( keyAddresses[ id ], keyBuffer.getBuffer(), keyBuffer.size() ) ) {
+        return id;
+      }
+    }
+    return -1;
+  }
+
+  private void insertSlot( int hash, int id ) {
+    int mask = capacity - 1;
+    int slot = mix( hash ) & mask;
+    while ( slots[ slot ] != 0 ) {
+      slot = ( slot + 1 ) & mask;
+    }
+    slots[ slot ] = id + 1;
+  }
+
+  private int newId() {
+    if ( size == valueAddresses.length ) {
+      valueAddresses = Arrays.copyOf( valueAddresses, size * 2 );
+      if ( !longKeys ) {
+        hashes = Arrays.copyOf( hashes, size * 2 );
+        keyAddresses = Arrays.copyOf( keyAddresses, size * 2 );
+      }
+    }
+    return size++;
+  }
+
+  /**
+   * Double the number of slots. The ids, hashes and addresses stay where they are.
+   */
+  private void grow() {
+    capacity <<= 1;
+    if ( longKeys ) {
+      long[] oldSlots = longSlots;
+      int[] oldIds = longIds;
+      longSlots = new long[ capacity ];
+      longIds = new int[ capacity ];
+      int mask = capacity - 1;
+      for ( int i = 0; i < oldIds.length; i++ ) {
+        if ( oldIds[ i ] != 0 ) {
+          int slot = mix( oldSlots[ i ] ) & mask;
+          while ( longIds[ slot ] != 0 ) {
+            slot = ( slot + 1 ) & mask;
+          }
+          longSlots[ slot ] = oldSlots[ i ];
+          longIds[ slot ] = oldIds[ i ];
+        }
+      }
+    } else {
+      slots = new int[ capacity ];
+      for ( int id = 0; id < size; id++ ) {
+        insertSlot( hashes[ id ], id );
+      }
+    }
+  }
+
+  private static void write( RowSpillWriter writer, Object[] data ) throws KettleValueException {
+    try {
+      writer.writeRow( data );
+    } catch ( KettleFileException e ) {
+      throw new KettleValueException( BaseMessages.getString( PKG, "PackedHashIndex.Exception.UnableToEncodeRow" ), e );
+    }
+  }
+
+  private static int mix( long key ) {
+    key ^= key >>> 33;
+    key *= 0xFF51AFD7ED558CCDL;
+    key ^= key >>> 33;
+    key *= 0xC4CEB9FE1A85EC53L;
+    key ^= key >>> 33;
+    return (int) key;
+  }
+
+  private static int mix( int hash ) {
+    hash ^= hash >>> 16;
+    hash *= 0x85EBCA6B;
+    hash ^= hash >>> 13;
+    hash *= 0xC2B2AE35;
+    hash ^= hash >>> 16;
+    return hash;
+  }
+
+  /**
+   * A byte array output stream that gives access to its buffer, to encode a row without copying it.
+   */
+  private static class Buffer extends ByteArrayOutputStream {
+    byte[] getBuffer() {
+      return buf;
+    }
+  }
+
+  /**
+   * Append-only storage of records in byte arrays of 1MB. A record never spans two arrays, a record larger than 1MB
+   * gets an array of its own. The address of a record is the index of its array in the high 32 bits and its offset in
+   * the low 32 bits.
+   */
+  private static class ByteChunks {
+    private final List<byte[]> chunks = new ArrayList<>();
+    private int position;
+    private long memoryUsage;
+
+    long append( byte[] bytes, int length ) {
+      byte[] chunk = chunks.isEmpty() ? null : chunks.get( chunks.size() - 1 );
+      if ( chunk == null || position + length > chunk.length ) {
+        chunk = new byte[ Math.max( CHUNK_SIZE, length ) ];
+        chunks.add( chunk );
+        position = 0;
+        memoryUsage += chunk.length;
+      }
+      System.arraycopy( bytes, 0, chunk, position, length );
+      long address = ( (long) ( chunks.size() - 1 ) << 32 ) | position;
+      position += length;
+      return address;
+    }
+
+    boolean equals( long address, byte[] bytes, int length ) {
+      byte[] chunk = chunks.get( (int) ( address >>> 32 ) );
+      int offset = (int) address;
+      return offset + length <= chunk.length && Arrays.equals( chunk, offset, offset + length, bytes, 0, length );
+    }
+
+    long getMemoryUsage() {
+      return memoryUsage;
+    }
+  }
+
+  /**
+   * Reads the record at an address of the chunks. The spill row format starts with the size of the record, so the
+   * reader never reads past the record.
+   */
+  private static class ChunkInputStream extends InputStream {
+    private final ByteChunks chunks;
+    private byte[] chunk;
+    private int position;
+
+    ChunkInputStream( ByteChunks chunks ) {
+      this.chunks = chunks;
+    }
+
+    void seek( long address ) {
+      chunk = chunks.chunks.get( (int) ( address >>> 32 ) );
+      position = (int) address;
+    }
+
+    @Override
+    public int read() {
+      return position < chunk.length ? chunk[ position++ ] & 0xFF : -1;
+    }
+
+    @Override
+    public int read( byte[] b, int off, int len ) {
+      if ( position >= chunk.length ) {
+        return -1;
+      }
+      int n = Math.min( len, chunk.length - position );
+      System.arraycopy( chunk, position, b, off, n );
+      position += n;
+      return n;
+    }
+  }
+}
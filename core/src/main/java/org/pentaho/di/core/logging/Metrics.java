@@ -125,6 +125,27 @@ public class Metrics implements MetricsInterface {
     MetricsSnapshotType.START, "METRIC_STEP_INIT", "Initialize a step" );
   public static Metrics METRIC_STEP_INIT_STOP = new Metrics(
     MetricsSnapshotType.STOP, "METRIC_STEP_INIT", "Initialize a step" );
+  public static Metrics METRIC_STEP_LOOKUP_ROWS = new Metrics(
+    MetricsSnapshotType.MAX, "METRIC_STEP_LOOKUP_ROWS", "Number of distinct keys in the lookup index of a step" );
+  public static Metrics METRIC_STEP_LOOKUP_BYTES = new Metrics(
+    MetricsSnapshotType.MAX, "METRIC_STEP_LOOKUP_BYTES", "Memory used by the lookup index of a step (bytes)" );
+  public static Metrics METRIC_STEP_LOOKUP_BYTES_PER_ROW = new Metrics(
+    MetricsSnapshotType.MAX, "METRIC_STEP_LOOKUP_BYTES_PER_ROW",
+    "Memory used per key by the lookup index of a step (bytes)" );
+  public static Metrics METRIC_STEP_CACHE_HITS = new Metrics(
+    MetricsSnapshotType.SUM, "METRIC_STEP_CACHE_HITS", "Number of rows found in the cache of a step" );
+  public static Metrics METRIC_STEP_CACHE_MISSES = new Metrics(
+    MetricsSnapshotType.SUM, "METRIC_STEP_CACHE_MISSES", "Number of rows not found in the cache of a step" );
+  public static Metrics METRIC_STEP_CACHE_EVICTIONS = new Metrics(
+    MetricsSnapshotType.MAX, "METRIC_STEP_CACHE_EVICTIONS", "Number of rows evicted from the cache of a step" );
+  public static Metrics METRIC_STEP_PARTITION_ROWS = new Metrics(
+    MetricsSnapshotType.MAX, "METRIC_STEP_PARTITION_ROWS", "Number of rows a step sent to a partition" );
+  public static Metrics METRIC_STEP_PARTITION_SKEW = new Metrics(
+    MetricsSnapshotType.MAX, "METRIC_STEP_PARTITION_SKEW",
+    "Rows a step sent to its busiest partition, in percent of the average of the partitions" );
+  public static Metrics METRIC_STEP_OUTPUT_QUEUE_DEPTH = new Metrics(
+    MetricsSnapshotType.MAX, "METRIC_STEP_OUTPUT_QUEUE_DEPTH",
+    "Number of times a step saw the rows waiting for a copy of the next step up to a percentage of the row set size" );
 
   // Logging back-end
   //
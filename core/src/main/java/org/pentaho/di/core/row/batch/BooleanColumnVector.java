@@ -0,0 +1,72 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.core.row.batch;
+
+import java.util.Arrays;
+
+/**
+ * A column of boolean values stored as primitive booleans.
+ *
+ * @since 11.1
+ */
+public class BooleanColumnVector extends ColumnVector {
+
+  private boolean[] values;
+
+  public BooleanColumnVector( int capacity ) {
+    super( capacity );
+    values = new boolean[ capacity ];
+  }
+
+  /**
+   * @return the primitive values, only meaningful where the value isn't null
+   */
+  public boolean[] getValues() {
+    return values;
+  }
+
+  public boolean get( int index ) {
+    return values[ index ];
+  }
+
+  public void set( int index, boolean value ) {
+    values[ index ] = value;
+    setNull( index, false );
+  }
+
+  @Override
+  public Object getObject( int index ) {
+    return isNull( index ) ? null : Boolean.valueOf( values[ index ] );
+  }
+
+  @Override
+  public void setObject( int index, Object value ) {
+    if ( value == null ) {
+      setNull( index, true );
+    } else {
+      set( index, ( (Boolean) value ).booleanValue() );
+    }
+  }
+
+  @Override
+  protected void resizeValues( int newCapacity ) {
+    values = Arrays.copyOf( values, newCapacity );
+  }
+
+  @Override
+  protected void moveValue( int from, int to ) {
+    values[ to ] = values[ from ];
+  }
+}
@@ -0,0 +1,174 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.row.batch;
+
+import java.util.Arrays;
+
+import org.pentaho.di.core.row.ValueMetaInterface;
+
+/**
+ * The values of one field for all the rows in a {@link RowBatch}. Null values are tracked in a bitmap so that the
+ * primitive implementations never need to box.
+ *
+ * @since 11.1
+ */
+public abstract class ColumnVector {
+
+  protected long[] nulls;
+  protected int capacity;
+
+  protected ColumnVector( int capacity ) {
+    this.capacity = capacity;
+    this.nulls = new long[ ( capacity + 63 ) >>> 6 ];
+  }
+
+  /**
+   * Creates the best suited column vector for the given value: a primitive vector for integers, numbers and booleans
+   * in normal storage, a vector of objects for everything else.
+   *
+   * @param valueMeta
+   *          the metadata of the field
+   * @param capacity
+   *          the number of rows the vector needs to hold
+   * @return a new, empty column vector
+   */
+  public static ColumnVector create( ValueMetaInterface valueMeta, int capacity ) {
+    if ( valueMeta.getStorageType() == ValueMetaInterface.STORAGE_TYPE_NORMAL ) {
+      switch ( valueMeta.getType() ) {
+        case ValueMetaInterface.TYPE_INTEGER:
+          return new LongColumnVector( capacity );
+        case ValueMetaInterface.TYPE_NUMBER:
+          return new DoubleColumnVector( capacity );
+        case ValueMetaInterface.TYPE_BOOLEAN:
+          return new BooleanColumnVector( capacity );
+        default:
+          break;
+      }
+    }
+    return new ObjectColumnVector( capacity );
+  }
+
+  /**
+   * @param index
+   *          the row index
+   * @return true if the value at the given row is null
+   */
+  public boolean isNull( int index ) {
+    return ( nulls[ index >>> 6 ] & ( 1L << index ) ) != 0;
+  }
+
+  /**
+   * @param index
+   *          the row index
+   * @param isNull
+   *          true to flag the value at the given row as null
+   */
+  public void setNull( int index, boolean isNull ) {
+    if ( isNull ) {
+      nulls[ index >>> 6 ] |= 1L << index;
+    } else {
+      nulls[ index >>> 6 ] &= ~( 1L << index );
+    }
+  }
+
+  /**
+   * @return true if no value in the first size rows is null
+   */
+  public boolean noNulls( int size ) {
+    int words = size >>> 6;
+    for ( int i = 0; i < words; i++ ) {
+      if ( nulls[ i ] != 0L ) {
+        return false;
+      }
+    }
+    int rest = size & 63;
+    return rest == 0 || ( nulls[ words ] & ( ( 1L << rest ) - 1 ) ) == 0L;
+  }
+
+  /**
+   * Flag a row as null wherever the value of the same row is null in one of the given vectors, the way a binary
+   * operation propagates nulls. This works a word of 64 rows at a time.
+   *
+   * @param a
+   *          the first operand
+   * @param b
+   *          the second operand
+   */
+  public void setNulls( ColumnVector a, ColumnVector b ) {
+    for ( int i = 0; i < nulls.length; i++ ) {
+      long wordA = i < a.nulls.length ? a.nulls[ i ] : 0L;
+      long wordB = i < b.nulls.length ? b.nulls[ i ] : 0L;
+      nulls[ i ] = wordA | wordB;
+    }
+  }
+
+  /**
+   * @return the number of rows this vector can hold
+   */
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * Make sure the vector can hold at least the given number of rows.
+   *
+   * @param newCapacity
+   *          the minimum capacity
+   */
+  public void ensureCapacity( int newCapacity ) {
+    if ( newCapacity > capacity ) {
+      int grown = Math.max( newCapacity, capacity + ( capacity >> 1 ) + 1 );
+      nulls = Arrays.copyOf( nulls, ( grown + 63 ) >>> 6 );
+      resizeValues( grown );
+      capacity = grown;
+    }
+  }
+
+  /**
+   * Keep only the rows flagged in the selection, in order, and move them to the front of the vector.
+   *
+   * @param selection
+   *          the indexes of the rows to keep, in ascending order
+   * @param selected
+   *          the number of valid entries in the selection
+   */
+  public void compact( int[] selection, int selected ) {
+    for ( int i = 0; i < selected; i++ ) {
+      int from = selection[ i ];
+      if ( from != i ) {
+        moveValue( from, i );
+        setNull( i, isNull( from ) );
+      }
+    }
+  }
+
+  /**
+   * @param index
+   *          the row index
+   * @return the value at the given row in the same form as in an Object[] row: boxed, or null.
+   */
+  public abstract Object getObject( int index );
+
+  /**
+   * @param index
+   *          the row index
+   * @param value
+   *          the value in the same form as in an Object[] row: boxed, or null.
+   */
+  public abstract void setObject( int index, Object value );
+
+  protected abstract void resizeValues( int newCapacity );
+
+  protected abstract void moveValue( int from, int to );
+}
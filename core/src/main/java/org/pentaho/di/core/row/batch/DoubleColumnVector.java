@@ -0,0 +1,72 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.core.row.batch;
+
+import java.util.Arrays;
+
+/**
+ * A column of number values stored as primitive doubles.
+ *
+ * @since 11.1
+ */
+public class DoubleColumnVector extends ColumnVector {
+
+  private double[] values;
+
+  public DoubleColumnVector( int capacity ) {
+    super( capacity );
+    values = new double[ capacity ];
+  }
+
+  /**
+   * @return the primitive values, only meaningful where the value isn't null
+   */
+  public double[] getValues() {
+    return values;
+  }
+
+  public double get( int index ) {
+    return values[ index ];
+  }
+
+  public void set( int index, double value ) {
+    values[ index ] = value;
+    setNull( index, false );
+  }
+
+  @Override
+  public Object getObject( int index ) {
+    return isNull( index ) ? null : Double.valueOf( values[ index ] );
+  }
+
+  @Override
+  public void setObject( int index, Object value ) {
+    if ( value == null ) {
+      setNull( index, true );
+    } else {
+      set( index, ( (Double) value ).doubleValue() );
+    }
+  }
+
+  @Override
+  protected void resizeValues( int newCapacity ) {
+    values = Arrays.copyOf( values, newCapacity );
+  }
+
+  @Override
+  protected void moveValue( int from, int to ) {
+    values[ to ] = values[ from ];
+  }
+}
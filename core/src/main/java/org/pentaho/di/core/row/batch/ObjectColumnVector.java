@@ -0,0 +1,54 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.core.row.batch;
+
+import java.util.Arrays;
+
+/**
+ * A column of values kept exactly as they appear in Object[] rows. Used for all the types and storage types that don't
+ * have a primitive representation.
+ *
+ * @since 11.1
+ */
+public class ObjectColumnVector extends ColumnVector {
+
+  private Object[] values;
+
+  public ObjectColumnVector( int capacity ) {
+    super( capacity );
+    values = new Object[ capacity ];
+  }
+
+  @Override
+  public Object getObject( int index ) {
+    return values[ index ];
+  }
+
+  @Override
+  public void setObject( int index, Object value ) {
+    values[ index ] = value;
+    setNull( index, value == null );
+  }
+
+  @Override
+  protected void resizeValues( int newCapacity ) {
+    values = Arrays.copyOf( values, newCapacity );
+  }
+
+  @Override
+  protected void moveValue( int from, int to ) {
+    values[ to ] = values[ from ];
+  }
+}
@@ -0,0 +1,264 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.core.row.batch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.pentaho.di.core.row.RowDataUtil;
+import org.pentaho.di.core.row.RowMetaInterface;
+
+/**
+ * A batch of rows described by one RowMetaInterface. The rows can be accessed as regular Object[] rows or field by
+ * field as {@link ColumnVector}s. Integer, number and boolean fields are decoded into primitive vectors with a null
+ * bitmap the first time they are asked for, so numeric work on the batch doesn't need to box or chase pointers.
+ *
+ * Columns that were replaced or added with {@link #setColumn(int, ColumnVector)} are written back into the Object[]
+ * rows when those are requested. That way steps that don't know about batches keep getting the rows they expect.
+ *
+ * @since 11.1
+ */
+public class RowBatch {
+
+  private RowMetaInterface rowMeta;
+  private Object[][] rows;
+  private int size;
+
+  /** The decoded or computed columns by field index, null if the column wasn't used as a vector yet */
+  private ColumnVector[] columns;
+
+  /** The columns that hold values the Object[] rows don't have yet */
+  private boolean[] modified;
+
+  /**
+   * @param rowMeta
+   *          the layout of the rows in this batch
+   * @param capacity
+   *          the expected number of rows
+   */
+  public RowBatch( RowMetaInterface rowMeta, int capacity ) {
+    this.rowMeta = rowMeta;
+    this.rows = new Object[ Math.max( 1, capacity ) ][];
+    this.size = 0;
+    this.columns = new ColumnVector[ rowMeta.size() ];
+    this.modified = new boolean[ rowMeta.size() ];
+  }
+
+  /**
+   * Creates a batch holding the given rows.
+   *
+   * @param rowMeta
+   *          the layout of the rows
+   * @param rows
+   *          the rows
+   * @return a new batch
+   */
+  public static RowBatch of( RowMetaInterface rowMeta, List<Object[]> rows ) {
+    RowBatch batch = new RowBatch( rowMeta, rows.size() );
+    for ( Object[] row : rows ) {
+      batch.addRow( row );
+    }
+    return batch;
+  }
+
+  /**
+   * @return the layout of the rows in this batch
+   */
+  public RowMetaInterface getRowMeta() {
+    return rowMeta;
+  }
+
+  /**
+   * Switch to a new row layout, typically the output row metadata of a step that appends fields. The fields that are
+   * common to both layouts need to be at the same positions.
+   *
+   * @param rowMeta
+   *          the new layout of the rows in this batch
+   */
+  public void setRowMeta( RowMetaInterface rowMeta ) {
+    this.rowMeta = rowMeta;
+    int nrFields = rowMeta.size();
+    if ( nrFields != columns.length ) {
+      columns = Arrays.copyOf( columns, nrFields );
+      modified = Arrays.copyOf( modified, nrFields );
+    }
+  }
+
+  /**
+   * @return the number of rows in this batch
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @return true if there are no rows in this batch
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Add a row at the end of the batch.
+   *
+   * @param row
+   *          the row to add
+   */
+  public void addRow( Object[] row ) {
+    if ( size == rows.length ) {
+      rows = Arrays.copyOf( rows, rows.length + ( rows.length >> 1 ) + 1 );
+    }
+    for ( int i = 0; i < columns.length; i++ ) {
+      if ( columns[ i ] != null ) {
+        columns[ i ].ensureCapacity( size + 1 );
+        columns[ i ].setObject( size, i < row.length ? row[ i ] : null );
+      }
+    }
+    rows[ size++ ] = row;
+  }
+
+  /**
+   * Get the values of a field as a column vector. The vector is decoded from the rows the first time it's requested.
+   * If you change values in the vector, hand it back with {@link #setColumn(int, ColumnVector)}.
+   *
+   * @param index
+   *          the field index in the row metadata
+   * @return the column vector of the field
+   */
+  public ColumnVector getColumn( int index ) {
+    ColumnVector column = columns[ index ];
+    if ( column == null ) {
+      column = ColumnVector.create( rowMeta.getValueMeta( index ), size );
+      for ( int i = 0; i < size; i++ ) {
+        Object[] row = rows[ i ];
+        column.setObject( i, index < row.length ? row[ index ] : null );
+      }
+      columns[ index ] = column;
+    }
+    return column;
+  }
+
+  /**
+   * Set or replace the values of a field. The Object[] rows are updated when they're requested.
+   *
+   * @param index
+   *          the field index in the row metadata
+   * @param column
+   *          the column vector with at least size() values
+   */
+  public void setColumn( int index, ColumnVector column ) {
+    columns[ index ] = column;
+    modified[ index ] = true;
+  }
+
+  /**
+   * Get a row of the batch in the regular Object[] format, including the values of all the modified columns.
+   *
+   * @param index
+   *          the row index
+   * @return the row
+   */
+  public Object[] getRow( int index ) {
+    Object[] row = rows[ index ];
+    for ( int c = 0; c < modified.length; c++ ) {
+      if ( modified[ c ] ) {
+        if ( row.length <= c ) {
+          row = RowDataUtil.resizeArray( row, rowMeta.size() );
+          rows[ index ] = row;
+        }
+        row[ c ] = columns[ c ].getObject( index );
+      }
+    }
+    return row;
+  }
+
+  /**
+   * @return all the rows in the regular Object[] format
+   */
+  public List<Object[]> getRows() {
+    List<Object[]> list = new ArrayList<>( size );
+    for ( int i = 0; i < size; i++ ) {
+      list.add( getRow( i ) );
+    }
+    Arrays.fill( modified, false );
+    return list;
+  }
+
+  /**
+   * Only keep the rows that are flagged in the selection. The order of the rows doesn't change.
+   *
+   * @param keep
+   *          for every row in the batch: true to keep it
+   */
+  public void select( boolean[] keep ) {
+    int[] selection = new int[ size ];
+    int selected = 0;
+    for ( int i = 0; i < size; i++ ) {
+      if ( keep[ i ] ) {
+        selection[ selected++ ] = i;
+      }
+    }
+    if ( selected == size ) {
+      return;
+    }
+    for ( int i = 0; i < selected; i++ ) {
+      rows[ i ] = rows[ selection[ i ] ];
+    }
+    Arrays.fill( rows, selected, size, null );
+    for ( ColumnVector column : columns ) {
+      if ( column != null ) {
+        column.compact( selection, selected );
+      }
+    }
+    size = selected;
+  }
+
+  /**
+   * Pick, drop and re-order fields.
+   *
+   * @param fieldIndexes
+   *          for every field in the new layout: the index of the field in the current layout
+   * @param outputRowMeta
+   *          the new layout
+   */
+  public void project( int[] fieldIndexes, RowMetaInterface outputRowMeta ) {
+    for ( int i = 0; i < size; i++ ) {
+      Object[] row = getRow( i );
+      Object[] newRow = RowDataUtil.allocateRowData( outputRowMeta.size() );
+      for ( int f = 0; f < fieldIndexes.length; f++ ) {
+        newRow[ f ] = row[ fieldIndexes[ f ] ];
+      }
+      rows[ i ] = newRow;
+    }
+    ColumnVector[] newColumns = new ColumnVector[ outputRowMeta.size() ];
+    for ( int f = 0; f < fieldIndexes.length; f++ ) {
+      newColumns[ f ] = columns[ fieldIndexes[ f ] ];
+    }
+    columns = newColumns;
+    modified = new boolean[ newColumns.length ];
+    rowMeta = outputRowMeta;
+  }
+
+  /**
+   * Remove all the rows, keep the layout.
+   */
+  public void clear() {
+    Arrays.fill( rows, 0, size, null );
+    Arrays.fill( columns, null );
+    Arrays.fill( modified, false );
+    size = 0;
+  }
+}
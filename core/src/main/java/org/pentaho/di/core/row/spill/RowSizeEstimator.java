@@ -0,0 +1,115 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.row.spill;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Date;
+
+import org.pentaho.di.core.Const;
+import org.pentaho.di.core.util.Utils;
+
+/**
+ * Estimates how much heap memory rows take, so that steps which buffer rows can stay within a budget of bytes instead
+ * of watching the free memory of the whole JVM. The estimates assume a 64-bit JVM with compressed object pointers and
+ * compact strings. They don't have to be exact, only consistent: the budget is what keeps a step from hogging the heap.
+ *
+ * @since 11.1
+ */
+public final class RowSizeEstimator {
+
+  private static final int OBJECT_HEADER = 16;
+  private static final int REFERENCE = 4;
+
+  private RowSizeEstimator() {
+  }
+
+  /**
+   * @param row
+   *          the row
+   * @return the estimated number of bytes the row and its values take on the heap
+   */
+  public static long estimateSize( Object[] row ) {
+    long size = OBJECT_HEADER + (long) REFERENCE * row.length;
+    for ( Object value : row ) {
+      size += estimateSize( value );
+    }
+    return size;
+  }
+
+  /**
+   * @param value
+   *          a value of a row
+   * @return the estimated number of bytes the value takes on the heap
+   */
+  public static long estimateSize( Object value ) {
+    if ( value == null || value instanceof Boolean ) {
+      return 0L;
+    }
+    if ( value instanceof String ) {
+      return OBJECT_HEADER + 8 + OBJECT_HEADER + ( (String) value ).length();
+    }
+    if ( value instanceof Long || value instanceof Double || value instanceof Integer ) {
+      return OBJECT_HEADER;
+    }
+    if ( value instanceof byte[] ) {
+      return OBJECT_HEADER + ( (byte[]) value ).length;
+    }
+    if ( value instanceof Timestamp ) {
+      return OBJECT_HEADER + 16;
+    }
+    if ( value instanceof Date ) {
+      return OBJECT_HEADER + 8;
+    }
+    if ( value instanceof BigDecimal ) {
+      return OBJECT_HEADER * 4 + ( ( (BigDecimal) value ).precision() >> 1 );
+    }
+    return OBJECT_HEADER * 4;
+  }
+
+  /**
+   * Convert a size like "512m" into a number of bytes. The suffixes k, m and g (case insensitive) are supported.
+   *
+   * @param size
+   *          the size to convert
+   * @param defaultValue
+   *          the value to return if the size is empty or can't be parsed
+   * @return the number of bytes
+   */
+  public static long toBytes( String size, long defaultValue ) {
+    if ( Utils.isEmpty( size ) ) {
+      return defaultValue;
+    }
+    String value = size.trim().toLowerCase();
+    long multiplier = 1L;
+    switch ( value.charAt( value.length() - 1 ) ) {
+      case 'k':
+        multiplier = 1024L;
+        break;
+      case 'm':
+        multiplier = 1024L * 1024L;
+        break;
+      case 'g':
+        multiplier = 1024L * 1024L * 1024L;
+        break;
+      default:
+        break;
+    }
+    if ( multiplier > 1L ) {
+      value = value.substring( 0, value.length() - 1 ).trim();
+    }
+    long number = Const.toLong( value, -1L );
+    return number < 0 ? defaultValue : number * multiplier;
+  }
+}
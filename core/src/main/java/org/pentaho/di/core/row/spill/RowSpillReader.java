@@ -0,0 +1,198 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.row.spill;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Date;
+
+import org.pentaho.di.core.exception.KettleFileException;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+
+/**
+ * Reads back the rows written by a {@link RowSpillWriter}.
+ *
+ * @since 11.1
+ */
+public class RowSpillReader implements Closeable {
+
+  private final ValueMetaInterface[] valueMetas;
+  private final int[] encodings;
+  private final InputStream inputStream;
+
+  /** The row being decoded */
+  private byte[] buffer;
+  private int position;
+  private int limit;
+
+  /** Reads the values without a compact encoding from the row buffer */
+  private final DataInputStream otherInputStream;
+
+  private boolean finished;
+
+  /**
+   * @param rowMeta
+   *          the layout of the rows, the same as the one used to write them
+   * @param inputStream
+   *          the (buffered, possibly decompressing) stream to read from. It's closed when the reader is closed.
+   */
+  public RowSpillReader( RowMetaInterface rowMeta, InputStream inputStream ) {
+    this.valueMetas = rowMeta.getValueMetaList().toArray( new ValueMetaInterface[ 0 ] );
+    this.encodings = RowSpillWriter.getEncodings( valueMetas );
+    this.inputStream = inputStream;
+    this.buffer = new byte[ 256 ];
+    this.otherInputStream = new DataInputStream( new InputStream() {
+      @Override
+      public int read() {
+        return position < limit ? buffer[ position++ ] & 0xFF : -1;
+      }
+
+      @Override
+      public int read( byte[] b, int off, int len ) {
+        if ( position >= limit ) {
+          return -1;
+        }
+        int n = Math.min( len, limit - position );
+        System.arraycopy( buffer, position, b, off, n );
+        position += n;
+        return n;
+      }
+    } );
+  }
+
+  /**
+   * Read the next row.
+   *
+   * @return the next row or null if all the rows were read.
+   * @throws KettleFileException
+   *           in case the row can't be read or decoded
+   */
+  public Object[] readRow() throws KettleFileException {
+    if ( finished ) {
+      return null;
+    }
+    try {
+      int size = readSize();
+      if ( size <= 0 ) {
+        // The end of file marker, or a spill file that wasn't closed properly
+        finished = true;
+        return null;
+      }
+      size--;
+      if ( size > buffer.length ) {
+        buffer = new byte[ Math.max( size, buffer.length * 2 ) ];
+      }
+      readFully( size );
+      position = 0;
+      limit = size;
+
+      Object[] row = new Object[ valueMetas.length ];
+      int bitmapSize = ( valueMetas.length + 7 ) >>> 3;
+      position = bitmapSize;
+      for ( int i = 0; i < valueMetas.length; i++ ) {
+        if ( ( buffer[ i >>> 3 ] & ( 1 << ( i & 7 ) ) ) == 0 ) {
+          row[ i ] = readValue( i );
+        }
+      }
+      return row;
+    } catch ( IOException e ) {
+      throw new KettleFileException( "Unable to read a row from the spill file", e );
+    }
+  }
+
+  private Object readValue( int index ) throws KettleFileException, SocketTimeoutException {
+    switch ( encodings[ index ] ) {
+      case RowSpillWriter.ENCODING_INTEGER:
+        long l = readVarLong();
+        return ( l >>> 1 ) ^ -( l & 1 );
+      case RowSpillWriter.ENCODING_NUMBER:
+        return Double.longBitsToDouble( readLong() );
+      case RowSpillWriter.ENCODING_STRING:
+        int length = (int) readVarLong();
+        String string = new String( buffer, position, length, StandardCharsets.UTF_8 );
+        position += length;
+        return string;
+      case RowSpillWriter.ENCODING_BOOLEAN:
+        return buffer[ position++ ] != 0;
+      case RowSpillWriter.ENCODING_DATE:
+        long time = readVarLong();
+        return new Date( ( time >>> 1 ) ^ -( time & 1 ) );
+      case RowSpillWriter.ENCODING_BYTES:
+        int size = (int) readVarLong();
+        byte[] bytes = Arrays.copyOfRange( buffer, position, position + size );
+        position += size;
+        return bytes;
+      default:
+        return valueMetas[ index ].readData( otherInputStream );
+    }
+  }
+
+  private int readSize() throws IOException {
+    int size = 0;
+    for ( int shift = 0; shift < 32; shift += 7 ) {
+      int b = inputStream.read();
+      if ( b < 0 ) {
+        return -1;
+      }
+      size |= ( b & 0x7F ) << shift;
+      if ( ( b & 0x80 ) == 0 ) {
+        return size;
+      }
+    }
+    throw new IOException( "Malformed row size in spill file" );
+  }
+
+  private void readFully( int size ) throws IOException {
+    int read = 0;
+    while ( read < size ) {
+      int n = inputStream.read( buffer, read, size - read );
+      if ( n < 0 ) {
+        throw new EOFException( "Unexpected end of spill file" );
+      }
+      read += n;
+    }
+  }
+
+  private long readVarLong() {
+    long value = 0L;
+    for ( int shift = 0; ; shift += 7 ) {
+      byte b = buffer[ position++ ];
+      value |= (long) ( b & 0x7F ) << shift;
+      if ( b >= 0 ) {
+        return value;
+      }
+    }
+  }
+
+  private long readLong() {
+    long value = 0L;
+    for ( int i = 0; i < 8; i++ ) {
+      value = ( value << 8 ) | ( buffer[ position++ ] & 0xFF );
+    }
+    return value;
+  }
+
+  @Override
+  public void close() throws IOException {
+    finished = true;
+    inputStream.close();
+  }
+}
@@ -0,0 +1,279 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.row.spill;
+
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Date;
+
+import org.pentaho.di.core.exception.KettleFileException;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+
+/**
+ * Writes rows to a spill file: a temporary file that holds rows which don't fit in memory and which are read back by
+ * the same transformation with a {@link RowSpillReader} and the same row metadata.
+ *
+ * Every row is written as a variable length integer holding its size in bytes + 1, followed by a bitmap of the null
+ * values and the non-null values. Integers are written as zig-zag variable length integers, strings and binaries are
+ * prefixed with a variable length size. Types without a compact encoding use the regular
+ * {@link ValueMetaInterface#writeData(DataOutputStream, Object)}. A 0 marks the end of the file, so the reader never
+ * needs to rely on an exception to detect it.
+ *
+ * Compression is left to the output stream handed to the writer.
+ *
+ * @since 11.1
+ */
+public class RowSpillWriter implements Closeable {
+
+  static final int ENCODING_OTHER = 0;
+  static final int ENCODING_INTEGER = 1;
+  static final int ENCODING_NUMBER = 2;
+  static final int ENCODING_STRING = 3;
+  static final int ENCODING_BOOLEAN = 4;
+  static final int ENCODING_DATE = 5;
+  static final int ENCODING_BYTES = 6;
+
+  private final ValueMetaInterface[] valueMetas;
+  private final int[] encodings;
+  private final OutputStream outputStream;
+
+  /** The row being encoded */
+  private byte[] buffer;
+  private int position;
+
+  /** Writes the values without a compact encoding into the row buffer */
+  private final DataOutputStream otherOutputStream;
+
+  private final byte[] sizeBuffer = new byte[ 5 ];
+
+  private long rowCount;
+  private long byteCount;
+  private boolean closed;
+
+  /**
+   * @param rowMeta
+   *          the layout of the rows to write
+   * @param outputStream
+   *          the (buffered, possibly compressed) stream to write to. It's closed when the writer is closed.
+   */
+  public RowSpillWriter( RowMetaInterface rowMeta, OutputStream outputStream ) {
+    this.valueMetas = rowMeta.getValueMetaList().toArray( new ValueMetaInterface[ 0 ] );
+    this.encodings = getEncodings( valueMetas );
+    this.outputStream = outputStream;
+    this.buffer = new byte[ 256 ];
+    this.otherOutputStream = new DataOutputStream( new OutputStream() {
+      @Override
+      public void write( int b ) {
+        writeByte( b );
+      }
+
+      @Override
+      public void write( byte[] b, int off, int len ) {
+        writeBytes( b, off, len );
+      }
+    } );
+  }
+
+  static int[] getEncodings( ValueMetaInterface[] valueMetas ) {
+    int[] encodings = new int[ valueMetas.length ];
+    for ( int i = 0; i < valueMetas.length; i++ ) {
+      ValueMetaInterface valueMeta = valueMetas[ i ];
+      if ( valueMeta.isStorageBinaryString() ) {
+        encodings[ i ] = ENCODING_BYTES;
+      } else if ( valueMeta.isStorageNormal() ) {
+        switch ( valueMeta.getType() ) {
+          case ValueMetaInterface.TYPE_INTEGER:
+            encodings[ i ] = ENCODING_INTEGER;
+            break;
+          case ValueMetaInterface.TYPE_NUMBER:
+            encodings[ i ] = ENCODING_NUMBER;
+            break;
+          case ValueMetaInterface.TYPE_STRING:
+            encodings[ i ] = ENCODING_STRING;
+            break;
+          case ValueMetaInterface.TYPE_BOOLEAN:
+            encodings[ i ] = ENCODING_BOOLEAN;
+            break;
+          case ValueMetaInterface.TYPE_DATE:
+            encodings[ i ] = ENCODING_DATE;
+            break;
+          case ValueMetaInterface.TYPE_BINARY:
+            encodings[ i ] = ENCODING_BYTES;
+            break;
+          default:
+            encodings[ i ] = ENCODING_OTHER;
+            break;
+        }
+      } else {
+        encodings[ i ] = ENCODING_OTHER;
+      }
+    }
+    return encodings;
+  }
+
+  /**
+   * Write a row to the spill file.
+   *
+   * @param row
+   *          the row, at least as long as the row metadata
+   * @throws KettleFileException
+   *           in case the row can't be encoded or written
+   */
+  public void writeRow( Object[] row ) throws KettleFileException {
+    position = 0;
+
+    // The null bitmap
+    //
+    int bitmapSize = ( valueMetas.length + 7 ) >>> 3;
+    ensureCapacity( bitmapSize );
+    Arrays.fill( buffer, 0, bitmapSize, (byte) 0 );
+    for ( int i = 0; i < valueMetas.length; i++ ) {
+      if ( row[ i ] == null ) {
+        buffer[ i >>> 3 ] |= (byte) ( 1 << ( i & 7 ) );
+      }
+    }
+    position = bitmapSize;
+
+    try {
+      for ( int i = 0; i < valueMetas.length; i++ ) {
+        Object value = row[ i ];
+        if ( value != null ) {
+          writeValue( i, value );
+        }
+      }
+    } catch ( ClassCastException e ) {
+      throw new KettleFileException( "Unable to write a row to the spill file: the data type of a value doesn't "
+        + "correspond to its metadata", e );
+    }
+
+    try {
+      int sizeLength = encodeSize( position + 1, sizeBuffer );
+      outputStream.write( sizeBuffer, 0, sizeLength );
+      outputStream.write( buffer, 0, position );
+      byteCount += sizeLength + position;
+      rowCount++;
+    } catch ( IOException e ) {
+      throw new KettleFileException( "Unable to write a row to the spill file", e );
+    }
+  }
+
+  private void writeValue( int index, Object value ) throws KettleFileException {
+    switch ( encodings[ index ] ) {
+      case ENCODING_INTEGER:
+        long l = (Long) value;
+        writeVarLong( ( l << 1 ) ^ ( l >> 63 ) );
+        break;
+      case ENCODING_NUMBER:
+        writeLong( Double.doubleToRawLongBits( (Double) value ) );
+        break;
+      case ENCODING_STRING:
+        byte[] chars = ( (String) value ).getBytes( StandardCharsets.UTF_8 );
+        writeVarLong( chars.length );
+        writeBytes( chars, 0, chars.length );
+        break;
+      case ENCODING_BOOLEAN:
+        writeByte( ( (Boolean) value ) ? 1 : 0 );
+        break;
+      case ENCODING_DATE:
+        long time = ( (Date) value ).getTime();
+        writeVarLong( ( time << 1 ) ^ ( time >> 63 ) );
+        break;
+      case ENCODING_BYTES:
+        byte[] bytes = (byte[]) value;
+        writeVarLong( bytes.length );
+        writeBytes( bytes, 0, bytes.length );
+        break;
+      default:
+        valueMetas[ index ].writeData( otherOutputStream, value );
+        break;
+    }
+  }
+
+  /**
+   * @return the number of rows written so far
+   */
+  public long getRowCount() {
+    return rowCount;
+  }
+
+  /**
+   * @return the number of (uncompressed) bytes written so far
+   */
+  public long getByteCount() {
+    return byteCount;
+  }
+
+  /**
+   * Write the end of file marker and close the output stream.
+   */
+  @Override
+  public void close() throws IOException {
+    if ( !closed ) {
+      closed = true;
+      try {
+        outputStream.write( 0 );
+      } finally {
+        outputStream.close();
+      }
+    }
+  }
+
+  static int encodeSize( int size, byte[] target ) {
+    int length = 0;
+    while ( ( size & ~0x7F ) != 0 ) {
+      target[ length++ ] = (byte) ( ( size & 0x7F ) | 0x80 );
+      size >>>= 7;
+    }
+    target[ length++ ] = (byte) size;
+    return length;
+  }
+
+  private void writeVarLong( long value ) {
+    ensureCapacity( position + 10 );
+    while ( ( value & ~0x7FL ) != 0L ) {
+      buffer[ position++ ] = (byte) ( ( value & 0x7F ) | 0x80 );
+      value >>>= 7;
+    }
+    buffer[ position++ ] = (byte) value;
+  }
+
+  private void writeLong( long value ) {
+    ensureCapacity( position + 8 );
+    for ( int shift = 56; shift >= 0; shift -= 8 ) {
+      buffer[ position++ ] = (byte) ( value >>> shift );
+    }
+  }
+
+  private void writeByte( int b ) {
+    ensureCapacity( position + 1 );
+    buffer[ position++ ] = (byte) b;
+  }
+
+  private void writeBytes( byte[] bytes, int offset, int length ) {
+    ensureCapacity( position + length );
+    System.arraycopy( bytes, offset, buffer, position, length );
+    position += length;
+  }
+
+  private void ensureCapacity( int capacity ) {
+    if ( capacity > buffer.length ) {
+      buffer = Arrays.copyOf( buffer, Math.max( capacity, buffer.length * 2 ) );
+    }
+  }
+}
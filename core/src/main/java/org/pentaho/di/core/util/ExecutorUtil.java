@@ -14,6 +14,7 @@
 
 package org.pentaho.di.core.util;
 
+import java.lang.reflect.Method;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
@@ -24,6 +25,12 @@ public class ExecutorUtil {
   private static final AtomicInteger threadNum = new AtomicInteger( 1 );
   private static final ExecutorService executor = init();
 
+  /**
+   * Creates virtual threads, null when the Java runtime has none (before Java 21). Looked up by reflection because we
+   * still compile for older runtimes.
+   */
+  private static final ThreadFactory virtualThreadFactory = initVirtualThreadFactory();
+
   private static ExecutorService init() {
     ExecutorService executorService = Executors.newCachedThreadPool( new ThreadFactory() {
       @Override public Thread newThread( Runnable r ) {
@@ -36,7 +43,39 @@ public class ExecutorUtil {
     return executorService;
   }
 
+  private static ThreadFactory initVirtualThreadFactory() {
+    try {
+      Object builder = Thread.class.getMethod( "ofVirtual" ).invoke( null );
+      Method factory = Class.forName( "java.lang.Thread$Builder" ).getMethod( "factory" );
+      return (ThreadFactory) factory.invoke( builder );
+    } catch ( Exception | LinkageError e ) {
+      return null;
+    }
+  }
+
   public static ExecutorService getExecutor() {
     return executor;
   }
+
+  /**
+   * @return true if the Java runtime supports virtual threads
+   */
+  public static boolean isVirtualThreadSupported() {
+    return virtualThreadFactory != null;
+  }
+
+  /**
+   * Create a thread to run a task that spends most of its time waiting, for example for rows or for a database. Virtual
+   * threads park without holding on to an OS thread, so thousands of them only need a few carrier threads.
+   *
+   * @param task    the task to run
+   * @param name    the name of the thread
+   * @param virtual true to create a virtual thread when the Java runtime supports them
+   * @return the new, unstarted thread: a virtual thread if asked and supported, a platform thread otherwise
+   */
+  public static Thread newThread( Runnable task, String name, boolean virtual ) {
+    Thread thread = virtual && virtualThreadFactory != null ? virtualThreadFactory.newThread( task ) : new Thread( task );
+    thread.setName( name );
+    return thread;
+  }
 }
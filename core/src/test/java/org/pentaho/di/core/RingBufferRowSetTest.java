@@ -0,0 +1,136 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.core;
+
+import org.junit.Test;
+import org.pentaho.di.core.RingBufferRowSet.WaitStrategy;
+import org.pentaho.di.core.row.RowMeta;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class RingBufferRowSetTest {
+
+  @Test
+  public void testPutGetInOrder() {
+    RingBufferRowSet rowSet = new RingBufferRowSet( 3 );
+    for ( int i = 0; i < 3; i++ ) {
+      assertTrue( rowSet.putRowWait( new RowMeta(), new Object[] { i }, 1, TimeUnit.MILLISECONDS ) );
+    }
+    assertEquals( 3, rowSet.size() );
+    // the capacity is honored even though the slot array is rounded up to 4
+    assertFalse( rowSet.putRowWait( new RowMeta(), new Object[] { 3 }, 1, TimeUnit.MILLISECONDS ) );
+
+    for ( int i = 0; i < 3; i++ ) {
+      assertEquals( i, rowSet.getRowImmediate()[0] );
+    }
+    assertNull( rowSet.getRowImmediate() );
+    assertNull( rowSet.getRowWait( 1, TimeUnit.MILLISECONDS ) );
+    assertEquals( 0, rowSet.size() );
+  }
+
+  @Test
+  public void testNullRowIsRejected() {
+    RingBufferRowSet rowSet = new RingBufferRowSet( 2 );
+    assertFalse( rowSet.putRow( new RowMeta(), null ) );
+    assertEquals( 0, rowSet.size() );
+  }
+
+  @Test
+  public void testClear() {
+    RingBufferRowSet rowSet = new RingBufferRowSet( 2 );
+    rowSet.putRow( new RowMeta(), new Object[] {} );
+    rowSet.putRow( new RowMeta(), new Object[] {} );
+    rowSet.setDone();
+    rowSet.clear();
+    assertEquals( 0, rowSet.size() );
+    assertFalse( rowSet.isDone() );
+    assertTrue( rowSet.putRow( new RowMeta(), new Object[] {} ) );
+  }
+
+  @Test
+  public void testGetWaitStrategy() {
+    assertEquals( WaitStrategy.SPIN, WaitStrategy.getWaitStrategy( "spin", WaitStrategy.PARK ) );
+    assertEquals( WaitStrategy.YIELD, WaitStrategy.getWaitStrategy( " YIELD ", WaitStrategy.PARK ) );
+    assertEquals( WaitStrategy.PARK, WaitStrategy.getWaitStrategy( "bogus", WaitStrategy.PARK ) );
+    assertEquals( WaitStrategy.PARK, WaitStrategy.getWaitStrategy( null, WaitStrategy.PARK ) );
+  }
+
+  @Test
+  public void testHandOverSpin() throws Exception {
+    // keep this one short: spinning threads starve each other on single core build machines
+    handOver( WaitStrategy.SPIN, 1000 );
+  }
+
+  @Test
+  public void testHandOverYield() throws Exception {
+    handOver( WaitStrategy.YIELD, 100000 );
+  }
+
+  @Test
+  public void testHandOverPark() throws Exception {
+    handOver( WaitStrategy.PARK, 100000 );
+  }
+
+  @Test( timeout = 5000 )
+  public void testSetDoneWakesUpConsumer() throws Exception {
+    final RingBufferRowSet rowSet = new RingBufferRowSet( 10, WaitStrategy.PARK );
+    Thread consumer = new Thread( () -> rowSet.getRowWait( 1, TimeUnit.HOURS ) );
+    consumer.start();
+    Thread.sleep( 50 );
+    rowSet.setDone();
+    consumer.join();
+  }
+
+  private void handOver( WaitStrategy waitStrategy, final int nrRows ) throws Exception {
+    final RingBufferRowSet rowSet = new RingBufferRowSet( 7, waitStrategy );
+    final AtomicReference<String> error = new AtomicReference<>();
+
+    Thread producer = new Thread( () -> {
+      for ( long i = 0; i < nrRows; i++ ) {
+        Object[] row = new Object[] { i };
+        while ( !rowSet.putRow( null, row ) ) {
+          // retry, just like BaseStep does
+        }
+      }
+      rowSet.setDone();
+    } );
+    Thread consumer = new Thread( () -> {
+      long expected = 0;
+      Object[] row = rowSet.getRow();
+      while ( row != null || !rowSet.isDone() || rowSet.size() > 0 ) {
+        if ( row != null ) {
+          if ( !Long.valueOf( expected ).equals( row[0] ) ) {
+            error.set( "Expected row " + expected + " but got " + row[0] );
+            return;
+          }
+          expected++;
+        }
+        row = rowSet.getRow();
+      }
+      if ( expected != nrRows ) {
+        error.set( "Expected " + nrRows + " rows but got " + expected );
+      }
+    } );
+    producer.start();
+    consumer.start();
+    producer.join( 30000 );
+    consumer.join( 30000 );
+
+    assertFalse( consumer.isAlive() );
+    assertNull( error.get() );
+  }
+}
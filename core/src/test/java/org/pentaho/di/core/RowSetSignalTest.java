@@ -0,0 +1,77 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.core;
+
+import org.junit.Test;
+import org.pentaho.di.core.row.RowMeta;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class RowSetSignalTest {
+
+  @Test
+  public void testAwaitTimesOut() {
+    RowSetSignal signal = new RowSetSignal();
+    assertFalse( signal.await( 1, TimeUnit.MILLISECONDS ) );
+  }
+
+  @Test
+  public void testSignalBeforeAwait() {
+    RowSetSignal signal = new RowSetSignal();
+    signal.signal();
+    assertTrue( signal.isSignaled() );
+    assertTrue( signal.await( 1, TimeUnit.HOURS ) );
+    signal.reset();
+    assertFalse( signal.isSignaled() );
+  }
+
+  @Test( timeout = 5000 )
+  public void testPutRowWakesUpConsumer() throws Exception {
+    final RowSetSignal signal = new RowSetSignal();
+    final BlockingRowSet rowSet = new BlockingRowSet( 10 );
+    assertTrue( rowSet.setConsumerSignal( signal ) );
+
+    Thread producer = new Thread( () -> {
+      try {
+        Thread.sleep( 50 );
+      } catch ( InterruptedException e ) {
+        // Ignore
+      }
+      rowSet.putRow( new RowMeta(), new Object[] {} );
+    } );
+    producer.start();
+
+    assertTrue( signal.await( 1, TimeUnit.HOURS ) );
+    assertEquals( 1, rowSet.size() );
+    producer.join();
+  }
+
+  @Test
+  public void testSetDoneRaisesSignal() {
+    RowSetSignal signal = new RowSetSignal();
+    RingBufferRowSet rowSet = new RingBufferRowSet( 10 );
+    rowSet.setConsumerSignal( signal );
+    rowSet.setDone();
+    assertTrue( signal.isSignaled() );
+  }
+
+  @Test
+  public void testSingleThreadedRowSetsDoNotSignal() {
+    RowSetSignal signal = new RowSetSignal();
+    assertFalse( new QueueRowSet().setConsumerSignal( signal ) );
+    assertFalse( new SingleRowRowSet().setConsumerSignal( signal ) );
+  }
+}
@@ -25,6 +25,7 @@ import static org.junit.Assert.fail;
 import static org.mockito.AdditionalMatchers.or;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.AdditionalMatchers.aryEq;
@@ -51,6 +52,7 @@ import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.SQLFeatureNotSupportedException;
 import java.sql.Types;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
 import java.util.logging.Logger;
@@ -74,8 +76,10 @@ import org.pentaho.di.core.exception.KettleDatabaseBatchException;
 import org.pentaho.di.core.exception.KettleDatabaseException;
 import org.pentaho.di.core.logging.LogLevel;
 import org.pentaho.di.core.logging.LoggingObjectInterface;
+import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
 import org.pentaho.di.core.row.value.ValueMetaNumber;
 import org.pentaho.di.core.variables.VariableSpace;
 import org.pentaho.di.junit.rules.RestorePDIEnvironment;
@@ -982,6 +986,46 @@ public class DatabaseTest {
     verify( db, times( 1 ) ).getTableFieldsMetaByDbMeta( any(), any() );
   }
 
+  @Test
+  public void testGetKeysCondition() {
+    when( meta.quoteField( anyString() ) ).thenAnswer( invocation -> invocation.getArguments()[ 0 ] );
+    Database db = new Database( log, meta );
+
+    assertEquals( "id IN ( ?, ?, ? )", db.getKeysCondition( new String[] { "id" }, 3 ) );
+    assertEquals( "( ( a = ? AND b = ? ) OR ( a = ? AND b = ? ) )",
+      db.getKeysCondition( new String[] { "a", "b" }, 2 ) );
+  }
+
+  @Test
+  public void testGetRowsMatchingKeys() throws Exception {
+    when( meta.quoteField( anyString() ) ).thenAnswer( invocation -> invocation.getArguments()[ 0 ] );
+    when( meta.stripCR( anyString() ) ).thenAnswer( invocation -> invocation.getArguments()[ 0 ] );
+    when( meta.supportsSetLong() ).thenReturn( true );
+    when( conn.prepareStatement( anyString() ) ).thenReturn( ps );
+    when( ps.executeQuery() ).thenReturn( rs );
+    when( rs.getMetaData() ).thenReturn( rsMetaData );
+
+    RowMetaInterface keyMeta = new RowMeta();
+    keyMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+    List<Object[]> keys = new ArrayList<>();
+    for ( long i = 0; i < Database.MAX_KEYS_LOOKUP_PARAMETERS + 500; i++ ) {
+      keys.add( new Object[] { i } );
+    }
+    keys.add( new Object[] { null } );
+
+    Database db = new Database( log, meta );
+    db.setConnection( conn );
+    List<Object[]> rows =
+      db.getRowsMatchingKeys( "SELECT id FROM t WHERE ", null, null, new String[] { "id" }, keyMeta, keys, null );
+
+    // One query per 1000 keys, the null key never matches
+    assertTrue( rows.isEmpty() );
+    verify( conn ).prepareStatement( "SELECT id FROM t WHERE " + db.getKeysCondition( new String[] { "id" },
+      Database.MAX_KEYS_LOOKUP_PARAMETERS ) );
+    verify( conn ).prepareStatement( "SELECT id FROM t WHERE " + db.getKeysCondition( new String[] { "id" }, 500 ) );
+    verify( ps, times( Database.MAX_KEYS_LOOKUP_PARAMETERS + 500 ) ).setLong( anyInt(), anyLong() );
+  }
+
   public static class MockDriver implements Driver {
     public static Connection conn;
 
@@ -61,6 +61,7 @@ public class MySQLDatabaseMetaTest {
     assertEquals( 1, nativeMeta.getNotFoundTK( true ) );
     assertEquals( 0, nativeMeta.getNotFoundTK( false ) );
     assertEquals( "com.mysql.cj.jdbc.Driver", nativeMeta.getDriverClass() );
+    assertEquals( "rewriteBatchedStatements", nativeMeta.getMultiRowInsertOption() );
     assertEquals( "jdbc:mysql://FOO:BAR/WIBBLE", nativeMeta.getURL( "FOO", "BAR", "WIBBLE" ) );
     assertEquals( "jdbc:mysql://FOO/WIBBLE", nativeMeta.getURL( "FOO", "", "WIBBLE" ) );
     assertEquals( "&", nativeMeta.getExtraOptionSeparator() );
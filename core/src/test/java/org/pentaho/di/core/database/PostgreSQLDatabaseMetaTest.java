@@ -47,6 +47,8 @@ public class PostgreSQLDatabaseMetaTest {
         nativeMeta.getAccessTypeList() );
     assertEquals( 5432, nativeMeta.getDefaultDatabasePort() );
     assertEquals( "org.postgresql.Driver", nativeMeta.getDriverClass() );
+    assertEquals( "reWriteBatchedInserts", nativeMeta.getMultiRowInsertOption() );
+    assertTrue( nativeMeta.supportsCopyFromStdin() );
 
     assertEquals( "jdbc:postgresql://FOO:BAR/WIBBLE", nativeMeta.getURL( "FOO", "BAR", "WIBBLE" ) );
 
@@ -27,6 +27,7 @@ import java.util.Map;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.pentaho.di.core.database.RedshiftDatabaseMeta.IAM_ACCESS_KEY_ID;
 import static org.pentaho.di.core.database.RedshiftDatabaseMeta.IAM_CREDENTIALS;
 import static org.pentaho.di.core.database.RedshiftDatabaseMeta.IAM_PROFILE_NAME;
@@ -72,6 +73,12 @@ public class RedshiftDatabaseMetaTest {
     assertEquals( "com.amazon.redshift.jdbc.Driver", dbMeta.getDriverClass() );
   }
 
+  @Test
+  public void testBulkOptions() {
+    assertNull( dbMeta.getMultiRowInsertOption() );
+    assertFalse( dbMeta.supportsCopyFromStdin() );
+  }
+
   @Test
   public void testGetURL() throws Exception {
     assertEquals( "jdbc:redshift://:/", dbMeta.getURL( "", "", "" ) );
@@ -0,0 +1,113 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.hash;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaString;
+
+public class DiskHashIndexTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private DiskHashIndex createIndex( boolean keepLast, int cacheSize ) throws Exception {
+    RowMetaInterface keyMeta = new RowMeta();
+    keyMeta.addValueMeta( new ValueMetaString( "code" ) );
+    keyMeta.addValueMeta( new ValueMetaInteger( "version" ) );
+    RowMetaInterface valueMeta = new RowMeta();
+    valueMeta.addValueMeta( new ValueMetaString( "name" ) );
+    return new DiskHashIndex( keyMeta, valueMeta, folder.getRoot(), keepLast, cacheSize );
+  }
+
+  @Test
+  public void testPutAndGet() throws Exception {
+    try ( DiskHashIndex index = createIndex( true, 0 ) ) {
+      for ( long i = 0; i < 10000; i++ ) {
+        index.put( new Object[] { "code" + i, i }, new Object[] { "name" + i } );
+      }
+      index.put( new Object[] { null, null }, new Object[] { null } );
+      index.finish();
+
+      assertEquals( 10001, index.size() );
+      for ( long i = 0; i < 10000; i++ ) {
+        assertArrayEquals( new Object[] { "name" + i }, index.get( new Object[] { "code" + i, i } ) );
+      }
+      assertArrayEquals( new Object[] { null }, index.get( new Object[] { null, null } ) );
+      assertNull( index.get( new Object[] { "code1", 2L } ) );
+      assertNull( index.get( new Object[] { "other", 1L } ) );
+    }
+  }
+
+  @Test
+  public void testKeepLast() throws Exception {
+    try ( DiskHashIndex index = createIndex( true, 10 ) ) {
+      index.put( new Object[] { "a", 1L }, new Object[] { "first" } );
+      index.put( new Object[] { "a", 1L }, new Object[] { "last" } );
+
+      assertArrayEquals( new Object[] { "last" }, index.get( new Object[] { "a", 1L } ) );
+      assertEquals( 1, index.size() );
+      assertEquals( 2, index.getRecordCount() );
+    }
+  }
+
+  @Test
+  public void testKeepFirst() throws Exception {
+    try ( DiskHashIndex index = createIndex( false, 10 ) ) {
+      index.put( new Object[] { "a", 1L }, new Object[] { "first" } );
+      index.put( new Object[] { "a", 1L }, new Object[] { "last" } );
+
+      // The second get is served by the cache
+      assertArrayEquals( new Object[] { "first" }, index.get( new Object[] { "a", 1L } ) );
+      assertArrayEquals( new Object[] { "first" }, index.get( new Object[] { "a", 1L } ) );
+    }
+  }
+
+  @Test
+  public void testEmpty() throws Exception {
+    try ( DiskHashIndex index = createIndex( true, 10 ) ) {
+      assertNull( index.get( new Object[] { "a", 1L } ) );
+      assertEquals( 0, index.size() );
+    }
+  }
+
+  @Test( expected = IllegalStateException.class )
+  public void testNoPutOnceFinished() throws Exception {
+    try ( DiskHashIndex index = createIndex( true, 10 ) ) {
+      index.finish();
+      index.put( new Object[] { "a", 1L }, new Object[] { "first" } );
+    }
+  }
+
+  @Test
+  public void testCloseDeletesFiles() throws Exception {
+    DiskHashIndex index = createIndex( true, 10 );
+    index.put( new Object[] { "a", 1L }, new Object[] { "first" } );
+    index.finish();
+    index.close();
+
+    File[] files = folder.getRoot().listFiles();
+    assertEquals( 0, files.length );
+  }
+}
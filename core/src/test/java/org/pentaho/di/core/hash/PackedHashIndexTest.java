@@ -0,0 +1,119 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.hash;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.pentaho.di.core.exception.KettleValueException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaNumber;
+import org.pentaho.di.core.row.value.ValueMetaString;
+
+public class PackedHashIndexTest {
+
+  private static RowMetaInterface rowMeta( ValueMetaInterface... valueMetas ) {
+    RowMetaInterface rowMeta = new RowMeta();
+    for ( ValueMetaInterface valueMeta : valueMetas ) {
+      rowMeta.addValueMeta( valueMeta );
+    }
+    return rowMeta;
+  }
+
+  @Test
+  public void testLongKeys() throws KettleValueException {
+    PackedHashIndex index = new PackedHashIndex( rowMeta( new ValueMetaInteger( "id" ) ),
+      rowMeta( new ValueMetaString( "name" ), new ValueMetaNumber( "amount" ) ) );
+    assertTrue( index.isEmpty() );
+    assertNull( index.get( new Object[] { 1L } ) );
+
+    for ( long i = 0; i < 100000; i++ ) {
+      index.put( new Object[] { i * 7919 }, new Object[] { "name" + i, i % 2 == 0 ? null : i * 0.5 } );
+    }
+    index.put( new Object[] { null }, new Object[] { "null key", 1.0 } );
+
+    assertEquals( 100001, index.size() );
+    for ( long i = 0; i < 100000; i++ ) {
+      assertArrayEquals( new Object[] { "name" + i, i % 2 == 0 ? null : i * 0.5 },
+        index.get( new Object[] { i * 7919 } ) );
+    }
+    assertArrayEquals( new Object[] { "null key", 1.0 }, index.get( new Object[] { null } ) );
+    assertNull( index.get( new Object[] { 1L } ) );
+    assertTrue( index.getMemoryUsage() > 0 );
+  }
+
+  @Test
+  public void testStringKeys() throws KettleValueException {
+    PackedHashIndex index = new PackedHashIndex( rowMeta( new ValueMetaString( "code" ) ),
+      rowMeta( new ValueMetaInteger( "value" ) ) );
+
+    for ( long i = 0; i < 50000; i++ ) {
+      index.put( new Object[] { "code-" + i }, new Object[] { i } );
+    }
+
+    assertEquals( 50000, index.size() );
+    for ( long i = 0; i < 50000; i++ ) {
+      assertArrayEquals( new Object[] { i }, index.get( new Object[] { "code-" + i } ) );
+    }
+    assertNull( index.get( new Object[] { "code-50000" } ) );
+    assertNull( index.get( new Object[] { null } ) );
+  }
+
+  @Test
+  public void testCompositeKeys() throws KettleValueException {
+    PackedHashIndex index = new PackedHashIndex(
+      rowMeta( new ValueMetaString( "country" ), new ValueMetaInteger( "zip" ) ),
+      rowMeta( new ValueMetaString( "city" ) ) );
+
+    index.put( new Object[] { "BE", 1000L }, new Object[] { "Brussels" } );
+    index.put( new Object[] { "FR", 1000L }, new Object[] { "Paris" } );
+    index.put( new Object[] { "BE", null }, new Object[] { "Unknown" } );
+
+    assertEquals( 3, index.size() );
+    assertArrayEquals( new Object[] { "Brussels" }, index.get( new Object[] { "BE", 1000L } ) );
+    assertArrayEquals( new Object[] { "Paris" }, index.get( new Object[] { "FR", 1000L } ) );
+    assertArrayEquals( new Object[] { "Unknown" }, index.get( new Object[] { "BE", null } ) );
+    assertNull( index.get( new Object[] { "NL", 1000L } ) );
+  }
+
+  @Test
+  public void testPutReplacesValue() throws KettleValueException {
+    PackedHashIndex index = new PackedHashIndex( rowMeta( new ValueMetaString( "key" ) ),
+      rowMeta( new ValueMetaString( "value" ) ) );
+
+    index.put( new Object[] { "a" }, new Object[] { "first" } );
+    index.put( new Object[] { "a" }, new Object[] { "second" } );
+
+    assertEquals( 1, index.size() );
+    assertArrayEquals( new Object[] { "second" }, index.get( new Object[] { "a" } ) );
+  }
+
+  @Test
+  public void testBinaryStringValues() throws KettleValueException {
+    ValueMetaInterface lazy = new ValueMetaString( "lazy" );
+    lazy.setStorageType( ValueMetaInterface.STORAGE_TYPE_BINARY_STRING );
+    lazy.setStorageMetadata( new ValueMetaString( "lazy" ) );
+    PackedHashIndex index = new PackedHashIndex( rowMeta( new ValueMetaInteger( "id" ) ), rowMeta( lazy ) );
+
+    index.put( new Object[] { 1L }, new Object[] { "raw".getBytes() } );
+
+    assertArrayEquals( "raw".getBytes(), (byte[]) index.get( new Object[] { 1L } )[0] );
+  }
+}
@@ -0,0 +1,136 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.row.batch;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaBoolean;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaNumber;
+import org.pentaho.di.core.row.value.ValueMetaString;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RowBatchTest {
+
+  private static final int NR_OF_ROWS = 150;
+
+  private RowMetaInterface rowMeta;
+  private RowBatch batch;
+
+  @Before
+  public void setUp() {
+    rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+    rowMeta.addValueMeta( new ValueMetaNumber( "amount" ) );
+    rowMeta.addValueMeta( new ValueMetaBoolean( "flag" ) );
+    rowMeta.addValueMeta( new ValueMetaString( "name" ) );
+
+    batch = new RowBatch( rowMeta, 10 );
+    for ( int i = 0; i < NR_OF_ROWS; i++ ) {
+      batch.addRow( new Object[] { i % 10 == 0 ? null : (long) i, i * 1.5, i % 2 == 0, "name" + i } );
+    }
+  }
+
+  @Test
+  public void testPrimitiveColumns() {
+    assertEquals( NR_OF_ROWS, batch.size() );
+    assertTrue( batch.getColumn( 0 ) instanceof LongColumnVector );
+    assertTrue( batch.getColumn( 1 ) instanceof DoubleColumnVector );
+    assertTrue( batch.getColumn( 2 ) instanceof BooleanColumnVector );
+    assertTrue( batch.getColumn( 3 ) instanceof ObjectColumnVector );
+
+    LongColumnVector ids = (LongColumnVector) batch.getColumn( 0 );
+    assertTrue( ids.isNull( 0 ) );
+    assertTrue( ids.isNull( 140 ) );
+    assertFalse( ids.isNull( 141 ) );
+    assertEquals( 141L, ids.get( 141 ) );
+    assertFalse( ids.noNulls( NR_OF_ROWS ) );
+    assertTrue( batch.getColumn( 1 ).noNulls( NR_OF_ROWS ) );
+    assertEquals( 3.0, ( (DoubleColumnVector) batch.getColumn( 1 ) ).get( 2 ), 0.0 );
+  }
+
+  @Test
+  public void testAddRowAfterDecoding() {
+    LongColumnVector ids = (LongColumnVector) batch.getColumn( 0 );
+    batch.addRow( new Object[] { 1000L, null, null, null } );
+    assertEquals( 1000L, ids.get( NR_OF_ROWS ) );
+    assertTrue( batch.getColumn( 1 ).isNull( NR_OF_ROWS ) );
+  }
+
+  @Test
+  public void testSetColumnIsWrittenBackToRows() {
+    RowMetaInterface outputRowMeta = rowMeta.clone();
+    outputRowMeta.addValueMeta( new ValueMetaInteger( "double_id" ) );
+    batch.setRowMeta( outputRowMeta );
+
+    LongColumnVector ids = (LongColumnVector) batch.getColumn( 0 );
+    LongColumnVector doubled = new LongColumnVector( batch.size() );
+    for ( int i = 0; i < batch.size(); i++ ) {
+      doubled.set( i, ids.get( i ) * 2 );
+    }
+    doubled.setNulls( ids, ids );
+    batch.setColumn( 4, doubled );
+
+    List<Object[]> rows = batch.getRows();
+    assertEquals( NR_OF_ROWS, rows.size() );
+    assertTrue( rows.get( 1 ).length >= 5 );
+    assertEquals( 2L, rows.get( 1 )[ 4 ] );
+    assertNull( rows.get( 10 )[ 4 ] );
+    assertEquals( "name1", rows.get( 1 )[ 3 ] );
+  }
+
+  @Test
+  public void testSelect() {
+    LongColumnVector ids = (LongColumnVector) batch.getColumn( 0 );
+    boolean[] keep = new boolean[ batch.size() ];
+    for ( int i = 0; i < keep.length; i++ ) {
+      keep[ i ] = i % 5 == 0;
+    }
+    batch.select( keep );
+
+    assertEquals( NR_OF_ROWS / 5, batch.size() );
+    assertTrue( ids.isNull( 0 ) );
+    assertEquals( 5L, ids.get( 1 ) );
+    assertTrue( ids.isNull( 2 ) );
+    assertEquals( "name15", batch.getRow( 3 )[ 3 ] );
+  }
+
+  @Test
+  public void testProject() {
+    RowMetaInterface outputRowMeta = new RowMeta();
+    outputRowMeta.addValueMeta( new ValueMetaString( "name" ) );
+    outputRowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+
+    batch.project( new int[] { 3, 0 }, outputRowMeta );
+
+    assertSame( outputRowMeta, batch.getRowMeta() );
+    assertEquals( "name7", batch.getRow( 7 )[ 0 ] );
+    assertEquals( 7L, batch.getRow( 7 )[ 1 ] );
+    assertTrue( batch.getColumn( 1 ).isNull( 0 ) );
+  }
+
+  @Test
+  public void testClear() {
+    batch.getColumn( 0 );
+    batch.clear();
+    assertTrue( batch.isEmpty() );
+    batch.addRow( new Object[] { 1L, 1.0, true, "one" } );
+    assertEquals( 1L, ( (LongColumnVector) batch.getColumn( 0 ) ).get( 0 ) );
+  }
+}
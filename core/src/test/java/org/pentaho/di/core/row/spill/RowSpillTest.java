@@ -0,0 +1,143 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.core.row.spill;
+
+import org.junit.Test;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaBigNumber;
+import org.pentaho.di.core.row.value.ValueMetaBinary;
+import org.pentaho.di.core.row.value.ValueMetaBoolean;
+import org.pentaho.di.core.row.value.ValueMetaDate;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaNumber;
+import org.pentaho.di.core.row.value.ValueMetaString;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RowSpillTest {
+
+  private static List<Object[]> roundTrip( RowMetaInterface rowMeta, List<Object[]> rows ) throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try ( RowSpillWriter writer = new RowSpillWriter( rowMeta, bytes ) ) {
+      for ( Object[] row : rows ) {
+        writer.writeRow( row );
+      }
+      assertEquals( rows.size(), writer.getRowCount() );
+    }
+
+    List<Object[]> result = new ArrayList<>();
+    try ( RowSpillReader reader = new RowSpillReader( rowMeta, new ByteArrayInputStream( bytes.toByteArray() ) ) ) {
+      for ( Object[] row = reader.readRow(); row != null; row = reader.readRow() ) {
+        result.add( row );
+      }
+      assertNull( reader.readRow() );
+    }
+    return result;
+  }
+
+  @Test
+  public void testRoundTripAllTypes() throws Exception {
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "integer" ) );
+    rowMeta.addValueMeta( new ValueMetaNumber( "number" ) );
+    rowMeta.addValueMeta( new ValueMetaString( "string" ) );
+    rowMeta.addValueMeta( new ValueMetaBoolean( "boolean" ) );
+    rowMeta.addValueMeta( new ValueMetaDate( "date" ) );
+    rowMeta.addValueMeta( new ValueMetaBinary( "binary" ) );
+    rowMeta.addValueMeta( new ValueMetaBigNumber( "bignumber" ) );
+    ValueMetaInterface lazy = new ValueMetaString( "lazy" );
+    lazy.setStorageType( ValueMetaInterface.STORAGE_TYPE_BINARY_STRING );
+    lazy.setStorageMetadata( new ValueMetaString( "lazy" ) );
+    rowMeta.addValueMeta( lazy );
+    rowMeta.addValueMeta( new ValueMetaInteger( "ninth" ) );
+
+    List<Object[]> rows = new ArrayList<>();
+    rows.add( new Object[] { Long.MIN_VALUE, -0.5, "café ☃", true, new Date( -1000L ), new byte[] { 1, 2, 3 },
+      new BigDecimal( "12345678901234567890.0123" ), "raw".getBytes(), Long.MAX_VALUE } );
+    rows.add( new Object[] { null, null, null, null, null, null, null, null, null } );
+    rows.add( new Object[] { 0L, Double.NaN, "", false, new Date( 1500000000000L ), new byte[ 0 ], BigDecimal.ZERO,
+      new byte[ 0 ], null } );
+    StringBuilder longString = new StringBuilder();
+    for ( int i = 0; i < 1000; i++ ) {
+      longString.append( "abcdefghij" );
+    }
+    rows.add( new Object[] { -1L, 1e300, longString.toString(), null, null, null, null, null, 42L } );
+
+    List<Object[]> result = roundTrip( rowMeta, rows );
+
+    assertEquals( rows.size(), result.size() );
+    for ( int r = 0; r < rows.size(); r++ ) {
+      Object[] expected = rows.get( r );
+      Object[] actual = result.get( r );
+      assertEquals( rowMeta.size(), actual.length );
+      for ( int i = 0; i < rowMeta.size(); i++ ) {
+        if ( expected[ i ] instanceof byte[] ) {
+          assertArrayEquals( (byte[]) expected[ i ], (byte[]) actual[ i ] );
+        } else {
+          assertEquals( "row " + r + ", field " + i, expected[ i ], actual[ i ] );
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testEmptyFile() throws Exception {
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaString( "string" ) );
+    assertTrue( roundTrip( rowMeta, new ArrayList<>() ).isEmpty() );
+  }
+
+  @Test
+  public void testNoFields() throws Exception {
+    List<Object[]> rows = new ArrayList<>();
+    rows.add( new Object[ 0 ] );
+    rows.add( new Object[ 0 ] );
+    assertEquals( 2, roundTrip( new RowMeta(), rows ).size() );
+  }
+
+  @Test
+  public void testEncodeSize() {
+    byte[] target = new byte[ 5 ];
+    assertEquals( 1, RowSpillWriter.encodeSize( 127, target ) );
+    assertEquals( 2, RowSpillWriter.encodeSize( 128, target ) );
+    assertEquals( 5, RowSpillWriter.encodeSize( Integer.MAX_VALUE, target ) );
+  }
+
+  @Test
+  public void testToBytes() {
+    assertEquals( 10L, RowSizeEstimator.toBytes( null, 10L ) );
+    assertEquals( 10L, RowSizeEstimator.toBytes( "", 10L ) );
+    assertEquals( 10L, RowSizeEstimator.toBytes( "lots", 10L ) );
+    assertEquals( 1000L, RowSizeEstimator.toBytes( "1000", 10L ) );
+    assertEquals( 2048L, RowSizeEstimator.toBytes( "2k", 10L ) );
+    assertEquals( 512L * 1024 * 1024, RowSizeEstimator.toBytes( " 512M ", 10L ) );
+    assertEquals( 3L * 1024 * 1024 * 1024, RowSizeEstimator.toBytes( "3g", 10L ) );
+  }
+
+  @Test
+  public void testEstimateSize() {
+    assertTrue( RowSizeEstimator.estimateSize( new Object[] { "a longer string value" } )
+      > RowSizeEstimator.estimateSize( new Object[] { "a" } ) );
+    assertTrue( RowSizeEstimator.estimateSize( new Object[] { 1L, null } ) > 0 );
+  }
+}
@@ -0,0 +1,155 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.trans;
+
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.pentaho.di.core.Const;
+import org.pentaho.di.core.KettleEnvironment;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.trans.step.RowAdapter;
+import org.pentaho.di.trans.step.StepMeta;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compares polling input row sets (KETTLE_ROWSET_SIGNALS=N, blocking row sets) with parking on row set signals
+ * (KETTLE_ROWSET_SIGNALS=Y, ring buffer row sets) on a chain of 100 steps.
+ *
+ * Rows are injected at a slow, steady pace so that the steps are idle most of the time. For every row we measure the
+ * time it takes to travel through the whole chain. The process CPU time spent during the run tells us how much the
+ * idle steps cost.
+ */
+public class RowSetSignalsBenchmarkIT {
+
+  private static final int NR_OF_STEPS = 100;
+  private static final int NR_OF_ROWS = 2000;
+  private static final long ROW_INTERVAL_NANOS = 1000000L;
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    KettleEnvironment.init( false );
+  }
+
+  @After
+  public void tearDown() {
+    System.clearProperty( Const.KETTLE_ROWSET_SIGNALS );
+    System.clearProperty( Const.KETTLE_RING_BUFFER_ROWSET );
+  }
+
+  @Test
+  public void testPollingVersusSignals() throws Exception {
+    // Warm up the JIT first, then measure both modes
+    //
+    runChain( false );
+    runChain( true );
+
+    Result polling = runChain( false );
+    Result signals = runChain( true );
+
+    System.out.println( "Polling: " + polling );
+    System.out.println( "Signals: " + signals );
+  }
+
+  private Result runChain( boolean useSignals ) throws Exception {
+    System.setProperty( Const.KETTLE_ROWSET_SIGNALS, useSignals ? "Y" : "N" );
+    System.setProperty( Const.KETTLE_RING_BUFFER_ROWSET, useSignals ? "Y" : "N" );
+
+    TransMeta transMeta = new TransMeta();
+    StepMeta previous = TransTestFactory.getInjectorStepMeta();
+    transMeta.addStep( previous );
+    for ( int i = 1; i < NR_OF_STEPS; i++ ) {
+      StepMeta dummy = TransTestFactory.getReadStepMeta( "dummy" + i );
+      transMeta.addStep( dummy );
+      transMeta.addTransHop( new TransHopMeta( previous, dummy ) );
+      previous = dummy;
+    }
+
+    Trans trans = new Trans( transMeta );
+    trans.prepareExecution( null );
+
+    final long[] latencies = new long[ NR_OF_ROWS ];
+    final int[] received = new int[ 1 ];
+    trans.getStepInterface( previous.getName(), 0 ).addRowListener( new RowAdapter() {
+      @Override
+      public void rowReadEvent( RowMetaInterface rowMeta, Object[] row ) {
+        latencies[ received[ 0 ]++ ] = System.nanoTime() - (Long) row[ 0 ];
+      }
+    } );
+
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "sent" ) );
+
+    RowProducer producer = trans.addRowProducer( TransTestFactory.INJECTOR_STEPNAME, 0 );
+    trans.startThreads();
+
+    long cpuStart = getProcessCpuTime();
+    long start = System.nanoTime();
+    for ( int i = 0; i < NR_OF_ROWS; i++ ) {
+      producer.putRow( rowMeta, new Object[] { System.nanoTime() } );
+      LockSupport.parkNanos( ROW_INTERVAL_NANOS );
+    }
+    producer.finished();
+    trans.waitUntilFinished();
+    long elapsed = System.nanoTime() - start;
+    long cpu = getProcessCpuTime() - cpuStart;
+
+    assertEquals( 0, trans.getErrors() );
+    assertEquals( NR_OF_ROWS, received[ 0 ] );
+
+    return new Result( latencies, elapsed, cpu );
+  }
+
+  private static long getProcessCpuTime() {
+    OperatingSystemMXBean bean = ManagementFactory.getOperatingSystemMXBean();
+    if ( bean instanceof com.sun.management.OperatingSystemMXBean ) {
+      return ( (com.sun.management.OperatingSystemMXBean) bean ).getProcessCpuTime();
+    }
+    return -1L;
+  }
+
+  private static class Result {
+    private final long[] latencies;
+    private final long elapsed;
+    private final long cpu;
+
+    Result( long[] latencies, long elapsed, long cpu ) {
+      this.latencies = latencies.clone();
+      Arrays.sort( this.latencies );
+      this.elapsed = elapsed;
+      this.cpu = cpu;
+    }
+
+    private double percentileMicros( double percentile ) {
+      return latencies[ (int) Math.min( latencies.length - 1, latencies.length * percentile ) ] / 1000.0;
+    }
+
+    @Override
+    public String toString() {
+      return String.format( "per row latency through %d steps: p50=%.1fus p99=%.1fus max=%.1fus, "
+          + "CPU used while mostly idle: %.2f cores",
+        NR_OF_STEPS, percentileMicros( 0.50 ), percentileMicros( 0.99 ), percentileMicros( 1.0 ),
+        (double) cpu / elapsed );
+    }
+  }
+}
@@ -0,0 +1,180 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.trans;
+
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.pentaho.di.core.KettleEnvironment;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.util.ExecutorUtil;
+import org.pentaho.di.trans.step.RowAdapter;
+import org.pentaho.di.trans.step.StepInterface;
+import org.pentaho.di.trans.step.StepMeta;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compares running the step copies on a thread each (the default) with running them on virtual threads, on a
+ * transformation of 300 steps.
+ *
+ * In the I/O heavy case every step waits a little for every row, like a step doing a lookup in a remote database. In
+ * the CPU heavy case every step does some hashing for every row. For both we measure the elapsed and CPU time and the
+ * peak number of platform threads of the JVM.
+ *
+ * Virtual threads need Java 21 or later, the test is skipped on older runtimes.
+ */
+public class StepThreadsBenchmarkIT {
+
+  private static final int NR_OF_STEPS = 300;
+  private static final int NR_OF_ROWS = 2000;
+  private static final long IO_WAIT_NANOS = 50000L;
+  private static final int CPU_ROUNDS = 2000;
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    KettleEnvironment.init( false );
+  }
+
+  @Test
+  public void testIoHeavy() throws Exception {
+    compare( true );
+  }
+
+  @Test
+  public void testCpuHeavy() throws Exception {
+    compare( false );
+  }
+
+  private void compare( boolean ioHeavy ) throws Exception {
+    Assume.assumeTrue( "Virtual threads need Java 21 or later", ExecutorUtil.isVirtualThreadSupported() );
+
+    // Warm up the JIT first, then measure both thread models
+    //
+    runChain( false, ioHeavy );
+    runChain( true, ioHeavy );
+
+    Result platform = runChain( false, ioHeavy );
+    Result virtual = runChain( true, ioHeavy );
+
+    String workload = ioHeavy ? "I/O heavy" : "CPU heavy";
+    System.out.println( workload + ", platform threads: " + platform );
+    System.out.println( workload + ", virtual threads:  " + virtual );
+  }
+
+  private Result runChain( boolean virtualThreads, final boolean ioHeavy ) throws Exception {
+    TransMeta transMeta = new TransMeta();
+    StepMeta previous = TransTestFactory.getInjectorStepMeta();
+    transMeta.addStep( previous );
+    for ( int i = 1; i < NR_OF_STEPS; i++ ) {
+      StepMeta dummy = TransTestFactory.getReadStepMeta( "dummy" + i );
+      transMeta.addStep( dummy );
+      transMeta.addTransHop( new TransHopMeta( previous, dummy ) );
+      previous = dummy;
+    }
+
+    Trans trans = new Trans( transMeta );
+    trans.setUsingVirtualThreads( virtualThreads );
+    trans.prepareExecution( null );
+
+    // The work of a step happens in its own thread, when it writes a row
+    //
+    for ( int i = 1; i < NR_OF_STEPS; i++ ) {
+      StepInterface step = trans.getStepInterface( "dummy" + i, 0 );
+      step.addRowListener( new RowAdapter() {
+        @Override
+        public void rowWrittenEvent( RowMetaInterface rowMeta, Object[] row ) {
+          if ( ioHeavy ) {
+            LockSupport.parkNanos( IO_WAIT_NANOS );
+          } else {
+            row[ 1 ] = hash( (Long) row[ 0 ] );
+          }
+        }
+      } );
+    }
+    final int[] received = new int[ 1 ];
+    trans.getStepInterface( previous.getName(), 0 ).addRowListener( new RowAdapter() {
+      @Override
+      public void rowReadEvent( RowMetaInterface rowMeta, Object[] row ) {
+        received[ 0 ]++;
+      }
+    } );
+
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "hash" ) );
+
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    threads.resetPeakThreadCount();
+    RowProducer producer = trans.addRowProducer( TransTestFactory.INJECTOR_STEPNAME, 0 );
+    long cpuStart = getProcessCpuTime();
+    long start = System.nanoTime();
+    trans.startThreads();
+    for ( long i = 0; i < NR_OF_ROWS; i++ ) {
+      producer.putRow( rowMeta, new Object[] { i, null } );
+    }
+    producer.finished();
+    trans.waitUntilFinished();
+    long elapsed = System.nanoTime() - start;
+    long cpu = getProcessCpuTime() - cpuStart;
+
+    assertEquals( 0, trans.getErrors() );
+    assertEquals( NR_OF_ROWS, received[ 0 ] );
+
+    return new Result( elapsed, cpu, threads.getPeakThreadCount() );
+  }
+
+  private static long hash( long value ) {
+    long h = value;
+    for ( int i = 0; i < CPU_ROUNDS; i++ ) {
+      h ^= h >>> 33;
+      h *= 0xff51afd7ed558ccdL;
+    }
+    return h;
+  }
+
+  private static long getProcessCpuTime() {
+    OperatingSystemMXBean bean = ManagementFactory.getOperatingSystemMXBean();
+    if ( bean instanceof com.sun.management.OperatingSystemMXBean ) {
+      return ( (com.sun.management.OperatingSystemMXBean) bean ).getProcessCpuTime();
+    }
+    return -1L;
+  }
+
+  private static class Result {
+    private final long elapsed;
+    private final long cpu;
+    private final int peakThreads;
+
+    Result( long elapsed, long cpu, int peakThreads ) {
+      this.elapsed = elapsed;
+      this.cpu = cpu;
+      this.peakThreads = peakThreads;
+    }
+
+    @Override
+    public String toString() {
+      return String.format( "%d rows through %d steps in %.0fms, CPU used: %.2f cores, peak platform threads: %d",
+        NR_OF_ROWS, NR_OF_STEPS, elapsed / 1000000.0, (double) cpu / elapsed, peakThreads );
+    }
+  }
+}
@@ -0,0 +1,128 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.util.Utils;
+
+/**
+ * Partitions rows on the hash of the value of a field, placed on a ring of the partition IDs of the partition schema.
+ * Every partition owns a number of virtual nodes on the ring and a value goes to the owner of the first node that
+ * follows its hash.<br>
+ * The place of a partition on the ring only depends on its ID, so when a partition schema grows, for example the
+ * dynamically defined partitions of a cluster schema that gets more slave servers, only the values that land on the
+ * new partitions move. With the remainder of division, nearly all of them do.
+ *
+ * @since 11.1
+ */
+public class ConsistentHashPartitioner extends HashPartitioner {
+
+  /** The number of virtual nodes of a partition on the ring */
+  static final int VIRTUAL_NODES = 512;
+
+  /** The sorted positions of the virtual nodes and the partition owning each of them */
+  private volatile Ring ring;
+
+  public ConsistentHashPartitioner() {
+    super();
+  }
+
+  @Override
+  public Partitioner getInstance() {
+    Partitioner partitioner = new ConsistentHashPartitioner();
+    partitioner.setId( getId() );
+    partitioner.setDescription( getDescription() );
+    return partitioner;
+  }
+
+  @Override
+  public ConsistentHashPartitioner clone() {
+    return (ConsistentHashPartitioner) super.clone();
+  }
+
+  @Override
+  public void init( RowMetaInterface rowMeta ) throws KettleException {
+    super.init( rowMeta );
+    if ( ring == null ) {
+      ring = new Ring( meta.getPartitionSchema().getPartitionIDs() );
+    }
+  }
+
+  @Override
+  protected int getPartition( long hash ) {
+    return ring.getPartition( hash );
+  }
+
+  @Override
+  public String getDescription() {
+    String description = "Consistent hash partitioner";
+    if ( !Utils.isEmpty( getFieldName() ) ) {
+      description += "(" + getFieldName() + ")";
+    }
+    return description;
+  }
+
+  static final class Ring {
+    private final long[] positions;
+    private final int[] partitions;
+
+    Ring( List<String> partitionIds ) {
+      int size = partitionIds.size() * VIRTUAL_NODES;
+      long[] nodes = new long[ size ];
+      int[] owners = new int[ size ];
+      int n = 0;
+      for ( int partition = 0; partition < partitionIds.size(); partition++ ) {
+        String id = partitionIds.get( partition );
+        for ( int node = 0; node < VIRTUAL_NODES; node++ ) {
+          nodes[ n ] = hash( id + "#" + node );
+          owners[ n++ ] = partition;
+        }
+      }
+
+      // sort the nodes on their position, keeping the owner of each
+      Integer[] order = new Integer[ size ];
+      for ( int i = 0; i < size; i++ ) {
+        order[ i ] = i;
+      }
+      Arrays.sort( order, ( a, b ) -> nodes[ a ] != nodes[ b ] ? Long.compare( nodes[ a ], nodes[ b ] )
+        : partitionIds.get( owners[ a ] ).compareTo( partitionIds.get( owners[ b ] ) ) );
+      positions = new long[ size ];
+      partitions = new int[ size ];
+      for ( int i = 0; i < size; i++ ) {
+        positions[ i ] = nodes[ order[ i ] ];
+        partitions[ i ] = owners[ order[ i ] ];
+      }
+    }
+
+    int getPartition( long hash ) {
+      int index = Arrays.binarySearch( positions, hash );
+      if ( index < 0 ) {
+        index = -index - 1;
+        if ( index == positions.length ) {
+          index = 0;
+        }
+      } else {
+        // on equal positions, the first node wins
+        while ( index > 0 && positions[ index - 1 ] == hash ) {
+          index--;
+        }
+      }
+      return partitions[ index ];
+    }
+  }
+}
@@ -0,0 +1,330 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+import org.pentaho.di.core.RowSet;
+import org.pentaho.di.trans.step.BaseStep;
+import org.pentaho.di.trans.step.RunThread;
+import org.pentaho.di.trans.step.StepDataInterface;
+import org.pentaho.di.trans.step.StepInterface;
+import org.pentaho.di.trans.step.StepMetaDataCombi;
+import org.pentaho.di.trans.step.StepMetaInterface;
+
+/**
+ * Runs the step copies of a transformation in slices on a work-stealing pool with a thread per CPU, instead of on a
+ * thread each. Every transformation has a pool of its own, a step of one transformation that blocks without telling
+ * the pool can't hold up the steps of the others.<br>
+ * A step copy only gets a slice when it's ready: it has rows waiting on input, or all its input is done, and there is
+ * room in all of its output row sets. A slice calls processRow() until the step runs out of input, fills up one of its
+ * output row sets or has processed {@link #SLICE_SIZE} rows. It then wakes up the steps it writes to before the steps
+ * it reads from, so that full row sets get emptied first.<br>
+ * Only the steps that say so run on the pool, see {@link StepMetaInterface#supportsCooperativeScheduling()}: the others
+ * keep state bound to their thread or wait for other steps in ways we don't see, they keep a thread of their own. So
+ * do the steps that read info streams or exchange rows with remote steps. Steps that have to wait anyway, for example
+ * for room in a row set, tell the pool so that it can start a spare worker meanwhile, see
+ * {@link #await(BooleanSupplier)}.
+ *
+ * @since 11.1
+ */
+public class CooperativeStepScheduler {
+
+  /** The maximum number of processRow() calls of a slice */
+  static final int SLICE_SIZE = 500;
+
+  /** How often the waiting steps are checked, for rows coming from steps with a thread of their own */
+  private static final long SWEEP_INTERVAL_MILLIS = 5L;
+
+  /** The shortest and the longest pause between two checks of a wait */
+  private static final long MIN_BACKOFF_NANOS = TimeUnit.MICROSECONDS.toNanos( 10L );
+  private static final long MAX_BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos( 1L );
+
+  private static final int IDLE = 0;
+  private static final int SCHEDULED = 1;
+  private static final int FINISHED = 2;
+
+  private static final ScheduledExecutorService SWEEPER = Executors.newSingleThreadScheduledExecutor( r -> {
+    Thread thread = new Thread( r, "Cooperative step scheduler sweeper" );
+    thread.setDaemon( true );
+    return thread;
+  } );
+
+  private final Trans trans;
+  private final List<StepTask> tasks = new ArrayList<>();
+  private final AtomicInteger nrRunning = new AtomicInteger();
+  private volatile ForkJoinPool pool;
+  private volatile ScheduledFuture<?> sweep;
+
+  public CooperativeStepScheduler( Trans trans ) {
+    this.trans = trans;
+  }
+
+  /**
+   * @param combi the step copy
+   * @return true if the step copy can run on the scheduler, false if it needs a thread of its own
+   */
+  public boolean isCooperative( StepMetaDataCombi combi ) {
+    if ( !combi.meta.supportsCooperativeScheduling() ) {
+      return false;
+    }
+    if ( !combi.stepMeta.getStepMetaInterface().getStepIOMeta().getInfoStreams().isEmpty() ) {
+      return false;
+    }
+    if ( combi.step instanceof BaseStep ) {
+      BaseStep step = (BaseStep) combi.step;
+      return step.getRemoteInputSteps().isEmpty() && step.getRemoteOutputSteps().isEmpty();
+    }
+    return true;
+  }
+
+  /**
+   * Add a step copy to run on the scheduler, once started.
+   *
+   * @param combi     the step copy
+   * @param runThread runs the step copy
+   */
+  public void add( StepMetaDataCombi combi, RunThread runThread ) {
+    combi.step.setUsingThreadPriorityManagment( false );
+    tasks.add( new StepTask( combi, runThread ) );
+  }
+
+  /**
+   * @return the number of step copies running on the scheduler
+   */
+  public int size() {
+    return tasks.size();
+  }
+
+  /**
+   * Start running the step copies that were added.
+   */
+  public void start() {
+    if ( tasks.isEmpty() ) {
+      return;
+    }
+
+    // Find out which steps wake up which when they processed rows
+    //
+    Map<RowSet, StepTask> consumers = new IdentityHashMap<>();
+    Map<RowSet, StepTask> producers = new IdentityHashMap<>();
+    for ( StepTask task : tasks ) {
+      for ( RowSet rowSet : task.inputRowSets ) {
+        consumers.put( rowSet, task );
+      }
+      for ( RowSet rowSet : task.outputRowSets ) {
+        producers.put( rowSet, task );
+      }
+    }
+    for ( StepTask task : tasks ) {
+      for ( RowSet rowSet : task.outputRowSets ) {
+        addNeighbour( task.consumers, consumers.get( rowSet ) );
+      }
+      for ( RowSet rowSet : task.inputRowSets ) {
+        addNeighbour( task.producers, producers.get( rowSet ) );
+      }
+    }
+
+    pool = new ForkJoinPool( Runtime.getRuntime().availableProcessors(), p -> new Worker( p, trans.getName() ), null,
+      true );
+    nrRunning.set( tasks.size() );
+    sweep = SWEEPER.scheduleWithFixedDelay( this::wakeUpAll, SWEEP_INTERVAL_MILLIS, SWEEP_INTERVAL_MILLIS,
+      TimeUnit.MILLISECONDS );
+    wakeUpAll();
+  }
+
+  private static void addNeighbour( List<StepTask> neighbours, StepTask neighbour ) {
+    if ( neighbour != null && !neighbours.contains( neighbour ) ) {
+      neighbours.add( neighbour );
+    }
+  }
+
+  private void wakeUpAll() {
+    for ( StepTask task : tasks ) {
+      task.wakeUp();
+    }
+  }
+
+  private void finished() {
+    if ( nrRunning.decrementAndGet() == 0 ) {
+      sweep.cancel( false );
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Wait for something other steps or threads do, for example for room in a row set. On a worker of the scheduler,
+   * the pool is told that the worker blocks so that it can run the other steps on a spare worker meanwhile. On any
+   * other thread, it's a plain wait. Between two checks that come back right away, the thread is parked for a while
+   * instead of spinning.
+   *
+   * @param waiting waits a while and returns true when the wait is over
+   */
+  public static void await( BooleanSupplier waiting ) {
+    if ( !( Thread.currentThread() instanceof Worker ) ) {
+      waitFor( waiting );
+      return;
+    }
+    try {
+      ForkJoinPool.managedBlock( new ForkJoinPool.ManagedBlocker() {
+        private boolean done;
+
+        @Override
+        public boolean block() {
+          waitFor( waiting );
+          done = true;
+          return true;
+        }
+
+        @Override
+        public boolean isReleasable() {
+          return done;
+        }
+      } );
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void waitFor( BooleanSupplier waiting ) {
+    long backoff = MIN_BACKOFF_NANOS;
+    while ( !waiting.getAsBoolean() ) {
+      LockSupport.parkNanos( backoff );
+      backoff = Math.min( backoff * 2, MAX_BACKOFF_NANOS );
+    }
+  }
+
+  private static final class Worker extends ForkJoinWorkerThread {
+    private static final AtomicInteger threadNr = new AtomicInteger();
+
+    Worker( ForkJoinPool pool, String transName ) {
+      super( pool );
+      setName( transName + " - cooperative step scheduler " + threadNr.incrementAndGet() );
+      setDaemon( true );
+    }
+  }
+
+  private final class StepTask implements Runnable {
+    private final StepInterface step;
+    private final StepMetaInterface meta;
+    private final StepDataInterface data;
+    private final RunThread runThread;
+    private final List<RowSet> inputRowSets;
+    private final List<RowSet> outputRowSets;
+    private final List<StepTask> consumers = new ArrayList<>();
+    private final List<StepTask> producers = new ArrayList<>();
+    private final AtomicInteger state = new AtomicInteger( IDLE );
+    private boolean started;
+
+    StepTask( StepMetaDataCombi combi, RunThread runThread ) {
+      this.step = combi.step;
+      this.meta = combi.meta;
+      this.data = combi.data;
+      this.runThread = runThread;
+      // The step removes its input row sets when they're done, we keep looking at all of them
+      this.inputRowSets = new ArrayList<>( step.getInputRowSets() );
+      this.outputRowSets = new ArrayList<>( step.getOutputRowSets() );
+    }
+
+    void wakeUp() {
+      if ( isReady() && state.compareAndSet( IDLE, SCHEDULED ) ) {
+        pool.execute( this );
+      }
+    }
+
+    /**
+     * @return true if a call to processRow() won't have to wait for the other steps
+     */
+    boolean isReady() {
+      if ( !started || step.isStopped() ) {
+        return true;
+      }
+      boolean inputDone = true;
+      boolean inputAvailable = inputRowSets.isEmpty();
+      for ( RowSet rowSet : inputRowSets ) {
+        if ( rowSet.size() > 0 ) {
+          inputAvailable = true;
+          break;
+        }
+        inputDone &= rowSet.isDone();
+      }
+      if ( !inputAvailable && !inputDone ) {
+        return false;
+      }
+      int capacity = trans.getTransMeta().getSizeRowset();
+      for ( RowSet rowSet : outputRowSets ) {
+        if ( rowSet.size() >= capacity ) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public void run() {
+      boolean finished = false;
+      try {
+        if ( !started ) {
+          started = true;
+          runThread.startProcessing();
+        }
+        for ( int i = 0; i < SLICE_SIZE && !finished && isReady(); i++ ) {
+          finished = step.isStopped() || !step.processRow( meta, data ) || step.isStopped();
+        }
+      } catch ( Throwable t ) {
+        runThread.handleError( t );
+        finished = true;
+      }
+
+      if ( finished ) {
+        state.set( FINISHED );
+        try {
+          runThread.finishProcessing();
+        } finally {
+          CooperativeStepScheduler.this.finished();
+          wakeUpNeighbours();
+        }
+        return;
+      }
+
+      // Wake up the steps that can empty our output first, then the ones that can fill our input, then ourselves.
+      // Our own state goes back to idle before checking, a wake-up call from a neighbour in the meantime isn't lost.
+      //
+      state.set( IDLE );
+      wakeUpNeighbours();
+      wakeUp();
+    }
+
+    private void wakeUpNeighbours() {
+      for ( StepTask consumer : consumers ) {
+        consumer.wakeUp();
+      }
+      for ( StepTask producer : producers ) {
+        producer.wakeUp();
+      }
+    }
+  }
+}
@@ -0,0 +1,192 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.exception.KettleStepException;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.util.Utils;
+
+/**
+ * Partitions rows on a 64-bit hash (MurmurHash64A) of the value of a field. Unlike the remainder of division of the
+ * {@link ModPartitioner}, strings, dates and numbers with a pattern spread evenly over the partitions.<br>
+ * Strings are hashed on their characters, binaries on their bytes and the other values on their numeric value, so
+ * equal values always end up in the same partition, on every slave server and whatever their storage type.
+ *
+ * @since 11.1
+ */
+public class HashPartitioner extends ModPartitioner {
+
+  private static final long M = 0xc6a4a7935bd1e995L;
+  private static final int R = 47;
+  private static final long SEED = 0x9747b28cL;
+
+  public HashPartitioner() {
+    super();
+  }
+
+  @Override
+  public Partitioner getInstance() {
+    Partitioner partitioner = new HashPartitioner();
+    partitioner.setId( getId() );
+    partitioner.setDescription( getDescription() );
+    return partitioner;
+  }
+
+  @Override
+  public HashPartitioner clone() {
+    return (HashPartitioner) super.clone();
+  }
+
+  @Override
+  public int getPartition( RowMetaInterface rowMeta, Object[] row ) throws KettleException {
+    init( rowMeta );
+
+    if ( partitionColumnIndex < 0 ) {
+      partitionColumnIndex = rowMeta.indexOfValue( getFieldName() );
+      if ( partitionColumnIndex < 0 ) {
+        throw new KettleStepException( "Unable to find partitioning field name ["
+          + getFieldName() + "] in the output row..." + rowMeta );
+      }
+    }
+
+    return getPartition( hash( rowMeta.getValueMeta( partitionColumnIndex ), row[ partitionColumnIndex ] ) );
+  }
+
+  /**
+   * @param hash
+   *          the hash of the value of the partitioning field
+   * @return the partition of the value, between 0 and nrPartitions-1
+   */
+  protected int getPartition( long hash ) {
+    return (int) Math.floorMod( hash, (long) nrPartitions );
+  }
+
+  @Override
+  public String getDescription() {
+    String description = "Hash partitioner";
+    if ( !Utils.isEmpty( getFieldName() ) ) {
+      description += "(" + getFieldName() + ")";
+    }
+    return description;
+  }
+
+  /**
+   * Hash a value, the same way for a value stored normally and for the same value stored as a binary string.
+   *
+   * @param valueMeta
+   *          the metadata of the value
+   * @param value
+   *          the value, null included
+   * @return the 64-bit hash of the value
+   * @throws KettleException
+   *           in case a binary string can't be converted
+   */
+  static long hash( ValueMetaInterface valueMeta, Object value ) throws KettleException {
+    if ( value == null ) {
+      return 0L;
+    }
+    if ( valueMeta.isStorageBinaryString() ) {
+      value = valueMeta.convertBinaryStringToNativeType( (byte[]) value );
+    }
+    if ( value instanceof String ) {
+      return hash( (String) value );
+    }
+    if ( value instanceof byte[] ) {
+      return hash( (byte[]) value );
+    }
+    if ( value instanceof Long ) {
+      return mix( (Long) value );
+    }
+    if ( value instanceof Double ) {
+      double d = (Double) value;
+      return mix( d == 0.0d ? 0L : Double.doubleToLongBits( d ) );
+    }
+    if ( value instanceof Date ) {
+      return mix( ( (Date) value ).getTime() );
+    }
+    if ( value instanceof Boolean ) {
+      return mix( ( (Boolean) value ) ? 1L : 2L );
+    }
+    if ( value instanceof BigDecimal ) {
+      BigDecimal number = (BigDecimal) value;
+      return hash( number.signum() == 0 ? "0" : number.stripTrailingZeros().toString() );
+    }
+    return hash( value.toString() );
+  }
+
+  static long hash( String value ) {
+    int length = value.length();
+    long h = SEED ^ ( length * 2L * M );
+    int i = 0;
+    for ( ; i + 4 <= length; i += 4 ) {
+      h = mixBlock( h, value.charAt( i ) | (long) value.charAt( i + 1 ) << 16 | (long) value.charAt( i + 2 ) << 32
+        | (long) value.charAt( i + 3 ) << 48 );
+    }
+    if ( i < length ) {
+      long tail = 0L;
+      for ( int shift = 0; i < length; i++, shift += 16 ) {
+        tail |= (long) value.charAt( i ) << shift;
+      }
+      h ^= tail;
+      h *= M;
+    }
+    return finish( h );
+  }
+
+  static long hash( byte[] value ) {
+    int length = value.length;
+    long h = SEED ^ ( length * M );
+    int i = 0;
+    for ( ; i + 8 <= length; i += 8 ) {
+      long k = 0L;
+      for ( int j = 7; j >= 0; j-- ) {
+        k = k << 8 | ( value[ i + j ] & 0xFFL );
+      }
+      h = mixBlock( h, k );
+    }
+    if ( i < length ) {
+      long tail = 0L;
+      for ( int shift = 0; i < length; i++, shift += 8 ) {
+        tail |= ( value[ i ] & 0xFFL ) << shift;
+      }
+      h ^= tail;
+      h *= M;
+    }
+    return finish( h );
+  }
+
+  static long mix( long value ) {
+    return finish( mixBlock( SEED ^ ( 8 * M ), value ) );
+  }
+
+  private static long mixBlock( long h, long k ) {
+    k *= M;
+    k ^= k >>> R;
+    k *= M;
+    h ^= k;
+    return h * M;
+  }
+
+  private static long finish( long h ) {
+    h ^= h >>> R;
+    h *= M;
+    h ^= h >>> R;
+    return h;
+  }
+}
@@ -26,6 +26,7 @@ import org.pentaho.di.core.ExecutorInterface;
 import org.pentaho.di.core.ExtensionDataInterface;
 import org.pentaho.di.core.KettleEnvironment;
 import org.pentaho.di.core.QueueRowSet;
+import org.pentaho.di.core.RingBufferRowSet;
 import org.pentaho.di.core.Result;
 import org.pentaho.di.core.ResultFile;
 import org.pentaho.di.core.RowMetaAndData;
@@ -73,6 +74,7 @@ import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.value.ValueMetaString;
 import org.pentaho.di.core.util.ConnectionUtil;
 import org.pentaho.di.core.util.EnvUtil;
+import org.pentaho.di.core.util.ExecutorUtil;
 import org.pentaho.di.core.util.Utils;
 import org.pentaho.di.core.variables.VariableSpace;
 import org.pentaho.di.core.variables.Variables;
@@ -381,6 +383,16 @@ public class Trans implements VariableSpace, NamedParams, HasLogChannelInterface
    */
   private boolean safeModeEnabled;
 
+  /**
+   * Whether the step copies run on virtual threads.
+   */
+  private boolean usingVirtualThreads;
+
+  /**
+   * Whether the step copies run on the cooperative step scheduler.
+   */
+  private boolean usingCooperativeScheduler;
+
   /**
    * The thread name.
    */
@@ -982,6 +994,11 @@ public class Trans implements VariableSpace, NamedParams, HasLogChannelInterface
                   ValueMetaString.convertStringToBoolean( System.getProperty( Const.KETTLE_BATCHING_ROWSET ) );
                 if ( batchingRowSet != null && batchingRowSet.booleanValue() ) {
                   rowSet = new BlockingBatchingRowSet( transMeta.getSizeRowset() );
+                } else if ( isRingBufferRowSetEnabled() ) {
+                  // Each of these row sets links exactly one producing copy to one consuming copy.
+                  // That allows for a lock-free hand-over of the rows.
+                  //
+                  rowSet = new RingBufferRowSet( transMeta.getSizeRowset() );
                 } else {
                   rowSet = new BlockingRowSet( transMeta.getSizeRowset() );
                 }
@@ -1251,8 +1268,8 @@ public class Trans implements VariableSpace, NamedParams, HasLogChannelInterface
 
         // Put it in a separate thread!
         //
-        threads[ i ] = new Thread( initThreads[ i ] );
-        threads[ i ].setName( "init of " + sid.stepname + "." + sid.copy + " (" + threads[ i ].getName() + ")" );
+        threads[ i ] = ExecutorUtil.newThread( initThreads[ i ], "init of " + sid.stepname + "." + sid.copy,
+          isRunningOnVirtualThreads() );
 
         ExtensionPointHandler.callExtensionPoint( log, KettleExtensionPoint.StepBeforeInitialize.id, initThreads[ i ] );
         threads[ i ].start();
@@ -1349,6 +1366,13 @@ public class Trans implements VariableSpace, NamedParams, HasLogChannelInterface
     setReadyToStart( true );
   }
 
+  /**
+   * @return true unless the lock-free ring buffer row set was disabled with {@link Const#KETTLE_RING_BUFFER_ROWSET}
+   */
+  protected boolean isRingBufferRowSetEnabled() {
+    return !"N".equalsIgnoreCase( System.getProperty( Const.KETTLE_RING_BUFFER_ROWSET, "Y" ) );
+  }
+
   @SuppressWarnings ( "deprecation" )
   private void checkCompatibility() {
     // If we don't have a previous result and transMeta does have one, someone has been using a deprecated method.
@@ -1549,13 +1573,19 @@ public class Trans implements VariableSpace, NamedParams, HasLogChannelInterface
     switch ( transMeta.getTransformationType() ) {
       case Normal:
 
+        boolean virtualThreads = isRunningOnVirtualThreads();
+        if ( virtualThreads && !ExecutorUtil.isVirtualThreadSupported() ) {
+          log.logBasic( BaseMessages.getString( PKG, "Trans.Log.VirtualThreadsNotSupported" ) );
+        }
+
+        CooperativeStepScheduler scheduler =
+          isRunningOnCooperativeScheduler() ? new CooperativeStepScheduler( this ) : null;
+
         // Now start all the threads...
         //
         for ( int i = 0; i < steps.size(); i++ ) {
           final StepMetaDataCombi combi = steps.get( i );
           RunThread runThread = new RunThread( combi );
-          Thread thread = new Thread( runThread );
-          thread.setName( getName() + " - " + combi.stepname );
           ExtensionPointHandler.callExtensionPoint( log, KettleExtensionPoint.StepBeforeStart.id, combi );
           // Call an extension point at the end of the step
           //
@@ -1572,7 +1602,18 @@ public class Trans implements VariableSpace, NamedParams, HasLogChannelInterface
 
           } );
 
-          thread.start();
+          if ( scheduler != null && scheduler.isCooperative( combi ) ) {
+            scheduler.add( combi, runThread );
+          } else {
+            ExecutorUtil.newThread( runThread, getName() + " - " + combi.stepname, virtualThreads ).start();
+          }
+        }
+        if ( scheduler != null ) {
+          if ( log.isDetailed() ) {
+            log.logDetailed( BaseMessages.getString( PKG, "Trans.Log.CooperativeScheduler",
+              String.valueOf( scheduler.size() ), String.valueOf( steps.size() ) ) );
+          }
+          scheduler.start();
         }
         break;
 
@@ -1792,22 +1833,24 @@ public class Trans implements VariableSpace, NamedParams, HasLogChannelInterface
    * Waits until all RunThreads have finished.
    */
   public void waitUntilFinished() {
-    try {
-      if ( transFinishedBlockingQueue == null ) {
-        return;
-      }
-      boolean wait = true;
-      while ( wait ) {
-        wait = transFinishedBlockingQueue.poll( 1, TimeUnit.DAYS ) == null;
+    if ( transFinishedBlockingQueue == null ) {
+      return;
+    }
+    // A step on the cooperative step scheduler running a sub-transformation lets the other steps use the pool
+    //
+    CooperativeStepScheduler.await( () -> {
+      try {
+        boolean wait = transFinishedBlockingQueue.poll( 1, TimeUnit.DAYS ) == null;
         if ( wait ) {
           // poll returns immediately - this was hammering the CPU with poll checks. Added
           // a sleep to let the CPU breathe
           Thread.sleep( 1 );
         }
+        return !wait;
+      } catch ( InterruptedException e ) {
+        throw new RuntimeException( "Waiting for transformation to be finished interrupted!", e );
       }
-    } catch ( InterruptedException e ) {
-      throw new RuntimeException( "Waiting for transformation to be finished interrupted!", e );
-    }
+    } );
   }
 
   /**
@@ -3440,6 +3483,58 @@ public class Trans implements VariableSpace, NamedParams, HasLogChannelInterface
     return safeModeEnabled;
   }
 
+  /**
+   * Run the step copies on virtual threads rather than on one OS thread each. Waiting for rows or for a database then
+   * parks the virtual thread and frees its carrier thread for other steps. Only has an effect on Java 21 or later.
+   *
+   * @param usingVirtualThreads true to run the step copies on virtual threads
+   */
+  public void setUsingVirtualThreads( boolean usingVirtualThreads ) {
+    this.usingVirtualThreads = usingVirtualThreads;
+  }
+
+  /**
+   * @return true if the step copies of this transformation were asked to run on virtual threads
+   */
+  public boolean isUsingVirtualThreads() {
+    return usingVirtualThreads;
+  }
+
+  /**
+   * Run the step copies in slices on a pool with a thread per CPU instead of on a thread each, see
+   * {@link CooperativeStepScheduler}.
+   *
+   * @param usingCooperativeScheduler true to run the step copies on the cooperative step scheduler
+   */
+  public void setUsingCooperativeScheduler( boolean usingCooperativeScheduler ) {
+    this.usingCooperativeScheduler = usingCooperativeScheduler;
+  }
+
+  /**
+   * @return true if the step copies of this transformation were asked to run on the cooperative step scheduler
+   */
+  public boolean isUsingCooperativeScheduler() {
+    return usingCooperativeScheduler;
+  }
+
+  /**
+   * The step copies run on the cooperative step scheduler when this transformation or its parent asks for it, or when
+   * the KETTLE_COOPERATIVE_STEP_SCHEDULER variable is set to Y.
+   */
+  private boolean isRunningOnCooperativeScheduler() {
+    return usingCooperativeScheduler || parentTrans != null && parentTrans.isRunningOnCooperativeScheduler()
+      || "Y".equalsIgnoreCase( getVariable( Const.KETTLE_COOPERATIVE_STEP_SCHEDULER ) );
+  }
+
+  /**
+   * The step copies run on virtual threads when this transformation or its parent asks for it, or when the
+   * KETTLE_VIRTUAL_STEP_THREADS variable is set to Y, so that sub-transformations follow their parent.
+   */
+  private boolean isRunningOnVirtualThreads() {
+    return usingVirtualThreads || parentTrans != null && parentTrans.isRunningOnVirtualThreads()
+      || "Y".equalsIgnoreCase( getVariable( Const.KETTLE_VIRTUAL_STEP_THREADS ) );
+  }
+
   /**
    * This adds a row producer to the transformation that just got set up. It is preferable to run this BEFORE execute()
    * but after prepareExecution()
@@ -33,8 +33,10 @@ import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
@@ -46,6 +48,7 @@ import org.pentaho.di.core.ExtensionDataInterface;
 import org.pentaho.di.core.ResultFile;
 import org.pentaho.di.core.RowMetaAndData;
 import org.pentaho.di.core.RowSet;
+import org.pentaho.di.core.RowSetSignal;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.exception.KettleRowException;
 import org.pentaho.di.core.exception.KettleStepException;
@@ -55,10 +58,12 @@ import org.pentaho.di.core.logging.LogChannelInterface;
 import org.pentaho.di.core.logging.LogLevel;
 import org.pentaho.di.core.logging.LoggingObjectInterface;
 import org.pentaho.di.core.logging.LoggingObjectType;
+import org.pentaho.di.core.logging.Metrics;
 import org.pentaho.di.core.row.RowDataUtil;
 import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.row.batch.RowBatch;
 import org.pentaho.di.core.row.value.ValueMetaDate;
 import org.pentaho.di.core.row.value.ValueMetaNumber;
 import org.pentaho.di.core.row.value.ValueMetaString;
@@ -72,6 +77,7 @@ import org.pentaho.di.repository.ObjectRevision;
 import org.pentaho.di.repository.Repository;
 import org.pentaho.di.repository.RepositoryDirectory;
 import org.pentaho.di.trans.BasePartitioner;
+import org.pentaho.di.trans.CooperativeStepScheduler;
 import org.pentaho.di.trans.SlaveStepCopyPartitionDistribution;
 import org.pentaho.di.trans.Trans;
 import org.pentaho.di.trans.TransMeta;
@@ -360,6 +366,23 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
 
   private RowSet[] partitionNrRowSetList;
 
+  /**
+   * The number of rows this step copy sent to each partition, to report partitions getting more than their share.
+   */
+  private long[] partitionRowCounts;
+
+  /** Skewed partitioning is only reported for steps that partitioned at least this number of rows */
+  private static final long MIN_ROWS_FOR_PARTITION_SKEW = 1000L;
+
+  /**
+   * For every output row set, how many rows a row distribution sent to it while it was empty, filled up to 25%, 50%,
+   * 75% of the row set size or more. See {@link #countOutputQueueDepth(int, int)}.
+   */
+  private long[][] outputQueueDepths;
+
+  /** The upper bounds of the queue depth buckets, in percent of the row set size */
+  private static final int[] QUEUE_DEPTH_PERCENTAGES = { 0, 25, 50, 75, 100 };
+
   /**
    * A list of server sockets that need to be closed during transformation cleanup.
    */
@@ -398,6 +421,22 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
    */
   private int lowerBufferBoundary;
 
+  /**
+   * Raised by the producing steps when a row arrives in one of our input row sets or when one of them is done.
+   */
+  private final RowSetSignal inputSignal = new RowSetSignal();
+
+  /**
+   * Park on the input signal while waiting for rows instead of polling the input row sets. See
+   * {@link Const#KETTLE_ROWSET_SIGNALS}
+   */
+  private boolean rowSetSignals;
+
+  /**
+   * The maximum time to park on the input signal before checking the step state again (ms)
+   */
+  private int signalTimeout;
+
   /**
    * maximum number of errors to allow
    */
@@ -557,6 +596,9 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
 
     upperBufferBoundary = (int) ( transMeta.getSizeRowset() * 0.99 );
     lowerBufferBoundary = (int) ( transMeta.getSizeRowset() * 0.01 );
+
+    rowSetSignals = !"N".equalsIgnoreCase( System.getProperty( Const.KETTLE_ROWSET_SIGNALS, "Y" ) );
+    signalTimeout = Const.toInt( System.getProperty( Const.KETTLE_ROWSET_GET_TIMEOUT ), Const.TIMEOUT_GET_MILLIS );
   }
 
   /*
@@ -1265,13 +1307,7 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
   private void handlePutRow( RowMetaInterface rowMeta, Object[] row ) throws KettleStepException {
     // Are we pausing the step? If so, stall forever...
     //
-    while ( paused.get() && !stopped.get() ) {
-      try {
-        Thread.sleep( 1 );
-      } catch ( InterruptedException e ) {
-        throw new KettleStepException( e );
-      }
-    }
+    waitWhilePaused();
 
     // Right after the pause loop we have to check if this thread is stopped or
     // not.
@@ -1288,16 +1324,7 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
     // Are we running yet? If not, wait a bit until all threads have been
     // started.
     //
-    if ( this.checkTransRunning == false ) {
-      while ( !trans.isRunning() && !stopped.get() ) {
-        try {
-          Thread.sleep( 1 );
-        } catch ( InterruptedException e ) {
-          // Ignore
-        }
-      }
-      this.checkTransRunning = true;
-    }
+    waitUntilTransformationIsStarted();
 
     // call all row listeners...
     //
@@ -1379,6 +1406,7 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
       throw new KettleStepException(
         "Unable to convert a value to integer while calculating the partition number", e );
     }
+    countPartitionRow( partitionNr );
 
     RowSet selectedRowSet = null;
 
@@ -1518,7 +1546,7 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
         // To reduce stress on the locking system we are NOT going to allow
         // the buffer to grow to its full capacity.
         //
-        if ( isUsingThreadPriorityManagment() && !rs.isDone() && rs.size() >= upperBufferBoundary && !isStopped() ) {
+        if ( isThrottling() && !rs.isDone() && rs.size() >= upperBufferBoundary && !isStopped() ) {
           try {
             Thread.sleep( 0, 1 );
           } catch ( InterruptedException e ) {
@@ -1554,7 +1582,7 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
         // To reduce stress on the locking system we are NOT going to allow
         // the buffer to grow to its full capacity.
         //
-        if ( isUsingThreadPriorityManagment() && !rs.isDone() && rs.size() >= upperBufferBoundary && !isStopped() ) {
+        if ( isThrottling() && !rs.isDone() && rs.size() >= upperBufferBoundary && !isStopped() ) {
           try {
             Thread.sleep( 0, 1 );
           } catch ( InterruptedException e ) {
@@ -1591,11 +1619,13 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
       toBeSent = metaFromRs;
     }
 
-    while ( !rs.putRow( toBeSent, row ) ) {
-      if ( isStopped() && !safeStopped.get() ) {
-        return;
-      }
+    if ( rs.putRow( toBeSent, row ) ) {
+      return;
     }
+    // Loop until there is room in the row set
+    //
+    final RowMetaInterface sentRowMeta = toBeSent;
+    CooperativeStepScheduler.await( () -> isStopped() && !safeStopped.get() || rs.putRow( sentRowMeta, row ) );
   }
 
   /**
@@ -1614,13 +1644,7 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
 
     // Are we pausing the step? If so, stall forever...
     //
-    while ( paused.get() && !stopped.get() ) {
-      try {
-        Thread.sleep( 1 );
-      } catch ( InterruptedException e ) {
-        throw new KettleStepException( e );
-      }
-    }
+    waitWhilePaused();
 
     // call all row listeners...
     //
@@ -1789,6 +1813,80 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
     }
   }
 
+  /**
+   * @param rowSet the input row set to read from
+   * @return true if we can park on the input signal while waiting for the row set, false if we need to poll it.
+   */
+  private boolean isSignaling( RowSet rowSet ) {
+    return rowSetSignals && rowSet.setConsumerSignal( inputSignal );
+  }
+
+  /**
+   * Get a row from the given row set. If it's empty, wait until a producer signals that one of the watched row sets
+   * received a row or was marked as done. A null return value therefore doesn't mean that the given row set is done:
+   * the caller decides where to look next.
+   *
+   * If one of the watched row sets can't signal we fall back to a short timed wait on the row set.
+   *
+   * @param rowSet  the row set to read from
+   * @param watched the row sets that can wake us up
+   * @return the row or null if no row was available
+   */
+  private Object[] waitForRow( RowSet rowSet, List<RowSet> watched ) {
+    Object[] row = rowSet.getRowImmediate();
+    if ( row != null ) {
+      return row;
+    }
+
+    // Reset first, then look: a row arriving in between raises the signal again so we can't miss it.
+    //
+    inputSignal.reset();
+    for ( RowSet watchedRowSet : watched ) {
+      if ( !watchedRowSet.setConsumerSignal( inputSignal ) ) {
+        return awaitRow( rowSet, () -> rowSet.getRowWait( 1, TimeUnit.MILLISECONDS ) );
+      }
+      if ( watchedRowSet.size() > 0 || watchedRowSet.isDone() ) {
+        return rowSet.getRowImmediate();
+      }
+    }
+
+    if ( !isStopped() ) {
+      CooperativeStepScheduler.await( () -> {
+        inputSignal.await( signalTimeout, TimeUnit.MILLISECONDS );
+        return true;
+      } );
+    }
+    return rowSet.getRowImmediate();
+  }
+
+  /**
+   * Get a row from a row set that can't signal, waiting a little if it's empty. On the cooperative step scheduler, the
+   * pool is told that we block.
+   *
+   * @param rowSet  the row set to read from
+   * @param waiting waits a little for a row of the row set
+   * @return the row or null if no row was available
+   */
+  private Object[] awaitRow( RowSet rowSet, Supplier<Object[]> waiting ) {
+    Object[] row = rowSet.getRowImmediate();
+    if ( row != null ) {
+      return row;
+    }
+    AtomicReference<Object[]> waited = new AtomicReference<>();
+    CooperativeStepScheduler.await( () -> {
+      waited.set( waiting.get() );
+      return true;
+    } );
+    return waited.get();
+  }
+
+  /**
+   * @return true if we need to sleep a little to let buffers fill up. Only applies when polling the row sets.
+   */
+  private boolean isThrottling() {
+    return !rowSetSignals && isUsingThreadPriorityManagment();
+  }
+
   /**
    * Wait until the transformation is completely running and all threads have been started.
    */
@@ -1798,17 +1896,26 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
     // started.
     //
     if ( this.checkTransRunning == false ) {
-      while ( !trans.isRunning() && !stopped.get() ) {
-        try {
-          Thread.sleep( 1 );
-        } catch ( InterruptedException e ) {
-          // Ignore sleep interruption exception
-        }
+      if ( !trans.isRunning() && !stopped.get() ) {
+        CooperativeStepScheduler.await( () -> trans.isRunning() || stopped.get() );
       }
       this.checkTransRunning = true;
     }
   }
 
+  /**
+   * Wait as long as the step is paused and not stopped.
+   */
+  private void waitWhilePaused() throws KettleStepException {
+    if ( paused.get() && !stopped.get() ) {
+      Thread thread = Thread.currentThread();
+      CooperativeStepScheduler.await( () -> !paused.get() || stopped.get() || thread.isInterrupted() );
+      if ( Thread.interrupted() ) {
+        throw new KettleStepException( new InterruptedException() );
+      }
+    }
+  }
+
 
   /**
    * In case of getRow, we receive data from previous steps through the input rowset. In case we split the stream, we
@@ -1820,17 +1927,65 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
   }
 
 
+  /**
+   * Read a batch of rows from the source step(s). We don't wait for a full batch: once we have a row, we only add the
+   * rows that are already waiting in the input row sets. That way a slow producer doesn't hold rows back.
+   *
+   * @param maxRows the maximum number of rows in the batch
+   * @return a batch with at least one row or null if no more rows are expected.
+   * @throws KettleException in case the layout of the rows isn't known
+   */
+  @Override
+  public RowBatch getRowBatch( int maxRows ) throws KettleException {
+    Object[] row = getRow();
+    if ( row == null ) {
+      return null;
+    }
+    if ( getInputRowMeta() == null ) {
+      throw new KettleStepException( BaseMessages.getString( PKG, "BaseStep.Exception.UnknownRowBatchLayout" ) );
+    }
+    RowBatch batch = new RowBatch( getInputRowMeta(), maxRows );
+    batch.addRow( row );
+    while ( batch.size() < maxRows && isInputAvailable() ) {
+      row = getRow();
+      if ( row == null ) {
+        break;
+      }
+      batch.addRow( row );
+    }
+    return batch;
+  }
+
+  /**
+   * @return true if at least one of the input row sets holds a row
+   */
+  private boolean isInputAvailable() {
+    inputRowSetsLock.readLock().lock();
+    try {
+      for ( RowSet rowSet : inputRowSets ) {
+        if ( rowSet.size() > 0 ) {
+          return true;
+        }
+      }
+      return false;
+    } finally {
+      inputRowSetsLock.readLock().unlock();
+    }
+  }
+
+  /**
+   * @return the number of rows steps with a native batch path should process at once, 0 to process row by row. See
+   * {@link Const#KETTLE_ROW_BATCH_SIZE}
+   */
+  public int getRowBatchSize() {
+    return Math.max( 0, Const.toInt( getVariable( Const.KETTLE_ROW_BATCH_SIZE ), 0 ) );
+  }
+
   private Object[] handleGetRow() throws KettleException {
 
     // Are we pausing the step? If so, stall forever...
     //
-    while ( paused.get() && !stopped.get() ) {
-      try {
-        Thread.sleep( 100 );
-      } catch ( InterruptedException e ) {
-        throw new KettleStepException( e );
-      }
-    }
+    waitWhilePaused();
 
     if ( stopped.get() ) {
       if ( log.isDebug() ) {
@@ -1884,7 +2039,7 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
       // The buffer to grow beyond "a few" entries.
       // We'll only do that if the previous step has not ended...
       //
-      if ( isUsingThreadPriorityManagment()
+      if ( isThrottling()
         && !inputRowSet.isDone() && inputRowSet.size() <= lowerBufferBoundary && !isStopped() ) {
         try {
           Thread.sleep( 0, 1 );
@@ -1910,7 +2065,12 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
         // Timeout immediately if nothing is there to read.
         // We will then switch to the next row set to read from...
         //
-        row = inputRowSet.getRowWait( 1, TimeUnit.MILLISECONDS );
+        if ( isSignaling( inputRowSet ) ) {
+          row = waitForRow( inputRowSet, inputRowSets );
+        } else {
+          final RowSet waitedRowSet = inputRowSet;
+          row = awaitRow( waitedRowSet, () -> waitedRowSet.getRowWait( 1, TimeUnit.MILLISECONDS ) );
+        }
         if ( row != null ) {
           incrementLinesRead();
           blockPointer++;
@@ -2213,34 +2373,19 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
   public Object[] handleGetRowFrom( RowSet rowSet ) throws KettleStepException {
     // Are we pausing the step? If so, stall forever...
     //
-    while ( paused.get() && !stopped.get() ) {
-      try {
-        Thread.sleep( 10 );
-      } catch ( InterruptedException e ) {
-        throw new KettleStepException( e );
-      }
-    }
+    waitWhilePaused();
 
     // Have all threads started?
     // Are we running yet? If not, wait a bit until all threads have been
     // started.
-    if ( this.checkTransRunning == false ) {
-      while ( !trans.isRunning() && !stopped.get() ) {
-        try {
-          Thread.sleep( 1 );
-        } catch ( InterruptedException e ) {
-          // Ignore sleep interruption exception
-        }
-      }
-      this.checkTransRunning = true;
-    }
+    waitUntilTransformationIsStarted();
     Object[] rowData = null;
 
     // To reduce stress on the locking system we are going to allow
     // The buffer to grow beyond "a few" entries.
     // We'll only do that if the previous step has not ended...
     //
-    if ( isUsingThreadPriorityManagment()
+    if ( isThrottling()
       && !rowSet.isDone() && rowSet.size() <= lowerBufferBoundary && !isStopped() ) {
       try {
         Thread.sleep( 0, 1 );
@@ -2251,9 +2396,11 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
 
     // Grab a row... If nothing received after a timeout, try again.
     //
-    rowData = rowSet.getRow();
+    boolean signaling = isSignaling( rowSet );
+    List<RowSet> watched = Collections.singletonList( rowSet );
+    rowData = signaling ? waitForRow( rowSet, watched ) : awaitRow( rowSet, rowSet::getRow );
     while ( rowData == null && !rowSet.isDone() && !stopped.get() ) {
-      rowData = rowSet.getRow();
+      rowData = signaling ? waitForRow( rowSet, watched ) : awaitRow( rowSet, rowSet::getRow );
 
       // Verify deadlocks!
       //
@@ -3002,6 +3149,7 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
   @Override
   public void stopAll() {
     stopped.set( true );
+    inputSignal.signal();
     trans.stopAll();
   }
 
@@ -3043,6 +3191,9 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
   @Override
   public void setStopped( boolean stopped ) {
     this.stopped.set( stopped );
+    if ( stopped ) {
+      inputSignal.signal();
+    }
   }
 
   @Override
@@ -3143,6 +3294,9 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
     Calendar cal = Calendar.getInstance();
     stop_time = cal.getTime();
 
+    logPartitionSkew();
+    logOutputQueueDepths();
+
     // Here we are completely done with the transformation.
     // Call all the attached listeners and notify the outside world that the step has finished.
     //
@@ -3377,6 +3531,112 @@ public class BaseStep implements VariableSpace, StepInterface, LoggingObjectInte
   public void stopRunning() {
   }
 
+  private void countPartitionRow( int partitionNr ) {
+    if ( partitionRowCounts == null || partitionNr >= partitionRowCounts.length ) {
+      int nrPartitions = partitionNr + 1;
+      if ( nextStepPartitioningMeta.getPartitioner() instanceof BasePartitioner ) {
+        nrPartitions =
+          Math.max( nrPartitions, ( (BasePartitioner) nextStepPartitioningMeta.getPartitioner() ).getNrPartitions() );
+      }
+      partitionRowCounts =
+        partitionRowCounts == null ? new long[ nrPartitions ] : Arrays.copyOf( partitionRowCounts, nrPartitions );
+    }
+    partitionRowCounts[ partitionNr ]++;
+  }
+
+  /**
+   * Report the number of rows sent to each partition in the step metrics, and log the partition that got the most rows
+   * when it got more than KETTLE_PARTITION_SKEW_RATIO times the average.
+   */
+  private void logPartitionSkew() {
+    long[] counts = partitionRowCounts;
+    if ( counts == null ) {
+      return;
+    }
+    long total = 0L;
+    int hottest = 0;
+    for ( int i = 0; i < counts.length; i++ ) {
+      total += counts[ i ];
+      if ( counts[ i ] > counts[ hottest ] ) {
+        hottest = i;
+      }
+      log.snap( Metrics.METRIC_STEP_PARTITION_ROWS, getStepname() + " - " + getPartitionId( i ), counts[ i ] );
+    }
+    double average = (double) total / counts.length;
+    double ratio = counts[ hottest ] / average;
+    log.snap( Metrics.METRIC_STEP_PARTITION_SKEW, getStepname(), Math.round( 100 * ratio ) );
+
+    double maxRatio = Const.toDouble( getVariable( Const.KETTLE_PARTITION_SKEW_RATIO ), 2.0 );
+    if ( counts.length > 1 && total >= MIN_ROWS_FOR_PARTITION_SKEW && ratio > maxRatio ) {
+      logBasic( BaseMessages.getString( PKG, "BaseStep.Log.HotPartition", getPartitionId( hottest ),
+        String.valueOf( counts[ hottest ] ), String.format( "%.1f", ratio ), String.valueOf( total ) ) );
+    }
+  }
+
+  /**
+   * Count the number of rows waiting in an output row set when a row distribution sent a row to it, once per row. The
+   * counts are reported per output row set, in a histogram, when the step finishes.
+   *
+   * @param rowSetNr the index of the row set in the output row sets
+   * @param depth    the number of rows waiting in the row set
+   */
+  public void countOutputQueueDepth( int rowSetNr, int depth ) {
+    if ( outputQueueDepths == null || rowSetNr >= outputQueueDepths.length ) {
+      int nrRowSets = Math.max( rowSetNr + 1, outputRowSets.size() );
+      long[][] depths = new long[ nrRowSets ][];
+      for ( int i = 0; i < nrRowSets; i++ ) {
+        depths[ i ] = outputQueueDepths != null && i < outputQueueDepths.length ? outputQueueDepths[ i ]
+          : new long[ QUEUE_DEPTH_PERCENTAGES.length ];
+      }
+      outputQueueDepths = depths;
+    }
+    int bucket = 0;
+    if ( depth > 0 ) {
+      int rowSetSize = Math.max( 1, transMeta.getSizeRowset() );
+      bucket = Math.min( QUEUE_DEPTH_PERCENTAGES.length - 1, 1 + (int) ( ( depth - 1L ) * 4 / rowSetSize ) );
+    }
+    outputQueueDepths[ rowSetNr ][ bucket ]++;
+  }
+
+  /**
+   * Report the queue depth histogram of every output row set in the step metrics and in the detailed log.
+   */
+  private void logOutputQueueDepths() {
+    long[][] depths = outputQueueDepths;
+    if ( depths == null ) {
+      return;
+    }
+    for ( int i = 0; i < depths.length && i < outputRowSets.size(); i++ ) {
+      RowSet rowSet = outputRowSets.get( i );
+      String destination = rowSet.getDestinationStepName() + "." + rowSet.getDestinationStepCopy();
+      long total = 0L;
+      for ( int bucket = 0; bucket < QUEUE_DEPTH_PERCENTAGES.length; bucket++ ) {
+        total += depths[ i ][ bucket ];
+        log.snap( Metrics.METRIC_STEP_OUTPUT_QUEUE_DEPTH,
+          getStepname() + " - " + destination + " - " + QUEUE_DEPTH_PERCENTAGES[ bucket ] + "%",
+          depths[ i ][ bucket ] );
+      }
+      if ( total > 0 && log.isDetailed() ) {
+        String[] percentages = new String[ QUEUE_DEPTH_PERCENTAGES.length ];
+        for ( int bucket = 0; bucket < percentages.length; bucket++ ) {
+          percentages[ bucket ] = String.valueOf( Math.round( 100.0 * depths[ i ][ bucket ] / total ) );
+        }
+        logDetailed( BaseMessages.getString( PKG, "BaseStep.Log.OutputQueueDepths", destination,
+          String.valueOf( total ), percentages[ 0 ], percentages[ 1 ], percentages[ 2 ], percentages[ 3 ],
+          percentages[ 4 ] ) );
+      }
+    }
+  }
+
+  private String getPartitionId( int partitionNr ) {
+    PartitionSchema partitionSchema = nextStepPartitioningMeta == null ? null
+      : nextStepPartitioningMeta.getPartitionSchema();
+    if ( partitionSchema != null && partitionNr < partitionSchema.getPartitionIDs().size() ) {
+      return partitionSchema.getPartitionIDs().get( partitionNr );
+    }
+    return String.valueOf( partitionNr );
+  }
+
   /**
    * Log summary.
    */
@@ -0,0 +1,117 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.step;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.pentaho.di.core.RowSet;
+import org.pentaho.di.core.exception.KettleStepException;
+import org.pentaho.di.core.gui.PrimitiveGCInterface;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.trans.CooperativeStepScheduler;
+
+/**
+ * Distributes the rows over the copies of the next step, sending each row to the copy with the fewest rows waiting in
+ * its row set. Unlike round robin, a copy that is slowed down by a few expensive rows or a slow lookup doesn't hold
+ * back the others: the rows go to the copies that keep up.<br>
+ * When the chosen row set fills up while waiting to put a row, the row goes to the next least loaded one.<br>
+ * The number of rows waiting in the row set a row is sent to is counted in a histogram for every copy, reported when
+ * the step finishes.
+ *
+ * @since 11.1
+ */
+@RowDistributionPlugin( code = LeastLoadedRowDistribution.CODE, name = "Least loaded",
+  description = "Send every row to the copy of the next step with the fewest rows waiting" )
+public class LeastLoadedRowDistribution implements RowDistributionInterface {
+
+  public static final String CODE = "LeastLoaded";
+
+  /** How long to wait for room in the chosen row set before looking for another one */
+  private static final long PUT_TIMEOUT_MILLIS = 1L;
+
+  @Override
+  public String getCode() {
+    return CODE;
+  }
+
+  @Override
+  public String getDescription() {
+    return "Least loaded";
+  }
+
+  @Override
+  public void distributeRow( RowMetaInterface rowMeta, Object[] row, StepInterface stepInterface )
+    throws KettleStepException {
+    List<RowSet> rowSets = stepInterface.getOutputRowSets();
+    BaseStep baseStep = stepInterface instanceof BaseStep ? (BaseStep) stepInterface : null;
+
+    // Start looking at a different row set for every row so that ties, idle copies in particular, are broken evenly
+    //
+    int[] start = { (int) ( stepInterface.getLinesWritten() % rowSets.size() ) };
+    if ( putRow( rowMeta, row, rowSets, start[ 0 ], baseStep ) ) {
+      return;
+    }
+    // All the row sets are full, wait for room in the least loaded one
+    //
+    CooperativeStepScheduler.await( () -> {
+      start[ 0 ] = ( start[ 0 ] + 1 ) % rowSets.size();
+      return stepInterface.isStopped() && !stepInterface.isSafeStopped()
+        || putRow( rowMeta, row, rowSets, start[ 0 ], baseStep );
+    } );
+  }
+
+  /**
+   * Put the row in the least loaded row set. Only once it's in, the rows it found waiting there are counted.
+   *
+   * @return true if the row was put, false if the row set stayed full
+   */
+  private static boolean putRow( RowMetaInterface rowMeta, Object[] row, List<RowSet> rowSets, int start,
+                                 BaseStep baseStep ) {
+    int rowSetNr = getLeastLoaded( rowSets, start );
+    RowSet rowSet = rowSets.get( rowSetNr );
+    int depth = rowSet.size();
+    RowMetaInterface toBeSent = rowSet.getRowMeta() == null ? rowMeta.clone() : rowSet.getRowMeta();
+    if ( !rowSet.putRowWait( toBeSent, row, PUT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS ) ) {
+      return false;
+    }
+    if ( baseStep != null ) {
+      baseStep.countOutputQueueDepth( rowSetNr, depth );
+    }
+    return true;
+  }
+
+  /**
+   * @return the index of the row set with the fewest rows, the first one from start on if several have as few
+   */
+  static int getLeastLoaded( List<RowSet> rowSets, int start ) {
+    int nrRowSets = rowSets.size();
+    int leastLoaded = start;
+    int leastSize = Integer.MAX_VALUE;
+    for ( int i = 0; i < nrRowSets; i++ ) {
+      int rowSetNr = ( start + i ) % nrRowSets;
+      int size = rowSets.get( rowSetNr ).size();
+      if ( size < leastSize ) {
+        leastLoaded = rowSetNr;
+        leastSize = size;
+      }
+    }
+    return leastLoaded;
+  }
+
+  @Override
+  public PrimitiveGCInterface.EImage getDistributionImage() {
+    return PrimitiveGCInterface.EImage.LOAD_BALANCE;
+  }
+}
@@ -0,0 +1,274 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.step;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.pentaho.di.core.compress.CompressionProvider;
+import org.pentaho.di.core.exception.KettleEOFException;
+import org.pentaho.di.core.exception.KettleFileException;
+import org.pentaho.di.core.row.RowDataUtil;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+
+/**
+ * Reads the batches of rows written by a {@link RemoteRowWriter}.
+ *
+ * @since 11.1
+ */
+public class RemoteRowReader {
+
+  private final DataInputStream inputStream;
+  private final RowMetaInterface rowMeta;
+  private final ValueMetaInterface[] valueMetas;
+  private final int[] encodings;
+  private final CompressionProvider compressionProvider;
+  private final List<String>[] dictionaries;
+
+  private Object[][] rows = new Object[ 0 ][];
+  private int nrRows;
+  private int next;
+
+  private byte[] batch = new byte[ 65536 ];
+  private byte[] compressed = new byte[ 0 ];
+
+  private boolean finished;
+
+  @SuppressWarnings( "unchecked" )
+  private RemoteRowReader( DataInputStream inputStream ) throws IOException, KettleFileException {
+    this.inputStream = inputStream;
+    int version = inputStream.readUnsignedByte();
+    if ( version != RemoteRowWriter.VERSION ) {
+      throw new KettleFileException( "Unsupported version of the row stream: " + version );
+    }
+    this.compressionProvider = RemoteRowWriter.getCompressionProvider( inputStream.readUTF() );
+    this.rowMeta = new RowMeta( inputStream );
+    this.valueMetas = rowMeta.getValueMetaList().toArray( new ValueMetaInterface[ 0 ] );
+    this.encodings = RemoteRowWriter.getEncodings( valueMetas );
+    this.dictionaries = new List[ valueMetas.length ];
+    for ( int i = 0; i < valueMetas.length; i++ ) {
+      if ( encodings[ i ] == RemoteRowWriter.ENCODING_STRING ) {
+        dictionaries[ i ] = new ArrayList<>();
+      }
+    }
+  }
+
+  /**
+   * Read the start of a stream written by a {@link RemoteRowWriter}.
+   *
+   * @param inputStream
+   *          the (buffered) stream to read from, supporting mark and reset
+   * @return the reader of the rows, or null if the stream holds rows written one at a time. In that case nothing is
+   *         consumed and the row metadata comes next in the stream.
+   * @throws KettleEOFException
+   *           in case the stream is empty
+   * @throws KettleFileException
+   *           in case the start of the stream can't be read
+   * @throws SocketTimeoutException
+   *           in case reading from the socket times out
+   */
+  public static RemoteRowReader open( DataInputStream inputStream ) throws KettleFileException,
+    SocketTimeoutException {
+    try {
+      inputStream.mark( 4 );
+      if ( inputStream.readInt() != RemoteRowWriter.MAGIC ) {
+        inputStream.reset();
+        return null;
+      }
+      return new RemoteRowReader( inputStream );
+    } catch ( EOFException e ) {
+      throw new KettleEOFException( e );
+    } catch ( SocketTimeoutException e ) {
+      throw e;
+    } catch ( IOException e ) {
+      throw new KettleFileException( "Unable to read the start of the row stream", e );
+    }
+  }
+
+  /**
+   * @return the layout of the rows
+   */
+  public RowMetaInterface getRowMeta() {
+    return rowMeta;
+  }
+
+  /**
+   * Read the next row, reading the next batch when the current one is used up.
+   *
+   * @return the row or null at the end of the stream
+   * @throws KettleFileException
+   *           in case a batch can't be read or decoded
+   */
+  public Object[] readRow() throws KettleFileException {
+    while ( next == nrRows ) {
+      if ( finished ) {
+        return null;
+      }
+      readBatch();
+    }
+    Object[] row = rows[ next ];
+    rows[ next++ ] = null;
+    return row;
+  }
+
+  private void readBatch() throws KettleFileException {
+    next = 0;
+    nrRows = 0;
+    int batchSize;
+    try {
+      nrRows = inputStream.readInt();
+    } catch ( EOFException e ) {
+      // the writer went away between two batches, like the end of a stream of single rows
+      finished = true;
+      return;
+    } catch ( IOException e ) {
+      throw new KettleFileException( "Unable to read a batch of rows", e );
+    }
+    if ( nrRows == 0 ) {
+      finished = true;
+      return;
+    }
+
+    try {
+      batchSize = inputStream.readInt();
+      int compressedSize = inputStream.readInt();
+      if ( nrRows < 0 || batchSize < 0 || compressedSize < 0 ) {
+        throw new KettleFileException( "Corrupt batch of rows: " + nrRows + " rows of " + batchSize + " bytes" );
+      }
+      if ( batch.length < batchSize ) {
+        batch = new byte[ Math.max( batchSize, 2 * batch.length ) ];
+      }
+      if ( compressionProvider == null ) {
+        inputStream.readFully( batch, 0, batchSize );
+      } else {
+        if ( compressed.length < compressedSize ) {
+          compressed = new byte[ Math.max( compressedSize, 2 * compressed.length ) ];
+        }
+        inputStream.readFully( compressed, 0, compressedSize );
+        try ( InputStream decompressing =
+          compressionProvider.createInputStream( new ByteArrayInputStream( compressed, 0, compressedSize ) ) ) {
+          new DataInputStream( decompressing ).readFully( batch, 0, batchSize );
+        }
+      }
+    } catch ( IOException e ) {
+      nrRows = 0;
+      throw new KettleFileException( "Unable to read a batch of rows", e );
+    }
+
+    if ( rows.length < nrRows ) {
+      rows = new Object[ nrRows ][];
+    }
+    for ( int i = 0; i < nrRows; i++ ) {
+      rows[ i ] = RowDataUtil.allocateRowData( valueMetas.length );
+    }
+    try {
+      decodeBatch( new DataInputStream( new ByteArrayInputStream( batch, 0, batchSize ) ) );
+    } catch ( IOException | RuntimeException e ) {
+      nrRows = 0;
+      throw new KettleFileException( "Unable to decode a batch of rows", e );
+    }
+  }
+
+  private void decodeBatch( DataInputStream values ) throws IOException, KettleFileException {
+    for ( int i = 0; i < valueMetas.length; i++ ) {
+      int start = 0;
+      while ( start < nrRows ) {
+        int length = (int) readVarLong( values );
+        if ( length <= 0 || start + length > nrRows ) {
+          throw new IOException( "Corrupt run of " + length + " values" );
+        }
+        Object value = readValue( values, i );
+        rows[ start ][ i ] = value;
+        for ( int row = start + 1; row < start + length; row++ ) {
+          rows[ row ][ i ] = copy( value );
+        }
+        start += length;
+      }
+    }
+  }
+
+  /**
+   * The immutable values of a run are shared by its rows, the others are copied.
+   */
+  private static Object copy( Object value ) {
+    if ( value instanceof byte[] ) {
+      return ( (byte[]) value ).clone();
+    }
+    if ( value instanceof Date ) {
+      return ( (Date) value ).clone();
+    }
+    return value;
+  }
+
+  private Object readValue( DataInputStream values, int index ) throws IOException, KettleFileException {
+    int tag = values.readUnsignedByte();
+    switch ( tag ) {
+      case RemoteRowWriter.TAG_NULL:
+        return null;
+      case RemoteRowWriter.TAG_DICTIONARY:
+        return dictionaries[ index ].get( (int) readVarLong( values ) );
+      case RemoteRowWriter.TAG_NEW_ENTRY:
+        String entry = readString( values );
+        dictionaries[ index ].add( entry );
+        return entry;
+      case RemoteRowWriter.TAG_VALUE:
+        break;
+      default:
+        throw new IOException( "Unknown value tag " + tag );
+    }
+    switch ( encodings[ index ] ) {
+      case RemoteRowWriter.ENCODING_STRING:
+        return readString( values );
+      case RemoteRowWriter.ENCODING_INTEGER:
+        long l = readVarLong( values );
+        return ( l >>> 1 ) ^ -( l & 1 );
+      case RemoteRowWriter.ENCODING_NUMBER:
+        return values.readDouble();
+      case RemoteRowWriter.ENCODING_BYTES:
+        byte[] bytes = new byte[ (int) readVarLong( values ) ];
+        values.readFully( bytes );
+        return bytes;
+      default:
+        return valueMetas[ index ].readData( values );
+    }
+  }
+
+  private static String readString( DataInputStream values ) throws IOException {
+    byte[] chars = new byte[ (int) readVarLong( values ) ];
+    values.readFully( chars );
+    return new String( chars, StandardCharsets.UTF_8 );
+  }
+
+  static long readVarLong( DataInputStream in ) throws IOException {
+    long value = 0;
+    for ( int shift = 0; shift < 64; shift += 7 ) {
+      int b = in.readUnsignedByte();
+      value |= (long) ( b & 0x7F ) << shift;
+      if ( ( b & 0x80 ) == 0 ) {
+        return value;
+      }
+    }
+    throw new IOException( "Malformed variable length integer" );
+  }
+}
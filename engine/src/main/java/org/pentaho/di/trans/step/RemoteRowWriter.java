@@ -0,0 +1,353 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.step;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.pentaho.di.core.compress.CompressionProvider;
+import org.pentaho.di.core.compress.CompressionProviderFactory;
+import org.pentaho.di.core.exception.KettleFileException;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.util.Utils;
+
+/**
+ * Writes rows to a socket in batches, for a {@link RemoteRowReader} on the other side.
+ *
+ * The stream starts with a magic number, the name of the compression provider of the batches and the row metadata,
+ * sent once. Every batch is then written as its number of rows, its encoded size, its compressed size and its
+ * (possibly compressed) content, and a batch of 0 rows marks the end of the stream. In a batch the values are written
+ * column by column, as runs of equal values: a run length followed by the value. Strings are replaced by their index in
+ * a dictionary of the column, built as they are written, so that repeating values take a few bytes over the network.
+ *
+ * Streams written one row at a time by {@link RowMetaInterface#writeData(DataOutputStream, Object[])} never start with
+ * the magic number, the reader tells them apart.
+ *
+ * @since 11.1
+ */
+public class RemoteRowWriter {
+
+  static final int MAGIC = 0x4B524231;
+  static final int VERSION = 1;
+
+  static final int ENCODING_OTHER = 0;
+  static final int ENCODING_INTEGER = 1;
+  static final int ENCODING_NUMBER = 2;
+  static final int ENCODING_STRING = 3;
+  static final int ENCODING_BYTES = 4;
+
+  static final int TAG_NULL = 0;
+  static final int TAG_VALUE = 1;
+  static final int TAG_DICTIONARY = 2;
+  static final int TAG_NEW_ENTRY = 3;
+
+  /** The maximum number of strings in the dictionary of a column, and the maximum length of these strings */
+  static final int MAX_DICTIONARY_SIZE = 65536;
+  static final int MAX_DICTIONARY_LENGTH = 256;
+
+  /** A batch is written when its encoded values reach this size, even with less rows than the batch size */
+  private static final int MAX_BATCH_BYTES = 1024 * 1024;
+
+  private final DataOutputStream outputStream;
+  private final ValueMetaInterface[] valueMetas;
+  private final int[] encodings;
+  private final CompressionProvider compressionProvider;
+  private final Map<String, Integer>[] dictionaries;
+
+  private final Object[][] rows;
+  private int nrRows;
+  private long estimatedSize;
+
+  private final Buffer batch = new Buffer();
+  private final DataOutputStream batchOutputStream = new DataOutputStream( batch );
+  private final Buffer compressed = new Buffer();
+
+  private boolean finished;
+
+  /**
+   * Write the start of the stream: the row metadata and the compression of the batches.
+   *
+   * @param outputStream
+   *          the (buffered) stream to write to. It's flushed but never closed by the writer.
+   * @param rowMeta
+   *          the layout of the rows to write
+   * @param batchSize
+   *          the maximum number of rows in a batch
+   * @param compression
+   *          the name of the {@link CompressionProvider} of the batches, None or empty for no compression
+   * @throws KettleFileException
+   *           in case the compression provider doesn't exist or the start of the stream can't be written
+   */
+  @SuppressWarnings( "unchecked" )
+  public RemoteRowWriter( DataOutputStream outputStream, RowMetaInterface rowMeta, int batchSize, String compression )
+    throws KettleFileException {
+    this.outputStream = outputStream;
+    this.valueMetas = rowMeta.getValueMetaList().toArray( new ValueMetaInterface[ 0 ] );
+    this.encodings = getEncodings( valueMetas );
+    this.compressionProvider = getCompressionProvider( compression );
+    this.dictionaries = new Map[ valueMetas.length ];
+    for ( int i = 0; i < valueMetas.length; i++ ) {
+      if ( encodings[ i ] == ENCODING_STRING ) {
+        dictionaries[ i ] = new HashMap<>();
+      }
+    }
+    this.rows = new Object[ Math.max( batchSize, 1 ) ][];
+
+    try {
+      outputStream.writeInt( MAGIC );
+      outputStream.writeByte( VERSION );
+      outputStream.writeUTF( compressionProvider == null ? "" : compressionProvider.getName() );
+    } catch ( IOException e ) {
+      throw new KettleFileException( "Unable to write the start of the row stream", e );
+    }
+    rowMeta.writeMeta( outputStream );
+  }
+
+  static CompressionProvider getCompressionProvider( String name ) throws KettleFileException {
+    if ( Utils.isEmpty( name ) || "None".equalsIgnoreCase( name ) ) {
+      return null;
+    }
+    CompressionProvider provider = CompressionProviderFactory.getInstance().getCompressionProviderByName( name );
+    if ( provider == null ) {
+      throw new KettleFileException( "Unknown compression of the row stream: " + name );
+    }
+    return provider;
+  }
+
+  static int[] getEncodings( ValueMetaInterface[] valueMetas ) {
+    int[] encodings = new int[ valueMetas.length ];
+    for ( int i = 0; i < valueMetas.length; i++ ) {
+      ValueMetaInterface valueMeta = valueMetas[ i ];
+      if ( valueMeta.isStorageBinaryString() ) {
+        encodings[ i ] = ENCODING_BYTES;
+      } else if ( valueMeta.isStorageNormal() ) {
+        switch ( valueMeta.getType() ) {
+          case ValueMetaInterface.TYPE_INTEGER:
+            encodings[ i ] = ENCODING_INTEGER;
+            break;
+          case ValueMetaInterface.TYPE_NUMBER:
+            encodings[ i ] = ENCODING_NUMBER;
+            break;
+          case ValueMetaInterface.TYPE_STRING:
+            encodings[ i ] = ENCODING_STRING;
+            break;
+          case ValueMetaInterface.TYPE_BINARY:
+            encodings[ i ] = ENCODING_BYTES;
+            break;
+          default:
+            encodings[ i ] = ENCODING_OTHER;
+            break;
+        }
+      } else {
+        encodings[ i ] = ENCODING_OTHER;
+      }
+    }
+    return encodings;
+  }
+
+  /**
+   * Add a row to the current batch, writing the batch once it's full. The row is kept until then, it must not be
+   * modified.
+   *
+   * @param row
+   *          the row, at least as long as the row metadata
+   * @throws KettleFileException
+   *           in case the batch can't be encoded or written
+   */
+  public void writeRow( Object[] row ) throws KettleFileException {
+    rows[ nrRows++ ] = row;
+    for ( int i = 0; i < valueMetas.length; i++ ) {
+      Object value = row[ i ];
+      if ( value instanceof String ) {
+        estimatedSize += ( (String) value ).length();
+      } else if ( value instanceof byte[] ) {
+        estimatedSize += ( (byte[]) value ).length;
+      } else {
+        estimatedSize += 8;
+      }
+    }
+    if ( nrRows == rows.length || estimatedSize >= MAX_BATCH_BYTES ) {
+      writeBatch();
+    }
+  }
+
+  /**
+   * Write the current batch, if any, and flush the output stream.
+   *
+   * @throws KettleFileException
+   *           in case the batch can't be encoded or written
+   */
+  public void flush() throws KettleFileException {
+    writeBatch();
+    try {
+      outputStream.flush();
+    } catch ( IOException e ) {
+      throw new KettleFileException( "Unable to flush the row stream", e );
+    }
+  }
+
+  /**
+   * Write the current batch, if any, and the end of the stream, then flush the output stream.
+   *
+   * @throws KettleFileException
+   *           in case the batch or the end of the stream can't be written
+   */
+  public void finish() throws KettleFileException {
+    if ( finished ) {
+      return;
+    }
+    finished = true;
+    writeBatch();
+    try {
+      outputStream.writeInt( 0 );
+      outputStream.flush();
+    } catch ( IOException e ) {
+      throw new KettleFileException( "Unable to write the end of the row stream", e );
+    }
+  }
+
+  private void writeBatch() throws KettleFileException {
+    if ( nrRows == 0 ) {
+      return;
+    }
+    try {
+      batch.reset();
+      for ( int i = 0; i < valueMetas.length; i++ ) {
+        int start = 0;
+        while ( start < nrRows ) {
+          Object value = rows[ start ][ i ];
+          int end = start + 1;
+          while ( end < nrRows && isSame( value, rows[ end ][ i ] ) ) {
+            end++;
+          }
+          writeVarLong( batchOutputStream, end - start );
+          writeValue( i, value );
+          start = end;
+        }
+      }
+
+      Buffer payload = batch;
+      if ( compressionProvider != null ) {
+        compressed.reset();
+        try ( OutputStream compressing = compressionProvider.createOutputStream( compressed ) ) {
+          compressing.write( batch.array(), 0, batch.size() );
+        }
+        payload = compressed;
+      }
+
+      outputStream.writeInt( nrRows );
+      outputStream.writeInt( batch.size() );
+      outputStream.writeInt( payload.size() );
+      outputStream.write( payload.array(), 0, payload.size() );
+    } catch ( ClassCastException e ) {
+      throw new KettleFileException( "Unable to write a batch of rows: the data type of a value doesn't correspond to "
+        + "its metadata", e );
+    } catch ( IOException e ) {
+      throw new KettleFileException( "Unable to write a batch of rows", e );
+    } finally {
+      Arrays.fill( rows, 0, nrRows, null );
+      nrRows = 0;
+      estimatedSize = 0;
+    }
+  }
+
+  private static boolean isSame( Object value, Object other ) {
+    if ( value == other ) {
+      return true;
+    }
+    if ( value == null || other == null ) {
+      return false;
+    }
+    if ( value instanceof byte[] && other instanceof byte[] ) {
+      return Arrays.equals( (byte[]) value, (byte[]) other );
+    }
+    return value.equals( other );
+  }
+
+  private void writeValue( int index, Object value ) throws IOException, KettleFileException {
+    if ( value == null ) {
+      batchOutputStream.writeByte( TAG_NULL );
+      return;
+    }
+    switch ( encodings[ index ] ) {
+      case ENCODING_STRING:
+        writeString( index, (String) value );
+        break;
+      case ENCODING_INTEGER:
+        long l = (Long) value;
+        batchOutputStream.writeByte( TAG_VALUE );
+        writeVarLong( batchOutputStream, ( l << 1 ) ^ ( l >> 63 ) );
+        break;
+      case ENCODING_NUMBER:
+        batchOutputStream.writeByte( TAG_VALUE );
+        batchOutputStream.writeDouble( (Double) value );
+        break;
+      case ENCODING_BYTES:
+        byte[] bytes = (byte[]) value;
+        batchOutputStream.writeByte( TAG_VALUE );
+        writeVarLong( batchOutputStream, bytes.length );
+        batchOutputStream.write( bytes );
+        break;
+      default:
+        batchOutputStream.writeByte( TAG_VALUE );
+        valueMetas[ index ].writeData( batchOutputStream, value );
+        break;
+    }
+  }
+
+  private void writeString( int index, String value ) throws IOException {
+    Map<String, Integer> dictionary = dictionaries[ index ];
+    Integer id = dictionary.get( value );
+    if ( id != null ) {
+      batchOutputStream.writeByte( TAG_DICTIONARY );
+      writeVarLong( batchOutputStream, id );
+      return;
+    }
+    if ( dictionary.size() < MAX_DICTIONARY_SIZE && value.length() <= MAX_DICTIONARY_LENGTH ) {
+      dictionary.put( value, dictionary.size() );
+      batchOutputStream.writeByte( TAG_NEW_ENTRY );
+    } else {
+      batchOutputStream.writeByte( TAG_VALUE );
+    }
+    byte[] chars = value.getBytes( StandardCharsets.UTF_8 );
+    writeVarLong( batchOutputStream, chars.length );
+    batchOutputStream.write( chars );
+  }
+
+  static void writeVarLong( DataOutputStream out, long value ) throws IOException {
+    while ( ( value & ~0x7FL ) != 0L ) {
+      out.writeByte( (int) ( ( value & 0x7F ) | 0x80 ) );
+      value >>>= 7;
+    }
+    out.writeByte( (int) value );
+  }
+
+  /** A byte array output stream that gives access to its content without copying it */
+  private static class Buffer extends ByteArrayOutputStream {
+    Buffer() {
+      super( 65536 );
+    }
+
+    byte[] array() {
+      return buf;
+    }
+  }
+}
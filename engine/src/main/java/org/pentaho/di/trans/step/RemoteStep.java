@@ -385,8 +385,15 @@ public class RemoteStep implements Cloneable, XMLInterface, Comparable<RemoteSte
 
           // get a row of data...
           Object[] rowData = baseStep.getRowFrom( rowSet );
+          RemoteRowWriter rowWriter = null;
           if ( rowData != null ) {
-            rowSet.getRowMeta().writeMeta( outputStream );
+            int batchSize = Const.toInt( baseStep.getVariable( Const.KETTLE_REMOTE_STEP_BATCH_SIZE ), 0 );
+            if ( batchSize > 0 ) {
+              rowWriter = new RemoteRowWriter( outputStream, rowSet.getRowMeta(), batchSize,
+                baseStep.getVariable( Const.KETTLE_REMOTE_STEP_COMPRESSION ) );
+            } else {
+              rowSet.getRowMeta().writeMeta( outputStream );
+            }
           }
 
           // Send that row to the remote step
@@ -398,7 +405,11 @@ public class RemoteStep implements Cloneable, XMLInterface, Comparable<RemoteSte
 
             // Write the row to the remote step via the output stream....
             //
-            rowSet.getRowMeta().writeData( outputStream, rowData );
+            if ( rowWriter != null ) {
+              rowWriter.writeRow( rowData );
+            } else {
+              rowSet.getRowMeta().writeData( outputStream, rowData );
+            }
             baseStep.incrementLinesOutput();
 
             if ( baseStep.log.isDebug() ) {
@@ -406,6 +417,9 @@ public class RemoteStep implements Cloneable, XMLInterface, Comparable<RemoteSte
             }
             rowData = baseStep.getRowFrom( rowSet );
           }
+          if ( rowWriter != null ) {
+            rowWriter.finish();
+          }
 
           if ( compressingStreams ) {
             outputStream.flush();
@@ -522,7 +536,15 @@ public class RemoteStep implements Cloneable, XMLInterface, Comparable<RemoteSte
     }
   }
 
-  private Object[] getRowOfData( RowMetaInterface rowMeta ) throws KettleFileException {
+  private Object[] getRowOfData( RowMetaInterface rowMeta, RemoteRowReader rowReader ) throws KettleFileException {
+    if ( rowReader != null ) {
+      Object[] rowData = rowReader.readRow();
+      if ( rowData == null ) {
+        throw new KettleEOFException();
+      }
+      return rowData;
+    }
+
     Object[] rowData = null;
 
     while ( !baseStep.isStopped() && rowData == null ) {
@@ -606,6 +628,10 @@ public class RemoteStep implements Cloneable, XMLInterface, Comparable<RemoteSte
             baseStep.logError( "Error occurred during encryption initialization", ex );
           }
         }
+        if ( !socketStream.markSupported() ) {
+          // the start of the stream is read ahead to tell batches of rows from single rows
+          socketStream = new BufferedInputStream( socketStream, bufferSize );
+        }
         inputStream = new DataInputStream( socketStream );
 
         lastException = null;
@@ -666,9 +692,11 @@ public class RemoteStep implements Cloneable, XMLInterface, Comparable<RemoteSte
           // First read the row meta data from the socket...
           //
           RowMetaInterface rowMeta = null;
+          RemoteRowReader rowReader = null;
           while ( !baseStep.isStopped() && rowMeta == null ) {
             try {
-              rowMeta = new RowMeta( inputStream );
+              rowReader = RemoteRowReader.open( inputStream );
+              rowMeta = rowReader != null ? rowReader.getRowMeta() : new RowMeta( inputStream );
             } catch ( SocketTimeoutException e ) {
               rowMeta = null;
             }
@@ -680,7 +708,7 @@ public class RemoteStep implements Cloneable, XMLInterface, Comparable<RemoteSte
 
           // And a first row of data...
           //
-          Object[] rowData = getRowOfData( rowMeta );
+          Object[] rowData = getRowOfData( rowMeta, rowReader );
 
           // Now get the data itself, row by row...
           //
@@ -694,7 +722,7 @@ public class RemoteStep implements Cloneable, XMLInterface, Comparable<RemoteSte
 
             baseStep.putRowTo( rowMeta, rowData, rowSet );
             baseStep.decrementLinesWritten();
-            rowData = getRowOfData( rowMeta );
+            rowData = getRowOfData( rowMeta, rowReader );
           }
         } catch ( KettleEOFException e ) {
           // Nothing, we're simply done reading...
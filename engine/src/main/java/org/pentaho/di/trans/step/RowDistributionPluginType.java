@@ -15,6 +15,7 @@
 package org.pentaho.di.trans.step;
 
 import java.lang.annotation.Annotation;
+import java.util.ArrayList;
 import java.util.Map;
 
 import org.pentaho.di.core.exception.KettlePluginException;
@@ -51,7 +52,9 @@ public class RowDistributionPluginType extends BasePluginType implements PluginT
    */
   @Override
   protected void registerNatives() throws KettlePluginException {
-    // None at this moment
+    Class<LeastLoadedRowDistribution> clazz = LeastLoadedRowDistribution.class;
+    handlePluginAnnotation( clazz, clazz.getAnnotation( RowDistributionPlugin.class ), new ArrayList<String>(), true,
+      null );
   }
 
   @Override
@@ -14,6 +14,7 @@
 
 package org.pentaho.di.trans.step;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -27,7 +28,9 @@ import org.pentaho.di.core.exception.KettleStepException;
 import org.pentaho.di.core.logging.HasLogChannelInterface;
 import org.pentaho.di.core.logging.LogChannelInterface;
 import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.batch.RowBatch;
 import org.pentaho.di.core.variables.VariableSpace;
+import org.pentaho.di.i18n.BaseMessages;
 import org.pentaho.di.repository.Repository;
 import org.pentaho.di.trans.Trans;
 import org.pentaho.di.trans.TransMeta;
@@ -293,6 +296,57 @@ public interface StepInterface extends VariableSpace, HasLogChannelInterface {
    */
   Object[] getRow() throws KettleException;
 
+  /**
+   * Read a batch of rows from the source step(s). The default implementation collects rows one at a time with
+   * getRow(): steps that work on batches can be mixed freely with steps that don't.
+   *
+   * @param maxRows
+   *          the maximum number of rows in the batch
+   * @return a batch with at least one row or null if no more rows are expected.
+   * @throws KettleException in case the layout of the rows isn't known
+   */
+  default RowBatch getRowBatch( int maxRows ) throws KettleException {
+    // getRow() can drop the row set that delivered the row once it's done: keep hold of them to find its layout
+    List<RowSet> inputRowSets = new ArrayList<>( getInputRowSets() );
+    Object[] row = getRow();
+    if ( row == null ) {
+      return null;
+    }
+    inputRowSets.addAll( getInputRowSets() );
+    RowMetaInterface rowMeta = null;
+    for ( RowSet rowSet : inputRowSets ) {
+      if ( rowSet.getRowMeta() != null ) {
+        rowMeta = rowSet.getRowMeta();
+        break;
+      }
+    }
+    if ( rowMeta == null ) {
+      throw new KettleStepException(
+        BaseMessages.getString( BaseStep.class, "BaseStep.Exception.UnknownRowBatchLayout" ) );
+    }
+    RowBatch batch = new RowBatch( rowMeta, maxRows );
+    batch.addRow( row );
+    while ( batch.size() < maxRows && ( row = getRow() ) != null ) {
+      batch.addRow( row );
+    }
+    return batch;
+  }
+
+  /**
+   * Put a batch of rows on the destination rowsets. The default implementation calls putRow() for every row of the
+   * batch, so the next steps receive regular Object[] rows.
+   *
+   * @param rowMeta
+   *          The layout of the rows in the batch
+   * @param batch
+   *          The rows to send to the destination steps
+   */
+  default void putRowBatch( RowMetaInterface rowMeta, RowBatch batch ) throws KettleException {
+    for ( int i = 0; i < batch.size(); i++ ) {
+      putRow( rowMeta, batch.getRow( i ) );
+    }
+  }
+
   /**
    * Signal output done to destination steps
    */
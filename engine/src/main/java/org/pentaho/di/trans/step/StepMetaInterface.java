@@ -615,6 +615,18 @@ public interface StepMetaInterface {
    */
   boolean supportsErrorHandling();
 
+  /**
+   * The copies of a step running on the cooperative step scheduler have their processRow() calls made by any of the
+   * threads of a pool, one call at a time. Steps that keep state bound to the thread that runs them, a script engine
+   * context for example, or that wait for other steps without telling the scheduler need a thread of their own.
+   *
+   * @return true if the copies of this step can run on the cooperative step scheduler
+   * @since 11.1
+   */
+  default boolean supportsCooperativeScheduling() {
+    return false;
+  }
+
   /**
    * Get a list of all the resource dependencies that the step is depending on.
    *
@@ -72,7 +72,14 @@ public class StepPartitioningMeta implements XMLInterface, Cloneable {
           ? (PartitionSchema) partitionSchema.clone() : null );
       stepPartitioningMeta.partitionSchemaName = partitionSchemaName;
       stepPartitioningMeta.setMethodType( methodType );
-      stepPartitioningMeta.setPartitioner( partitioner == null ? null : partitioner.clone() );
+      if ( partitioner != null ) {
+        // the copy partitions on its own schema, the one the transformation splitter expands for the cluster
+        Partitioner clonedPartitioner = partitioner.clone();
+        clonedPartitioner.setMeta( stepPartitioningMeta );
+        stepPartitioningMeta.setPartitioner( clonedPartitioner );
+      } else {
+        stepPartitioningMeta.setPartitioner( null );
+      }
       return stepPartitioningMeta;
     } catch ( KettlePluginException e ) {
       throw new RuntimeException( "Unable to load partitioning plugin", e );
@@ -24,6 +24,10 @@ import org.pentaho.di.core.row.RowDataUtil;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueDataUtil;
 import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.row.batch.ColumnVector;
+import org.pentaho.di.core.row.batch.DoubleColumnVector;
+import org.pentaho.di.core.row.batch.LongColumnVector;
+import org.pentaho.di.core.row.batch.RowBatch;
 import org.pentaho.di.core.util.Utils;
 import org.pentaho.di.i18n.BaseMessages;
 import org.pentaho.di.trans.Trans;
@@ -63,6 +67,10 @@ public class Calculator extends BaseStep implements StepInterface {
     meta = (CalculatorMeta) smi;
     data = (CalculatorData) sdi;
 
+    if ( data.getBatchSize() > 0 ) {
+      return processRowBatch();
+    }
+
     Object[] r = getRow(); // get row, set busy!
     if ( r == null ) { // no more input to be expected...
       setOutputDone();
@@ -72,93 +80,148 @@ public class Calculator extends BaseStep implements StepInterface {
 
     if ( first ) {
       first = false;
-      data.setOutputRowMeta( getInputRowMeta().clone() );
-      meta.getFields( getTransMeta().getBowl(), data.getOutputRowMeta(), getStepname(), null, null, this, repository,
-        metaStore );
-
-      // get all metadata, including source rows and temporary fields.
-      data.setCalcRowMeta( meta.getAllFields( getInputRowMeta() ) );
-
-      data.setFieldIndexes( new FieldIndexes[meta.getCalculation().length] );
-      List<Integer> tempIndexes = new ArrayList<Integer>();
-
-      // Calculate the indexes of the values and arguments in the target data or temporary data
-      // We do this in advance to save time later on.
-      //
-      //CHECKSTYLE:Indentation:OFF
-      for ( int i = 0; i < meta.getCalculation().length; i++ ) {
-        CalculatorMetaFunction function = meta.getCalculation()[i];
-        data.getFieldIndexes()[i] = new FieldIndexes();
-
-        if ( !Utils.isEmpty( function.getFieldName() ) ) {
-          data.getFieldIndexes()[i].indexName = data.getCalcRowMeta().indexOfValue( function.getFieldName() );
-          if ( data.getFieldIndexes()[i].indexName < 0 ) {
-            // Nope: throw an exception
-            throw new KettleStepException( BaseMessages.getString(
-              PKG, "Calculator.Error.UnableFindField", function.getFieldName(), "" + ( i + 1 ) ) );
-          }
-        } else {
-          throw new KettleStepException( BaseMessages.getString( PKG, "Calculator.Error.NoNameField", ""
-            + ( i + 1 ) ) );
-        }
+      prepareCalculations();
+    }
 
-        if ( !Utils.isEmpty( function.getFieldA() ) ) {
-          if ( function.getCalcType() != CalculatorMetaFunction.CALC_CONSTANT ) {
-            data.getFieldIndexes()[i].indexA = data.getCalcRowMeta().indexOfValue( function.getFieldA() );
-            if ( data.getFieldIndexes()[i].indexA < 0 ) {
-              // Nope: throw an exception
-              throw new KettleStepException( "Unable to find the first argument field '"
-                + function.getFieldName() + " for calculation #" + ( i + 1 ) );
-            }
-          } else {
-            data.getFieldIndexes()[i].indexA = -1;
-          }
-        } else {
-          throw new KettleStepException( "There is no first argument specified for calculated field #" + ( i + 1 ) );
+    if ( log.isRowLevel() ) {
+      logRowlevel( BaseMessages.getString( PKG, "Calculator.Log.ReadRow" )
+        + getLinesRead() + " : " + getInputRowMeta().getString( r ) );
+    }
+
+    try {
+      Object[] row = calcFields( getInputRowMeta(), r );
+      putRow( data.getOutputRowMeta(), row ); // copy row to possible alternate rowset(s).
+
+      if ( log.isRowLevel() ) {
+        logRowlevel( "Wrote row #" + getLinesWritten() + " : " + getInputRowMeta().getString( r ) );
+      }
+      if ( checkFeedback( getLinesRead() ) ) {
+        if ( log.isBasic() ) {
+          logBasic( BaseMessages.getString( PKG, "Calculator.Log.Linenr", "" + getLinesRead() ) );
         }
+      }
+    } catch ( KettleFileNotFoundException e ) {
+      if ( meta.isFailIfNoFile() ) {
+        logError( BaseMessages.getString( PKG, "Calculator.Log.NoFile" ) + " : " + e.getFilepath() );
+        setErrors( getErrors() + 1 );
+        return false;
+      }
+    } catch ( KettleException e ) {
+      logError( BaseMessages.getString( PKG, "Calculator.ErrorInStepRunning" + " : " + e.getMessage() ) );
+      throw new KettleStepException( BaseMessages.getString( PKG, "Calculator.ErrorInStepRunning" ), e );
+    }
+    return true;
+  }
 
-        if ( !Utils.isEmpty( function.getFieldB() ) ) {
-          data.getFieldIndexes()[i].indexB = data.getCalcRowMeta().indexOfValue( function.getFieldB() );
-          if ( data.getFieldIndexes()[i].indexB < 0 ) {
-            // Nope: throw an exception
-            throw new KettleStepException( "Unable to find the second argument field '"
-              + function.getFieldName() + " for calculation #" + ( i + 1 ) );
-          }
+  private void prepareCalculations() throws KettleStepException {
+    data.setOutputRowMeta( getInputRowMeta().clone() );
+    meta.getFields( getTransMeta().getBowl(), data.getOutputRowMeta(), getStepname(), null, null, this, repository,
+      metaStore );
+
+    // get all metadata, including source rows and temporary fields.
+    data.setCalcRowMeta( meta.getAllFields( getInputRowMeta() ) );
+
+    data.setFieldIndexes( new FieldIndexes[meta.getCalculation().length] );
+    List<Integer> tempIndexes = new ArrayList<Integer>();
+
+    // Calculate the indexes of the values and arguments in the target data or temporary data
+    // We do this in advance to save time later on.
+    //
+    //CHECKSTYLE:Indentation:OFF
+    for ( int i = 0; i < meta.getCalculation().length; i++ ) {
+      CalculatorMetaFunction function = meta.getCalculation()[i];
+      data.getFieldIndexes()[i] = new FieldIndexes();
+
+      if ( !Utils.isEmpty( function.getFieldName() ) ) {
+        data.getFieldIndexes()[i].indexName = data.getCalcRowMeta().indexOfValue( function.getFieldName() );
+        if ( data.getFieldIndexes()[i].indexName < 0 ) {
+          // Nope: throw an exception
+          throw new KettleStepException( BaseMessages.getString(
+            PKG, "Calculator.Error.UnableFindField", function.getFieldName(), "" + ( i + 1 ) ) );
         }
-        data.getFieldIndexes()[i].indexC = -1;
-        if ( !Utils.isEmpty( function.getFieldC() ) ) {
-          data.getFieldIndexes()[i].indexC = data.getCalcRowMeta().indexOfValue( function.getFieldC() );
-          if ( data.getFieldIndexes()[i].indexC < 0 ) {
+      } else {
+        throw new KettleStepException( BaseMessages.getString( PKG, "Calculator.Error.NoNameField", ""
+          + ( i + 1 ) ) );
+      }
+
+      if ( !Utils.isEmpty( function.getFieldA() ) ) {
+        if ( function.getCalcType() != CalculatorMetaFunction.CALC_CONSTANT ) {
+          data.getFieldIndexes()[i].indexA = data.getCalcRowMeta().indexOfValue( function.getFieldA() );
+          if ( data.getFieldIndexes()[i].indexA < 0 ) {
             // Nope: throw an exception
-            throw new KettleStepException( "Unable to find the third argument field '"
+            throw new KettleStepException( "Unable to find the first argument field '"
               + function.getFieldName() + " for calculation #" + ( i + 1 ) );
           }
+        } else {
+          data.getFieldIndexes()[i].indexA = -1;
         }
+      } else {
+        throw new KettleStepException( "There is no first argument specified for calculated field #" + ( i + 1 ) );
+      }
 
-        if ( function.isRemovedFromResult() ) {
-          tempIndexes.add( getInputRowMeta().size() + i );
+      if ( !Utils.isEmpty( function.getFieldB() ) ) {
+        data.getFieldIndexes()[i].indexB = data.getCalcRowMeta().indexOfValue( function.getFieldB() );
+        if ( data.getFieldIndexes()[i].indexB < 0 ) {
+          // Nope: throw an exception
+          throw new KettleStepException( "Unable to find the second argument field '"
+            + function.getFieldName() + " for calculation #" + ( i + 1 ) );
+        }
+      }
+      data.getFieldIndexes()[i].indexC = -1;
+      if ( !Utils.isEmpty( function.getFieldC() ) ) {
+        data.getFieldIndexes()[i].indexC = data.getCalcRowMeta().indexOfValue( function.getFieldC() );
+        if ( data.getFieldIndexes()[i].indexC < 0 ) {
+          // Nope: throw an exception
+          throw new KettleStepException( "Unable to find the third argument field '"
+            + function.getFieldName() + " for calculation #" + ( i + 1 ) );
         }
       }
 
-      // Convert temp indexes to int[]
-      data.setTempIndexes( new int[tempIndexes.size()] );
-      for ( int i = 0; i < data.getTempIndexes().length; i++ ) {
-        data.getTempIndexes()[i] = tempIndexes.get( i );
+      if ( function.isRemovedFromResult() ) {
+        tempIndexes.add( getInputRowMeta().size() + i );
       }
     }
 
-    if ( log.isRowLevel() ) {
-      logRowlevel( BaseMessages.getString( PKG, "Calculator.Log.ReadRow" )
-        + getLinesRead() + " : " + getInputRowMeta().getString( r ) );
+    // Convert temp indexes to int[]
+    data.setTempIndexes( new int[tempIndexes.size()] );
+    for ( int i = 0; i < data.getTempIndexes().length; i++ ) {
+      data.getTempIndexes()[i] = tempIndexes.get( i );
     }
+  }
 
-    try {
-      Object[] row = calcFields( getInputRowMeta(), r );
-      putRow( data.getOutputRowMeta(), row ); // copy row to possible alternate rowset(s).
+  /**
+   * Process a batch of rows at once. When all calculations are additions, subtractions or multiplications of integer
+   * or number fields of the same type, they are done column by column on primitive values. Otherwise every row of the
+   * batch goes through calcFields().
+   */
+  private boolean processRowBatch() throws KettleException {
+    RowBatch batch = getRowBatch( data.getBatchSize() );
+    if ( batch == null ) { // no more input to be expected...
+      setOutputDone();
+      data.clearValuesMetaMapping();
+      return false;
+    }
 
-      if ( log.isRowLevel() ) {
-        logRowlevel( "Wrote row #" + getLinesWritten() + " : " + getInputRowMeta().getString( r ) );
+    if ( first ) {
+      first = false;
+      prepareCalculations();
+      data.setVectorized( isVectorizable() );
+    }
+
+    try {
+      RowBatch output = new RowBatch( data.getOutputRowMeta(), batch.size() );
+      if ( data.isVectorized() ) {
+        calcColumns( batch );
+        for ( int i = 0; i < batch.size(); i++ ) {
+          output.addRow( RowDataUtil.removeItems( batch.getRow( i ), data.getTempIndexes() ) );
+        }
+      } else {
+        for ( int i = 0; i < batch.size(); i++ ) {
+          output.addRow( calcFields( getInputRowMeta(), batch.getRow( i ) ) );
+        }
       }
+      putRowBatch( data.getOutputRowMeta(), output );
+
       if ( checkFeedback( getLinesRead() ) ) {
         if ( log.isBasic() ) {
           logBasic( BaseMessages.getString( PKG, "Calculator.Log.Linenr", "" + getLinesRead() ) );
@@ -177,6 +240,102 @@ public class Calculator extends BaseStep implements StepInterface {
     return true;
   }
 
+  /**
+   * @return true if every calculation can be done on primitive column vectors with the same result as calcFields()
+   */
+  private boolean isVectorizable() {
+    RowMetaInterface calcRowMeta = data.getCalcRowMeta();
+    for ( int i = 0; i < meta.getCalculation().length; i++ ) {
+      switch ( meta.getCalculation()[ i ].getCalcType() ) {
+        case CalculatorMetaFunction.CALC_ADD:
+        case CalculatorMetaFunction.CALC_SUBTRACT:
+        case CalculatorMetaFunction.CALC_MULTIPLY:
+          break;
+        default:
+          return false;
+      }
+      FieldIndexes indexes = data.getFieldIndexes()[ i ];
+      if ( indexes.indexA < 0 || indexes.indexB < 0 ) {
+        return false;
+      }
+      ValueMetaInterface metaA = calcRowMeta.getValueMeta( indexes.indexA );
+      ValueMetaInterface metaB = calcRowMeta.getValueMeta( indexes.indexB );
+      ValueMetaInterface targetMeta = calcRowMeta.getValueMeta( indexes.indexName );
+      if ( metaA.getType() != ValueMetaInterface.TYPE_INTEGER && metaA.getType() != ValueMetaInterface.TYPE_NUMBER ) {
+        return false;
+      }
+      if ( metaB.getType() != metaA.getType() || targetMeta.getType() != metaA.getType()
+        || !metaA.isStorageNormal() || !metaB.isStorageNormal() ) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Do all the calculations on the column vectors of the batch. Only called if isVectorizable() said we could.
+   */
+  private void calcColumns( RowBatch batch ) {
+    int size = batch.size();
+    batch.setRowMeta( data.getCalcRowMeta() );
+    for ( int i = 0; i < meta.getCalculation().length; i++ ) {
+      int calcType = meta.getCalculation()[ i ].getCalcType();
+      FieldIndexes indexes = data.getFieldIndexes()[ i ];
+      ColumnVector a = batch.getColumn( indexes.indexA );
+      ColumnVector b = batch.getColumn( indexes.indexB );
+      ColumnVector result;
+      if ( a instanceof LongColumnVector ) {
+        long[] valuesA = ( (LongColumnVector) a ).getValues();
+        long[] valuesB = ( (LongColumnVector) b ).getValues();
+        LongColumnVector vector = new LongColumnVector( size );
+        long[] values = vector.getValues();
+        switch ( calcType ) {
+          case CalculatorMetaFunction.CALC_ADD:
+            for ( int r = 0; r < size; r++ ) {
+              values[ r ] = valuesA[ r ] + valuesB[ r ];
+            }
+            break;
+          case CalculatorMetaFunction.CALC_SUBTRACT:
+            for ( int r = 0; r < size; r++ ) {
+              values[ r ] = valuesA[ r ] - valuesB[ r ];
+            }
+            break;
+          default:
+            for ( int r = 0; r < size; r++ ) {
+              values[ r ] = valuesA[ r ] * valuesB[ r ];
+            }
+            break;
+        }
+        result = vector;
+      } else {
+        double[] valuesA = ( (DoubleColumnVector) a ).getValues();
+        double[] valuesB = ( (DoubleColumnVector) b ).getValues();
+        DoubleColumnVector vector = new DoubleColumnVector( size );
+        double[] values = vector.getValues();
+        switch ( calcType ) {
+          case CalculatorMetaFunction.CALC_ADD:
+            for ( int r = 0; r < size; r++ ) {
+              values[ r ] = valuesA[ r ] + valuesB[ r ];
+            }
+            break;
+          case CalculatorMetaFunction.CALC_SUBTRACT:
+            for ( int r = 0; r < size; r++ ) {
+              values[ r ] = valuesA[ r ] - valuesB[ r ];
+            }
+            break;
+          default:
+            for ( int r = 0; r < size; r++ ) {
+              values[ r ] = valuesA[ r ] * valuesB[ r ];
+            }
+            break;
+        }
+        result = vector;
+      }
+      result.setNulls( a, b );
+      batch.setColumn( indexes.indexName, result );
+    }
+  }
+
   /**
    * @param inputRowMeta
    *          the input row metadata
@@ -658,6 +817,10 @@ public class Calculator extends BaseStep implements StepInterface {
     meta = (CalculatorMeta) smi;
     data = (CalculatorData) sdi;
 
-    return super.init( smi, sdi );
+    if ( super.init( smi, sdi ) ) {
+      data.setBatchSize( getRowBatchSize() );
+      return true;
+    }
+    return false;
   }
 }
@@ -38,6 +38,9 @@ public class CalculatorData extends BaseStepData implements StepDataInterface {
 
   private final Map<Integer, ValueMetaInterface> resultMetaMapping;
 
+  private int batchSize;
+  private boolean vectorized;
+
   public CalculatorData() {
     super();
     resultMetaMapping = new HashMap<Integer, ValueMetaInterface>();
@@ -75,6 +78,22 @@ public class CalculatorData extends BaseStepData implements StepDataInterface {
     this.tempIndexes = tempIndexes;
   }
 
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  public void setBatchSize( int batchSize ) {
+    this.batchSize = batchSize;
+  }
+
+  public boolean isVectorized() {
+    return vectorized;
+  }
+
+  public void setVectorized( boolean vectorized ) {
+    this.vectorized = vectorized;
+  }
+
   public ValueMetaInterface getValueMetaFor( int resultType, String name ) throws KettlePluginException {
     // don't need any synchronization as data instance belongs only to one step instance
     ValueMetaInterface meta = resultMetaMapping.get( resultType );
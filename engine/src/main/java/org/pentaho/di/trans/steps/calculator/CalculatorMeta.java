@@ -258,4 +258,9 @@ public class CalculatorMeta extends BaseStepMeta implements StepMetaInterface {
   public StepHelperInterface getStepHelperInterface() {
     return new CalculatorHelper();
   }
+
+  @Override
+  public boolean supportsCooperativeScheduling() {
+    return true;
+  }
 }
@@ -439,4 +439,9 @@ public class ConstantMeta extends BaseStepMeta implements StepMetaInterface {
   public StepDataInterface getStepData() {
     return new ConstantData();
   }
+
+  @Override
+  public boolean supportsCooperativeScheduling() {
+    return true;
+  }
 }
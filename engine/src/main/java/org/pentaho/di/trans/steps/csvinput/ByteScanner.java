@@ -0,0 +1,77 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.csvinput;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Finds the next of a few byte values in a byte array, reading it 8 bytes at a time: each word is compared to all
+ * values at once with bit operations on a long (SWAR: SIMD within a register), so the bytes in between are skipped
+ * without looking at them one by one.
+ *
+ * @since 11.1
+ */
+public class ByteScanner {
+
+  private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle( long[].class, ByteOrder.LITTLE_ENDIAN );
+  private static final long ONES = 0x0101010101010101L;
+  private static final long HIGHS = 0x8080808080808080L;
+
+  private final byte[] values;
+  private final long[] patterns;
+
+  /**
+   * @param values the byte values to find
+   */
+  public ByteScanner( byte... values ) {
+    this.values = values.clone();
+    patterns = new long[ values.length ];
+    for ( int i = 0; i < values.length; i++ ) {
+      patterns[ i ] = ( values[ i ] & 0xFFL ) * ONES;
+    }
+  }
+
+  /**
+   * @param buffer the bytes to scan
+   * @param start  the index to start from, included
+   * @param end    the index to end at, excluded
+   * @return the index of the first byte equal to one of the values, or end if there's none
+   */
+  public int indexOf( byte[] buffer, int start, int end ) {
+    int i = start;
+    for ( ; i + Long.BYTES <= end; i += Long.BYTES ) {
+      long word = (long) LONGS.get( buffer, i );
+      long found = 0L;
+      for ( long pattern : patterns ) {
+        // The high bit of a byte is set if that byte is zero, ie. equal to the value. A borrow can also set it in the
+        // bytes after a match, but the lowest one set is always a match.
+        long x = word ^ pattern;
+        found |= ( x - ONES ) & ~x & HIGHS;
+      }
+      if ( found != 0L ) {
+        return i + ( Long.numberOfTrailingZeros( found ) >>> 3 );
+      }
+    }
+    for ( ; i < end; i++ ) {
+      for ( byte value : values ) {
+        if ( buffer[ i ] == value ) {
+          return i;
+        }
+      }
+    }
+    return end;
+  }
+}
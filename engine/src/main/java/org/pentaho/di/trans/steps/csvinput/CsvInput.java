@@ -50,6 +50,7 @@ import org.pentaho.di.trans.step.StepInterface;
 import org.pentaho.di.trans.step.StepMeta;
 import org.pentaho.di.trans.step.StepMetaInterface;
 import org.pentaho.di.trans.steps.fileinput.text.BOMDetector;
+import org.pentaho.di.trans.steps.fileinput.text.TextFileSplitter;
 import org.pentaho.di.trans.steps.textfileinput.EncodingType;
 import org.pentaho.di.trans.steps.textfileinput.TextFileInput;
 import org.pentaho.di.trans.steps.textfileinput.TextFileInputField;
@@ -191,9 +192,12 @@ public class CsvInput extends BaseStep implements StepInterface {
       // At this point it doesn't matter if we have 1 or more files.
       // We'll use the same algorithm...
       //
-      for ( String filename : data.filenames ) {
-        long size = KettleVFS.getInstance( getTransMeta().getBowl() )
-          .getFileObject( filename, getTransMeta() ).getContent().getSize();
+      String[] localFilenames = new String[ data.filenames.length ];
+      for ( int i = 0; i < data.filenames.length; i++ ) {
+        FileObject fileObject = KettleVFS.getInstance( getTransMeta().getBowl() )
+          .getFileObject( data.filenames[ i ], getTransMeta() );
+        long size = fileObject.getContent().getSize();
+        localFilenames[ i ] = KettleVFS.getFilename( fileObject );
         data.fileSizes.add( size );
         data.totalFileSize += size;
       }
@@ -246,6 +250,21 @@ public class CsvInput extends BaseStep implements StepInterface {
         totalFileSize += size;
       }
 
+      // Find the first row starting in our block: the step copy before us reads the row its block ends in.
+      // A new line in an enclosed field doesn't start a row, the splitter counts the enclosures before our block.
+      //
+      if ( data.bytesToSkipInFirstFile > 0 ) {
+        TextFileSplitter splitter =
+          new TextFileSplitter( data.encodingType.getLength() == 1 ? data.enclosure : null, getTrans() );
+        long[] fileSizes = new long[ data.fileSizes.size() ];
+        for ( int i = 0; i < fileSizes.length; i++ ) {
+          fileSizes[ i ] = data.fileSizes.get( i );
+        }
+        long[] range = splitter.getRanges( localFilenames, fileSizes, data.blockToRead, data.startPosition,
+          data.endPosition )[ data.filenr ];
+        data.rowStartInFirstFile = range == null ? fileSizes[ data.filenr ] : range[ 0 ];
+      }
+
       if ( data.filenames.length > 0 ) {
         logBasic( BaseMessages.getString(
           PKG, "CsvInput.Log.ParallelFileNrAndPositionFeedback", data.filenames[ data.filenr ], Long
@@ -354,26 +373,10 @@ public class CsvInput extends BaseStep implements StepInterface {
       //
       if ( data.parallel ) {
         if ( data.bytesToSkipInFirstFile > 0 ) {
-          data.fc.position( data.bytesToSkipInFirstFile );
-
-          // evaluate whether there is a need to skip a row
-          if ( needToSkipRow() ) {
-            // PDI-16589 - when reading in parallel, the previous code would introduce additional rows and / or invalid data in the output.
-            // in parallel mode we don't support new lines inside field data so it's safe to fast forward until we find a new line.
-            // when a newline is found we need to check for an additional new line character, while in unix systems it's just a single '\n',
-            // on windows systems, it's a sequence of '\r' and '\n'. finally we set the start of the buffer to the end buffer position.
-            while ( !data.newLineFound() ) {
-              data.moveEndBufferPointer();
-            }
-
-            data.moveEndBufferPointer();
-
-            if ( data.newLineFound() ) {
-              data.moveEndBufferPointer();
-            }
-          }
-
-          data.setStartBuffer( data.getEndBuffer() );
+          // Start at the first row starting in our block, the bytes skipped count as read.
+          //
+          data.fc.position( data.rowStartInFirstFile );
+          data.totalBytesRead += data.rowStartInFirstFile - data.bytesToSkipInFirstFile;
         }
       }
 
@@ -506,50 +509,6 @@ public class CsvInput extends BaseStep implements StepInterface {
     }
   }
 
-  /**
-   * We need to skip row only if a line, that we are currently on is read by the previous step <b>partly</b>.
-   * In other words, we DON'T skip a line if we are just beginning to read it from the first symbol.
-   * We have to do some work for this: read last byte from the previous step and make sure that it is a new line byte.
-   * But it's not enough. There could be a situation, where new line is indicated by '\r\n' construction. And if we are
-   * <b>between</b> this construction, we want to skip last '\n', and don't want to include it in our line.
-   *
-   * So, we DON'T skip line only if the previous char is new line indicator AND we are not between '\r\n'.
-   *
-   */
-  private boolean needToSkipRow() {
-    try {
-      // first we move pointer to the last byte of the previous step
-      data.fc.position( data.fc.position() - 1 );
-      // read data, if not yet
-      data.resizeBufferIfNeeded();
-
-      // check whether the last symbol from the previous step is a new line
-      if ( data.newLineFound() ) {
-        // don't increase bytes read for this step, as it is actually content of another step
-        // and we are reading this just for evaluation.
-        data.moveEndBufferPointer( false );
-        // now we are at the first char of our thread.
-        // there is still a situation we want to avoid: when there is a windows style "/r/n", and we are between two
-        // of this chars. In this case we need to skip a line. Otherwise we don't skip it.
-        return data.newLineFound();
-      } else {
-        // moving to the first char of our line.
-        data.moveEndBufferPointer( false );
-      }
-
-    } catch ( IOException e ) {
-      e.printStackTrace();
-    } finally {
-      try {
-        data.fc.position( data.fc.position() + 1 );
-      } catch ( IOException e ) {
-        // nothing to do here
-      }
-    }
-
-    return true;
-  }
-
   /**
    * Read a single row of data from the file...
    *
@@ -665,7 +624,7 @@ public class CsvInput extends BaseStep implements StepInterface {
               enclosureFound = true;
               boolean keepGoing;
               do {
-                if ( data.moveEndBufferPointer() ) {
+                if ( data.moveEndBufferPointer() || data.skipEnclosedBytes() ) {
                   enclosureFound = false;
                   break;
                 }
@@ -700,7 +659,7 @@ public class CsvInput extends BaseStep implements StepInterface {
               ignoreEnclosuresInField = true;
             }
           } else {
-            if ( data.moveEndBufferPointer() ) {
+            if ( data.moveEndBufferPointer() || data.skipFieldBytes() ) {
               endOfBuffer = true;
               break;
             }
@@ -960,6 +919,20 @@ public class CsvInput extends BaseStep implements StepInterface {
           break;
       }
 
+      // With a single byte encoding, skip the bytes that can't start a delimiter, an enclosure or a new line
+      // 8 at a time: the matchers above only need to look at the others.
+      //
+      data.fieldScanner = null;
+      data.enclosureScanner = null;
+      if ( data.encodingType == EncodingType.SINGLE && data.delimiter.length > 0 ) {
+        if ( data.enclosure == null || data.enclosure.length == 0 ) {
+          data.fieldScanner = new ByteScanner( data.delimiter[0], (byte) '\r', (byte) '\n' );
+        } else {
+          data.fieldScanner = new ByteScanner( data.delimiter[0], data.enclosure[0], (byte) '\r', (byte) '\n' );
+          data.enclosureScanner = new ByteScanner( data.enclosure[0] );
+        }
+      }
+
       return true;
 
     }
@@ -63,6 +63,9 @@ public class CsvInputData extends BaseStepData implements StepDataInterface {
   public long endPosition;
   public long bytesToSkipInFirstFile;
 
+  /** The position of the first row starting in the block to read in the first file, when running in parallel */
+  public long rowStartInFirstFile;
+
   public long totalBytesRead;
 
   public boolean parallel;
@@ -73,6 +76,15 @@ public class CsvInputData extends BaseStepData implements StepDataInterface {
   public PatternMatcherInterface enclosureMatcher;
   public CrLfMatcherInterface crLfMatcher;
 
+  /**
+   * Finds the next byte that can start a delimiter, an enclosure or a new line, null if the bytes are checked one by
+   * one
+   */
+  public ByteScanner fieldScanner;
+
+  /** Finds the next byte that can start an enclosure, null if the bytes are checked one by one */
+  public ByteScanner enclosureScanner;
+
   public FieldsMapping fieldsMapping;
 
   /**
@@ -193,6 +205,39 @@ public class CsvInputData extends BaseStepData implements StepDataInterface {
     return moveEndBufferPointer( true );
   }
 
+  /**
+   * Moves the endBuffer pointer over the bytes that can't start a delimiter, an enclosure or a new line, if any.<br>
+   * Reads more data if it reaches the end of the byte buffer, like {@link #moveEndBufferPointer()}.
+   *
+   * @return true if we reached the end of the byte buffer.
+   * @throws IOException
+   *           In case we get an error reading from the input file.
+   */
+  boolean skipFieldBytes() throws IOException {
+    return skipBytes( fieldScanner );
+  }
+
+  /**
+   * Moves the endBuffer pointer over the bytes that can't start an enclosure, if any.
+   *
+   * @return true if we reached the end of the byte buffer.
+   * @throws IOException
+   *           In case we get an error reading from the input file.
+   */
+  boolean skipEnclosedBytes() throws IOException {
+    return skipBytes( enclosureScanner );
+  }
+
+  private boolean skipBytes( ByteScanner scanner ) throws IOException {
+    if ( scanner == null ) {
+      return false;
+    }
+    int next = scanner.indexOf( byteBuffer, endBuffer, bufferSize );
+    totalBytesRead += next - endBuffer;
+    endBuffer = next;
+    return resizeBufferIfNeeded();
+  }
+
   void moveEndBufferPointerXTimes( int xTimes ) throws IOException {
     for ( int i = 0; i < xTimes; i++ ) {
       moveEndBufferPointer( true );
@@ -0,0 +1,351 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.databaselookup;
+
+import org.pentaho.di.core.RowMetaAndData;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.spill.RowSizeEstimator;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cache for {@code DatabaseLookup} step looking up rows on equality conditions only, bounded by a number of rows
+ * and/or an estimated number of bytes. It's thread safe, so the copies of a step can share it.
+ * <p>
+ * Rows are evicted according to a {@link Policy}:
+ * <ul>
+ * <li>{@code FIFO}: the oldest row goes first, like {@link DefaultCache}.</li>
+ * <li>{@code LRU}: the least recently used row goes first.</li>
+ * <li>{@code TINYLFU}: window TinyLFU. New rows enter a small LRU window. A row leaving the window only replaces the
+ * least recently used row of the main segmented LRU if it was looked up more often, according to a count-min sketch
+ * of the recent lookups. This keeps frequently used keys cached when a scan of one-off keys goes through.</li>
+ * </ul>
+ *
+ * @since 11.1
+ */
+public class BoundedCache implements DatabaseLookupData.Cache {
+
+  public enum Policy {
+    FIFO, LRU, TINYLFU;
+
+    /**
+     * @return the policy with the given name (case insensitive), or the default policy if there's none
+     */
+    public static Policy getPolicy( String name, Policy defaultPolicy ) {
+      for ( Policy policy : values() ) {
+        if ( policy.name().equalsIgnoreCase( name == null ? null : name.trim() ) ) {
+          return policy;
+        }
+      }
+      return defaultPolicy;
+    }
+  }
+
+  /** The estimated heap used per row on top of the key and value */
+  private static final int ENTRY_OVERHEAD = 96;
+
+  private final Policy policy;
+  private final long maximumRows;
+  private final long maximumBytes;
+  private final long maximumWeight;
+
+  private final Map<RowMetaAndData, Node> map = new HashMap<>();
+  private final Queue window = new Queue();
+  private final Queue probation = new Queue();
+  private final Queue protectedQueue = new Queue();
+  private final long windowMaximum;
+  private final long mainMaximum;
+  private final long protectedMaximum;
+  private final FrequencySketch sketch;
+
+  private long hits;
+  private long misses;
+  private long evictions;
+
+  /**
+   * @param policy       the eviction policy
+   * @param maximumRows  the maximum number of rows, 0 for no limit
+   * @param maximumBytes the maximum estimated size of the rows, 0 for no limit
+   */
+  public BoundedCache( Policy policy, long maximumRows, long maximumBytes ) {
+    this.policy = policy;
+    this.maximumRows = Math.max( 0L, maximumRows );
+    this.maximumBytes = Math.max( 0L, maximumBytes );
+
+    // The rows are weighed in bytes if there's a limit on the bytes, else they all weigh 1
+    maximumWeight = this.maximumBytes > 0 ? this.maximumBytes : this.maximumRows;
+
+    if ( policy == Policy.TINYLFU && maximumWeight > 0 ) {
+      windowMaximum = Math.max( 1L, maximumWeight / 100 );
+      mainMaximum = maximumWeight - windowMaximum;
+      protectedMaximum = mainMaximum * 4 / 5;
+      long expectedRows = this.maximumRows > 0 ? this.maximumRows : this.maximumBytes / 256;
+      sketch = new FrequencySketch( (int) Math.max( 64L, Math.min( 1L << 24, expectedRows ) ) );
+    } else {
+      windowMaximum = 0L;
+      mainMaximum = maximumWeight;
+      protectedMaximum = 0L;
+      sketch = null;
+    }
+  }
+
+  @Override
+  public synchronized Object[] getRowFromCache( RowMetaInterface lookupMeta, Object[] lookupRow ) {
+    RowMetaAndData key = new RowMetaAndData( lookupMeta, lookupRow );
+    int hash = key.hashCode();
+    if ( sketch != null ) {
+      sketch.increment( hash );
+    }
+
+    Node node = map.get( key );
+    if ( node == null ) {
+      misses++;
+      return null;
+    }
+    hits++;
+
+    if ( policy == Policy.LRU ) {
+      probation.moveToLast( node );
+    } else if ( policy == Policy.TINYLFU ) {
+      if ( node.queue == probation ) {
+        // Used again: promote the row to the protected segment, demote the least recently used protected rows
+        probation.remove( node );
+        protectedQueue.addLast( node );
+        while ( protectedQueue.weight > protectedMaximum ) {
+          Node demoted = protectedQueue.first();
+          protectedQueue.remove( demoted );
+          probation.addLast( demoted );
+        }
+      } else {
+        node.queue.moveToLast( node );
+      }
+    }
+    return node.value;
+  }
+
+  @Override
+  public synchronized void storeRowInCache( DatabaseLookupMeta meta, RowMetaInterface lookupMeta,
+                                            Object[] lookupRow, Object[] add ) {
+    RowMetaAndData key = new RowMetaAndData( lookupMeta, lookupRow );
+    if ( map.containsKey( key ) ) {
+      // Keep the first row of a key, like the other caches
+      return;
+    }
+
+    long weight = maximumBytes > 0
+      ? RowSizeEstimator.estimateSize( lookupRow ) + RowSizeEstimator.estimateSize( add ) + ENTRY_OVERHEAD
+      : 1L;
+    Node node = new Node( key, key.hashCode(), add, weight );
+    map.put( key, node );
+
+    if ( maximumWeight <= 0 ) {
+      probation.addLast( node );
+    } else if ( policy == Policy.TINYLFU ) {
+      window.addLast( node );
+      while ( window.weight > windowMaximum ) {
+        Node candidate = window.first();
+        window.remove( candidate );
+        admit( candidate );
+      }
+    } else {
+      probation.addLast( node );
+      while ( probation.weight > mainMaximum ) {
+        evict( probation.first() );
+      }
+    }
+
+    // Both a number of rows and of bytes can be set: the rows are weighed in bytes then
+    //
+    while ( maximumBytes > 0 && maximumRows > 0 && map.size() > maximumRows ) {
+      evict( probation.first() != null ? probation.first()
+        : protectedQueue.first() != null ? protectedQueue.first() : window.first() );
+    }
+  }
+
+  /**
+   * Move a row leaving the window to the main segments. If there's no room for it, it's compared to the least recently
+   * used rows of the main segments: the one used least frequently is evicted.
+   */
+  private void admit( Node candidate ) {
+    while ( probation.weight + protectedQueue.weight + candidate.weight > mainMaximum ) {
+      Node victim = probation.first() != null ? probation.first() : protectedQueue.first();
+      if ( victim == null || sketch.frequency( candidate.hash ) <= sketch.frequency( victim.hash ) ) {
+        evict( candidate );
+        return;
+      }
+      evict( victim );
+    }
+    probation.addLast( candidate );
+  }
+
+  private void evict( Node node ) {
+    if ( node.queue != null ) {
+      node.queue.remove( node );
+    }
+    map.remove( node.key );
+    evictions++;
+  }
+
+  public synchronized int size() {
+    return map.size();
+  }
+
+  public synchronized long getHits() {
+    return hits;
+  }
+
+  public synchronized long getMisses() {
+    return misses;
+  }
+
+  public synchronized long getEvictions() {
+    return evictions;
+  }
+
+  public Policy getPolicy() {
+    return policy;
+  }
+
+  private static class Node {
+    private final RowMetaAndData key;
+    private final int hash;
+    private final Object[] value;
+    private final long weight;
+    private Queue queue;
+    private Node previous;
+    private Node next;
+
+    Node( RowMetaAndData key, int hash, Object[] value, long weight ) {
+      this.key = key;
+      this.hash = hash;
+      this.value = value;
+      this.weight = weight;
+    }
+  }
+
+  /**
+   * A doubly linked list of rows, from the least to the most recently added or used, with their total weight.
+   */
+  private static class Queue {
+    private final Node head = new Node( null, 0, null, 0L );
+    private long weight;
+
+    Queue() {
+      head.previous = head;
+      head.next = head;
+    }
+
+    Node first() {
+      return head.next == head ? null : head.next;
+    }
+
+    void addLast( Node node ) {
+      node.previous = head.previous;
+      node.next = head;
+      head.previous.next = node;
+      head.previous = node;
+      node.queue = this;
+      weight += node.weight;
+    }
+
+    void remove( Node node ) {
+      node.previous.next = node.next;
+      node.next.previous = node.previous;
+      node.previous = null;
+      node.next = null;
+      node.queue = null;
+      weight -= node.weight;
+    }
+
+    void moveToLast( Node node ) {
+      remove( node );
+      addLast( node );
+    }
+  }
+
+  /**
+   * A count-min sketch of how often keys were looked up, with 4 bit counters (16 per long) in 4 rows. Once the number
+   * of increments reaches 10 times the expected number of rows, all counters are halved so the sketch reflects the
+   * recent lookups.
+   */
+  static class FrequencySketch {
+    private static final long[] SEEDS =
+      { 0xC3A5C85C97CB3127L, 0xB492B66FBE98F273L, 0x9AE16A3B2F90404FL, 0xCBF29CE484222325L };
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int size;
+
+    FrequencySketch( int expectedRows ) {
+      int length = Integer.highestOneBit( Math.max( 2, expectedRows ) - 1 ) << 1;
+      table = new long[ length ];
+      tableMask = length - 1;
+      sampleSize = 10 * expectedRows;
+    }
+
+    void increment( int hash ) {
+      hash = spread( hash );
+      int start = ( hash & 3 ) << 2;
+      boolean added = false;
+      for ( int i = 0; i < 4; i++ ) {
+        added |= incrementAt( indexOf( hash, i ), start + i );
+      }
+      if ( added && ++size >= sampleSize ) {
+        reset();
+      }
+    }
+
+    int frequency( int hash ) {
+      hash = spread( hash );
+      int start = ( hash & 3 ) << 2;
+      int frequency = Integer.MAX_VALUE;
+      for ( int i = 0; i < 4; i++ ) {
+        int offset = ( start + i ) << 2;
+        frequency = Math.min( frequency, (int) ( ( table[ indexOf( hash, i ) ] >>> offset ) & 0xFL ) );
+      }
+      return frequency;
+    }
+
+    private boolean incrementAt( int index, int counter ) {
+      int offset = counter << 2;
+      long mask = 0xFL << offset;
+      if ( ( table[ index ] & mask ) != mask ) {
+        table[ index ] += 1L << offset;
+        return true;
+      }
+      return false;
+    }
+
+    private static int spread( int hash ) {
+      hash *= 0x9E3779B9;
+      return hash ^ ( hash >>> 16 );
+    }
+
+    private int indexOf( int hash, int i ) {
+      long h = ( hash + SEEDS[ i ] ) * SEEDS[ i ];
+      h += h >>> 32;
+      return (int) h & tableMask;
+    }
+
+    private void reset() {
+      for ( int i = 0; i < table.length; i++ ) {
+        table[ i ] = ( table[ i ] >>> 1 ) & RESET_MASK;
+      }
+      size /= 2;
+    }
+  }
+}
@@ -14,23 +14,32 @@
 
 package org.pentaho.di.trans.steps.databaselookup;
 
+import java.io.File;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
 import com.google.common.annotations.VisibleForTesting;
 import org.pentaho.di.core.Const;
+import org.pentaho.di.core.RowMetaAndData;
 import org.pentaho.di.core.database.Database;
 import org.pentaho.di.core.database.DatabaseMeta;
 import org.pentaho.di.core.exception.KettleDatabaseException;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.exception.KettleStepException;
+import org.pentaho.di.core.hash.DiskHashIndex;
+import org.pentaho.di.core.logging.Metrics;
 import org.pentaho.di.core.row.RowDataUtil;
 import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.row.spill.RowSizeEstimator;
 import org.pentaho.di.core.row.value.ValueMetaBase;
 import org.pentaho.di.core.row.value.ValueMetaFactory;
 import org.pentaho.di.core.row.value.ValueMetaString;
@@ -54,6 +63,12 @@ import org.pentaho.di.trans.steps.databaselookup.readallcache.ReadAllCache;
 public class DatabaseLookup extends BaseStep implements StepInterface {
   private static Class<?> PKG = DatabaseLookupMeta.class; // for i18n purposes, needed by Translator2!!
 
+  /** The prefix of the key of a shared cache in the extension data of the transformation */
+  static final String SHARED_CACHE_PREFIX = "DatabaseLookup.SharedCache|";
+
+  /** Marks a key found more than once in a batch, when failing on multiple results */
+  private static final Object[] MULTIPLE_RESULTS = new Object[ 0 ];
+
   private DatabaseLookupMeta meta;
   private DatabaseLookupData data;
 
@@ -71,8 +86,14 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
    */
   @VisibleForTesting
   synchronized Object[] lookupValues( RowMetaInterface inputRowMeta, Object[] row ) throws KettleException {
-    Object[] outputRow = RowDataUtil.resizeArray( row, data.outputRowMeta.size() );
+    Object[] lookupRow = getLookupRow( inputRowMeta, row );
+    return lookupValues( inputRowMeta, row, lookupRow, getRowFromCache( lookupRow ) );
+  }
 
+  /**
+   * @return the values of the keys of the row to look up, converted to the data types of the table
+   */
+  private Object[] getLookupRow( RowMetaInterface inputRowMeta, Object[] row ) throws KettleException {
     Object[] lookupRow = new Object[ data.lookupMeta.size() ];
     int lookupIndex = 0;
 
@@ -111,20 +132,33 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
         lookupIndex++;
       }
     }
+    return lookupRow;
+  }
 
-    Object[] add;
-    boolean cacheNow = false;
-    boolean cacheHit = false;
-
-    // First, check if we looked up before
-    if ( meta.isCached() ) {
-      add = data.cache.getRowFromCache( data.lookupMeta, lookupRow );
-      if ( add != null ) {
-        cacheHit = true;
-      }
+  /**
+   * @return the values looked up before for the key, or null if there are none
+   */
+  private Object[] getRowFromCache( Object[] lookupRow ) throws KettleException {
+    if ( !meta.isCached() ) {
+      return null;
+    }
+    Object[] add = data.cache.getRowFromCache( data.lookupMeta, lookupRow );
+    if ( add != null ) {
+      data.cacheHits++;
     } else {
-      add = null;
+      data.cacheMisses++;
     }
+    return add;
+  }
+
+  private Object[] lookupValues( RowMetaInterface inputRowMeta, Object[] row, Object[] lookupRow,
+                                 Object[] cachedRow ) throws KettleException {
+    Object[] outputRow = RowDataUtil.resizeArray( row, data.outputRowMeta.size() );
+
+    Object[] add = cachedRow;
+    boolean cacheNow = false;
+    boolean cacheHit = add != null;
+    RowMetaInterface returnRowMeta = null;
 
     if ( add == null && ( !( meta.isCached() && meta.isLoadingAllDataInCache() ) || data.hasDBCondition ) ) {
       // do not go to the database when all rows are in (exception LIKE operator)
@@ -135,8 +169,18 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
           + data.lookupMeta.getString( lookupRow ) );
       }
 
-      data.db.setValuesLookup( data.lookupMeta, lookupRow );
-      add = data.db.getLookup( meta.isFailingOnMultipleResults() );
+      if ( data.batchResults != null ) {
+        add = getBatchResult( lookupRow );
+        returnRowMeta = data.batchReturnMeta;
+      }
+      if ( add == null ) {
+        // The keys of the batch are compared in the database, not here: a key found with another case, padding or
+        // data type isn't in the results of the batch, so a key that wasn't found there is looked up again on its own
+        //
+        data.db.setValuesLookup( data.lookupMeta, lookupRow );
+        add = data.db.getLookup( meta.isFailingOnMultipleResults() );
+        returnRowMeta = data.db.getReturnRowMeta();
+      }
       cacheNow = true;
     }
 
@@ -181,7 +225,7 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
         // that should not be a problem.
         //
         for ( int i = 0; i < types.length; i++ ) {
-          ValueMetaInterface returned = data.db.getReturnRowMeta().getValueMeta( i );
+          ValueMetaInterface returned = returnRowMeta.getValueMeta( i );
           ValueMetaInterface expected = data.returnMeta.getValueMeta( i );
 
           if ( returned != null && types[ i ] > 0 && types[ i ] != returned.getType() ) {
@@ -345,15 +389,18 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
 
   @Override
   public boolean processRow( StepMetaInterface smi, StepDataInterface sdi ) throws KettleException {
+    meta = (DatabaseLookupMeta) smi;
+    data = (DatabaseLookupData) sdi;
+
     Object[] r = getRow(); // Get row from input rowset & set row busy!
     if ( r == null ) { // no more input to be expected...
+      if ( data.batchRows != null && !data.batchRows.isEmpty() && !lookupBatch() ) {
+        return false;
+      }
       setOutputDone();
       return false;
     }
 
-    meta = (DatabaseLookupMeta) smi;
-    data = (DatabaseLookupData) sdi;
-
     if ( first ) {
       first = false;
 
@@ -404,10 +451,6 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
         }
       }
 
-      if ( meta.isCached() ) {
-        data.cache = DefaultCache.newCache( data, meta.getCacheSize() );
-      }
-
       determineFieldsTypesQueryingDb();
 
       initNullIf();
@@ -416,11 +459,23 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
 
       initReturnMeta();
 
+      if ( meta.isCached() ) {
+        data.cache = createCache();
+      }
+
       // If the user selected to load all data into the cache at startup, that's what we do now...
       //
       if ( meta.isCached() && meta.isLoadingAllDataInCache() ) {
         loadAllTableDataIntoTheCache();
       }
+
+      data.batchSize = isBatchLookupPossible() ? Const.toInt( getVariable( Const.KETTLE_LOOKUP_BATCH_SIZE ), 0 ) : 0;
+      if ( data.batchSize > 1 ) {
+        data.batchRows = new ArrayList<>( data.batchSize );
+        if ( log.isDetailed() ) {
+          logDetailed( BaseMessages.getString( PKG, "DatabaseLookup.Log.BatchLookup", data.batchSize ) );
+        }
+      }
     }
 
     if ( log.isRowLevel() ) {
@@ -428,10 +483,28 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
         + getInputRowMeta().getString( r ) );
     }
 
+    if ( data.batchRows != null ) {
+      data.batchRows.add( r );
+      return data.batchRows.size() < data.batchSize || lookupBatch();
+    }
+
+    Object[] outputRow;
     try {
       // add new lookup values to the row
-      Object[] outputRow = lookupValues( getInputRowMeta(), r );
+      outputRow = lookupValues( getInputRowMeta(), r );
+    } catch ( KettleException e ) {
+      return handleLookupError( r, e );
+    }
+    return putLookupRow( r, outputRow );
+  }
 
+  /**
+   * Pass on a row with the looked up values, if any.
+   *
+   * @return false if the step has to stop
+   */
+  private boolean putLookupRow( Object[] r, Object[] outputRow ) throws KettleException {
+    try {
       if ( outputRow != null ) {
         // copy row to output rowset(s);
         putRow( data.outputRowMeta, outputRow );
@@ -447,21 +520,237 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
         }
       }
     } catch ( KettleException e ) {
-      if ( getStepMeta().isDoingErrorHandling() ) {
-        putError( getInputRowMeta(), r, 1, e.getMessage(), null, "DBLOOKUPD001" );
-      } else {
-        logError( BaseMessages.getString( PKG, "DatabaseLookup.ERROR003.UnexpectedErrorDuringProcessing" )
-          + e.getMessage() );
-        setErrors( 1 );
-        stopAll();
-        setOutputDone(); // signal end to receiver(s)
+      return handleLookupError( r, e );
+    }
+
+    return true;
+  }
+
+  /**
+   * Send a row that couldn't be looked up to the error handling, or stop the step.
+   *
+   * @return false if the step has to stop
+   */
+  private boolean handleLookupError( Object[] r, KettleException e ) throws KettleException {
+    if ( getStepMeta().isDoingErrorHandling() ) {
+      putError( getInputRowMeta(), r, 1, e.getMessage(), null, "DBLOOKUPD001" );
+      return true;
+    }
+    logError( BaseMessages.getString( PKG, "DatabaseLookup.ERROR003.UnexpectedErrorDuringProcessing" )
+      + e.getMessage() );
+    setErrors( 1 );
+    stopAll();
+    setOutputDone(); // signal end to receiver(s)
+    return false;
+  }
+
+  /**
+   * The rows can be looked up in batches when they're all looked up on equality with a single query: the rows of a
+   * batch that aren't cached are looked up at once, with a condition on all their keys.
+   */
+  private boolean isBatchLookupPossible() {
+    if ( ( meta.isCached() && meta.isLoadingAllDataInCache() ) || data.keynrs.length == 0
+      || data.conditions == null || data.conditions.length != data.keynrs.length ) {
+      return false;
+    }
+    for ( int i = 0; i < data.keynrs.length; i++ ) {
+      if ( data.conditions[ i ] != DatabaseLookupMeta.CONDITION_EQ || data.keynrs[ i ] < 0 || data.keynrs2[ i ] >= 0 ) {
         return false;
       }
     }
-
     return true;
   }
 
+  /**
+   * Look up the buffered rows: first in the cache, then all the others with one query, and pass them on in their
+   * original order.
+   *
+   * @return false if the step has to stop
+   */
+  @VisibleForTesting
+  boolean lookupBatch() throws KettleException {
+    int size = data.batchRows.size();
+    Object[][] lookupRows = new Object[ size ][];
+    Object[][] cachedRows = new Object[ size ][];
+    Map<RowMetaAndData, Object[]> keys = new LinkedHashMap<>();
+
+    try {
+      for ( int i = 0; i < size; i++ ) {
+        Object[] r = data.batchRows.get( i );
+        try {
+          lookupRows[ i ] = getLookupRow( getInputRowMeta(), r );
+          cachedRows[ i ] = getRowFromCache( lookupRows[ i ] );
+        } catch ( KettleException e ) {
+          lookupRows[ i ] = null;
+          if ( !handleLookupError( r, e ) ) {
+            return false;
+          }
+          continue;
+        }
+        if ( cachedRows[ i ] == null ) {
+          keys.putIfAbsent( new RowMetaAndData( data.lookupMeta, lookupRows[ i ] ), lookupRows[ i ] );
+        }
+      }
+
+      try {
+        lookupBatchKeys( new ArrayList<>( keys.values() ) );
+      } catch ( KettleException e ) {
+        for ( int i = 0; i < size; i++ ) {
+          if ( lookupRows[ i ] != null && !handleLookupError( data.batchRows.get( i ), e ) ) {
+            return false;
+          }
+        }
+        return true;
+      }
+
+      for ( int i = 0; i < size; i++ ) {
+        if ( lookupRows[ i ] == null ) {
+          continue;
+        }
+        Object[] r = data.batchRows.get( i );
+        Object[] outputRow;
+        try {
+          outputRow = lookupValues( getInputRowMeta(), r, lookupRows[ i ], cachedRows[ i ] );
+        } catch ( KettleException e ) {
+          if ( !handleLookupError( r, e ) ) {
+            return false;
+          }
+          continue;
+        }
+        if ( !putLookupRow( r, outputRow ) ) {
+          return false;
+        }
+      }
+      return true;
+    } finally {
+      data.batchRows.clear();
+      data.batchResults = null;
+    }
+  }
+
+  /**
+   * Look up the rows of the table for the given keys with as few queries as possible. The first row found for a key
+   * wins, like with a query per key. The results are matched on the keys as returned by the database, the keys without
+   * a match are looked up one by one afterwards.
+   */
+  private void lookupBatchKeys( List<Object[]> keys ) throws KettleException {
+    data.batchResults = new HashMap<>();
+    if ( keys.isEmpty() ) {
+      return;
+    }
+
+    DatabaseMeta dbMeta = meta.getDatabaseMeta();
+    String[] keyFields = meta.getTableKeyField();
+    StringBuilder sql = new StringBuilder( "SELECT " );
+    for ( int i = 0; i < keyFields.length; i++ ) {
+      if ( i > 0 ) {
+        sql.append( ", " );
+      }
+      sql.append( dbMeta.quoteField( keyFields[ i ] ) );
+    }
+    for ( int i = 0; i < meta.getReturnValueField().length; i++ ) {
+      sql.append( ", " ).append( dbMeta.quoteField( meta.getReturnValueField()[ i ] ) );
+    }
+    sql.append( " FROM " )
+      .append( dbMeta.getQuotedSchemaTableCombination( environmentSubstitute( meta.getSchemaName() ),
+        environmentSubstitute( meta.getTablename() ) ) )
+      .append( " WHERE " );
+    String orderBy = Utils.isEmpty( meta.getOrderByClause() ) ? null : "ORDER BY " + meta.getOrderByClause();
+
+    List<Object[]> rows =
+      data.db.getRowsMatchingKeys( sql.toString(), null, null, keyFields, data.lookupMeta, keys, orderBy );
+    if ( rows.isEmpty() ) {
+      return;
+    }
+
+    RowMetaInterface rowMeta = data.db.getReturnRowMeta();
+    data.batchReturnMeta = new RowMeta();
+    for ( int i = keyFields.length; i < rowMeta.size(); i++ ) {
+      data.batchReturnMeta.addValueMeta( rowMeta.getValueMeta( i ) );
+    }
+
+    for ( Object[] row : rows ) {
+      // The keys of the table may come back with other data types than the ones looked up
+      //
+      Object[] key = new Object[ keyFields.length ];
+      for ( int i = 0; i < keyFields.length; i++ ) {
+        ValueMetaInterface keyMeta = data.lookupMeta.getValueMeta( i );
+        ValueMetaInterface returnedMeta = rowMeta.getValueMeta( i );
+        key[ i ] =
+          keyMeta.getType() == returnedMeta.getType() ? row[ i ] : keyMeta.convertData( returnedMeta, row[ i ] );
+      }
+      Object[] value = new Object[ data.batchReturnMeta.size() ];
+      System.arraycopy( row, keyFields.length, value, 0, value.length );
+
+      RowMetaAndData rowKey = new RowMetaAndData( data.lookupMeta, key );
+      if ( data.batchResults.putIfAbsent( rowKey, value ) != null && meta.isFailingOnMultipleResults() ) {
+        data.batchResults.put( rowKey, MULTIPLE_RESULTS );
+      }
+    }
+  }
+
+  /**
+   * @return a copy of the values looked up in the batch for the key, or null if none were found
+   */
+  private Object[] getBatchResult( Object[] lookupRow ) throws KettleDatabaseException {
+    Object[] add = data.batchResults.get( new RowMetaAndData( data.lookupMeta, lookupRow ) );
+    if ( add == MULTIPLE_RESULTS ) {
+      throw new KettleDatabaseException( BaseMessages.getString( PKG, "DatabaseLookup.Exception.MultipleResults" ) );
+    }
+    // The values are converted in place, and a key may be looked up by several rows of the batch
+    return add == null ? null : add.clone();
+  }
+
+  /**
+   * Lookups on equality conditions only, from the database, are cached in a {@link BoundedCache}, optionally shared by
+   * all the copies of the step and by the other steps looking up the same data in the transformation.
+   */
+  private DatabaseLookupData.Cache createCache() {
+    if ( meta.isLoadingAllDataInCache() || !data.allEquals ) {
+      return DefaultCache.newCache( data, meta.getCacheSize() );
+    }
+
+    BoundedCache.Policy policy =
+      BoundedCache.Policy.getPolicy( getVariable( Const.KETTLE_DATABASE_LOOKUP_CACHE_POLICY ),
+        BoundedCache.Policy.TINYLFU );
+    long maximumBytes = RowSizeEstimator.toBytes( getVariable( Const.KETTLE_DATABASE_LOOKUP_CACHE_MEMORY ), 0L );
+    if ( !ValueMetaBase.convertStringToBoolean( getVariable( Const.KETTLE_DATABASE_LOOKUP_SHARED_CACHE, "N" ) ) ) {
+      return new BoundedCache( policy, meta.getCacheSize(), maximumBytes );
+    }
+
+    String key = getSharedCacheKey();
+    synchronized ( getTrans() ) {
+      Map<String, Object> extensionData = getTrans().getExtensionDataMap();
+      Object cache = extensionData.get( key );
+      if ( !( cache instanceof BoundedCache ) ) {
+        cache = new BoundedCache( policy, meta.getCacheSize(), maximumBytes );
+        extensionData.put( key, cache );
+      } else if ( log.isDetailed() ) {
+        logDetailed( BaseMessages.getString( PKG, "DatabaseLookup.Log.UsingSharedCache" ) );
+      }
+      return (BoundedCache) cache;
+    }
+  }
+
+  /**
+   * @return what identifies the rows looked up: the same rows for the same keys
+   */
+  private String getSharedCacheKey() {
+    StringBuilder key = new StringBuilder( SHARED_CACHE_PREFIX );
+    key.append( meta.getDatabaseMeta().getName() )
+      .append( '|' ).append( environmentSubstitute( meta.getSchemaName() ) )
+      .append( '|' ).append( environmentSubstitute( meta.getTablename() ) )
+      .append( '|' ).append( Arrays.toString( meta.getTableKeyField() ) )
+      .append( '|' ).append( Arrays.toString( meta.getKeyCondition() ) )
+      .append( '|' ).append( Arrays.toString( data.lookupMeta.getFieldNamesAndTypes( 0 ) ) )
+      .append( '|' ).append( Arrays.toString( meta.getReturnValueField() ) )
+      .append( '|' ).append( Arrays.toString( meta.getReturnValueDefault() ) )
+      .append( '|' ).append( Arrays.toString( meta.getReturnValueDefaultType() ) )
+      .append( '|' ).append( meta.getOrderByClause() )
+      .append( '|' ).append( meta.isFailingOnMultipleResults() );
+    return key.toString();
+  }
+
   private void loadAllTableDataIntoTheCache() throws KettleException {
     DatabaseMeta dbMeta = meta.getDatabaseMeta();
 
@@ -508,22 +797,58 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
     }
   }
 
-  private void putToDefaultCache( Database db, String sql ) throws KettleDatabaseException {
+  private void putToDefaultCache( Database db, String sql ) throws KettleException {
     final int keysAmount = meta.getStreamKeyField1().length;
     AtomicReference<RowMetaInterface> prototype = new AtomicReference<>();
     AtomicBoolean firstRow = new AtomicBoolean( true );
+    AtomicReference<KettleException> failure = new AtomicReference<>();
+
+    long memoryBudget = RowSizeEstimator.toBytes( getVariable( Const.KETTLE_LOOKUP_MEMORY_BUDGET ), 0L );
 
     db.forEachRow( sql, 0, row -> {
       if ( firstRow.get() ) {
         // Assume that all rows have the same meta; let's reuse it for all rows
         prototype.set( copyValueMetasFrom( db.getReturnRowMeta(), keysAmount ) );
         firstRow.set( false );
+
+        // Past the memory budget the rows go to an on-disk index
+        if ( memoryBudget > 0 ) {
+          RowMetaInterface valueMeta = new RowMeta();
+          for ( int i = keysAmount; i < db.getReturnRowMeta().size(); i++ ) {
+            valueMeta.addValueMeta( db.getReturnRowMeta().getValueMeta( i ) );
+          }
+          String directory = getVariable( Const.KETTLE_LOOKUP_DISK_DIRECTORY );
+          data.cache = new SpillingCache( data.cache, prototype.get(), valueMeta, memoryBudget,
+            new File( Utils.isEmpty( directory ) ? System.getProperty( "java.io.tmpdir" ) : directory ),
+            Const.toInt( getVariable( Const.KETTLE_LOOKUP_DISK_CACHE_SIZE ), 10000 ) );
+        }
+      }
+      // The callback can't throw, the rows left after a failure are skipped
+      if ( failure.get() == null ) {
+        try {
+          putRowToDefaultCache( prototype.get(), keysAmount, row );
+        } catch ( KettleException e ) {
+          failure.set( e );
+        }
       }
-      putRowToDefaultCache( prototype.get(), keysAmount, row );
     } );
+    if ( failure.get() != null ) {
+      throw failure.get();
+    }
+
+    if ( data.cache instanceof SpillingCache ) {
+      SpillingCache cache = (SpillingCache) data.cache;
+      cache.finish();
+      if ( cache.getDiskIndex() != null && log.isBasic() ) {
+        DiskHashIndex diskIndex = cache.getDiskIndex();
+        logBasic( BaseMessages.getString( PKG, "DatabaseLookup.Log.DiskIndexSize", diskIndex.getRecordCount(),
+          diskIndex.size(), diskIndex.getDiskUsage() ) );
+      }
+    }
   }
 
-  private void putRowToDefaultCache( RowMetaInterface keyMeta, int keysAmount, Object[] row ) {
+  private void putRowToDefaultCache( RowMetaInterface keyMeta, int keysAmount, Object[] row )
+    throws KettleException {
     // Copy the data into 2 parts: key and value...
     //
     int index = 0;
@@ -646,8 +971,22 @@ public class DatabaseLookup extends BaseStep implements StepInterface {
       data.db.close();
     }
 
+    if ( meta.isCached() ) {
+      log.snap( Metrics.METRIC_STEP_CACHE_HITS, getStepname(), data.cacheHits );
+      log.snap( Metrics.METRIC_STEP_CACHE_MISSES, getStepname(), data.cacheMisses );
+      long evictions = data.cache instanceof BoundedCache ? ( (BoundedCache) data.cache ).getEvictions() : 0L;
+      log.snap( Metrics.METRIC_STEP_CACHE_EVICTIONS, getStepname(), evictions );
+      if ( log.isDetailed() ) {
+        logDetailed( BaseMessages.getString( PKG, "DatabaseLookup.Log.CacheStatistics", data.cacheHits,
+          data.cacheMisses, evictions ) );
+      }
+    }
+
     // Recover memory immediately, allow in-memory data to be garbage collected
     //
+    if ( data.cache instanceof SpillingCache ) {
+      ( (SpillingCache) data.cache ).close();
+    }
     data.cache = null;
 
     super.dispose( smi, sdi );
@@ -14,6 +14,10 @@
 
 package org.pentaho.di.trans.steps.databaselookup;
 
+import java.util.List;
+import java.util.Map;
+
+import org.pentaho.di.core.RowMetaAndData;
 import org.pentaho.di.core.database.Database;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.row.RowMetaInterface;
@@ -40,6 +44,13 @@ public class DatabaseLookupData extends BaseStepData implements StepDataInterfac
   public boolean allEquals;
   public int[] conditions;
   public boolean hasDBCondition;
+  public long cacheHits;
+  public long cacheMisses;
+
+  public int batchSize;
+  public List<Object[]> batchRows; // the rows waiting to be looked up in a batch
+  public Map<RowMetaAndData, Object[]> batchResults; // the values looked up for the keys of the batch
+  public RowMetaInterface batchReturnMeta;
 
   public DatabaseLookupData() {
     super();
@@ -69,7 +80,9 @@ public class DatabaseLookupData extends BaseStepData implements StepDataInterfac
      * @param lookupMeta  {@code lookupRow}'s meta
      * @param lookupRow   tuple of keys
      * @param add         tuple of data
+     * @throws KettleException in case the row can't be stored
      */
-    void storeRowInCache( DatabaseLookupMeta meta, RowMetaInterface lookupMeta, Object[] lookupRow, Object[] add );
+    void storeRowInCache( DatabaseLookupMeta meta, RowMetaInterface lookupMeta, Object[] lookupRow, Object[] add )
+      throws KettleException;
   }
 }
@@ -0,0 +1,135 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.databaselookup;
+
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.exception.KettleFileException;
+import org.pentaho.di.core.hash.DiskHashIndex;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.row.spill.RowSizeEstimator;
+import org.pentaho.di.i18n.BaseMessages;
+
+import java.io.Closeable;
+import java.io.File;
+
+/**
+ * Cache for {@code DatabaseLookup} step loading all data in the cache with equality conditions only. The rows are
+ * stored in another cache until they take more than a memory budget, the rest of them go to a {@link DiskHashIndex}.
+ * As the first row stored for a key wins, the cache in memory is searched before the disk.
+ *
+ * @since 11.1
+ */
+public class SpillingCache implements DatabaseLookupData.Cache, Closeable {
+  private static Class<?> PKG = DatabaseLookupMeta.class; // for i18n purposes, needed by Translator2!!
+
+  /** The estimated heap used per row on top of the key and value */
+  private static final int ENTRY_OVERHEAD = 64;
+
+  private final DatabaseLookupData.Cache memoryCache;
+  private final RowMetaInterface keyMeta;
+  private final RowMetaInterface valueMeta;
+  private final long memoryBudget;
+  private final File directory;
+  private final int diskCacheSize;
+
+  private long memoryUsage;
+  private DiskHashIndex diskIndex;
+
+  /**
+   * @param memoryCache    the cache to store the rows in while they fit in the memory budget
+   * @param keyMeta        the layout of the keys
+   * @param valueMeta      the layout of the values
+   * @param memoryBudget   the maximum estimated size of the rows in memory in bytes
+   * @param directory      the directory to create the on-disk index in
+   * @param diskCacheSize  the number of recently looked up rows of the on-disk index to keep in memory
+   */
+  public SpillingCache( DatabaseLookupData.Cache memoryCache, RowMetaInterface keyMeta, RowMetaInterface valueMeta,
+                        long memoryBudget, File directory, int diskCacheSize ) {
+    this.memoryCache = memoryCache;
+    this.keyMeta = keyMeta;
+    this.valueMeta = valueMeta;
+    this.memoryBudget = memoryBudget;
+    this.directory = directory;
+    this.diskCacheSize = diskCacheSize;
+  }
+
+  @Override
+  public Object[] getRowFromCache( RowMetaInterface lookupMeta, Object[] lookupRow ) throws KettleException {
+    Object[] row = memoryCache.getRowFromCache( lookupMeta, lookupRow );
+    if ( row != null || diskIndex == null ) {
+      return row;
+    }
+
+    // The keys on disk are compared on their binary form, so they need the exact data types of the table
+    //
+    Object[] keyData = lookupRow;
+    for ( int i = 0; i < keyMeta.size(); i++ ) {
+      ValueMetaInterface lookupValueMeta = lookupMeta.getValueMeta( i );
+      ValueMetaInterface keyValueMeta = keyMeta.getValueMeta( i );
+      if ( lookupValueMeta.getType() != keyValueMeta.getType() ) {
+        if ( keyData == lookupRow ) {
+          keyData = lookupRow.clone();
+        }
+        keyData[ i ] = keyValueMeta.convertData( lookupValueMeta, lookupRow[ i ] );
+      }
+    }
+    return diskIndex.get( keyData );
+  }
+
+  @Override
+  public void storeRowInCache( DatabaseLookupMeta meta, RowMetaInterface lookupMeta, Object[] lookupRow,
+                               Object[] add ) throws KettleException {
+    try {
+      if ( diskIndex != null ) {
+        diskIndex.put( lookupRow, add );
+        return;
+      }
+
+      memoryCache.storeRowInCache( meta, lookupMeta, lookupRow, add );
+      memoryUsage += RowSizeEstimator.estimateSize( lookupRow ) + RowSizeEstimator.estimateSize( add ) + ENTRY_OVERHEAD;
+      if ( memoryUsage > memoryBudget ) {
+        diskIndex = new DiskHashIndex( keyMeta, valueMeta, directory, false, diskCacheSize );
+      }
+    } catch ( KettleFileException e ) {
+      throw new KettleException( BaseMessages.getString( PKG, "DatabaseLookup.Exception.UnableToStoreRowOnDisk" ), e );
+    }
+  }
+
+  /**
+   * Build the on-disk index, if any, once all rows are stored.
+   *
+   * @throws KettleFileException in case the index can't be built
+   */
+  public void finish() throws KettleFileException {
+    if ( diskIndex != null ) {
+      diskIndex.finish();
+    }
+  }
+
+  /**
+   * @return the index of the rows that didn't fit in the memory budget, or null if they all did
+   */
+  public DiskHashIndex getDiskIndex() {
+    return diskIndex;
+  }
+
+  @Override
+  public void close() {
+    if ( diskIndex != null ) {
+      diskIndex.close();
+      diskIndex = null;
+    }
+  }
+}
@@ -20,7 +20,9 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.pentaho.di.core.Const;
 import org.pentaho.di.core.util.Utils;
@@ -103,6 +105,9 @@ public class DimensionLookup extends BaseDatabaseStep implements StepInterface {
 
     Object[] r = getRow(); // Get row from input rowset & set row busy!
     if ( r == null ) { // no more input to be expected...
+      if ( data.batchRows != null && !data.batchRows.isEmpty() && !lookupBatch() ) {
+        return false;
+      }
 
       setOutputDone(); // signal end to receiver(s)
       return false;
@@ -207,6 +212,11 @@ public class DimensionLookup extends BaseDatabaseStep implements StepInterface {
       }
 
       setDimLookup( data.outputRowMeta );
+
+      data.batchSize = isBatchLookupPossible() ? Const.toInt( getVariable( Const.KETTLE_LOOKUP_BATCH_SIZE ), 0 ) : 0;
+      if ( data.batchSize > 1 ) {
+        data.batchRows = new ArrayList<Object[]>( data.batchSize );
+      }
     }
 
     // convert row to normal storage...
@@ -216,6 +226,20 @@ public class DimensionLookup extends BaseDatabaseStep implements StepInterface {
       r[ lazyFieldIndex ] = valueMeta.convertToNormalStorageType( r[ lazyFieldIndex ] );
     }
 
+    if ( data.batchRows != null ) {
+      data.batchRows.add( r );
+      return data.batchRows.size() < data.batchSize || lookupBatch();
+    }
+
+    return lookupRow( r );
+  }
+
+  /**
+   * Look up a row and pass it on with the dimension values.
+   *
+   * @return false if the step has to stop
+   */
+  private boolean lookupRow( Object[] r ) throws KettleException {
     try {
       Object[] outputRow = lookupValues( data.inputRowMeta, r ); // add new values to the row in rowset[0].
       putRow( data.outputRowMeta, outputRow ); // copy row to output rowset(s);
@@ -226,17 +250,116 @@ public class DimensionLookup extends BaseDatabaseStep implements StepInterface {
         }
       }
     } catch ( KettleException e ) {
-      logError( BaseMessages.getString( PKG, "DimensionLookup.Log.StepCanNotContinueForErrors", e.getMessage() ) );
-      logError( Const.getStackTracker( e ) );
-      setErrors( 1 );
-      stopAll();
-      setOutputDone(); // signal end to receiver(s)
-      return false;
+      return stopForError( e );
     }
 
     return true;
   }
 
+  private boolean stopForError( KettleException e ) {
+    logError( BaseMessages.getString( PKG, "DimensionLookup.Log.StepCanNotContinueForErrors", e.getMessage() ) );
+    logError( Const.getStackTracker( e ) );
+    setErrors( 1 );
+    stopAll();
+    setOutputDone(); // signal end to receiver(s)
+    return false;
+  }
+
+  /**
+   * The rows can be looked up in batches when only looking up in the dimension and caching the results: the versions
+   * of the keys of a batch that aren't cached are fetched in the cache at once. The lookup date has to be the same for
+   * all the rows, the start of the transformation, as a date field would take a query per date of a batch.
+   */
+  private boolean isBatchLookupPossible() {
+    return !meta.isUpdate() && !meta.isPreloadingCache() && meta.getCacheSize() >= 0 && data.datefieldnr < 0;
+  }
+
+  /**
+   * Fetch the versions of the keys of the buffered rows that aren't cached with as few queries as possible, then
+   * process the rows in their original order. The rows that still aren't cached are looked up one by one.
+   *
+   * @return false if the step has to stop
+   */
+  private boolean lookupBatch() throws KettleException {
+    try {
+      Date valueDate = determineDimensionUpdatedDate( null );
+      Map<RowMetaAndData, Object[]> keys = new LinkedHashMap<RowMetaAndData, Object[]>();
+      for ( Object[] row : data.batchRows ) {
+        Object[] keyValues = new Object[ data.keynrs.length ];
+        for ( int i = 0; i < data.keynrs.length; i++ ) {
+          keyValues[ i ] = row[ data.keynrs[ i ] ];
+        }
+        if ( getFromCache( keyValues, valueDate ) == null ) {
+          keys.put( new RowMetaAndData( data.cacheKeyRowMeta, keyValues ), keyValues );
+        }
+      }
+
+      if ( !keys.isEmpty() ) {
+        fetchBatchKeys( valueDate, new ArrayList<Object[]>( keys.values() ) );
+      }
+    } catch ( KettleException e ) {
+      data.batchRows.clear();
+      return stopForError( e );
+    }
+
+    try {
+      for ( Object[] row : data.batchRows ) {
+        if ( !lookupRow( row ) ) {
+          return false;
+        }
+      }
+      return true;
+    } finally {
+      data.batchRows.clear();
+    }
+  }
+
+  private void fetchBatchKeys( Date valueDate, List<Object[]> keys ) throws KettleException {
+    DatabaseMeta databaseMeta = meta.getDatabaseMeta();
+
+    String sql = "SELECT " + getDimLookupFields();
+    for ( int i = 0; i < meta.getKeyLookup().length; i++ ) {
+      sql += ", " + databaseMeta.quoteField( meta.getKeyLookup()[ i ] );
+    }
+    sql += " FROM " + data.schemaTable + " WHERE " + getDimLookupDateCondition() + " AND ";
+
+    RowMetaInterface dateMeta = new RowMeta();
+    dateMeta.addValueMeta( new ValueMetaDate( meta.getDateFrom() ) );
+    dateMeta.addValueMeta( new ValueMetaDate( meta.getDateTo() ) );
+
+    List<Object[]> rows = data.db.getRowsMatchingKeys( sql, dateMeta, new Object[] { valueDate, valueDate },
+      meta.getKeyLookup(), data.cacheKeyRowMeta, keys, null );
+    if ( rows.isEmpty() ) {
+      return;
+    }
+
+    // The dimension values come first, like in a lookup of a single row, followed by the keys
+    //
+    RowMetaInterface rowMeta = data.db.getReturnRowMeta();
+    int keyIndex = rowMeta.size() - keys.get( 0 ).length;
+    if ( data.returnRowMeta == null ) {
+      data.returnRowMeta = new RowMeta();
+      for ( int i = 0; i < keyIndex; i++ ) {
+        data.returnRowMeta.addValueMeta( rowMeta.getValueMeta( i ) );
+      }
+    }
+
+    for ( Object[] row : rows ) {
+      // The keys of the table may come back with other data types than the ones in the stream
+      Object[] keyValues = new Object[ rowMeta.size() - keyIndex ];
+      for ( int i = 0; i < keyValues.length; i++ ) {
+        ValueMetaInterface keyMeta = data.cacheKeyRowMeta.getValueMeta( i );
+        ValueMetaInterface returnedMeta = rowMeta.getValueMeta( keyIndex + i );
+        keyValues[ i ] = keyMeta.getType() == returnedMeta.getType()
+          ? row[ keyIndex + i ] : keyMeta.convertData( returnedMeta, row[ keyIndex + i ] );
+      }
+      Object[] returnRow = new Object[ keyIndex ];
+      System.arraycopy( row, 0, returnRow, 0, keyIndex );
+      addToCache( keyValues, returnRow );
+      incrementLinesInput();
+    }
+  }
+
   private Date determineDimensionUpdatedDate( Object[] row ) throws KettleException {
     if ( data.datefieldnr < 0 ) {
       return getTrans().getCurrentDate(); // start of transformation...
@@ -836,10 +959,44 @@ public class DimensionLookup extends BaseDatabaseStep implements StepInterface {
      * SELECT <tk>, <version>, ... , FROM <table> WHERE key1=keys[1] AND key2=keys[2] ... AND ( <datefrom> is null OR
      * <datefrom> <= <datefield> ) AND <dateto> >= <datefield>
      */
-    String sql =
-      "SELECT "
-        + databaseMeta.quoteField( meta.getKeyField() ) + ", "
-        + databaseMeta.quoteField( meta.getVersionField() );
+    String sql = "SELECT " + getDimLookupFields() + " FROM " + data.schemaTable + " WHERE ";
+
+    for ( int i = 0; i < meta.getKeyLookup().length; i++ ) {
+      if ( i != 0 ) {
+        sql += " AND ";
+      }
+      sql += databaseMeta.quoteField( meta.getKeyLookup()[ i ] ) + " = ? ";
+      data.lookupRowMeta.addValueMeta( rowMeta.getValueMeta( data.keynrs[ i ] ) );
+    }
+
+    sql += " AND " + getDimLookupDateCondition();
+
+    data.lookupRowMeta.addValueMeta( new ValueMetaDate( meta.getDateFrom() ) );
+    data.lookupRowMeta.addValueMeta( new ValueMetaDate( meta.getDateTo() ) );
+
+    try {
+      logDetailed( "Dimension Lookup setting preparedStatement to [" + sql + "]" );
+      data.prepStatementLookup = data.db.getConnection().prepareStatement( databaseMeta.stripCR( sql ) );
+      if ( databaseMeta.supportsSetMaxRows() ) {
+        data.prepStatementLookup.setMaxRows( 1 ); // alywas get only 1 line back!
+      }
+      if ( databaseMeta.getDatabaseInterface().isMySQLVariant() ) {
+        data.prepStatementLookup.setFetchSize( 0 ); // Make sure to DISABLE Streaming Result sets
+      }
+      logDetailed( "Finished preparing dimension lookup statement." );
+    } catch ( SQLException ex ) {
+      throw new KettleDatabaseException( "Unable to prepare dimension lookup", ex );
+    }
+  }
+
+  /**
+   * @return the fields to look up in the dimension: the technical key, the version, the fields to retrieve, and the
+   * date range of the version if it's cached
+   */
+  private String getDimLookupFields() {
+    DatabaseMeta databaseMeta = meta.getDatabaseMeta();
+    String sql = databaseMeta.quoteField( meta.getKeyField() ) + ", "
+      + databaseMeta.quoteField( meta.getVersionField() );
 
     if ( !Utils.isEmpty( meta.getFieldLookup() ) ) {
       for ( int i = 0; i < meta.getFieldLookup().length; i++ ) {
@@ -859,17 +1016,14 @@ public class DimensionLookup extends BaseDatabaseStep implements StepInterface {
       sql +=
         ", " + databaseMeta.quoteField( meta.getDateFrom() ) + ", " + databaseMeta.quoteField( meta.getDateTo() );
     }
+    return sql;
+  }
 
-    sql += " FROM " + data.schemaTable + " WHERE ";
-
-    for ( int i = 0; i < meta.getKeyLookup().length; i++ ) {
-      if ( i != 0 ) {
-        sql += " AND ";
-      }
-      sql += databaseMeta.quoteField( meta.getKeyLookup()[ i ] ) + " = ? ";
-      data.lookupRowMeta.addValueMeta( rowMeta.getValueMeta( data.keynrs[ i ] ) );
-    }
-
+  /**
+   * @return the condition on the date range of the version to look up, with the lookup date as 2 parameters
+   */
+  private String getDimLookupDateCondition() {
+    DatabaseMeta databaseMeta = meta.getDatabaseMeta();
     String dateFromField = databaseMeta.quoteField( meta.getDateFrom() );
     String dateToField = databaseMeta.quoteField( meta.getDateTo() );
 
@@ -878,34 +1032,13 @@ public class DimensionLookup extends BaseDatabaseStep implements StepInterface {
       || ( meta.getStartDateAlternative() == DimensionLookupMeta.START_DATE_ALTERNATIVE_COLUMN_VALUE ) ) {
       // Null as a start date is possible...
       //
-      sql += " AND ( " + dateFromField + " IS NULL OR " + dateFromField + " <= ? )" + Const.CR;
-      sql += " AND " + dateToField + " > ?" + Const.CR;
-
-      data.lookupRowMeta.addValueMeta( new ValueMetaDate( meta.getDateFrom() ) );
-      data.lookupRowMeta.addValueMeta( new ValueMetaDate( meta.getDateTo() ) );
-    } else {
-      // Null as a start date is NOT possible
-      //
-      sql += " AND ? >= " + dateFromField + Const.CR;
-      sql += " AND ? < " + dateToField + Const.CR;
-
-      data.lookupRowMeta.addValueMeta( new ValueMetaDate( meta.getDateFrom() ) );
-      data.lookupRowMeta.addValueMeta( new ValueMetaDate( meta.getDateTo() ) );
-    }
-
-    try {
-      logDetailed( "Dimension Lookup setting preparedStatement to [" + sql + "]" );
-      data.prepStatementLookup = data.db.getConnection().prepareStatement( databaseMeta.stripCR( sql ) );
-      if ( databaseMeta.supportsSetMaxRows() ) {
-        data.prepStatementLookup.setMaxRows( 1 ); // alywas get only 1 line back!
-      }
-      if ( databaseMeta.getDatabaseInterface().isMySQLVariant() ) {
-        data.prepStatementLookup.setFetchSize( 0 ); // Make sure to DISABLE Streaming Result sets
-      }
-      logDetailed( "Finished preparing dimension lookup statement." );
-    } catch ( SQLException ex ) {
-      throw new KettleDatabaseException( "Unable to prepare dimension lookup", ex );
+      return "( " + dateFromField + " IS NULL OR " + dateFromField + " <= ? )" + Const.CR
+        + " AND " + dateToField + " > ?" + Const.CR;
     }
+    // Null as a start date is NOT possible
+    //
+    return "? >= " + dateFromField + Const.CR
+      + " AND ? < " + dateToField + Const.CR;
   }
 
   protected boolean isAutoIncrement() {
@@ -85,6 +85,9 @@ public class DimensionLookupData extends BaseDatabaseStepData implements StepDat
 
   public List<Integer> lazyList;
 
+  public int batchSize;
+  public List<Object[]> batchRows; // the rows waiting to be looked up in a batch
+
   /**
    * The input row metadata, but converted to normal storage type
    */
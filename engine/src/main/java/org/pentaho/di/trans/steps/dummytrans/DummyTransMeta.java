@@ -116,4 +116,8 @@ public class DummyTransMeta extends BaseStepMeta implements StepMetaInterface {
     return new DummyTransData();
   }
 
+  @Override
+  public boolean supportsCooperativeScheduling() {
+    return true;
+  }
 }
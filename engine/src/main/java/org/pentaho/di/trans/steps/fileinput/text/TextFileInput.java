@@ -17,8 +17,14 @@ package org.pentaho.di.trans.steps.fileinput.text;
 import java.util.Date;
 
 import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.provider.local.LocalFile;
+import org.pentaho.di.core.Const;
 import org.pentaho.di.core.playlist.FilePlayListAll;
 import org.pentaho.di.core.playlist.FilePlayListReplay;
+import org.pentaho.di.core.row.value.ValueMetaBase;
+import org.pentaho.di.core.util.EnvUtil;
+import org.pentaho.di.core.util.Utils;
+import org.pentaho.di.core.vfs.KettleVFS;
 import org.pentaho.di.i18n.BaseMessages;
 import org.pentaho.di.trans.Trans;
 import org.pentaho.di.trans.TransMeta;
@@ -48,6 +54,84 @@ public class TextFileInput extends BaseFileInputStep<TextFileInputMeta, TextFile
     return new TextFileInputReader( this, meta, data, file, log );
   }
 
+  @Override
+  protected boolean openNextFile() {
+    if ( meta.content.runningInParallel && !meta.inputFiles.acceptingFilenames ) {
+      if ( data.parallelRanges == null ) {
+        try {
+          data.parallelRanges = getParallelRanges();
+        } catch ( Exception e ) {
+          logError( BaseMessages.getString( PKG, "TextFileInput.Exception.ErrorPreparingParallelRun" ), e );
+          stopAll();
+          setErrors( getErrors() + 1 );
+          return false;
+        }
+      }
+
+      // Skip the files without rows starting in our block
+      //
+      while ( data.currentFileIndex < data.files.nrOfFiles() && data.parallelRanges[ data.currentFileIndex ] == null ) {
+        data.currentFileIndex++;
+      }
+      if ( data.currentFileIndex < data.files.nrOfFiles() ) {
+        data.startPosition = data.parallelRanges[ data.currentFileIndex ][ 0 ];
+        data.endPosition = data.parallelRanges[ data.currentFileIndex ][ 1 ];
+        if ( log.isDetailed() && data.endPosition >= 0 ) {
+          logDetailed( BaseMessages.getString( PKG, "TextFileInput.Log.ReadingInParallel",
+            data.files.getFile( data.currentFileIndex ).getName().getFriendlyURI(),
+            Long.toString( data.startPosition ), Long.toString( data.endPosition ) ) );
+        }
+      }
+    }
+    return super.openNextFile();
+  }
+
+  /**
+   * Split the files in blocks of the same size, one per step copy: this copy reads the rows starting in its block, a
+   * new line in an enclosed field doesn't start a row. A file that can't be split, because it's compressed, remote,
+   * paged or for another reason, is read by the copy whose block it starts in.
+   */
+  private long[][] getParallelRanges() throws Exception {
+    String enclosure = meta.getEnclosure();
+    boolean lenientEnclosureHandling = ValueMetaBase.convertStringToBoolean( Const.NVL( EnvUtil.getSystemProperty(
+      Const.KETTLE_COMPATIBILITY_TEXT_FILE_INPUT_USE_LENIENT_ENCLOSURE_HANDLING ), "N" ) );
+    boolean enclosedLines = !Utils.isEmpty( enclosure ) && !lenientEnclosureHandling;
+
+    // Only the lines are split: not the pages, the wrapped lines or the footer
+    //
+    String compression = meta.content.fileCompression;
+    boolean splittable = ( Utils.isEmpty( compression ) || "None".equals( compression ) )
+      && !meta.content.layoutPaged && !meta.content.lineWrapped && !meta.content.footer
+      && EncodingType.guessEncodingType( meta.getEncoding() ) == EncodingType.SINGLE;
+    byte[] enclosureBytes = null;
+    if ( enclosedLines ) {
+      splittable &= enclosure.length() == 1 && enclosure.charAt( 0 ) < 0x80
+        && Utils.isEmpty( meta.getEscapeCharacter() );
+      enclosureBytes = new byte[] { (byte) enclosure.charAt( 0 ) };
+    }
+
+    int nrFiles = data.files.nrOfFiles();
+    String[] filenames = new String[ nrFiles ];
+    long[] fileSizes = new long[ nrFiles ];
+    long totalSize = 0L;
+    for ( int i = 0; i < nrFiles; i++ ) {
+      FileObject file = data.files.getFile( i );
+      fileSizes[ i ] = file.getContent().getSize();
+      totalSize += fileSizes[ i ];
+      if ( splittable && file instanceof LocalFile ) {
+        filenames[ i ] = KettleVFS.getFilename( file );
+      }
+    }
+
+    int stepNr = getUniqueStepNrAcrossSlaves();
+    int nrSteps = getUniqueStepCountAcrossSlaves();
+    long blockSize = Math.max( 1L, ( totalSize + nrSteps - 1 ) / nrSteps );
+    long blockStart = blockSize * stepNr;
+    long blockEnd = stepNr == nrSteps - 1 ? Long.MAX_VALUE : blockStart + blockSize;
+    return new TextFileSplitter( enclosureBytes, getTrans() )
+      .getRanges( filenames, fileSizes, blockSize, blockStart, blockEnd );
+  }
+
   @Override
   public boolean init() {
     Date replayDate = getTrans().getReplayDate();
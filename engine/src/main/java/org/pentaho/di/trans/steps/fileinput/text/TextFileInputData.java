@@ -63,6 +63,18 @@ public class TextFileInputData extends BaseFileInputStepData {
 
   public EncodingType encodingType;
 
+  /**
+   * When running in parallel, for each file, the start and the end (excluded) of the bytes to read, an end of -1 to
+   * read all of it, or null to skip it
+   */
+  public long[][] parallelRanges;
+
+  /** The position to start reading the current file at */
+  public long startPosition;
+
+  /** The position to stop reading the current file at, excluded, -1 to read all of it */
+  public long endPosition = -1L;
+
   public TextFileInputData() {
     // linked list is better, as usually .remove(0) is applied to this list
     lineBuffer = new LinkedList<TextFileLine>();
@@ -152,6 +152,10 @@ public class TextFileInputMeta extends BaseFileInputMeta<BaseFileInputAdditional
     @Injection( name = "NO_EMPTY_LINES" )
     public boolean noEmptyLines;
 
+    /** Flag indicating that each copy of the step reads a part of the files, at row boundaries */
+    @Injection( name = "RUNNING_IN_PARALLEL" )
+    public boolean runningInParallel;
+
     /** Flag indicating that we should include the filename in the output */
     @Injection( name = "INCLUDE_FILENAME" )
     public boolean includeFilename;
@@ -293,6 +297,7 @@ public class TextFileInputMeta extends BaseFileInputMeta<BaseFileInputAdditional
 
       String nempty = XMLHandler.getTagValue( stepnode, "noempty" );
       content.noEmptyLines = YES.equalsIgnoreCase( nempty ) || nempty == null;
+      content.runningInParallel = YES.equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "parallel" ) );
       content.includeFilename = YES.equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "include" ) );
       content.filenameField = XMLHandler.getTagValue( stepnode, "include_field" );
       content.includeRowNumber = YES.equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "rownum" ) );
@@ -486,6 +491,7 @@ public class TextFileInputMeta extends BaseFileInputMeta<BaseFileInputAdditional
     content.nrLinesDocHeader = 0;
     content.fileCompression = "None";
     content.noEmptyLines = true;
+    content.runningInParallel = false;
     content.fileFormat = "DOS";
     content.fileType = "CSV";
     content.includeFilename = false;
@@ -708,6 +714,7 @@ public class TextFileInputMeta extends BaseFileInputMeta<BaseFileInputAdditional
     retval.append( "    " ).append( XMLHandler.addTagValue( "nr_lines_per_page", content.nrLinesPerPage ) );
     retval.append( "    " ).append( XMLHandler.addTagValue( "nr_lines_doc_header", content.nrLinesDocHeader ) );
     retval.append( "    " ).append( XMLHandler.addTagValue( "noempty", content.noEmptyLines ) );
+    retval.append( "    " ).append( XMLHandler.addTagValue( "parallel", content.runningInParallel ) );
     retval.append( "    " ).append( XMLHandler.addTagValue( "include", content.includeFilename ) );
     retval.append( "    " ).append( XMLHandler.addTagValue( "include_field", content.filenameField ) );
     retval.append( "    " ).append( XMLHandler.addTagValue( "rownum", content.includeRowNumber ) );
@@ -872,6 +879,7 @@ public class TextFileInputMeta extends BaseFileInputMeta<BaseFileInputAdditional
       content.nrLinesPerPage = (int) rep.getStepAttributeInteger( id_step, "nr_lines_per_page" );
       content.nrLinesDocHeader = (int) rep.getStepAttributeInteger( id_step, "nr_lines_doc_header" );
       content.noEmptyLines = rep.getStepAttributeBoolean( id_step, "noempty" );
+      content.runningInParallel = rep.getStepAttributeBoolean( id_step, "parallel" );
 
       content.includeFilename = rep.getStepAttributeBoolean( id_step, "include" );
       content.filenameField = rep.getStepAttributeString( id_step, "include_field" );
@@ -1012,6 +1020,7 @@ public class TextFileInputMeta extends BaseFileInputMeta<BaseFileInputAdditional
       rep.saveStepAttribute( id_transformation, id_step, "nr_lines_doc_header", content.nrLinesDocHeader );
 
       rep.saveStepAttribute( id_transformation, id_step, "noempty", content.noEmptyLines );
+      rep.saveStepAttribute( id_transformation, id_step, "parallel", content.runningInParallel );
 
       rep.saveStepAttribute( id_transformation, id_step, "include", content.includeFilename );
       rep.saveStepAttribute( id_transformation, id_step, "include_field", content.filenameField );
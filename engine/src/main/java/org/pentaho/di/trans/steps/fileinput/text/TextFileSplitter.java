@@ -0,0 +1,268 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.fileinput.text;
+
+import org.pentaho.di.trans.Trans;
+import org.pentaho.di.trans.steps.csvinput.ByteScanner;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Splits text files in blocks of bytes read in parallel by the copies of a step, at row boundaries: a new line in an
+ * enclosed field doesn't end a row.
+ * <p>
+ * The blocks are the same size and follow each other over all the files. Each enclosure switches between the inside
+ * and the outside of an enclosed field, doubled ones included, so a position is in an enclosed field if there's an odd
+ * number of enclosures before it in its file (RFC 4180). That's found in two passes: the step copy first counts the
+ * enclosures of its own block, while the other copies count theirs, then adds up the counts of the blocks before it in
+ * the same file to know where the first row starting in its block is, and likewise for its end. The counts are shared
+ * by the copies through the transformation, a block no copy counted yet is counted by the first copy needing it.
+ * <p>
+ * The enclosures are only taken into account if they're a single byte, in an encoding with single byte new lines.
+ *
+ * @since 11.1
+ */
+public class TextFileSplitter {
+
+  private static final int BUFFER_SIZE = 65536;
+  private static final String COUNTS_KEY = TextFileSplitter.class.getName() + ".enclosureCounts";
+  private static final byte CR = '\r';
+  private static final byte LF = '\n';
+
+  private final byte enclosure;
+  private final ByteScanner enclosureScanner;
+  private final ByteScanner rowScanner;
+  private final Map<String, CompletableFuture<Boolean>> counts;
+
+  /**
+   * @param enclosure the bytes of the enclosure, null or empty if there's none, or if the new lines in enclosed fields
+   *                  end the rows anyway
+   * @param trans     the transformation sharing the enclosure counts between the step copies, null to not share them
+   */
+  public TextFileSplitter( byte[] enclosure, Trans trans ) {
+    if ( enclosure != null && enclosure.length == 1 ) {
+      this.enclosure = enclosure[ 0 ];
+      enclosureScanner = new ByteScanner( this.enclosure );
+      rowScanner = new ByteScanner( this.enclosure, CR, LF );
+    } else {
+      this.enclosure = 0;
+      enclosureScanner = null;
+      rowScanner = new ByteScanner( CR, LF );
+    }
+    counts = getSharedCounts( trans );
+  }
+
+  /**
+   * @return true if a new line in an enclosed field isn't taken as the end of a row
+   */
+  public boolean isEnclosureAware() {
+    return enclosureScanner != null;
+  }
+
+  /**
+   * Find the rows a step copy reads in each file: those starting in its block.
+   *
+   * @param filenames  the local files, in their order, null for a file that can't be split: it's read by the step
+   *                   copy whose block it starts in, its range ends at -1
+   * @param fileSizes  the sizes of the files
+   * @param blockSize  the size of the blocks, the first starts at the beginning of the first file
+   * @param blockStart the start of the block of the step copy, over all the files
+   * @param blockEnd   the end of the block of the step copy, excluded, Long.MAX_VALUE for the last one
+   * @return for each file, the start and the end (excluded) of the rows to read, or null if there are none
+   */
+  public long[][] getRanges( String[] filenames, long[] fileSizes, long blockSize, long blockStart, long blockEnd )
+    throws IOException {
+    long[][] ranges = new long[ filenames.length ][];
+    long fileOffset = 0L;
+    for ( int i = 0; i < filenames.length && fileOffset < blockEnd; i++ ) {
+      long size = fileSizes[ i ];
+      long fileEnd = fileOffset + size;
+      if ( filenames[ i ] == null || size == 0L ) {
+        if ( fileOffset >= blockStart ) {
+          ranges[ i ] = new long[] { 0L, filenames[ i ] == null ? -1L : 0L };
+        }
+      } else if ( blockStart < fileEnd ) {
+        long start = 0L;
+        long end = size;
+        if ( blockStart > fileOffset || blockEnd < fileEnd ) {
+          try ( FileChannel channel = FileChannel.open( Paths.get( filenames[ i ] ), StandardOpenOption.READ ) ) {
+            if ( isEnclosureAware() && blockEnd < fileEnd ) {
+              // Count our own block first, for us and the next copy, while the copies before us count theirs
+              isOddEnclosureCount( filenames[ i ], channel, Math.max( 0L, blockStart - fileOffset ),
+                blockEnd - fileOffset );
+            }
+            if ( blockStart > fileOffset ) {
+              start = findRowStart( filenames[ i ], channel, fileOffset, blockSize, blockStart - fileOffset );
+            }
+            if ( blockEnd < fileEnd ) {
+              end = findRowStart( filenames[ i ], channel, fileOffset, blockSize, blockEnd - fileOffset );
+            }
+          }
+        }
+        if ( start < end ) {
+          ranges[ i ] = new long[] { start, end };
+        }
+      }
+      fileOffset = fileEnd;
+    }
+    return ranges;
+  }
+
+  /**
+   * @param filename   the file, to share the enclosure counts of its blocks
+   * @param channel    the file to read from
+   * @param fileOffset the position of the file in the blocks: the sum of the sizes of the files before it
+   * @param blockSize  the size of the blocks
+   * @param position   the start of a block in the file
+   * @return the position of the first row starting at or after the given one, the size of the file if there's none
+   */
+  long findRowStart( String filename, FileChannel channel, long fileOffset, long blockSize, long position )
+    throws IOException {
+    boolean inEnclosure = false;
+    if ( isEnclosureAware() ) {
+      long from = 0L;
+      while ( from < position ) {
+        long to = Math.min( ( ( fileOffset + from ) / blockSize + 1 ) * blockSize - fileOffset, position );
+        inEnclosure ^= isOddEnclosureCount( filename, channel, from, to );
+        from = to;
+      }
+    }
+    return findRowStart( channel, position, inEnclosure );
+  }
+
+  /**
+   * @param channel     the file to read from
+   * @param position    the position to start from
+   * @param inEnclosure true if the position is in an enclosed field
+   * @return the position of the first row starting at or after the given one, the size of the file if there's none
+   */
+  long findRowStart( FileChannel channel, long position, boolean inEnclosure ) throws IOException {
+    if ( position <= 0L ) {
+      return 0L;
+    }
+    ByteBuffer buffer = ByteBuffer.allocate( BUFFER_SIZE );
+    byte[] bytes = buffer.array();
+
+    // Start with the byte before the position: a row starts right after a new line
+    //
+    long offset = position - 1;
+    boolean afterReturn = false;
+    while ( true ) {
+      buffer.clear();
+      int n = channel.read( buffer, offset );
+      if ( n <= 0 ) {
+        return offset;
+      }
+      int i = 0;
+      if ( afterReturn ) {
+        return bytes[ 0 ] == LF ? offset + 1 : offset;
+      }
+      while ( i < n ) {
+        i = inEnclosure ? enclosureScanner.indexOf( bytes, i, n ) : rowScanner.indexOf( bytes, i, n );
+        if ( i == n ) {
+          break;
+        }
+        byte b = bytes[ i ];
+        if ( isEnclosureAware() && b == enclosure ) {
+          // The enclosure before the position is already counted
+          if ( offset + i >= position ) {
+            inEnclosure = !inEnclosure;
+          }
+        } else if ( b == LF ) {
+          return offset + i + 1;
+        } else if ( i + 1 < n ) {
+          return bytes[ i + 1 ] == LF ? offset + i + 2 : offset + i + 1;
+        } else {
+          afterReturn = true;
+        }
+        i++;
+      }
+      offset += n;
+    }
+  }
+
+  /**
+   * @return true if there's an odd number of enclosures in [from, to[ of the file
+   */
+  boolean isOddEnclosureCount( String filename, FileChannel channel, long from, long to ) throws IOException {
+    String key = enclosure + "|" + filename + "|" + from + "|" + to;
+    CompletableFuture<Boolean> count = new CompletableFuture<>();
+    CompletableFuture<Boolean> sharedCount = counts.putIfAbsent( key, count );
+    if ( sharedCount != null ) {
+      // Another step copy counts or counted these enclosures
+      try {
+        return sharedCount.get();
+      } catch ( InterruptedException e ) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException( "Interrupted waiting for the enclosures of " + filename + " to be counted" );
+      } catch ( ExecutionException e ) {
+        throw new IOException( e.getCause() );
+      }
+    }
+    try {
+      boolean odd = countEnclosures( channel, from, to ) % 2 == 1;
+      count.complete( odd );
+      return odd;
+    } catch ( IOException | RuntimeException e ) {
+      counts.remove( key, count );
+      count.completeExceptionally( e );
+      throw e;
+    }
+  }
+
+  private long countEnclosures( FileChannel channel, long from, long to ) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate( BUFFER_SIZE );
+    byte[] bytes = buffer.array();
+    long found = 0L;
+    long offset = from;
+    while ( offset < to ) {
+      buffer.clear();
+      buffer.limit( (int) Math.min( BUFFER_SIZE, to - offset ) );
+      int n = channel.read( buffer, offset );
+      if ( n <= 0 ) {
+        break;
+      }
+      for ( int i = enclosureScanner.indexOf( bytes, 0, n ); i < n; i = enclosureScanner.indexOf( bytes, i + 1, n ) ) {
+        found++;
+      }
+      offset += n;
+    }
+    return found;
+  }
+
+  @SuppressWarnings( "unchecked" )
+  private static Map<String, CompletableFuture<Boolean>> getSharedCounts( Trans trans ) {
+    if ( trans == null || trans.getExtensionDataMap() == null ) {
+      return new ConcurrentHashMap<>();
+    }
+    synchronized ( trans ) {
+      Map<String, Object> extensionData = trans.getExtensionDataMap();
+      Object counts = extensionData.get( COUNTS_KEY );
+      if ( !( counts instanceof ConcurrentHashMap ) ) {
+        counts = new ConcurrentHashMap<String, CompletableFuture<Boolean>>();
+        extensionData.put( COUNTS_KEY, counts );
+      }
+      return (Map<String, CompletableFuture<Boolean>>) counts;
+    }
+  }
+}
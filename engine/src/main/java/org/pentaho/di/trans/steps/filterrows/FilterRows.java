@@ -17,9 +17,11 @@ package org.pentaho.di.trans.steps.filterrows;
 import java.util.List;
 
 import org.pentaho.di.core.Const;
+import org.pentaho.di.core.RowSet;
 import org.pentaho.di.core.util.Utils;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.batch.RowBatch;
 import org.pentaho.di.i18n.BaseMessages;
 import org.pentaho.di.trans.Trans;
 import org.pentaho.di.trans.TransMeta;
@@ -64,6 +66,10 @@ public class FilterRows extends BaseStep implements StepInterface {
     meta = (FilterRowsMeta) smi;
     data = (FilterRowsData) sdi;
 
+    if ( data.batchSize > 0 ) {
+      return processRowBatch();
+    }
+
     boolean keep;
 
     Object[] r = getRow(); // Get next usable row from input rowset(s)!
@@ -75,38 +81,7 @@ public class FilterRows extends BaseStep implements StepInterface {
 
     if ( first ) {
       first = false;
-
-      data.outputRowMeta = getInputRowMeta().clone();
-      meta.getFields( getTransMeta().getBowl(), data.outputRowMeta, getStepname(), null, null, this, repository,
-        metaStore );
-
-      // if filter refers to non-existing fields, throw exception
-      checkNonExistingFields();
-
-      // Cache the position of the RowSet for the output.
-      //
-      if ( data.chosesTargetSteps ) {
-        List<StreamInterface> targetStreams = meta.getStepIOMeta().getTargetStreams();
-        if ( !Utils.isEmpty( targetStreams.get( 0 ).getStepname() ) ) {
-          data.trueRowSet = findOutputRowSet( getStepname(), getCopy(), targetStreams.get( 0 ).getStepname(), 0 );
-          if ( data.trueRowSet == null ) {
-            throw new KettleException( BaseMessages.getString(
-              PKG, "FilterRows.Log.TargetStepInvalid", targetStreams.get( 0 ).getStepname() ) );
-          }
-        } else {
-          data.trueRowSet = null;
-        }
-
-        if ( !Utils.isEmpty( targetStreams.get( 1 ).getStepname() ) ) {
-          data.falseRowSet = findOutputRowSet( getStepname(), getCopy(), targetStreams.get( 1 ).getStepname(), 0 );
-          if ( data.falseRowSet == null ) {
-            throw new KettleException( BaseMessages.getString(
-              PKG, "FilterRows.Log.TargetStepInvalid", targetStreams.get( 1 ).getStepname() ) );
-          }
-        } else {
-          data.falseRowSet = null;
-        }
-      }
+      prepareOutput();
     }
 
     keep = keepRow( getInputRowMeta(), r ); // Keep this row?
@@ -141,6 +116,84 @@ public class FilterRows extends BaseStep implements StepInterface {
     return true;
   }
 
+  private void prepareOutput() throws KettleException {
+    data.outputRowMeta = getInputRowMeta().clone();
+    meta.getFields( getTransMeta().getBowl(), data.outputRowMeta, getStepname(), null, null, this, repository,
+      metaStore );
+
+    // if filter refers to non-existing fields, throw exception
+    checkNonExistingFields();
+
+    // Cache the position of the RowSet for the output.
+    //
+    if ( data.chosesTargetSteps ) {
+      List<StreamInterface> targetStreams = meta.getStepIOMeta().getTargetStreams();
+      if ( !Utils.isEmpty( targetStreams.get( 0 ).getStepname() ) ) {
+        data.trueRowSet = findOutputRowSet( getStepname(), getCopy(), targetStreams.get( 0 ).getStepname(), 0 );
+        if ( data.trueRowSet == null ) {
+          throw new KettleException( BaseMessages.getString(
+            PKG, "FilterRows.Log.TargetStepInvalid", targetStreams.get( 0 ).getStepname() ) );
+        }
+      } else {
+        data.trueRowSet = null;
+      }
+
+      if ( !Utils.isEmpty( targetStreams.get( 1 ).getStepname() ) ) {
+        data.falseRowSet = findOutputRowSet( getStepname(), getCopy(), targetStreams.get( 1 ).getStepname(), 0 );
+        if ( data.falseRowSet == null ) {
+          throw new KettleException( BaseMessages.getString(
+            PKG, "FilterRows.Log.TargetStepInvalid", targetStreams.get( 1 ).getStepname() ) );
+        }
+      } else {
+        data.falseRowSet = null;
+      }
+    }
+  }
+
+  private boolean processRowBatch() throws KettleException {
+    RowBatch batch = getRowBatch( data.batchSize );
+    if ( batch == null ) { // no more input to be expected...
+
+      setOutputDone();
+      return false;
+    }
+
+    if ( first ) {
+      first = false;
+      prepareOutput();
+      data.batchPredicate = FilterRowsBatchPredicate.compile( meta.getCondition(), getInputRowMeta() );
+    }
+
+    boolean[] keep = new boolean[ batch.size() ];
+    if ( data.batchPredicate != null ) {
+      data.batchPredicate.evaluate( batch, keep );
+    } else {
+      for ( int i = 0; i < batch.size(); i++ ) {
+        keep[ i ] = keepRow( getInputRowMeta(), batch.getRow( i ) );
+      }
+    }
+
+    if ( !data.chosesTargetSteps ) {
+      batch.select( keep );
+      putRowBatch( data.outputRowMeta, batch );
+    } else {
+      for ( int i = 0; i < batch.size(); i++ ) {
+        RowSet rowSet = keep[ i ] ? data.trueRowSet : data.falseRowSet;
+        if ( rowSet != null ) {
+          putRowTo( data.outputRowMeta, batch.getRow( i ), rowSet );
+        }
+      }
+    }
+
+    if ( checkFeedback( getLinesRead() ) ) {
+      if ( log.isBasic() ) {
+        logBasic( BaseMessages.getString( PKG, "FilterRows.Log.LineNumber" ) + getLinesRead() );
+      }
+    }
+
+    return true;
+  }
+
   /**
    * @see StepInterface#init(org.pentaho.di.trans.step.StepMetaInterface , org.pentaho.di.trans.step.StepDataInterface)
    */
@@ -159,6 +212,7 @@ public class FilterRows extends BaseStep implements StepInterface {
 
       data.chosesTargetSteps =
         targetStreams.get( 0 ).getStepMeta() != null || targetStreams.get( 1 ).getStepMeta() != null;
+      data.batchSize = getRowBatchSize();
       return true;
     }
     return false;
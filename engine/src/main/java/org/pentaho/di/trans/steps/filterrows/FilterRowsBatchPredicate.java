@@ -0,0 +1,207 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+
+package org.pentaho.di.trans.steps.filterrows;
+
+import org.pentaho.di.core.Condition;
+import org.pentaho.di.core.Const;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaAndData;
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.row.batch.ColumnVector;
+import org.pentaho.di.core.row.batch.DoubleColumnVector;
+import org.pentaho.di.core.row.batch.LongColumnVector;
+import org.pentaho.di.core.row.batch.RowBatch;
+
+/**
+ * Evaluates a simple condition on a whole batch of rows at once, straight on the primitive column vectors. Only atomic
+ * conditions comparing an integer or number field with a constant or another field of the same type are supported, as
+ * well as the null checks on such fields. All other conditions are evaluated row by row.
+ *
+ * The results are the same as the ones of {@link Condition#evaluate(RowMetaInterface, Object[])}, including the
+ * ordering of nulls: a null value is smaller than any other value.
+ *
+ * @since 11.1
+ */
+public class FilterRowsBatchPredicate {
+
+  private final int function;
+  private final boolean negate;
+  private final boolean number;
+  private final int leftIndex;
+  private final int rightIndex;
+  private final long longConstant;
+  private final double doubleConstant;
+  private final boolean nullsAsNotZero;
+
+  private FilterRowsBatchPredicate( int function, boolean negate, boolean number, int leftIndex, int rightIndex,
+                                    Object constant ) {
+    this.function = function;
+    this.negate = negate;
+    this.number = number;
+    this.leftIndex = leftIndex;
+    this.rightIndex = rightIndex;
+    this.longConstant = constant instanceof Long ? (Long) constant : 0L;
+    this.doubleConstant = constant instanceof Double ? (Double) constant : 0.0;
+    this.nullsAsNotZero =
+      "Y".equalsIgnoreCase( System.getProperty( Const.KETTLE_FILTER_TREAT_NULLS_AS_NOT_ZERO, "N" ) );
+  }
+
+  /**
+   * @param condition
+   *          the filter condition
+   * @param rowMeta
+   *          the layout of the input rows
+   * @return a batch predicate for the condition or null if it needs to be evaluated row by row.
+   */
+  public static FilterRowsBatchPredicate compile( Condition condition, RowMetaInterface rowMeta ) {
+    if ( condition == null || !condition.isAtomic() || condition.getLeftValuename() == null ) {
+      return null;
+    }
+    int leftIndex = rowMeta.indexOfValue( condition.getLeftValuename() );
+    if ( leftIndex < 0 ) {
+      return null;
+    }
+    ValueMetaInterface leftMeta = rowMeta.getValueMeta( leftIndex );
+    if ( !isPrimitiveNumeric( leftMeta ) ) {
+      return null;
+    }
+    boolean number = leftMeta.getType() == ValueMetaInterface.TYPE_NUMBER;
+
+    int function = condition.getFunction();
+    switch ( function ) {
+      case Condition.FUNC_NULL:
+      case Condition.FUNC_NOT_NULL:
+        return new FilterRowsBatchPredicate( function, condition.isNegated(), number, leftIndex, -1, null );
+      case Condition.FUNC_EQUAL:
+      case Condition.FUNC_NOT_EQUAL:
+      case Condition.FUNC_SMALLER:
+      case Condition.FUNC_SMALLER_EQUAL:
+      case Condition.FUNC_LARGER:
+      case Condition.FUNC_LARGER_EQUAL:
+        break;
+      default:
+        return null;
+    }
+
+    // Same precedence as Condition.evaluate(): a constant wins over a field.
+    //
+    ValueMetaAndData exact = condition.getRightExact();
+    if ( exact != null && exact.getValueData() != null ) {
+      if ( exact.getValueMeta() == null || exact.getValueMeta().getType() != leftMeta.getType()
+        || exact.getValueMeta().getStorageType() != ValueMetaInterface.STORAGE_TYPE_NORMAL ) {
+        return null;
+      }
+      return new FilterRowsBatchPredicate( function, condition.isNegated(), number, leftIndex, -1, exact
+        .getValueData() );
+    }
+    String rightName = condition.getRightValuename();
+    int rightIndex = rightName == null || rightName.length() == 0 ? -1 : rowMeta.indexOfValue( rightName );
+    if ( rightIndex < 0 ) {
+      return null;
+    }
+    ValueMetaInterface rightMeta = rowMeta.getValueMeta( rightIndex );
+    if ( !isPrimitiveNumeric( rightMeta ) || rightMeta.getType() != leftMeta.getType() ) {
+      return null;
+    }
+    return new FilterRowsBatchPredicate( function, condition.isNegated(), number, leftIndex, rightIndex, null );
+  }
+
+  private static boolean isPrimitiveNumeric( ValueMetaInterface valueMeta ) {
+    return valueMeta.getStorageType() == ValueMetaInterface.STORAGE_TYPE_NORMAL
+      && !valueMeta.isSortedDescending()
+      && ( valueMeta.getType() == ValueMetaInterface.TYPE_INTEGER
+        || valueMeta.getType() == ValueMetaInterface.TYPE_NUMBER );
+  }
+
+  /**
+   * Evaluate the condition for all the rows in the batch.
+   *
+   * @param batch
+   *          the rows to evaluate
+   * @param keep
+   *          receives the result for every row in the batch
+   */
+  public void evaluate( RowBatch batch, boolean[] keep ) {
+    int size = batch.size();
+    ColumnVector left = batch.getColumn( leftIndex );
+    ColumnVector right = rightIndex >= 0 ? batch.getColumn( rightIndex ) : null;
+
+    if ( function == Condition.FUNC_NULL || function == Condition.FUNC_NOT_NULL ) {
+      boolean wantNull = function == Condition.FUNC_NULL;
+      for ( int i = 0; i < size; i++ ) {
+        keep[ i ] = ( left.isNull( i ) == wantNull ) != negate;
+      }
+      return;
+    }
+
+    boolean noNulls = left.noNulls( size ) && ( right == null || right.noNulls( size ) );
+    if ( number ) {
+      double[] values = ( (DoubleColumnVector) left ).getValues();
+      double[] others = right == null ? null : ( (DoubleColumnVector) right ).getValues();
+      for ( int i = 0; i < size; i++ ) {
+        int cmp = noNulls ? Integer.MIN_VALUE : compareNulls( left, right, i );
+        if ( cmp == Integer.MIN_VALUE ) {
+          cmp = Double.compare( values[ i ], others == null ? doubleConstant : others[ i ] );
+        }
+        keep[ i ] = matches( cmp, !noNulls && left.isNull( i ) ) != negate;
+      }
+    } else {
+      long[] values = ( (LongColumnVector) left ).getValues();
+      long[] others = right == null ? null : ( (LongColumnVector) right ).getValues();
+      for ( int i = 0; i < size; i++ ) {
+        int cmp = noNulls ? Integer.MIN_VALUE : compareNulls( left, right, i );
+        if ( cmp == Integer.MIN_VALUE ) {
+          cmp = Long.compare( values[ i ], others == null ? longConstant : others[ i ] );
+        }
+        keep[ i ] = matches( cmp, !noNulls && left.isNull( i ) ) != negate;
+      }
+    }
+  }
+
+  /**
+   * @return the comparison result if at least one side is null, Integer.MIN_VALUE if both values need comparing
+   */
+  private static int compareNulls( ColumnVector left, ColumnVector right, int i ) {
+    boolean n1 = left.isNull( i );
+    boolean n2 = right != null && right.isNull( i );
+    if ( n1 && n2 ) {
+      return 0;
+    }
+    if ( n1 ) {
+      return -1;
+    }
+    if ( n2 ) {
+      return 1;
+    }
+    return Integer.MIN_VALUE;
+  }
+
+  private boolean matches( int cmp, boolean leftIsNull ) {
+    switch ( function ) {
+      case Condition.FUNC_EQUAL:
+        return cmp == 0;
+      case Condition.FUNC_NOT_EQUAL:
+        return cmp != 0;
+      case Condition.FUNC_SMALLER:
+        return !( nullsAsNotZero && leftIsNull ) && cmp < 0;
+      case Condition.FUNC_SMALLER_EQUAL:
+        return !( nullsAsNotZero && leftIsNull ) && cmp <= 0;
+      case Condition.FUNC_LARGER:
+        return cmp > 0;
+      default:
+        return cmp >= 0;
+    }
+  }
+}
@@ -33,6 +33,11 @@ public class FilterRowsData extends BaseStepData implements StepDataInterface {
   public String trueStepname;
   public String falseStepname;
 
+  /** The number of rows to process at once, 0 to process row by row */
+  public int batchSize;
+  /** Evaluates the condition on a whole batch, null if the condition is evaluated row by row */
+  public FilterRowsBatchPredicate batchPredicate;
+
   public FilterRowsData() {
     super();
   }
@@ -458,4 +458,9 @@ public class FilterRowsMeta extends BaseStepMeta implements StepMetaInterface {
       log.logError( e.getMessage() );
     }
   }
+
+  @Override
+  public boolean supportsCooperativeScheduling() {
+    return true;
+  }
 }
@@ -266,4 +266,9 @@ public class InjectorMeta extends BaseStepMeta implements StepMetaInterface {
   public StepDataInterface getStepData() {
     return new InjectorData();
   }
+
+  @Override
+  public boolean supportsCooperativeScheduling() {
+    return true;
+  }
 }
@@ -14,6 +14,9 @@
 
 package org.pentaho.di.trans.steps.memgroupby;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -22,6 +25,7 @@ import java.util.TreeSet;
 
 import com.google.common.annotations.VisibleForTesting;
 import org.apache.commons.math3.stat.descriptive.rank.Percentile;
+import org.apache.commons.vfs2.FileObject;
 import org.pentaho.di.core.Const;
 import org.pentaho.di.core.util.Utils;
 import org.pentaho.di.core.exception.KettleException;
@@ -31,10 +35,18 @@ import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueDataUtil;
 import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.row.batch.ColumnVector;
+import org.pentaho.di.core.row.batch.DoubleColumnVector;
+import org.pentaho.di.core.row.batch.LongColumnVector;
+import org.pentaho.di.core.row.batch.RowBatch;
+import org.pentaho.di.core.row.spill.RowSizeEstimator;
+import org.pentaho.di.core.row.spill.RowSpillReader;
+import org.pentaho.di.core.row.spill.RowSpillWriter;
 import org.pentaho.di.core.row.value.ValueMetaBase;
 import org.pentaho.di.core.row.value.ValueMetaInteger;
 import org.pentaho.di.core.row.value.ValueMetaNumber;
 import org.pentaho.di.core.row.value.ValueMetaString;
+import org.pentaho.di.core.vfs.KettleVFS;
 import org.pentaho.di.i18n.BaseMessages;
 import org.pentaho.di.trans.Trans;
 import org.pentaho.di.trans.TransMeta;
@@ -54,6 +66,17 @@ import org.pentaho.di.trans.steps.memgroupby.MemoryGroupByData.HashEntry;
 public class MemoryGroupBy extends BaseStep implements StepInterface {
   private static Class<?> PKG = MemoryGroupByMeta.class; // for i18n purposes, needed by Translator2!!
 
+  /** The accumulators every subject has in the off-heap table */
+  private static final int VALUE = 0;
+  private static final int COUNT = 1;
+  private static final int NULLS = 2;
+  private static final int ACCUMULATORS = 3;
+
+  /** The rows of groups that don't fit in memory are spread over this many partitions, by 4 bits of their hash */
+  private static final int SPILL_PARTITION_BITS = 4;
+  private static final int SPILL_PARTITIONS = 1 << SPILL_PARTITION_BITS;
+  private static final int MAX_SPILL_LEVEL = 32 / SPILL_PARTITION_BITS;
+
   private MemoryGroupByMeta meta;
 
   private MemoryGroupByData data;
@@ -75,6 +98,10 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
     meta = (MemoryGroupByMeta) smi;
     data = (MemoryGroupByData) sdi;
 
+    if ( data.batchSize > 0 && !first ) {
+      return processRowBatch();
+    }
+
     Object[] r = getRow(); // get row!
 
     if ( first ) {
@@ -163,6 +190,10 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
       data.groupAggMeta = new RowMeta();
       data.groupAggMeta.addRowMeta( data.groupMeta );
       data.groupAggMeta.addRowMeta( data.aggMeta );
+
+      if ( r != null ) {
+        initGroupStorage();
+      }
     }
 
     // Here is where we start to do the real work...
@@ -195,25 +226,26 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
   private void handleLastOfGroup() throws KettleException {
     // Dump the content of the map...
     //
-    for ( HashEntry entry : data.map.keySet() ) {
-      Aggregate aggregate = data.map.get( entry );
-      Object[] aggregateResult = getAggregateResult( aggregate );
+    long groups = outputGroups();
 
-      Object[] outputRowData = RowDataUtil.allocateRowData( data.outputRowMeta.size() );
-      int index = 0;
-      for ( int i = 0; i < data.groupMeta.size(); i++ ) {
-        outputRowData[index++] = data.groupMeta.getValueMeta( i ).convertToNormalStorageType( entry.getGroupData()[i] );
-      }
-      for ( int i = 0; i < data.aggMeta.size(); i++ ) {
-        outputRowData[index++] = data.aggMeta.getValueMeta( i ).convertToNormalStorageType( aggregateResult[i] );
-      }
-      putRow( data.outputRowMeta, outputRowData );
+    // The rows of the groups that didn't fit in memory were spread over partitions on disk. All the rows of a group
+    // are in the same partition, so the partitions can be aggregated one at a time.
+    //
+    finishSpilling();
+    while ( !data.spillPartitions.isEmpty() ) {
+      MemoryGroupByData.SpillPartition partition = data.spillPartitions.removeFirst();
+      clearGroups();
+      data.spillLevel = partition.level;
+      aggregatePartition( partition.fileObject );
+      groups += outputGroups();
+      finishSpilling();
     }
+    data.spillLevel = 0;
 
     // What if we always need to give back one row?
     // This means we give back 0 for count all, count distinct, null for everything else
     //
-    if ( data.map.isEmpty() && meta.isAlwaysGivingBackOneRow() ) {
+    if ( groups == 0 && meta.isAlwaysGivingBackOneRow() ) {
       Object[] outputRowData = RowDataUtil.allocateRowData( data.outputRowMeta.size() );
       int index = 0;
       for ( int i = 0; i < data.groupMeta.size(); i++ ) {
@@ -232,6 +264,233 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
     }
   }
 
+  /**
+   * Send out a row for every group in memory.
+   *
+   * @return the number of groups
+   */
+  private long outputGroups() throws KettleException {
+    if ( data.table != null ) {
+      for ( long entry = data.table.firstEntry(); entry >= 0; entry = data.table.nextEntry( entry ) ) {
+        // The keys in the table are in normal storage already
+        putGroupRow( data.table.getKey( entry ), false, toAggregate( entry ) );
+      }
+      return data.table.size();
+    }
+    for ( HashEntry entry : data.map.keySet() ) {
+      putGroupRow( entry.getGroupData(), true, data.map.get( entry ) );
+    }
+    return data.map.size();
+  }
+
+  private void putGroupRow( Object[] groupData, boolean convertGroupData, Aggregate aggregate )
+    throws KettleException {
+    Object[] aggregateResult = getAggregateResult( aggregate );
+
+    Object[] outputRowData = RowDataUtil.allocateRowData( data.outputRowMeta.size() );
+    int index = 0;
+    for ( int i = 0; i < data.groupMeta.size(); i++ ) {
+      outputRowData[index++] = convertGroupData
+        ? data.groupMeta.getValueMeta( i ).convertToNormalStorageType( groupData[i] ) : groupData[i];
+    }
+    for ( int i = 0; i < data.aggMeta.size(); i++ ) {
+      outputRowData[index++] = data.aggMeta.getValueMeta( i ).convertToNormalStorageType( aggregateResult[i] );
+    }
+    putRow( data.outputRowMeta, outputRowData );
+  }
+
+  /**
+   * Aggregate a batch of rows. Consecutive rows of the same group are handled as a run: sums and counts of integer and
+   * number fields are accumulated on the primitive column values of the run, the other aggregates row by row.
+   */
+  private boolean processRowBatch() throws KettleException {
+    RowBatch batch = getRowBatch( data.batchSize );
+    if ( batch == null ) { // no more input to be expected...
+
+      updateValueMeta();
+      handleLastOfGroup();
+
+      setOutputDone();
+      return false;
+    }
+
+    if ( data.newBatch ) {
+      data.newBatch = false;
+    }
+
+    if ( data.table != null ) {
+      addToTable( batch );
+    } else {
+      addToAggregates( batch );
+    }
+
+    if ( checkFeedback( getLinesRead() ) ) {
+      if ( log.isBasic() ) {
+        logBasic( BaseMessages.getString( PKG, "MemoryGroupBy.LineNumber" ) + getLinesRead() );
+      }
+    }
+
+    return true;
+  }
+
+  private void addToAggregates( RowBatch batch ) throws KettleException {
+    if ( data.batchAggregates == null ) {
+      data.batchAggregates = getBatchAggregates();
+    }
+
+    int size = batch.size();
+    Aggregate[] aggregates = new Aggregate[ size ];
+    for ( int r = 0; r < size; r++ ) {
+      aggregates[ r ] = getAggregate( batch.getRow( r ) );
+    }
+
+    for ( int i = 0; i < data.subjectnrs.length; i++ ) {
+      if ( data.batchAggregates[ i ] ) {
+        ColumnVector column = batch.getColumn( data.subjectnrs[ i ] );
+        int start = 0;
+        while ( start < size ) {
+          int end = start + 1;
+          while ( end < size && aggregates[ end ] == aggregates[ start ] ) {
+            end++;
+          }
+          if ( aggregates[ start ] != null ) {
+            addToAggregate( aggregates[ start ], i, column, start, end );
+          }
+          start = end;
+        }
+      } else {
+        for ( int r = 0; r < size; r++ ) {
+          if ( aggregates[ r ] != null ) {
+            addToAggregate( aggregates[ r ], i, batch.getRow( r ) );
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Aggregate a batch of rows in the off-heap table, reading integers and numbers straight from their columns.
+   */
+  private void addToTable( RowBatch batch ) throws KettleException {
+    int size = batch.size();
+    long[] entries = new long[ size ];
+    for ( int r = 0; r < size; r++ ) {
+      entries[ r ] = getEntry( batch.getRow( r ) );
+    }
+
+    for ( int i = 0; i < data.subjectnrs.length; i++ ) {
+      ColumnVector column = meta.getAggregateType()[i] == MemoryGroupByMeta.TYPE_GROUP_COUNT_ANY
+        ? null : batch.getColumn( data.subjectnrs[i] );
+      if ( column instanceof LongColumnVector ) {
+        long[] values = ( (LongColumnVector) column ).getValues();
+        for ( int r = 0; r < size; r++ ) {
+          if ( entries[ r ] >= 0 ) {
+            if ( column.isNull( r ) ) {
+              addNullToEntry( entries[ r ], i );
+            } else {
+              addToEntry( entries[ r ], i, values[ r ] );
+            }
+          }
+        }
+      } else if ( column instanceof DoubleColumnVector ) {
+        double[] values = ( (DoubleColumnVector) column ).getValues();
+        for ( int r = 0; r < size; r++ ) {
+          if ( entries[ r ] >= 0 ) {
+            if ( column.isNull( r ) ) {
+              addNullToEntry( entries[ r ], i );
+            } else {
+              addToEntry( entries[ r ], i, values[ r ] );
+            }
+          }
+        }
+      } else {
+        for ( int r = 0; r < size; r++ ) {
+          if ( entries[ r ] >= 0 ) {
+            addToEntry( entries[ r ], i, batch.getRow( r ) );
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * @return for every subject: true if it's a sum, average or count on an integer or number field in normal storage
+   *         with an aggregate of the same type, which can be calculated on the primitive column values.
+   */
+  private boolean[] getBatchAggregates() {
+    boolean[] batchAggregates = new boolean[ data.subjectnrs.length ];
+    for ( int i = 0; i < data.subjectnrs.length; i++ ) {
+      ValueMetaInterface subjMeta = data.inputRowMeta.getValueMeta( data.subjectnrs[i] );
+      if ( !subjMeta.isStorageNormal() || ( subjMeta.getType() != ValueMetaInterface.TYPE_INTEGER
+        && subjMeta.getType() != ValueMetaInterface.TYPE_NUMBER ) ) {
+        continue;
+      }
+      switch ( meta.getAggregateType()[i] ) {
+        case MemoryGroupByMeta.TYPE_GROUP_SUM:
+        case MemoryGroupByMeta.TYPE_GROUP_AVERAGE:
+          batchAggregates[i] = data.aggMeta.getValueMeta( i ).getType() == subjMeta.getType();
+          break;
+        case MemoryGroupByMeta.TYPE_GROUP_COUNT_ALL:
+        case MemoryGroupByMeta.TYPE_GROUP_COUNT_ANY:
+          batchAggregates[i] = true;
+          break;
+        default:
+          break;
+      }
+    }
+    return batchAggregates;
+  }
+
+  /**
+   * Add the values of a run of rows that all belong to the same aggregate. The values are added in row order, starting
+   * from the current value of the aggregate, so the result is exactly the same as when adding them row by row.
+   */
+  private void addToAggregate( Aggregate aggregate, int i, ColumnVector column, int start, int end )
+    throws KettleException {
+    int type = meta.getAggregateType()[i];
+    if ( type == MemoryGroupByMeta.TYPE_GROUP_COUNT_ANY ) {
+      aggregate.counts[i] += end - start;
+      return;
+    }
+
+    int nonNulls = 0;
+    Object sum = null;
+    if ( column instanceof LongColumnVector ) {
+      long[] values = ( (LongColumnVector) column ).getValues();
+      long total = aggregate.agg[i] == null ? 0L : (Long) aggregate.agg[i];
+      for ( int r = start; r < end; r++ ) {
+        if ( !column.isNull( r ) ) {
+          total += values[ r ];
+          nonNulls++;
+        }
+      }
+      sum = total;
+    } else {
+      double[] values = ( (DoubleColumnVector) column ).getValues();
+      double total = aggregate.agg[i] == null ? 0.0 : (Double) aggregate.agg[i];
+      for ( int r = start; r < end; r++ ) {
+        if ( !column.isNull( r ) ) {
+          total += values[ r ];
+          nonNulls++;
+        }
+      }
+      sum = total;
+    }
+
+    if ( type == MemoryGroupByMeta.TYPE_GROUP_COUNT_ALL ) {
+      aggregate.counts[i] += nonNulls;
+    } else if ( nonNulls > 0 ) {
+      if ( aggregate.agg[i] == null ) {
+        // Same as ValueDataUtil.sum() when it meets the first value
+        data.aggMeta.getValueMeta( i ).setStorageType( ValueMetaInterface.STORAGE_TYPE_NORMAL );
+      }
+      aggregate.agg[i] = sum;
+      if ( type == MemoryGroupByMeta.TYPE_GROUP_AVERAGE ) {
+        aggregate.counts[i] += nonNulls;
+      }
+    }
+  }
+
   @VisibleForTesting
   void updateValueMeta() throws KettleException {
 
@@ -253,16 +512,49 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
    * @param r
    * @throws KettleException
    */
-  @SuppressWarnings( "unchecked" ) void addToAggregate( Object[] r ) throws KettleException {
+  void addToAggregate( Object[] r ) throws KettleException {
+    if ( data.table != null ) {
+      long entry = getEntry( r );
+      if ( entry >= 0 ) {
+        for ( int i = 0; i < data.subjectnrs.length; i++ ) {
+          addToEntry( entry, i, r );
+        }
+      }
+      return;
+    }
 
+    Aggregate aggregate = getAggregate( r );
+    if ( aggregate != null ) {
+      for ( int i = 0; i < data.subjectnrs.length; i++ ) {
+        addToAggregate( aggregate, i, r );
+      }
+    }
+  }
+
+  private Object[] getGroupData( Object[] r ) {
     Object[] groupData = new Object[data.groupMeta.size()];
     for ( int i = 0; i < data.groupnrs.length; i++ ) {
       groupData[i] = r[data.groupnrs[i]];
     }
+    return groupData;
+  }
+
+  /**
+   * Look up the aggregate of the group the row belongs to, create it if this is the first row of the group.
+   *
+   * @return the aggregate or null if the group doesn't fit in memory and the row was spilled to disk
+   */
+  private Aggregate getAggregate( Object[] r ) throws KettleException {
+    Object[] groupData = getGroupData( r );
     HashEntry entry = data.getHashEntry( groupData );
 
     Aggregate aggregate = data.map.get( entry );
     if ( aggregate == null ) {
+      if ( data.spilling ) {
+        spillRow( entry.hashCode(), r );
+        return null;
+      }
+
       // Create a new value...
       //
       aggregate = new Aggregate();
@@ -271,137 +563,432 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
       // Store it in the map!
       //
       data.map.put( entry, aggregate );
+
+      if ( data.memoryBudget > 0 ) {
+        // The key, the aggregate with its arrays and the map entry
+        data.mapBytes += RowSizeEstimator.estimateSize( groupData ) + 160 + 24L * data.subjectnrs.length;
+        if ( data.mapBytes > data.memoryBudget ) {
+          startSpilling( data.map.size(), data.mapBytes );
+        }
+      }
     }
+    return aggregate;
+  }
 
-    for ( int i = 0; i < data.subjectnrs.length; i++ ) {
-      Object subj = r[data.subjectnrs[i]];
-      ValueMetaInterface subjMeta = data.inputRowMeta.getValueMeta( data.subjectnrs[i] );
-      Object value = aggregate.agg[i];
-      ValueMetaInterface valueMeta = data.aggMeta.getValueMeta( i );
+  /**
+   * Look up the entry of the group the row belongs to in the off-heap table, add it if this is the first row of the
+   * group.
+   *
+   * @return the entry or -1 if the group doesn't fit in memory and the row was spilled to disk
+   */
+  private long getEntry( Object[] r ) throws KettleException {
+    Object[] groupData = getGroupData( r );
+    int size = data.table.size();
+    long entry = data.table.lookup( groupData, !data.spilling );
+    if ( entry < 0 ) {
+      if ( !data.spilling ) {
+        // The table can't grow any further
+        startSpilling( size, data.table.getMemoryUsage() );
+        if ( !data.spilling ) {
+          throw new KettleException( BaseMessages.getString( PKG, "MemoryGroupBy.Exception.OffHeapTableFull",
+            String.valueOf( size ) ) );
+        }
+      }
+      spillRow( data.getHashEntry( groupData ).hashCode(), r );
+    } else if ( data.memoryBudget > 0 && data.table.size() > size
+      && data.table.getMemoryUsage() > data.memoryBudget ) {
+      startSpilling( data.table.size(), data.table.getMemoryUsage() );
+    }
+    return entry;
+  }
+
+  private void addToEntry( long entry, int i, Object[] r ) throws KettleValueException {
+    Object subj = r[data.subjectnrs[i]];
+    ValueMetaInterface subjMeta = data.inputRowMeta.getValueMeta( data.subjectnrs[i] );
+    int type = meta.getAggregateType()[i];
+    if ( type == MemoryGroupByMeta.TYPE_GROUP_COUNT_ANY || type == MemoryGroupByMeta.TYPE_GROUP_COUNT_ALL ) {
+      // Count all can have a subject of any type
+      if ( subjMeta.isNull( subj ) ) {
+        addNullToEntry( entry, i );
+      } else {
+        addToEntry( entry, i, 0L );
+      }
+    } else if ( subj == null ) {
+      addNullToEntry( entry, i );
+    } else if ( subjMeta.getType() == ValueMetaInterface.TYPE_INTEGER ) {
+      addToEntry( entry, i, (Long) subj );
+    } else {
+      addToEntry( entry, i, (Double) subj );
+    }
+  }
+
+  private void addNullToEntry( long entry, int i ) {
+    int accumulator = i * ACCUMULATORS;
+    switch ( meta.getAggregateType()[i] ) {
+      case MemoryGroupByMeta.TYPE_GROUP_COUNT_ANY:
+        data.table.setLong( entry, accumulator + COUNT, data.table.getLong( entry, accumulator + COUNT ) + 1 );
+        break;
+      case MemoryGroupByMeta.TYPE_GROUP_MIN:
+        data.table.setLong( entry, accumulator + NULLS, data.table.getLong( entry, accumulator + NULLS ) + 1 );
+        break;
+      default:
+        break;
+    }
+  }
 
+  private void addToEntry( long entry, int i, long subj ) {
+    int accumulator = i * ACCUMULATORS;
+    long count = data.table.getLong( entry, accumulator + COUNT );
+    long value = data.table.getLong( entry, accumulator + VALUE );
+    switch ( meta.getAggregateType()[i] ) {
+      case MemoryGroupByMeta.TYPE_GROUP_SUM:
+      case MemoryGroupByMeta.TYPE_GROUP_AVERAGE:
+        data.table.setLong( entry, accumulator + VALUE, value + subj );
+        break;
+      case MemoryGroupByMeta.TYPE_GROUP_MIN:
+        if ( count == 0 || subj < value ) {
+          data.table.setLong( entry, accumulator + VALUE, subj );
+        }
+        break;
+      case MemoryGroupByMeta.TYPE_GROUP_MAX:
+        if ( count == 0 || subj > value ) {
+          data.table.setLong( entry, accumulator + VALUE, subj );
+        }
+        break;
+      default:
+        break;
+    }
+    data.table.setLong( entry, accumulator + COUNT, count + 1 );
+  }
+
+  private void addToEntry( long entry, int i, double subj ) {
+    int accumulator = i * ACCUMULATORS;
+    long count = data.table.getLong( entry, accumulator + COUNT );
+    double value = data.table.getDouble( entry, accumulator + VALUE );
+    switch ( meta.getAggregateType()[i] ) {
+      case MemoryGroupByMeta.TYPE_GROUP_SUM:
+      case MemoryGroupByMeta.TYPE_GROUP_AVERAGE:
+        data.table.setDouble( entry, accumulator + VALUE, value + subj );
+        break;
+      case MemoryGroupByMeta.TYPE_GROUP_MIN:
+        if ( count == 0 || Double.compare( subj, value ) < 0 ) {
+          data.table.setDouble( entry, accumulator + VALUE, subj );
+        }
+        break;
+      case MemoryGroupByMeta.TYPE_GROUP_MAX:
+        if ( count == 0 || Double.compare( subj, value ) > 0 ) {
+          data.table.setDouble( entry, accumulator + VALUE, subj );
+        }
+        break;
+      default:
+        break;
+    }
+    data.table.setLong( entry, accumulator + COUNT, count + 1 );
+  }
+
+  /**
+   * Turn the accumulators of an entry of the off-heap table into the aggregate the same rows would have given on the
+   * heap.
+   */
+  private Aggregate toAggregate( long entry ) {
+    Aggregate aggregate = new Aggregate();
+    aggregate.counts = new long[data.subjectnrs.length];
+    aggregate.agg = new Object[data.subjectnrs.length];
+    for ( int i = 0; i < data.subjectnrs.length; i++ ) {
+      int accumulator = i * ACCUMULATORS;
+      long count = data.table.getLong( entry, accumulator + COUNT );
+      aggregate.counts[i] = count;
       switch ( meta.getAggregateType()[i] ) {
+        case MemoryGroupByMeta.TYPE_GROUP_MIN:
+          if ( minNullIsValued && data.table.getLong( entry, accumulator + NULLS ) > 0 ) {
+            break;
+          }
+          // fall through
         case MemoryGroupByMeta.TYPE_GROUP_SUM:
-          aggregate.agg[i] = ValueDataUtil.sum( valueMeta, value, subjMeta, subj );
-          break;
         case MemoryGroupByMeta.TYPE_GROUP_AVERAGE:
-          if ( !subjMeta.isNull( subj ) ) {
-            aggregate.agg[i] = ValueDataUtil.sum( valueMeta, value, subjMeta, subj );
-            aggregate.counts[i]++;
-          }
-          break;
-        case MemoryGroupByMeta.TYPE_GROUP_MEDIAN:
-        case MemoryGroupByMeta.TYPE_GROUP_PERCENTILE:
-          if ( !subjMeta.isNull( subj ) ) {
-            ( (List<Double>) aggregate.agg[i] ).add( subjMeta.getNumber( subj ) );
-          }
-          break;
-        case MemoryGroupByMeta.TYPE_GROUP_STANDARD_DEVIATION:
-          if ( aggregate.mean == null ) {
-            aggregate.mean = new double[meta.getSubjectField().length];
-          }
-          aggregate.counts[i]++;
-          double n = aggregate.counts[i];
-          double x = subjMeta.getNumber( subj );
-          // for standard deviation null is exact 0
-          double sum = value == null ? new Double( 0 ) : (Double) value;
-          double mean = aggregate.mean[i];
-
-          double delta = x - mean;
-          mean = mean + ( delta / n );
-          sum = sum + delta * ( x - mean );
-
-          aggregate.mean[i] = mean;
-          aggregate.agg[i] = sum;
-          break;
-        case MemoryGroupByMeta.TYPE_GROUP_COUNT_DISTINCT:
-          if ( aggregate.distinctObjs == null ) {
-            aggregate.distinctObjs = new Set[meta.getSubjectField().length];
-          }
-          if ( aggregate.distinctObjs[i] == null ) {
-            aggregate.distinctObjs[i] = new TreeSet<>();
-          }
-          if ( !subjMeta.isNull( subj ) ) {
-            Object obj = subjMeta.convertToNormalStorageType( subj );
-            // byte [] is not Comparable and can not be added to TreeSet.
-            // For our case it can be binary array. It was typed as String.
-            // So it can be processing (comparing and displaying) correctly as String
-            if ( obj instanceof byte [] ) {
-              obj = new String( (byte []) obj );
-            }
-            if ( !aggregate.distinctObjs[i].contains( obj ) ) {
-              aggregate.distinctObjs[i].add( obj );
+        case MemoryGroupByMeta.TYPE_GROUP_MAX:
+          if ( count > 0 ) {
+            if ( data.inputRowMeta.getValueMeta( data.subjectnrs[i] ).getType() == ValueMetaInterface.TYPE_INTEGER ) {
+              aggregate.agg[i] = data.table.getLong( entry, accumulator + VALUE );
+            } else {
+              aggregate.agg[i] = data.table.getDouble( entry, accumulator + VALUE );
             }
           }
-          aggregate.counts[i] = aggregate.distinctObjs[i].size();
           break;
-        case MemoryGroupByMeta.TYPE_GROUP_COUNT_ALL:
-          if ( !subjMeta.isNull( subj ) ) {
-            aggregate.counts[i]++;
-          }
+        default:
           break;
+      }
+    }
+    return aggregate;
+  }
+
+  /**
+   * Decide where the groups are kept: in the off-heap table if the key and all the aggregates allow it, on the heap
+   * otherwise.
+   */
+  private void initGroupStorage() {
+    data.memoryBudget = RowSizeEstimator.toBytes( getVariable( Const.KETTLE_MEMORY_GROUP_BY_MEMORY_BUDGET ), 0L );
+    boolean offHeap = ValueMetaBase.convertStringToBoolean( getVariable( Const.KETTLE_MEMORY_GROUP_BY_OFF_HEAP, "Y" ) );
+    if ( offHeap && OffHeapAggregationTable.isSupported( data.groupMeta ) && isOffHeapAggregates() ) {
+      data.table = new OffHeapAggregationTable( data.groupMeta, data.subjectnrs.length * ACCUMULATORS );
+      if ( log.isDetailed() ) {
+        logDetailed( BaseMessages.getString( PKG, "MemoryGroupBy.Log.OffHeap" ) );
+      }
+    }
+  }
+
+  /**
+   * @return true if all the aggregates are counts, or sums, averages, minimums and maximums of integers or numbers in
+   *         normal storage, with a result of the same type.
+   */
+  private boolean isOffHeapAggregates() {
+    for ( int i = 0; i < data.subjectnrs.length; i++ ) {
+      ValueMetaInterface subjMeta = data.inputRowMeta.getValueMeta( data.subjectnrs[i] );
+      boolean numeric = subjMeta.isStorageNormal() && ( subjMeta.getType() == ValueMetaInterface.TYPE_INTEGER
+        || subjMeta.getType() == ValueMetaInterface.TYPE_NUMBER );
+      switch ( meta.getAggregateType()[i] ) {
+        case MemoryGroupByMeta.TYPE_GROUP_COUNT_ALL:
         case MemoryGroupByMeta.TYPE_GROUP_COUNT_ANY:
-          aggregate.counts[i]++;
           break;
-        case MemoryGroupByMeta.TYPE_GROUP_MIN:
-          boolean subjIsNull = subjMeta.isNull( subj );
-          boolean valueIsNull = valueMeta.isNull( value );
-          if ( minNullIsValued || ( !subjIsNull && !valueIsNull ) ) {
-            // PDI-11530 do not compare null
-            aggregate.agg[i] = subjMeta.compare( subj, valueMeta, value ) < 0 ? subj : value;
-          } else if ( valueIsNull && !subjIsNull ) {
-            // By default set aggregate to first not null value
-            aggregate.agg[i] = subj;
+        case MemoryGroupByMeta.TYPE_GROUP_SUM:
+        case MemoryGroupByMeta.TYPE_GROUP_AVERAGE:
+          if ( !numeric || data.aggMeta.getValueMeta( i ).getType() != subjMeta.getType() ) {
+            return false;
           }
           break;
+        case MemoryGroupByMeta.TYPE_GROUP_MIN:
         case MemoryGroupByMeta.TYPE_GROUP_MAX:
-          if ( subjMeta.compare( subj, valueMeta, value ) > 0 ) {
-            aggregate.agg[i] = subj;
-          }
-          break;
-        case MemoryGroupByMeta.TYPE_GROUP_FIRST:
-          if ( !subjMeta.isNull( subj ) && value == null ) {
-            aggregate.agg[i] = subj;
+          if ( !numeric ) {
+            return false;
           }
           break;
-        case MemoryGroupByMeta.TYPE_GROUP_LAST:
-          if ( !subjMeta.isNull( subj ) ) {
-            aggregate.agg[i] = subj;
+        default:
+          return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Stop adding groups: from now on the rows of groups that aren't in memory yet are written to disk, partitioned on
+   * the hash of their group. Once all the hash bits are used up the groups stay in memory, whatever the budget.
+   */
+  private void startSpilling( long groups, long bytes ) {
+    if ( data.spillLevel >= MAX_SPILL_LEVEL ) {
+      return;
+    }
+    data.spilling = true;
+    data.spillFiles = new FileObject[ SPILL_PARTITIONS ];
+    data.spillWriters = new RowSpillWriter[ SPILL_PARTITIONS ];
+    if ( log.isDetailed() ) {
+      logDetailed( BaseMessages.getString( PKG, "MemoryGroupBy.Log.StartSpilling", bytes, groups, data.spillLevel ) );
+    }
+  }
+
+  private void spillRow( int hash, Object[] r ) throws KettleException {
+    int partition =
+      ( OffHeapAggregationTable.mix( hash ) >>> ( data.spillLevel * SPILL_PARTITION_BITS ) ) & ( SPILL_PARTITIONS - 1 );
+    if ( data.spillWriters[ partition ] == null ) {
+      try {
+        FileObject fileObject = KettleVFS.getInstance( getTransMeta().getBowl() )
+          .createTempFile( "memgroupby", ".tmp", environmentSubstitute( "%%java.io.tmpdir%%" ), getTransMeta() );
+        data.spillFiles[ partition ] = fileObject;
+        data.spillWriters[ partition ] = new RowSpillWriter( data.inputRowMeta, new BufferedOutputStream(
+          KettleVFS.getInstance( getTransMeta().getBowl() ).getOutputStream( fileObject, false ), 65536 ) );
+      } catch ( Exception e ) {
+        throw new KettleException( BaseMessages.getString( PKG, "MemoryGroupBy.Exception.UnableToCreateTemporaryFile" ),
+          e );
+      }
+    }
+    data.spillWriters[ partition ].writeRow( r );
+  }
+
+  /**
+   * Close the spill files of the rows being aggregated and queue them up, before the partitions that are still waiting.
+   */
+  private void finishSpilling() throws KettleException {
+    if ( !data.spilling ) {
+      return;
+    }
+    for ( int partition = SPILL_PARTITIONS - 1; partition >= 0; partition-- ) {
+      if ( data.spillWriters[ partition ] != null ) {
+        try {
+          data.spillWriters[ partition ].close();
+        } catch ( IOException e ) {
+          throw new KettleException( BaseMessages.getString( PKG, "MemoryGroupBy.Exception.UnableToCreateTemporaryFile" ),
+            e );
+        }
+        data.spillPartitions.addFirst(
+          new MemoryGroupByData.SpillPartition( data.spillFiles[ partition ], data.spillLevel + 1 ) );
+      }
+    }
+    data.spilling = false;
+    data.spillWriters = null;
+    data.spillFiles = null;
+  }
+
+  private void aggregatePartition( FileObject fileObject ) throws KettleException {
+    if ( log.isDetailed() ) {
+      logDetailed( BaseMessages.getString( PKG, "MemoryGroupBy.Log.AggregatingPartition", fileObject.toString() ) );
+    }
+    try ( RowSpillReader reader = new RowSpillReader( data.inputRowMeta,
+      new BufferedInputStream( KettleVFS.getInputStream( fileObject ), 65536 ) ) ) {
+      for ( Object[] row = reader.readRow(); row != null; row = reader.readRow() ) {
+        addToAggregate( row );
+      }
+    } catch ( IOException e ) {
+      throw new KettleException(
+        BaseMessages.getString( PKG, "MemoryGroupBy.Exception.UnableToReadBackRowFromTemporaryFile" ), e );
+    } finally {
+      deleteSpillFile( fileObject );
+    }
+  }
+
+  private void deleteSpillFile( FileObject fileObject ) {
+    try {
+      fileObject.delete();
+    } catch ( IOException e ) {
+      logError( e.getLocalizedMessage(), e );
+    }
+  }
+
+  private void clearGroups() {
+    data.map.clear();
+    data.mapBytes = 0L;
+    if ( data.table != null ) {
+      data.table.clear();
+    }
+  }
+
+  @SuppressWarnings( "unchecked" )
+  private void addToAggregate( Aggregate aggregate, int i, Object[] r ) throws KettleException {
+    Object subj = r[data.subjectnrs[i]];
+    ValueMetaInterface subjMeta = data.inputRowMeta.getValueMeta( data.subjectnrs[i] );
+    Object value = aggregate.agg[i];
+    ValueMetaInterface valueMeta = data.aggMeta.getValueMeta( i );
+
+    switch ( meta.getAggregateType()[i] ) {
+      case MemoryGroupByMeta.TYPE_GROUP_SUM:
+        aggregate.agg[i] = ValueDataUtil.sum( valueMeta, value, subjMeta, subj );
+        break;
+      case MemoryGroupByMeta.TYPE_GROUP_AVERAGE:
+        if ( !subjMeta.isNull( subj ) ) {
+          aggregate.agg[i] = ValueDataUtil.sum( valueMeta, value, subjMeta, subj );
+          aggregate.counts[i]++;
+        }
+        break;
+      case MemoryGroupByMeta.TYPE_GROUP_MEDIAN:
+      case MemoryGroupByMeta.TYPE_GROUP_PERCENTILE:
+        if ( !subjMeta.isNull( subj ) ) {
+          ( (List<Double>) aggregate.agg[i] ).add( subjMeta.getNumber( subj ) );
+        }
+        break;
+      case MemoryGroupByMeta.TYPE_GROUP_STANDARD_DEVIATION:
+        if ( aggregate.mean == null ) {
+          aggregate.mean = new double[meta.getSubjectField().length];
+        }
+        aggregate.counts[i]++;
+        double n = aggregate.counts[i];
+        double x = subjMeta.getNumber( subj );
+        // for standard deviation null is exact 0
+        double sum = value == null ? new Double( 0 ) : (Double) value;
+        double mean = aggregate.mean[i];
+
+        double delta = x - mean;
+        mean = mean + ( delta / n );
+        sum = sum + delta * ( x - mean );
+
+        aggregate.mean[i] = mean;
+        aggregate.agg[i] = sum;
+        break;
+      case MemoryGroupByMeta.TYPE_GROUP_COUNT_DISTINCT:
+        if ( aggregate.distinctObjs == null ) {
+          aggregate.distinctObjs = new Set[meta.getSubjectField().length];
+        }
+        if ( aggregate.distinctObjs[i] == null ) {
+          aggregate.distinctObjs[i] = new TreeSet<>();
+        }
+        if ( !subjMeta.isNull( subj ) ) {
+          Object obj = subjMeta.convertToNormalStorageType( subj );
+          // byte [] is not Comparable and can not be added to TreeSet.
+          // For our case it can be binary array. It was typed as String.
+          // So it can be processing (comparing and displaying) correctly as String
+          if ( obj instanceof byte [] ) {
+            obj = new String( (byte []) obj );
           }
-          break;
-        case MemoryGroupByMeta.TYPE_GROUP_FIRST_INCL_NULL:
-          if ( aggregate.counts[i] == 0 ) {
-            aggregate.agg[i] = subj;
-            aggregate.counts[i]++;
+          if ( !aggregate.distinctObjs[i].contains( obj ) ) {
+            aggregate.distinctObjs[i].add( obj );
           }
-          break;
-        case MemoryGroupByMeta.TYPE_GROUP_LAST_INCL_NULL:
+        }
+        aggregate.counts[i] = aggregate.distinctObjs[i].size();
+        break;
+      case MemoryGroupByMeta.TYPE_GROUP_COUNT_ALL:
+        if ( !subjMeta.isNull( subj ) ) {
+          aggregate.counts[i]++;
+        }
+        break;
+      case MemoryGroupByMeta.TYPE_GROUP_COUNT_ANY:
+        aggregate.counts[i]++;
+        break;
+      case MemoryGroupByMeta.TYPE_GROUP_MIN:
+        boolean subjIsNull = subjMeta.isNull( subj );
+        boolean valueIsNull = valueMeta.isNull( value );
+        if ( minNullIsValued || ( !subjIsNull && !valueIsNull ) ) {
+          // PDI-11530 do not compare null
+          aggregate.agg[i] = subjMeta.compare( subj, valueMeta, value ) < 0 ? subj : value;
+        } else if ( valueIsNull && !subjIsNull ) {
+          // By default set aggregate to first not null value
           aggregate.agg[i] = subj;
-          break;
-        case MemoryGroupByMeta.TYPE_GROUP_CONCAT_COMMA:
-          if ( !( subj == null ) ) {
-            StringBuilder sb = (StringBuilder) value;
-            if ( sb.length() > 0 ) {
-              sb.append( ", " );
-            }
-            sb.append( subjMeta.getString( subj ) );
+        }
+        break;
+      case MemoryGroupByMeta.TYPE_GROUP_MAX:
+        if ( subjMeta.compare( subj, valueMeta, value ) > 0 ) {
+          aggregate.agg[i] = subj;
+        }
+        break;
+      case MemoryGroupByMeta.TYPE_GROUP_FIRST:
+        if ( !subjMeta.isNull( subj ) && value == null ) {
+          aggregate.agg[i] = subj;
+        }
+        break;
+      case MemoryGroupByMeta.TYPE_GROUP_LAST:
+        if ( !subjMeta.isNull( subj ) ) {
+          aggregate.agg[i] = subj;
+        }
+        break;
+      case MemoryGroupByMeta.TYPE_GROUP_FIRST_INCL_NULL:
+        if ( aggregate.counts[i] == 0 ) {
+          aggregate.agg[i] = subj;
+          aggregate.counts[i]++;
+        }
+        break;
+      case MemoryGroupByMeta.TYPE_GROUP_LAST_INCL_NULL:
+        aggregate.agg[i] = subj;
+        break;
+      case MemoryGroupByMeta.TYPE_GROUP_CONCAT_COMMA:
+        if ( !( subj == null ) ) {
+          StringBuilder sb = (StringBuilder) value;
+          if ( sb.length() > 0 ) {
+            sb.append( ", " );
           }
-          break;
-        case MemoryGroupByMeta.TYPE_GROUP_CONCAT_STRING:
-          if ( !( subj == null ) ) {
-            String separator = "";
-            if ( !Utils.isEmpty( meta.getValueField()[i] ) ) {
-              separator = environmentSubstitute( meta.getValueField()[i] );
-            }
-            StringBuilder sb = (StringBuilder) value;
-            if ( sb.length() > 0 ) {
-              sb.append( separator );
-            }
-            sb.append( subjMeta.getString( subj ) );
+          sb.append( subjMeta.getString( subj ) );
+        }
+        break;
+      case MemoryGroupByMeta.TYPE_GROUP_CONCAT_STRING:
+        if ( !( subj == null ) ) {
+          String separator = "";
+          if ( !Utils.isEmpty( meta.getValueField()[i] ) ) {
+            separator = environmentSubstitute( meta.getValueField()[i] );
           }
-          break;
-        default:
-          break;
-      }
+          StringBuilder sb = (StringBuilder) value;
+          if ( sb.length() > 0 ) {
+            sb.append( separator );
+          }
+          sb.append( subjMeta.getString( subj ) );
+        }
+        break;
+      default:
+        break;
     }
   }
 
@@ -576,6 +1163,7 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
 
     if ( super.init( smi, sdi ) ) {
       data.map = new HashMap<HashEntry, Aggregate>( 5000 );
+      data.batchSize = getRowBatchSize();
       return true;
     }
     return false;
@@ -584,7 +1172,26 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
   @Override
   public void dispose( StepMetaInterface smi, StepDataInterface sdi ) {
     super.dispose( smi, sdi );
-    ( (MemoryGroupByData) sdi ).clear();
+    MemoryGroupByData groupByData = (MemoryGroupByData) sdi;
+
+    // Clean up the spill files left behind by an error or a stop
+    //
+    if ( groupByData.spillWriters != null ) {
+      for ( int partition = 0; partition < SPILL_PARTITIONS; partition++ ) {
+        if ( groupByData.spillWriters[ partition ] != null ) {
+          closeQuietly( groupByData.spillWriters[ partition ] );
+          deleteSpillFile( groupByData.spillFiles[ partition ] );
+        }
+      }
+      groupByData.spillWriters = null;
+      groupByData.spillFiles = null;
+    }
+    for ( MemoryGroupByData.SpillPartition partition : groupByData.spillPartitions ) {
+      deleteSpillFile( partition.fileObject );
+    }
+    groupByData.spillPartitions.clear();
+
+    groupByData.clear();
   }
 
   @Override
@@ -595,7 +1202,7 @@ public class MemoryGroupBy extends BaseStep implements StepInterface {
 
     // Clear the complete cache...
     //
-    data.map.clear();
+    clearGroups();
 
     data.newBatch = true;
   }
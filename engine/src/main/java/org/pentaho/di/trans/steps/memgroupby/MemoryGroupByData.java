@@ -14,10 +14,14 @@
 
 package org.pentaho.di.trans.steps.memgroupby;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.HashMap;
 
+import org.apache.commons.vfs2.FileObject;
 import org.pentaho.di.core.exception.KettleValueException;
 import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.spill.RowSpillWriter;
 import org.pentaho.di.core.row.ValueMetaInterface;
 import org.pentaho.di.trans.step.BaseStepData;
 import org.pentaho.di.trans.step.StepDataInterface;
@@ -67,8 +71,23 @@ public class MemoryGroupByData extends BaseStepData implements StepDataInterface
     }
   }
 
+  /**
+   * A partition of the rows of the groups that didn't fit in memory
+   */
+  public static class SpillPartition {
+    public final FileObject fileObject;
+    public final int level;
+
+    public SpillPartition( FileObject fileObject, int level ) {
+      this.fileObject = fileObject;
+      this.level = level;
+    }
+  }
+
   public HashMap<HashEntry, Aggregate> map;
 
+  public OffHeapAggregationTable table; // holds the groups instead of the map if all aggregates can be kept off-heap
+
   public RowMetaInterface aggMeta;
   public RowMetaInterface groupMeta;
   public RowMetaInterface entryMeta;
@@ -91,6 +110,18 @@ public class MemoryGroupByData extends BaseStepData implements StepDataInterface
 
   public boolean newBatch;
 
+  public int batchSize; // aggregate rows in batches of this size, 0 means row by row
+  public boolean[] batchAggregates; // per subject: true if it can be aggregated on primitive column values
+
+  public long memoryBudget; // the number of bytes the groups can take before new groups are spilled, 0 means no limit
+  public long mapBytes; // the estimated number of bytes the groups in the map take
+
+  public boolean spilling; // true if the rows of new groups are written to the spill files
+  public int spillLevel; // the number of times the rows being aggregated were partitioned
+  public FileObject[] spillFiles;
+  public RowSpillWriter[] spillWriters;
+  public Deque<SpillPartition> spillPartitions = new ArrayDeque<>();
+
   public MemoryGroupByData() {
     super();
 
@@ -105,5 +136,6 @@ public class MemoryGroupByData extends BaseStepData implements StepDataInterface
    */
   public void clear() {
     map = new HashMap<MemoryGroupByData.HashEntry, Aggregate>();
+    table = null;
   }
 }
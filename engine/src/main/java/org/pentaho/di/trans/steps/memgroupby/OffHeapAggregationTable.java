@@ -0,0 +1,458 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.memgroupby;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.pentaho.di.core.exception.KettleValueException;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+
+/**
+ * An open addressing hash table that keeps its keys and accumulators in direct memory, outside of the Java heap. Every
+ * group takes one entry holding a fixed number of 64-bit accumulators followed by the group key in a compact binary
+ * form. There are no objects per group: the garbage collector only sees a handful of buffers, no matter how many
+ * groups there are.
+ *
+ * Keys are compared on their binary form, so only key types for which equal values have equal bytes are supported,
+ * see {@link #isSupported(RowMetaInterface)}.
+ *
+ * Entries are referred to by a long. The accumulators of a new entry are all 0.
+ *
+ * @since 11.1
+ */
+public class OffHeapAggregationTable {
+
+  /** Entries are 8-byte aligned in pages of at most 8MB, so a page index and an offset fit in 32 bits */
+  private static final int MAX_PAGE_SIZE = 1 << 23;
+  private static final int FIRST_PAGE_SIZE = 1 << 16;
+  private static final int MAX_PAGES = 4095;
+  private static final int OFFSET_BITS = 20;
+
+  private static final int MAX_CAPACITY = 1 << 27;
+
+  /** keyLength (int) + hash (int) */
+  private static final int ENTRY_HEADER = 8;
+
+  private final ValueMetaInterface[] keyMetas;
+  private final int accumulators;
+
+  /** One long per slot: the hash of the key in the high 32 bits, the entry reference + 1 in the low 32 bits */
+  private ByteBuffer slots;
+  private int capacity;
+  private int size;
+
+  private final List<ByteBuffer> pages;
+  private int pageSize;
+
+  private byte[] key;
+  private int keyLength;
+  private byte[] compare;
+
+  /**
+   * @param keyMeta
+   *          the layout of the group keys
+   * @param accumulators
+   *          the number of 64-bit accumulators per group
+   */
+  public OffHeapAggregationTable( RowMetaInterface keyMeta, int accumulators ) {
+    this.keyMetas = keyMeta.getValueMetaList().toArray( new ValueMetaInterface[ 0 ] );
+    this.accumulators = accumulators;
+    this.pages = new ArrayList<>();
+    this.key = new byte[ 64 ];
+    this.compare = new byte[ 64 ];
+    clear();
+  }
+
+  /**
+   * @param keyMeta
+   *          the layout of the group keys
+   * @return true if equal keys of this layout always have the same binary form: integers, numbers, dates, booleans,
+   *         binaries and strings that are compared case sensitive without collator and without trimming.
+   */
+  public static boolean isSupported( RowMetaInterface keyMeta ) {
+    for ( ValueMetaInterface valueMeta : keyMeta.getValueMetaList() ) {
+      if ( !valueMeta.isStorageNormal() && !valueMeta.isStorageBinaryString() ) {
+        return false;
+      }
+      switch ( valueMeta.getType() ) {
+        case ValueMetaInterface.TYPE_INTEGER:
+        case ValueMetaInterface.TYPE_NUMBER:
+        case ValueMetaInterface.TYPE_DATE:
+        case ValueMetaInterface.TYPE_BOOLEAN:
+        case ValueMetaInterface.TYPE_BINARY:
+          break;
+        case ValueMetaInterface.TYPE_STRING:
+          if ( !valueMeta.isCollatorDisabled() || valueMeta.isCaseInsensitive() || valueMeta.isIgnoreWhitespace() ) {
+            return false;
+          }
+          break;
+        default:
+          return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Look up the entry of a group.
+   *
+   * @param groupData
+   *          the values of the group key
+   * @param insert
+   *          true to add the group if it's not in the table yet
+   * @return the entry of the group, or -1 if the group isn't in the table and either insert is false or the table
+   *         can't grow any further
+   * @throws KettleValueException
+   *           in case a key value can't be converted
+   */
+  public long lookup( Object[] groupData, boolean insert ) throws KettleValueException {
+    encodeKey( groupData );
+    int hash = hash( key, keyLength );
+
+    int mask = capacity - 1;
+    for ( int slot = mix( hash ) & mask; ; slot = ( slot + 1 ) & mask ) {
+      long value = slots.getLong( slot << 3 );
+      if ( value == 0L ) {
+        break;
+      }
+      if ( (int) ( value >>> 32 ) == hash ) {
+        long entry = ( value & 0xFFFFFFFFL ) - 1;
+        if ( keyEquals( entry ) ) {
+          return entry;
+        }
+      }
+    }
+
+    if ( !insert || !ensureCapacity() ) {
+      return -1L;
+    }
+    long entry = allocate( hash );
+    if ( entry < 0 ) {
+      return -1L;
+    }
+    insertSlot( hash, entry );
+    size++;
+    return entry;
+  }
+
+  public long getLong( long entry, int accumulator ) {
+    return page( entry ).getLong( offset( entry ) + ENTRY_HEADER + ( accumulator << 3 ) );
+  }
+
+  public void setLong( long entry, int accumulator, long value ) {
+    page( entry ).putLong( offset( entry ) + ENTRY_HEADER + ( accumulator << 3 ), value );
+  }
+
+  public double getDouble( long entry, int accumulator ) {
+    return Double.longBitsToDouble( getLong( entry, accumulator ) );
+  }
+
+  public void setDouble( long entry, int accumulator, double value ) {
+    setLong( entry, accumulator, Double.doubleToRawLongBits( value ) );
+  }
+
+  /**
+   * @param entry
+   *          an entry of the table
+   * @return the group key of the entry, in normal storage
+   */
+  public Object[] getKey( long entry ) {
+    ByteBuffer page = page( entry );
+    int offset = offset( entry );
+    int length = page.getInt( offset );
+    ensureCompare( length );
+    page.get( offset + ENTRY_HEADER + ( accumulators << 3 ), compare, 0, length );
+
+    Object[] groupData = new Object[ keyMetas.length ];
+    int position = 0;
+    for ( int i = 0; i < keyMetas.length; i++ ) {
+      if ( compare[ position++ ] == 0 ) {
+        continue;
+      }
+      switch ( keyMetas[ i ].getType() ) {
+        case ValueMetaInterface.TYPE_INTEGER:
+          groupData[ i ] = readLong( compare, position );
+          position += 8;
+          break;
+        case ValueMetaInterface.TYPE_NUMBER:
+          groupData[ i ] = Double.longBitsToDouble( readLong( compare, position ) );
+          position += 8;
+          break;
+        case ValueMetaInterface.TYPE_DATE:
+          groupData[ i ] = new Date( readLong( compare, position ) );
+          position += 8;
+          break;
+        case ValueMetaInterface.TYPE_BOOLEAN:
+          groupData[ i ] = compare[ position++ ] != 0;
+          break;
+        case ValueMetaInterface.TYPE_STRING:
+          int stringLength = (int) readLong( compare, position );
+          position += 8;
+          groupData[ i ] = new String( compare, position, stringLength, StandardCharsets.UTF_8 );
+          position += stringLength;
+          break;
+        default:
+          int binaryLength = (int) readLong( compare, position );
+          position += 8;
+          groupData[ i ] = Arrays.copyOfRange( compare, position, position + binaryLength );
+          position += binaryLength;
+          break;
+      }
+    }
+    return groupData;
+  }
+
+  /**
+   * @return the first entry of the table in order of insertion, or -1 if the table is empty
+   */
+  public long firstEntry() {
+    return size == 0 ? -1L : 0L;
+  }
+
+  /**
+   * @param entry
+   *          an entry of the table
+   * @return the entry inserted after the given one, or -1 if it's the last one
+   */
+  public long nextEntry( long entry ) {
+    ByteBuffer page = page( entry );
+    int offset = offset( entry );
+    int next = align( offset + entrySize( page.getInt( offset ) ) );
+    if ( next < page.position() ) {
+      return reference( (int) ( entry >>> OFFSET_BITS ), next );
+    }
+    int pageIndex = (int) ( entry >>> OFFSET_BITS ) + 1;
+    if ( pageIndex < pages.size() && pages.get( pageIndex ).position() > 0 ) {
+      return reference( pageIndex, 0 );
+    }
+    return -1L;
+  }
+
+  /**
+   * @return the number of groups in the table
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @return the number of bytes of direct memory taken by the table
+   */
+  public long getMemoryUsage() {
+    long usage = (long) capacity << 3;
+    for ( ByteBuffer page : pages ) {
+      usage += page.capacity();
+    }
+    return usage;
+  }
+
+  /**
+   * Remove all the groups. The direct memory of the table is given back when the garbage collector collects the
+   * buffers that are let go of here.
+   */
+  public void clear() {
+    pages.clear();
+    pageSize = FIRST_PAGE_SIZE;
+    capacity = 1024;
+    slots = ByteBuffer.allocateDirect( capacity << 3 );
+    size = 0;
+  }
+
+  private void encodeKey( Object[] groupData ) throws KettleValueException {
+    keyLength = 0;
+    for ( int i = 0; i < keyMetas.length; i++ ) {
+      Object value = keyMetas[ i ].convertToNormalStorageType( groupData[ i ] );
+      if ( value == null ) {
+        ensureKey( 1 );
+        key[ keyLength++ ] = 0;
+        continue;
+      }
+      ensureKey( 10 );
+      key[ keyLength++ ] = 1;
+      switch ( keyMetas[ i ].getType() ) {
+        case ValueMetaInterface.TYPE_INTEGER:
+          writeLong( (Long) value );
+          break;
+        case ValueMetaInterface.TYPE_NUMBER:
+          // doubleToLongBits: every NaN is the same NaN, as in Double.compare()
+          writeLong( Double.doubleToLongBits( (Double) value ) );
+          break;
+        case ValueMetaInterface.TYPE_DATE:
+          writeLong( ( (Date) value ).getTime() );
+          break;
+        case ValueMetaInterface.TYPE_BOOLEAN:
+          key[ keyLength++ ] = (byte) ( ( (Boolean) value ) ? 1 : 0 );
+          break;
+        case ValueMetaInterface.TYPE_STRING:
+          writeBytes( ( (String) value ).getBytes( StandardCharsets.UTF_8 ) );
+          break;
+        default:
+          writeBytes( (byte[]) value );
+          break;
+      }
+    }
+  }
+
+  private void writeLong( long value ) {
+    for ( int shift = 56; shift >= 0; shift -= 8 ) {
+      key[ keyLength++ ] = (byte) ( value >>> shift );
+    }
+  }
+
+  private void writeBytes( byte[] bytes ) {
+    writeLong( bytes.length );
+    ensureKey( bytes.length );
+    System.arraycopy( bytes, 0, key, keyLength, bytes.length );
+    keyLength += bytes.length;
+  }
+
+  private static long readLong( byte[] bytes, int position ) {
+    long value = 0L;
+    for ( int i = 0; i < 8; i++ ) {
+      value = ( value << 8 ) | ( bytes[ position + i ] & 0xFF );
+    }
+    return value;
+  }
+
+  private void ensureKey( int extra ) {
+    if ( keyLength + extra > key.length ) {
+      key = Arrays.copyOf( key, Math.max( keyLength + extra, key.length * 2 ) );
+    }
+  }
+
+  private void ensureCompare( int length ) {
+    if ( length > compare.length ) {
+      compare = new byte[ Math.max( length, compare.length * 2 ) ];
+    }
+  }
+
+  private boolean keyEquals( long entry ) {
+    ByteBuffer page = page( entry );
+    int offset = offset( entry );
+    if ( page.getInt( offset ) != keyLength ) {
+      return false;
+    }
+    ensureCompare( keyLength );
+    page.get( offset + ENTRY_HEADER + ( accumulators << 3 ), compare, 0, keyLength );
+    return Arrays.equals( key, 0, keyLength, compare, 0, keyLength );
+  }
+
+  /**
+   * Write a new entry with the current key and zeroed accumulators.
+   *
+   * @return the new entry or -1 if the key is too large or all the pages are in use
+   */
+  private long allocate( int hash ) {
+    int entrySize = align( entrySize( keyLength ) );
+    if ( entrySize > MAX_PAGE_SIZE ) {
+      return -1L;
+    }
+    ByteBuffer page = pages.isEmpty() ? null : pages.get( pages.size() - 1 );
+    if ( page == null || page.remaining() < entrySize ) {
+      if ( pages.size() >= MAX_PAGES ) {
+        return -1L;
+      }
+      while ( pageSize < entrySize ) {
+        pageSize <<= 1;
+      }
+      page = ByteBuffer.allocateDirect( pageSize );
+      pages.add( page );
+      pageSize = Math.min( pageSize << 1, MAX_PAGE_SIZE );
+    }
+
+    int offset = page.position();
+    page.putInt( offset, keyLength );
+    page.putInt( offset + 4, hash );
+    // Direct buffers start out zeroed and entries are never removed, so the accumulators are 0 already
+    page.put( offset + ENTRY_HEADER + ( accumulators << 3 ), key, 0, keyLength );
+    page.position( offset + entrySize );
+    return reference( pages.size() - 1, offset );
+  }
+
+  private boolean ensureCapacity() {
+    // Keep the load factor under 0.75
+    if ( ( size + 1 ) * 4L <= capacity * 3L ) {
+      return true;
+    }
+    if ( capacity >= MAX_CAPACITY ) {
+      return false;
+    }
+    ByteBuffer oldSlots = slots;
+    int oldCapacity = capacity;
+    capacity <<= 1;
+    slots = ByteBuffer.allocateDirect( capacity << 3 );
+    for ( int i = 0; i < oldCapacity; i++ ) {
+      long value = oldSlots.getLong( i << 3 );
+      if ( value != 0L ) {
+        insertSlot( (int) ( value >>> 32 ), ( value & 0xFFFFFFFFL ) - 1 );
+      }
+    }
+    return true;
+  }
+
+  private void insertSlot( int hash, long entry ) {
+    int mask = capacity - 1;
+    int slot = mix( hash ) & mask;
+    while ( slots.getLong( slot << 3 ) != 0L ) {
+      slot = ( slot + 1 ) & mask;
+    }
+    slots.putLong( slot << 3, ( (long) hash << 32 ) | ( entry + 1 ) );
+  }
+
+  private int entrySize( int length ) {
+    return ENTRY_HEADER + ( accumulators << 3 ) + length;
+  }
+
+  private static int align( int offset ) {
+    return ( offset + 7 ) & ~7;
+  }
+
+  private static long reference( int page, int offset ) {
+    return ( (long) page << OFFSET_BITS ) | ( offset >>> 3 );
+  }
+
+  private ByteBuffer page( long entry ) {
+    return pages.get( (int) ( entry >>> OFFSET_BITS ) );
+  }
+
+  private static int offset( long entry ) {
+    return (int) ( entry & ( ( 1 << OFFSET_BITS ) - 1 ) ) << 3;
+  }
+
+  private static int hash( byte[] bytes, int length ) {
+    int hash = 0x811C9DC5;
+    for ( int i = 0; i < length; i++ ) {
+      hash = ( hash ^ bytes[ i ] ) * 0x01000193;
+    }
+    return hash;
+  }
+
+  /**
+   * Spread the bits of a hash code, the murmur3 finalizer.
+   */
+  static int mix( int hash ) {
+    hash ^= hash >>> 16;
+    hash *= 0x85EBCA6B;
+    hash ^= hash >>> 13;
+    hash *= 0xC2B2AE35;
+    hash ^= hash >>> 16;
+    return hash;
+  }
+}
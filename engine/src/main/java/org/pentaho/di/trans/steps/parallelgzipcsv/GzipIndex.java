@@ -0,0 +1,351 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.parallelgzipcsv;
+
+import org.apache.commons.io.IOUtils;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * An index of checkpoints in a gzip file, where decompressing can start from instead of the beginning of the file, so
+ * step copies can decompress different parts of the same file at the same time.
+ * <p>
+ * A checkpoint is either the start of a gzip member, or the start of a deflate block in a member together with the 32
+ * KB of uncompressed data before it, which the block can refer to. The inflater is given that data as its dictionary,
+ * and the raw deflate data from the block on.
+ * <p>
+ * The index is built by decompressing the whole file once, see {@link #build(InputStream, long, long, long)}. It's
+ * saved with the size and the modification time of the file, to tell if it's still valid.
+ *
+ * @since 11.1
+ */
+public class GzipIndex {
+
+  /**
+   * The extension of the index saved next to the gzip file.
+   */
+  public static final String EXTENSION = ".gzidx";
+
+  static final int WINDOW_SIZE = 32768;
+
+  private static final String MAGIC = "PDIGZIDX";
+  private static final int VERSION = 1;
+  private static final int BUFFER_SIZE = 65536;
+
+  private final long compressedSize;
+  private final long lastModified;
+  private final long uncompressedSize;
+  private final long dataEnd;
+  private final List<Checkpoint> checkpoints;
+
+  /**
+   * A position in the file to start decompressing from.
+   */
+  static class Checkpoint {
+    final long out;
+    final long in;
+    final byte[] window;
+    long memberEnd;
+
+    /**
+     * @param out    the position in the uncompressed data
+     * @param in     the position in the file to decompress from
+     * @param window the uncompressed data before the checkpoint in the same member, null at the start of a member
+     */
+    Checkpoint( long out, long in, byte[] window ) {
+      this.out = out;
+      this.in = in;
+      this.window = window;
+    }
+  }
+
+  GzipIndex( long compressedSize, long lastModified, long uncompressedSize, long dataEnd,
+             List<Checkpoint> checkpoints ) {
+    this.compressedSize = compressedSize;
+    this.lastModified = lastModified;
+    this.uncompressedSize = uncompressedSize;
+    this.dataEnd = dataEnd;
+    this.checkpoints = Collections.unmodifiableList( new ArrayList<>( checkpoints ) );
+  }
+
+  /**
+   * Decompress a gzip file to index it.
+   *
+   * @param in             the file, from its start
+   * @param compressedSize the size of the file
+   * @param lastModified   the modification time of the file
+   * @param span           the number of uncompressed bytes between two checkpoints, at least
+   * @return the index of the file
+   * @throws IOException if the file can't be read or isn't a valid gzip file
+   */
+  public static GzipIndex build( InputStream in, long compressedSize, long lastModified, long span )
+    throws IOException {
+    return new GzipIndexBuilder( in, span ).build( compressedSize, lastModified );
+  }
+
+  /**
+   * @return the size of the decompressed data
+   */
+  public long getUncompressedSize() {
+    return uncompressedSize;
+  }
+
+  /**
+   * @return the number of checkpoints in the file
+   */
+  public int getCheckpointCount() {
+    return checkpoints.size();
+  }
+
+  /**
+   * @return true if the index was built for a file of that size and modification time
+   */
+  public boolean isValidFor( long size, long modified ) {
+    return compressedSize == size && lastModified == modified;
+  }
+
+  /**
+   * Start decompressing at a position in the uncompressed data, from the checkpoint before it.
+   *
+   * @param in       the gzip file, from its start
+   * @param position the position in the uncompressed data to start reading at
+   * @return the uncompressed data from that position to the end of the file
+   */
+  public InputStream open( InputStream in, long position ) throws IOException {
+    Checkpoint checkpoint = getCheckpoint( position );
+    InputStream uncompressed;
+    if ( checkpoint == null ) {
+      uncompressed = new GZIPInputStream( in, BUFFER_SIZE );
+    } else {
+      IOUtils.skipFully( in, checkpoint.in );
+      if ( checkpoint.window == null ) {
+        uncompressed = new GZIPInputStream( in, BUFFER_SIZE );
+      } else {
+        uncompressed = new CheckpointInputStream( in, checkpoint );
+      }
+      position -= checkpoint.out;
+    }
+    IOUtils.skipFully( uncompressed, position );
+    return uncompressed;
+  }
+
+  /**
+   * @return the last checkpoint at or before the position, null if there's none
+   */
+  Checkpoint getCheckpoint( long position ) {
+    int low = 0;
+    int high = checkpoints.size() - 1;
+    Checkpoint found = null;
+    while ( low <= high ) {
+      int middle = ( low + high ) >>> 1;
+      Checkpoint checkpoint = checkpoints.get( middle );
+      if ( checkpoint.out <= position ) {
+        found = checkpoint;
+        low = middle + 1;
+      } else {
+        high = middle - 1;
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Save the index, the windows of the checkpoints compressed.
+   */
+  public void write( OutputStream out ) throws IOException {
+    DataOutputStream data = new DataOutputStream( out );
+    data.writeUTF( MAGIC );
+    data.writeInt( VERSION );
+    data.writeLong( compressedSize );
+    data.writeLong( lastModified );
+    data.writeLong( uncompressedSize );
+    data.writeLong( dataEnd );
+    data.writeInt( checkpoints.size() );
+    Deflater deflater = new Deflater();
+    byte[] buffer = new byte[ WINDOW_SIZE + 1024 ];
+    try {
+      for ( Checkpoint checkpoint : checkpoints ) {
+        data.writeLong( checkpoint.out );
+        data.writeLong( checkpoint.in );
+        data.writeLong( checkpoint.memberEnd );
+        if ( checkpoint.window == null ) {
+          data.writeInt( -1 );
+        } else {
+          deflater.reset();
+          deflater.setInput( checkpoint.window );
+          deflater.finish();
+          int length = deflater.deflate( buffer );
+          data.writeInt( checkpoint.window.length );
+          data.writeInt( length );
+          data.write( buffer, 0, length );
+        }
+      }
+    } finally {
+      deflater.end();
+    }
+    data.flush();
+  }
+
+  /**
+   * Load a saved index.
+   *
+   * @throws IOException if the index can't be read or isn't valid
+   */
+  public static GzipIndex read( InputStream in ) throws IOException {
+    DataInputStream data = new DataInputStream( in );
+    if ( !MAGIC.equals( data.readUTF() ) || data.readInt() != VERSION ) {
+      throw new ZipException( "Not a GZIP index" );
+    }
+    long compressedSize = data.readLong();
+    long lastModified = data.readLong();
+    long uncompressedSize = data.readLong();
+    long dataEnd = data.readLong();
+    int count = data.readInt();
+    List<Checkpoint> checkpoints = new ArrayList<>();
+    Inflater inflater = new Inflater();
+    try {
+      for ( int i = 0; i < count; i++ ) {
+        long out = data.readLong();
+        long position = data.readLong();
+        long memberEnd = data.readLong();
+        int windowSize = data.readInt();
+        byte[] window = null;
+        if ( windowSize >= 0 ) {
+          if ( windowSize > WINDOW_SIZE ) {
+            throw new ZipException( "Invalid GZIP index window" );
+          }
+          byte[] compressed = new byte[ data.readInt() ];
+          data.readFully( compressed );
+          window = new byte[ windowSize ];
+          inflater.reset();
+          inflater.setInput( compressed );
+          if ( inflater.inflate( window ) != windowSize ) {
+            throw new ZipException( "Invalid GZIP index window" );
+          }
+        }
+        Checkpoint checkpoint = new Checkpoint( out, position, window );
+        checkpoint.memberEnd = memberEnd;
+        checkpoints.add( checkpoint );
+      }
+    } catch ( DataFormatException e ) {
+      throw new ZipException( "Invalid GZIP index window: " + e.getMessage() );
+    } finally {
+      inflater.end();
+    }
+    return new GzipIndex( compressedSize, lastModified, uncompressedSize, dataEnd, checkpoints );
+  }
+
+  /**
+   * Decompresses from a checkpoint in a member, then the members after it.
+   */
+  private class CheckpointInputStream extends InputStream {
+    private final InputStream in;
+    private final long memberEnd;
+    private final Inflater inflater = new Inflater( true );
+    private final byte[] buffer = new byte[ BUFFER_SIZE ];
+    private final byte[] single = new byte[ 1 ];
+    private long remaining;
+    private InputStream next;
+    private boolean closed;
+
+    CheckpointInputStream( InputStream in, Checkpoint checkpoint ) {
+      this.in = in;
+      this.memberEnd = checkpoint.memberEnd;
+      this.remaining = checkpoint.memberEnd - checkpoint.in;
+      inflater.setDictionary( checkpoint.window );
+    }
+
+    @Override
+    public int read() throws IOException {
+      return read( single, 0, 1 ) < 0 ? -1 : single[ 0 ] & 0xFF;
+    }
+
+    @Override
+    public int read( byte[] b, int off, int len ) throws IOException {
+      if ( len == 0 ) {
+        return 0;
+      }
+      while ( next == null ) {
+        if ( inflater.finished() ) {
+          if ( !startNextMember() ) {
+            return -1;
+          }
+          break;
+        }
+        try {
+          int n = inflater.inflate( b, off, len );
+          if ( n > 0 ) {
+            return n;
+          }
+        } catch ( DataFormatException e ) {
+          throw new ZipException( e.getMessage() );
+        }
+        if ( inflater.needsInput() ) {
+          fill();
+        }
+      }
+      return next.read( b, off, len );
+    }
+
+    /**
+     * Skip the rest of the member and its trailer, and go on with the members after it, if any.
+     */
+    private boolean startNextMember() throws IOException {
+      IOUtils.skipFully( in, remaining );
+      remaining = 0L;
+      if ( memberEnd >= dataEnd ) {
+        return false;
+      }
+      next = new GZIPInputStream( in, BUFFER_SIZE );
+      return true;
+    }
+
+    /**
+     * Give the inflater the next bytes of the member.
+     */
+    private void fill() throws IOException {
+      int n = remaining <= 0L ? -1 : in.read( buffer, 0, (int) Math.min( buffer.length, remaining ) );
+      if ( n < 0 ) {
+        throw new ZipException( "Unexpected end of GZIP member" );
+      }
+      remaining -= n;
+      inflater.setInput( buffer, 0, n );
+    }
+
+    @Override
+    public void close() throws IOException {
+      if ( !closed ) {
+        closed = true;
+        inflater.end();
+        if ( next != null ) {
+          next.close();
+        } else {
+          in.close();
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,465 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.parallelgzipcsv;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.ZipException;
+
+/**
+ * Decompresses a gzip file once to build its {@link GzipIndex}: the inflater of the JDK doesn't tell where the deflate
+ * blocks start, so the blocks are decoded here, without keeping the output other than the last 32 KB needed to resume
+ * decompressing at a block.
+ * <p>
+ * A checkpoint is taken at the first block starting on a byte boundary once the span is reached: about one block in
+ * eight does, and all the blocks following a stored block.
+ *
+ * @since 11.1
+ */
+class GzipIndexBuilder {
+
+  private static final int BUFFER_SIZE = 65536;
+  private static final int RING_SIZE = 65536;
+  private static final int RING_MASK = RING_SIZE - 1;
+
+  private static final int[] LENGTH_BASE = {
+    3, 4, 5, 6, 7, 8, 9, 10, 11, 13, 15, 17, 19, 23, 27, 31, 35, 43, 51, 59, 67, 83, 99, 115, 131, 163, 195, 227, 258 };
+  private static final int[] LENGTH_EXTRA = {
+    0, 0, 0, 0, 0, 0, 0, 0, 1, 1, 1, 1, 2, 2, 2, 2, 3, 3, 3, 3, 4, 4, 4, 4, 5, 5, 5, 5, 0 };
+  private static final int[] DISTANCE_BASE = {
+    1, 2, 3, 4, 5, 7, 9, 13, 17, 25, 33, 49, 65, 97, 129, 193, 257, 385, 513, 769, 1025, 1537, 2049, 3073, 4097, 6145,
+    8193, 12289, 16385, 24577 };
+  private static final int[] DISTANCE_EXTRA = {
+    0, 0, 0, 0, 1, 1, 2, 2, 3, 3, 4, 4, 5, 5, 6, 6, 7, 7, 8, 8, 9, 9, 10, 10, 11, 11, 12, 12, 13, 13 };
+  private static final int[] CODE_LENGTH_ORDER = { 16, 17, 18, 0, 8, 7, 9, 6, 10, 5, 11, 4, 12, 3, 13, 2, 14, 1, 15 };
+
+  private static final Huffman FIXED_LITERALS;
+  private static final Huffman FIXED_DISTANCES;
+
+  static {
+    int[] lengths = new int[ 288 ];
+    for ( int i = 0; i < lengths.length; i++ ) {
+      lengths[ i ] = i < 144 ? 8 : i < 256 ? 9 : i < 280 ? 7 : 8;
+    }
+    int[] distances = new int[ 30 ];
+    Arrays.fill( distances, 5 );
+    try {
+      FIXED_LITERALS = new Huffman( lengths, lengths.length );
+      FIXED_DISTANCES = new Huffman( distances, distances.length );
+    } catch ( ZipException e ) {
+      throw new IllegalStateException( e );
+    }
+  }
+
+  private final InputStream in;
+  private final long span;
+
+  private final byte[] input = new byte[ BUFFER_SIZE ];
+  private int inputPosition;
+  private int inputLength;
+  private boolean inputEnded;
+  private long bytesIn;
+  private long bitBuffer;
+  private int bitCount;
+
+  private final byte[] ring = new byte[ RING_SIZE ];
+  private final CRC32 crc = new CRC32();
+  private long out;
+  private long crcOut;
+
+  private final List<GzipIndex.Checkpoint> checkpoints = new ArrayList<>();
+
+  /**
+   * @param in   the gzip file, read from its start
+   * @param span the number of uncompressed bytes between two checkpoints, at least
+   */
+  GzipIndexBuilder( InputStream in, long span ) {
+    this.in = in;
+    this.span = Math.max( 1L, span );
+  }
+
+  /**
+   * Decompress all the members of the file, up to its end or to the first bytes that aren't a gzip member.
+   *
+   * @param compressedSize the size of the file
+   * @param lastModified   the time the file was modified
+   * @return the index of the file
+   * @throws IOException if the file can't be read or isn't valid
+   */
+  GzipIndex build( long compressedSize, long lastModified ) throws IOException {
+    long dataEnd = 0L;
+    long lastCheckpoint = -span;
+    while ( true ) {
+      int id1 = readByte();
+      if ( id1 < 0 && dataEnd > 0L ) {
+        break;
+      }
+      int id2 = readByte();
+      if ( id1 != 0x1F || id2 != 0x8B ) {
+        if ( dataEnd == 0L ) {
+          throw new ZipException( "Not in GZIP format" );
+        }
+        // Trailing bytes, ignored like GZIPInputStream does
+        break;
+      }
+      long memberStart = getPosition() - 2;
+      long memberOut = out;
+      int firstCheckpoint = checkpoints.size();
+      if ( out - lastCheckpoint >= span ) {
+        checkpoints.add( new GzipIndex.Checkpoint( out, memberStart, null ) );
+        lastCheckpoint = out;
+      }
+      readHeader();
+      crc.reset();
+      crcOut = out;
+
+      boolean last = false;
+      while ( !last ) {
+        // The inflater of the JDK can't start in the middle of a byte: take the next block starting on a byte
+        //
+        long position = getBitPosition();
+        if ( out - lastCheckpoint >= span && ( position & 7 ) == 0 ) {
+          checkpoints.add( new GzipIndex.Checkpoint( out, position >>> 3,
+            getWindow( (int) Math.min( GzipIndex.WINDOW_SIZE, out - memberOut ) ) ) );
+          lastCheckpoint = out;
+        }
+        last = getBits( 1 ) == 1;
+        int type = getBits( 2 );
+        switch ( type ) {
+          case 0:
+            inflateStored();
+            break;
+          case 1:
+            inflateCodes( FIXED_LITERALS, FIXED_DISTANCES );
+            break;
+          case 2:
+            inflateDynamic();
+            break;
+          default:
+            throw new ZipException( "Invalid block type " + type + " at " + getPosition() );
+        }
+      }
+      updateCrc();
+
+      // The trailer: the CRC-32 and the size of the member, modulo 2^32
+      //
+      dropBits( bitCount & 7 );
+      long expectedCrc = readInt();
+      long expectedSize = readInt();
+      if ( expectedCrc != crc.getValue() || expectedSize != ( ( out - memberOut ) & 0xFFFFFFFFL ) ) {
+        throw new ZipException( "Corrupt GZIP trailer at " + getPosition() );
+      }
+      dataEnd = getPosition();
+      for ( int i = firstCheckpoint; i < checkpoints.size(); i++ ) {
+        checkpoints.get( i ).memberEnd = dataEnd;
+      }
+    }
+    return new GzipIndex( compressedSize, lastModified, out, dataEnd, checkpoints );
+  }
+
+  private void readHeader() throws IOException {
+    int method = readByteFully();
+    int flags = readByteFully();
+    if ( method != 8 ) {
+      throw new ZipException( "Unsupported compression method " + method );
+    }
+    // Modification time, extra flags and operating system
+    for ( int i = 0; i < 6; i++ ) {
+      readByteFully();
+    }
+    if ( ( flags & 4 ) != 0 ) {
+      int length = readByteFully() | readByteFully() << 8;
+      for ( int i = 0; i < length; i++ ) {
+        readByteFully();
+      }
+    }
+    if ( ( flags & 8 ) != 0 ) {
+      while ( readByteFully() != 0 ) {
+        // File name
+      }
+    }
+    if ( ( flags & 16 ) != 0 ) {
+      while ( readByteFully() != 0 ) {
+        // Comment
+      }
+    }
+    if ( ( flags & 2 ) != 0 ) {
+      readByteFully();
+      readByteFully();
+    }
+  }
+
+  private void inflateStored() throws IOException {
+    dropBits( bitCount & 7 );
+    int length = getBits( 16 );
+    int complement = getBits( 16 );
+    if ( length != ( ~complement & 0xFFFF ) ) {
+      throw new ZipException( "Invalid stored block length at " + getPosition() );
+    }
+    for ( int i = 0; i < length; i++ ) {
+      checkCrc();
+      ring[ (int) out & RING_MASK ] = (byte) getBits( 8 );
+      out++;
+    }
+  }
+
+  private void inflateDynamic() throws IOException {
+    int literalCount = getBits( 5 ) + 257;
+    int distanceCount = getBits( 5 ) + 1;
+    int codeLengthCount = getBits( 4 ) + 4;
+    if ( literalCount > 286 || distanceCount > 30 ) {
+      throw new ZipException( "Invalid dynamic block at " + getPosition() );
+    }
+    int[] codeLengths = new int[ 19 ];
+    for ( int i = 0; i < codeLengthCount; i++ ) {
+      codeLengths[ CODE_LENGTH_ORDER[ i ] ] = getBits( 3 );
+    }
+    Huffman codeLengthCode = new Huffman( codeLengths, codeLengths.length );
+
+    int[] lengths = new int[ literalCount + distanceCount ];
+    int i = 0;
+    while ( i < lengths.length ) {
+      int symbol = decode( codeLengthCode );
+      if ( symbol < 16 ) {
+        lengths[ i++ ] = symbol;
+        continue;
+      }
+      int value = 0;
+      int repeat;
+      if ( symbol == 16 ) {
+        if ( i == 0 ) {
+          throw new ZipException( "Invalid length repeat at " + getPosition() );
+        }
+        value = lengths[ i - 1 ];
+        repeat = 3 + getBits( 2 );
+      } else if ( symbol == 17 ) {
+        repeat = 3 + getBits( 3 );
+      } else {
+        repeat = 11 + getBits( 7 );
+      }
+      if ( i + repeat > lengths.length ) {
+        throw new ZipException( "Too many code lengths at " + getPosition() );
+      }
+      while ( repeat-- > 0 ) {
+        lengths[ i++ ] = value;
+      }
+    }
+    if ( lengths[ 256 ] == 0 ) {
+      throw new ZipException( "Missing end of block code at " + getPosition() );
+    }
+    int[] distances = new int[ distanceCount ];
+    System.arraycopy( lengths, literalCount, distances, 0, distanceCount );
+    inflateCodes( new Huffman( lengths, literalCount ), new Huffman( distances, distanceCount ) );
+  }
+
+  private void inflateCodes( Huffman literals, Huffman distances ) throws IOException {
+    while ( true ) {
+      checkCrc();
+      int symbol = decode( literals );
+      if ( symbol < 256 ) {
+        ring[ (int) out & RING_MASK ] = (byte) symbol;
+        out++;
+      } else if ( symbol == 256 ) {
+        return;
+      } else {
+        symbol -= 257;
+        if ( symbol >= LENGTH_BASE.length ) {
+          throw new ZipException( "Invalid length code at " + getPosition() );
+        }
+        int length = LENGTH_BASE[ symbol ] + getBits( LENGTH_EXTRA[ symbol ] );
+        int distanceSymbol = decode( distances );
+        if ( distanceSymbol >= DISTANCE_BASE.length ) {
+          throw new ZipException( "Invalid distance code at " + getPosition() );
+        }
+        int distance = DISTANCE_BASE[ distanceSymbol ] + getBits( DISTANCE_EXTRA[ distanceSymbol ] );
+        if ( distance > out ) {
+          throw new ZipException( "Invalid distance too far back at " + getPosition() );
+        }
+        for ( int i = 0; i < length; i++ ) {
+          ring[ (int) out & RING_MASK ] = ring[ (int) ( out - distance ) & RING_MASK ];
+          out++;
+        }
+      }
+    }
+  }
+
+  private int decode( Huffman huffman ) throws IOException {
+    fillBits( huffman.maxLength );
+    int entry = huffman.table[ (int) bitBuffer & ( ( 1 << huffman.maxLength ) - 1 ) ];
+    int length = entry & 0xF;
+    if ( length == 0 || length > bitCount ) {
+      throw new ZipException( "Invalid code at " + getPosition() );
+    }
+    dropBits( length );
+    return entry >>> 4;
+  }
+
+  /**
+   * Checksum the output before the ring buffer overwrites it: it holds at least 32 KB plus the longest match.
+   */
+  private void checkCrc() {
+    if ( out - crcOut >= GzipIndex.WINDOW_SIZE ) {
+      updateCrc();
+    }
+  }
+
+  private void updateCrc() {
+    while ( crcOut < out ) {
+      int start = (int) crcOut & RING_MASK;
+      int length = (int) Math.min( out - crcOut, RING_SIZE - start );
+      crc.update( ring, start, length );
+      crcOut += length;
+    }
+  }
+
+  private byte[] getWindow( int size ) {
+    byte[] window = new byte[ size ];
+    for ( int i = 0; i < size; i++ ) {
+      window[ i ] = ring[ (int) ( out - size + i ) & RING_MASK ];
+    }
+    return window;
+  }
+
+  /**
+   * @return the position in the file of the next bit, in bits
+   */
+  private long getBitPosition() {
+    return bytesIn * 8 - bitCount;
+  }
+
+  /**
+   * @return the position in the file of the next byte, after the bits of the current one
+   */
+  private long getPosition() {
+    return ( getBitPosition() + 7 ) >>> 3;
+  }
+
+  private int getBits( int count ) throws IOException {
+    if ( count == 0 ) {
+      return 0;
+    }
+    fillBits( count );
+    if ( bitCount < count ) {
+      throw new EOFException( "Unexpected end of GZIP file" );
+    }
+    int bits = (int) bitBuffer & ( ( 1 << count ) - 1 );
+    dropBits( count );
+    return bits;
+  }
+
+  private void dropBits( int count ) {
+    bitBuffer >>>= count;
+    bitCount -= count;
+  }
+
+  /**
+   * Fill the bit buffer with at least the given number of bits, or with all the remaining ones at the end of the file.
+   */
+  private void fillBits( int count ) throws IOException {
+    while ( bitCount < count ) {
+      if ( inputPosition == inputLength ) {
+        if ( inputEnded || !fillInput() ) {
+          return;
+        }
+      }
+      bitBuffer |= ( input[ inputPosition++ ] & 0xFFL ) << bitCount;
+      bitCount += 8;
+      bytesIn++;
+    }
+  }
+
+  private boolean fillInput() throws IOException {
+    int n = in.read( input, 0, input.length );
+    while ( n == 0 ) {
+      n = in.read( input, 0, input.length );
+    }
+    if ( n < 0 ) {
+      inputEnded = true;
+      return false;
+    }
+    inputPosition = 0;
+    inputLength = n;
+    return true;
+  }
+
+  /**
+   * @return the next byte of the file, from the bit buffer first, or -1 at the end of the file
+   */
+  private int readByte() throws IOException {
+    dropBits( bitCount & 7 );
+    fillBits( 8 );
+    if ( bitCount < 8 ) {
+      return -1;
+    }
+    return getBits( 8 );
+  }
+
+  private int readByteFully() throws IOException {
+    int b = readByte();
+    if ( b < 0 ) {
+      throw new EOFException( "Unexpected end of GZIP file" );
+    }
+    return b;
+  }
+
+  private long readInt() throws IOException {
+    return readByteFully() | readByteFully() << 8 | readByteFully() << 16 | ( (long) readByteFully() ) << 24;
+  }
+
+  /**
+   * A canonical Huffman code, decoded with a table indexed by the next bits, least significant bit first.
+   */
+  private static class Huffman {
+    private final int[] table;
+    private final int maxLength;
+
+    Huffman( int[] lengths, int count ) throws ZipException {
+      int[] lengthCounts = new int[ 16 ];
+      int max = 0;
+      for ( int i = 0; i < count; i++ ) {
+        lengthCounts[ lengths[ i ] ]++;
+        max = Math.max( max, lengths[ i ] );
+      }
+      maxLength = Math.max( 1, max );
+      table = new int[ 1 << maxLength ];
+
+      int[] nextCode = new int[ 16 ];
+      int code = 0;
+      lengthCounts[ 0 ] = 0;
+      for ( int length = 1; length <= 15; length++ ) {
+        code = ( code + lengthCounts[ length - 1 ] ) << 1;
+        nextCode[ length ] = code;
+      }
+      for ( int symbol = 0; symbol < count; symbol++ ) {
+        int length = lengths[ symbol ];
+        if ( length == 0 ) {
+          continue;
+        }
+        int value = nextCode[ length ]++;
+        if ( value >= 1 << length ) {
+          throw new ZipException( "Over-subscribed Huffman code" );
+        }
+        int reversed = Integer.reverse( value ) >>> ( 32 - length );
+        for ( int i = reversed; i < table.length; i += 1 << length ) {
+          table[ i ] = symbol << 4 | length;
+        }
+      }
+    }
+  }
+}
@@ -14,12 +14,20 @@
 
 package org.pentaho.di.trans.steps.parallelgzipcsv;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.zip.GZIPInputStream;
 
 import org.apache.commons.vfs2.FileObject;
+import org.pentaho.di.core.Const;
 import org.pentaho.di.core.ResultFile;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.exception.KettleFileException;
@@ -46,6 +54,8 @@ import org.pentaho.di.trans.step.StepMetaInterface;
 public class ParGzipCsvInput extends BaseStep implements StepInterface {
   private static Class<?> PKG = ParGzipCsvInputMeta.class; // for i18n purposes, needed by Translator2!!
 
+  private static final long DEFAULT_INDEX_SPAN = 16L * 1024 * 1024;
+
   private ParGzipCsvInputMeta meta;
   private ParGzipCsvInputData data;
 
@@ -118,28 +128,24 @@ public class ParGzipCsvInput extends BaseStep implements StepInterface {
     Object[] outputRowData = readOneRow( true ); // get row, set busy!
     if ( outputRowData == null ) { // no more input to be expected...
 
-      if ( skipToNextBlock() ) {
-        // If we need to open a new file, make sure we don't stop when we get a false from the openNextFile() algorithm.
-        // It can also mean that the file is smaller than the block size
-        // In that case, check the file number and retry until we get a valid file position to work with.
-        //
-        boolean opened = false;
-        while ( data.filenr < data.filenames.length ) {
-          if ( openNextFile() ) {
-            opened = true;
-            break;
-          }
+      // A step copy reads a single block of data in each file: go on with the next file.
+      // It can also mean that the file is smaller than the number of step copies.
+      // In that case, check the file number and retry until we get a valid file position to work with.
+      //
+      boolean opened = false;
+      while ( data.filenr < data.filenames.length ) {
+        if ( openNextFile() ) {
+          opened = true;
+          break;
         }
+      }
 
-        if ( opened ) {
-          return true; // try again on the next loop in the next file...
-        } else {
-          incrementLinesUpdated();
-          setOutputDone(); // last file, end here
-          return false;
-        }
+      if ( opened ) {
+        return true; // try again on the next loop in the next file...
       } else {
-        return true; // try again on the next loop in the next block...
+        incrementLinesUpdated();
+        setOutputDone(); // last file, end here
+        return false;
       }
     } else {
       putRow( data.outputRowMeta, outputRowData ); // copy row to possible alternate rowset(s).
@@ -154,69 +160,6 @@ public class ParGzipCsvInput extends BaseStep implements StepInterface {
     return true;
   }
 
-  private boolean skipToNextBlock() throws KettleException {
-
-    if ( data.eofReached ) {
-      return true; // next file please!
-    }
-    // Reset the bytes read in the current block of data
-    //
-    data.totalBytesRead = 0L;
-    data.blockNr++;
-
-    if ( data.parallel ) {
-
-      // So our first act is to skip to the correct position in the compressed stream...
-      // The number of bytes to skip is nrOfSteps*BufferSize
-      //
-      long positionToReach =
-        ( data.blockNr * data.blockSize * data.totalNumberOfSteps ) + data.stepNumber * data.blockSize;
-
-      // How many bytes do we need to skip to get where we need to be?
-      //
-      long bytesToSkip = positionToReach - data.fileReadPosition;
-
-      logBasic( "Skipping "
-        + bytesToSkip + " bytes to go to position " + positionToReach + " for step copy " + data.stepNumber );
-
-      // Get into position...
-      //
-      try {
-        long bytesSkipped = 0;
-        while ( bytesSkipped < bytesToSkip ) {
-          long n = data.gzis.skip( bytesToSkip - bytesSkipped );
-          if ( n <= 0 ) {
-            // EOF reached...
-            //
-            data.eofReached = true;
-            data.fileReadPosition += bytesSkipped;
-            return true; // nothing more to be found in the file, stop right here.
-          }
-          bytesSkipped += n;
-        }
-
-        data.fileReadPosition += bytesSkipped;
-
-        // Now we need to clear the buffer, reset everything...
-        //
-        clearBuffer();
-
-        // Now get read until the next CR:
-        //
-        readOneRow( false );
-
-        return false;
-
-      } catch ( IOException e ) {
-        throw new KettleException( "Error skipping " + bytesToSkip + " bytes to the next block of data", e );
-      }
-    } else {
-      // this situation should never happen.
-      //
-      return true; // stop processing the file
-    }
-  }
-
   private void getFilenamesFromPreviousSteps() throws KettleException {
     List<String> filenames = new ArrayList<String>();
     boolean firstRow = true;
@@ -280,82 +223,57 @@ public class ParGzipCsvInput extends BaseStep implements StepInterface {
         data.binaryFilename = data.filenames[data.filenr].getBytes();
       }
 
-      data.gzis = new GZIPInputStream( data.fis, data.bufferSize );
-
       clearBuffer();
       data.fileReadPosition = 0L;
-      data.blockNr = 0;
       data.eofReached = false;
 
       // Skip to the next file...
       //
       data.filenr++;
 
-      // If we are running in parallel and we need to skip bytes in the first file, let's do so here.
+      // If we are running in parallel, the uncompressed data of the file is split in as many blocks as there are step
+      // copies: the first copy reads 0-499 of a file of 1500 bytes, the second 500-999 and the third 1000-1499.
+      // A step copy starts decompressing at the checkpoint of the index of the file before its block, skips to the
+      // block and then to the first row starting after it.
       //
       if ( data.parallel ) {
-        // Calculate the first block of data to read from the file
-        // If the buffer size is 500, we read 0-499 for the first file,
-        // 500-999 for the second, 1000-1499 for the third, etc.
-        //
-        // After that we need to get 1500-1999 for the first step again,
-        // 2000-2499 for the second, 2500-2999 for the third, etc.
-        //
-        // This is equivalent :
-        //
-        // FROM : stepNumber * bufferSize + blockNr*bufferSize*nrOfSteps
-        // TO : FROM + bufferSize - 1
-        //
-        // Example : step 0, block 0, size 500:
-        // From: 0*500+0*500*3=0 To: 0+500-1=499
-        //
-        // Example : step 0, block 1, size 500:
-        // From: 0*500+1*500*3=1500 To: 1500+500-1=1999
-        //
-        // So our first act is to skip to the correct position in the compressed stream...
-        //
-        data.blockSize = 2 * data.bufferSize; // for now.
+        GzipIndex index = getIndex( fileObject );
+        long size = index.getUncompressedSize();
+        data.blockSize = Math.max( 1L, ( size + data.totalNumberOfSteps - 1 ) / data.totalNumberOfSteps );
         long bytesToSkip = data.stepNumber * data.blockSize;
-        if ( bytesToSkip > 0 ) {
-          // Get into position for block 0
-          //
-          logBasic( "Skipping "
-            + bytesToSkip + " bytes to go to position " + bytesToSkip + " for step copy " + data.stepNumber );
-
-          long bytesSkipped = 0L;
-          while ( bytesSkipped < bytesToSkip ) {
-            long n = data.gzis.skip( bytesToSkip - bytesSkipped );
-            if ( n <= 0 ) {
-              // EOF in this file, can't read a block in this step copy
-              data.eofReached = true;
-              return false;
-            }
-            bytesSkipped += n;
-          }
+        if ( data.stepNumber > 0 && bytesToSkip >= size ) {
+          // Not enough data in this file to read a block in this step copy
+          data.eofReached = true;
+          return false;
+        }
 
-          // Keep track of the file pointer!
-          //
-          data.fileReadPosition += bytesSkipped;
+        if ( log.isBasic() ) {
+          logBasic( BaseMessages.getString( PKG, "ParGzipCsvInput.Log.ParallelFileNrAndPositionFeedback",
+            data.filenames[data.filenr - 1], Long.toString( size ), Long.toString( bytesToSkip ),
+            Long.toString( data.blockSize ) ) );
+        }
+        data.gzis = index.open( data.fis, bytesToSkip );
 
-          // Reset the bytes read in the current block of data
-          //
-          data.totalBytesRead = 0L;
+        // Keep track of the file pointer!
+        //
+        data.fileReadPosition = bytesToSkip;
 
+        // Reset the bytes read in the current block of data
+        //
+        data.totalBytesRead = 0L;
+
+        if ( bytesToSkip > 0 ) {
           // Skip the first row until the next CR
           //
           readOneRow( false );
-        } else {
-          // Reset the bytes read in the current block of data
-          //
-          data.totalBytesRead = 0L;
-
+        } else if ( meta.isHeaderPresent() ) {
           // See if we need to skip a header row...
           //
-          if ( meta.isHeaderPresent() ) {
-            readOneRow( false );
-          }
+          readOneRow( false );
         }
       } else {
+        data.gzis = new GZIPInputStream( data.fis, data.bufferSize );
+
         // Just one block: read it all until we hit an EOF.
         //
         data.blockSize = Long.MAX_VALUE; // 9,223,372,036 GB
@@ -385,6 +303,77 @@ public class ParGzipCsvInput extends BaseStep implements StepInterface {
     }
   }
 
+  /**
+   * Get the index of a gzip file: the one saved next to the file if it's still valid, or else a new one. The first step
+   * copy needing it builds it and saves it, the other copies wait for it.
+   */
+  @SuppressWarnings( "unchecked" )
+  private GzipIndex getIndex( FileObject fileObject ) throws KettleException {
+    String key = GzipIndex.class.getName() + "|" + fileObject.getName().getURI();
+    CompletableFuture<GzipIndex> index;
+    boolean building = false;
+    synchronized ( getTrans() ) {
+      Map<String, Object> extensionData = getTrans().getExtensionDataMap();
+      index = (CompletableFuture<GzipIndex>) extensionData.get( key );
+      if ( index == null ) {
+        index = new CompletableFuture<>();
+        extensionData.put( key, index );
+        building = true;
+      }
+    }
+    if ( building ) {
+      try {
+        index.complete( loadOrBuildIndex( fileObject ) );
+      } catch ( Exception e ) {
+        index.completeExceptionally( e );
+      }
+    }
+    try {
+      return index.get();
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      throw new KettleException( e );
+    } catch ( ExecutionException e ) {
+      throw new KettleException( BaseMessages.getString( PKG, "ParGzipCsvInput.Exception.ErrorIndexingFile",
+        fileObject.getName().getURI() ), e.getCause() );
+    }
+  }
+
+  private GzipIndex loadOrBuildIndex( FileObject fileObject ) throws IOException, KettleException {
+    long size = fileObject.getContent().getSize();
+    long modified = fileObject.getContent().getLastModifiedTime();
+    FileObject indexFile = KettleVFS.getInstance( getTransMeta().getBowl() )
+      .getFileObject( fileObject.getName().getURI() + GzipIndex.EXTENSION, getTransMeta() );
+
+    if ( indexFile.exists() ) {
+      try ( InputStream in = new BufferedInputStream( KettleVFS.getInputStream( indexFile ) ) ) {
+        GzipIndex index = GzipIndex.read( in );
+        if ( index.isValidFor( size, modified ) ) {
+          logBasic( BaseMessages.getString( PKG, "ParGzipCsvInput.Log.IndexLoaded", indexFile.getName().getURI() ) );
+          return index;
+        }
+      } catch ( IOException e ) {
+        logDetailed( "Unable to read index file '" + indexFile.getName().getURI() + "' : " + e.getMessage() );
+      }
+    }
+
+    logBasic( BaseMessages.getString( PKG, "ParGzipCsvInput.Log.IndexingFile", fileObject.getName().getURI() ) );
+    long span = Const.toLong( getVariable( Const.KETTLE_GZIP_INDEX_SPAN ), DEFAULT_INDEX_SPAN );
+    GzipIndex index;
+    try ( InputStream in = KettleVFS.getInputStream( fileObject ) ) {
+      index = GzipIndex.build( in, size, modified, span );
+    }
+
+    try ( OutputStream out = new BufferedOutputStream( KettleVFS.getOutputStream( indexFile, false ) ) ) {
+      index.write( out );
+    } catch ( Exception e ) {
+      // The index is only used in memory then, and built again next time
+      logBasic( BaseMessages.getString( PKG, "ParGzipCsvInput.Log.UnableToSaveIndex", indexFile.getName().getURI(),
+        e.getMessage() ) );
+    }
+    return index;
+  }
+
   private void clearBuffer() {
     data.startBuffer = 0;
     data.endBuffer = 0;
@@ -512,6 +501,7 @@ public class ParGzipCsvInput extends BaseStep implements StepInterface {
             boolean keepGoing;
             do {
               data.endBuffer++;
+              data.totalBytesRead++;
               if ( checkBufferSize() ) {
                 enclosureFound = false;
                 break;
@@ -523,6 +513,7 @@ public class ParGzipCsvInput extends BaseStep implements StepInterface {
                 // Read another byte...
                 //
                 data.endBuffer++;
+                data.totalBytesRead++;
                 if ( checkBufferSize() ) {
                   enclosureFound = false;
                   break;
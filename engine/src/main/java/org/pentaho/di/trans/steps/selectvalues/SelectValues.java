@@ -27,6 +27,7 @@ import org.pentaho.di.core.exception.KettleValueException;
 import org.pentaho.di.core.row.RowDataUtil;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.row.batch.RowBatch;
 import org.pentaho.di.core.util.EnvUtil;
 import org.pentaho.di.core.util.Utils;
 import org.pentaho.di.i18n.BaseMessages;
@@ -56,85 +57,98 @@ public class SelectValues extends BaseStep implements StepInterface {
   }
 
   /**
-   * Only select the values that are still needed...
-   * <p/>
-   * Put the values in the right order...
-   * <p/>
-   * Change the meta-data information if needed...
-   * <p/>
+   * Look up the indexes of the selected fields in the source row and check that no field is selected twice.
    *
-   * @param row The row to manipulate
+   * @param rowMeta The layout of the source rows
    * @return true if everything went well, false if we need to stop because of an error!
    */
-  private synchronized Object[] selectValues( RowMetaInterface rowMeta, Object[] rowData ) throws KettleValueException {
-    if ( data.firstselect ) {
-      data.firstselect = false;
+  private boolean prepareSelect( RowMetaInterface rowMeta ) {
+    // We need to create a new meta-data row to drive the output
+    // We also want to know the indexes of the selected fields in the source row.
+    //
+    data.fieldnrs = new int[ meta.getSelectFields().length ];
+    for ( int i = 0; i < data.fieldnrs.length; i++ ) {
+      data.fieldnrs[ i ] = rowMeta.indexOfValue( meta.getSelectFields()[ i ].getName() );
+      if ( data.fieldnrs[ i ] < 0 ) {
+        logError( BaseMessages.getString( PKG, "SelectValues.Log.CouldNotFindField", meta.getSelectFields()[i]
+            .getName() ) );
+        setErrors( 1 );
+        stopAll();
+        return false;
+      }
+    }
 
-      // We need to create a new meta-data row to drive the output
-      // We also want to know the indexes of the selected fields in the source row.
-      //
-      data.fieldnrs = new int[ meta.getSelectFields().length ];
-      for ( int i = 0; i < data.fieldnrs.length; i++ ) {
-        data.fieldnrs[ i ] = rowMeta.indexOfValue( meta.getSelectFields()[ i ].getName() );
-        if ( data.fieldnrs[ i ] < 0 ) {
-          logError( BaseMessages.getString( PKG, "SelectValues.Log.CouldNotFindField", meta.getSelectFields()[i]
-              .getName() ) );
+    // Check for doubles in the selected fields... AFTER renaming!!
+    //
+    int[] cnt = new int[ meta.getSelectFields().length ];
+    for ( int i = 0; i < meta.getSelectFields().length; i++ ) {
+      cnt[ i ] = 0;
+      for ( int j = 0; j < meta.getSelectFields().length; j++ ) {
+        String one = Const.NVL( meta.getSelectFields()[ i ].getRename(), meta.getSelectFields()[ i ].getName() );
+        String two = Const.NVL( meta.getSelectFields()[ j ].getRename(), meta.getSelectFields()[ j ].getName() );
+        if ( one.equals( two ) ) {
+          cnt[ i ]++;
+        }
+
+        if ( cnt[ i ] > 1 ) {
+          logError( BaseMessages.getString( PKG, "SelectValues.Log.FieldCouldNotSpecifiedMoreThanTwice", one ) );
           setErrors( 1 );
           stopAll();
-          return null;
+          return false;
         }
       }
+    }
 
-      // Check for doubles in the selected fields... AFTER renaming!!
+    // See if we need to include (and sort) the non-specified fields as well...
+    //
+    if ( meta.isSelectingAndSortingUnspecifiedFields() ) {
+      // Select the unspecified fields.
+      // Sort the fields
+      // Add them after the specified fields...
       //
-      int[] cnt = new int[ meta.getSelectFields().length ];
-      for ( int i = 0; i < meta.getSelectFields().length; i++ ) {
-        cnt[ i ] = 0;
-        for ( int j = 0; j < meta.getSelectFields().length; j++ ) {
-          String one = Const.NVL( meta.getSelectFields()[ i ].getRename(), meta.getSelectFields()[ i ].getName() );
-          String two = Const.NVL( meta.getSelectFields()[ j ].getRename(), meta.getSelectFields()[ j ].getName() );
-          if ( one.equals( two ) ) {
-            cnt[ i ]++;
-          }
-
-          if ( cnt[ i ] > 1 ) {
-            logError( BaseMessages.getString( PKG, "SelectValues.Log.FieldCouldNotSpecifiedMoreThanTwice", one ) );
-            setErrors( 1 );
-            stopAll();
-            return null;
-          }
+      List<String> extra = new ArrayList<>();
+      ArrayList<Integer> unspecifiedKeyNrs = new ArrayList<>();
+      for ( int i = 0; i < rowMeta.size(); i++ ) {
+        String fieldName = rowMeta.getValueMeta( i ).getName();
+        if ( Const.indexOfString( fieldName, meta.getSelectName() ) < 0 ) {
+          extra.add( fieldName );
         }
       }
+      Collections.sort( extra );
+      for ( String fieldName : extra ) {
+        int index = rowMeta.indexOfValue( fieldName );
+        unspecifiedKeyNrs.add( index );
+      }
 
-      // See if we need to include (and sort) the non-specified fields as well...
+      // Create the extra field list...
       //
-      if ( meta.isSelectingAndSortingUnspecifiedFields() ) {
-        // Select the unspecified fields.
-        // Sort the fields
-        // Add them after the specified fields...
-        //
-        List<String> extra = new ArrayList<>();
-        ArrayList<Integer> unspecifiedKeyNrs = new ArrayList<>();
-        for ( int i = 0; i < rowMeta.size(); i++ ) {
-          String fieldName = rowMeta.getValueMeta( i ).getName();
-          if ( Const.indexOfString( fieldName, meta.getSelectName() ) < 0 ) {
-            extra.add( fieldName );
-          }
-        }
-        Collections.sort( extra );
-        for ( String fieldName : extra ) {
-          int index = rowMeta.indexOfValue( fieldName );
-          unspecifiedKeyNrs.add( index );
-        }
+      data.extraFieldnrs = new int[ unspecifiedKeyNrs.size() ];
+      for ( int i = 0; i < data.extraFieldnrs.length; i++ ) {
+        data.extraFieldnrs[ i ] = unspecifiedKeyNrs.get( i );
+      }
+    } else {
+      data.extraFieldnrs = new int[] {};
+    }
 
-        // Create the extra field list...
-        //
-        data.extraFieldnrs = new int[ unspecifiedKeyNrs.size() ];
-        for ( int i = 0; i < data.extraFieldnrs.length; i++ ) {
-          data.extraFieldnrs[ i ] = unspecifiedKeyNrs.get( i );
-        }
-      } else {
-        data.extraFieldnrs = new int[] {};
+    return true;
+  }
+
+  /**
+   * Only select the values that are still needed...
+   * <p/>
+   * Put the values in the right order...
+   * <p/>
+   * Change the meta-data information if needed...
+   * <p/>
+   *
+   * @param row The row to manipulate
+   * @return true if everything went well, false if we need to stop because of an error!
+   */
+  private synchronized Object[] selectValues( RowMetaInterface rowMeta, Object[] rowData ) throws KettleValueException {
+    if ( data.firstselect ) {
+      data.firstselect = false;
+      if ( !prepareSelect( rowMeta ) ) {
+        return null;
       }
     }
 
@@ -332,6 +346,10 @@ public class SelectValues extends BaseStep implements StepInterface {
     meta = (SelectValuesMeta) smi;
     data = (SelectValuesData) sdi;
 
+    if ( data.batchSize > 0 ) {
+      return processRowBatch();
+    }
+
     Object[] rowData = getRow(); // get row from rowset, wait for our turn, indicate busy!
     if ( rowData == null ) { // no more input to be expected...
 
@@ -351,27 +369,11 @@ public class SelectValues extends BaseStep implements StepInterface {
 
     if ( first ) {
       first = false;
-
-      data.selectRowMeta = getInputRowMeta().clone();
-      meta.getSelectFields( data.selectRowMeta, getStepname() );
-      data.deselectRowMeta = data.selectRowMeta.clone();
-      meta.getDeleteFields( data.deselectRowMeta );
-      data.metadataRowMeta = data.deselectRowMeta.clone();
-      meta.getMetadataFields( data.metadataRowMeta, getStepname(), this );
+      prepareRowMeta();
     }
 
     try {
-      Object[] outputData = rowData;
-
-      if ( data.select ) {
-        outputData = selectValues( getInputRowMeta(), outputData );
-      }
-      if ( data.deselect ) {
-        outputData = removeValues( data.selectRowMeta, outputData );
-      }
-      if ( data.metadata ) {
-        outputData = metadataValues( data.deselectRowMeta, outputData );
-      }
+      Object[] outputData = changeValues( rowData );
 
       if ( outputData == null ) {
         setOutputDone(); // signal end to receiver(s)
@@ -387,18 +389,72 @@ public class SelectValues extends BaseStep implements StepInterface {
       }
 
     } catch ( KettleException e ) {
-      if ( getStepMeta().isDoingErrorHandling() ) {
-        String field;
-        if ( e instanceof KettleConversionException ) {
-          List<ValueMetaInterface> fields = ( (KettleConversionException) e ).getFields();
-          field = fields.isEmpty() ? null : fields.get( 0 ).getName();
-        } else {
-          field = null;
+      handleRowError( rowCopy, e );
+    }
+
+    if ( checkFeedback( getLinesRead() ) ) {
+      logBasic( BaseMessages.getString( PKG, "SelectValues.Log.LineNumber" ) + getLinesRead() );
+    }
+
+    return true;
+  }
+
+  /**
+   * Process a batch of rows at once. When we only pick and re-order fields without copying any of them twice, the
+   * whole batch is simply projected onto the output layout. Otherwise every row of the batch goes through the same
+   * code as in processRow().
+   */
+  private boolean processRowBatch() throws KettleException {
+    RowBatch batch = getRowBatch( data.batchSize );
+    if ( batch == null ) { // no more input to be expected...
+
+      setOutputDone();
+      return false;
+    }
+
+    if ( first ) {
+      first = false;
+      prepareRowMeta();
+
+      if ( data.select && !data.deselect && !data.metadata && !getStepMeta().isDoingErrorHandling() ) {
+        data.firstselect = false;
+        if ( !prepareSelect( getInputRowMeta() ) ) {
+          setOutputDone();
+          return false;
+        }
+        data.projection = getProjection( getInputRowMeta() );
+      }
+    }
+
+    if ( data.projection != null && !log.isRowLevel() ) {
+      batch.project( data.projection, data.selectRowMeta );
+      putRowBatch( data.metadataRowMeta, batch );
+    } else {
+      RowBatch output = new RowBatch( data.metadataRowMeta, batch.size() );
+      for ( int i = 0; i < batch.size(); i++ ) {
+        Object[] rowData = batch.getRow( i );
+        Object[] rowCopy = null;
+        if ( getStepMeta().isDoingErrorHandling() ) {
+          rowCopy = getInputRowMeta().cloneRow( rowData );
+        }
+        if ( log.isRowLevel() ) {
+          logRowlevel( BaseMessages.getString( PKG, "SelectValues.Log.GotRowFromPreviousStep" )
+            + getInputRowMeta().getString( rowData ) );
+        }
+
+        try {
+          Object[] outputData = changeValues( rowData );
+          if ( outputData == null ) {
+            putRowBatch( data.metadataRowMeta, output );
+            setOutputDone(); // signal end to receiver(s)
+            return false;
+          }
+          output.addRow( outputData );
+        } catch ( KettleException e ) {
+          handleRowError( rowCopy, e );
         }
-        putError( getInputRowMeta(), rowCopy, 1, e.getMessage(), field, "SELECT001" );
-      } else {
-        throw e;
       }
+      putRowBatch( data.metadataRowMeta, output );
     }
 
     if ( checkFeedback( getLinesRead() ) ) {
@@ -408,6 +464,68 @@ public class SelectValues extends BaseStep implements StepInterface {
     return true;
   }
 
+  private void prepareRowMeta() throws KettleException {
+    data.selectRowMeta = getInputRowMeta().clone();
+    meta.getSelectFields( data.selectRowMeta, getStepname() );
+    data.deselectRowMeta = data.selectRowMeta.clone();
+    meta.getDeleteFields( data.deselectRowMeta );
+    data.metadataRowMeta = data.deselectRowMeta.clone();
+    meta.getMetadataFields( data.metadataRowMeta, getStepname(), this );
+  }
+
+  /**
+   * @return the index of the source field for every output field, or null if a field is copied more than once (and
+   *         needs to be cloned) or if the selection doesn't match the source row layout.
+   */
+  private int[] getProjection( RowMetaInterface rowMeta ) {
+    int[] projection = new int[ data.fieldnrs.length + data.extraFieldnrs.length ];
+    if ( projection.length != data.selectRowMeta.size() ) {
+      return null;
+    }
+    boolean[] used = new boolean[ rowMeta.size() ];
+    int index = 0;
+    for ( int[] fieldnrs : new int[][] { data.fieldnrs, data.extraFieldnrs } ) {
+      for ( int fieldnr : fieldnrs ) {
+        if ( fieldnr >= used.length || used[ fieldnr ] ) {
+          return null;
+        }
+        used[ fieldnr ] = true;
+        projection[ index++ ] = fieldnr;
+      }
+    }
+    return projection;
+  }
+
+  private Object[] changeValues( Object[] rowData ) throws KettleException {
+    Object[] outputData = rowData;
+
+    if ( data.select ) {
+      outputData = selectValues( getInputRowMeta(), outputData );
+    }
+    if ( data.deselect && outputData != null ) {
+      outputData = removeValues( data.selectRowMeta, outputData );
+    }
+    if ( data.metadata && outputData != null ) {
+      outputData = metadataValues( data.deselectRowMeta, outputData );
+    }
+    return outputData;
+  }
+
+  private void handleRowError( Object[] rowCopy, KettleException e ) throws KettleException {
+    if ( getStepMeta().isDoingErrorHandling() ) {
+      String field;
+      if ( e instanceof KettleConversionException ) {
+        List<ValueMetaInterface> fields = ( (KettleConversionException) e ).getFields();
+        field = fields.isEmpty() ? null : fields.get( 0 ).getName();
+      } else {
+        field = null;
+      }
+      putError( getInputRowMeta(), rowCopy, 1, e.getMessage(), field, "SELECT001" );
+    } else {
+      throw e;
+    }
+  }
+
   public boolean init( StepMetaInterface smi, StepDataInterface sdi ) {
     meta = (SelectValuesMeta) smi;
     data = (SelectValuesData) sdi;
@@ -421,6 +539,9 @@ public class SelectValues extends BaseStep implements StepInterface {
       data.deselect = false;
       data.metadata = false;
 
+      data.batchSize = getRowBatchSize();
+      data.projection = null;
+
       if ( !Utils.isEmpty( meta.getSelectFields() ) ) {
         data.select = true;
       }
@@ -42,4 +42,7 @@ public class SelectValuesData extends BaseStepData implements StepDataInterface
   public boolean select; // "normal" selection of fields.
   public boolean deselect; // de-select mode
   public boolean metadata; // change meta-data (rename & change length/precision)
+
+  public int batchSize; // process rows in batches of this size, 0 means row by row
+  public int[] projection; // source field index for every output field when a batch can simply be projected
 }
@@ -846,6 +846,11 @@ public class SelectValuesMeta extends BaseStepMeta implements StepMetaInterface
     return true;
   }
 
+  @Override
+  public boolean supportsCooperativeScheduling() {
+    return true;
+  }
+
   public SelectField[] getSelectFields() {
     return selectFields;
   }
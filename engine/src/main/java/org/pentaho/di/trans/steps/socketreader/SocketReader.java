@@ -31,6 +31,7 @@ import org.pentaho.di.i18n.BaseMessages;
 import org.pentaho.di.trans.Trans;
 import org.pentaho.di.trans.TransMeta;
 import org.pentaho.di.trans.step.BaseStep;
+import org.pentaho.di.trans.step.RemoteRowReader;
 import org.pentaho.di.trans.step.StepDataInterface;
 import org.pentaho.di.trans.step.StepInterface;
 import org.pentaho.di.trans.step.StepMeta;
@@ -128,10 +129,19 @@ public class SocketReader extends BaseStep implements StepInterface {
           }
         }
 
-        data.rowMeta = new RowMeta( data.inputStream ); // This is the metadata
+        // This is the metadata, sent once before the batches of rows or the single rows
+        data.rowReader = RemoteRowReader.open( data.inputStream );
+        data.rowMeta = data.rowReader != null ? data.rowReader.getRowMeta() : new RowMeta( data.inputStream );
         first = false;
       }
-      r = data.rowMeta.readData( data.inputStream );
+      if ( data.rowReader != null ) {
+        r = data.rowReader.readRow();
+        if ( r == null ) {
+          throw new KettleEOFException();
+        }
+      } else {
+        r = data.rowMeta.readData( data.inputStream );
+      }
 
       incrementLinesInput();
 
@@ -20,6 +20,7 @@ import java.net.Socket;
 
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.trans.step.BaseStepData;
+import org.pentaho.di.trans.step.RemoteRowReader;
 import org.pentaho.di.trans.step.StepDataInterface;
 
 /**
@@ -33,6 +34,7 @@ public class SocketReaderData extends BaseStepData implements StepDataInterface
   public DataOutputStream outputStream;
   public DataInputStream inputStream;
   public RowMetaInterface rowMeta;
+  public RemoteRowReader rowReader;
 
   public SocketReaderData() {
     super();
@@ -25,6 +25,7 @@ import org.pentaho.di.i18n.BaseMessages;
 import org.pentaho.di.trans.Trans;
 import org.pentaho.di.trans.TransMeta;
 import org.pentaho.di.trans.step.BaseStep;
+import org.pentaho.di.trans.step.RemoteRowWriter;
 import org.pentaho.di.trans.step.StepDataInterface;
 import org.pentaho.di.trans.step.StepInterface;
 import org.pentaho.di.trans.step.StepMeta;
@@ -96,6 +97,15 @@ public class SocketWriter extends BaseStep implements StepInterface {
     // Input rowMeta is automatically set, available when needed
 
     if ( r == null ) { // no more input to be expected...
+      if ( data.rowWriter != null ) {
+        try {
+          data.rowWriter.finish();
+        } catch ( Exception e ) {
+          logError( "Error writing to socket : " + e.toString() );
+          setErrors( 1 );
+          stopAll();
+        }
+      }
 
       setOutputDone();
       return false;
@@ -103,15 +113,29 @@ public class SocketWriter extends BaseStep implements StepInterface {
 
     try {
       if ( first ) {
-        getInputRowMeta().writeMeta( data.outputStream );
+        int batchSize = Const.toInt( getVariable( Const.KETTLE_REMOTE_STEP_BATCH_SIZE ), 0 );
+        if ( batchSize > 0 ) {
+          data.rowWriter = new RemoteRowWriter( data.outputStream, getInputRowMeta(), batchSize,
+            getVariable( Const.KETTLE_REMOTE_STEP_COMPRESSION ) );
+        } else {
+          getInputRowMeta().writeMeta( data.outputStream );
+        }
         first = false;
       }
-      getInputRowMeta().writeData( data.outputStream, r );
+      if ( data.rowWriter != null ) {
+        data.rowWriter.writeRow( r );
+      } else {
+        getInputRowMeta().writeData( data.outputStream, r );
+      }
       incrementLinesOutput();
 
       // flush every X rows
       if ( getLinesOutput() > 0 && data.flushInterval > 0 && ( getLinesOutput() % data.flushInterval ) == 0 ) {
-        data.outputStream.flush();
+        if ( data.rowWriter != null ) {
+          data.rowWriter.flush();
+        } else {
+          data.outputStream.flush();
+        }
       }
 
     } catch ( Exception e ) {
@@ -19,6 +19,7 @@ import java.net.ServerSocket;
 import java.net.Socket;
 
 import org.pentaho.di.trans.step.BaseStepData;
+import org.pentaho.di.trans.step.RemoteRowWriter;
 import org.pentaho.di.trans.step.StepDataInterface;
 
 /**
@@ -28,6 +29,7 @@ import org.pentaho.di.trans.step.StepDataInterface;
  */
 public class SocketWriterData extends BaseStepData implements StepDataInterface {
   public DataOutputStream outputStream;
+  public RemoteRowWriter rowWriter;
   public Socket clientSocket;
   public int flushInterval;
   public ServerSocket serverSocket;
@@ -0,0 +1,129 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.sort;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import org.pentaho.di.core.exception.KettleException;
+
+/**
+ * Merges k sorted runs of rows with a tournament tree of losers. Every node of the tree remembers the run that lost the
+ * match played there, the overall winner sits at the top. Taking the smallest row and replacing it by the next row of
+ * the same run only replays the matches on the path from that run's leaf to the top: log2(k) comparisons per row, no
+ * matter how the runs are distributed.
+ *
+ * Rows that compare equal come out in the order of their runs, so the merge is stable if the runs are numbered in the
+ * order of the input.
+ *
+ * @since 11.1
+ */
+public class LoserTree {
+
+  /**
+   * A sorted run of rows.
+   */
+  public interface Run {
+    /**
+     * @return the next row of the run or null if there are no more rows
+     */
+    Object[] next() throws KettleException;
+  }
+
+  private final Run[] runs;
+  private final Object[][] heads;
+  private final int[] tree;
+  private final int k;
+  private final Comparator<Object[]> comparator;
+
+  /**
+   * @param runs
+   *          the sorted runs to merge
+   * @param comparator
+   *          the comparator the runs are sorted with
+   * @throws KettleException
+   *           in case the first row of a run can't be read
+   */
+  public LoserTree( List<? extends Run> runs, Comparator<Object[]> comparator ) throws KettleException {
+    this.k = runs.size();
+    this.runs = runs.toArray( new Run[ k ] );
+    this.comparator = comparator;
+    this.heads = new Object[ k ][];
+    this.tree = new int[ Math.max( 1, k ) ];
+
+    for ( int i = 0; i < k; i++ ) {
+      heads[ i ] = this.runs[ i ].next();
+    }
+
+    // Index k stands for a virtual run that beats everything. Replaying all the leaves pushes it out of the tree.
+    //
+    Arrays.fill( tree, k );
+    for ( int i = k - 1; i >= 0; i-- ) {
+      replay( i );
+    }
+  }
+
+  /**
+   * @return the smallest row of all the runs, or null if all the runs are exhausted
+   * @throws KettleException
+   *           in case the next row of a run can't be read
+   */
+  public Object[] poll() throws KettleException {
+    if ( k == 0 ) {
+      return null;
+    }
+    int winner = tree[ 0 ];
+    Object[] row = heads[ winner ];
+    if ( row != null ) {
+      heads[ winner ] = runs[ winner ].next();
+      replay( winner );
+    }
+    return row;
+  }
+
+  private void replay( int run ) {
+    int winner = run;
+    for ( int node = ( run + k ) >>> 1; node > 0; node >>>= 1 ) {
+      if ( beats( tree[ node ], winner ) ) {
+        int loser = winner;
+        winner = tree[ node ];
+        tree[ node ] = loser;
+      }
+    }
+    tree[ 0 ] = winner;
+  }
+
+  /**
+   * @return true if the head of run a comes before the head of run b. Exhausted runs lose against everything.
+   */
+  private boolean beats( int a, int b ) {
+    if ( a == k ) {
+      return true;
+    }
+    if ( b == k ) {
+      return false;
+    }
+    Object[] rowA = heads[ a ];
+    Object[] rowB = heads[ b ];
+    if ( rowA == null ) {
+      return false;
+    }
+    if ( rowB == null ) {
+      return true;
+    }
+    int cmp = comparator.compare( rowA, rowB );
+    return cmp < 0 || ( cmp == 0 && a < b );
+  }
+}
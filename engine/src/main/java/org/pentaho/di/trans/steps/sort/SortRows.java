@@ -16,27 +16,30 @@ package org.pentaho.di.trans.steps.sort;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.net.SocketTimeoutException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import org.apache.commons.vfs2.FileObject;
 import org.apache.commons.vfs2.FileSystemException;
 import org.pentaho.di.core.Const;
+import org.pentaho.di.core.compress.CompressionProviderFactory;
+import org.pentaho.di.core.compress.gzip.GZIPCompressionProvider;
 import org.pentaho.di.core.exception.KettleException;
-import org.pentaho.di.core.exception.KettleFileException;
 import org.pentaho.di.core.exception.KettleValueException;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.row.spill.RowSizeEstimator;
+import org.pentaho.di.core.row.spill.RowSpillReader;
+import org.pentaho.di.core.row.spill.RowSpillWriter;
+import org.pentaho.di.core.util.ExecutorUtil;
+import org.pentaho.di.core.util.Utils;
 import org.pentaho.di.core.vfs.KettleVFS;
 import org.pentaho.di.i18n.BaseMessages;
 import org.pentaho.di.trans.Trans;
@@ -78,36 +81,21 @@ public class SortRows extends BaseStep implements StepInterface {
 
     // Save row
     data.buffer.add( r );
-
-    // Check the free memory every 1000 rows...
-    //
-    data.freeCounter++;
-    if ( data.sortSize <= 0 && data.freeCounter >= 1000 ) {
-      data.freeMemoryPct = Const.getPercentageFreeMemory();
-      data.freeCounter = 0;
-
-      if ( log.isDetailed() ) {
-        data.memoryReporting++;
-        if ( data.memoryReporting >= 10 ) {
-          if ( log.isDetailed() ) {
-            logDetailed( BaseMessages.getString( PKG, "SortRows.Detailed.AvailableMemory", data.freeMemoryPct ) );
-          }
-          data.memoryReporting = 0;
-        }
-      }
+    if ( data.memoryBudget > 0 ) {
+      data.bufferBytes += RowSizeEstimator.estimateSize( r );
     }
 
     // Buffer is full: sort & dump to disk
+    // While the background threads sort and write earlier runs, their rows are still in memory: they share the budget.
+    //
     boolean doSort = data.buffer.size() == data.sortSize;
-    doSort |=
-        data.freeMemoryPctLimit > 0 && data.freeMemoryPct < data.freeMemoryPctLimit
-            && data.buffer.size() >= data.minSortSize;
-    if ( log.isDebug() ) {
-      this.logDebug( BaseMessages.getString( PKG, "SortRows.Debug.StartDumpToDisk", data.freeMemoryPct, data.buffer
-          .size() ) );
-    }
+    doSort |= data.memoryBudget > 0 && data.bufferBytes >= data.memoryBudget / ( data.sortThreads + 1 );
+
     // time to sort the buffer and write the data to disk...
     if ( doSort ) {
+      if ( log.isDebug() ) {
+        logDebug( BaseMessages.getString( PKG, "SortRows.Debug.StartRun", data.buffer.size(), data.bufferBytes ) );
+      }
       sortExternalRows();
     }
   }
@@ -120,249 +108,147 @@ public class SortRows extends BaseStep implements StepInterface {
       return;
     }
 
-    // First sort the rows in buffer[]
-    quickSort( data.buffer );
-
-    // Then write them to disk...
-    DataOutputStream dos;
-    GZIPOutputStream gzos;
-    int p;
-
+    final List<Object[]> rows = data.buffer;
+    final FileObject fileObject;
     try {
-      FileObject fileObject =
+      fileObject =
           KettleVFS.getInstance( getTransMeta().getBowl() )
             .createTempFile( meta.getPrefix(), ".tmp", environmentSubstitute( meta.getDirectory() ), getTransMeta() );
+    } catch ( Exception e ) {
+      throw new KettleException( "Error processing temp-file!", e );
+    }
+    data.files.add( fileObject ); // Remember the files! The order of the files is the order of the input.
 
-      data.files.add( fileObject ); // Remember the files!
-      OutputStream outputStream = KettleVFS.getInstance( getTransMeta().getBowl() )
-        .getOutputStream( fileObject, false );
-      if ( data.compressFiles ) {
-        gzos = new GZIPOutputStream( new BufferedOutputStream( outputStream ) );
-        dos = new DataOutputStream( gzos );
-      } else {
-        dos = new DataOutputStream( new BufferedOutputStream( outputStream, 500000 ) );
-        gzos = null;
-      }
+    // Start a new buffer while the previous one is sorted and written
+    //
+    data.buffer = new ArrayList<Object[]>( rows.size() );
+    data.bufferBytes = 0L;
+    data.getBufferIndex = 0;
 
-      // Just write the data, nothing else
-      List<Integer> duplicates = new ArrayList<Integer>();
-      Object[] previousRow = null;
-      if ( meta.isOnlyPassingUniqueRows() ) {
-        int index = 0;
-        while ( index < data.buffer.size() ) {
-          Object[] row = data.buffer.get( index );
-          if ( previousRow != null ) {
-            int result = data.outputRowMeta.compare( row, previousRow, data.fieldnrs );
-            if ( result == 0 ) {
-              duplicates.add( index );
-              if ( log.isRowLevel() ) {
-                logRowlevel( BaseMessages.getString( PKG, "SortRows.RowLevel.DuplicateRowRemoved", data.outputRowMeta
-                    .getString( row ) ) );
-              }
-            }
-          }
-          index++;
-          previousRow = row;
-        }
+    if ( data.sortThreads > 0 ) {
+      // Don't keep more runs in memory than we have threads for
+      //
+      while ( data.pendingRuns.size() >= data.sortThreads ) {
+        waitForRun( data.pendingRuns.removeFirst() );
       }
+      final RowMetaInterface rowMeta = data.outputRowMeta.clone();
+      data.pendingRuns.add( ExecutorUtil.getExecutor().submit( () -> {
+        writeRun( rowMeta, new RowObjectArrayComparator( rowMeta, data.fieldnrs ), rows, fileObject );
+        return null;
+      } ) );
+    } else {
+      writeRun( data.outputRowMeta, data.rowComparator, rows, fileObject );
+    }
+  }
 
-      // How many records do we have left?
-      data.bufferSizes.add( data.buffer.size() - duplicates.size() );
+  /**
+   * Sort a run of rows and write it to a spill file. This runs in a background thread if sort threads are configured,
+   * that's why it's only using the given row metadata and comparator.
+   */
+  private void writeRun( RowMetaInterface rowMeta, Comparator<Object[]> comparator, List<Object[]> rows,
+                         FileObject fileObject ) throws KettleException {
+    sort( rows, comparator, rowMeta );
 
-      int duplicatesIndex = 0;
-      for ( p = 0; p < data.buffer.size(); p++ ) {
-        boolean skip = false;
-        if ( duplicatesIndex < duplicates.size() ) {
-          if ( p == duplicates.get( duplicatesIndex ) ) {
-            skip = true;
-            duplicatesIndex++;
+    try ( RowSpillWriter writer = new RowSpillWriter( rowMeta, getSpillOutputStream( fileObject ) ) ) {
+      // Just write the data, nothing else
+      Object[] previousRow = null;
+      for ( Object[] row : rows ) {
+        if ( meta.isOnlyPassingUniqueRows() && previousRow != null
+          && rowMeta.compare( row, previousRow, data.fieldnrs ) == 0 ) {
+          if ( log.isRowLevel() ) {
+            logRowlevel( BaseMessages.getString( PKG, "SortRows.RowLevel.DuplicateRowRemoved", rowMeta
+                .getString( row ) ) );
           }
+          continue;
         }
-        if ( !skip ) {
-          data.outputRowMeta.writeData( dos, data.buffer.get( p ) );
-        }
+        writer.writeRow( row );
+        previousRow = row;
       }
+    } catch ( IOException e ) {
+      throw new KettleException( "Error processing temp-file!", e );
+    }
 
-      if ( data.sortSize < 0 ) {
-        if ( data.buffer.size() > data.minSortSize ) {
-          data.minSortSize = data.buffer.size(); // if we did it once, we can do
-                                                 // it again.
-
-          // Memory usage goes up over time, even with garbage collection
-          // We need pointers, file handles, etc.
-          // As such, we're going to lower the min sort size a bit
-          //
-          data.minSortSize = (int) Math.round( data.minSortSize * 0.90 );
-        }
-      }
-
-      // Clear the list
-      data.buffer.clear();
-
-      // Close temp-file
-      dos.close(); // close data stream
-      if ( gzos != null ) {
-        gzos.close(); // close gzip stream
-      }
-      outputStream.close(); // close file stream
+    // Clear the list
+    rows.clear();
+  }
 
-      // How much memory do we have left?
-      //
-      data.freeMemoryPct = Const.getPercentageFreeMemory();
-      data.freeCounter = 0;
-      if ( data.sortSize <= 0 ) {
-        if ( log.isDetailed() ) {
-          logDetailed( BaseMessages.getString( PKG, "SortRows.Detailed.AvailableMemory", data.freeMemoryPct ) );
-        }
-      }
+  private void waitForRun( Future<?> run ) throws KettleException {
+    try {
+      run.get();
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      throw new KettleException( BaseMessages.getString( PKG, "SortRows.Error.InterruptedWaitingForRun" ), e );
+    } catch ( ExecutionException e ) {
+      throw new KettleException( "Error processing temp-file!", e.getCause() );
+    }
+  }
 
-    } catch ( Exception e ) {
-      throw new KettleException( "Error processing temp-file!", e );
+  private void waitForRuns() throws KettleException {
+    while ( !data.pendingRuns.isEmpty() ) {
+      waitForRun( data.pendingRuns.removeFirst() );
     }
+  }
 
-    data.getBufferIndex = 0;
+  private OutputStream getSpillOutputStream( FileObject fileObject ) throws IOException {
+    OutputStream outputStream = KettleVFS.getInstance( getTransMeta().getBowl() ).getOutputStream( fileObject, false );
+    if ( data.spillCompression != null ) {
+      return new BufferedOutputStream( data.spillCompression.createOutputStream(
+        new BufferedOutputStream( outputStream, 65536 ) ), 500000 );
+    }
+    return new BufferedOutputStream( outputStream, 500000 );
   }
 
-  private DataInputStream getDataInputStream( GZIPInputStream gzipInputStream ) {
-    DataInputStream result = new DataInputStream( gzipInputStream );
-    data.gzis.add( gzipInputStream );
-    return result;
+  private InputStream getSpillInputStream( FileObject fileObject ) throws IOException {
+    InputStream inputStream = KettleVFS.getInputStream( fileObject );
+    if ( data.spillCompression != null ) {
+      return new BufferedInputStream( data.spillCompression.createInputStream(
+        new BufferedInputStream( inputStream, 65536 ) ), 50000 );
+    }
+    return new BufferedInputStream( inputStream, 50000 );
   }
 
   // get sorted rows from available files in iterative manner.
   // that means call to this method will continue to return rows
   // till all temp files will not be read to the end.
-  Object[] getBuffer() throws KettleValueException {
-    Object[] retval;
+  Object[] getBuffer() throws KettleException {
+    if ( data.files.isEmpty() ) {
+      // read from in-memory processing
+
+      if ( data.getBufferIndex < data.buffer.size() ) {
+        return data.buffer.get( data.getBufferIndex++ );
+      }
+      return null;
+    }
+
+    // read from disk processing: open all files at once and merge them
+    //
+    if ( data.merge == null ) {
+      waitForRuns();
 
-    // Open all files at once and read one row from each file...
-    if ( data.files.size() > 0 && ( data.dis.size() == 0 || data.fis.size() == 0 ) ) {
       if ( log.isBasic() ) {
         logBasic( BaseMessages.getString( PKG, "SortRows.Basic.OpeningTempFiles", data.files.size() ) );
       }
 
+      List<SpillRun> runs = new ArrayList<SpillRun>( data.files.size() );
       try {
         for ( int f = 0; f < data.files.size() && !isStopped(); f++ ) {
           FileObject fileObject = data.files.get( f );
-          String filename = KettleVFS.getFilename( fileObject );
-          if ( log.isDetailed() ) {
-            logDetailed( BaseMessages.getString( PKG, "SortRows.Detailed.OpeningTempFile", filename ) );
-          }
-          InputStream fi = KettleVFS.getInputStream( fileObject );
-          DataInputStream di;
-          data.fis.add( fi );
-          if ( data.compressFiles ) {
-            di = getDataInputStream( new GZIPInputStream( new BufferedInputStream( fi ) ) );
-          } else {
-            di = new DataInputStream( new BufferedInputStream( fi, 50000 ) );
-          }
-          data.dis.add( di );
-
-          // How long is the buffer?
-          int buffersize = data.bufferSizes.get( f );
-
           if ( log.isDetailed() ) {
-            logDetailed( BaseMessages.getString( PKG, "SortRows.Detailed.FromFileExpectingRows",
-                filename, buffersize ) );
-          }
-
-          if ( buffersize > 0 ) {
-            Object[] row = data.outputRowMeta.readData( di );
-            data.rowbuffer.add( row ); // new row from input stream
-            data.tempRows.add( new RowTempFile( row, f ) );
+            logDetailed( BaseMessages.getString( PKG, "SortRows.Detailed.OpeningTempFile",
+              KettleVFS.getFilename( fileObject ) ) );
           }
+          SpillRun run = new SpillRun( fileObject,
+            new RowSpillReader( data.outputRowMeta, getSpillInputStream( fileObject ) ) );
+          data.readers.add( run.reader );
+          runs.add( run );
         }
-
-        // Sort the data row buffer
-        Collections.sort( data.tempRows, data.comparator );
-      } catch ( Exception e ) {
-        logError( BaseMessages.getString( PKG, "SortRows.Error.ErrorReadingBackTempFiles" ), e );
+      } catch ( IOException e ) {
+        throw new KettleException( BaseMessages.getString( PKG, "SortRows.Error.ErrorReadingBackTempFiles" ), e );
       }
+      data.merge = new LoserTree( runs, data.rowComparator );
     }
 
-    if ( data.files.size() == 0 ) {
-      // read from in-memory processing
-
-      if ( data.getBufferIndex < data.buffer.size() ) {
-        retval = data.buffer.get( data.getBufferIndex );
-        data.getBufferIndex++;
-      } else {
-        retval = null;
-      }
-    } else {
-      // read from disk processing
-
-      if ( data.rowbuffer.size() == 0 ) {
-        retval = null;
-      } else {
-        // We now have "filenr" rows waiting: which one is the smallest?
-        //
-        if ( log.isRowLevel() ) {
-          for ( int i = 0; i < data.rowbuffer.size() && !isStopped(); i++ ) {
-            Object[] b = data.rowbuffer.get( i );
-            logRowlevel( BaseMessages
-                .getString( PKG, "SortRows.RowLevel.PrintRow", i, data.outputRowMeta.getString( b ) ) );
-          }
-        }
-
-        RowTempFile rowTempFile = data.tempRows.remove( 0 );
-        retval = rowTempFile.row;
-        int smallest = rowTempFile.fileNumber;
-
-        // now get another Row for position smallest
-
-        FileObject file = data.files.get( smallest );
-        DataInputStream di = data.dis.get( smallest );
-        InputStream fi = data.fis.get( smallest );
-
-        try {
-          Object[] row2 = data.outputRowMeta.readData( di );
-          RowTempFile extra = new RowTempFile( row2, smallest );
-
-          int index = Collections.binarySearch( data.tempRows, extra, data.comparator );
-          if ( index < 0 ) {
-            data.tempRows.add( index * ( -1 ) - 1, extra );
-          } else {
-            data.tempRows.add( index, extra );
-          }
-        } catch ( KettleFileException fe ) { // empty file or EOF mostly
-          GZIPInputStream gzfi = ( data.compressFiles ) ? data.gzis.get( smallest ) : null;
-          try {
-            di.close();
-            fi.close();
-            if ( gzfi != null ) {
-              gzfi.close();
-            }
-            file.delete();
-          } catch ( IOException e ) {
-            logError( BaseMessages.getString( PKG, "SortRows.Error.UnableToCloseFile", smallest, file.toString() ) );
-            setErrors( 1 );
-            stopAll();
-            return null;
-          }
-
-          data.files.remove( smallest );
-          data.dis.remove( smallest );
-          data.fis.remove( smallest );
-
-          if ( gzfi != null ) {
-            data.gzis.remove( smallest );
-          }
-
-          // Also update all file numbers in in data.tempRows if they are larger
-          // than smallest.
-          //
-          for ( RowTempFile rtf : data.tempRows ) {
-            if ( rtf.fileNumber > smallest ) {
-              rtf.fileNumber--;
-            }
-          }
-        } catch ( SocketTimeoutException e ) {
-          throw new KettleValueException( e ); // should never happen on local files
-        }
-      }
-    }
-    return retval;
+    return data.merge.poll();
   }
 
   @Override
@@ -412,7 +298,6 @@ public class SortRows extends BaseStep implements StepInterface {
       data.outputRowMeta = inputRowMeta.clone();
       meta.getFields( getTransMeta().getBowl(), data.outputRowMeta, getStepname(), null, null, this, repository,
         metaStore );
-      data.comparator = new RowTemapFileComparator( data.outputRowMeta, data.fieldnrs );
 
       for ( int i = 0; i < fieldNames.length; i++ ) {
         data.fieldnrs[i] = inputRowMeta.indexOfValue( fieldNames[i] );
@@ -559,24 +444,47 @@ public class SortRows extends BaseStep implements StepInterface {
       //
       data.freeMemoryPctLimit = 25;
     }
+    data.memoryBudget = getMemoryBudget();
+    data.sortThreads = Math.max( 0, Const.toInt( getVariable( Const.KETTLE_SORT_THREADS ),
+      Math.min( 4, Runtime.getRuntime().availableProcessors() - 1 ) ) );
+    if ( log.isDetailed() ) {
+      logDetailed( BaseMessages.getString( PKG, "SortRows.Detailed.MemoryBudget", data.memoryBudget,
+        data.sortThreads ) );
+    }
 
     // In memory buffer
     //
     data.buffer = new ArrayList<Object[]>( 5000 );
 
-    // Buffer for reading from disk
-    //
-    data.rowbuffer = new ArrayList<Object[]>( 5000 );
-
     data.compressFiles = getBooleanValueOfVariable( meta.getCompressFilesVariable(), meta.getCompressFiles() );
-
-    data.tempRows = new ArrayList<RowTempFile>();
-
-    data.minSortSize = 5000;
+    String compression = getVariable( Const.KETTLE_SORT_SPILL_COMPRESSION );
+    if ( !Utils.isEmpty( compression ) ) {
+      data.spillCompression = CompressionProviderFactory.getInstance().getCompressionProviderByName( compression );
+      if ( data.spillCompression == null ) {
+        logError( BaseMessages.getString( PKG, "SortRows.Error.UnknownSpillCompression", compression ) );
+        return false;
+      }
+    } else if ( data.compressFiles ) {
+      data.spillCompression = new GZIPCompressionProvider();
+    }
 
     return true;
   }
 
+  /**
+   * @return the number of bytes the buffered rows may take, or -1 to only look at the sort size (number of rows)
+   */
+  private long getMemoryBudget() {
+    long budget = RowSizeEstimator.toBytes( getVariable( Const.KETTLE_SORT_MEMORY_BUDGET ), -1L );
+    if ( budget <= 0 && data.freeMemoryPctLimit > 0 ) {
+      // Keep the requested share of the heap free. We only take half of the rest: our estimates don't see everything
+      // and the other steps need memory too.
+      //
+      budget = Runtime.getRuntime().maxMemory() / 100 * ( 100 - Math.min( 100, data.freeMemoryPctLimit ) ) / 2;
+    }
+    return budget;
+  }
+
   @Override
   public void dispose( StepMetaInterface smi, StepDataInterface sdi ) {
     clearBuffers();
@@ -587,21 +495,26 @@ public class SortRows extends BaseStep implements StepInterface {
 
     // Clean out the sort buffer
     data.buffer.clear();
+    data.bufferBytes = 0L;
     data.getBufferIndex = 0;
-    data.rowbuffer.clear();
 
-    // close any open DataInputStream objects
-    if ( ( data.dis != null ) && ( data.dis.size() > 0 ) ) {
-      for ( DataInputStream dis : data.dis ) {
-        BaseStep.closeQuietly( dis );
+    // let the background threads finish before we remove their files
+    for ( Future<?> run : data.pendingRuns ) {
+      try {
+        run.get();
+      } catch ( Exception e ) {
+        // The error was already reported, or will be by the step that is still running
       }
     }
-    // close any open InputStream objects
-    if ( ( data.fis != null ) && ( data.fis.size() > 0 ) ) {
-      for ( InputStream is : data.fis ) {
-        BaseStep.closeQuietly( is );
-      }
+    data.pendingRuns.clear();
+
+    // close any open readers
+    for ( RowSpillReader reader : data.readers ) {
+      BaseStep.closeQuietly( reader );
     }
+    data.readers.clear();
+    data.merge = null;
+
     // remove temp files
     for ( int f = 0; f < data.files.size(); f++ ) {
       FileObject fileToDelete = data.files.get( f );
@@ -613,17 +526,22 @@ public class SortRows extends BaseStep implements StepInterface {
         logError( e.getLocalizedMessage(), e );
       }
     }
+    data.files.clear();
   }
 
   /**
    * Sort the entire vector, if it is not empty.
    */
   void quickSort( List<Object[]> elements ) throws KettleException {
+    sort( elements, data.rowComparator, data.outputRowMeta );
+  }
+
+  private void sort( List<Object[]> elements, Comparator<Object[]> comparator, RowMetaInterface rowMeta ) {
     if ( elements.size() > 0 ) {
-      Collections.sort( elements, data.rowComparator );
+      Collections.sort( elements, comparator );
 
       long nrConversions = 0L;
-      for ( ValueMetaInterface valueMeta : data.outputRowMeta.getValueMetaList() ) {
+      for ( ValueMetaInterface valueMeta : rowMeta.getValueMetaList() ) {
         nrConversions += valueMeta.getNumberOfBinaryStringConversions();
         valueMeta.setNumberOfBinaryStringConversions( 0L );
       }
@@ -681,15 +599,15 @@ public class SortRows extends BaseStep implements StepInterface {
     }
   }
 
-  private class RowTemapFileComparator extends SortRowsComparator implements Comparator<RowTempFile> {
-    RowTemapFileComparator( RowMetaInterface rowMeta, int[] fieldNrs ) {
+  private class RowObjectArrayComparator extends SortRowsComparator implements Comparator<Object[]> {
+    RowObjectArrayComparator( RowMetaInterface rowMeta, int[] fieldNrs ) {
       super( rowMeta, fieldNrs );
     }
 
     @Override
-    public int compare( RowTempFile o1, RowTempFile o2 ) {
+    public int compare( Object[] o1, Object[] o2 ) {
       try {
-        return rowMeta.compare( o1.row, o2.row, fieldNrs );
+        return rowMeta.compare( o1, o2, fieldNrs );
       } catch ( KettleValueException e ) {
         logError( "Error comparing rows: " + e.toString() );
         return 0;
@@ -697,19 +615,31 @@ public class SortRows extends BaseStep implements StepInterface {
     }
   }
 
-  private class RowObjectArrayComparator extends SortRowsComparator implements Comparator<Object[]> {
-    RowObjectArrayComparator( RowMetaInterface rowMeta, int[] fieldNrs ) {
-      super( rowMeta, fieldNrs );
+  /**
+   * A sorted run read back from its spill file. The file is removed as soon as the run is exhausted.
+   */
+  private class SpillRun implements LoserTree.Run {
+    private final FileObject fileObject;
+    private final RowSpillReader reader;
+
+    SpillRun( FileObject fileObject, RowSpillReader reader ) {
+      this.fileObject = fileObject;
+      this.reader = reader;
     }
 
     @Override
-    public int compare( Object[] o1, Object[] o2 ) {
-      try {
-        return rowMeta.compare( o1, o2, fieldNrs );
-      } catch ( KettleValueException e ) {
-        logError( "Error comparing rows: " + e.toString() );
-        return 0;
+    public Object[] next() throws KettleException {
+      Object[] row = reader.readRow();
+      if ( row == null ) {
+        try {
+          reader.close();
+          fileObject.delete();
+        } catch ( IOException e ) {
+          logError( BaseMessages.getString( PKG, "SortRows.Error.UnableToCloseFile", data.files.indexOf( fileObject ),
+            fileObject.toString() ) );
+        }
       }
+      return row;
     }
   }
 }
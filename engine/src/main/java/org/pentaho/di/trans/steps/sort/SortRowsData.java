@@ -14,15 +14,17 @@
 
 package org.pentaho.di.trans.steps.sort;
 
-import java.io.DataInputStream;
-import java.io.InputStream;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.Deque;
 import java.util.List;
-import java.util.zip.GZIPInputStream;
+import java.util.concurrent.Future;
 
 import org.apache.commons.vfs2.FileObject;
+import org.pentaho.di.core.compress.CompressionProvider;
 import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.spill.RowSpillReader;
 import org.pentaho.di.trans.step.BaseStepData;
 import org.pentaho.di.trans.step.StepDataInterface;
 
@@ -34,32 +36,29 @@ public class SortRowsData extends BaseStepData implements StepDataInterface {
   public List<FileObject> files;
   public List<Object[]> buffer;
   public int getBufferIndex;
+  public long bufferBytes; // the estimated heap size of the rows in the buffer
 
-  public List<InputStream> fis;
-  public List<GZIPInputStream> gzis;
-  public List<DataInputStream> dis;
-  public List<Object[]> rowbuffer;
-  public List<Integer> bufferSizes;
+  // The runs that are being sorted and written in the background, oldest first
+  public Deque<Future<?>> pendingRuns;
 
-  // To store rows and file references
-  public List<RowTempFile> tempRows;
+  // Merging the sorted runs read back from the files
+  public List<RowSpillReader> readers;
+  public LoserTree merge;
 
   public int[] fieldnrs; // the corresponding field numbers;
   public FileObject fil;
   public RowMetaInterface outputRowMeta;
   public int sortSize;
   public boolean compressFiles;
+  public CompressionProvider spillCompression;
   public int[] convertKeysToNative;
   public boolean convertAnyKeysToNative;
 
-  Comparator<RowTempFile> comparator;
   Comparator<Object[]> rowComparator;
 
-  public int freeCounter;
-  public int freeMemoryPct;
-  public int minSortSize;
   public int freeMemoryPctLimit;
-  public int memoryReporting;
+  public long memoryBudget; // in bytes, -1 to only look at the sort size
+  public int sortThreads; // the number of background threads sorting and writing runs
 
   /*
    * Group Fields Implementation heroic
@@ -72,10 +71,8 @@ public class SortRowsData extends BaseStepData implements StepDataInterface {
     super();
 
     files = new ArrayList<FileObject>();
-    fis = new ArrayList<InputStream>();
-    gzis = new ArrayList<GZIPInputStream>();
-    dis = new ArrayList<DataInputStream>();
-    bufferSizes = new ArrayList<Integer>();
+    pendingRuns = new ArrayDeque<Future<?>>();
+    readers = new ArrayList<RowSpillReader>();
 
     previous = null; // Heroic
   }
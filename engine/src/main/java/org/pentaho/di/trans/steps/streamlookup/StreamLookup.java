@@ -14,16 +14,20 @@
 
 package org.pentaho.di.trans.steps.streamlookup;
 
+import org.pentaho.di.core.Const;
 import org.pentaho.di.core.RowMetaAndData;
 import org.pentaho.di.core.RowSet;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.exception.KettleStepException;
 import org.pentaho.di.core.exception.KettleValueException;
-import org.pentaho.di.core.hash.ByteArrayHashIndex;
+import org.pentaho.di.core.hash.DiskHashIndex;
+import org.pentaho.di.core.hash.PackedHashIndex;
+import org.pentaho.di.core.logging.Metrics;
 import org.pentaho.di.core.row.RowDataUtil;
 import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.row.spill.RowSizeEstimator;
 import org.pentaho.di.core.row.value.ValueMetaFactory;
 import org.pentaho.di.core.util.Utils;
 import org.pentaho.di.i18n.BaseMessages;
@@ -35,9 +39,11 @@ import org.pentaho.di.trans.step.StepInterface;
 import org.pentaho.di.trans.step.StepMeta;
 import org.pentaho.di.trans.step.StepMetaInterface;
 
+import java.io.File;
 import java.math.BigDecimal;
 import java.text.DateFormat;
 import java.util.Collections;
+import java.util.List;
 
 /**
  * Looks up information by first reading data into a hash table (in memory)
@@ -51,6 +57,9 @@ import java.util.Collections;
 public class StreamLookup extends BaseStep implements StepInterface {
   private static Class<?> PKG = StreamLookupMeta.class; // for i18n purposes, needed by Translator2!!
 
+  /** The estimated heap used per lookup row on top of the key and value, for the hash map and the sorted list */
+  private static final int ENTRY_OVERHEAD = 64;
+
   private StreamLookupMeta meta;
   private StreamLookupData data;
 
@@ -190,6 +199,7 @@ public class StreamLookup extends BaseStep implements StepInterface {
 
         data.cacheKeyMeta = cacheKeyMeta;
         data.cacheValueMeta = cacheValueMeta;
+        data.memoryBudget = RowSizeEstimator.toBytes( getVariable( Const.KETTLE_LOOKUP_MEMORY_BUDGET ), 0L );
       }
 
       Object[] keyData = new Object[keyNrs.length];
@@ -210,9 +220,52 @@ public class StreamLookup extends BaseStep implements StepInterface {
       rowData = getRowFrom( rowSet );
     }
 
+    if ( meta.isMemoryPreservationActive() ) {
+      if ( meta.isUsingSortedList() ) {
+        sortList();
+      } else if ( data.packedIndex != null ) {
+        logIndexSize( data.packedIndex.size(), data.packedIndex.getMemoryUsage() );
+      }
+    }
+    if ( data.diskIndex != null ) {
+      data.diskIndex.finish();
+      if ( log.isBasic() ) {
+        logBasic( BaseMessages.getString( PKG, "StreamLookup.Log.DiskIndexSize", data.diskIndex.getRecordCount(),
+          data.diskIndex.size(), data.diskIndex.getDiskUsage() ) );
+      }
+    }
+
     return true;
   }
 
+  /**
+   * Sort the lookup rows in one go once they're all read. The sort is stable, so of the rows with the same key the
+   * last one read is kept, like a hashtable would do.
+   */
+  private void sortList() {
+    data.list.sort( data.comparator );
+    List<KeyValue> list = data.list;
+    int size = 0;
+    for ( int i = 0; i < list.size(); i++ ) {
+      if ( size > 0 && data.comparator.compare( list.get( size - 1 ), list.get( i ) ) == 0 ) {
+        list.set( size - 1, list.get( i ) );
+      } else {
+        list.set( size++, list.get( i ) );
+      }
+    }
+    list.subList( size, list.size() ).clear();
+  }
+
+  private void logIndexSize( int rows, long bytes ) {
+    long bytesPerRow = rows == 0 ? 0L : bytes / rows;
+    log.snap( Metrics.METRIC_STEP_LOOKUP_ROWS, getStepname(), rows );
+    log.snap( Metrics.METRIC_STEP_LOOKUP_BYTES, getStepname(), bytes );
+    log.snap( Metrics.METRIC_STEP_LOOKUP_BYTES_PER_ROW, getStepname(), bytesPerRow );
+    if ( log.isDetailed() ) {
+      logDetailed( BaseMessages.getString( PKG, "StreamLookup.Log.LookupIndexSize", rows, bytes, bytesPerRow ) );
+    }
+  }
+
   private Object[] lookupValues( RowMetaInterface rowMeta, Object[] row ) throws KettleException {
     // See if we need to stop.
     if ( isStopped() ) {
@@ -285,49 +338,76 @@ public class StreamLookup extends BaseStep implements StepInterface {
   }
 
   private void addToCache( RowMetaInterface keyMeta, Object[] keyData, RowMetaInterface valueMeta,
-    Object[] valueData ) throws KettleValueException {
+    Object[] valueData ) throws KettleException {
+    if ( meta.isMemoryPreservationActive() && !meta.isUsingSortedList() && meta.isUsingIntegerPair() ) {
+      if ( !data.metadataVerifiedIntegerPair ) {
+        data.metadataVerifiedIntegerPair = true;
+        if ( keyMeta.size() != 1
+          || valueMeta.size() != 1 || !keyMeta.getValueMeta( 0 ).isInteger()
+          || !valueMeta.getValueMeta( 0 ).isInteger() ) {
+
+          throw new KettleValueException( BaseMessages.getString(
+            PKG, "StreamLookup.Exception.CanNotUseIntegerPairAlgorithm" ) );
+        }
+        data.integerPairValueMeta = valueMeta.clone();
+        data.integerPairValueMeta.getValueMeta( 0 ).setStorageType( ValueMetaInterface.STORAGE_TYPE_NORMAL );
+      }
+      valueData = new Object[] { valueMeta.getInteger( valueData, 0 ) };
+      valueMeta = data.integerPairValueMeta;
+    }
+
+    // Once over the memory budget, the rest of the lookup rows go to disk
+    //
+    if ( data.diskIndex != null ) {
+      data.diskIndex.put( keyData, valueData );
+      return;
+    }
+
     if ( meta.isMemoryPreservationActive() ) {
       if ( meta.isUsingSortedList() ) {
-        KeyValue keyValue = new KeyValue( keyData, valueData );
-        int idx = Collections.binarySearch( data.list, keyValue, data.comparator );
-        if ( idx < 0 ) {
-          int index = -idx - 1; // this is the insertion point
-          data.list.add( index, keyValue ); // insert to keep sorted.
-        } else {
-          data.list.set( idx, keyValue ); // Overwrite to simulate Hashtable behaviour
-        }
+        // Sorted once all lookup rows are read, see sortList()
+        data.list.add( new KeyValue( keyData, valueData ) );
       } else {
-        if ( meta.isUsingIntegerPair() ) {
-          if ( !data.metadataVerifiedIntegerPair ) {
-            data.metadataVerifiedIntegerPair = true;
-            if ( keyMeta.size() != 1
-              || valueMeta.size() != 1 || !keyMeta.getValueMeta( 0 ).isInteger()
-              || !valueMeta.getValueMeta( 0 ).isInteger() ) {
-
-              throw new KettleValueException( BaseMessages.getString(
-                PKG, "StreamLookup.Exception.CanNotUseIntegerPairAlgorithm" ) );
-            }
-          }
-
-          Long key = keyMeta.getInteger( keyData, 0 );
-          Long value = valueMeta.getInteger( valueData, 0 );
-          data.longIndex.put( key, value );
-        } else {
-          if ( data.hashIndex == null ) {
-            data.hashIndex = new ByteArrayHashIndex( keyMeta );
-          }
-          data.hashIndex
-            .put( RowMeta.extractData( keyMeta, keyData ), RowMeta.extractData( valueMeta, valueData ) );
+        if ( data.packedIndex == null ) {
+          data.packedIndex = new PackedHashIndex( keyMeta, valueMeta );
         }
+        data.packedIndex.put( keyData, valueData );
       }
     } else {
       // We can't just put Object[] in the map The compare function is not in it.
       // We need to wrap in and use that. Let's use RowMetaAndData for this one.
       data.look.put( new RowMetaAndData( keyMeta, keyData ), valueData );
     }
+
+    if ( data.memoryBudget > 0 ) {
+      if ( data.packedIndex != null ) {
+        data.memoryUsage = data.packedIndex.getMemoryUsage();
+      } else {
+        data.memoryUsage +=
+          RowSizeEstimator.estimateSize( keyData ) + RowSizeEstimator.estimateSize( valueData ) + ENTRY_OVERHEAD;
+      }
+      if ( data.memoryUsage > data.memoryBudget ) {
+        String directory = getVariable( Const.KETTLE_LOOKUP_DISK_DIRECTORY );
+        data.diskIndex = new DiskHashIndex( keyMeta, valueMeta,
+          new File( Utils.isEmpty( directory ) ? System.getProperty( "java.io.tmpdir" ) : directory ), true,
+          Const.toInt( getVariable( Const.KETTLE_LOOKUP_DISK_CACHE_SIZE ), 10000 ) );
+        if ( log.isBasic() ) {
+          logBasic( BaseMessages.getString( PKG, "StreamLookup.Log.StartDiskIndex", data.memoryUsage ) );
+        }
+      }
+    }
   }
 
-  private Object[] getFromCache( RowMetaInterface keyMeta, Object[] keyData ) throws KettleValueException {
+  private Object[] getFromCache( RowMetaInterface keyMeta, Object[] keyData ) throws KettleException {
+    // The rows on disk were read last, so they replace the ones in memory with the same key
+    //
+    if ( data.diskIndex != null ) {
+      Object[] value = data.diskIndex.get( keyData );
+      if ( value != null ) {
+        return value;
+      }
+    }
+
     if ( meta.isMemoryPreservationActive() ) {
       if ( meta.isUsingSortedList() ) {
         KeyValue keyValue = new KeyValue( keyData, null );
@@ -339,24 +419,7 @@ public class StreamLookup extends BaseStep implements StepInterface {
         keyValue = data.list.get( idx );
         return keyValue.getValue();
       } else {
-        if ( meta.isUsingIntegerPair() ) {
-          Long value = data.longIndex.get( keyMeta.getInteger( keyData, 0 ) );
-          if ( value == null ) {
-            return null;
-          }
-          return new Object[] { value, };
-        } else {
-          try {
-            byte[] value = data.hashIndex.get( RowMeta.extractData( keyMeta, keyData ) );
-            if ( value == null ) {
-              return null;
-            }
-            return RowMeta.getRow( data.cacheValueMeta, value );
-   } catch ( Exception e ) {
-            logError( "Oops", e );
-            throw new RuntimeException( e );
-          }
-        }
+        return data.packedIndex.get( keyData );
       }
     } else {
       return data.look.get( new RowMetaAndData( keyMeta, keyData ) );
@@ -473,8 +536,11 @@ public class StreamLookup extends BaseStep implements StepInterface {
     //
     data.look = null;
     data.list = null;
-    data.hashIndex = null;
-    data.longIndex = null;
+    data.packedIndex = null;
+    if ( data.diskIndex != null ) {
+      data.diskIndex.close();
+      data.diskIndex = null;
+    }
 
     super.dispose( smi, sdi );
   }
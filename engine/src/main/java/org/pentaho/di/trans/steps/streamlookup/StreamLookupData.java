@@ -22,8 +22,8 @@ import java.util.Map;
 
 import org.pentaho.di.core.RowMetaAndData;
 import org.pentaho.di.core.exception.KettleValueException;
-import org.pentaho.di.core.hash.ByteArrayHashIndex;
-import org.pentaho.di.core.hash.LongHashIndex;
+import org.pentaho.di.core.hash.DiskHashIndex;
+import org.pentaho.di.core.hash.PackedHashIndex;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.trans.step.BaseStepData;
 import org.pentaho.di.trans.step.StepDataInterface;
@@ -63,8 +63,19 @@ public class StreamLookupData extends BaseStepData implements StepDataInterface
 
   public Comparator<KeyValue> comparator;
 
-  public ByteArrayHashIndex hashIndex;
-  public LongHashIndex longIndex;
+  /** The lookup rows when preserving memory without a sorted list */
+  public PackedHashIndex packedIndex;
+
+  /** The value layout of the integer pair algorithm: a single integer in normal storage */
+  public RowMetaInterface integerPairValueMeta;
+
+  /** The lookup rows read after the memory budget was exceeded, if any */
+  public DiskHashIndex diskIndex;
+
+  /** The maximum estimated size of the lookup rows in memory in bytes, 0 for no limit */
+  public long memoryBudget;
+
+  public long memoryUsage;
 
   public RowMetaInterface lookupMeta;
 
@@ -85,8 +96,7 @@ public class StreamLookupData extends BaseStepData implements StepDataInterface
   public StreamLookupData() {
     super();
     look = new HashMap<RowMetaAndData, Object[]>();
-    hashIndex = null;
-    longIndex = new LongHashIndex();
+    packedIndex = null;
     list = new ArrayList<KeyValue>();
     metadataVerifiedIntegerPair = false;
     hasLookupRows = false;
@@ -16,7 +16,11 @@ package org.pentaho.di.trans.steps.tableinput;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.json.simple.JSONObject;
@@ -98,6 +102,10 @@ public class TableInput extends BaseDatabaseStep implements StepInterface {
     dbLock.lock();
     try {
 
+      if ( data.splits != null ) {
+        return putNextSplitRow();
+      }
+
       if ( first ) { // we just got started
 
         Object[] parameters;
@@ -139,6 +147,10 @@ public class TableInput extends BaseDatabaseStep implements StepInterface {
           return false; // stop immediately, nothing to do here.
         }
 
+        if ( isSplittingQuery() && startSplitQueries( parametersMeta, parameters ) ) {
+          return putNextSplitRow();
+        }
+
         boolean success = doQuery( parametersMeta, parameters );
         if ( !success ) {
           return false;
@@ -223,16 +235,19 @@ public class TableInput extends BaseDatabaseStep implements StepInterface {
     }
   }
 
+  private String getQuery() {
+    if ( meta.isVariableReplacementActive() ) {
+      return environmentSubstitute( meta.getSQL() );
+    } else {
+      return meta.getSQL();
+    }
+  }
+
   private boolean doQuery( RowMetaInterface parametersMeta, Object[] parameters ) throws KettleDatabaseException {
     boolean success = true;
 
     // Open the query with the optional parameters received from the source steps.
-    String sql = null;
-    if ( meta.isVariableReplacementActive() ) {
-      sql = environmentSubstitute( meta.getSQL() );
-    } else {
-      sql = meta.getSQL();
-    }
+    String sql = getQuery();
 
     if ( log.isDetailed() ) {
       logDetailed( BaseMessages.getString( PKG, "TableInput.Log.SqlQuery", sql ) );
@@ -273,6 +288,157 @@ public class TableInput extends BaseDatabaseStep implements StepInterface {
     return success;
   }
 
+  /**
+   * The query is split in ranges of a field, read in parallel over their own connections, when a split field and
+   * more than one range are set. It's not when the query runs for each input row, or when the transformation uses
+   * unique connections: the ranges can't share the transaction.
+   */
+  private boolean isSplittingQuery() {
+    if ( Utils.isEmpty( meta.getSplitField() )
+      || Const.toInt( environmentSubstitute( meta.getSplitCount() ), 0 ) < 2 ) {
+      return false;
+    }
+    if ( meta.isExecuteEachInputRow() || getTransMeta().isUsingUniqueConnections() ) {
+      logBasic( BaseMessages.getString( PKG, "TableInput.Log.SplitNotPossible" ) );
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Read the minimum and maximum of the split field, and start reading the ranges in between in parallel.
+   *
+   * @return false if the query can't be split, because it returns no rows or too few distinct values
+   */
+  private boolean startSplitQueries( RowMetaInterface parametersMeta, Object[] parameters ) throws KettleException {
+    DatabaseMeta databaseMeta = meta.getDatabaseMeta();
+    String sql = getQuery();
+    String splitField = environmentSubstitute( meta.getSplitField() );
+
+    String minMaxSQL = TableInputSplit.getMinMaxSQL( databaseMeta, sql, splitField );
+    if ( log.isDetailed() ) {
+      logDetailed( BaseMessages.getString( PKG, "TableInput.Log.SqlQuery", minMaxSQL ) );
+    }
+    RowMetaAndData minMax = parametersMeta.isEmpty() ? data.db.getOneRow( minMaxSQL )
+      : data.db.getOneRow( minMaxSQL, parametersMeta, parameters );
+    if ( minMax == null || minMax.getData() == null || minMax.getData()[ 0 ] == null
+      || minMax.getData()[ 1 ] == null ) {
+      return false;
+    }
+
+    List<TableInputSplit> splits =
+      TableInputSplit.createSplits( databaseMeta, sql, parametersMeta, parameters, splitField,
+        minMax.getValueMeta( 0 ), minMax.getData()[ 0 ], minMax.getData()[ 1 ],
+        Const.toInt( environmentSubstitute( meta.getSplitCount() ), 0 ), meta.isSplitOrdered() );
+    if ( splits.size() < 2 ) {
+      return false;
+    }
+
+    if ( log.isBasic() ) {
+      logBasic( BaseMessages.getString( PKG, "TableInput.Log.SplittingQuery", String.valueOf( splits.size() ),
+        splitField ) );
+    }
+    data.splits = splits;
+    data.splitsFinished = 0;
+    data.splitRowLimit = Const.toInt( environmentSubstitute( meta.getRowLimit() ), 0 );
+
+    // Unordered, the ranges share a queue: the rows are passed on as soon as they're read
+    //
+    int queueSize = Math.max( 1, getTransMeta().getSizeRowset() );
+    BlockingQueue<Object[]> sharedQueue = meta.isSplitOrdered() ? null : new ArrayBlockingQueue<>( queueSize );
+    for ( TableInputSplit split : splits ) {
+      if ( log.isDetailed() ) {
+        logDetailed( BaseMessages.getString( PKG, "TableInput.Log.SqlQuery", split.getSQL() ) );
+      }
+      Database db = new Database( this, databaseMeta );
+      db.shareVariablesWith( this );
+      if ( databaseMeta.isRequiringTransactionsOnQueries() ) {
+        db.setCommitSize( 100 ); // needed for PGSQL it seems...
+      }
+      try {
+        db.connect( getPartitionID() );
+        db.setAutoCommit();
+      } catch ( KettleDatabaseException e ) {
+        db.close();
+        throw e;
+      }
+      split.start( db, sharedQueue != null ? sharedQueue : new ArrayBlockingQueue<>( queueSize ),
+        meta.isLazyConversionActive() );
+    }
+    return true;
+  }
+
+  /**
+   * Pass on the next row read by the ranges of the split query: in the order of the ranges if the rows are ordered,
+   * else in the order they're read.
+   *
+   * @return false once all the ranges are read
+   */
+  private boolean putNextSplitRow() throws KettleException {
+    TableInputSplit split = data.splits.get( meta.isSplitOrdered() ? data.splitsFinished : 0 );
+    Object[] row;
+    try {
+      row = split.getQueue().poll( 100, TimeUnit.MILLISECONDS );
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      throw new KettleException( e );
+    }
+    if ( row == null ) {
+      return !isStopped(); // Nothing read yet, release the lock and try again
+    }
+
+    if ( row == TableInputSplit.END ) {
+      data.splitsFinished++;
+      for ( TableInputSplit s : data.splits ) {
+        if ( s.getError() != null ) {
+          throw new KettleException( BaseMessages.getString( PKG, "TableInput.Exception.SplitQueryFailed",
+            s.getSQL() ), s.getError() );
+        }
+      }
+      if ( data.splitsFinished < data.splits.size() ) {
+        return true;
+      }
+      setOutputDone(); // signal end to receiver(s)
+      return false;
+    }
+
+    if ( data.rowMeta == null ) {
+      // All ranges return the same fields, the range of this row has its metadata by now
+      for ( TableInputSplit s : data.splits ) {
+        if ( s.getRowMeta() != null ) {
+          data.rowMeta = s.getRowMeta();
+          break;
+        }
+      }
+      for ( ValueMetaInterface valueMeta : data.rowMeta.getValueMetaList() ) {
+        valueMeta.setOrigin( getStepname() );
+      }
+    }
+
+    incrementLinesInput();
+    putRow( data.rowMeta, row ); // fill the rowset(s). (wait for empty)
+
+    if ( checkFeedback( getLinesInput() ) ) {
+      if ( log.isBasic() ) {
+        logBasic( BaseMessages.getString( PKG, "TableInput.Log.LineNumber", String.valueOf( getLinesInput() ) ) );
+      }
+    }
+
+    if ( data.splitRowLimit > 0 && getLinesInput() >= data.splitRowLimit ) {
+      setOutputDone(); // signal end to receiver(s)
+      return false;
+    }
+    return true;
+  }
+
+  private void stopSplits() {
+    if ( data.splits != null ) {
+      for ( TableInputSplit split : data.splits ) {
+        split.stop();
+      }
+    }
+  }
+
   public void dispose( StepMetaInterface smi, StepDataInterface sdi ) {
     dbLock.lock();
     try {
@@ -280,6 +446,7 @@ public class TableInput extends BaseDatabaseStep implements StepInterface {
         logBasic( BaseMessages.getString( PKG, "TableInput.Log.FinishedReadingQuery" ) );
       }
       try {
+        stopSplits();
         closePreviousQuery();
       } catch ( KettleException e ) {
         logError( BaseMessages.getString( PKG, "TableInput.Log.ErrorClosingQuery", e.toString() ) );
@@ -310,6 +477,11 @@ public class TableInput extends BaseDatabaseStep implements StepInterface {
         data.db.cancelQuery();
         data.isCanceled = true;
       }
+      if ( data.splits != null ) {
+        for ( TableInputSplit split : data.splits ) {
+          split.cancel();
+        }
+      }
     } finally {
       dbLock.unlock();
     }
@@ -15,6 +15,7 @@
 package org.pentaho.di.trans.steps.tableinput;
 
 import java.sql.ResultSet;
+import java.util.List;
 
 import org.pentaho.di.core.RowSet;
 import org.pentaho.di.core.database.Database;
@@ -37,6 +38,13 @@ public class TableInputData extends BaseDatabaseStepData implements StepDataInte
   public boolean isCanceled;
   public StreamInterface infoStream;
 
+  /** The ranges of the split field read in parallel, null if the query isn't split */
+  public List<TableInputSplit> splits;
+  /** The number of ranges read completely */
+  public int splitsFinished;
+  /** The maximum number of rows to read over all ranges, 0 for no limit */
+  public long splitRowLimit;
+
   public TableInputData() {
     super();
 
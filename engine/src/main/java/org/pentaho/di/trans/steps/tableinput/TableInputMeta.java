@@ -88,6 +88,18 @@ public class TableInputMeta extends BaseDatabaseStepMeta implements StepMetaInte
 
   private RowMetaInterface cachedRowMeta;
 
+  /** The numeric or date field to split the query on, to read ranges of its values in parallel */
+  @Injection( name = "SPLIT_FIELD" )
+  private String splitField;
+
+  /** The number of ranges, each one read over its own connection */
+  @Injection( name = "SPLIT_COUNT" )
+  private String splitCount;
+
+  /** Should the rows of the ranges be passed on in the order of the split field? */
+  @Injection( name = "SPLIT_ORDERED" )
+  private boolean splitOrdered;
+
   public TableInputMeta() {
     super();
   }
@@ -183,6 +195,9 @@ public class TableInputMeta extends BaseDatabaseStepMeta implements StepMetaInte
       lazyConversionActive = "Y".equals( XMLHandler.getTagValue( stepnode, "lazy_conversion_active" ) );
       cachedRowMetaActive = "Y".equals( XMLHandler.getTagValue( stepnode, "cached_row_meta_active" ) );
       cachedRowMeta = new RowMeta( XMLHandler.getSubNode( stepnode, RowMeta.XML_META_TAG ) );
+      splitField = XMLHandler.getTagValue( stepnode, "split_field" );
+      splitCount = XMLHandler.getTagValue( stepnode, "split_count" );
+      splitOrdered = "Y".equals( XMLHandler.getTagValue( stepnode, "split_ordered" ) );
 
     } catch ( Exception e ) {
       throw new KettleXMLException( "Unable to load step info from XML", e );
@@ -193,6 +208,9 @@ public class TableInputMeta extends BaseDatabaseStepMeta implements StepMetaInte
     databaseMeta = null;
     sql = "SELECT <values> FROM <table name> WHERE <conditions>";
     rowLimit = "0";
+    splitField = null;
+    splitCount = "0";
+    splitOrdered = false;
   }
 
   protected Database getDatabase() {
@@ -302,6 +320,9 @@ public class TableInputMeta extends BaseDatabaseStepMeta implements StepMetaInte
     retval.append( "    " + XMLHandler.addTagValue( "variables_active", variableReplacementActive ) );
     retval.append( "    " + XMLHandler.addTagValue( "lazy_conversion_active", lazyConversionActive ) );
     retval.append( "    " + XMLHandler.addTagValue( "cached_row_meta_active", cachedRowMetaActive ) );
+    retval.append( "    " + XMLHandler.addTagValue( "split_field", splitField ) );
+    retval.append( "    " + XMLHandler.addTagValue( "split_count", splitCount ) );
+    retval.append( "    " + XMLHandler.addTagValue( "split_ordered", splitOrdered ) );
     storeCachedRowMeta( retval );
     return retval.toString();
   }
@@ -355,6 +376,9 @@ public class TableInputMeta extends BaseDatabaseStepMeta implements StepMetaInte
       variableReplacementActive = rep.getStepAttributeBoolean( id_step, "variables_active" );
       lazyConversionActive = rep.getStepAttributeBoolean( id_step, "lazy_conversion_active" );
       cachedRowMetaActive = rep.getStepAttributeBoolean( id_step, "cached_row_meta_active" );
+      splitField = rep.getStepAttributeString( id_step, "split_field" );
+      splitCount = rep.getStepAttributeString( id_step, "split_count" );
+      splitOrdered = rep.getStepAttributeBoolean( id_step, "split_ordered" );
 
       String sRowMeta = rep.getStepAttributeString( id_step, RowMeta.XML_META_TAG );
       if ( sRowMeta != null ) {
@@ -381,6 +405,9 @@ public class TableInputMeta extends BaseDatabaseStepMeta implements StepMetaInte
       rep.saveStepAttribute( id_transformation, id_step, "variables_active", variableReplacementActive );
       rep.saveStepAttribute( id_transformation, id_step, "lazy_conversion_active", lazyConversionActive );
       rep.saveStepAttribute( id_transformation, id_step, "cached_row_meta_active", cachedRowMetaActive );
+      rep.saveStepAttribute( id_transformation, id_step, "split_field", splitField );
+      rep.saveStepAttribute( id_transformation, id_step, "split_count", splitCount );
+      rep.saveStepAttribute( id_transformation, id_step, "split_ordered", splitOrdered );
       if ( cachedRowMeta != null ) {
         rep.saveStepAttribute( id_transformation, id_step, RowMeta.XML_META_TAG, cachedRowMeta.getMetaXML() );
       }
@@ -621,6 +648,48 @@ public class TableInputMeta extends BaseDatabaseStepMeta implements StepMetaInte
     this.cachedRowMeta = cachedRowMeta;
   }
 
+  /**
+   * @return the numeric or date field to split the query on, or null if the query isn't split
+   */
+  public String getSplitField() {
+    return splitField;
+  }
+
+  /**
+   * @param splitField the numeric or date field to split the query on
+   */
+  public void setSplitField( String splitField ) {
+    this.splitField = splitField;
+  }
+
+  /**
+   * @return the number of ranges of the split field to read in parallel
+   */
+  public String getSplitCount() {
+    return splitCount;
+  }
+
+  /**
+   * @param splitCount the number of ranges of the split field to read in parallel
+   */
+  public void setSplitCount( String splitCount ) {
+    this.splitCount = splitCount;
+  }
+
+  /**
+   * @return true if the rows of the ranges are passed on in the order of the split field
+   */
+  public boolean isSplitOrdered() {
+    return splitOrdered;
+  }
+
+  /**
+   * @param splitOrdered true to pass on the rows of the ranges in the order of the split field
+   */
+  public void setSplitOrdered( boolean splitOrdered ) {
+    this.splitOrdered = splitOrdered;
+  }
+
   /**
    * Returns the Input/Output metadata for this step. The generator step only produces output, does not accept input!
    */
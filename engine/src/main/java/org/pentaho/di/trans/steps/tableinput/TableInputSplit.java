@@ -0,0 +1,381 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.tableinput;
+
+import org.pentaho.di.core.database.Database;
+import org.pentaho.di.core.database.DatabaseMeta;
+import org.pentaho.di.core.exception.KettleDatabaseException;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.exception.KettleValueException;
+import org.pentaho.di.core.row.RowDataUtil;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.util.ExecutorUtil;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A range of the values of a numeric or date field of the {@code TableInput} query, read over its own connection.
+ * <p>
+ * The query is wrapped as a sub-query, with a condition on the range of the split field. The first range also gets
+ * the rows where the field is null, the first and last ranges are open ended so no row is missed if the table changes
+ * after its minimum and maximum were read. When the rows are ordered, each range is sorted on the split field.
+ * <p>
+ * A trailing ORDER BY of the query is removed: the order of a sub-query is lost anyway, and databases like SQL
+ * Server refuse it there. It's kept if it goes with a limit on the number of rows, like TOP, LIMIT or FETCH FIRST.
+ *
+ * @since 11.1
+ */
+public class TableInputSplit implements Runnable {
+
+  /** Marks the end of the rows of a range in its queue */
+  static final Object[] END = new Object[ 0 ];
+
+  private static final long POLL_MILLIS = 100L;
+
+  private static final Pattern ORDER_BY = Pattern.compile( "ORDER\\s+BY\\b", Pattern.CASE_INSENSITIVE );
+  private static final Pattern ROW_LIMIT =
+    Pattern.compile( "\\b(LIMIT|OFFSET|FETCH|ROWS|FOR)\\b", Pattern.CASE_INSENSITIVE );
+  private static final Pattern SELECT_TOP =
+    Pattern.compile( "\\s*SELECT\\s+((DISTINCT|ALL)\\s+)?TOP\\b", Pattern.CASE_INSENSITIVE );
+
+  private final String sql;
+  private final RowMetaInterface parametersMeta;
+  private final Object[] parameters;
+
+  private Database db;
+  private BlockingQueue<Object[]> queue;
+  private boolean lazyConversion;
+  private Future<?> future;
+
+  private volatile RowMetaInterface rowMeta;
+  private volatile Exception error;
+  private volatile boolean stopped;
+
+  TableInputSplit( String sql, RowMetaInterface parametersMeta, Object[] parameters ) {
+    this.sql = sql;
+    this.parametersMeta = parametersMeta;
+    this.parameters = parameters;
+  }
+
+  /**
+   * @return the query reading the minimum and maximum of the split field over all rows of the query
+   */
+  public static String getMinMaxSQL( DatabaseMeta databaseMeta, String sql, String splitField ) {
+    String field = databaseMeta.quoteField( splitField );
+    return "SELECT MIN( " + field + " ), MAX( " + field + " ) FROM ( " + stripSQL( sql ) + " ) split_query";
+  }
+
+  /**
+   * Split the query in ranges of about the same width between the minimum and maximum of the split field.
+   *
+   * @param databaseMeta   the database the query runs on
+   * @param sql            the query, with its variables replaced
+   * @param parametersMeta the parameters of the query, empty if there are none
+   * @param parameters     the values of the parameters
+   * @param splitField     the field to split the query on
+   * @param splitMeta      the data type of the minimum and maximum of the split field
+   * @param min            the minimum of the split field, not null
+   * @param max            the maximum of the split field, not null
+   * @param count          the number of ranges wanted
+   * @param ordered        true to sort the rows of each range on the split field
+   * @return the ranges: fewer than wanted if there are too few distinct values between the minimum and maximum
+   * @throws KettleException in case the split field isn't a numeric or date field
+   */
+  public static List<TableInputSplit> createSplits( DatabaseMeta databaseMeta, String sql,
+                                                    RowMetaInterface parametersMeta, Object[] parameters,
+                                                    String splitField, ValueMetaInterface splitMeta, Object min,
+                                                    Object max, int count, boolean ordered )
+    throws KettleException {
+    List<Object> boundaries = getBoundaries( splitMeta, min, max, count );
+
+    String field = databaseMeta.quoteField( splitField );
+    String query = "SELECT * FROM ( " + stripSQL( sql ) + " ) split_query WHERE ";
+    ValueMetaInterface boundaryMeta = splitMeta.clone();
+    boundaryMeta.setStorageType( ValueMetaInterface.STORAGE_TYPE_NORMAL );
+
+    List<TableInputSplit> splits = new ArrayList<>();
+    for ( int i = 0; i <= boundaries.size(); i++ ) {
+      RowMetaInterface splitParametersMeta = parametersMeta.clone();
+      Object[] splitParameters = RowDataUtil.createResizedCopy( parameters, parametersMeta.size() );
+      String condition;
+      if ( i == 0 ) {
+        condition = "( " + field + " < ? OR " + field + " IS NULL )";
+      } else if ( i == boundaries.size() ) {
+        condition = field + " >= ?";
+      } else {
+        condition = field + " >= ? AND " + field + " < ?";
+      }
+      if ( i > 0 ) {
+        splitParametersMeta.addValueMeta( boundaryMeta.clone() );
+        splitParameters = RowDataUtil.addValueData( splitParameters, splitParametersMeta.size() - 1,
+          boundaries.get( i - 1 ) );
+      }
+      if ( i < boundaries.size() ) {
+        splitParametersMeta.addValueMeta( boundaryMeta.clone() );
+        splitParameters = RowDataUtil.addValueData( splitParameters, splitParametersMeta.size() - 1,
+          boundaries.get( i ) );
+      }
+      if ( ordered ) {
+        condition += " ORDER BY " + field;
+      }
+      splits.add( new TableInputSplit( query + condition, splitParametersMeta, splitParameters ) );
+    }
+    return splits;
+  }
+
+  /**
+   * @return the ascending, distinct values splitting the minimum to maximum range in about equal parts, at most
+   * count - 1 of them
+   */
+  static List<Object> getBoundaries( ValueMetaInterface splitMeta, Object min, Object max, int count )
+    throws KettleException {
+    List<Object> boundaries = new ArrayList<>();
+    switch ( splitMeta.getType() ) {
+      case ValueMetaInterface.TYPE_INTEGER:
+        BigInteger minInteger = BigInteger.valueOf( splitMeta.getInteger( min ) );
+        BigInteger width =
+          BigInteger.valueOf( splitMeta.getInteger( max ) ).subtract( minInteger ).add( BigInteger.ONE );
+        for ( int i = 1; i < count; i++ ) {
+          long boundary = minInteger.add( width.multiply( BigInteger.valueOf( i ) )
+            .divide( BigInteger.valueOf( count ) ) ).longValue();
+          addBoundary( boundaries, boundary, splitMeta.getInteger( min ) );
+        }
+        break;
+      case ValueMetaInterface.TYPE_NUMBER:
+        double minNumber = splitMeta.getNumber( min );
+        double maxNumber = splitMeta.getNumber( max );
+        for ( int i = 1; i < count; i++ ) {
+          addBoundary( boundaries, minNumber + ( maxNumber - minNumber ) * i / count, minNumber );
+        }
+        break;
+      case ValueMetaInterface.TYPE_BIGNUMBER:
+        BigDecimal minBigNumber = splitMeta.getBigNumber( min );
+        BigDecimal widthBigNumber = splitMeta.getBigNumber( max ).subtract( minBigNumber );
+        for ( int i = 1; i < count; i++ ) {
+          addBoundary( boundaries, minBigNumber.add( widthBigNumber.multiply( BigDecimal.valueOf( i ) )
+            .divide( BigDecimal.valueOf( count ), MathContext.DECIMAL64 ) ), minBigNumber );
+        }
+        break;
+      case ValueMetaInterface.TYPE_DATE:
+      case ValueMetaInterface.TYPE_TIMESTAMP:
+        long minTime = splitMeta.getDate( min ).getTime();
+        long maxTime = splitMeta.getDate( max ).getTime();
+        for ( int i = 1; i < count; i++ ) {
+          long time = minTime + BigInteger.valueOf( maxTime - minTime ).multiply( BigInteger.valueOf( i ) )
+            .divide( BigInteger.valueOf( count ) ).longValue();
+          Date boundary = splitMeta.getType() == ValueMetaInterface.TYPE_TIMESTAMP ? new Timestamp( time )
+            : new Date( time );
+          addBoundary( boundaries, boundary, new Date( minTime ) );
+        }
+        break;
+      default:
+        throw new KettleValueException( "The field to split the query on has to be a numeric or date field, "
+          + splitMeta.toStringMeta() + " isn't" );
+    }
+    return boundaries;
+  }
+
+  @SuppressWarnings( "unchecked" )
+  private static <T extends Comparable<? super T>> void addBoundary( List<Object> boundaries, Object boundary,
+                                                                     T min ) {
+    // Skip the boundaries equal to the minimum or the previous one: they'd make an empty range
+    T value = (T) boundary;
+    T last = boundaries.isEmpty() ? min : (T) boundaries.get( boundaries.size() - 1 );
+    if ( value.compareTo( last ) > 0 ) {
+      boundaries.add( boundary );
+    }
+  }
+
+  static String stripSQL( String sql ) {
+    String stripped = sql.trim();
+    while ( stripped.endsWith( ";" ) ) {
+      stripped = stripped.substring( 0, stripped.length() - 1 ).trim();
+    }
+    return stripOrderBy( stripped );
+  }
+
+  /**
+   * @return the query without its trailing ORDER BY, unless that one goes with a limit on the number of rows
+   */
+  private static String stripOrderBy( String sql ) {
+    // Find the last ORDER BY outside of parentheses and quotes
+    int orderBy = -1;
+    int depth = 0;
+    char quote = 0;
+    Matcher matcher = ORDER_BY.matcher( sql );
+    for ( int i = 0; i < sql.length(); i++ ) {
+      char c = sql.charAt( i );
+      if ( quote != 0 ) {
+        if ( c == quote ) {
+          quote = 0;
+        }
+      } else if ( c == '\'' || c == '"' || c == '`' || c == '[' ) {
+        quote = c == '[' ? ']' : c;
+      } else if ( c == '(' ) {
+        depth++;
+      } else if ( c == ')' ) {
+        depth--;
+      } else if ( depth == 0 && ( c == 'O' || c == 'o' )
+        && ( i == 0 || !Character.isLetterOrDigit( sql.charAt( i - 1 ) ) && sql.charAt( i - 1 ) != '_' )
+        && matcher.region( i, sql.length() ).lookingAt() ) {
+        orderBy = i;
+      }
+    }
+    if ( orderBy < 0 || ROW_LIMIT.matcher( sql.substring( orderBy ) ).find()
+      || SELECT_TOP.matcher( sql ).lookingAt() ) {
+      return sql;
+    }
+    return sql.substring( 0, orderBy ).trim();
+  }
+
+  /**
+   * Start reading the rows of the range in another thread.
+   *
+   * @param db             the connected database to read the range with, closed by {@link #stop()}
+   * @param queue          the queue to put the rows in, followed by {@link #END}
+   * @param lazyConversion true to read the strings in their binary form
+   */
+  public void start( Database db, BlockingQueue<Object[]> queue, boolean lazyConversion ) {
+    this.db = db;
+    this.queue = queue;
+    this.lazyConversion = lazyConversion;
+    future = ExecutorUtil.getExecutor().submit( this );
+  }
+
+  @Override
+  public void run() {
+    ResultSet rs = null;
+    try {
+      rs = db.openQuery( sql, parametersMeta, parameters, ResultSet.FETCH_FORWARD, lazyConversion );
+      if ( rs == null ) {
+        throw new KettleDatabaseException( "Couldn't open query [" + sql + "]" );
+      }
+      rowMeta = db.getReturnRowMeta();
+      Object[] row = db.getRow( rs, lazyConversion );
+      while ( row != null && put( row ) ) {
+        row = db.getRow( rs, lazyConversion );
+      }
+    } catch ( Exception e ) {
+      if ( !stopped ) {
+        error = e;
+      }
+    } finally {
+      try {
+        if ( rs != null ) {
+          db.closeQuery( rs );
+        }
+      } catch ( KettleDatabaseException e ) {
+        if ( error == null && !stopped ) {
+          error = e;
+        }
+      }
+      put( END );
+    }
+  }
+
+  /**
+   * Put a row in the queue, waiting for room unless the range is stopped.
+   *
+   * @return false if the range was stopped
+   */
+  private boolean put( Object[] row ) {
+    try {
+      while ( !stopped ) {
+        if ( queue.offer( row, POLL_MILLIS, TimeUnit.MILLISECONDS ) ) {
+          return true;
+        }
+      }
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      stopped = true;
+    }
+    return false;
+  }
+
+  /**
+   * Cancel the query of the range, if it's running.
+   */
+  public void cancel() throws KettleDatabaseException {
+    stopped = true;
+    if ( db != null && db.getConnection() != null ) {
+      db.cancelQuery();
+    }
+  }
+
+  /**
+   * Stop reading the range, wait for its thread and disconnect.
+   */
+  public void stop() {
+    stopped = true;
+    if ( future != null ) {
+      try {
+        future.get( 10, TimeUnit.SECONDS );
+      } catch ( InterruptedException e ) {
+        Thread.currentThread().interrupt();
+      } catch ( ExecutionException | TimeoutException e ) {
+        // The query isn't read anymore, the connection is closed below anyway
+      }
+      future = null;
+    }
+    if ( db != null ) {
+      db.close();
+      db = null;
+    }
+  }
+
+  public String getSQL() {
+    return sql;
+  }
+
+  public RowMetaInterface getParametersMeta() {
+    return parametersMeta;
+  }
+
+  public Object[] getParameters() {
+    return parameters;
+  }
+
+  public BlockingQueue<Object[]> getQueue() {
+    return queue;
+  }
+
+  /**
+   * @return the layout of the rows, once the query of the range is opened
+   */
+  public RowMetaInterface getRowMeta() {
+    return rowMeta;
+  }
+
+  /**
+   * @return the error that stopped reading the range, if any
+   */
+  public Exception getError() {
+    return error;
+  }
+}
@@ -20,6 +20,7 @@ import org.pentaho.di.core.RowMetaAndData;
 import org.pentaho.di.core.SQLStatement;
 import org.pentaho.di.core.database.Database;
 import org.pentaho.di.core.database.DatabaseInterface;
+import org.pentaho.di.core.database.DatabaseMeta;
 import org.pentaho.di.core.exception.KettleDatabaseBatchException;
 import org.pentaho.di.core.exception.KettleDatabaseException;
 import org.pentaho.di.core.exception.KettleException;
@@ -28,6 +29,7 @@ import org.pentaho.di.core.row.RowDataUtil;
 import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaBase;
 import org.pentaho.di.core.row.value.ValueMetaInteger;
 import org.pentaho.di.core.util.Utils;
 import org.pentaho.di.i18n.BaseMessages;
@@ -38,6 +40,7 @@ import org.pentaho.di.trans.step.*;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
@@ -74,6 +77,12 @@ public class TableOutput extends BaseDatabaseStep implements StepInterface {
       if ( first && meta.truncateTable() ) {
         truncateTable();
       }
+      if ( data.copy != null ) {
+        finishCopy();
+      }
+      if ( data.pipeline != null ) {
+        finishPipeline();
+      }
       return false;
     }
 
@@ -117,13 +126,24 @@ public class TableOutput extends BaseDatabaseStep implements StepInterface {
           }
         }
       }
+
+      data.copy = createCopy();
+      if ( data.copy == null ) {
+        data.pipeline = createPipeline();
+      }
     }
 
     try {
-      Object[] outputRowData = writeToTable( getInputRowMeta(), r );
-      if ( outputRowData != null ) {
-        putRow( data.outputRowMeta, outputRowData ); // in case we want it go further...
-        incrementLinesOutput();
+      if ( data.copy != null ) {
+        writeToCopy( r );
+      } else if ( data.pipeline != null ) {
+        writeToPipeline( r );
+      } else {
+        Object[] outputRowData = writeToTable( getInputRowMeta(), r );
+        if ( outputRowData != null ) {
+          putRow( data.outputRowMeta, outputRowData ); // in case we want it go further...
+          incrementLinesOutput();
+        }
       }
 
       if ( checkFeedback( getLinesRead() ) ) {
@@ -425,6 +445,209 @@ public class TableOutput extends BaseDatabaseStep implements StepInterface {
     return outputRowData;
   }
 
+  /**
+   * Stream the rows with COPY FROM STDIN in bulk mode, if the database and connection support it. As a row the
+   * database rejects fails the whole COPY, bulk mode isn't used with error handling or ignoring errors.
+   *
+   * @return the COPY writer, or null to insert the rows
+   */
+  TableOutputCopy createCopy() throws KettleException {
+    if ( !meta.isBulkMode() ) {
+      return null;
+    }
+    if ( meta.isTableNameInField() || meta.isPartitioningEnabled() || meta.isReturningGeneratedKeys()
+      || meta.ignoreErrors() || getStepMeta().isDoingErrorHandling()
+      || !TableOutputCopy.isSupported( data.databaseMeta, data.db.getConnection() ) ) {
+      logBasic( BaseMessages.getString( PKG, "TableOutput.Log.BulkModeNotPossible" ) );
+      return null;
+    }
+
+    String copyCommand = TableOutputCopy.getCopyCommand( data.databaseMeta,
+      environmentSubstitute( meta.getSchemaName() ), data.tableName, data.insertRowMeta );
+    if ( log.isDetailed() ) {
+      logDetailed( "COPY command : " + copyCommand );
+    }
+    if ( log.isBasic() ) {
+      logBasic( BaseMessages.getString( PKG, "TableOutput.Log.BulkMode" ) );
+    }
+    return new TableOutputCopy( copyCommand, data.insertRowMeta );
+  }
+
+  /**
+   * Copy a row to the table, committing every commit size rows. The rows are passed on right away, like the step
+   * does without batch updates.
+   */
+  void writeToCopy( Object[] r ) throws KettleException {
+    Object[] insertRowData = getInsertRowData( r );
+    data.copy.writeRow( data.db.getConnection(), insertRowData );
+    if ( isRowLevel() ) {
+      logRowlevel( "Written row: " + data.insertRowMeta.getString( insertRowData ) );
+    }
+    if ( data.copy.getRowCount() >= data.commitSize ) {
+      finishCopy();
+    }
+    putRow( data.outputRowMeta, r );
+    incrementLinesOutput();
+  }
+
+  /**
+   * End the COPY in progress, if any, and commit.
+   */
+  void finishCopy() throws KettleException {
+    if ( data.copy.isActive() ) {
+      long rows = data.copy.endCopy();
+      data.db.commit();
+      if ( log.isDetailed() ) {
+        logDetailed( "Copied " + rows + " rows to the table" );
+      }
+    }
+  }
+
+  private Object[] getInsertRowData( Object[] r ) {
+    if ( !meta.specifyFields() ) {
+      return r;
+    }
+    Object[] insertRowData = new Object[data.valuenrs.length];
+    for ( int idx = 0; idx < data.valuenrs.length; idx++ ) {
+      insertRowData[idx] = r[data.valuenrs[idx]];
+    }
+    return insertRowData;
+  }
+
+  /**
+   * Write the batches in the background over several connections, if KETTLE_TABLE_OUTPUT_WRITERS is set and the
+   * step writes in batches to a single table. The batches are still committed in their order.
+   *
+   * @return the pipeline, or null to write the rows on the step connection
+   */
+  TableOutputPipeline createPipeline() throws KettleException {
+    int writers = Const.toInt( getVariable( Const.KETTLE_TABLE_OUTPUT_WRITERS ), 0 );
+    if ( writers <= 0 || !data.batchMode || meta.isTableNameInField() || meta.isPartitioningEnabled()
+      || !data.db.getUseBatchInsert( true ) ) {
+      return null;
+    }
+
+    // Let the driver rewrite the batches of inserts, where it can
+    //
+    DatabaseMeta writerMeta = data.databaseMeta;
+    String multiRowOption = writerMeta.getDatabaseInterface().getMultiRowInsertOption();
+    if ( ValueMetaBase.convertStringToBoolean( getVariable( Const.KETTLE_TABLE_OUTPUT_MULTI_ROW_INSERT, "N" ) )
+      && multiRowOption != null && !writerMeta.isUsingConnectionPool() ) {
+      writerMeta = (DatabaseMeta) writerMeta.clone();
+      writerMeta.addExtraOption( writerMeta.getPluginId(), multiRowOption, "true" );
+    }
+
+    String sql =
+      data.db.getInsertStatement( environmentSubstitute( meta.getSchemaName() ), data.tableName, data.insertRowMeta );
+    if ( log.isDetailed() ) {
+      logDetailed( "Prepared statement : " + sql );
+    }
+
+    // A truncate not committed yet locks the table, the inserts of the other connections would wait for it forever
+    //
+    if ( meta.truncateTable() && !data.db.isAutoCommit() ) {
+      data.db.commit( true );
+    }
+
+    List<Database> connections = new ArrayList<>();
+    try {
+      for ( int i = 0; i < writers; i++ ) {
+        Database db = new Database( this, writerMeta );
+        db.shareVariablesWith( this );
+        connections.add( db );
+        db.setCommitSize( data.commitSize );
+        db.connect( getPartitionID() );
+        db.setAutoCommit();
+      }
+    } catch ( KettleException e ) {
+      for ( Database db : connections ) {
+        db.close();
+      }
+      throw e;
+    }
+
+    if ( log.isBasic() ) {
+      logBasic( BaseMessages.getString( PKG, "TableOutput.Log.WritingInBackground", writers ) );
+    }
+    return new TableOutputPipeline( connections, sql, data.insertRowMeta, getStepMeta().isDoingErrorHandling(),
+      meta.ignoreErrors() );
+  }
+
+  /**
+   * Add a row to the batch being filled, give it to the pipeline once it's full and pass on the rows of the batches
+   * written in the meantime.
+   */
+  void writeToPipeline( Object[] r ) throws KettleException {
+    Object[] insertRowData = getInsertRowData( r );
+    if ( data.pipelineBatch == null ) {
+      data.pipelineBatch = data.pipeline.newBatch();
+    }
+    data.pipelineBatch.addRow( r, insertRowData );
+    if ( data.pipelineBatch.size() >= data.commitSize ) {
+      data.pipeline.write( data.pipelineBatch );
+      data.pipelineBatch = null;
+    }
+    processWrittenBatches( false );
+  }
+
+  /**
+   * Write the last batch and wait for all batches to be written.
+   */
+  void finishPipeline() throws KettleException {
+    if ( data.pipelineBatch != null ) {
+      if ( data.pipelineBatch.size() > 0 ) {
+        data.pipeline.write( data.pipelineBatch );
+      }
+      data.pipelineBatch = null;
+    }
+    processWrittenBatches( true );
+  }
+
+  /**
+   * Pass on the rows of the written batches, in their order, like the step does writing on its own connection.
+   *
+   * @param wait true to wait for all batches to be written
+   */
+  private void processWrittenBatches( boolean wait ) throws KettleException {
+    TableOutputPipeline.Batch batch = data.pipeline.nextWrittenBatch( wait );
+    while ( batch != null ) {
+      if ( batch.getFailure() != null ) {
+        throw batch.getFailure();
+      }
+      for ( int i = 0; i < batch.getWarningRows().size(); i++ ) {
+        Object[] row = batch.getWarningRows().get( i );
+        if ( data.warnings < 20 ) {
+          if ( log.isBasic() ) {
+            logBasic( BaseMessages.getString( PKG, "TableOutput.Warning.CouldNotInsertRow",
+              getInputRowMeta().getString( row ) ) + Const.CR + batch.getErrorMessages().get( i ) );
+          }
+        } else if ( data.warnings == 20 ) {
+          if ( log.isBasic() ) {
+            logBasic( BaseMessages.getString( PKG, "TableOutput.Warning.CouldNotInsertRowFinal",
+              getInputRowMeta().getString( row ) ) + Const.CR + batch.getErrorMessages().get( i ) );
+          }
+        }
+        data.warnings++;
+      }
+      for ( int i = 0; i < batch.getErrorRows().size(); i++ ) {
+        putError( getInputRowMeta(), batch.getErrorRows().get( i ), 1L, batch.getErrorMessages().get( i ), null,
+          "TOP001" );
+      }
+
+      KettleDatabaseBatchException be = batch.getBatchException();
+      if ( be != null ) {
+        data.batchBuffer.addAll( batch.getOutputRows() );
+        processBatchException( be.toString(), be.getUpdateCounts(), be.getExceptionsList() );
+      } else {
+        for ( Object[] row : batch.getOutputRows() ) {
+          putRow( data.outputRowMeta, row );
+          incrementLinesOutput();
+        }
+      }
+      batch = data.pipeline.nextWrittenBatch( wait );
+    }
+  }
+
   public boolean isRowLevel() {
     return log.isRowLevel();
   }
@@ -553,6 +776,38 @@ public class TableOutput extends BaseDatabaseStep implements StepInterface {
     meta = (TableOutputMeta) smi;
     data = (TableOutputData) sdi;
 
+    if ( data.copy != null ) {
+      try {
+        if ( getErrors() == 0 ) {
+          // Stopped before the end of the rows: still commit what was read, like the inserts
+          finishCopy();
+        }
+      } catch ( KettleException e ) {
+        logError( BaseMessages.getString( PKG, "TableOutput.Log.ErrorEndingCopy" ), e );
+        setErrors( 1 );
+        stopAll();
+      } finally {
+        data.copy.cancelCopy();
+        data.copy = null;
+      }
+    }
+
+    if ( data.pipeline != null ) {
+      try {
+        if ( getErrors() == 0 ) {
+          // Stopped before the end of the rows: still commit what was read, like the step connection does
+          finishPipeline();
+        }
+      } catch ( KettleException e ) {
+        logError( BaseMessages.getString( PKG, "TableOutput.Log.ErrorWritingLastBatches" ), e );
+        setErrors( 1 );
+        stopAll();
+      } finally {
+        data.pipeline.close();
+        data.pipeline = null;
+      }
+    }
+
     if ( data.db != null ) {
       try {
         for ( String schemaTable : data.preparedStatements.keySet() ) {
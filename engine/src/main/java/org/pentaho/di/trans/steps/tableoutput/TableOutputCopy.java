@@ -0,0 +1,238 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.tableoutput;
+
+import org.pentaho.di.core.database.DatabaseMeta;
+import org.pentaho.di.core.exception.KettleDatabaseException;
+import org.pentaho.di.core.exception.KettleValueException;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * Streams the rows of a {@code TableOutput} step to a PostgreSQL or Greenplum table with COPY ... FROM STDIN, through
+ * the copy API of the JDBC driver. The rows are serialized in the text format of COPY, no file or client program is
+ * involved.
+ * <p>
+ * A COPY runs in the transaction of the connection: it's ended before each commit and started again on the next row.
+ * A row the database rejects fails the whole COPY.
+ *
+ * @since 11.1
+ */
+public class TableOutputCopy {
+
+  private static final int BUFFER_SIZE = 65536;
+
+  private final String copyCommand;
+  private final RowMetaInterface rowMeta;
+  private final StringBuilder line = new StringBuilder( 256 );
+  private final SimpleDateFormat dateFormat = new SimpleDateFormat( "yyyy-MM-dd HH:mm:ss.SSS" );
+
+  private PGCopyOutputStream out;
+  private long rowCount;
+
+  /**
+   * @param copyCommand the COPY command, see {@link #getCopyCommand(DatabaseMeta, String, String, RowMetaInterface)}
+   * @param rowMeta     the layout of the rows to load, in the order of the columns of the command
+   */
+  public TableOutputCopy( String copyCommand, RowMetaInterface rowMeta ) {
+    this.copyCommand = copyCommand;
+    this.rowMeta = rowMeta;
+  }
+
+  /**
+   * @return true if the database supports COPY FROM STDIN and the connection is one of the PostgreSQL driver
+   */
+  public static boolean isSupported( DatabaseMeta databaseMeta, Connection connection ) {
+    try {
+      return databaseMeta.getDatabaseInterface().supportsCopyFromStdin() && connection != null
+        && connection.isWrapperFor( PGConnection.class );
+    } catch ( SQLException e ) {
+      return false;
+    }
+  }
+
+  /**
+   * @return the command copying the fields of the row in the columns of the same name, in the text format
+   */
+  public static String getCopyCommand( DatabaseMeta databaseMeta, String schemaName, String tableName,
+                                       RowMetaInterface rowMeta ) {
+    StringBuilder sql = new StringBuilder( "COPY " );
+    sql.append( databaseMeta.getQuotedSchemaTableCombination( schemaName, tableName ) ).append( " ( " );
+    for ( int i = 0; i < rowMeta.size(); i++ ) {
+      if ( i > 0 ) {
+        sql.append( ", " );
+      }
+      sql.append( databaseMeta.quoteField( rowMeta.getValueMeta( i ).getName() ) );
+    }
+    sql.append( " ) FROM STDIN" );
+    return sql.toString();
+  }
+
+  /**
+   * Write a row, starting the COPY if needed.
+   *
+   * @param connection the connection to start the COPY on
+   * @param row        the values to load
+   */
+  public void writeRow( Connection connection, Object[] row ) throws KettleDatabaseException {
+    try {
+      if ( out == null ) {
+        out = new PGCopyOutputStream( connection.unwrap( PGConnection.class ), copyCommand, BUFFER_SIZE );
+        rowCount = 0;
+      }
+      line.setLength( 0 );
+      appendRow( line, row );
+      out.write( line.toString().getBytes( StandardCharsets.UTF_8 ) );
+      rowCount++;
+    } catch ( SQLException | IOException | KettleValueException e ) {
+      throw new KettleDatabaseException( "Error copying row to the table with values: " + getString( row ), e );
+    }
+  }
+
+  /**
+   * @return true if a COPY is started and not ended yet
+   */
+  public boolean isActive() {
+    return out != null;
+  }
+
+  /**
+   * @return the number of rows written since the COPY started
+   */
+  public long getRowCount() {
+    return rowCount;
+  }
+
+  /**
+   * End the COPY, if any: the rows are loaded once the transaction is committed.
+   *
+   * @return the number of rows loaded by the database
+   */
+  public long endCopy() throws KettleDatabaseException {
+    if ( out == null ) {
+      return 0L;
+    }
+    try {
+      return out.endCopy();
+    } catch ( SQLException e ) {
+      throw new KettleDatabaseException( "Error ending the COPY: " + copyCommand, e );
+    } finally {
+      out = null;
+    }
+  }
+
+  /**
+   * Cancel the COPY, if any: none of its rows are loaded.
+   */
+  public void cancelCopy() {
+    if ( out == null ) {
+      return;
+    }
+    try {
+      out.cancelCopy();
+    } catch ( SQLException e ) {
+      // The transaction is rolled back right after
+    } finally {
+      out = null;
+    }
+  }
+
+  /**
+   * Append a row in the text format of COPY: tab separated values, \N for null, backslash escapes, and a newline.
+   */
+  void appendRow( StringBuilder line, Object[] row ) throws KettleValueException {
+    for ( int i = 0; i < rowMeta.size(); i++ ) {
+      if ( i > 0 ) {
+        line.append( '\t' );
+      }
+      ValueMetaInterface valueMeta = rowMeta.getValueMeta( i );
+      Object valueData = row[ i ];
+      if ( valueMeta.isNull( valueData ) ) {
+        line.append( "\\N" );
+        continue;
+      }
+      switch ( valueMeta.getType() ) {
+        case ValueMetaInterface.TYPE_INTEGER:
+          line.append( valueMeta.getInteger( valueData ).longValue() );
+          break;
+        case ValueMetaInterface.TYPE_NUMBER:
+          line.append( valueMeta.getNumber( valueData ).doubleValue() );
+          break;
+        case ValueMetaInterface.TYPE_BIGNUMBER:
+          line.append( valueMeta.getBigNumber( valueData ).toString() );
+          break;
+        case ValueMetaInterface.TYPE_BOOLEAN:
+          line.append( valueMeta.getBoolean( valueData ) ? 't' : 'f' );
+          break;
+        case ValueMetaInterface.TYPE_DATE:
+        case ValueMetaInterface.TYPE_TIMESTAMP:
+          Date date = valueMeta.getDate( valueData );
+          line.append( date instanceof Timestamp ? date.toString() : dateFormat.format( date ) );
+          break;
+        case ValueMetaInterface.TYPE_BINARY:
+          // The hex format of bytea, its backslash escaped
+          line.append( "\\\\x" );
+          for ( byte b : valueMeta.getBinary( valueData ) ) {
+            line.append( Character.forDigit( ( b >> 4 ) & 0xF, 16 ) ).append( Character.forDigit( b & 0xF, 16 ) );
+          }
+          break;
+        default:
+          appendEscaped( line, valueMeta.getString( valueData ) );
+          break;
+      }
+    }
+    line.append( '\n' );
+  }
+
+  private static void appendEscaped( StringBuilder line, String value ) {
+    for ( int i = 0; i < value.length(); i++ ) {
+      char c = value.charAt( i );
+      switch ( c ) {
+        case '\\':
+          line.append( "\\\\" );
+          break;
+        case '\t':
+          line.append( "\\t" );
+          break;
+        case '\n':
+          line.append( "\\n" );
+          break;
+        case '\r':
+          line.append( "\\r" );
+          break;
+        default:
+          line.append( c );
+          break;
+      }
+    }
+  }
+
+  private String getString( Object[] row ) {
+    try {
+      return rowMeta.getString( row );
+    } catch ( KettleValueException e ) {
+      return "?";
+    }
+  }
+}
@@ -70,6 +70,15 @@ public class TableOutputData extends BaseDatabaseStepData implements StepDataInt
 
   public int commitSize;
 
+  /** Streams the rows with COPY FROM STDIN in bulk mode, null when inserting the rows */
+  public TableOutputCopy copy;
+
+  /** Writes the batches in the background over several connections, null when writing on the step connection */
+  public TableOutputPipeline pipeline;
+
+  /** The batch being filled for the pipeline */
+  public TableOutputPipeline.Batch pipelineBatch;
+
   public TableOutputData() {
     super();
 
@@ -0,0 +1,457 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.tableoutput;
+
+import org.pentaho.di.core.Const;
+import org.pentaho.di.core.database.Database;
+import org.pentaho.di.core.exception.KettleDatabaseBatchException;
+import org.pentaho.di.core.exception.KettleDatabaseException;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.util.ExecutorUtil;
+import org.pentaho.di.i18n.BaseMessages;
+
+import java.io.Closeable;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes the batches of a {@code TableOutput} step in the background, over a number of connections, while the step
+ * fills the next batch.
+ * <p>
+ * Each batch is inserted and executed on an idle connection, and committed once all the batches before it are
+ * committed: whatever happens, the rows in the table are always those of the first batches. Once a batch fails
+ * without error handling, the batches after it are rolled back. The step gets the written batches back in their
+ * order, to pass on their rows and send the failed ones to the error handling.
+ * <p>
+ * A batch executed before the ones ahead of it holds the locks of its rows until its commit: when an earlier batch
+ * inserts the same unique key, each of them waits for the other. A batch that waits longer than
+ * {@link #COMMIT_WAIT_MILLIS} for its turn to commit is rolled back to free its locks, then executed again once all
+ * the batches before it are committed. A slow batch ahead makes the next ones execute twice, this only costs time.
+ *
+ * @since 11.1
+ */
+public class TableOutputPipeline implements Closeable {
+  private static Class<?> PKG = TableOutputMeta.class; // for i18n purposes, needed by Translator2!!
+
+  /**
+   * How long an executed batch waits for the commit of the batches before it, until it frees its locks
+   */
+  public static final long COMMIT_WAIT_MILLIS = 10000L;
+
+  private final List<Writer> writers = new ArrayList<>();
+  private final BlockingQueue<Writer> idleWriters;
+  private final Deque<Batch> pendingBatches = new ArrayDeque<>();
+  private final String sql;
+  private final RowMetaInterface insertRowMeta;
+  private final boolean errorHandling;
+  private final boolean ignoreErrors;
+
+  private final Object commitLock = new Object();
+  private long nextCommit;
+  private boolean failed;
+  private boolean aborted;
+
+  private long nextSequence;
+
+  long commitWaitMillis = COMMIT_WAIT_MILLIS;
+
+  /**
+   * @param connections   the connected databases to write the batches with, closed by {@link #close()}
+   * @param sql           the insert statement
+   * @param insertRowMeta the layout of the rows to insert
+   * @param errorHandling true if the step sends the rows that can't be inserted to its error handling
+   * @param ignoreErrors  true if the rows that can't be inserted are skipped without error handling
+   */
+  public TableOutputPipeline( List<Database> connections, String sql, RowMetaInterface insertRowMeta,
+                              boolean errorHandling, boolean ignoreErrors ) {
+    this.sql = sql;
+    this.insertRowMeta = insertRowMeta;
+    this.errorHandling = errorHandling;
+    this.ignoreErrors = ignoreErrors;
+    idleWriters = new ArrayBlockingQueue<>( connections.size() );
+    for ( Database db : connections ) {
+      Writer writer = new Writer( db );
+      writers.add( writer );
+      idleWriters.add( writer );
+    }
+  }
+
+  /**
+   * @return a new, empty batch: its rows are committed after those of the batches created before it
+   */
+  public Batch newBatch() {
+    return new Batch( nextSequence++ );
+  }
+
+  /**
+   * Write a batch on the next idle connection, waiting for one if they're all busy.
+   */
+  public void write( Batch batch ) throws KettleException {
+    Writer writer;
+    try {
+      writer = idleWriters.take();
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      throw new KettleException( e );
+    }
+    pendingBatches.add( batch );
+    ExecutorUtil.getExecutor().submit( () -> {
+      try {
+        writer.write( batch );
+      } finally {
+        batch.written.countDown();
+        idleWriters.add( writer );
+      }
+    } );
+  }
+
+  /**
+   * @param wait true to wait for the oldest batch to be written
+   * @return the oldest batch if it's written, else null
+   */
+  public Batch nextWrittenBatch( boolean wait ) throws KettleException {
+    Batch batch = pendingBatches.peek();
+    if ( batch == null ) {
+      return null;
+    }
+    try {
+      if ( wait ) {
+        batch.written.await();
+      } else if ( batch.written.getCount() > 0 ) {
+        return null;
+      }
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      throw new KettleException( e );
+    }
+    return pendingBatches.poll();
+  }
+
+  /**
+   * @return the number of batches given to write and not returned by {@link #nextWrittenBatch(boolean)} yet
+   */
+  public int getPendingBatches() {
+    return pendingBatches.size();
+  }
+
+  /**
+   * Wait for the commit of all the batches before the given one.
+   *
+   * @param timeoutMillis how long to wait at most, 0 to wait until it's the turn of the batch
+   * @return true if it's the turn of the batch or the writes are aborted, false if the time is up
+   */
+  private boolean awaitTurn( Batch batch, long timeoutMillis ) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos( timeoutMillis );
+    synchronized ( commitLock ) {
+      while ( nextCommit != batch.sequence && !aborted ) {
+        if ( timeoutMillis <= 0 ) {
+          commitLock.wait();
+        } else {
+          long remaining = TimeUnit.NANOSECONDS.toMillis( deadline - System.nanoTime() );
+          if ( remaining <= 0 ) {
+            return false;
+          }
+          commitLock.wait( remaining );
+        }
+      }
+      return true;
+    }
+  }
+
+  /**
+   * @return true if the batch whose turn it is can be committed, false if it has to be rolled back
+   */
+  private boolean canCommit() {
+    synchronized ( commitLock ) {
+      return !failed && !aborted;
+    }
+  }
+
+  /**
+   * Let the next batch commit, once the batches before the given one are committed: a batch failing early still
+   * waits for its turn.
+   */
+  private void committed( Batch batch ) {
+    synchronized ( commitLock ) {
+      boolean interrupted = false;
+      while ( nextCommit != batch.sequence && !aborted ) {
+        try {
+          commitLock.wait();
+        } catch ( InterruptedException e ) {
+          interrupted = true;
+        }
+      }
+      if ( batch.failure != null ) {
+        failed = true;
+      }
+      nextCommit = Math.max( nextCommit, batch.sequence + 1 );
+      commitLock.notifyAll();
+      if ( interrupted ) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Stop writing: the batches not committed yet are rolled back. Wait for the writes in progress and disconnect.
+   */
+  @Override
+  public void close() {
+    synchronized ( commitLock ) {
+      aborted = true;
+      commitLock.notifyAll();
+    }
+    for ( Batch batch : pendingBatches ) {
+      try {
+        batch.written.await( 60, TimeUnit.SECONDS );
+      } catch ( InterruptedException e ) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+    }
+    pendingBatches.clear();
+    for ( Writer writer : writers ) {
+      writer.close();
+    }
+  }
+
+  private class Writer {
+    private final Database db;
+    private PreparedStatement insertStatement;
+
+    Writer( Database db ) {
+      this.db = db;
+    }
+
+    void write( Batch batch ) {
+      boolean commit = false;
+      try {
+        if ( insertStatement == null ) {
+          insertStatement = db.prepareSQL( sql );
+        }
+
+        // The batches are executed in parallel, only their commits wait for the previous ones
+        //
+        execute( batch );
+        if ( !awaitTurn( batch, commitWaitMillis ) ) {
+          // The batches before this one may wait for the locks of its rows: free them and execute it again in turn
+          //
+          rollback();
+          batch.reset();
+          awaitTurn( batch, 0 );
+          if ( canCommit() ) {
+            execute( batch );
+          }
+        }
+        commit = canCommit();
+        if ( commit ) {
+          db.commit( true );
+        }
+      } catch ( InterruptedException e ) {
+        Thread.currentThread().interrupt();
+        batch.failure = new KettleException( e );
+      } catch ( KettleException e ) {
+        batch.failure = e;
+      } catch ( RuntimeException e ) {
+        batch.failure = new KettleException( e );
+      } finally {
+        if ( batch.failure != null || !commit ) {
+          rollback( batch );
+        }
+        committed( batch );
+      }
+    }
+
+    private void execute( Batch batch ) throws KettleException {
+      int inserted = 0;
+      for ( int i = 0; i < batch.rows.size(); i++ ) {
+        try {
+          db.setValues( insertRowMeta, batch.insertRows.get( i ), insertStatement );
+          db.insertRow( insertStatement, true, false );
+          batch.outputRows.add( batch.rows.get( i ) );
+          inserted++;
+        } catch ( KettleDatabaseException e ) {
+          if ( errorHandling ) {
+            batch.errorRows.add( batch.rows.get( i ) );
+            batch.errorMessages.add( e.toString() );
+          } else if ( ignoreErrors ) {
+            // Like the step writing on its own, the skipped rows are still passed on
+            batch.warningRows.add( batch.rows.get( i ) );
+            batch.outputRows.add( batch.rows.get( i ) );
+            batch.errorMessages.add( e.getMessage() );
+          } else {
+            throw new KettleException( BaseMessages.getString( PKG, "TableOutput.Exception.ErrorInsertingRow",
+              insertRowMeta.getString( batch.insertRows.get( i ) ) ), e );
+          }
+        }
+      }
+
+      try {
+        if ( inserted > 0 ) {
+          insertStatement.executeBatch();
+        }
+        insertStatement.clearBatch();
+      } catch ( SQLException e ) {
+        KettleDatabaseBatchException be = Database.createKettleDatabaseBatchException( "Error updating batch", e );
+        db.clearBatch( insertStatement );
+        if ( !errorHandling ) {
+          throw new KettleException( getBatchErrorMessage( be ), be );
+        }
+        batch.batchException = be;
+      }
+    }
+
+    private void rollback() throws KettleDatabaseException {
+      if ( insertStatement != null ) {
+        db.clearBatch( insertStatement );
+      }
+      db.rollback();
+    }
+
+    private void rollback( Batch batch ) {
+      try {
+        rollback();
+      } catch ( KettleDatabaseException e ) {
+        if ( batch.failure == null ) {
+          batch.failure = e;
+        }
+      }
+      if ( batch.failure == null ) {
+        batch.failure =
+          new KettleException( BaseMessages.getString( PKG, "TableOutput.Exception.PreviousBatchFailed" ) );
+      }
+    }
+
+    void close() {
+      if ( insertStatement != null ) {
+        try {
+          insertStatement.close();
+        } catch ( SQLException e ) {
+          // The connection is closed right after
+        }
+        insertStatement = null;
+      }
+      db.close();
+    }
+  }
+
+  private static String getBatchErrorMessage( KettleDatabaseBatchException be ) {
+    StringBuilder msg = new StringBuilder( BaseMessages.getString( PKG, "TableOutput.Exception.ErrorBatchInserting" ) );
+    msg.append( Const.CR );
+    msg.append( BaseMessages.getString( PKG, "TableOutput.Exception.BatchErrorsEncountered" ) ).append( Const.CR );
+    for ( int x = 0; x < be.getExceptionsList().size() && x < 10; x++ ) {
+      Exception exception = be.getExceptionsList().get( x );
+      if ( exception.getMessage() != null ) {
+        msg.append( exception.getMessage() ).append( Const.CR );
+      }
+    }
+    return msg.toString();
+  }
+
+  /**
+   * A batch of rows to insert and commit together, with the outcome of the insert once it's written.
+   */
+  public static class Batch {
+    private final long sequence;
+    private final List<Object[]> rows = new ArrayList<>();
+    private final List<Object[]> insertRows = new ArrayList<>();
+    private final CountDownLatch written = new CountDownLatch( 1 );
+
+    private final List<Object[]> outputRows = new ArrayList<>();
+    private final List<Object[]> errorRows = new ArrayList<>();
+    private final List<Object[]> warningRows = new ArrayList<>();
+    private final List<String> errorMessages = new ArrayList<>();
+    private KettleDatabaseBatchException batchException;
+    private KettleException failure;
+
+    Batch( long sequence ) {
+      this.sequence = sequence;
+    }
+
+    /**
+     * Forget the outcome of a write that was rolled back, to write the batch again.
+     */
+    void reset() {
+      outputRows.clear();
+      errorRows.clear();
+      warningRows.clear();
+      errorMessages.clear();
+      batchException = null;
+    }
+
+    /**
+     * @param row       the row to pass on once it's written
+     * @param insertRow the values to insert
+     */
+    public void addRow( Object[] row, Object[] insertRow ) {
+      rows.add( row );
+      insertRows.add( insertRow );
+    }
+
+    public int size() {
+      return rows.size();
+    }
+
+    /**
+     * @return the rows to pass on, in their order: all written unless there's a batch exception
+     */
+    public List<Object[]> getOutputRows() {
+      return outputRows;
+    }
+
+    /**
+     * @return the rows that couldn't be inserted before the batch was executed, for the error handling
+     */
+    public List<Object[]> getErrorRows() {
+      return errorRows;
+    }
+
+    /**
+     * @return the rows that couldn't be inserted and were skipped, ignoring errors
+     */
+    public List<Object[]> getWarningRows() {
+      return warningRows;
+    }
+
+    /**
+     * @return the messages of the error rows, or of the warning rows when ignoring errors, in the same order
+     */
+    public List<String> getErrorMessages() {
+      return errorMessages;
+    }
+
+    /**
+     * @return the error executing the batch with error handling, the update counts tell which rows are written
+     */
+    public KettleDatabaseBatchException getBatchException() {
+      return batchException;
+    }
+
+    /**
+     * @return the error that failed the batch without error handling: none of its rows are written
+     */
+    public KettleException getFailure() {
+      return failure;
+    }
+  }
+}
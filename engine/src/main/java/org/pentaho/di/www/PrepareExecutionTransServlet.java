@@ -203,6 +203,7 @@ public class PrepareExecutionTransServlet extends BaseHttpServlet implements Car
         trans.setReplayDate( executionConfiguration.getReplayDate() );
         trans.setSafeModeEnabled( executionConfiguration.isSafeModeEnabled() );
         trans.setGatheringMetrics( executionConfiguration.isGatheringMetrics() );
+        trans.setUsingVirtualThreads( executionConfiguration.isUsingVirtualThreads() );
         trans.injectVariables( executionConfiguration.getVariables() );
         trans.setPreviousResult( executionConfiguration.getPreviousResult() );
         trans.setExecutingClustered( executionConfiguration.isExecutingClustered() );
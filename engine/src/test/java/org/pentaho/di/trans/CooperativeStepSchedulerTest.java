@@ -0,0 +1,223 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.pentaho.di.core.Const;
+import org.pentaho.di.core.KettleEnvironment;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.junit.rules.RestorePDIEngineEnvironment;
+import org.pentaho.di.trans.step.RowAdapter;
+import org.pentaho.di.trans.step.StepMeta;
+import org.pentaho.di.trans.steps.scriptvalues_mod.ScriptValuesMetaMod;
+import org.pentaho.di.trans.steps.scriptvalues_mod.ScriptValuesScript;
+
+public class CooperativeStepSchedulerTest {
+  @ClassRule public static RestorePDIEngineEnvironment env = new RestorePDIEngineEnvironment();
+
+  private static final int NR_OF_STEPS = 50;
+  private static final int NR_OF_ROWS = 20000;
+
+  @BeforeClass
+  public static void before() throws KettleException {
+    KettleEnvironment.init( false );
+  }
+
+  /**
+   * A chain of steps, the last one with several copies, and row sets small enough to be full most of the time.
+   */
+  private static TransMeta createChain( int copies ) {
+    TransMeta transMeta = new TransMeta();
+    transMeta.setSizeRowset( 10 );
+    StepMeta previous = TransTestFactory.getInjectorStepMeta();
+    transMeta.addStep( previous );
+    for ( int i = 1; i < NR_OF_STEPS; i++ ) {
+      StepMeta dummy = TransTestFactory.getReadStepMeta( "dummy" + i );
+      transMeta.addStep( dummy );
+      transMeta.addTransHop( new TransHopMeta( previous, dummy ) );
+      previous = dummy;
+    }
+    previous.setCopies( copies );
+    return transMeta;
+  }
+
+  /**
+   * @return the rows received by the copies of the last step, in the order they arrived
+   */
+  private static List<Long> run( Trans trans ) throws KettleException {
+    trans.prepareExecution( null );
+
+    final List<Long> received = Collections.synchronizedList( new ArrayList<>() );
+    StepMeta last = trans.getTransMeta().findStep( "dummy" + ( NR_OF_STEPS - 1 ) );
+    for ( int copy = 0; copy < last.getCopies(); copy++ ) {
+      trans.getStepInterface( last.getName(), copy ).addRowListener( new RowAdapter() {
+        @Override
+        public void rowReadEvent( RowMetaInterface rowMeta, Object[] row ) {
+          received.add( (Long) row[ 0 ] );
+        }
+      } );
+    }
+
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+    RowProducer producer = trans.addRowProducer( TransTestFactory.INJECTOR_STEPNAME, 0 );
+    trans.startThreads();
+    for ( long i = 0; i < NR_OF_ROWS; i++ ) {
+      producer.putRow( rowMeta, new Object[] { i } );
+    }
+    producer.finished();
+    trans.waitUntilFinished();
+
+    assertEquals( 0, trans.getErrors() );
+    assertTrue( trans.isFinished() );
+    return received;
+  }
+
+  private static void assertAllRowsReceived( List<Long> received ) {
+    assertEquals( NR_OF_ROWS, received.size() );
+    List<Long> sorted = new ArrayList<>( received );
+    Collections.sort( sorted );
+    for ( int i = 0; i < NR_OF_ROWS; i++ ) {
+      assertEquals( Long.valueOf( i ), sorted.get( i ) );
+    }
+  }
+
+  @Test
+  public void testRunsAllStepsOnTheScheduler() throws Exception {
+    Trans trans = new Trans( createChain( 4 ) );
+    trans.setUsingCooperativeScheduler( true );
+
+    assertAllRowsReceived( run( trans ) );
+  }
+
+  @Test
+  public void testSchedulerSetByVariable() throws Exception {
+    Trans trans = new Trans( createChain( 4 ) );
+    trans.setVariable( Const.KETTLE_COOPERATIVE_STEP_SCHEDULER, "Y" );
+
+    assertAllRowsReceived( run( trans ) );
+  }
+
+  @Test
+  public void testRowsStayInOrderThroughASingleCopy() throws Exception {
+    Trans trans = new Trans( createChain( 1 ) );
+    trans.setUsingCooperativeScheduler( true );
+
+    List<Long> received = run( trans );
+    assertEquals( NR_OF_ROWS, received.size() );
+    for ( int i = 0; i < NR_OF_ROWS; i++ ) {
+      assertEquals( Long.valueOf( i ), received.get( i ) );
+    }
+  }
+
+  @Test
+  public void testWaitOffTheSchedulerDoesNotSpin() {
+    final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos( 50L );
+    final AtomicInteger checks = new AtomicInteger();
+    CooperativeStepScheduler.await( () -> {
+      checks.incrementAndGet();
+      return System.nanoTime() >= deadline;
+    } );
+
+    // Backing off up to a millisecond between checks, a spinning wait checks millions of times
+    assertTrue( String.valueOf( checks.get() ), checks.get() < 1000 );
+  }
+
+  @Test
+  public void testStopWhileStepsWait() throws Exception {
+    Trans trans = new Trans( createChain( 1 ) );
+    trans.setUsingCooperativeScheduler( true );
+    trans.prepareExecution( null );
+    trans.addRowProducer( TransTestFactory.INJECTOR_STEPNAME, 0 );
+    trans.startThreads();
+
+    // Nothing is injected, every step waits for rows
+    //
+    trans.stopAll();
+    trans.waitUntilFinished();
+
+    assertTrue( trans.isStopped() );
+  }
+
+  @Test
+  public void testScriptKeepsAThreadOfItsOwn() throws Exception {
+    // The script engine context of the step is bound to the thread that entered it
+    ScriptValuesMetaMod scriptMeta = new ScriptValuesMetaMod();
+    scriptMeta.setCompatible( false );
+    scriptMeta.allocate( 1 );
+    scriptMeta.setFieldname( new String[] { "label" } );
+    scriptMeta.setType( new int[] { ValueMetaInterface.TYPE_STRING } );
+    scriptMeta.setReplace( new boolean[] { false } );
+    scriptMeta.setJSScripts( new ScriptValuesScript[] {
+      new ScriptValuesScript( ScriptValuesScript.TRANSFORM_SCRIPT, "script", "var label = 'row ' + id;" )
+    } );
+    Trans trans = new Trans( TransTestFactory.generateTestTransformation( null, scriptMeta, "script" ) );
+    trans.setUsingCooperativeScheduler( true );
+    trans.prepareExecution( null );
+
+    final Set<String> scriptThreads = ConcurrentHashMap.newKeySet();
+    final Set<String> dummyThreads = ConcurrentHashMap.newKeySet();
+    final List<Object[]> received = Collections.synchronizedList( new ArrayList<>() );
+    trans.getStepInterface( "script", 0 ).addRowListener( new RowAdapter() {
+      @Override
+      public void rowWrittenEvent( RowMetaInterface rowMeta, Object[] row ) {
+        scriptThreads.add( Thread.currentThread().getName() );
+      }
+    } );
+    trans.getStepInterface( TransTestFactory.DUMMY_STEPNAME, 0 ).addRowListener( new RowAdapter() {
+      @Override
+      public void rowReadEvent( RowMetaInterface rowMeta, Object[] row ) {
+        dummyThreads.add( Thread.currentThread().getName() );
+        received.add( row );
+      }
+    } );
+
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+    RowProducer producer = trans.addRowProducer( TransTestFactory.INJECTOR_STEPNAME, 0 );
+    trans.startThreads();
+    for ( long i = 0; i < 1000; i++ ) {
+      producer.putRow( rowMeta, new Object[] { i } );
+    }
+    producer.finished();
+    trans.waitUntilFinished();
+
+    assertEquals( 0, trans.getErrors() );
+    assertEquals( 1000, received.size() );
+    assertEquals( "row 999", received.get( 999 )[ 1 ] );
+    assertEquals( 1, scriptThreads.size() );
+    assertFalse( scriptThreads.iterator().next().contains( "cooperative step scheduler" ) );
+    for ( String thread : dummyThreads ) {
+      assertTrue( thread, thread.contains( "cooperative step scheduler" ) );
+    }
+  }
+}
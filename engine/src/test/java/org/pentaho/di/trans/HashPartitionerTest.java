@@ -0,0 +1,140 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaString;
+import org.pentaho.di.junit.rules.RestorePDIEngineEnvironment;
+import org.pentaho.di.partition.PartitionSchema;
+import org.pentaho.di.trans.step.StepPartitioningMeta;
+
+public class HashPartitionerTest {
+  @ClassRule public static RestorePDIEngineEnvironment env = new RestorePDIEngineEnvironment();
+
+  private static RowMetaInterface createRowMeta() {
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaString( "key" ) );
+    return rowMeta;
+  }
+
+  private static <T extends HashPartitioner> T createPartitioner( T partitioner, int nrPartitions ) {
+    List<String> ids = new ArrayList<>();
+    for ( int i = 0; i < nrPartitions; i++ ) {
+      ids.add( "PDyn" + i );
+    }
+    StepPartitioningMeta meta = new StepPartitioningMeta();
+    meta.setPartitionSchema( new PartitionSchema( "schema", ids ) );
+    partitioner.setMeta( meta );
+    partitioner.setFieldName( "key" );
+    return partitioner;
+  }
+
+  private static int[] partition( HashPartitioner partitioner, int nrKeys ) throws KettleException {
+    RowMetaInterface rowMeta = createRowMeta();
+    int[] partitions = new int[ nrKeys ];
+    for ( int i = 0; i < nrKeys; i++ ) {
+      partitions[ i ] = partitioner.getPartition( rowMeta, new Object[] { "customer-" + i } );
+    }
+    return partitions;
+  }
+
+  private static void assertEvenlySpread( int[] partitions, int nrPartitions ) {
+    int[] counts = new int[ nrPartitions ];
+    for ( int partition : partitions ) {
+      counts[ partition ]++;
+    }
+    double average = (double) partitions.length / nrPartitions;
+    for ( int count : counts ) {
+      assertTrue( Arrays.toString( counts ), count > 0.8 * average && count < 1.2 * average );
+    }
+  }
+
+  @Test
+  public void testSerialization() throws KettleException {
+    List<String> attributes = Arrays.asList( "FieldName" );
+    new LoadSaveTester<HashPartitioner>( HashPartitioner.class, attributes ).testSerialization();
+    new LoadSaveTester<ConsistentHashPartitioner>( ConsistentHashPartitioner.class, attributes ).testSerialization();
+  }
+
+  @Test
+  public void testHashSpreadsKeysEvenly() throws Exception {
+    assertEvenlySpread( partition( createPartitioner( new HashPartitioner(), 8 ), 100000 ), 8 );
+  }
+
+  @Test
+  public void testConsistentHashSpreadsKeysEvenly() throws Exception {
+    assertEvenlySpread( partition( createPartitioner( new ConsistentHashPartitioner(), 8 ), 100000 ), 8 );
+  }
+
+  @Test
+  public void testConsistentHashMovesFewKeysWhenPartitionsAreAdded() throws Exception {
+    int[] before = partition( createPartitioner( new ConsistentHashPartitioner(), 8 ), 100000 );
+    int[] after = partition( createPartitioner( new ConsistentHashPartitioner(), 10 ), 100000 );
+
+    int moved = 0;
+    for ( int i = 0; i < before.length; i++ ) {
+      if ( before[ i ] != after[ i ] ) {
+        // keys only move to the new partitions
+        assertTrue( after[ i ] >= 8 );
+        moved++;
+      }
+    }
+    // 2 partitions out of 10 take about 20% of the keys, plain hashing would move about 80% of them
+    assertTrue( String.valueOf( moved ), moved > 15000 && moved < 25000 );
+  }
+
+  @Test
+  public void testSameValueSamePartitionWhateverTheStorage() throws Exception {
+    HashPartitioner partitioner = createPartitioner( new HashPartitioner(), 16 );
+    RowMetaInterface binaryRowMeta = createRowMeta();
+    ValueMetaInterface valueMeta = binaryRowMeta.getValueMeta( 0 );
+    valueMeta.setStorageType( ValueMetaInterface.STORAGE_TYPE_BINARY_STRING );
+    valueMeta.setStorageMetadata( new ValueMetaString( "key" ) );
+
+    for ( int i = 0; i < 100; i++ ) {
+      String key = "key " + i;
+      assertEquals( partitioner.getPartition( createRowMeta(), new Object[] { key } ),
+        partitioner.getPartition( binaryRowMeta, new Object[] { key.getBytes( StandardCharsets.UTF_8 ) } ) );
+    }
+  }
+
+  @Test
+  public void testCloneUsesTheSchemaOfTheClonedMeta() throws Exception {
+    StepPartitioningMeta meta = new StepPartitioningMeta();
+    meta.setPartitionSchema( new PartitionSchema( "schema", Arrays.asList( "P1", "P2" ) ) );
+    ConsistentHashPartitioner partitioner = new ConsistentHashPartitioner();
+    partitioner.setMeta( meta );
+    meta.setPartitioner( partitioner );
+
+    StepPartitioningMeta clone = meta.clone();
+
+    assertNotSame( partitioner, clone.getPartitioner() );
+    assertSame( clone, ( (BasePartitioner) clone.getPartitioner() ).getMeta() );
+  }
+}
@@ -0,0 +1,96 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans;
+
+import org.pentaho.di.core.Const;
+import org.pentaho.di.core.RowMetaAndData;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaNumber;
+import org.pentaho.di.core.row.value.ValueMetaString;
+import org.pentaho.di.core.variables.Variables;
+import org.pentaho.di.trans.step.StepMetaInterface;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntToLongFunction;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Runs a step between an injector and a dummy step row by row and in batches, see
+ * {@link Const#KETTLE_ROW_BATCH_SIZE}, to check that both give the same output.
+ */
+public class RowBatchTestUtil {
+  public static final int NR_OF_ROWS = 1000;
+  public static final String BATCH_SIZE = "64";
+
+  /**
+   * @param key the key of each row number
+   * @return rows with an integer key, an integer value, a number amount and a string name, with some null values
+   */
+  public static List<RowMetaAndData> createRows( IntToLongFunction key ) {
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "key" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "value" ) );
+    rowMeta.addValueMeta( new ValueMetaNumber( "amount" ) );
+    rowMeta.addValueMeta( new ValueMetaString( "name" ) );
+    List<RowMetaAndData> rows = new ArrayList<>();
+    for ( int i = 0; i < NR_OF_ROWS; i++ ) {
+      rows.add( new RowMetaAndData( rowMeta, key.applyAsLong( i ), i % 5 == 0 ? null : (long) ( i % 200 - 100 ),
+        i % 11 == 0 ? null : i * 0.25, "row" + i ) );
+    }
+    return rows;
+  }
+
+  /**
+   * @param variables the variables of the transformation, the batch size is added to them
+   * @param batchSize the size of the row batches, 0 to process the rows one by one
+   * @return the output rows of the step
+   */
+  public static List<RowMetaAndData> runStep( StepMetaInterface meta, String stepName, Variables variables,
+                                              String batchSize, List<RowMetaAndData> input ) throws KettleException {
+    variables.setVariable( Const.KETTLE_ROW_BATCH_SIZE, batchSize );
+    TransMeta transMeta = TransTestFactory.generateTestTransformation( variables, meta, stepName );
+    return TransTestFactory.executeTestTransformation( transMeta, stepName, input );
+  }
+
+  /**
+   * Process the rows of {@link #createRows(IntToLongFunction)} row by row, then in batches, and check that the output
+   * is the same.
+   */
+  public static void assertSameOutput( StepMetaInterface meta, String stepName ) throws KettleException {
+    IntToLongFunction key = i -> i / 7 % 20;
+    List<RowMetaAndData> expected = runStep( meta, stepName, new Variables(), "0", createRows( key ) );
+    List<RowMetaAndData> actual = runStep( meta, stepName, new Variables(), BATCH_SIZE, createRows( key ) );
+    assertSameRows( "row", expected, actual );
+  }
+
+  /**
+   * @param label what the rows are, in the failure messages
+   */
+  public static void assertSameRows( String label, List<RowMetaAndData> expected, List<RowMetaAndData> actual ) {
+    assertEquals( expected.size(), actual.size() );
+    for ( int i = 0; i < expected.size(); i++ ) {
+      RowMetaInterface rowMeta = expected.get( i ).getRowMeta();
+      assertEquals( rowMeta.toStringMeta(), actual.get( i ).getRowMeta().toStringMeta() );
+      for ( int j = 0; j < rowMeta.size(); j++ ) {
+        assertEquals( label + " " + i + ", " + rowMeta.getValueMeta( j ).getName(), expected.get( i ).getData()[ j ],
+          actual.get( i ).getData()[ j ] );
+      }
+    }
+  }
+}
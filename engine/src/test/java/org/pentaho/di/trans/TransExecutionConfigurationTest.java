@@ -19,6 +19,7 @@ import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import org.junit.ClassRule;
@@ -181,4 +182,16 @@ public class TransExecutionConfigurationTest {
       assertEquals( "xml-copy", tec.getPassedBatchId(), tecCopy.getPassedBatchId() );
     }
   }
+
+  @Test
+  public void testUsingVirtualThreadsXml() throws Exception {
+    TransExecutionConfiguration tec = new TransExecutionConfiguration();
+    assertFalse( tec.isUsingVirtualThreads() );
+
+    tec.setUsingVirtualThreads( true );
+    Document doc = XMLHandler.loadXMLString( tec.getXML() );
+    Node node = XMLHandler.getSubNode( doc, TransExecutionConfiguration.XML_TAG );
+    assertTrue( new TransExecutionConfiguration( node ).isUsingVirtualThreads() );
+    assertTrue( ( (TransExecutionConfiguration) tec.clone() ).isUsingVirtualThreads() );
+  }
 }
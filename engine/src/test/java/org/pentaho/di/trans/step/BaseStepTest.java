@@ -36,6 +36,7 @@ import org.pentaho.di.core.logging.LoggingObjectInterface;
 import org.pentaho.di.core.row.RowMeta;
 import org.pentaho.di.core.row.RowMetaInterface;
 import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.row.batch.RowBatch;
 import org.pentaho.di.core.row.value.ValueMetaBase;
 import org.pentaho.di.core.row.value.ValueMetaInteger;
 import org.pentaho.di.core.row.value.ValueMetaString;
@@ -64,6 +65,7 @@ import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
@@ -510,4 +512,40 @@ public class BaseStepTest {
     baseStepSpy.getRow();
     verify( mockHelper.transMeta, times( 1 ) ).checkRowMixingStatically( any( StepMeta.class ), any() );
   }
+
+  @Test
+  public void testDefaultRowBatchKeepsLayoutOfDoneRowSet() throws KettleException {
+    RowMeta rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "x" ) );
+    BlockingRowSet rowSet = new BlockingRowSet( 1 );
+    rowSet.putRow( rowMeta, new Object[] { 1L } );
+
+    // The row set is dropped once its last row is read
+    StepInterface step = mock( StepInterface.class, CALLS_REAL_METHODS );
+    doReturn( List.of( rowSet ), Collections.emptyList() ).when( step ).getInputRowSets();
+    doReturn( new Object[] { 1L }, (Object[]) null ).when( step ).getRow();
+
+    RowBatch batch = step.getRowBatch( 10 );
+    assertEquals( 1, batch.size() );
+    assertEquals( rowMeta, batch.getRowMeta() );
+  }
+
+  @Test( expected = KettleStepException.class )
+  public void testDefaultRowBatchWithoutLayout() throws KettleException {
+    StepInterface step = mock( StepInterface.class, CALLS_REAL_METHODS );
+    doReturn( Collections.emptyList() ).when( step ).getInputRowSets();
+    doReturn( new Object[] { 1L } ).when( step ).getRow();
+
+    step.getRowBatch( 10 );
+  }
+
+  @Test( expected = KettleStepException.class )
+  public void testRowBatchWithoutInputRowMeta() throws KettleException {
+    BaseStep baseStepSpy =
+      spy( new BaseStep( mockHelper.stepMeta, mockHelper.stepDataInterface, 0, mockHelper.transMeta,
+        mockHelper.trans ) );
+    doReturn( new Object[] { 1L } ).when( baseStepSpy ).getRow();
+
+    baseStepSpy.getRowBatch( 10 );
+  }
 }
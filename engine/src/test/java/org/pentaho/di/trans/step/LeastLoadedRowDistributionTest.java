@@ -0,0 +1,166 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.step;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.di.core.BlockingRowSet;
+import org.pentaho.di.core.RowSet;
+import org.pentaho.di.core.logging.LoggingObjectInterface;
+import org.pentaho.di.core.logging.Metrics;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.trans.steps.mock.StepMockHelper;
+
+public class LeastLoadedRowDistributionTest {
+  private StepMockHelper<StepMetaInterface, StepDataInterface> mockHelper;
+  private RowMetaInterface rowMeta;
+
+  @Before
+  public void setup() {
+    mockHelper = new StepMockHelper<>( "BASE STEP", StepMetaInterface.class, StepDataInterface.class );
+    when( mockHelper.logChannelInterfaceFactory.create( any(), any( LoggingObjectInterface.class ) ) ).thenReturn(
+      mockHelper.logChannelInterface );
+    when( mockHelper.transMeta.getSizeRowset() ).thenReturn( 100 );
+    rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+  }
+
+  @After
+  public void tearDown() {
+    mockHelper.cleanUp();
+  }
+
+  private static List<RowSet> createRowSets( int... sizes ) {
+    List<RowSet> rowSets = new ArrayList<>();
+    for ( int i = 0; i < sizes.length; i++ ) {
+      RowSet rowSet = new BlockingRowSet( 100 );
+      rowSet.setThreadNameFromToCopy( "source", 0, "target", i );
+      for ( int j = 0; j < sizes[ i ]; j++ ) {
+        rowSet.putRow( new RowMeta(), new Object[] { (long) j } );
+      }
+      rowSets.add( rowSet );
+    }
+    return rowSets;
+  }
+
+  private BaseStep createStep( List<RowSet> rowSets ) {
+    BaseStep step =
+      new BaseStep( mockHelper.stepMeta, mockHelper.stepDataInterface, 0, mockHelper.transMeta, mockHelper.trans );
+    step.setOutputRowSets( rowSets );
+    return step;
+  }
+
+  @Test
+  public void testRowGoesToTheLeastLoadedCopy() throws Exception {
+    List<RowSet> rowSets = createRowSets( 5, 2, 7 );
+    StepInterface step = mock( StepInterface.class );
+    when( step.getOutputRowSets() ).thenReturn( rowSets );
+
+    new LeastLoadedRowDistribution().distributeRow( rowMeta, new Object[] { 1L }, step );
+
+    assertEquals( 5, rowSets.get( 0 ).size() );
+    assertEquals( 3, rowSets.get( 1 ).size() );
+    assertEquals( 7, rowSets.get( 2 ).size() );
+  }
+
+  @Test
+  public void testIdleCopiesGetTheRowsInTurn() throws Exception {
+    List<RowSet> rowSets = createRowSets( 0, 0, 0 );
+    StepInterface step = mock( StepInterface.class );
+    when( step.getOutputRowSets() ).thenReturn( rowSets );
+    LeastLoadedRowDistribution distribution = new LeastLoadedRowDistribution();
+
+    for ( long row = 0; row < 3; row++ ) {
+      when( step.getLinesWritten() ).thenReturn( row );
+      distribution.distributeRow( rowMeta, new Object[] { row }, step );
+      // the consumers keep up
+      assertEquals( row, rowSets.get( (int) row ).getRow()[ 0 ] );
+    }
+  }
+
+  @Test
+  public void testQueueDepthsAreReportedPerCopy() throws Exception {
+    List<RowSet> rowSets = createRowSets( 0, 30, 99 );
+    BaseStep step = createStep( rowSets );
+
+    new LeastLoadedRowDistribution().distributeRow( rowMeta, new Object[] { 1L }, step );
+    assertEquals( 1, rowSets.get( 0 ).size() );
+    step.markStop();
+
+    // Only the row set the row went to counts the row
+    verify( mockHelper.logChannelInterface ).snap( Metrics.METRIC_STEP_OUTPUT_QUEUE_DEPTH, "BASE STEP - target.0 - 0%",
+      1L );
+    verify( mockHelper.logChannelInterface ).snap( Metrics.METRIC_STEP_OUTPUT_QUEUE_DEPTH, "BASE STEP - target.1 - 50%",
+      0L );
+    verify( mockHelper.logChannelInterface ).snap( Metrics.METRIC_STEP_OUTPUT_QUEUE_DEPTH,
+      "BASE STEP - target.2 - 100%", 0L );
+    verify( mockHelper.logChannelInterface ).snap( Metrics.METRIC_STEP_OUTPUT_QUEUE_DEPTH,
+      "BASE STEP - target.2 - 25%", 0L );
+  }
+
+  @Test
+  public void testQueueDepthIsCountedOnceWhenWaitingForRoom() throws Exception {
+    List<RowSet> rowSets = createRowSets( 100, 100 );
+    BaseStep step = createStep( rowSets );
+
+    // The row waits until the consumer of the second copy takes a row
+    Thread consumer = new Thread( () -> {
+      try {
+        Thread.sleep( 50L );
+      } catch ( InterruptedException e ) {
+        Thread.currentThread().interrupt();
+      }
+      rowSets.get( 1 ).getRow();
+    } );
+    consumer.start();
+    new LeastLoadedRowDistribution().distributeRow( rowMeta, new Object[] { 1L }, step );
+    consumer.join();
+    assertEquals( 100, rowSets.get( 1 ).size() );
+    step.markStop();
+
+    verify( mockHelper.logChannelInterface ).snap( Metrics.METRIC_STEP_OUTPUT_QUEUE_DEPTH,
+      "BASE STEP - target.0 - 100%", 0L );
+    verify( mockHelper.logChannelInterface ).snap( Metrics.METRIC_STEP_OUTPUT_QUEUE_DEPTH,
+      "BASE STEP - target.1 - 100%", 1L );
+  }
+
+  @Test
+  public void testQueueDepthBuckets() {
+    BaseStep step = createStep( createRowSets( 0 ) );
+    for ( int depth : Arrays.asList( 0, 1, 25, 26, 50, 51, 75, 76, 100 ) ) {
+      step.countOutputQueueDepth( 0, depth );
+    }
+    step.markStop();
+
+    verify( mockHelper.logChannelInterface ).snap( Metrics.METRIC_STEP_OUTPUT_QUEUE_DEPTH, "BASE STEP - target.0 - 0%",
+      1L );
+    for ( String percentage : new String[] { "25%", "50%", "75%", "100%" } ) {
+      verify( mockHelper.logChannelInterface ).snap( Metrics.METRIC_STEP_OUTPUT_QUEUE_DEPTH,
+        "BASE STEP - target.0 - " + percentage, 2L );
+    }
+  }
+}
@@ -0,0 +1,192 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.step;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.pentaho.di.core.KettleEnvironment;
+import org.pentaho.di.core.exception.KettleEOFException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaBigNumber;
+import org.pentaho.di.core.row.value.ValueMetaBinary;
+import org.pentaho.di.core.row.value.ValueMetaBoolean;
+import org.pentaho.di.core.row.value.ValueMetaDate;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaNumber;
+import org.pentaho.di.core.row.value.ValueMetaString;
+
+public class RemoteRowWriterTest {
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    KettleEnvironment.init();
+  }
+
+  private static RowMetaInterface createRowMeta() {
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "integer" ) );
+    rowMeta.addValueMeta( new ValueMetaNumber( "number" ) );
+    rowMeta.addValueMeta( new ValueMetaString( "string" ) );
+    rowMeta.addValueMeta( new ValueMetaBoolean( "boolean" ) );
+    rowMeta.addValueMeta( new ValueMetaDate( "date" ) );
+    rowMeta.addValueMeta( new ValueMetaBinary( "binary" ) );
+    rowMeta.addValueMeta( new ValueMetaBigNumber( "bignumber" ) );
+    ValueMetaInterface lazy = new ValueMetaString( "lazy" );
+    lazy.setStorageType( ValueMetaInterface.STORAGE_TYPE_BINARY_STRING );
+    lazy.setStorageMetadata( new ValueMetaString( "lazy" ) );
+    rowMeta.addValueMeta( lazy );
+    return rowMeta;
+  }
+
+  private static List<Object[]> createRows() {
+    StringBuilder longString = new StringBuilder();
+    for ( int i = 0; i < 100; i++ ) {
+      longString.append( "long value " );
+    }
+    List<Object[]> rows = new ArrayList<>();
+    for ( int i = 0; i < 25; i++ ) {
+      rows.add( new Object[] { i < 10 ? Long.MIN_VALUE : (long) i, i % 3 == 0 ? null : -0.5 * i,
+        i % 2 == 0 ? "café ☃" : "country " + ( i % 4 ), i < 20, new Date( 1500000000000L ), new byte[] { 1, 2, 3 },
+        new BigDecimal( "12345678901234567890.0123" ), "raw".getBytes() } );
+    }
+    rows.add( new Object[] { null, null, longString.toString(), null, null, null, null, null } );
+    rows.add( new Object[] { 0L, Double.NaN, longString.toString(), false, new Date( -1000L ), new byte[ 0 ],
+      BigDecimal.ZERO, new byte[ 0 ] } );
+    return rows;
+  }
+
+  private static byte[] write( RowMetaInterface rowMeta, List<Object[]> rows, int batchSize, String compression )
+    throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream outputStream = new DataOutputStream( bytes );
+    RemoteRowWriter writer = new RemoteRowWriter( outputStream, rowMeta, batchSize, compression );
+    for ( Object[] row : rows ) {
+      writer.writeRow( row );
+    }
+    writer.finish();
+    outputStream.close();
+    return bytes.toByteArray();
+  }
+
+  private static List<Object[]> read( byte[] bytes, RowMetaInterface rowMeta ) throws Exception {
+    RemoteRowReader reader =
+      RemoteRowReader.open( new DataInputStream( new BufferedInputStream( new ByteArrayInputStream( bytes ) ) ) );
+    assertNotNull( reader );
+    assertEquals( rowMeta.getFieldNames().length, reader.getRowMeta().size() );
+    assertArrayEquals( rowMeta.getFieldNames(), reader.getRowMeta().getFieldNames() );
+
+    List<Object[]> rows = new ArrayList<>();
+    for ( Object[] row = reader.readRow(); row != null; row = reader.readRow() ) {
+      rows.add( row );
+    }
+    assertNull( reader.readRow() );
+    return rows;
+  }
+
+  private static void assertRows( List<Object[]> expected, List<Object[]> actual ) {
+    assertEquals( expected.size(), actual.size() );
+    for ( int i = 0; i < expected.size(); i++ ) {
+      Object[] expectedRow = expected.get( i );
+      Object[] actualRow = actual.get( i );
+      assertTrue( actualRow.length >= expectedRow.length );
+      for ( int j = 0; j < expectedRow.length; j++ ) {
+        if ( expectedRow[ j ] instanceof byte[] ) {
+          assertArrayEquals( (byte[]) expectedRow[ j ], (byte[]) actualRow[ j ] );
+        } else {
+          assertEquals( "row " + i + " field " + j, expectedRow[ j ], actualRow[ j ] );
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testRoundTripInBatches() throws Exception {
+    RowMetaInterface rowMeta = createRowMeta();
+    List<Object[]> rows = createRows();
+
+    for ( int batchSize : new int[] { 1, 4, 1000 } ) {
+      List<Object[]> result = read( write( rowMeta, rows, batchSize, null ), rowMeta );
+      assertRows( createRows(), result );
+    }
+  }
+
+  @Test
+  public void testRoundTripCompressed() throws Exception {
+    RowMetaInterface rowMeta = createRowMeta();
+    List<Object[]> rows = createRows();
+
+    assertRows( createRows(), read( write( rowMeta, rows, 10, "GZip" ), rowMeta ) );
+    assertRows( createRows(), read( write( rowMeta, rows, 10, "None" ), rowMeta ) );
+  }
+
+  @Test
+  public void testRepeatedValuesTakeLittleSpace() throws Exception {
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaString( "country" ) );
+    rowMeta.addValueMeta( new ValueMetaDate( "date" ) );
+    List<Object[]> rows = new ArrayList<>();
+    for ( int i = 0; i < 10000; i++ ) {
+      rows.add( new Object[] { "country with a long name " + ( i % 3 ), new Date( 1000L ) } );
+    }
+
+    byte[] bytes = write( rowMeta, rows, 1000, null );
+    assertTrue( bytes.length < 10000 * 5 );
+
+    List<Object[]> result = read( bytes, rowMeta );
+    assertRows( rows, result );
+    assertNotSame( result.get( 0 )[ 1 ], result.get( 1 )[ 1 ] );
+  }
+
+  @Test
+  public void testRowsWrittenOneAtATime() throws Exception {
+    RowMetaInterface rowMeta = createRowMeta();
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream outputStream = new DataOutputStream( bytes );
+    rowMeta.writeMeta( outputStream );
+    Object[] row = createRows().get( 0 );
+    rowMeta.writeData( outputStream, row );
+    outputStream.close();
+
+    DataInputStream inputStream =
+      new DataInputStream( new BufferedInputStream( new ByteArrayInputStream( bytes.toByteArray() ) ) );
+    assertNull( RemoteRowReader.open( inputStream ) );
+    RowMetaInterface readRowMeta = new RowMeta( inputStream );
+    assertArrayEquals( rowMeta.getFieldNames(), readRowMeta.getFieldNames() );
+    assertEquals( row[ 2 ], readRowMeta.readData( inputStream )[ 2 ] );
+  }
+
+  @Test( expected = KettleEOFException.class )
+  public void testEmptyStream() throws Exception {
+    RemoteRowReader.open( new DataInputStream( new BufferedInputStream( new ByteArrayInputStream( new byte[ 0 ] ) ) ) );
+  }
+}
@@ -0,0 +1,75 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.calculator;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.pentaho.di.core.KettleEnvironment;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.ValueMetaInterface;
+import org.pentaho.di.junit.rules.RestorePDIEngineEnvironment;
+import org.pentaho.di.trans.RowBatchTestUtil;
+import org.pentaho.di.trans.step.StepMetaInterface;
+
+/**
+ * Calculates the same rows row by row and in batches: on primitive columns when all calculations allow it, row by row
+ * within the batch otherwise.
+ */
+public class CalculatorBatchTest {
+  @ClassRule public static RestorePDIEngineEnvironment env = new RestorePDIEngineEnvironment();
+
+  private static final String STEP_NAME = "calculator";
+
+  @BeforeClass
+  public static void before() throws KettleException {
+    KettleEnvironment.init( false );
+  }
+
+  private static void assertSameOutput( StepMetaInterface meta ) throws KettleException {
+    RowBatchTestUtil.assertSameOutput( meta, STEP_NAME );
+  }
+
+  private static CalculatorMetaFunction calculation( String name, int calcType, String fieldA, String fieldB,
+                                                     int valueType, boolean removed ) {
+    return new CalculatorMetaFunction( name, calcType, fieldA, fieldB, null, valueType, -1, -1, removed, null, null,
+      null, null );
+  }
+
+  @Test
+  public void testColumnCalculations() throws KettleException {
+    CalculatorMeta meta = new CalculatorMeta();
+    meta.setDefault();
+    meta.setCalculation( new CalculatorMetaFunction[] {
+      calculation( "sum", CalculatorMetaFunction.CALC_ADD, "key", "value", ValueMetaInterface.TYPE_INTEGER, false ),
+      calculation( "tmp", CalculatorMetaFunction.CALC_SUBTRACT, "value", "key", ValueMetaInterface.TYPE_INTEGER,
+        true ),
+      calculation( "product", CalculatorMetaFunction.CALC_MULTIPLY, "sum", "tmp", ValueMetaInterface.TYPE_INTEGER,
+        false ),
+      calculation( "double", CalculatorMetaFunction.CALC_ADD, "amount", "amount", ValueMetaInterface.TYPE_NUMBER,
+        false ) } );
+    assertSameOutput( meta );
+  }
+
+  @Test
+  public void testRowByRowCalculations() throws KettleException {
+    CalculatorMeta meta = new CalculatorMeta();
+    meta.setDefault();
+    meta.setCalculation( new CalculatorMetaFunction[] {
+      calculation( "sum", CalculatorMetaFunction.CALC_ADD, "key", "value", ValueMetaInterface.TYPE_INTEGER, false ),
+      calculation( "ratio", CalculatorMetaFunction.CALC_DIVIDE, "amount", "key", ValueMetaInterface.TYPE_NUMBER,
+        false ) } );
+    assertSameOutput( meta );
+  }
+}
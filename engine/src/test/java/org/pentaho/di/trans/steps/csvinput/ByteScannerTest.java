@@ -0,0 +1,69 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.csvinput;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+public class ByteScannerTest {
+
+  private static final ByteScanner SCANNER = new ByteScanner( (byte) ';', (byte) '"', (byte) '\r', (byte) '\n' );
+
+  private static int indexOf( String text, int start ) {
+    byte[] bytes = text.getBytes( StandardCharsets.ISO_8859_1 );
+    return SCANNER.indexOf( bytes, start, bytes.length );
+  }
+
+  @Test
+  public void testFindsTheFirstValue() {
+    assertEquals( 3, indexOf( "abc;def\"ghi\njkl", 0 ) );
+    assertEquals( 7, indexOf( "abc;def\"ghi\njkl", 4 ) );
+    assertEquals( 11, indexOf( "abc;def\"ghi\njkl", 8 ) );
+    assertEquals( 0, indexOf( ";abcdefghijklmnop", 0 ) );
+  }
+
+  @Test
+  public void testFindsValuesInEachPositionOfAWord() {
+    for ( int i = 0; i < 24; i++ ) {
+      StringBuilder text = new StringBuilder( "abcdefghijklmnopqrstuvwx" );
+      text.setCharAt( i, '\r' );
+      assertEquals( i, indexOf( text.toString(), 0 ) );
+    }
+  }
+
+  @Test
+  public void testNoValueReturnsTheEnd() {
+    assertEquals( 18, indexOf( "abcdefghijklmnopqr", 0 ) );
+    assertEquals( 3, indexOf( "abc", 0 ) );
+    assertEquals( 0, indexOf( "", 0 ) );
+  }
+
+  @Test
+  public void testBytesWithTheHighBitSet() {
+    // A byte just above a value must not be mistaken for it
+    byte[] bytes = { (byte) 0xFF, (byte) 0x81, (byte) 0x80, 0x01, 0x3C, (byte) 0xBB, 0x23, 0x0B, 0x0E, 0x3B };
+    assertEquals( 9, SCANNER.indexOf( bytes, 0, bytes.length ) );
+    assertEquals( 5, new ByteScanner( (byte) 0xBB ).indexOf( bytes, 0, bytes.length ) );
+  }
+
+  @Test
+  public void testStopsAtTheEnd() {
+    byte[] bytes = "abcdefghij;".getBytes( StandardCharsets.ISO_8859_1 );
+    assertEquals( 10, SCANNER.indexOf( bytes, 0, bytes.length ) );
+    assertEquals( 9, SCANNER.indexOf( bytes, 0, 9 ) );
+  }
+}
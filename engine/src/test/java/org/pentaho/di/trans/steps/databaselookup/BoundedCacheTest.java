@@ -0,0 +1,145 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+package org.pentaho.di.trans.steps.databaselookup;
+
+import org.junit.Test;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class BoundedCacheTest {
+
+  private final DatabaseLookupMeta meta = mock( DatabaseLookupMeta.class );
+  private final RowMeta keyMeta = new RowMeta();
+
+  {
+    keyMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+  }
+
+  private Object[] get( BoundedCache cache, long key ) {
+    return cache.getRowFromCache( keyMeta, new Object[] { key } );
+  }
+
+  private void lookup( BoundedCache cache, long key ) {
+    if ( get( cache, key ) == null ) {
+      cache.storeRowInCache( meta, keyMeta, new Object[] { key }, new Object[] { "name" + key } );
+    }
+  }
+
+  private int countHotKeys( BoundedCache.Policy policy ) {
+    BoundedCache cache = new BoundedCache( policy, 100, 0 );
+    for ( int i = 0; i < 5; i++ ) {
+      for ( long key = 0; key < 10; key++ ) {
+        lookup( cache, key );
+      }
+    }
+    // A scan of keys looked up once
+    for ( long key = 1000; key < 1500; key++ ) {
+      lookup( cache, key );
+    }
+    assertEquals( 100, cache.size() );
+    assertEquals( 410, cache.getEvictions() );
+
+    int hotKeys = 0;
+    for ( long key = 0; key < 10; key++ ) {
+      if ( get( cache, key ) != null ) {
+        hotKeys++;
+      }
+    }
+    return hotKeys;
+  }
+
+  @Test
+  public void scanEvictsFrequentKeysTest() {
+    assertEquals( 0, countHotKeys( BoundedCache.Policy.FIFO ) );
+    assertEquals( 0, countHotKeys( BoundedCache.Policy.LRU ) );
+  }
+
+  @Test
+  public void tinyLfuKeepsFrequentKeysTest() {
+    assertEquals( 10, countHotKeys( BoundedCache.Policy.TINYLFU ) );
+  }
+
+  @Test
+  public void fifoAndLruEvictionOrderTest() {
+    BoundedCache fifo = new BoundedCache( BoundedCache.Policy.FIFO, 3, 0 );
+    BoundedCache lru = new BoundedCache( BoundedCache.Policy.LRU, 3, 0 );
+    for ( BoundedCache cache : new BoundedCache[] { fifo, lru } ) {
+      lookup( cache, 1 );
+      lookup( cache, 2 );
+      lookup( cache, 3 );
+      lookup( cache, 1 );
+      lookup( cache, 4 );
+      assertEquals( 3, cache.size() );
+      assertEquals( 1, cache.getEvictions() );
+    }
+
+    assertNull( get( fifo, 1 ) );
+    assertNotNull( get( fifo, 2 ) );
+    assertNotNull( get( lru, 1 ) );
+    assertNull( get( lru, 2 ) );
+  }
+
+  @Test
+  public void maximumBytesTest() {
+    BoundedCache cache = new BoundedCache( BoundedCache.Policy.LRU, 0, 10000 );
+    for ( long key = 0; key < 1000; key++ ) {
+      lookup( cache, key );
+    }
+    assertTrue( cache.size() > 0 );
+    assertTrue( cache.size() < 1000 );
+    assertEquals( 1000 - cache.size(), cache.getEvictions() );
+
+    // The number of rows still applies
+    cache = new BoundedCache( BoundedCache.Policy.TINYLFU, 10, 1024 * 1024 );
+    for ( long key = 0; key < 1000; key++ ) {
+      lookup( cache, key );
+    }
+    assertEquals( 10, cache.size() );
+  }
+
+  @Test
+  public void unboundedTest() {
+    BoundedCache cache = new BoundedCache( BoundedCache.Policy.TINYLFU, 0, 0 );
+    for ( long key = 0; key < 1000; key++ ) {
+      lookup( cache, key );
+    }
+    assertEquals( 1000, cache.size() );
+    assertEquals( 0, cache.getEvictions() );
+  }
+
+  @Test
+  public void firstRowWinsAndCountersTest() {
+    BoundedCache cache = new BoundedCache( BoundedCache.Policy.TINYLFU, 10, 0 );
+    cache.storeRowInCache( meta, keyMeta, new Object[] { 1L }, new Object[] { "first" } );
+    cache.storeRowInCache( meta, keyMeta, new Object[] { 1L }, new Object[] { "second" } );
+
+    assertEquals( "first", get( cache, 1 )[ 0 ] );
+    assertNull( get( cache, 2 ) );
+    assertEquals( 1, cache.size() );
+    assertEquals( 1, cache.getHits() );
+    assertEquals( 1, cache.getMisses() );
+  }
+
+  @Test
+  public void getPolicyTest() {
+    assertEquals( BoundedCache.Policy.LRU, BoundedCache.Policy.getPolicy( " lru ", BoundedCache.Policy.TINYLFU ) );
+    assertEquals( BoundedCache.Policy.TINYLFU, BoundedCache.Policy.getPolicy( null, BoundedCache.Policy.TINYLFU ) );
+    assertEquals( BoundedCache.Policy.FIFO, BoundedCache.Policy.getPolicy( "other", BoundedCache.Policy.FIFO ) );
+  }
+}
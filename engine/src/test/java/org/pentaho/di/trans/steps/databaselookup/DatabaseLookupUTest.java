@@ -540,6 +540,151 @@ public class DatabaseLookupUTest {
     testIsTimelessMaskNullTestVariant("yyyy-MM-dd" ,true );
   }
 
+  @Test
+  public void lookupBatchQueriesMissingKeysOnce() throws Exception {
+    when( mockHelper.logChannelInterfaceFactory.create( any(), any( LoggingObjectInterface.class ) ) )
+      .thenReturn( mockHelper.logChannelInterface );
+    DatabaseLookup dbLookup = spy( new DatabaseLookup( mockHelper.stepMeta, mockHelper.stepDataInterface, 0,
+      mockHelper.transMeta, mockHelper.trans ) );
+
+    RowMeta inputRowMeta = new RowMeta();
+    inputRowMeta.addValueMeta( new ValueMetaInteger( ID_FIELD ) );
+    RowMeta returnMeta = new RowMeta();
+    returnMeta.addValueMeta( new ValueMetaString( "name" ) );
+    RowMeta outputRowMeta = new RowMeta();
+    outputRowMeta.addValueMeta( new ValueMetaInteger( ID_FIELD ) );
+    outputRowMeta.addValueMeta( new ValueMetaString( "name" ) );
+    RowMeta tableRowMeta = new RowMeta();
+    tableRowMeta.addValueMeta( new ValueMetaInteger( "ID" ) );
+    tableRowMeta.addValueMeta( new ValueMetaString( "NAME" ) );
+
+    DatabaseMeta dbMeta = mock( DatabaseMeta.class );
+    when( dbMeta.quoteField( anyString() ) ).thenAnswer( invocation -> invocation.getArgument( 0 ) );
+    when( dbMeta.getQuotedSchemaTableCombination( nullable( String.class ), nullable( String.class ) ) )
+      .thenReturn( "lookuptable" );
+    DatabaseLookupMeta meta = mock( DatabaseLookupMeta.class );
+    when( meta.getDatabaseMeta() ).thenReturn( dbMeta );
+    when( meta.getTableKeyField() ).thenReturn( new String[] { "ID" } );
+    when( meta.getStreamKeyField1() ).thenReturn( new String[] { ID_FIELD } );
+    when( meta.getReturnValueField() ).thenReturn( new String[] { "NAME" } );
+    when( meta.getReturnValueDefaultType() ).thenReturn( new int[] { ValueMetaInterface.TYPE_STRING } );
+
+    Database db = mock( Database.class );
+    List<Object[]> tableRows = new ArrayList<>();
+    tableRows.add( new Object[] { 2L, "two" } );
+    tableRows.add( new Object[] { 1L, "one" } );
+    when( db.getRowsMatchingKeys( anyString(), nullable( RowMetaInterface.class ), nullable( Object[].class ),
+      any( String[].class ), any( RowMetaInterface.class ), ArgumentMatchers.anyList(), nullable( String.class ) ) )
+      .thenReturn( tableRows );
+    when( db.getReturnRowMeta() ).thenReturn( tableRowMeta );
+
+    DatabaseLookupData data = new DatabaseLookupData();
+    data.db = db;
+    data.lookupMeta = new RowMeta();
+    data.lookupMeta.addValueMeta( new ValueMetaInteger( ID_FIELD ) );
+    data.returnMeta = returnMeta;
+    data.outputRowMeta = outputRowMeta;
+    data.keynrs = new int[] { 0 };
+    data.keynrs2 = new int[] { -1 };
+    data.nullif = new Object[] { null };
+    data.batchRows = new ArrayList<>();
+    data.batchRows.add( new Object[] { 1L } );
+    data.batchRows.add( new Object[] { 3L } );
+    data.batchRows.add( new Object[] { 2L } );
+    data.batchRows.add( new Object[] { 1L } );
+
+    setInternalState( dbLookup, "meta", meta );
+    setInternalState( dbLookup, "data", data );
+    doReturn( inputRowMeta ).when( dbLookup ).getInputRowMeta();
+    List<Object[]> output = new ArrayList<>();
+    doAnswer( invocation -> output.add( invocation.getArgument( 1 ) ) ).when( dbLookup )
+      .putRow( any( RowMetaInterface.class ), any( Object[].class ) );
+
+    assertTrue( dbLookup.lookupBatch() );
+
+    // The 3 distinct keys are looked up with a single call, the rows are passed on in their order
+    verify( db, times( 1 ) ).getRowsMatchingKeys( anyString(), nullable( RowMetaInterface.class ),
+      nullable( Object[].class ), any( String[].class ), any( RowMetaInterface.class ),
+      ArgumentMatchers.argThat( keys -> keys.size() == 3 ), nullable( String.class ) );
+    assertEquals( 4, output.size() );
+    assertArrayEquals( new Object[] { 1L, "one" }, output.get( 0 ) );
+    assertArrayEquals( new Object[] { 3L, null }, output.get( 1 ) );
+    assertArrayEquals( new Object[] { 2L, "two" }, output.get( 2 ) );
+    assertArrayEquals( new Object[] { 1L, "one" }, output.get( 3 ) );
+    assertTrue( data.batchRows.isEmpty() );
+  }
+
+  @Test
+  public void lookupBatchLooksUpKeysMissingFromResultsOneByOne() throws Exception {
+    when( mockHelper.logChannelInterfaceFactory.create( any(), any( LoggingObjectInterface.class ) ) )
+      .thenReturn( mockHelper.logChannelInterface );
+    DatabaseLookup dbLookup = spy( new DatabaseLookup( mockHelper.stepMeta, mockHelper.stepDataInterface, 0,
+      mockHelper.transMeta, mockHelper.trans ) );
+
+    RowMeta inputRowMeta = new RowMeta();
+    inputRowMeta.addValueMeta( new ValueMetaString( "code" ) );
+    RowMeta returnMeta = new RowMeta();
+    returnMeta.addValueMeta( new ValueMetaString( "name" ) );
+    RowMeta outputRowMeta = new RowMeta();
+    outputRowMeta.addValueMeta( new ValueMetaString( "code" ) );
+    outputRowMeta.addValueMeta( new ValueMetaString( "name" ) );
+    RowMeta tableRowMeta = new RowMeta();
+    tableRowMeta.addValueMeta( new ValueMetaString( "CODE" ) );
+    tableRowMeta.addValueMeta( new ValueMetaString( "NAME" ) );
+    RowMeta lookupRowMeta = new RowMeta();
+    lookupRowMeta.addValueMeta( new ValueMetaString( "NAME" ) );
+
+    DatabaseMeta dbMeta = mock( DatabaseMeta.class );
+    when( dbMeta.quoteField( anyString() ) ).thenAnswer( invocation -> invocation.getArgument( 0 ) );
+    when( dbMeta.getQuotedSchemaTableCombination( nullable( String.class ), nullable( String.class ) ) )
+      .thenReturn( "lookuptable" );
+    DatabaseLookupMeta meta = mock( DatabaseLookupMeta.class );
+    when( meta.getDatabaseMeta() ).thenReturn( dbMeta );
+    when( meta.getTableKeyField() ).thenReturn( new String[] { "CODE" } );
+    when( meta.getStreamKeyField1() ).thenReturn( new String[] { "code" } );
+    when( meta.getReturnValueField() ).thenReturn( new String[] { "NAME" } );
+    when( meta.getReturnValueDefaultType() ).thenReturn( new int[] { ValueMetaInterface.TYPE_STRING } );
+
+    // A case insensitive collation: the key "abc" matches the row "ABC" of the table
+    Database db = mock( Database.class );
+    List<Object[]> tableRows = new ArrayList<>();
+    tableRows.add( new Object[] { "ABC", "letters" } );
+    when( db.getRowsMatchingKeys( anyString(), nullable( RowMetaInterface.class ), nullable( Object[].class ),
+      any( String[].class ), any( RowMetaInterface.class ), ArgumentMatchers.anyList(), nullable( String.class ) ) )
+      .thenReturn( tableRows );
+    when( db.getReturnRowMeta() ).thenReturn( tableRowMeta, lookupRowMeta );
+    when( db.getLookup( anyBoolean() ) ).thenReturn( new Object[] { "letters" } );
+
+    DatabaseLookupData data = new DatabaseLookupData();
+    data.db = db;
+    data.lookupMeta = new RowMeta();
+    data.lookupMeta.addValueMeta( new ValueMetaString( "code" ) );
+    data.returnMeta = returnMeta;
+    data.outputRowMeta = outputRowMeta;
+    data.keynrs = new int[] { 0 };
+    data.keynrs2 = new int[] { -1 };
+    data.nullif = new Object[] { null };
+    data.batchRows = new ArrayList<>();
+    data.batchRows.add( new Object[] { "ABC" } );
+    data.batchRows.add( new Object[] { "abc" } );
+
+    setInternalState( dbLookup, "meta", meta );
+    setInternalState( dbLookup, "data", data );
+    doReturn( inputRowMeta ).when( dbLookup ).getInputRowMeta();
+    List<Object[]> output = new ArrayList<>();
+    doAnswer( invocation -> output.add( invocation.getArgument( 1 ) ) ).when( dbLookup )
+      .putRow( any( RowMetaInterface.class ), any( Object[].class ) );
+
+    assertTrue( dbLookup.lookupBatch() );
+
+    // Only the key that isn't in the results of the batch is looked up again, and found like row by row
+    verify( db, times( 1 ) ).setValuesLookup( any( RowMetaInterface.class ), any( Object[].class ) );
+    verify( db, times( 1 ) ).getLookup( anyBoolean() );
+    assertEquals( 2, output.size() );
+    assertArrayEquals( new Object[] { "ABC", "letters" }, output.get( 0 ) );
+    assertArrayEquals( new Object[] { "abc", "letters" }, output.get( 1 ) );
+  }
+
   private RowMeta determineFieldsTypeQueryingDbSetupAndCall( String kettlePropertyValue ) throws KettleException {
     //Row Meta - What is expected as configured in the database
     RowMeta rowMeta = new RowMeta();
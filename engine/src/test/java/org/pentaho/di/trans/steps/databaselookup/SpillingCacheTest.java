@@ -0,0 +1,88 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.databaselookup;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaString;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.pentaho.test.util.InternalState.setInternalState;
+
+public class SpillingCacheTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private SpillingCache createCache( long memoryBudget, RowMeta keyMeta ) {
+    DatabaseLookupData databaseLookupData = mock( DatabaseLookupData.class );
+    setInternalState( databaseLookupData, "allEquals", true );
+    setInternalState( databaseLookupData, "lookupMeta", keyMeta );
+    RowMeta valueMeta = new RowMeta();
+    valueMeta.addValueMeta( new ValueMetaString( "name" ) );
+    return new SpillingCache( new DefaultCache( databaseLookupData, 10 ), keyMeta, valueMeta, memoryBudget,
+      folder.getRoot(), 10 );
+  }
+
+  @Test
+  public void getRowFromMemoryAndDiskTest() throws Exception {
+    DatabaseLookupMeta databaseLookupMeta = mock( DatabaseLookupMeta.class );
+    when( databaseLookupMeta.isLoadingAllDataInCache() ).thenReturn( true );
+    RowMeta keyMeta = new RowMeta();
+    keyMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+    SpillingCache cache = createCache( 1, keyMeta );
+
+    for ( long i = 1; i <= 100; ++i ) {
+      cache.storeRowInCache( databaseLookupMeta, keyMeta, new Object[] { i }, new Object[] { "name" + i } );
+    }
+    // The first row is kept for a duplicate key, also when it went to disk
+    cache.storeRowInCache( databaseLookupMeta, keyMeta, new Object[] { 1L }, new Object[] { "duplicate" } );
+    cache.storeRowInCache( databaseLookupMeta, keyMeta, new Object[] { 50L }, new Object[] { "duplicate" } );
+    cache.finish();
+
+    assertNotNull( cache.getDiskIndex() );
+    assertEquals( 99, cache.getDiskIndex().size() );
+    for ( long i = 1; i <= 100; ++i ) {
+      assertEquals( "name" + i, cache.getRowFromCache( keyMeta, new Object[] { i } )[ 0 ] );
+    }
+    assertNull( cache.getRowFromCache( keyMeta, new Object[] { 101L } ) );
+    cache.close();
+    assertEquals( 0, folder.getRoot().listFiles().length );
+  }
+
+  @Test
+  public void noDiskIndexWithinBudgetTest() throws Exception {
+    DatabaseLookupMeta databaseLookupMeta = mock( DatabaseLookupMeta.class );
+    when( databaseLookupMeta.isLoadingAllDataInCache() ).thenReturn( true );
+    RowMeta keyMeta = new RowMeta();
+    keyMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+    SpillingCache cache = createCache( 1024 * 1024, keyMeta );
+
+    for ( long i = 1; i <= 10; ++i ) {
+      cache.storeRowInCache( databaseLookupMeta, keyMeta, new Object[] { i }, new Object[] { "name" + i } );
+    }
+    cache.finish();
+
+    assertNull( cache.getDiskIndex() );
+    assertEquals( "name5", cache.getRowFromCache( keyMeta, new Object[] { 5L } )[ 0 ] );
+    cache.close();
+  }
+}
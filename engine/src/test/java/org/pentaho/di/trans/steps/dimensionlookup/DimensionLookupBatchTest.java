@@ -0,0 +1,127 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.dimensionlookup;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.pentaho.di.core.Const;
+import org.pentaho.di.core.KettleEnvironment;
+import org.pentaho.di.core.RowMetaAndData;
+import org.pentaho.di.core.database.DatabaseMeta;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaString;
+import org.pentaho.di.core.variables.Variables;
+import org.pentaho.di.junit.rules.RestorePDIEngineEnvironment;
+import org.pentaho.di.trans.TransMeta;
+import org.pentaho.di.trans.TransTestFactory;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Looks up the same rows in a dimension row by row and in batches.
+ */
+public class DimensionLookupBatchTest {
+  @ClassRule public static RestorePDIEngineEnvironment env = new RestorePDIEngineEnvironment();
+
+  private static final String STEP_NAME = "dimension lookup";
+  private static final String DATABASE_XML =
+    "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+      + "<connection>" + "<name>dimension</name>" + "<server>127.0.0.1</server>" + "<type>H2</type>"
+      + "<access>Native</access>" + "<database>mem:dimensionbatch</database>" + "<port></port>"
+      + "<username>sa</username>" + "<password></password>" + "</connection>";
+
+  // Keeps the in memory database alive between the runs of the step
+  private static Connection connection;
+
+  @BeforeClass
+  public static void before() throws Exception {
+    KettleEnvironment.init( false );
+    connection = DriverManager.getConnection( "jdbc:h2:mem:dimensionbatch", "sa", "" );
+    try ( Statement statement = connection.createStatement() ) {
+      statement.execute( "CREATE TABLE DIM ( ID INTEGER, VERSION INTEGER, DATE_FROM TIMESTAMP, DATE_TO TIMESTAMP, "
+        + "CODE VARCHAR(10), NAME VARCHAR(20) )" );
+      statement.execute( "INSERT INTO DIM VALUES ( 1, 1, '1900-01-01', '2199-12-31', 'A', 'alpha' )" );
+      statement.execute( "INSERT INTO DIM VALUES ( 2, 1, '1900-01-01', '2000-01-01', 'B', 'old beta' )" );
+      statement.execute( "INSERT INTO DIM VALUES ( 3, 2, '2000-01-01', '2199-12-31', 'B', 'beta' )" );
+      statement.execute( "INSERT INTO DIM VALUES ( 4, 1, '1900-01-01', '2199-12-31', 'C', 'gamma' )" );
+    }
+  }
+
+  @AfterClass
+  public static void after() throws Exception {
+    connection.close();
+  }
+
+  @Test
+  public void testBatchedLookupsMatchRowByRow() throws KettleException {
+    List<RowMetaAndData> expected = runStep( "1" );
+    List<RowMetaAndData> actual = runStep( "8" );
+
+    assertEquals( 50, expected.size() );
+    assertEquals( 1L, expected.get( 0 ).getData()[ 1 ] );
+    assertEquals( "alpha", expected.get( 0 ).getData()[ 2 ] );
+    assertEquals( 3L, expected.get( 1 ).getData()[ 1 ] );
+    assertEquals( "beta", expected.get( 1 ).getData()[ 2 ] );
+
+    assertEquals( expected.size(), actual.size() );
+    for ( int i = 0; i < expected.size(); i++ ) {
+      assertEquals( expected.get( i ).getRowMeta().toStringMeta(), actual.get( i ).getRowMeta().toStringMeta() );
+      assertArrayEquals( "row " + i, expected.get( i ).getData(), actual.get( i ).getData() );
+    }
+  }
+
+  private static List<RowMetaAndData> runStep( String batchSize ) throws KettleException {
+    DimensionLookupMeta meta = new DimensionLookupMeta();
+    meta.setDefault();
+    meta.setDatabaseMeta( new DatabaseMeta( DATABASE_XML ) );
+    meta.setTableName( "DIM" );
+    meta.setUpdate( false );
+    meta.setKeyField( "ID" );
+    meta.setVersionField( "VERSION" );
+    meta.setDateFrom( "DATE_FROM" );
+    meta.setDateTo( "DATE_TO" );
+    meta.setKeyStream( new String[] { "code" } );
+    meta.setKeyLookup( new String[] { "CODE" } );
+    meta.setFieldStream( new String[] { "name" } );
+    meta.setFieldLookup( new String[] { "NAME" } );
+    meta.setFieldUpdate( new int[] { DimensionLookupMeta.TYPE_UPDATE_DIM_INSERT } );
+    meta.setReturnType( new int[] { 0 } );
+
+    Variables variables = new Variables();
+    variables.setVariable( Const.KETTLE_LOOKUP_BATCH_SIZE, batchSize );
+    TransMeta transMeta = TransTestFactory.generateTestTransformation( variables, meta, STEP_NAME );
+
+    // Keys with one version, with an expired version, and without any version, repeated over several batches
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaString( "code" ) );
+    String[] codes = { "A", "B", "C", "D", "B" };
+    List<RowMetaAndData> input = new ArrayList<>();
+    for ( int i = 0; i < 50; i++ ) {
+      input.add( new RowMetaAndData( rowMeta, codes[ i % codes.length ] ) );
+    }
+
+    return TransTestFactory.executeTestTransformation( transMeta, STEP_NAME, input );
+  }
+}
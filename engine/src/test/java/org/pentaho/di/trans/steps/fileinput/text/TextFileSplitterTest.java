@@ -0,0 +1,162 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.fileinput.text;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.spy;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.InOrder;
+import org.pentaho.di.trans.Trans;
+
+public class TextFileSplitterTest {
+
+  private static final byte[] QUOTE = { '"' };
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private String createFile( String content ) throws IOException {
+    File file = folder.newFile();
+    Files.write( file.toPath(), content.getBytes( StandardCharsets.UTF_8 ) );
+    return file.getAbsolutePath();
+  }
+
+  private long[][] split( TextFileSplitter splitter, String[] filenames, long[] sizes, int copies, int copy )
+    throws IOException {
+    long total = 0L;
+    for ( long size : sizes ) {
+      total += size;
+    }
+    long blockSize = ( total + copies - 1 ) / copies;
+    long blockEnd = copy == copies - 1 ? Long.MAX_VALUE : blockSize * ( copy + 1 );
+    return splitter.getRanges( filenames, sizes, blockSize, blockSize * copy, blockEnd );
+  }
+
+  @Test
+  public void testNewLinesInEnclosuresDontStartRows() throws Exception {
+    // The block of the second copy starts at 10, in the enclosed field
+    String content = "1,\"a\nb\nc\nd\ne\nf\"\n2,x\n";
+    String filename = createFile( content );
+    long[] sizes = { content.length() };
+    Trans trans = new Trans();
+
+    long[][] first = split( new TextFileSplitter( QUOTE, trans ), new String[] { filename }, sizes, 2, 0 );
+    long[][] second = split( new TextFileSplitter( QUOTE, trans ), new String[] { filename }, sizes, 2, 1 );
+
+    assertArrayEquals( new long[] { 0, 16 }, first[ 0 ] );
+    assertArrayEquals( new long[] { 16, 20 }, second[ 0 ] );
+  }
+
+  @Test
+  public void testWithoutEnclosureAllNewLinesStartRows() throws Exception {
+    String content = "1,\"a\nb\nc\nd\ne\nf\"\n2,x\n";
+    String filename = createFile( content );
+    long[] sizes = { content.length() };
+
+    TextFileSplitter splitter = new TextFileSplitter( null, null );
+    assertFalse( splitter.isEnclosureAware() );
+    assertArrayEquals( new long[] { 11, 20 }, split( splitter, new String[] { filename }, sizes, 2, 1 )[ 0 ] );
+  }
+
+  @Test
+  public void testDoubledEnclosuresAndCarriageReturns() throws Exception {
+    String content = "\"a\"\"\r\nb\"\r\n\"c\"\r\nd\r\n";
+    String filename = createFile( content );
+    long[] sizes = { content.length() };
+
+    TextFileSplitter splitter = new TextFileSplitter( QUOTE, null );
+    assertTrue( splitter.isEnclosureAware() );
+    for ( int copies = 1; copies <= content.length(); copies++ ) {
+      long end = 0L;
+      for ( int copy = 0; copy < copies; copy++ ) {
+        long[] range = split( splitter, new String[] { filename }, sizes, copies, copy )[ 0 ];
+        if ( range != null ) {
+          assertEquals( end, range[ 0 ] );
+          assertTrue( range[ 0 ] == 0 || range[ 0 ] == 10 || range[ 0 ] == 15 );
+          end = range[ 1 ];
+        }
+      }
+      assertEquals( content.length(), end );
+    }
+  }
+
+  @Test
+  public void testRangesOverFiles() throws Exception {
+    String first = "a,\"1\n2\"\nb,3\n";
+    String second = "c,4\nd,\"5\n6\"\n";
+    String[] filenames = { createFile( first ), createFile( second ) };
+    long[] sizes = { first.length(), second.length() };
+    Trans trans = new Trans();
+
+    long[][] ranges1 = split( new TextFileSplitter( QUOTE, trans ), filenames, sizes, 3, 0 );
+    long[][] ranges2 = split( new TextFileSplitter( QUOTE, trans ), filenames, sizes, 3, 1 );
+    long[][] ranges3 = split( new TextFileSplitter( QUOTE, trans ), filenames, sizes, 3, 2 );
+
+    assertArrayEquals( new long[] { 0, 8 }, ranges1[ 0 ] );
+    assertNull( ranges1[ 1 ] );
+    assertArrayEquals( new long[] { 8, 12 }, ranges2[ 0 ] );
+    assertArrayEquals( new long[] { 0, 4 }, ranges2[ 1 ] );
+    assertNull( ranges3[ 0 ] );
+    assertArrayEquals( new long[] { 4, 12 }, ranges3[ 1 ] );
+  }
+
+  @Test
+  public void testOwnBlockIsCountedFirst() throws Exception {
+    String content = "1,\"a\nb\"\n2,c\n3,\"d\ne\"\n4,f\n5,g\n";
+    String filename = createFile( content );
+    long[] sizes = { content.length() };
+    long blockSize = ( content.length() + 2 ) / 3;
+    TextFileSplitter splitter = spy( new TextFileSplitter( QUOTE, new Trans() ) );
+
+    split( splitter, new String[] { filename }, sizes, 3, 1 );
+
+    // The block of the copy, then the one before it
+    InOrder inOrder = inOrder( splitter );
+    inOrder.verify( splitter ).isOddEnclosureCount( eq( filename ), any(), eq( blockSize ), eq( 2 * blockSize ) );
+    inOrder.verify( splitter, atLeastOnce() ).isOddEnclosureCount( eq( filename ), any(), eq( 0L ),
+      eq( blockSize ) );
+  }
+
+  @Test
+  public void testFilesThatCantBeSplitAreReadWhole() throws Exception {
+    String content = "a\nb\nc\nd\n";
+    String[] filenames = { null, createFile( content ) };
+    long[] sizes = { 8, content.length() };
+    TextFileSplitter splitter = new TextFileSplitter( QUOTE, null );
+
+    long[][] ranges1 = split( splitter, filenames, sizes, 2, 0 );
+    long[][] ranges2 = split( splitter, filenames, sizes, 2, 1 );
+
+    assertArrayEquals( new long[] { 0, -1 }, ranges1[ 0 ] );
+    assertNull( ranges1[ 1 ] );
+    assertNull( ranges2[ 0 ] );
+    assertArrayEquals( new long[] { 0, 8 }, ranges2[ 1 ] );
+  }
+}
@@ -0,0 +1,79 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.filterrows;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.pentaho.di.core.Condition;
+import org.pentaho.di.core.KettleEnvironment;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.ValueMetaAndData;
+import org.pentaho.di.junit.rules.RestorePDIEngineEnvironment;
+import org.pentaho.di.trans.RowBatchTestUtil;
+import org.pentaho.di.trans.step.StepMetaInterface;
+
+/**
+ * Filters the same rows row by row and in batches: on primitive columns when the condition allows it, row by row
+ * within the batch otherwise.
+ */
+public class FilterRowsBatchTest {
+  @ClassRule public static RestorePDIEngineEnvironment env = new RestorePDIEngineEnvironment();
+
+  private static final String STEP_NAME = "filter";
+
+  @BeforeClass
+  public static void before() throws KettleException {
+    KettleEnvironment.init( false );
+  }
+
+  private static void assertSameOutput( StepMetaInterface meta ) throws KettleException {
+    RowBatchTestUtil.assertSameOutput( meta, STEP_NAME );
+  }
+
+  private static FilterRowsMeta filter( Condition condition ) {
+    FilterRowsMeta meta = new FilterRowsMeta();
+    meta.setDefault();
+    meta.setCondition( condition );
+    return meta;
+  }
+
+  @Test
+  public void testIntegerConstant() throws KettleException {
+    assertSameOutput( filter( new Condition( "value", Condition.FUNC_LARGER, null,
+      new ValueMetaAndData( "constant", 10L ) ) ) );
+  }
+
+  @Test
+  public void testNegatedNumberConstant() throws KettleException {
+    assertSameOutput( filter( new Condition( true, "amount", Condition.FUNC_SMALLER_EQUAL, null,
+      new ValueMetaAndData( "constant", 100.0 ) ) ) );
+  }
+
+  @Test
+  public void testIntegerFields() throws KettleException {
+    assertSameOutput( filter( new Condition( "key", Condition.FUNC_NOT_EQUAL, "value", null ) ) );
+  }
+
+  @Test
+  public void testNullCheck() throws KettleException {
+    assertSameOutput( filter( new Condition( "value", Condition.FUNC_NULL, null, null ) ) );
+  }
+
+  @Test
+  public void testRowByRowCondition() throws KettleException {
+    assertSameOutput( filter( new Condition( "name", Condition.FUNC_STARTS_WITH, null,
+      new ValueMetaAndData( "constant", "row1" ) ) ) );
+  }
+}
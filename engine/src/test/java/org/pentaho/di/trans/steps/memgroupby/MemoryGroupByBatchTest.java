@@ -0,0 +1,92 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.memgroupby;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.pentaho.di.core.Const;
+import org.pentaho.di.core.KettleEnvironment;
+import org.pentaho.di.core.RowMetaAndData;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.variables.Variables;
+import org.pentaho.di.junit.rules.RestorePDIEngineEnvironment;
+import org.pentaho.di.trans.RowBatchTestUtil;
+
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Aggregates the same rows row by row and in batches, with the groups on the heap and off-heap.
+ */
+public class MemoryGroupByBatchTest {
+  @ClassRule public static RestorePDIEngineEnvironment env = new RestorePDIEngineEnvironment();
+
+  private static final String STEP_NAME = "group";
+
+  @BeforeClass
+  public static void before() throws KettleException {
+    KettleEnvironment.init( false );
+  }
+
+  @Test
+  public void testHeap() throws KettleException {
+    assertSameGroups( "N" );
+  }
+
+  @Test
+  public void testOffHeap() throws KettleException {
+    assertSameGroups( "Y" );
+  }
+
+  private static List<RowMetaAndData> runStep( String offHeap, String batchSize ) throws KettleException {
+    MemoryGroupByMeta meta = new MemoryGroupByMeta();
+    meta.allocate( 1, 6 );
+    meta.getGroupField()[0] = "key";
+    String[] subjects = { "value", "value", "amount", "amount", "value", "name" };
+    String[] names = { "sum", "count", "avg", "amount_sum", "count_any", "max_name" };
+    int[] types = { MemoryGroupByMeta.TYPE_GROUP_SUM, MemoryGroupByMeta.TYPE_GROUP_COUNT_ALL,
+      MemoryGroupByMeta.TYPE_GROUP_AVERAGE, MemoryGroupByMeta.TYPE_GROUP_SUM, MemoryGroupByMeta.TYPE_GROUP_COUNT_ANY,
+      MemoryGroupByMeta.TYPE_GROUP_MAX };
+    for ( int i = 0; i < types.length; i++ ) {
+      meta.getSubjectField()[i] = subjects[i];
+      meta.getAggregateField()[i] = names[i];
+      meta.getAggregateType()[i] = types[i];
+    }
+
+    Variables variables = new Variables();
+    variables.setVariable( Const.KETTLE_MEMORY_GROUP_BY_OFF_HEAP, offHeap );
+
+    // Runs of rows of the same group, shorter and longer than a batch
+    List<RowMetaAndData> input =
+      RowBatchTestUtil.createRows( i -> i < RowBatchTestUtil.NR_OF_ROWS / 2 ? i / 7 % 20 : i / 150 );
+
+    List<RowMetaAndData> output = RowBatchTestUtil.runStep( meta, STEP_NAME, variables, batchSize, input );
+    output.sort( Comparator.comparing( row -> (Long) row.getData()[ 0 ] ) );
+    return output;
+  }
+
+  /**
+   * Aggregate the rows row by row, then in batches, and check that the groups are the same.
+   */
+  private static void assertSameGroups( String offHeap ) throws KettleException {
+    List<RowMetaAndData> expected = runStep( offHeap, "0" );
+    List<RowMetaAndData> actual = runStep( offHeap, RowBatchTestUtil.BATCH_SIZE );
+
+    assertEquals( 20, expected.size() );
+    RowBatchTestUtil.assertSameRows( "group", expected, actual );
+  }
+}
@@ -0,0 +1,145 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.memgroupby;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.pentaho.di.core.Const;
+import org.pentaho.di.core.KettleEnvironment;
+import org.pentaho.di.core.RowMetaAndData;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaNumber;
+import org.pentaho.di.core.variables.Variables;
+import org.pentaho.di.junit.rules.RestorePDIEngineEnvironment;
+import org.pentaho.di.trans.TransMeta;
+import org.pentaho.di.trans.TransTestFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs the same aggregation with the groups on the heap and off-heap, with and without a memory budget small enough
+ * to make the step spill the rows of most groups to disk.
+ */
+public class MemoryGroupBySpillTest {
+  @ClassRule public static RestorePDIEngineEnvironment env = new RestorePDIEngineEnvironment();
+
+  private static final String STEP_NAME = "group";
+  private static final int NR_OF_GROUPS = 5000;
+  private static final int NR_OF_ROWS = 20000;
+
+  @BeforeClass
+  public static void before() throws KettleException {
+    KettleEnvironment.init( false );
+  }
+
+  @Test
+  public void testOffHeap() throws KettleException {
+    checkGroups( runStep( "Y", null ) );
+  }
+
+  @Test
+  public void testOffHeapSpill() throws KettleException {
+    checkGroups( runStep( "Y", "100k" ) );
+  }
+
+  @Test
+  public void testHeap() throws KettleException {
+    checkGroups( runStep( "N", null ) );
+  }
+
+  @Test
+  public void testHeapSpill() throws KettleException {
+    checkGroups( runStep( "N", "100k" ) );
+  }
+
+  private List<RowMetaAndData> runStep( String offHeap, String budget ) throws KettleException {
+    MemoryGroupByMeta meta = new MemoryGroupByMeta();
+    meta.allocate( 1, 6 );
+    meta.getGroupField()[0] = "key";
+    String[] subjects = { "value", "value", "value", "value", "amount", "amount" };
+    String[] names = { "sum", "count", "min", "max", "avg", "amount_max" };
+    int[] types = { MemoryGroupByMeta.TYPE_GROUP_SUM, MemoryGroupByMeta.TYPE_GROUP_COUNT_ALL,
+      MemoryGroupByMeta.TYPE_GROUP_MIN, MemoryGroupByMeta.TYPE_GROUP_MAX, MemoryGroupByMeta.TYPE_GROUP_AVERAGE,
+      MemoryGroupByMeta.TYPE_GROUP_MAX };
+    for ( int i = 0; i < types.length; i++ ) {
+      meta.getSubjectField()[i] = subjects[i];
+      meta.getAggregateField()[i] = names[i];
+      meta.getAggregateType()[i] = types[i];
+    }
+
+    Variables variables = new Variables();
+    variables.setVariable( Const.KETTLE_MEMORY_GROUP_BY_OFF_HEAP, offHeap );
+    if ( budget != null ) {
+      variables.setVariable( Const.KETTLE_MEMORY_GROUP_BY_MEMORY_BUDGET, budget );
+    }
+    TransMeta transMeta = TransTestFactory.generateTestTransformation( variables, meta, STEP_NAME );
+
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "key" ) );
+    rowMeta.addValueMeta( new ValueMetaInteger( "value" ) );
+    rowMeta.addValueMeta( new ValueMetaNumber( "amount" ) );
+    List<RowMetaAndData> input = new ArrayList<>();
+    for ( int i = 0; i < NR_OF_ROWS; i++ ) {
+      input.add( new RowMetaAndData( rowMeta, (long) ( i % NR_OF_GROUPS ), i % 3 == 0 ? null : (long) i,
+        i * 0.5 ) );
+    }
+
+    return TransTestFactory.executeTestTransformation( transMeta, STEP_NAME, input );
+  }
+
+  private void checkGroups( List<RowMetaAndData> output ) throws KettleException {
+    assertEquals( NR_OF_GROUPS, output.size() );
+
+    boolean[] seen = new boolean[ NR_OF_GROUPS ];
+    for ( RowMetaAndData row : output ) {
+      int key = (int) row.getInteger( "key", -1L );
+      seen[ key ] = true;
+
+      long sum = 0L;
+      long count = 0L;
+      long min = Long.MAX_VALUE;
+      long max = Long.MIN_VALUE;
+      double amountSum = 0.0;
+      double amountMax = 0.0;
+      for ( int i = key; i < NR_OF_ROWS; i += NR_OF_GROUPS ) {
+        if ( i % 3 != 0 ) {
+          sum += i;
+          count++;
+          min = Math.min( min, i );
+          max = Math.max( max, i );
+        }
+        amountSum += i * 0.5;
+        amountMax = i * 0.5;
+      }
+
+      assertEquals( sum, row.getInteger( "sum", -1L ) );
+      assertEquals( count, row.getInteger( "count", -1L ) );
+      assertEquals( min, row.getInteger( "min", -1L ) );
+      assertEquals( max, row.getInteger( "max", -1L ) );
+      assertEquals( amountSum / ( NR_OF_ROWS / NR_OF_GROUPS ), row.getNumber( "avg", -1.0 ), 1e-9 );
+      assertEquals( amountMax, row.getNumber( "amount_max", -1.0 ), 0.0 );
+    }
+    for ( boolean groupSeen : seen ) {
+      assertTrue( groupSeen );
+    }
+  }
+}
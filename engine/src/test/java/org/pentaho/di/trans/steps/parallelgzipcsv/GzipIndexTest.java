@@ -0,0 +1,122 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.parallelgzipcsv;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+public class GzipIndexTest {
+
+  private static byte[] createData( int size ) {
+    Random random = new Random( 1 );
+    StringBuilder data = new StringBuilder();
+    for ( int i = 0; data.length() < size; i++ ) {
+      data.append( i ).append( ";\"" ).append( Long.toString( random.nextLong(), 36 ) ).append( "\";" )
+        .append( random.nextInt( 1000 ) ).append( '\n' );
+    }
+    return data.substring( 0, size ).getBytes( StandardCharsets.US_ASCII );
+  }
+
+  private static byte[] gzip( byte[] data, int... memberEnds ) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    int start = 0;
+    for ( int end : memberEnds ) {
+      GZIPOutputStream member = new GZIPOutputStream( out );
+      member.write( data, start, end - start );
+      member.finish();
+      start = end;
+    }
+    return out.toByteArray();
+  }
+
+  private static void assertReadsFrom( GzipIndex index, byte[] gzip, byte[] data, long position ) throws IOException {
+    try ( InputStream in = index.open( new ByteArrayInputStream( gzip ), position ) ) {
+      assertArrayEquals( "From " + position, Arrays.copyOfRange( data, (int) position, data.length ),
+        IOUtils.toByteArray( in ) );
+    }
+  }
+
+  @Test
+  public void testReadFromCheckpoints() throws Exception {
+    byte[] data = createData( 1000000 );
+    byte[] gzip = gzip( data, data.length );
+
+    GzipIndex index = GzipIndex.build( new ByteArrayInputStream( gzip ), gzip.length, 0L, 100000 );
+
+    assertEquals( data.length, index.getUncompressedSize() );
+    assertTrue( index.getCheckpointCount() > 1 );
+    for ( long position = 0; position <= data.length; position += 99991 ) {
+      assertReadsFrom( index, gzip, data, position );
+    }
+    assertReadsFrom( index, gzip, data, data.length );
+  }
+
+  @Test
+  public void testReadOverMembers() throws Exception {
+    byte[] data = createData( 500000 );
+    byte[] gzip = gzip( data, 1000, 300000, 300000, data.length );
+
+    GzipIndex index = GzipIndex.build( new ByteArrayInputStream( gzip ), gzip.length, 0L, 50000 );
+
+    assertEquals( data.length, index.getUncompressedSize() );
+    for ( long position = 0; position <= data.length; position += 33333 ) {
+      assertReadsFrom( index, gzip, data, position );
+    }
+  }
+
+  @Test
+  public void testWriteAndRead() throws Exception {
+    byte[] data = createData( 300000 );
+    byte[] gzip = gzip( data, data.length );
+    GzipIndex index = GzipIndex.build( new ByteArrayInputStream( gzip ), gzip.length, 1234L, 50000 );
+
+    ByteArrayOutputStream saved = new ByteArrayOutputStream();
+    index.write( saved );
+    GzipIndex loaded = GzipIndex.read( new ByteArrayInputStream( saved.toByteArray() ) );
+
+    assertTrue( loaded.isValidFor( gzip.length, 1234L ) );
+    assertFalse( loaded.isValidFor( gzip.length, 1235L ) );
+    assertEquals( index.getCheckpointCount(), loaded.getCheckpointCount() );
+    assertEquals( data.length, loaded.getUncompressedSize() );
+    assertReadsFrom( loaded, gzip, data, 250000 );
+  }
+
+  @Test( expected = ZipException.class )
+  public void testNotGzip() throws Exception {
+    byte[] data = createData( 1000 );
+    GzipIndex.build( new ByteArrayInputStream( data ), data.length, 0L, 100 );
+  }
+
+  @Test( expected = ZipException.class )
+  public void testCorruptTrailer() throws Exception {
+    byte[] gzip = gzip( createData( 1000 ), 1000 );
+    gzip[ gzip.length - 1 ]++;
+    GzipIndex.build( new ByteArrayInputStream( gzip ), gzip.length, 0L, 100 );
+  }
+}
@@ -0,0 +1,67 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.selectvalues;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.pentaho.di.core.KettleEnvironment;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.junit.rules.RestorePDIEngineEnvironment;
+import org.pentaho.di.trans.RowBatchTestUtil;
+import org.pentaho.di.trans.step.StepMetaInterface;
+
+/**
+ * Selects the same rows row by row and in batches: projected at once when only fields are picked, row by row within
+ * the batch otherwise.
+ */
+public class SelectValuesBatchTest {
+  @ClassRule public static RestorePDIEngineEnvironment env = new RestorePDIEngineEnvironment();
+
+  private static final String STEP_NAME = "select";
+
+  @BeforeClass
+  public static void before() throws KettleException {
+    KettleEnvironment.init( false );
+  }
+
+  private static void assertSameOutput( StepMetaInterface meta ) throws KettleException {
+    RowBatchTestUtil.assertSameOutput( meta, STEP_NAME );
+  }
+
+  @Test
+  public void testSelectOnly() throws KettleException {
+    SelectValuesMeta meta = new SelectValuesMeta();
+    meta.allocate( 3, 0, 0 );
+    meta.setSelectName( new String[] { "name", "key", "amount" } );
+    assertSameOutput( meta );
+  }
+
+  @Test
+  public void testSelectAndRename() throws KettleException {
+    SelectValuesMeta meta = new SelectValuesMeta();
+    meta.allocate( 2, 0, 0 );
+    meta.setSelectName( new String[] { "value", "key" } );
+    meta.setSelectRename( new String[] { "v", null } );
+    assertSameOutput( meta );
+  }
+
+  @Test
+  public void testRemove() throws KettleException {
+    SelectValuesMeta meta = new SelectValuesMeta();
+    meta.allocate( 0, 1, 0 );
+    meta.setDeleteName( new String[] { "amount" } );
+    assertSameOutput( meta );
+  }
+}
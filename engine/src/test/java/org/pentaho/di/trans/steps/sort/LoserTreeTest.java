@@ -0,0 +1,76 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.sort;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class LoserTreeTest {
+
+  private static final Comparator<Object[]> BY_KEY = Comparator.comparingLong( row -> (Long) row[ 0 ] );
+
+  private static class ListRun implements LoserTree.Run {
+    private final Iterator<Object[]> iterator;
+
+    ListRun( List<Object[]> rows ) {
+      this.iterator = rows.iterator();
+    }
+
+    @Override
+    public Object[] next() {
+      return iterator.hasNext() ? iterator.next() : null;
+    }
+  }
+
+  @Test
+  public void testNoRuns() throws Exception {
+    assertNull( new LoserTree( Collections.emptyList(), BY_KEY ).poll() );
+  }
+
+  @Test
+  public void testMergeIsSortedAndStable() throws Exception {
+    Random random = new Random( 42 );
+    for ( int k = 1; k < 20; k++ ) {
+      List<Object[]> expected = new ArrayList<>();
+      List<ListRun> runs = new ArrayList<>();
+      for ( int run = 0; run < k; run++ ) {
+        List<Object[]> rows = new ArrayList<>();
+        int size = random.nextInt( 50 );
+        for ( int i = 0; i < size; i++ ) {
+          rows.add( new Object[] { (long) random.nextInt( 20 ), run } );
+        }
+        rows.sort( BY_KEY );
+        expected.addAll( rows );
+        runs.add( new ListRun( rows ) );
+      }
+      // Runs are concatenated in order, so a stable sort gives the expected merge
+      expected.sort( BY_KEY );
+
+      LoserTree tree = new LoserTree( runs, BY_KEY );
+      for ( Object[] row : expected ) {
+        assertSame( "k=" + k, row, tree.poll() );
+      }
+      assertNull( tree.poll() );
+      assertNull( tree.poll() );
+    }
+  }
+}
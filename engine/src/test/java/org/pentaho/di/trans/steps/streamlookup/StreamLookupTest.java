@@ -18,6 +18,7 @@ import junit.framework.Assert;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.pentaho.di.core.Const;
 import org.pentaho.di.core.QueueRowSet;
 import org.pentaho.di.core.RowSet;
 import org.pentaho.di.core.bowl.Bowl;
@@ -158,7 +159,15 @@ public class StreamLookupTest {
   }
 
   private void doTest( boolean memoryPreservationActive, boolean binaryLookupStream, boolean binaryDataStream ) throws KettleException {
+    doTest( memoryPreservationActive, binaryLookupStream, binaryDataStream, null );
+  }
+
+  private void doTest( boolean memoryPreservationActive, boolean binaryLookupStream, boolean binaryDataStream,
+                       String memoryBudget ) throws KettleException {
     StreamLookup step = new StreamLookup( smh.stepMeta, smh.stepDataInterface, 0, smh.transMeta, smh.trans );
+    if ( memoryBudget != null ) {
+      step.setVariable( Const.KETTLE_LOOKUP_MEMORY_BUDGET, memoryBudget );
+    }
     step.init( smh.initStepMetaInterface, smh.initStepDataInterface );
     step.addRowSetToInputRowSets( mockLookupRowSet( binaryLookupStream ) );
     step.addRowSetToInputRowSets( mockDataRowSet( binaryDataStream ) );
@@ -190,6 +199,10 @@ public class StreamLookupTest {
     }
 
     Assert.assertEquals( "Incorrect output row number", 2, rowNumber );
+    if ( memoryBudget != null ) {
+      Assert.assertNotNull( "The lookup rows should have gone to disk", data.diskIndex );
+    }
+    step.dispose( meta, data );
   }
 
   @Test
@@ -231,4 +244,24 @@ public class StreamLookupTest {
   public void testMemoryPreservationWithBinaryStreams() throws KettleException {
     doTest( true, false, true );
   }
+
+  @Test
+  public void testDiskIndexWithNormalStreams() throws KettleException {
+    doTest( false, false, false, "1" );
+  }
+
+  @Test
+  public void testDiskIndexWithBinaryStreams() throws KettleException {
+    doTest( false, true, true, "1" );
+  }
+
+  @Test
+  public void testMemoryPreservationDiskIndexWithNormalStreams() throws KettleException {
+    doTest( true, false, false, "1" );
+  }
+
+  @Test
+  public void testMemoryPreservationDiskIndexWithBinaryStreams() throws KettleException {
+    doTest( true, true, true, "1" );
+  }
 }
@@ -60,6 +60,21 @@ public class TableInputMetaInjectionTest extends BaseMetadataInjectionTest<Table
         return meta.isCachedRowMetaActive();
       }
     } );
+    check( "SPLIT_FIELD", new StringGetter() {
+      public String get() {
+        return meta.getSplitField();
+      }
+    } );
+    check( "SPLIT_COUNT", new StringGetter() {
+      public String get() {
+        return meta.getSplitCount();
+      }
+    } );
+    check( "SPLIT_ORDERED", new BooleanGetter() {
+      public boolean get() {
+        return meta.isSplitOrdered();
+      }
+    } );
     skipPropertyTest( "CONNECTIONNAME" );
   }
 }
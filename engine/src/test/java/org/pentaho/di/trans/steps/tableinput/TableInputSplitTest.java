@@ -0,0 +1,185 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.tableinput;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.di.core.database.Database;
+import org.pentaho.di.core.database.DatabaseMeta;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.exception.KettleValueException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaBigNumber;
+import org.pentaho.di.core.row.value.ValueMetaDate;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaNumber;
+import org.pentaho.di.core.row.value.ValueMetaString;
+import org.pentaho.di.core.row.value.ValueMetaTimestamp;
+
+public class TableInputSplitTest {
+
+  private DatabaseMeta databaseMeta;
+
+  @Before
+  public void setUp() {
+    databaseMeta = mock( DatabaseMeta.class );
+    when( databaseMeta.quoteField( anyString() ) ).thenAnswer( invocation -> invocation.getArgument( 0 ) );
+  }
+
+  @Test
+  public void testMinMaxSQL() {
+    assertEquals( "SELECT MIN( id ), MAX( id ) FROM ( SELECT * FROM sales ) split_query",
+      TableInputSplit.getMinMaxSQL( databaseMeta, " SELECT * FROM sales ;", "id" ) );
+  }
+
+  @Test
+  public void testIntegerRanges() throws KettleException {
+    List<TableInputSplit> splits = TableInputSplit.createSplits( databaseMeta, "SELECT * FROM sales", new RowMeta(),
+      new Object[ 0 ], "id", new ValueMetaInteger( "min" ), 1L, 100L, 4, false );
+
+    assertEquals( 4, splits.size() );
+    assertEquals( "SELECT * FROM ( SELECT * FROM sales ) split_query WHERE ( id < ? OR id IS NULL )",
+      splits.get( 0 ).getSQL() );
+    assertArrayEquals( new Object[] { 26L }, splits.get( 0 ).getParameters() );
+    assertEquals( "SELECT * FROM ( SELECT * FROM sales ) split_query WHERE id >= ? AND id < ?",
+      splits.get( 1 ).getSQL() );
+    assertArrayEquals( new Object[] { 26L, 51L }, splits.get( 1 ).getParameters() );
+    assertArrayEquals( new Object[] { 51L, 76L }, splits.get( 2 ).getParameters() );
+    assertEquals( "SELECT * FROM ( SELECT * FROM sales ) split_query WHERE id >= ?", splits.get( 3 ).getSQL() );
+    assertArrayEquals( new Object[] { 76L }, splits.get( 3 ).getParameters() );
+    assertEquals( 1, splits.get( 3 ).getParametersMeta().size() );
+  }
+
+  @Test
+  public void testOrderedRangesAreSorted() throws KettleException {
+    List<TableInputSplit> splits = TableInputSplit.createSplits( databaseMeta, "SELECT * FROM sales ORDER BY name",
+      new RowMeta(), new Object[ 0 ], "id", new ValueMetaInteger( "min" ), 1L, 100L, 2, true );
+
+    assertEquals( "SELECT * FROM ( SELECT * FROM sales ) split_query WHERE ( id < ? OR id IS NULL ) ORDER BY id",
+      splits.get( 0 ).getSQL() );
+    assertEquals( "SELECT * FROM ( SELECT * FROM sales ) split_query WHERE id >= ? ORDER BY id",
+      splits.get( 1 ).getSQL() );
+  }
+
+  @Test
+  public void testTrailingOrderByIsRemoved() {
+    assertEquals( "SELECT * FROM sales", TableInputSplit.stripSQL( "SELECT * FROM sales order by name, id DESC;" ) );
+    assertEquals( "SELECT a FROM t UNION SELECT b FROM u",
+      TableInputSplit.stripSQL( "SELECT a FROM t UNION SELECT b FROM u ORDER BY 1" ) );
+    assertEquals( "SELECT ROW_NUMBER() OVER ( ORDER BY id ) rn, reorder_by FROM sales",
+      TableInputSplit.stripSQL( "SELECT ROW_NUMBER() OVER ( ORDER BY id ) rn, reorder_by FROM sales" ) );
+    assertEquals( "SELECT * FROM sales WHERE name = 'x ORDER BY y'",
+      TableInputSplit.stripSQL( "SELECT * FROM sales WHERE name = 'x ORDER BY y'" ) );
+    // The order matters with a limit on the number of rows
+    assertEquals( "SELECT * FROM sales ORDER BY id LIMIT 10",
+      TableInputSplit.stripSQL( "SELECT * FROM sales ORDER BY id LIMIT 10" ) );
+    assertEquals( "SELECT * FROM sales ORDER BY id FETCH FIRST 10 ROWS ONLY",
+      TableInputSplit.stripSQL( "SELECT * FROM sales ORDER BY id FETCH FIRST 10 ROWS ONLY" ) );
+    assertEquals( "SELECT TOP 10 * FROM sales ORDER BY id",
+      TableInputSplit.stripSQL( "SELECT TOP 10 * FROM sales ORDER BY id" ) );
+  }
+
+  @Test
+  public void testQueryParametersComeFirst() throws KettleException {
+    RowMetaInterface parametersMeta = new RowMeta();
+    parametersMeta.addValueMeta( new ValueMetaString( "region" ) );
+    List<TableInputSplit> splits = TableInputSplit.createSplits( databaseMeta, "SELECT * FROM sales WHERE region = ?",
+      parametersMeta, new Object[] { "EU" }, "id", new ValueMetaInteger( "min" ), 0L, 9L, 2, false );
+
+    assertEquals( 2, splits.size() );
+    assertArrayEquals( new Object[] { "EU", 5L }, splits.get( 0 ).getParameters() );
+    assertArrayEquals( new Object[] { "EU", 5L }, splits.get( 1 ).getParameters() );
+    assertEquals( 2, splits.get( 1 ).getParametersMeta().size() );
+    assertEquals( 1, parametersMeta.size() );
+  }
+
+  @Test
+  public void testFewDistinctValues() throws KettleException {
+    assertEquals( Arrays.asList( 6L, 7L ),
+      TableInputSplit.getBoundaries( new ValueMetaInteger( "min" ), 5L, 7L, 10 ) );
+    assertEquals( Collections.emptyList(),
+      TableInputSplit.getBoundaries( new ValueMetaInteger( "min" ), 5L, 5L, 10 ) );
+    assertEquals( Collections.emptyList(),
+      TableInputSplit.getBoundaries( new ValueMetaNumber( "min" ), 1.5, 1.5, 4 ) );
+  }
+
+  @Test
+  public void testNumberAndDateRanges() throws KettleException {
+    assertEquals( Arrays.asList( 2.5, 5.0, 7.5 ),
+      TableInputSplit.getBoundaries( new ValueMetaNumber( "min" ), 0.0, 10.0, 4 ) );
+    assertEquals( Arrays.asList( new BigDecimal( "5" ) ),
+      TableInputSplit.getBoundaries( new ValueMetaBigNumber( "min" ), BigDecimal.ZERO, BigDecimal.TEN, 2 ) );
+    assertEquals( Collections.singletonList( new Date( 5000L ) ),
+      TableInputSplit.getBoundaries( new ValueMetaDate( "min" ), new Date( 0L ), new Date( 10000L ), 2 ) );
+    assertEquals( Timestamp.class, TableInputSplit.getBoundaries( new ValueMetaTimestamp( "min" ),
+      new Timestamp( 0L ), new Timestamp( 10000L ), 2 ).get( 0 ).getClass() );
+  }
+
+  @Test( expected = KettleValueException.class )
+  public void testStringFieldCantBeSplit() throws KettleException {
+    TableInputSplit.getBoundaries( new ValueMetaString( "min" ), "a", "z", 4 );
+  }
+
+  @Test
+  public void testReadRange() throws Exception {
+    TableInputSplit split = TableInputSplit.createSplits( databaseMeta, "SELECT * FROM sales", new RowMeta(),
+      new Object[ 0 ], "id", new ValueMetaInteger( "min" ), 1L, 100L, 2, false ).get( 1 );
+
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+    ResultSet rs = mock( ResultSet.class );
+    Database db = mock( Database.class );
+    when( db.openQuery( anyString(), any( RowMetaInterface.class ), any( Object[].class ), anyInt(), anyBoolean() ) )
+      .thenReturn( rs );
+    when( db.getReturnRowMeta() ).thenReturn( rowMeta );
+    when( db.getRow( rs, false ) ).thenReturn( new Object[] { 51L }, new Object[] { 52L }, null );
+
+    BlockingQueue<Object[]> queue = new ArrayBlockingQueue<>( 10 );
+    split.start( db, queue, false );
+
+    assertArrayEquals( new Object[] { 51L }, queue.poll( 10, TimeUnit.SECONDS ) );
+    assertArrayEquals( new Object[] { 52L }, queue.poll( 10, TimeUnit.SECONDS ) );
+    assertSame( TableInputSplit.END, queue.poll( 10, TimeUnit.SECONDS ) );
+    split.stop();
+
+    assertSame( rowMeta, split.getRowMeta() );
+    assertNull( split.getError() );
+    verify( db ).closeQuery( rs );
+    verify( db ).close();
+  }
+}
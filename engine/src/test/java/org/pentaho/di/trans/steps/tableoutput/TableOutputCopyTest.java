@@ -0,0 +1,87 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.tableoutput;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Timestamp;
+
+import org.junit.Test;
+import org.pentaho.di.core.database.DatabaseInterface;
+import org.pentaho.di.core.database.DatabaseMeta;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaBigNumber;
+import org.pentaho.di.core.row.value.ValueMetaBinary;
+import org.pentaho.di.core.row.value.ValueMetaBoolean;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.row.value.ValueMetaNumber;
+import org.pentaho.di.core.row.value.ValueMetaString;
+import org.pentaho.di.core.row.value.ValueMetaTimestamp;
+
+public class TableOutputCopyTest {
+
+  @Test
+  public void testCopyCommand() {
+    DatabaseMeta databaseMeta = mock( DatabaseMeta.class );
+    when( databaseMeta.getQuotedSchemaTableCombination( "public", "sales" ) ).thenReturn( "public.sales" );
+    when( databaseMeta.quoteField( anyString() ) )
+      .thenAnswer( invocation -> "\"" + invocation.getArgument( 0 ) + "\"" );
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+    rowMeta.addValueMeta( new ValueMetaString( "name" ) );
+
+    assertEquals( "COPY public.sales ( \"id\", \"name\" ) FROM STDIN",
+      TableOutputCopy.getCopyCommand( databaseMeta, "public", "sales", rowMeta ) );
+  }
+
+  @Test
+  public void testTextFormat() throws KettleException {
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+    rowMeta.addValueMeta( new ValueMetaString( "name" ) );
+    rowMeta.addValueMeta( new ValueMetaNumber( "price" ) );
+    rowMeta.addValueMeta( new ValueMetaBigNumber( "total" ) );
+    rowMeta.addValueMeta( new ValueMetaBoolean( "paid" ) );
+    rowMeta.addValueMeta( new ValueMetaTimestamp( "sold" ) );
+    rowMeta.addValueMeta( new ValueMetaBinary( "data" ) );
+    rowMeta.addValueMeta( new ValueMetaString( "note" ) );
+    TableOutputCopy copy = new TableOutputCopy( "COPY sales FROM STDIN", rowMeta );
+
+    StringBuilder line = new StringBuilder();
+    copy.appendRow( line, new Object[] { 1L, "a\tb\\c\nd\re", 2.5, new BigDecimal( "10.25" ), true,
+      Timestamp.valueOf( "2024-03-01 10:20:30.123456" ), new byte[] { 1, (byte) 0xAB }, null } );
+
+    assertEquals( "1\ta\\tb\\\\c\\nd\\re\t2.5\t10.25\tt\t2024-03-01 10:20:30.123456\t\\\\x01ab\t\\N\n",
+      line.toString() );
+  }
+
+  @Test
+  public void testNotSupportedWithoutCopy() {
+    DatabaseMeta databaseMeta = mock( DatabaseMeta.class );
+    DatabaseInterface databaseInterface = mock( DatabaseInterface.class );
+    when( databaseMeta.getDatabaseInterface() ).thenReturn( databaseInterface );
+    when( databaseInterface.supportsCopyFromStdin() ).thenReturn( false );
+
+    assertFalse( TableOutputCopy.isSupported( databaseMeta, mock( Connection.class ) ) );
+    assertFalse( TableOutputCopy.isSupported( databaseMeta, null ) );
+  }
+}
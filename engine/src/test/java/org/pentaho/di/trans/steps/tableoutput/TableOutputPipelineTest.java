@@ -0,0 +1,201 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.tableoutput;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.di.core.database.Database;
+import org.pentaho.di.core.exception.KettleDatabaseException;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+
+public class TableOutputPipelineTest {
+
+  private RowMetaInterface rowMeta;
+
+  @Before
+  public void setUp() {
+    rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "id" ) );
+  }
+
+  private Database mockDatabase() throws KettleException {
+    Database db = mock( Database.class );
+    PreparedStatement ps = mock( PreparedStatement.class );
+    when( db.prepareSQL( anyString() ) ).thenReturn( ps );
+    return db;
+  }
+
+  private TableOutputPipeline.Batch write( TableOutputPipeline pipeline, Object[]... rows ) throws KettleException {
+    TableOutputPipeline.Batch batch = pipeline.newBatch();
+    for ( Object[] row : rows ) {
+      batch.addRow( row, row );
+    }
+    pipeline.write( batch );
+    return batch;
+  }
+
+  private List<Object[]> drain( TableOutputPipeline pipeline ) throws KettleException {
+    List<Object[]> rows = new ArrayList<>();
+    TableOutputPipeline.Batch batch = pipeline.nextWrittenBatch( true );
+    while ( batch != null ) {
+      assertNull( batch.getFailure() );
+      rows.addAll( batch.getOutputRows() );
+      batch = pipeline.nextWrittenBatch( true );
+    }
+    return rows;
+  }
+
+  @Test
+  public void testBatchesAreReturnedInOrder() throws Exception {
+    Database db1 = mockDatabase();
+    Database db2 = mockDatabase();
+    TableOutputPipeline pipeline =
+      new TableOutputPipeline( Arrays.asList( db1, db2 ), "INSERT", rowMeta, false, false );
+
+    Object[][] rows = { { 1L }, { 2L }, { 3L }, { 4L }, { 5L } };
+    write( pipeline, rows[ 0 ], rows[ 1 ] );
+    write( pipeline, rows[ 2 ], rows[ 3 ] );
+    write( pipeline, rows[ 4 ] );
+
+    assertArrayEquals( rows, drain( pipeline ).toArray() );
+    assertEquals( 0, pipeline.getPendingBatches() );
+    pipeline.close();
+
+    verify( db1, never() ).rollback();
+    verify( db2, never() ).rollback();
+    verify( db1 ).close();
+    verify( db2 ).close();
+  }
+
+  @Test
+  public void testFailedBatchRollsBackTheNextOnes() throws Exception {
+    Database db = mockDatabase();
+    Object[] badRow = { 2L };
+    doThrow( new KettleDatabaseException( "duplicate key" ) ).when( db )
+      .setValues( any( RowMetaInterface.class ), eq( badRow ), any( PreparedStatement.class ) );
+    TableOutputPipeline pipeline =
+      new TableOutputPipeline( Collections.singletonList( db ), "INSERT", rowMeta, false, false );
+
+    write( pipeline, new Object[] { 1L } );
+    write( pipeline, badRow );
+    write( pipeline, new Object[] { 3L } );
+
+    assertNull( pipeline.nextWrittenBatch( true ).getFailure() );
+    assertNotNull( pipeline.nextWrittenBatch( true ).getFailure() );
+    assertNotNull( pipeline.nextWrittenBatch( true ).getFailure() );
+    pipeline.close();
+
+    verify( db, times( 1 ) ).commit( true );
+    verify( db, times( 2 ) ).rollback();
+  }
+
+  @Test
+  public void testRowErrorsGoToErrorHandling() throws Exception {
+    Database db = mockDatabase();
+    Object[] badRow = { 2L };
+    doThrow( new KettleDatabaseException( "duplicate key" ) ).when( db )
+      .setValues( any( RowMetaInterface.class ), eq( badRow ), any( PreparedStatement.class ) );
+    TableOutputPipeline pipeline =
+      new TableOutputPipeline( Collections.singletonList( db ), "INSERT", rowMeta, true, false );
+
+    Object[] goodRow = { 1L };
+    write( pipeline, goodRow, badRow );
+
+    TableOutputPipeline.Batch batch = pipeline.nextWrittenBatch( true );
+    assertNull( batch.getFailure() );
+    assertEquals( Collections.singletonList( goodRow ), batch.getOutputRows() );
+    assertEquals( Collections.singletonList( badRow ), batch.getErrorRows() );
+    assertEquals( 1, batch.getErrorMessages().size() );
+    pipeline.close();
+
+    verify( db ).commit( true );
+  }
+
+  @Test
+  public void testIgnoredRowsArePassedOn() throws Exception {
+    Database db = mockDatabase();
+    Object[] badRow = { 2L };
+    doThrow( new KettleDatabaseException( "duplicate key" ) ).when( db )
+      .setValues( any( RowMetaInterface.class ), eq( badRow ), any( PreparedStatement.class ) );
+    TableOutputPipeline pipeline =
+      new TableOutputPipeline( Collections.singletonList( db ), "INSERT", rowMeta, false, true );
+
+    Object[] goodRow = { 1L };
+    write( pipeline, goodRow, badRow );
+
+    TableOutputPipeline.Batch batch = pipeline.nextWrittenBatch( true );
+    assertNull( batch.getFailure() );
+    assertEquals( Arrays.asList( goodRow, badRow ), batch.getOutputRows() );
+    assertEquals( Collections.singletonList( badRow ), batch.getWarningRows() );
+    pipeline.close();
+  }
+
+  @Test( timeout = 30000L )
+  public void testBatchWaitingTooLongFreesItsLocks() throws Exception {
+    // The first batch waits for a lock held by the second one until the second one rolls back
+    CountDownLatch released = new CountDownLatch( 1 );
+    Database db1 = mockDatabase();
+    PreparedStatement ps1 = db1.prepareSQL( "INSERT" );
+    when( ps1.executeBatch() ).thenAnswer( invocation -> {
+      released.await();
+      return new int[] { 1 };
+    } );
+    Database db2 = mockDatabase();
+    PreparedStatement ps2 = db2.prepareSQL( "INSERT" );
+    doAnswer( invocation -> {
+      released.countDown();
+      return null;
+    } ).when( db2 ).rollback();
+    TableOutputPipeline pipeline =
+      new TableOutputPipeline( Arrays.asList( db1, db2 ), "INSERT", rowMeta, false, false );
+    pipeline.commitWaitMillis = 100L;
+
+    Object[][] rows = { { 1L }, { 2L } };
+    write( pipeline, rows[ 0 ] );
+    write( pipeline, rows[ 1 ] );
+
+    assertArrayEquals( rows, drain( pipeline ).toArray() );
+    pipeline.close();
+
+    verify( ps2, times( 2 ) ).executeBatch();
+    verify( db2, times( 1 ) ).rollback();
+    verify( db1 ).commit( true );
+    verify( db2 ).commit( true );
+  }
+}
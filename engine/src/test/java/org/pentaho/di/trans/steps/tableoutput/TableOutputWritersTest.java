@@ -0,0 +1,106 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.tableoutput;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.pentaho.di.core.Const;
+import org.pentaho.di.core.KettleEnvironment;
+import org.pentaho.di.core.RowMetaAndData;
+import org.pentaho.di.core.database.DatabaseMeta;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaInteger;
+import org.pentaho.di.core.variables.Variables;
+import org.pentaho.di.junit.rules.RestorePDIEngineEnvironment;
+import org.pentaho.di.trans.TransMeta;
+import org.pentaho.di.trans.TransTestFactory;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Writes the rows of a Table Output step over several connections, see {@link TableOutputPipeline}.
+ */
+public class TableOutputWritersTest {
+  @ClassRule public static RestorePDIEngineEnvironment env = new RestorePDIEngineEnvironment();
+
+  private static final String STEP_NAME = "table output";
+  private static final String DATABASE_XML =
+    "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+      + "<connection>" + "<name>output</name>" + "<server>127.0.0.1</server>" + "<type>H2</type>"
+      + "<access>Native</access>" + "<database>mem:tableoutputwriters</database>" + "<port></port>"
+      + "<username>sa</username>" + "<password></password>" + "</connection>";
+
+  // Keeps the in memory database alive between the runs of the step
+  private static Connection connection;
+
+  @BeforeClass
+  public static void before() throws Exception {
+    KettleEnvironment.init( false );
+    connection = DriverManager.getConnection( "jdbc:h2:mem:tableoutputwriters", "sa", "" );
+  }
+
+  @AfterClass
+  public static void after() throws Exception {
+    connection.close();
+  }
+
+  @Test( timeout = 60000L )
+  public void testTruncateBeforeWriters() throws Exception {
+    try ( Statement statement = connection.createStatement() ) {
+      statement.execute( "CREATE TABLE TARGET ( ID INTEGER )" );
+      statement.execute( "INSERT INTO TARGET VALUES ( -1 )" );
+    }
+
+    TableOutputMeta meta = new TableOutputMeta();
+    meta.setDefault();
+    meta.setDatabaseMeta( new DatabaseMeta( DATABASE_XML ) );
+    meta.setTableName( "TARGET" );
+    meta.setTruncateTable( true );
+    meta.setUseBatchUpdate( true );
+    meta.setCommitSize( 10 );
+
+    Variables variables = new Variables();
+    variables.setVariable( Const.KETTLE_TABLE_OUTPUT_WRITERS, "2" );
+    TransMeta transMeta = TransTestFactory.generateTestTransformation( variables, meta, STEP_NAME );
+
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaInteger( "ID" ) );
+    List<RowMetaAndData> input = new ArrayList<>();
+    for ( long i = 0; i < 95; i++ ) {
+      input.add( new RowMetaAndData( rowMeta, i ) );
+    }
+
+    // The writers only insert once the truncate of the step connection is committed
+    List<RowMetaAndData> output = TransTestFactory.executeTestTransformation( transMeta, STEP_NAME, input );
+    assertEquals( 95, output.size() );
+
+    try ( Statement statement = connection.createStatement();
+          ResultSet resultSet = statement.executeQuery( "SELECT COUNT(*), MIN(ID), MAX(ID) FROM TARGET" ) ) {
+      resultSet.next();
+      assertEquals( 95L, resultSet.getLong( 1 ) );
+      assertEquals( 0L, resultSet.getLong( 2 ) );
+      assertEquals( 94L, resultSet.getLong( 3 ) );
+    }
+  }
+}
@@ -21,7 +21,9 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.pentaho.di.core.Const;
 import org.pentaho.di.core.util.Utils;
@@ -320,6 +322,9 @@ public class CombinationLookup extends BaseDatabaseStep implements StepInterface
     Object[] r = getRow(); // Get row from input rowset & set row busy!
     // if no more input to be expected set done
     if ( r == null ) {
+      if ( data.batchRows != null && !data.batchRows.isEmpty() && !lookupBatch() ) {
+        return false;
+      }
       setOutputDone();
       return false;
     }
@@ -371,8 +376,27 @@ public class CombinationLookup extends BaseDatabaseStep implements StepInterface
 
       setCombiLookup( getInputRowMeta() );
       preloadCache( data.hashRowMeta );
+
+      data.batchSize = isBatchLookupPossible() ? Const.toInt( getVariable( Const.KETTLE_LOOKUP_BATCH_SIZE ), 0 ) : 0;
+      if ( data.batchSize > 1 ) {
+        data.batchRows = new ArrayList<Object[]>( data.batchSize );
+      }
     }
 
+    if ( data.batchRows != null ) {
+      data.batchRows.add( r );
+      return data.batchRows.size() < data.batchSize || lookupBatch();
+    }
+
+    return lookupRow( r );
+  }
+
+  /**
+   * Look up a row, insert its combination if it's new, and pass it on with its technical key.
+   *
+   * @return false if the step has to stop
+   */
+  private boolean lookupRow( Object[] r ) throws KettleException {
     try {
       Object[] outputRow = lookupValues( getInputRowMeta(), r ); // add new values to the row in rowset[0].
       putRow( data.outputRowMeta, outputRow ); // copy row to output rowset(s);
@@ -383,20 +407,122 @@ public class CombinationLookup extends BaseDatabaseStep implements StepInterface
         }
       }
     } catch ( KettleException e ) {
-      if ( getStepMeta().isDoingErrorHandling() ) {
-        putError( getInputRowMeta(), r, 1L, Const.getStackTracker( e ), null, "CBL001" );
-      } else {
-        logError( BaseMessages.getString( PKG, "CombinationLookup.Log.ErrorInStepRunning" ) + e.getMessage() );
-        setErrors( 1 );
-        stopAll();
-        setOutputDone(); // signal end to receiver(s)
+      return handleLookupError( r, e );
+    }
+
+    return true;
+  }
+
+  /**
+   * Send a row that couldn't be looked up to the error handling, or stop the step.
+   *
+   * @return false if the step has to stop
+   */
+  private boolean handleLookupError( Object[] r, KettleException e ) throws KettleException {
+    if ( getStepMeta().isDoingErrorHandling() ) {
+      putError( getInputRowMeta(), r, 1L, Const.getStackTracker( e ), null, "CBL001" );
+      return true;
+    }
+    logError( BaseMessages.getString( PKG, "CombinationLookup.Log.ErrorInStepRunning" ) + e.getMessage() );
+    setErrors( 1 );
+    stopAll();
+    setOutputDone(); // signal end to receiver(s)
+    return false;
+  }
+
+  /**
+   * The technical keys of the combinations of a batch can be fetched in the cache at once, except for the keys that
+   * can't be compared as read from the database.
+   */
+  private boolean isBatchLookupPossible() {
+    if ( meta.getCacheSize() < 0 ) {
+      return false;
+    }
+    for ( int i = 0; i < data.hashRowMeta.size(); i++ ) {
+      if ( data.hashRowMeta.getValueMeta( i ).isStorageBinaryString() ) {
         return false;
       }
     }
-
     return true;
   }
 
+  /**
+   * Fetch the technical keys of the combinations of the buffered rows that aren't cached with as few queries as
+   * possible, then process the rows in their original order. The combinations that weren't found are looked up and
+   * inserted one by one, as usual.
+   *
+   * @return false if the step has to stop
+   */
+  private boolean lookupBatch() throws KettleException {
+    try {
+      Map<RowMetaAndData, Object[]> keys = new LinkedHashMap<RowMetaAndData, Object[]>();
+      for ( Object[] row : data.batchRows ) {
+        Object[] hashRow = new Object[ data.hashRowMeta.size() ];
+        for ( int i = 0; i < meta.getKeyField().length; i++ ) {
+          hashRow[ i ] = row[ data.keynrs[ i ] ];
+        }
+        if ( lookupInCache( data.hashRowMeta, hashRow ) == null ) {
+          keys.put( new RowMetaAndData( data.hashRowMeta, hashRow ), hashRow );
+        }
+      }
+
+      if ( !keys.isEmpty() ) {
+        try {
+          fetchBatchKeys( new ArrayList<Object[]>( keys.values() ) );
+        } catch ( KettleException e ) {
+          for ( Object[] row : data.batchRows ) {
+            if ( !handleLookupError( row, e ) ) {
+              return false;
+            }
+          }
+          return true;
+        }
+      }
+
+      for ( Object[] row : data.batchRows ) {
+        if ( !lookupRow( row ) ) {
+          return false;
+        }
+      }
+      return true;
+    } finally {
+      data.batchRows.clear();
+    }
+  }
+
+  private void fetchBatchKeys( List<Object[]> keys ) throws KettleException {
+    DatabaseMeta databaseMeta = meta.getDatabaseMeta();
+
+    /*
+     * SELECT MIN(<retval>) AS <retval>, key1, key2 FROM <table> WHERE ( ( key1 = ? AND key2 = ? ) OR ( ... ) )
+     * GROUP BY key1, key2
+     */
+    String lookupKeys = "";
+    for ( int i = 0; i < meta.getKeyLookup().length; i++ ) {
+      lookupKeys += ( i > 0 ? ", " : "" ) + databaseMeta.quoteField( meta.getKeyLookup()[ i ] );
+    }
+    String sql = "SELECT MIN(" + databaseMeta.quoteField( meta.getTechnicalKeyField() ) + ") AS "
+      + databaseMeta.quoteField( meta.getTechnicalKeyField() ) + ", " + lookupKeys + Const.CR;
+    sql += "FROM " + data.schemaTable + Const.CR;
+    sql += "WHERE ";
+
+    List<Object[]> rows = data.db.getRowsMatchingKeys( sql, null, null, meta.getKeyLookup(), data.hashRowMeta, keys,
+      "GROUP BY " + lookupKeys );
+    RowMetaInterface rowMeta = data.db.getReturnRowMeta();
+    for ( Object[] row : rows ) {
+      // The keys of the table may come back with other data types than the ones in the stream
+      Object[] hashRow = new Object[ data.hashRowMeta.size() ];
+      for ( int i = 0; i < hashRow.length; i++ ) {
+        ValueMetaInterface keyMeta = data.hashRowMeta.getValueMeta( i );
+        ValueMetaInterface returnedMeta = rowMeta.getValueMeta( i + 1 );
+        hashRow[ i ] = keyMeta.getType() == returnedMeta.getType()
+          ? row[ i + 1 ] : keyMeta.convertData( returnedMeta, row[ i + 1 ] );
+      }
+      addToCache( data.hashRowMeta, hashRow, rowMeta.getInteger( row, 0 ) );
+      incrementLinesInput();
+    }
+  }
+
   /**
    * CombinationLookup table: dimension table keys[]: which dim-fields do we use to look up key? retval: name of the key
    * to return
@@ -15,6 +15,7 @@
 package org.pentaho.di.trans.steps.combinationlookup;
 
 import java.sql.PreparedStatement;
+import java.util.List;
 import java.util.Map;
 
 import org.pentaho.di.core.RowMetaAndData;
@@ -47,6 +48,9 @@ public class CombinationLookupData extends BaseDatabaseStepData implements StepD
   public PreparedStatement prepStatementInsert;
   public long smallestCacheKey;
 
+  public int batchSize;
+  public List<Object[]> batchRows; // the rows waiting to be looked up in a batch
+
   /**
    * Default Constructor
    */
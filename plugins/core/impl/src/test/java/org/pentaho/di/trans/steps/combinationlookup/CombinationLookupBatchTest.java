@@ -0,0 +1,137 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.combinationlookup;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.pentaho.di.core.Const;
+import org.pentaho.di.core.KettleEnvironment;
+import org.pentaho.di.core.RowMetaAndData;
+import org.pentaho.di.core.database.DatabaseMeta;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.row.RowMeta;
+import org.pentaho.di.core.row.RowMetaInterface;
+import org.pentaho.di.core.row.value.ValueMetaString;
+import org.pentaho.di.core.variables.Variables;
+import org.pentaho.di.junit.rules.RestorePDIEngineEnvironment;
+import org.pentaho.di.trans.TransMeta;
+import org.pentaho.di.trans.TransTestFactory;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Looks up and inserts the same combinations row by row and in batches.
+ */
+public class CombinationLookupBatchTest {
+  @ClassRule public static RestorePDIEngineEnvironment env = new RestorePDIEngineEnvironment();
+
+  private static final String STEP_NAME = "combination lookup";
+  private static final String DATABASE_XML =
+    "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+      + "<connection>" + "<name>combination</name>" + "<server>127.0.0.1</server>" + "<type>H2</type>"
+      + "<access>Native</access>" + "<database>mem:combinationbatch</database>" + "<port></port>"
+      + "<username>sa</username>" + "<password></password>" + "</connection>";
+
+  // Keeps the in memory database alive between the runs of the step
+  private static Connection connection;
+
+  @BeforeClass
+  public static void before() throws Exception {
+    KettleEnvironment.init( false );
+    connection = DriverManager.getConnection( "jdbc:h2:mem:combinationbatch", "sa", "" );
+  }
+
+  @AfterClass
+  public static void after() throws Exception {
+    connection.close();
+  }
+
+  @Test
+  public void testBatchedLookupsMatchRowByRow() throws Exception {
+    List<RowMetaAndData> expected = runStep( "1" );
+    List<String> expectedTable = readTable();
+    List<RowMetaAndData> actual = runStep( "8" );
+    List<String> actualTable = readTable();
+
+    assertEquals( 60, expected.size() );
+    assertEquals( 1L, expected.get( 0 ).getData()[ 2 ] );
+    assertEquals( 2L, expected.get( 1 ).getData()[ 2 ] );
+    assertEquals( 3L, expected.get( 2 ).getData()[ 2 ] );
+
+    assertEquals( expected.size(), actual.size() );
+    for ( int i = 0; i < expected.size(); i++ ) {
+      assertEquals( expected.get( i ).getRowMeta().toStringMeta(), actual.get( i ).getRowMeta().toStringMeta() );
+      assertArrayEquals( "row " + i, expected.get( i ).getData(), actual.get( i ).getData() );
+    }
+    assertEquals( expectedTable, actualTable );
+  }
+
+  private static List<RowMetaAndData> runStep( String batchSize ) throws Exception {
+    // The combinations of the first 2 rows exist, the others are inserted by the step
+    try ( Statement statement = connection.createStatement() ) {
+      statement.execute( "DROP TABLE IF EXISTS COMBI" );
+      statement.execute( "CREATE TABLE COMBI ( ID INTEGER, CODE VARCHAR(10), REGION VARCHAR(10) )" );
+      statement.execute( "INSERT INTO COMBI VALUES ( 1, 'A', 'north' )" );
+      statement.execute( "INSERT INTO COMBI VALUES ( 2, 'B', 'south' )" );
+    }
+
+    CombinationLookupMeta meta = new CombinationLookupMeta();
+    meta.setDefault();
+    meta.setDatabaseMeta( new DatabaseMeta( DATABASE_XML ) );
+    meta.setTablename( "COMBI" );
+    meta.setKeyField( new String[] { "code", "region" } );
+    meta.setKeyLookup( new String[] { "CODE", "REGION" } );
+    meta.setTechnicalKeyField( "ID" );
+    meta.setTechKeyCreation( CombinationLookupMeta.CREATION_METHOD_TABLEMAX );
+
+    Variables variables = new Variables();
+    variables.setVariable( Const.KETTLE_LOOKUP_BATCH_SIZE, batchSize );
+    TransMeta transMeta = TransTestFactory.generateTestTransformation( variables, meta, STEP_NAME );
+
+    // Existing and new combinations, repeated within and across batches
+    RowMetaInterface rowMeta = new RowMeta();
+    rowMeta.addValueMeta( new ValueMetaString( "code" ) );
+    rowMeta.addValueMeta( new ValueMetaString( "region" ) );
+    String[][] combinations = { { "A", "north" }, { "B", "south" }, { "A", "south" }, { "C", "north" },
+      { "B", "south" }, { "D", "east" } };
+    List<RowMetaAndData> input = new ArrayList<>();
+    for ( int i = 0; i < 60; i++ ) {
+      String[] combination = combinations[ ( i + i / 12 ) % combinations.length ];
+      input.add( new RowMetaAndData( rowMeta, combination[ 0 ], combination[ 1 ] ) );
+    }
+
+    return TransTestFactory.executeTestTransformation( transMeta, STEP_NAME, input );
+  }
+
+  private static List<String> readTable() throws Exception {
+    List<String> rows = new ArrayList<>();
+    try ( Statement statement = connection.createStatement();
+          ResultSet resultSet = statement.executeQuery( "SELECT ID, CODE, REGION FROM COMBI ORDER BY ID" ) ) {
+      while ( resultSet.next() ) {
+        rows.add( resultSet.getLong( 1 ) + "|" + resultSet.getString( 2 ) + "|" + resultSet.getString( 3 ) );
+      }
+    }
+    return rows;
+  }
+}
@@ -509,6 +509,15 @@ public class ExcelInput extends BaseStep implements StepInterface {
     try {
       // First, see if a file has been opened?
       if ( data.workbook == null ) {
+        if ( data.parallel && !meta.readAllSheets() && !isReadingAnySheet( data.sheetNames.length ) ) {
+          // All the sheets of this file are read by other step copies, no need to open it.
+          if ( log.isDetailed() ) {
+            logDetailed( BaseMessages.getString( PKG, "ExcelInput.Log.SkippingFile", "" + data.filenr ) );
+          }
+          data.sheetIndex += data.sheetNames.length;
+          data.filenr++;
+          return null;
+        }
         // Open a new openFile..
         data.file = data.files.getFile( data.filenr );
         data.filename = KettleVFS.getFilename( data.file );
@@ -579,7 +588,7 @@ public class ExcelInput extends BaseStep implements StepInterface {
       }
 
       String sheetName = data.sheetNames[data.sheetnr];
-      KSheet sheet = data.workbook.getSheet( sheetName );
+      KSheet sheet = isReadingAnySheet( 1 ) ? data.workbook.getSheet( sheetName ) : null;
       if ( sheet != null ) {
         // at what row do we continue reading?
         if ( data.rownr < 0 ) {
@@ -648,6 +657,7 @@ public class ExcelInput extends BaseStep implements StepInterface {
       if ( nextsheet ) {
         // Go to the next sheet
         data.sheetnr++;
+        data.sheetIndex++;
 
         // Reset the start-row:
         data.rownr = -1;
@@ -673,6 +683,17 @@ public class ExcelInput extends BaseStep implements StepInterface {
     return retval;
   }
 
+  /**
+   * @return true if this step copy reads any of the next sheets, starting with the current one
+   */
+  private boolean isReadingAnySheet( int nrSheets ) {
+    if ( !data.parallel ) {
+      return true;
+    }
+    int first = Math.floorMod( data.stepNr - data.sheetIndex, data.nrSteps );
+    return first < nrSheets;
+  }
+
   private boolean isLineEmpty( KCell[] line ) {
     if ( line.length == 0 ) {
       return true;
@@ -745,6 +766,9 @@ public class ExcelInput extends BaseStep implements StepInterface {
     if ( super.init( smi, sdi ) ) {
       initErrorHandling();
       initReplayFactory();
+      data.stepNr = getUniqueStepNrAcrossSlaves();
+      data.nrSteps = getUniqueStepCountAcrossSlaves();
+      data.parallel = meta.isRunningInParallel() && data.nrSteps > 1;
       data.files = meta.getFileList( getTransMeta().getBowl(), this );
       if ( data.files.nrOfFiles() == 0 && data.files.nrOfMissingFiles() > 0 && !meta.isAcceptingFilenames() ) {
 
@@ -113,6 +113,19 @@ public class ExcelInputData extends BaseStepData implements StepDataInterface {
   public int defaultStartColumn;
   public int defaultStartRow;
 
+  /**
+   * The step copies share the sheets of the files between them.
+   */
+  public boolean parallel;
+  public int stepNr;
+  public int nrSteps;
+
+  /**
+   * The number of the sheet being processed, counting the sheets of the previous files: the step copy with the number
+   * of the sheet modulo the number of copies reads it.
+   */
+  public int sheetIndex;
+
   public String shortFilename;
   public String path;
   public String extension;
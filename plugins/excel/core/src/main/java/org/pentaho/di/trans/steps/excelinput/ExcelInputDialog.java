@@ -176,6 +176,10 @@ public class ExcelInputDialog extends BaseStepDialog implements StepDialogInterf
   private Button wStoponempty;
   private FormData fdlStoponempty, fdStoponempty;
 
+  private Label wlRunningInParallel;
+  private Button wRunningInParallel;
+  private FormData fdlRunningInParallel, fdRunningInParallel;
+
   private Label wlInclFilenameField;
   private Text wInclFilenameField;
   private FormData fdlInclFilenameField, fdInclFilenameField;
@@ -836,12 +840,30 @@ public class ExcelInputDialog extends BaseStepDialog implements StepDialogInterf
     wStoponempty.setLayoutData( fdStoponempty );
     wStoponempty.addSelectionListener( new ComponentSelectionListener( input ) );
 
+    wlRunningInParallel = new Label( wContentComp, SWT.RIGHT );
+    wlRunningInParallel.setText( BaseMessages.getString( PKG, "ExcelInputDialog.RunningInParallel.Label" ) );
+    props.setLook( wlRunningInParallel );
+    fdlRunningInParallel = new FormData();
+    fdlRunningInParallel.left = new FormAttachment( 0, 0 );
+    fdlRunningInParallel.top = new FormAttachment( wStoponempty, margin );
+    fdlRunningInParallel.right = new FormAttachment( middle, -margin );
+    wlRunningInParallel.setLayoutData( fdlRunningInParallel );
+    wRunningInParallel = new Button( wContentComp, SWT.CHECK );
+    props.setLook( wRunningInParallel );
+    wRunningInParallel.setToolTipText( BaseMessages.getString( PKG, "ExcelInputDialog.RunningInParallel.Tooltip" ) );
+    fdRunningInParallel = new FormData();
+    fdRunningInParallel.left = new FormAttachment( middle, 0 );
+    fdRunningInParallel.top = new FormAttachment( wStoponempty, margin );
+    fdRunningInParallel.right = new FormAttachment( 100, 0 );
+    wRunningInParallel.setLayoutData( fdRunningInParallel );
+    wRunningInParallel.addSelectionListener( new ComponentSelectionListener( input ) );
+
     wlLimit = new Label( wContentComp, SWT.RIGHT );
     wlLimit.setText( BaseMessages.getString( PKG, "ExcelInputDialog.Limit.Label" ) );
     props.setLook( wlLimit );
     fdlLimit = new FormData();
     fdlLimit.left = new FormAttachment( 0, 0 );
-    fdlLimit.top = new FormAttachment( wStoponempty, margin );
+    fdlLimit.top = new FormAttachment( wRunningInParallel, margin );
     fdlLimit.right = new FormAttachment( middle, -margin );
     wlLimit.setLayoutData( fdlLimit );
     wLimit = new Text( wContentComp, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
@@ -849,7 +871,7 @@ public class ExcelInputDialog extends BaseStepDialog implements StepDialogInterf
     wLimit.addModifyListener( lsMod );
     fdLimit = new FormData();
     fdLimit.left = new FormAttachment( middle, 0 );
-    fdLimit.top = new FormAttachment( wStoponempty, margin );
+    fdLimit.top = new FormAttachment( wRunningInParallel, margin );
     fdLimit.right = new FormAttachment( 100, 0 );
     wLimit.setLayoutData( fdLimit );
 
@@ -1276,6 +1298,7 @@ public class ExcelInputDialog extends BaseStepDialog implements StepDialogInterf
     wHeader.setSelection( meta.startsWithHeader() );
     wNoempty.setSelection( meta.ignoreEmptyRows() );
     wStoponempty.setSelection( meta.stopOnEmpty() );
+    wRunningInParallel.setSelection( meta.isRunningInParallel() );
     if ( meta.getFileField() != null ) {
       wInclFilenameField.setText( meta.getFileField() );
     }
@@ -1465,6 +1488,7 @@ public class ExcelInputDialog extends BaseStepDialog implements StepDialogInterf
     meta.setStartsWithHeader( wHeader.getSelection() );
     meta.setIgnoreEmptyRows( wNoempty.getSelection() );
     meta.setStopOnEmpty( wStoponempty.getSelection() );
+    meta.setRunningInParallel( wRunningInParallel.getSelection() );
 
     meta.setAcceptingFilenames( wAccFilenames.getSelection() );
     meta.setAcceptingField( wAccField.getText() );
@@ -166,6 +166,11 @@ public class ExcelInputMeta extends BaseStepMeta implements StepMetaInterface {
    */
   private boolean ignoreEmptyRows;
 
+  /**
+   * The step copies share the sheets of the files between them.
+   */
+  private boolean runningInParallel;
+
   /**
    * The fieldname containing the row number. An empty (null) value means that no row number is included in the output.
    * This is the rownumber of all written rows (not the row in the sheet).
@@ -666,6 +671,20 @@ public class ExcelInputMeta extends BaseStepMeta implements StepMetaInterface {
     this.stopOnEmpty = stopOnEmpty;
   }
 
+  /**
+   * @return true if the step copies share the sheets of the files between them
+   */
+  public boolean isRunningInParallel() {
+    return runningInParallel;
+  }
+
+  /**
+   * @param runningInParallel true if the step copies share the sheets of the files between them
+   */
+  public void setRunningInParallel( boolean runningInParallel ) {
+    this.runningInParallel = runningInParallel;
+  }
+
   @Override
   public void loadXML( Node stepnode, List<DatabaseMeta> databases, IMetaStore metaStore ) throws KettleXMLException {
     readData( stepnode );
@@ -706,6 +725,7 @@ public class ExcelInputMeta extends BaseStepMeta implements StepMetaInterface {
       ignoreEmptyRows = YES.equalsIgnoreCase( nempty ) || nempty == null;
       String soempty = XMLHandler.getTagValue( stepnode, "stoponempty" );
       stopOnEmpty = YES.equalsIgnoreCase( soempty ) || nempty == null;
+      runningInParallel = YES.equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "parallel" ) );
       sheetRowNumberField = XMLHandler.getTagValue( stepnode, "sheetrownumfield" );
       rowNumberField = XMLHandler.getTagValue( stepnode, "rownum_field" );
       rowNumberField = XMLHandler.getTagValue( stepnode, "rownumfield" );
@@ -881,6 +901,7 @@ public class ExcelInputMeta extends BaseStepMeta implements StepMetaInterface {
   public void setDefault() {
     startsWithHeader = true;
     ignoreEmptyRows = true;
+    runningInParallel = false;
     rowNumberField = StringUtil.EMPTY_STRING;
     sheetRowNumberField = StringUtil.EMPTY_STRING;
     isaddresult = true;
@@ -1024,6 +1045,7 @@ public class ExcelInputMeta extends BaseStepMeta implements StepMetaInterface {
     retval.append( "    " ).append( XMLHandler.addTagValue( "header", startsWithHeader ) );
     retval.append( "    " ).append( XMLHandler.addTagValue( "noempty", ignoreEmptyRows ) );
     retval.append( "    " ).append( XMLHandler.addTagValue( "stoponempty", stopOnEmpty ) );
+    retval.append( "    " ).append( XMLHandler.addTagValue( "parallel", runningInParallel ) );
     retval.append( "    " ).append( XMLHandler.addTagValue( "filefield", fileField ) );
     retval.append( "    " ).append( XMLHandler.addTagValue( "sheetfield", sheetField ) );
     retval.append( "    " ).append( XMLHandler.addTagValue( "sheetrownumfield", sheetRowNumberField ) );
@@ -1128,6 +1150,7 @@ public class ExcelInputMeta extends BaseStepMeta implements StepMetaInterface {
       startsWithHeader = rep.getStepAttributeBoolean( id_step, "header" );
       ignoreEmptyRows = rep.getStepAttributeBoolean( id_step, "noempty" );
       stopOnEmpty = rep.getStepAttributeBoolean( id_step, "stoponempty" );
+      runningInParallel = rep.getStepAttributeBoolean( id_step, "parallel" );
       fileField = rep.getStepAttributeString( id_step, "filefield" );
       sheetField = rep.getStepAttributeString( id_step, "sheetfield" );
       sheetRowNumberField = rep.getStepAttributeString( id_step, "sheetrownumfield" );
@@ -1229,6 +1252,7 @@ public class ExcelInputMeta extends BaseStepMeta implements StepMetaInterface {
       rep.saveStepAttribute( id_transformation, id_step, "header", startsWithHeader );
       rep.saveStepAttribute( id_transformation, id_step, "noempty", ignoreEmptyRows );
       rep.saveStepAttribute( id_transformation, id_step, "stoponempty", stopOnEmpty );
+      rep.saveStepAttribute( id_transformation, id_step, "parallel", runningInParallel );
       rep.saveStepAttribute( id_transformation, id_step, "filefield", fileField );
       rep.saveStepAttribute( id_transformation, id_step, "sheetfield", sheetField );
       rep.saveStepAttribute( id_transformation, id_step, "sheetrownumfield", sheetRowNumberField );
@@ -0,0 +1,316 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.excelinput.staxpoi;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.pentaho.di.core.xml.XMLParserFactoryProducer;
+
+/**
+ * Compact shared strings table of a XLSX file, read once for all its sheets.<br>
+ * The strings are kept encoded in UTF-8 in a single array. When they take more memory than the given limit, they are
+ * moved to temporary files that are mapped in memory, so that workbooks with tens of millions of unique strings don't
+ * fill the heap.<br>
+ * Not thread safe.
+ *
+ * @since 11.1
+ */
+public class StaxPoiSharedStrings implements Closeable {
+
+  private static final String TAG_SI = "si";
+  private static final String TAG_R = "r";
+  private static final String TAG_RPH = "rPh";
+  private static final String TAG_T = "t";
+
+  /** The size of the mapped parts of the temporary files, a multiple of the size of an offset */
+  private static final int SEGMENT_SIZE = 1 << 30;
+
+  private final long memoryLimit;
+  private int count;
+
+  // the strings in memory: the UTF-8 bytes of all the strings, and the offset of the end of each string
+  private byte[] data = new byte[ 8192 ];
+  private int dataSize;
+  private int[] ends = new int[ 1024 ];
+
+  // the strings in temporary files, once they no longer fit in memory
+  private Path dataFile;
+  private Path indexFile;
+  private OutputStream dataOut;
+  private DataOutputStream indexOut;
+  private long fileSize;
+  private ByteBuffer[] dataSegments;
+  private ByteBuffer[] indexSegments;
+  private byte[] buffer;
+
+  /**
+   * @param memoryLimit the number of bytes the strings can take in memory before they are moved to temporary files
+   */
+  public StaxPoiSharedStrings( long memoryLimit ) {
+    this.memoryLimit = Math.min( memoryLimit, Integer.MAX_VALUE - 8 );
+  }
+
+  /**
+   * Read the shared strings part of a workbook.
+   *
+   * @param sharedStrings the content of xl/sharedStrings.xml, left open
+   */
+  public void read( InputStream sharedStrings ) throws IOException, XMLStreamException {
+    XMLStreamReader reader =
+      XMLParserFactoryProducer.createSecureXMLInputFactory().createXMLStreamReader( sharedStrings );
+    try {
+      // the text of a string is its runs when it has any, otherwise its own text, never its phonetic runs
+      StringBuilder text = new StringBuilder();
+      StringBuilder runs = new StringBuilder();
+      boolean hasRuns = false;
+      boolean inRun = false;
+      int phoneticDepth = 0;
+      StringBuilder target = null;
+      while ( reader.hasNext() ) {
+        switch ( reader.next() ) {
+          case XMLStreamConstants.START_ELEMENT:
+            String name = reader.getLocalName();
+            if ( TAG_SI.equals( name ) ) {
+              text.setLength( 0 );
+              runs.setLength( 0 );
+              hasRuns = false;
+            } else if ( TAG_R.equals( name ) ) {
+              hasRuns = true;
+              inRun = true;
+            } else if ( TAG_RPH.equals( name ) ) {
+              phoneticDepth++;
+            } else if ( TAG_T.equals( name ) && phoneticDepth == 0 ) {
+              target = inRun ? runs : text;
+            }
+            break;
+          case XMLStreamConstants.END_ELEMENT:
+            name = reader.getLocalName();
+            if ( TAG_SI.equals( name ) ) {
+              add( decode( hasRuns ? runs : text ) );
+            } else if ( TAG_R.equals( name ) ) {
+              inRun = false;
+            } else if ( TAG_RPH.equals( name ) ) {
+              phoneticDepth--;
+            } else if ( TAG_T.equals( name ) ) {
+              target = null;
+            }
+            break;
+          case XMLStreamConstants.CHARACTERS:
+          case XMLStreamConstants.CDATA:
+          case XMLStreamConstants.SPACE:
+            if ( target != null ) {
+              target.append( reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength() );
+            }
+            break;
+          default:
+            break;
+        }
+      }
+    } finally {
+      reader.close();
+    }
+    finish();
+  }
+
+  /**
+   * Decode the _xHHHH_ escapes of characters that XML can't hold, as POI does.
+   */
+  static String decode( CharSequence text ) {
+    int escape = indexOfEscape( text, 0 );
+    if ( escape < 0 ) {
+      return text.toString();
+    }
+    StringBuilder decoded = new StringBuilder( text.length() );
+    int start = 0;
+    while ( escape >= 0 ) {
+      decoded.append( text, start, escape );
+      decoded.append( (char) Integer.parseInt( text.subSequence( escape + 2, escape + 6 ).toString(), 16 ) );
+      start = escape + 7;
+      escape = indexOfEscape( text, start );
+    }
+    return decoded.append( text, start, text.length() ).toString();
+  }
+
+  private static int indexOfEscape( CharSequence text, int start ) {
+    for ( int i = start; i + 7 <= text.length(); i++ ) {
+      if ( text.charAt( i ) == '_' && text.charAt( i + 1 ) == 'x' && text.charAt( i + 6 ) == '_'
+        && isHexDigit( text.charAt( i + 2 ) ) && isHexDigit( text.charAt( i + 3 ) )
+        && isHexDigit( text.charAt( i + 4 ) ) && isHexDigit( text.charAt( i + 5 ) ) ) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static boolean isHexDigit( char c ) {
+    return ( c >= '0' && c <= '9' ) || ( c >= 'a' && c <= 'f' ) || ( c >= 'A' && c <= 'F' );
+  }
+
+  void add( String value ) throws IOException {
+    byte[] bytes = value.getBytes( StandardCharsets.UTF_8 );
+    if ( dataOut == null && (long) dataSize + bytes.length + 4L * ( count + 1 ) > memoryLimit ) {
+      moveToFiles();
+    }
+    if ( dataOut != null ) {
+      dataOut.write( bytes );
+      fileSize += bytes.length;
+      indexOut.writeLong( fileSize );
+    } else {
+      if ( dataSize + bytes.length > data.length ) {
+        data = Arrays.copyOf( data, (int) Math.min( Math.max( 2L * data.length, (long) dataSize + bytes.length ),
+          Integer.MAX_VALUE - 8 ) );
+      }
+      System.arraycopy( bytes, 0, data, dataSize, bytes.length );
+      dataSize += bytes.length;
+      if ( count == ends.length ) {
+        ends = Arrays.copyOf( ends, 2 * count );
+      }
+      ends[ count ] = dataSize;
+    }
+    count++;
+  }
+
+  private void moveToFiles() throws IOException {
+    dataFile = Files.createTempFile( "pdi-shared-strings-", ".dat" );
+    indexFile = Files.createTempFile( "pdi-shared-strings-", ".idx" );
+    dataOut = new BufferedOutputStream( Files.newOutputStream( dataFile ), 65536 );
+    indexOut = new DataOutputStream( new BufferedOutputStream( Files.newOutputStream( indexFile ), 65536 ) );
+    dataOut.write( data, 0, dataSize );
+    fileSize = dataSize;
+    for ( int i = 0; i < count; i++ ) {
+      indexOut.writeLong( ends[ i ] );
+    }
+    data = null;
+    ends = null;
+  }
+
+  void finish() throws IOException {
+    if ( dataOut == null ) {
+      return;
+    }
+    dataOut.close();
+    indexOut.close();
+    dataOut = null;
+    indexOut = null;
+    dataSegments = map( dataFile );
+    indexSegments = map( indexFile );
+    buffer = new byte[ 8192 ];
+  }
+
+  private static ByteBuffer[] map( Path file ) throws IOException {
+    try ( FileChannel channel = FileChannel.open( file, StandardOpenOption.READ ) ) {
+      long size = channel.size();
+      ByteBuffer[] segments = new ByteBuffer[ (int) ( ( size + SEGMENT_SIZE - 1 ) / SEGMENT_SIZE ) ];
+      for ( int i = 0; i < segments.length; i++ ) {
+        long position = (long) i * SEGMENT_SIZE;
+        segments[ i ] =
+          channel.map( FileChannel.MapMode.READ_ONLY, position, Math.min( SEGMENT_SIZE, size - position ) );
+      }
+      return segments;
+    }
+  }
+
+  /**
+   * @return the number of strings in the table
+   */
+  public int getCount() {
+    return count;
+  }
+
+  /**
+   * @return true if the strings were moved to temporary files
+   */
+  boolean isMapped() {
+    return dataSegments != null;
+  }
+
+  /**
+   * @param index the index of a string, from the v element of a cell of type s
+   * @return the string
+   * @throws IndexOutOfBoundsException if there's no such string
+   */
+  public String getString( int index ) {
+    if ( index < 0 || index >= count ) {
+      throw new IndexOutOfBoundsException( "Shared string " + index + " of " + count );
+    }
+    if ( dataSegments == null ) {
+      int start = index == 0 ? 0 : ends[ index - 1 ];
+      return new String( data, start, ends[ index ] - start, StandardCharsets.UTF_8 );
+    }
+    long start = index == 0 ? 0 : getEnd( index - 1 );
+    int length = (int) ( getEnd( index ) - start );
+    if ( buffer.length < length ) {
+      buffer = new byte[ Math.max( length, 2 * buffer.length ) ];
+    }
+    for ( int copied = 0; copied < length; ) {
+      long position = start + copied;
+      ByteBuffer segment = dataSegments[ (int) ( position / SEGMENT_SIZE ) ];
+      int offset = (int) ( position % SEGMENT_SIZE );
+      int part = Math.min( length - copied, segment.limit() - offset );
+      segment.get( offset, buffer, copied, part );
+      copied += part;
+    }
+    return new String( buffer, 0, length, StandardCharsets.UTF_8 );
+  }
+
+  private long getEnd( int index ) {
+    long position = 8L * index;
+    return indexSegments[ (int) ( position / SEGMENT_SIZE ) ].getLong( (int) ( position % SEGMENT_SIZE ) );
+  }
+
+  /**
+   * Delete the temporary files, if any.
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      if ( dataOut != null ) {
+        dataOut.close();
+        indexOut.close();
+      }
+    } finally {
+      dataSegments = null;
+      indexSegments = null;
+      delete( dataFile );
+      delete( indexFile );
+    }
+  }
+
+  private static void delete( Path file ) {
+    if ( file != null ) {
+      try {
+        Files.deleteIfExists( file );
+      } catch ( IOException e ) {
+        // still mapped on some systems
+        file.toFile().deleteOnExit();
+      }
+    }
+  }
+}
@@ -80,15 +80,29 @@ public class StaxPoiSheet implements KSheet {
 
   // full shared strings table
   private SharedStrings sst;
+  // or the compact one of the workbook
+  private StaxPoiSharedStrings sharedStrings;
   // custom styles
   private StylesTable styles;
 
   public StaxPoiSheet( XSSFReader reader, String sheetName, String sheetID )
       throws InvalidFormatException, IOException, XMLStreamException {
+    this( reader, sheetName, sheetID, null );
+  }
+
+  /**
+   * @param sharedStrings the shared strings of the workbook, read once for all its sheets, or null to have the sheet
+   *                      read the shared strings table of POI
+   */
+  public StaxPoiSheet( XSSFReader reader, String sheetName, String sheetID, StaxPoiSharedStrings sharedStrings )
+      throws InvalidFormatException, IOException, XMLStreamException {
     this.sheetName = sheetName;
     xssfReader = reader;
     sheetId = sheetID;
-    sst = reader.getSharedStringsTable();
+    this.sharedStrings = sharedStrings;
+    if ( sharedStrings == null ) {
+      sst = reader.getSharedStringsTable();
+    }
     styles = reader.getStylesTable();
     sheetStream = reader.getSheet( sheetID );
     XMLInputFactory factory = XMLParserFactoryProducer.createSecureXMLInputFactory();
@@ -129,8 +143,8 @@ public class StaxPoiSheet implements KSheet {
                     event = sheetReader.next();
                     if ( event == XMLStreamConstants.START_ELEMENT && sheetReader.getLocalName().equals( TAG_V ) ) {
                       int idx = Integer.parseInt( sheetReader.getElementText() );
-                      if (sst != null && sst.getCount() > 0) {
-                        String content = new XSSFRichTextString(sst.getItemAt(idx).getString()).toString();
+                      String content = getSharedString( idx );
+                      if ( content != null ) {
                         headerRow.add( content );
                       }
                       break;
@@ -281,9 +295,7 @@ public class StaxPoiSheet implements KSheet {
             // read content as string
             if ( cellType != null && cellType.equals( "s" ) ) {
               int idx = Integer.parseInt( sheetReader.getElementText() );
-              if (sst != null && sst.getCount() > 0) {
-                content = new XSSFRichTextString(sst.getItemAt(idx).getString()).toString();
-              }
+              content = getSharedString( idx );
             } else {
               content = sheetReader.getElementText();
             }
@@ -327,6 +339,16 @@ public class StaxPoiSheet implements KSheet {
     return cells.toArray( new StaxPoiCell[cells.size()] );
   }
 
+  private String getSharedString( int idx ) {
+    if ( sharedStrings != null ) {
+      return sharedStrings.getCount() > 0 ? sharedStrings.getString( idx ) : null;
+    }
+    if ( sst != null && sst.getCount() > 0 ) {
+      return new XSSFRichTextString( sst.getItemAt( idx ).getString() ).toString();
+    }
+    return null;
+  }
+
   private static void setCells( List<StaxPoiCell> cellsArray, int firstUndefinedColIndex, int foundColIndex, StaxPoiCell cell ) {
     // fill all cells before found with Null
     for ( int index = firstUndefinedColIndex; index < foundColIndex; index++ ) {
@@ -22,6 +22,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import javax.xml.stream.XMLInputFactory;
@@ -31,12 +32,16 @@ import javax.xml.stream.XMLStreamReader;
 
 import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
 import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackagePart;
 import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.usermodel.XSSFRelation;
+import org.pentaho.di.core.Const;
 import org.pentaho.di.core.exception.KettleException;
 import org.pentaho.di.core.logging.KettleLogStore;
 import org.pentaho.di.core.logging.LogChannelInterface;
 import org.pentaho.di.core.spreadsheet.KSheet;
 import org.pentaho.di.core.spreadsheet.KWorkbook;
+import org.pentaho.di.core.util.EnvUtil;
 import org.pentaho.di.core.xml.XMLParserFactoryProducer;
 import org.pentaho.di.i18n.BaseMessages;
 
@@ -48,6 +53,9 @@ public class StaxPoiWorkbook implements KWorkbook {
 
   private static final Class<?> PKG = StaxPoiWorkbook.class; // for i18n purposes, needed by Translator2!!
 
+  // megabytes
+  private static final long SHARED_STRINGS_MEMORY_DEFAULT = 64;
+
   private static final String RELATION_NS_URI = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
 
   private LogChannelInterface log;
@@ -64,6 +72,9 @@ public class StaxPoiWorkbook implements KWorkbook {
 
   private OPCPackage opcpkg;
 
+  // shared strings of all the sheets, read with the first one
+  private StaxPoiSharedStrings sharedStrings;
+
   protected StaxPoiWorkbook() {
     openSheetsMap = new HashMap<String, StaxPoiSheet>();
     this.log = KettleLogStore.getLogChannelInterfaceFactory().create( this );
@@ -152,7 +163,7 @@ public class StaxPoiWorkbook implements KWorkbook {
     StaxPoiSheet sheet = openSheetsMap.get( sheetID );
     if ( sheet == null ) {
       try {
-        sheet = new StaxPoiSheet( reader, sheetName, sheetID );
+        sheet = new StaxPoiSheet( reader, sheetName, sheetID, getSharedStrings() );
         openSheetsMap.put( sheetID, sheet );
       } catch ( Exception e ) {
         log.logError( sheetName, e );
@@ -161,6 +172,25 @@ public class StaxPoiWorkbook implements KWorkbook {
     return sheet;
   }
 
+  private StaxPoiSharedStrings getSharedStrings() throws IOException, XMLStreamException {
+    if ( sharedStrings == null && opcpkg != null ) {
+      long memoryLimit = Const.toLong( EnvUtil.getSystemProperty( Const.KETTLE_EXCEL_INPUT_SHARED_STRINGS_MEMORY ),
+        SHARED_STRINGS_MEMORY_DEFAULT );
+      StaxPoiSharedStrings strings = new StaxPoiSharedStrings( memoryLimit * 1024 * 1024 );
+      List<PackagePart> parts = opcpkg.getPartsByContentType( XSSFRelation.SHARED_STRINGS.getContentType() );
+      if ( !parts.isEmpty() ) {
+        try ( InputStream sharedStringsData = parts.get( 0 ).getInputStream() ) {
+          strings.read( sharedStringsData );
+        } catch ( IOException | XMLStreamException | RuntimeException e ) {
+          strings.close();
+          throw e;
+        }
+      }
+      sharedStrings = strings;
+    }
+    return sharedStrings;
+  }
+
   @Override
   public String[] getSheetNames() {
     String[] sheets = new String[sheetNameIDMap.size()];
@@ -179,6 +209,13 @@ public class StaxPoiWorkbook implements KWorkbook {
         log.logError( "Could not close xmlstream", e );
       }
     }
+    if ( sharedStrings != null ) {
+      try {
+        sharedStrings.close();
+      } catch ( IOException e ) {
+        log.logError( "Could not delete the shared strings files", e );
+      }
+    }
     if ( opcpkg != null ) {
       //We should not save change in xlsx because it is input step.
       opcpkg.revert();
@@ -22,6 +22,7 @@ import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
@@ -81,6 +82,10 @@ import org.pentaho.di.workarounds.BufferedOutputStreamWithCloseDetection;
 public class ExcelWriterStep extends BaseStep implements StepInterface {
 
   public static final String STREAMER_FORCE_RECALC_PROP_NAME = "KETTLE_EXCEL_WRITER_STREAMER_FORCE_RECALCULATE";
+  /** Set to Y to have streaming xlsx output write the XML of its sheet directly, when its options allow it */
+  public static final String STREAMER_DIRECT_PROP_NAME = "KETTLE_EXCEL_WRITER_STREAMER_DIRECT";
+  /** Set to Y to have the sheet written directly compressed in another thread */
+  public static final String STREAMER_PARALLEL_PROP_NAME = "KETTLE_EXCEL_WRITER_STREAMER_PARALLEL";
   public static final String XLSX = "xlsx";
   private static final int STREAMING_WINDOW_SIZE = SXSSFWorkbook.DEFAULT_WINDOW_SIZE;
 
@@ -227,6 +232,10 @@ public class ExcelWriterStep extends BaseStep implements StepInterface {
 
   // clears all memory that POI may hold
   private void clearWorkbookMem() {
+    if ( data.sheetWriter != null ) {
+      data.sheetWriter.abort();
+      data.sheetWriter = null;
+    }
     data.file = null;
     data.sheet = null;
     data.innerSheet = Optional.empty();
@@ -251,6 +260,10 @@ public class ExcelWriterStep extends BaseStep implements StepInterface {
   }
 
   private void closeOutputFile() throws KettleException {
+    if ( data.sheetWriter != null ) {
+      closeSheetWriter();
+      return;
+    }
     try ( BufferedOutputStreamWithCloseDetection out =
         new BufferedOutputStreamWithCloseDetection( KettleVFS.getInstance( getTransMeta().getBowl() )
           .getOutputStream( data.file, false ) ) ) {
@@ -303,6 +316,22 @@ public class ExcelWriterStep extends BaseStep implements StepInterface {
     }
   }
 
+  private void closeSheetWriter() throws KettleException {
+    try {
+      // may have to write a footer here
+      if ( meta.isFooterEnabled() ) {
+        writeHeader();
+      }
+      data.sheetWriter.close();
+    } catch ( IOException e ) {
+      throw new KettleException( e );
+    } finally {
+      data.sheetWriter = null;
+      IOUtils.closeQuietly( data.wb );
+      data.wb = null;
+    }
+  }
+
   private void extendDataValidationRanges() {
     DataValidationHelper helper = data.sheet.getDataValidationHelper();
     for ( DataValidation validation : data.sheet.getDataValidations() ) {
@@ -355,6 +384,10 @@ public class ExcelWriterStep extends BaseStep implements StepInterface {
   }
 
   public void writeNextLine( Object[] r ) throws KettleException {
+    if ( data.sheetWriter != null ) {
+      writeNextLineDirectly( r );
+      return;
+    }
     try {
       openLine();
       Row xlsRow = getOrCreateRow( data.posY );
@@ -387,6 +420,76 @@ public class ExcelWriterStep extends BaseStep implements StepInterface {
     }
   }
 
+  private void writeNextLineDirectly( Object[] r ) throws KettleException {
+    try {
+      data.sheetWriter.startRow( data.posY );
+      if ( meta.getOutputFields() == null || meta.getOutputFields().length == 0 ) {
+        for ( int i = 0; i < data.inputRowMeta.size(); i++ ) {
+          writeFieldDirectly( r[i], data.inputRowMeta.getValueMeta( i ), null, data.posX++, 0 );
+        }
+      } else {
+        for ( int i = 0; i < meta.getOutputFields().length; i++ ) {
+          writeFieldDirectly( r[data.fieldnrs[i]], data.inputRowMeta.getValueMeta( data.fieldnrs[i] ),
+            meta.getOutputFields()[i], data.posX++, data.sheetWriterStyles[i] );
+        }
+      }
+      data.sheetWriter.endRow();
+      // go to the next line
+      data.posX = data.startingCol;
+      data.posY++;
+    } catch ( Exception e ) {
+      logError( "Error writing line :" + e.toString() );
+      throw new KettleException( e );
+    }
+  }
+
+  /**
+   * Write a field as writeField() does, in a cell of the sheet written directly.
+   */
+  private void writeFieldDirectly( Object v, ValueMetaInterface vMeta, ExcelWriterStepField excelField, int posX,
+      int style ) throws KettleException, IOException {
+    XlsxSheetWriter writer = data.sheetWriter;
+    if ( excelField != null && excelField.isFormula() ) {
+      String formula = vMeta.getString( v );
+      if ( formula != null ) {
+        writer.writeFormula( posX, style, formula );
+      } else {
+        writer.writeBlank( posX, style );
+      }
+      return;
+    }
+    if ( v == null ) {
+      if ( meta.isRetainNullValues() ) {
+        writer.writeBlank( posX, style );
+      } else {
+        writer.writeString( posX, style, "" );
+      }
+      return;
+    }
+    switch ( vMeta.getType() ) {
+      case ValueMetaInterface.TYPE_DATE:
+        Date date = vMeta.getDate( v );
+        if ( date != null ) {
+          writer.writeDate( posX, style, date );
+        } else {
+          writer.writeBlank( posX, style );
+        }
+        break;
+      case ValueMetaInterface.TYPE_BOOLEAN:
+        writer.writeBoolean( posX, style, vMeta.getBoolean( v ) );
+        break;
+      case ValueMetaInterface.TYPE_BIGNUMBER:
+      case ValueMetaInterface.TYPE_NUMBER:
+      case ValueMetaInterface.TYPE_INTEGER:
+        writer.writeNumber( posX, style, vMeta.getNumber( v ) );
+        break;
+      default:
+        // fallthrough: output the data value as a string
+        writer.writeString( posX, style, vMeta.getString( v ) );
+        break;
+    }
+  }
+
   private Comment createCellComment( String author, String comment ) {
     // comments only supported for XLSX
     if ( data.sheet instanceof XSSFSheet ) {
@@ -763,7 +866,9 @@ public class ExcelWriterStep extends BaseStep implements StepInterface {
       }
 
       // If it's to use streaming, initialize it now as we already made all necessary initial calculations.
-      if ( data.wb instanceof XSSFWorkbook && meta.isStreamingData() ) {
+      if ( data.wb instanceof XSSFWorkbook && meta.isStreamingData() && canWriteSheetDirectly() ) {
+        openSheetWriter();
+      } else if ( data.wb instanceof XSSFWorkbook && meta.isStreamingData() ) {
         data.innerSheet = Optional.of( data.sheet );
         data.wb = new SXSSFWorkbook( (XSSFWorkbook) data.wb, STREAMING_WINDOW_SIZE );
         data.sheet = data.wb.getSheet( data.realSheetname );
@@ -786,6 +891,70 @@ public class ExcelWriterStep extends BaseStep implements StepInterface {
     }
   }
 
+  /**
+   * The sheet can be written directly when its rows are only appended to it, with nothing but their values and styles,
+   * and nothing has to be done with the workbook once they are written.
+   */
+  private boolean canWriteSheetDirectly() {
+    if ( !"Y".equals( getVariable( STREAMER_DIRECT_PROP_NAME, "N" ) ) || data.shiftExistingCells
+      || meta.isAutoSizeColums() || meta.isExtendDataValidationRanges() ) {
+      return false;
+    }
+    if ( data.sheet.getPhysicalNumberOfRows() > 0 && data.sheet.getLastRowNum() >= data.posY ) {
+      return false;
+    }
+    if ( meta.getOutputFields() != null ) {
+      for ( ExcelWriterStepField field : meta.getOutputFields() ) {
+        if ( !Utils.isEmpty( field.getHyperlinkField() ) || !Utils.isEmpty( field.getCommentField() ) ) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Write the workbook as prepared, and start writing the rows of its sheet, with the styles of the fields created
+   * once.
+   */
+  private void openSheetWriter() throws KettleException, IOException {
+    XSSFWorkbook workbook = (XSSFWorkbook) data.wb;
+    int nrFields = meta.getOutputFields() == null ? 0 : meta.getOutputFields().length;
+    data.sheetWriterStyles = new int[nrFields];
+    data.sheetWriterTitleStyles = new int[nrFields];
+    for ( int i = 0; i < nrFields; i++ ) {
+      data.sheetWriterStyles[i] = getFieldStyle( meta.getOutputFields()[i], false );
+      data.sheetWriterTitleStyles[i] = getFieldStyle( meta.getOutputFields()[i], true );
+    }
+    if ( meta.isForceFormulaRecalculation() && "Y".equals( getVariable( STREAMER_FORCE_RECALC_PROP_NAME, "N" ) ) ) {
+      workbook.setForceFormulaRecalculation( true );
+    }
+    data.sheetWriter = XlsxSheetWriter.open( workbook, (XSSFSheet) data.sheet,
+      new BufferedOutputStreamWithCloseDetection( KettleVFS.getInstance( getTransMeta().getBowl() )
+        .getOutputStream( data.file, false ) ), "Y".equals( getVariable( STREAMER_PARALLEL_PROP_NAME, "N" ) ) );
+  }
+
+  /**
+   * @return the index of the style writeField() gives to the cells of a field, or of its title
+   */
+  private int getFieldStyle( ExcelWriterStepField excelField, boolean isTitle ) {
+    CellStyle style = data.wb.getCellStyleAt( 0 );
+    String styleRef = isTitle ? excelField.getTitleStyleCell() : excelField.getStyleCell();
+    if ( !Utils.isEmpty( styleRef ) ) {
+      Cell styleCell = getCellFromReference( styleRef );
+      if ( styleCell != null ) {
+        style = styleCell.getCellStyle();
+      }
+    }
+    if ( !isTitle && !Utils.isEmpty( excelField.getFormat() ) && !excelField.getFormat().startsWith( "Image" ) ) {
+      CellStyle formatStyle = data.wb.createCellStyle();
+      formatStyle.cloneStyleFrom( style );
+      formatStyle.setDataFormat( data.wb.createDataFormat().getFormat( excelField.getFormat() ) );
+      style = formatStyle;
+    }
+    return style.getIndex();
+  }
+
   /** Sets data.startingRow, data.startingCol, data.posX, data.posY */
   private void setSheetPosition( boolean appendingToSheet ) {
     // starting cell support
@@ -900,6 +1069,10 @@ public class ExcelWriterStep extends BaseStep implements StepInterface {
   }
 
   private void writeHeader() throws KettleException {
+    if ( data.sheetWriter != null ) {
+      writeHeaderDirectly();
+      return;
+    }
     try {
       openLine();
       Row xlsRow = getOrCreateRow( data.posY );
@@ -928,6 +1101,30 @@ public class ExcelWriterStep extends BaseStep implements StepInterface {
     }
   }
 
+  private void writeHeaderDirectly() throws KettleException {
+    try {
+      data.sheetWriter.startRow( data.posY );
+      int posX = data.posX;
+      if ( meta.getOutputFields() != null && meta.getOutputFields().length > 0 ) {
+        for ( int i = 0; i < meta.getOutputFields().length; i++ ) {
+          String fieldName =
+              !Utils.isEmpty( meta.getOutputFields()[i].getTitle() ) ? meta.getOutputFields()[i].getTitle()
+                  : meta.getOutputFields()[i].getName();
+          data.sheetWriter.writeString( posX++, data.sheetWriterTitleStyles[i], fieldName );
+        }
+      } else if ( data.inputRowMeta != null ) {
+        for ( int i = 0; i < data.inputRowMeta.size(); i++ ) {
+          data.sheetWriter.writeString( posX++, 0, data.inputRowMeta.getFieldNames()[i] );
+        }
+      }
+      data.sheetWriter.endRow();
+      data.posY++;
+      incrementLinesOutput();
+    } catch ( Exception e ) {
+      throw new KettleException( e );
+    }
+  }
+
   private Row getOrCreateRow( int rowIdx ) {
     Row xlsRow = data.sheet.getRow( rowIdx );
     if ( xlsRow == null ) {
@@ -39,6 +39,11 @@ public class ExcelWriterStepData extends BaseStepData implements StepDataInterfa
   /** the inner template, if streaming */
   public Optional<Sheet> innerSheet = Optional.empty();
   public Workbook wb;
+  /** writes the rows of the sheet directly, if streaming without needing the workbook */
+  public XlsxSheetWriter sheetWriter;
+  /** the styles of the cells of the fields, and of their titles, written directly */
+  public int[] sheetWriterStyles;
+  public int[] sheetWriterTitleStyles;
   public int[] fieldnrs;
   public RowMetaInterface inputRowMeta;
   public int[] commentfieldnrs;
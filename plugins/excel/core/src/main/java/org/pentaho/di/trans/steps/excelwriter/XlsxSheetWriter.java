@@ -0,0 +1,440 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.excelwriter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.pentaho.di.core.util.ExecutorUtil;
+
+/**
+ * Writes the rows of a sheet of an xlsx file directly as the XML of the sheet, while they come.
+ * <p>
+ * The rest of the workbook (other sheets, styles, and the rows already in the sheet, like a header) is written first
+ * from a workbook prepared with POI. Then each cell is written as it is given, with strings inline so that no shared
+ * strings table is kept, and with the index of a style the caller created once per column. Nothing is kept of the rows
+ * written.
+ * <p>
+ * The sheet can be compressed in another thread while the next rows are written.
+ *
+ * @since 11.1
+ */
+public class XlsxSheetWriter implements Closeable {
+  static final int MAX_TEXT_LENGTH = 32767;
+
+  private static final String SHEET_DATA = "<sheetData>";
+  private static final String SHEET_DATA_END = "</sheetData>";
+  private static final String EMPTY_SHEET_DATA = "<sheetData/>";
+
+  private static final int BUFFER_SIZE = 65536;
+
+  private final ZipOutputStream zip;
+  private final BackgroundOutputStream background;
+  private final OutputStream sheetOut;
+  /** The XML being written, encoded in UTF-8 */
+  private final byte[] buffer = new byte[ BUFFER_SIZE ];
+  private int size;
+  private final String sheetEnd;
+  private final boolean date1904;
+  private final List<String> columnNames = new ArrayList<>();
+  private String rowNumber;
+  private boolean closed;
+
+  /**
+   * Write a workbook, and start writing the rows of one of its sheets after the ones it has.
+   *
+   * @param workbook   the workbook, with everything else but the rows to write
+   * @param sheet      the sheet of the rows
+   * @param out        the file, closed with the writer
+   * @param background true to compress the sheet in another thread
+   */
+  public static XlsxSheetWriter open( XSSFWorkbook workbook, XSSFSheet sheet, OutputStream out, boolean background )
+    throws IOException {
+    ByteArrayOutputStream template = new ByteArrayOutputStream();
+    workbook.write( template );
+    return new XlsxSheetWriter( template.toByteArray(), sheet.getPackagePart().getPartName().getName().substring( 1 ),
+      workbook.isDate1904(), out, background );
+  }
+
+  /**
+   * @param template   the xlsx file to copy
+   * @param sheetEntry the name of the zip entry of the sheet of the rows in it
+   */
+  XlsxSheetWriter( byte[] template, String sheetEntry, boolean date1904, OutputStream out, boolean background )
+    throws IOException {
+    this.date1904 = date1904;
+    zip = new ZipOutputStream( out );
+    try {
+      byte[] sheetXml = null;
+      try ( ZipInputStream in = new ZipInputStream( new ByteArrayInputStream( template ) ) ) {
+        for ( ZipEntry entry = in.getNextEntry(); entry != null; entry = in.getNextEntry() ) {
+          if ( entry.getName().equals( sheetEntry ) ) {
+            sheetXml = IOUtils.toByteArray( in );
+          } else {
+            zip.putNextEntry( new ZipEntry( entry.getName() ) );
+            IOUtils.copy( in, zip );
+            zip.closeEntry();
+          }
+        }
+      }
+      if ( sheetXml == null ) {
+        throw new IOException( "Sheet " + sheetEntry + " not found in the workbook" );
+      }
+
+      // The sheet goes last, around the rows written
+      String xml = new String( sheetXml, StandardCharsets.UTF_8 );
+      String sheetStart;
+      int end = xml.indexOf( SHEET_DATA_END );
+      if ( end >= 0 ) {
+        sheetStart = xml.substring( 0, end );
+        sheetEnd = xml.substring( end );
+      } else {
+        end = xml.indexOf( EMPTY_SHEET_DATA );
+        if ( end < 0 ) {
+          throw new IOException( "No sheet data found in " + sheetEntry );
+        }
+        sheetStart = xml.substring( 0, end ) + SHEET_DATA;
+        sheetEnd = SHEET_DATA_END + xml.substring( end + EMPTY_SHEET_DATA.length() );
+      }
+      zip.putNextEntry( new ZipEntry( sheetEntry ) );
+      this.background = background ? new BackgroundOutputStream( zip ) : null;
+      sheetOut = background ? this.background : zip;
+      write( sheetStart );
+    } catch ( IOException | RuntimeException e ) {
+      IOUtils.closeQuietly( zip );
+      throw e;
+    }
+  }
+
+  /**
+   * Start a row, after the rows written before.
+   *
+   * @param rowIndex the index of the row, from 0
+   */
+  public void startRow( int rowIndex ) throws IOException {
+    rowNumber = Integer.toString( rowIndex + 1 );
+    write( "<row r=\"" );
+    write( rowNumber );
+    write( "\">" );
+  }
+
+  public void endRow() throws IOException {
+    write( "</row>" );
+  }
+
+  /**
+   * Write an inline string, in a cell of the current row.
+   *
+   * @param column the index of the column, after the ones of the cells written in the row
+   * @param style  the index of the style of the cell in the workbook
+   */
+  public void writeString( int column, int style, String value ) throws IOException {
+    if ( value.length() > MAX_TEXT_LENGTH ) {
+      throw new IllegalArgumentException( "The maximum length of cell contents (text) is " + MAX_TEXT_LENGTH
+        + " characters" );
+    }
+    startCell( column, style, "inlineStr" );
+    if ( !value.isEmpty() && ( Character.isWhitespace( value.charAt( 0 ) )
+      || Character.isWhitespace( value.charAt( value.length() - 1 ) ) ) ) {
+      write( "><is><t xml:space=\"preserve\">" );
+    } else {
+      write( "><is><t>" );
+    }
+    writeEscaped( value );
+    write( "</t></is></c>" );
+  }
+
+  public void writeNumber( int column, int style, double value ) throws IOException {
+    if ( Double.isNaN( value ) || Double.isInfinite( value ) ) {
+      startCell( column, style, "e" );
+      write( "><v>#NUM!</v></c>" );
+    } else {
+      startCell( column, style, null );
+      write( "><v>" );
+      write( Double.toString( value ) );
+      write( "</v></c>" );
+    }
+  }
+
+  /**
+   * Write a date as its number of days in the calendar of the workbook: the style of the cell gives its format.
+   */
+  public void writeDate( int column, int style, Date value ) throws IOException {
+    writeNumber( column, style, DateUtil.getExcelDate( value, date1904 ) );
+  }
+
+  public void writeBoolean( int column, int style, boolean value ) throws IOException {
+    startCell( column, style, "b" );
+    write( value ? "><v>1</v></c>" : "><v>0</v></c>" );
+  }
+
+  public void writeFormula( int column, int style, String formula ) throws IOException {
+    startCell( column, style, null );
+    write( "><f>" );
+    writeEscaped( formula );
+    write( "</f></c>" );
+  }
+
+  /**
+   * Write a cell with a style and no value.
+   */
+  public void writeBlank( int column, int style ) throws IOException {
+    startCell( column, style, null );
+    write( "/>" );
+  }
+
+  private void startCell( int column, int style, String type ) throws IOException {
+    write( "<c r=\"" );
+    write( getColumnName( column ) );
+    write( rowNumber );
+    write( '"' );
+    if ( style > 0 ) {
+      write( " s=\"" );
+      write( Integer.toString( style ) );
+      write( '"' );
+    }
+    if ( type != null ) {
+      write( " t=\"" );
+      write( type );
+      write( '"' );
+    }
+  }
+
+  private String getColumnName( int column ) {
+    while ( columnNames.size() <= column ) {
+      columnNames.add( CellReference.convertNumToColString( columnNames.size() ) );
+    }
+    return columnNames.get( column );
+  }
+
+  /**
+   * Write text as XML content. Characters that XML can't hold are written as '?', as POI does.
+   */
+  private void writeEscaped( String text ) throws IOException {
+    int start = 0;
+    for ( int i = 0; i < text.length(); i++ ) {
+      char c = text.charAt( i );
+      String replacement;
+      if ( c == '<' ) {
+        replacement = "&lt;";
+      } else if ( c == '>' ) {
+        replacement = "&gt;";
+      } else if ( c == '&' ) {
+        replacement = "&amp;";
+      } else if ( ( c < ' ' && c != '\t' && c != '\n' && c != '\r' ) || c == '\uFFFE' || c == '\uFFFF' ) {
+        replacement = "?";
+      } else {
+        continue;
+      }
+      write( text, start, i );
+      write( replacement );
+      start = i + 1;
+    }
+    write( text, start, text.length() );
+  }
+
+  private void write( String text ) throws IOException {
+    write( text, 0, text.length() );
+  }
+
+  /**
+   * Encode characters of a string in the buffer, in UTF-8.
+   */
+  private void write( String text, int start, int end ) throws IOException {
+    for ( int i = start; i < end; i++ ) {
+      if ( size > BUFFER_SIZE - 4 ) {
+        flush();
+      }
+      char c = text.charAt( i );
+      if ( c < 0x80 ) {
+        buffer[ size++ ] = (byte) c;
+      } else if ( c < 0x800 ) {
+        buffer[ size++ ] = (byte) ( 0xC0 | ( c >> 6 ) );
+        buffer[ size++ ] = (byte) ( 0x80 | ( c & 0x3F ) );
+      } else if ( Character.isHighSurrogate( c ) && i + 1 < end && Character.isLowSurrogate( text.charAt( i + 1 ) ) ) {
+        int codePoint = Character.toCodePoint( c, text.charAt( ++i ) );
+        buffer[ size++ ] = (byte) ( 0xF0 | ( codePoint >> 18 ) );
+        buffer[ size++ ] = (byte) ( 0x80 | ( ( codePoint >> 12 ) & 0x3F ) );
+        buffer[ size++ ] = (byte) ( 0x80 | ( ( codePoint >> 6 ) & 0x3F ) );
+        buffer[ size++ ] = (byte) ( 0x80 | ( codePoint & 0x3F ) );
+      } else if ( Character.isSurrogate( c ) ) {
+        // a lone surrogate can't be encoded
+        buffer[ size++ ] = '?';
+      } else {
+        buffer[ size++ ] = (byte) ( 0xE0 | ( c >> 12 ) );
+        buffer[ size++ ] = (byte) ( 0x80 | ( ( c >> 6 ) & 0x3F ) );
+        buffer[ size++ ] = (byte) ( 0x80 | ( c & 0x3F ) );
+      }
+    }
+  }
+
+  private void write( char c ) throws IOException {
+    if ( size == BUFFER_SIZE ) {
+      flush();
+    }
+    buffer[ size++ ] = (byte) c;
+  }
+
+  private void flush() throws IOException {
+    sheetOut.write( buffer, 0, size );
+    size = 0;
+  }
+
+  /**
+   * Finish the sheet and the file.
+   */
+  @Override
+  public void close() throws IOException {
+    if ( closed ) {
+      return;
+    }
+    closed = true;
+    try {
+      write( sheetEnd );
+      flush();
+      if ( background != null ) {
+        background.close();
+      }
+      zip.closeEntry();
+      zip.finish();
+    } catch ( IOException | RuntimeException e ) {
+      abort();
+      throw e;
+    } finally {
+      IOUtils.closeQuietly( zip );
+    }
+  }
+
+  /**
+   * Stop writing the file, left incomplete.
+   */
+  public void abort() {
+    closed = true;
+    if ( background != null ) {
+      background.abort();
+    }
+    IOUtils.closeQuietly( zip );
+  }
+
+  /**
+   * Hands the bytes written in chunks to a task of the Kettle executor, which writes them to the underlying stream.
+   * Closing it waits until all of them are written, without closing the underlying stream.
+   */
+  private static class BackgroundOutputStream extends OutputStream {
+    private static final int CHUNK_SIZE = 262144;
+    private static final int CHUNKS = 4;
+    private static final byte[] END = new byte[ 0 ];
+
+    private final BlockingQueue<byte[]> chunks = new ArrayBlockingQueue<>( CHUNKS );
+    private final Future<?> writing;
+    private byte[] chunk = new byte[ CHUNK_SIZE ];
+    private int size;
+
+    BackgroundOutputStream( OutputStream out ) {
+      writing = ExecutorUtil.getExecutor().submit( () -> {
+        for ( byte[] next = chunks.take(); next != END; next = chunks.take() ) {
+          out.write( next );
+        }
+        return null;
+      } );
+    }
+
+    @Override
+    public void write( int b ) throws IOException {
+      if ( size == chunk.length ) {
+        hand( chunk );
+        chunk = new byte[ CHUNK_SIZE ];
+        size = 0;
+      }
+      chunk[ size++ ] = (byte) b;
+    }
+
+    @Override
+    public void write( byte[] b, int off, int len ) throws IOException {
+      while ( len > 0 ) {
+        if ( size == chunk.length ) {
+          hand( chunk );
+          chunk = new byte[ CHUNK_SIZE ];
+          size = 0;
+        }
+        int n = Math.min( len, chunk.length - size );
+        System.arraycopy( b, off, chunk, size, n );
+        size += n;
+        off += n;
+        len -= n;
+      }
+    }
+
+    private void hand( byte[] bytes ) throws IOException {
+      try {
+        while ( !chunks.offer( bytes, 100, TimeUnit.MILLISECONDS ) ) {
+          if ( writing.isDone() ) {
+            waitForWriting();
+            throw new IOException( "The sheet is no longer written" );
+          }
+        }
+      } catch ( InterruptedException e ) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException();
+      }
+    }
+
+    private void waitForWriting() throws IOException {
+      try {
+        writing.get();
+      } catch ( InterruptedException e ) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException();
+      } catch ( ExecutionException e ) {
+        throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException( e.getCause() );
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      if ( size > 0 ) {
+        hand( Arrays.copyOf( chunk, size ) );
+        size = 0;
+      }
+      hand( END );
+      waitForWriting();
+    }
+
+    void abort() {
+      writing.cancel( true );
+    }
+  }
+}
@@ -0,0 +1,89 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.excelinput.staxpoi;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+public class StaxPoiSharedStringsTest {
+  private static final String SST = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+    + "<sst xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\" count=\"4\" uniqueCount=\"4\">"
+    + "<si><t>Report ID</t></si>"
+    + "<si><t xml:space=\"preserve\"> a &amp; b </t></si>"
+    + "<si><r><rPr><b/></rPr><t>Bold</t></r><r><t xml:space=\"preserve\"> and plain</t></r>"
+    + "<rPh sb=\"0\" eb=\"1\"><t>phonetic</t></rPh></si>"
+    + "<si><t>line_x000D_break _x0041_ _xZZZZ_ é</t></si>"
+    + "<si><t/></si>"
+    + "</sst>";
+
+  private static StaxPoiSharedStrings read( long memoryLimit ) throws Exception {
+    StaxPoiSharedStrings sharedStrings = new StaxPoiSharedStrings( memoryLimit );
+    sharedStrings.read( new ByteArrayInputStream( SST.getBytes( StandardCharsets.UTF_8 ) ) );
+    return sharedStrings;
+  }
+
+  private static void assertStrings( StaxPoiSharedStrings sharedStrings ) {
+    assertEquals( 5, sharedStrings.getCount() );
+    assertEquals( "Report ID", sharedStrings.getString( 0 ) );
+    assertEquals( " a & b ", sharedStrings.getString( 1 ) );
+    assertEquals( "Bold and plain", sharedStrings.getString( 2 ) );
+    assertEquals( "line\rbreak A _xZZZZ_ é", sharedStrings.getString( 3 ) );
+    assertEquals( "", sharedStrings.getString( 4 ) );
+  }
+
+  @Test
+  public void testStringsInMemory() throws Exception {
+    try ( StaxPoiSharedStrings sharedStrings = read( 1024 * 1024 ) ) {
+      assertFalse( sharedStrings.isMapped() );
+      assertStrings( sharedStrings );
+    }
+  }
+
+  @Test
+  public void testStringsInFiles() throws Exception {
+    try ( StaxPoiSharedStrings sharedStrings = read( 20 ) ) {
+      assertTrue( sharedStrings.isMapped() );
+      assertStrings( sharedStrings );
+    }
+  }
+
+  @Test
+  public void testManyStrings() throws Exception {
+    try ( StaxPoiSharedStrings sharedStrings = new StaxPoiSharedStrings( 100000 ) ) {
+      for ( int i = 0; i < 50000; i++ ) {
+        sharedStrings.add( "value " + i );
+      }
+      sharedStrings.finish();
+
+      assertTrue( sharedStrings.isMapped() );
+      assertEquals( 50000, sharedStrings.getCount() );
+      assertEquals( "value 0", sharedStrings.getString( 0 ) );
+      assertEquals( "value 12345", sharedStrings.getString( 12345 ) );
+      assertEquals( "value 49999", sharedStrings.getString( 49999 ) );
+    }
+  }
+
+  @Test( expected = IndexOutOfBoundsException.class )
+  public void testMissingString() throws Exception {
+    try ( StaxPoiSharedStrings sharedStrings = read( 1024 ) ) {
+      sharedStrings.getString( 5 );
+    }
+  }
+}
@@ -0,0 +1,159 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.excelwriter;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+public class XlsxSheetWriterTest {
+  private static final String SHEET = "xl/worksheets/sheet1.xml";
+  private static final String SHEET_START = "<worksheet><dimension ref=\"A1\"/>";
+  private static final String SHEET_END = "<pageMargins/></worksheet>";
+
+  private static byte[] template( String sheetData ) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try ( ZipOutputStream zip = new ZipOutputStream( out ) ) {
+      zip.putNextEntry( new ZipEntry( SHEET ) );
+      zip.write( ( SHEET_START + sheetData + SHEET_END ).getBytes( StandardCharsets.UTF_8 ) );
+      zip.closeEntry();
+      zip.putNextEntry( new ZipEntry( "xl/styles.xml" ) );
+      zip.write( "<styleSheet/>".getBytes( StandardCharsets.UTF_8 ) );
+      zip.closeEntry();
+    }
+    return out.toByteArray();
+  }
+
+  private static void writeRows( XlsxSheetWriter writer ) throws IOException {
+    writer.startRow( 1 );
+    writer.writeString( 0, 0, "a < b & c" );
+    writer.writeNumber( 1, 3, 1.5 );
+    writer.writeBoolean( 27, 0, true );
+    writer.endRow();
+    writer.startRow( 2 );
+    writer.writeString( 0, 0, " é\u0001 " );
+    writer.writeFormula( 1, 2, "A2&\"x\"" );
+    writer.writeNumber( 2, 0, Double.NaN );
+    writer.writeBlank( 3, 4 );
+    writer.endRow();
+  }
+
+  private static List<String> readEntries( byte[] file, StringBuilder sheet ) throws IOException {
+    List<String> names = new ArrayList<>();
+    try ( ZipInputStream zip = new ZipInputStream( new ByteArrayInputStream( file ) ) ) {
+      for ( ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry() ) {
+        names.add( entry.getName() );
+        if ( SHEET.equals( entry.getName() ) ) {
+          sheet.append( new String( IOUtils.toByteArray( zip ), StandardCharsets.UTF_8 ) );
+        }
+      }
+    }
+    return names;
+  }
+
+  private static String write( String sheetData, boolean background ) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try ( XlsxSheetWriter writer = new XlsxSheetWriter( template( sheetData ), SHEET, false, out, background ) ) {
+      writeRows( writer );
+    }
+    StringBuilder sheet = new StringBuilder();
+    assertEquals( List.of( "xl/styles.xml", SHEET ), readEntries( out.toByteArray(), sheet ) );
+    return sheet.toString();
+  }
+
+  private static final String ROWS = "<row r=\"2\">"
+    + "<c r=\"A2\" t=\"inlineStr\"><is><t>a &lt; b &amp; c</t></is></c>"
+    + "<c r=\"B2\" s=\"3\"><v>1.5</v></c>"
+    + "<c r=\"AB2\" t=\"b\"><v>1</v></c></row>"
+    + "<row r=\"3\">"
+    + "<c r=\"A3\" t=\"inlineStr\"><is><t xml:space=\"preserve\"> é? </t></is></c>"
+    + "<c r=\"B3\" s=\"2\"><f>A2&amp;\"x\"</f></c>"
+    + "<c r=\"C3\" t=\"e\"><v>#NUM!</v></c>"
+    + "<c r=\"D3\" s=\"4\"/></row>";
+
+  @Test
+  public void testWriteInEmptySheet() throws Exception {
+    assertEquals( SHEET_START + "<sheetData>" + ROWS + "</sheetData>" + SHEET_END, write( "<sheetData/>", false ) );
+  }
+
+  @Test
+  public void testWriteAfterExistingRows() throws Exception {
+    String header = "<row r=\"1\"><c r=\"A1\" t=\"s\"><v>0</v></c></row>";
+    assertEquals( SHEET_START + "<sheetData>" + header + ROWS + "</sheetData>" + SHEET_END,
+      write( "<sheetData>" + header + "</sheetData>", false ) );
+  }
+
+  @Test
+  public void testBackgroundCompressionWritesTheSameFile() throws Exception {
+    byte[] template = template( "<sheetData/>" );
+    byte[][] files = new byte[ 2 ][];
+    for ( int i = 0; i < files.length; i++ ) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      try ( XlsxSheetWriter writer = new XlsxSheetWriter( template, SHEET, false, out, i == 1 ) ) {
+        for ( int row = 0; row < 20000; row++ ) {
+          writer.startRow( row );
+          writer.writeString( 0, 0, "value " + row );
+          writer.writeNumber( 1, 0, row );
+          writer.endRow();
+        }
+      }
+      files[ i ] = out.toByteArray();
+    }
+    assertArrayEquals( files[ 0 ], files[ 1 ] );
+  }
+
+  @Test
+  public void testBackgroundWriteError() throws Exception {
+    OutputStream full = new OutputStream() {
+      private int written;
+
+      @Override
+      public void write( int b ) throws IOException {
+        if ( ++written > 10000 ) {
+          throw new IOException( "disk full" );
+        }
+      }
+    };
+    try ( XlsxSheetWriter writer = new XlsxSheetWriter( template( "<sheetData/>" ), SHEET, false, full, true ) ) {
+      for ( int row = 0; row < 1000000; row++ ) {
+        writer.startRow( row );
+        writer.writeString( 0, 0, "value " + row );
+        writer.endRow();
+      }
+      fail( "The file can't be written" );
+    } catch ( IOException e ) {
+      assertEquals( "disk full", e.getMessage() );
+    }
+  }
+
+  @Test( expected = IOException.class )
+  public void testMissingSheet() throws Exception {
+    new XlsxSheetWriter( template( "<sheetData/>" ), "xl/worksheets/sheet2.xml", false, new ByteArrayOutputStream(),
+      false );
+  }
+}
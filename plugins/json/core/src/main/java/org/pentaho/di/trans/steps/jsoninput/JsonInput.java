@@ -15,13 +15,17 @@
 package org.pentaho.di.trans.steps.jsoninput;
 
 import java.io.ByteArrayInputStream;
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.BitSet;
 
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
 import org.apache.commons.lang3.NotImplementedException;
 import org.apache.commons.vfs2.FileObject;
 import org.apache.commons.vfs2.FileSystemException;
+import org.apache.commons.vfs2.provider.local.LocalFile;
 import org.pentaho.di.core.QueueRowSet;
 import org.pentaho.di.core.ResultFile;
 import org.pentaho.di.core.exception.KettleException;
@@ -40,10 +44,14 @@ import org.pentaho.di.trans.step.StepMeta;
 import org.pentaho.di.trans.step.StepMetaInterface;
 import org.pentaho.di.trans.steps.file.BaseFileInputStep;
 import org.pentaho.di.trans.steps.file.IBaseFileInputReader;
+import org.pentaho.di.trans.steps.fileinput.text.EncodingType;
+import org.pentaho.di.trans.steps.fileinput.text.TextFileSplitter;
 import org.pentaho.di.trans.steps.jsoninput.exception.JsonInputException;
 import org.pentaho.di.trans.steps.jsoninput.reader.FastJsonReader;
 import org.pentaho.di.trans.steps.jsoninput.reader.InputsReader;
+import org.pentaho.di.trans.steps.jsoninput.reader.JsonLinesReader;
 import org.pentaho.di.trans.steps.jsoninput.reader.RowOutputConverter;
+import org.pentaho.di.trans.steps.jsoninput.reader.StreamingJsonReader;
 
 /**
  * Read Json files, parse them and convert them to rows and writes these to one or more output streams.
@@ -79,10 +87,18 @@ public class JsonInput extends BaseFileInputStep<JsonInputMeta, JsonInputData> i
       }
     }
     try {
-      // Init a new JSON reader
-      data.reader =
-        new FastJsonReader( this, meta.getInputFields(), meta.isDefaultPathLeafToNull(), meta.isIgnoreMissingPath(),
+      // Init a new JSON reader, one reading the rows while parsing when the paths allow it
+      if ( StreamingJsonReader.isSupported( this, meta.getInputFields(), meta.isDefaultPathLeafToNull() ) ) {
+        data.reader = new StreamingJsonReader( this, meta.getInputFields(), meta.isIgnoreMissingPath(),
           meta.isIncludeNulls(), log );
+      } else {
+        data.reader =
+          new FastJsonReader( this, meta.getInputFields(), meta.isDefaultPathLeafToNull(), meta.isIgnoreMissingPath(),
+            meta.isIncludeNulls(), log );
+      }
+      if ( meta.isJsonLines() ) {
+        data.reader = new JsonLinesReader( data.reader );
+      }
     } catch ( KettleException e ) {
       logError( e.getMessage() );
       return false;
@@ -192,12 +208,70 @@ public class JsonInput extends BaseFileInputStep<JsonInputMeta, JsonInputData> i
 
     // Create convert meta-data objects that will contain Date & Number formatters
     data.convertRowMeta = data.outputRowMeta.cloneToType( ValueMetaInterface.TYPE_STRING );
+    if ( meta.isJsonLines() && meta.isRunningInParallel() && !meta.isInFields()
+      && !meta.inputFiles.acceptingFilenames ) {
+      try {
+        data.parallelRanges = getParallelRanges();
+      } catch ( Exception e ) {
+        throw new KettleException( BaseMessages.getString( PKG, "JsonInput.Exception.ErrorPreparingParallelRun" ), e );
+      }
+    }
     data.inputs = new InputsReader( this, meta, data, new InputErrorHandler() ).iterator();
     data.readerRowSet = new QueueRowSet();
     data.readerRowSet.setDone();
     this.rowOutputConverter = new RowOutputConverter( getLogChannel() );
   }
 
+  /**
+   * Split the files in blocks of the same size, one per step copy: this copy reads the lines starting in its block. A
+   * file that can't be split, because it's remote, in an archive or in a multi-byte encoding, is read by the copy whose
+   * block it starts in.
+   */
+  private long[][] getParallelRanges() throws Exception {
+    boolean splittable = EncodingType.guessEncodingType( meta.getEncoding() ) == EncodingType.SINGLE;
+    int nrFiles = data.files.nrOfFiles();
+    String[] filenames = new String[ nrFiles ];
+    long[] fileSizes = new long[ nrFiles ];
+    long totalSize = 0L;
+    for ( int i = 0; i < nrFiles; i++ ) {
+      FileObject file = data.files.getFile( i );
+      fileSizes[ i ] = file.exists() ? file.getContent().getSize() : 0L;
+      totalSize += fileSizes[ i ];
+      if ( splittable && file instanceof LocalFile ) {
+        filenames[ i ] = KettleVFS.getFilename( file );
+      }
+    }
+
+    int stepNr = getUniqueStepNrAcrossSlaves();
+    int nrSteps = getUniqueStepCountAcrossSlaves();
+    long blockSize = Math.max( 1L, ( totalSize + nrSteps - 1 ) / nrSteps );
+    long blockStart = blockSize * stepNr;
+    long blockEnd = stepNr == nrSteps - 1 ? Long.MAX_VALUE : blockStart + blockSize;
+    return new TextFileSplitter( null, getTrans() ).getRanges( filenames, fileSizes, blockSize, blockStart, blockEnd );
+  }
+
+  /**
+   * Open a file, or the part of it this step copy reads when running in parallel.
+   */
+  public InputStream openFile( FileObject file ) throws IOException {
+    InputStream in = KettleVFS.getInputStream( file );
+    long[] range = data.parallelRanges == null ? null : data.parallelRanges[ data.currentFileIndex - 1 ];
+    if ( range == null || range[ 1 ] < 0L ) {
+      return in;
+    }
+    if ( log.isDetailed() ) {
+      logDetailed( BaseMessages.getString( PKG, "JsonInput.Log.ReadingInParallel", file.getName().getFriendlyURI(),
+        Long.toString( range[ 0 ] ), Long.toString( range[ 1 ] ) ) );
+    }
+    try {
+      IOUtils.skipFully( in, range[ 0 ] );
+    } catch ( IOException e ) {
+      in.close();
+      throw e;
+    }
+    return new BoundedInputStream( in, range[ 1 ] - range[ 0 ] );
+  }
+
   private void addFileToResultFilesname( FileObject file ) {
     if ( meta.addResultFile() ) {
       // Add this to the result file names...
@@ -250,7 +324,9 @@ public class JsonInput extends BaseFileInputStep<JsonInputMeta, JsonInputData> i
   private void parseNextInputToRowSet( InputStream input ) throws KettleException {
     try {
       data.readerRowSet = data.reader.parse( input );
-      input.close();
+      if ( !data.reader.isStreaming() ) {
+        input.close();
+      }
     } catch ( KettleException ke ) {
       logInputError( ke );
       throw new JsonInputException( ke );
@@ -315,19 +391,24 @@ public class JsonInput extends BaseFileInputStep<JsonInputMeta, JsonInputData> i
       return null;
     }
     Object[] rawReaderRow;
-    while ( ( rawReaderRow = data.readerRowSet.getRow() ) == null ) {
+    while ( ( rawReaderRow = getReaderRow() ) == null ) {
       if ( data.inputs.hasNext() && data.readerRowSet.isDone() ) {
-        try ( InputStream nextIn = data.inputs.next() ) {
+        InputStream nextIn = data.inputs.next();
+        boolean streaming = false;
+        try {
 
           if ( nextIn != null ) {
             parseNextInputToRowSet( nextIn );
           } else {
             parseNextInputToRowSet( new ByteArrayInputStream( EMPTY_JSON ) );
           }
+          streaming = data.reader.isStreaming();
 
-        } catch ( IOException e ) {
-          logError( BaseMessages.getString( PKG, "JsonInput.Log.UnexpectedError", e.toString() ), e );
-          incrementErrors();
+        } finally {
+          // A streaming reader closes the input once it has read all its rows
+          if ( nextIn != null && !streaming ) {
+            closeInput( nextIn );
+          }
         }
       } else {
         if ( isDetailed() ) {
@@ -341,6 +422,37 @@ public class JsonInput extends BaseFileInputStep<JsonInputMeta, JsonInputData> i
     return outputRow;
   }
 
+  /**
+   * Get the next row of the reader. A streaming reader parses the input up to it, so it's closed on parsing errors,
+   * unless the reader can go on with the next line of JSON lines.
+   */
+  private Object[] getReaderRow() throws KettleException {
+    try {
+      return data.readerRowSet.getRow();
+    } catch ( StreamingJsonReader.ReadException e ) {
+      if ( !( e instanceof JsonLinesReader.LineException ) ) {
+        closeReaderRowSet();
+      }
+      logInputError( e.getCause() );
+      throw e.getCause();
+    }
+  }
+
+  private void closeReaderRowSet() {
+    if ( data.readerRowSet instanceof Closeable ) {
+      closeInput( (Closeable) data.readerRowSet );
+    }
+  }
+
+  private void closeInput( Closeable input ) {
+    try {
+      input.close();
+    } catch ( IOException e ) {
+      logError( BaseMessages.getString( PKG, "JsonInput.Log.UnexpectedError", e.toString() ), e );
+      incrementErrors();
+    }
+  }
+
   private void sendErrorRow( String errorMsg ) {
     try {
       // same error as before
@@ -438,6 +550,7 @@ public class JsonInput extends BaseFileInputStep<JsonInputMeta, JsonInputData> i
 
   @Override
   public void setOutputDone() {
+    closeReaderRowSet();
     if ( null != data.inputs ) {
       try {
         data.inputs.close();
@@ -471,6 +584,7 @@ public class JsonInput extends BaseFileInputStep<JsonInputMeta, JsonInputData> i
         logError( BaseMessages.getString( PKG, "JsonInput.Log.UnexpectedError", e.toString() ) );
       }
     }
+    closeReaderRowSet();
     data.inputs = null;
     data.reader = null;
     data.readerRowSet = null;
@@ -55,6 +55,12 @@ public class JsonInputData extends BaseFileInputStepData implements StepDataInte
   public RowSet readerRowSet;
   public BitSet repeatedFields;
 
+  /**
+   * When running in parallel, for each file, the start and the end (excluded) of the bytes to read, an end of -1 to
+   * read all of it, or null to skip it
+   */
+  public long[][] parallelRanges;
+
   public JsonInputData() {
     super();
     nr_repeats = 0;
@@ -234,6 +234,14 @@ public class JsonInputMeta extends
 
   private boolean includeNulls;
 
+  /** Flag : each line of the input is a JSON document (JSON lines) */
+  @Injection( name = "JSON_LINES" )
+  private boolean jsonLines;
+
+  /** Flag : the step copies read the lines starting in their own part of the files */
+  @Injection( name = "RUNNING_IN_PARALLEL" )
+  private boolean runningInParallel;
+
   public JsonInputMeta() {
     additionalOutputFields = new JsonInputMeta.AdditionalFileOutputFields();
     inputFiles = new JsonInputMeta.InputFiles();
@@ -268,6 +276,34 @@ public class JsonInputMeta extends
     this.includeNulls = includeNulls;
   }
 
+  /**
+   * @return true if each line of the input is a JSON document
+   */
+  public boolean isJsonLines() {
+    return jsonLines;
+  }
+
+  /**
+   * @param jsonLines true if each line of the input is a JSON document
+   */
+  public void setJsonLines( boolean jsonLines ) {
+    this.jsonLines = jsonLines;
+  }
+
+  /**
+   * @return true if the step copies split the files between them, only with JSON lines
+   */
+  public boolean isRunningInParallel() {
+    return runningInParallel;
+  }
+
+  /**
+   * @param runningInParallel true if the step copies split the files between them, only with JSON lines
+   */
+  public void setRunningInParallel( boolean runningInParallel ) {
+    this.runningInParallel = runningInParallel;
+  }
+
   /**
    * @return Returns the shortFileFieldName.
    */
@@ -638,6 +674,8 @@ public class JsonInputMeta extends
     retval.append( "    " + XMLHandler.addTagValue( "ignoreMissingPath", ignoreMissingPath ) );
     retval.append( "    " + XMLHandler.addTagValue( "defaultPathLeafToNull", defaultPathLeafToNull ) );
     retval.append( "    " + XMLHandler.addTagValue( INCLUDE_NULLS, includeNulls ) );
+    retval.append( "    " + XMLHandler.addTagValue( "jsonLines", jsonLines ) );
+    retval.append( "    " + XMLHandler.addTagValue( "parallel", runningInParallel ) );
     retval.append( "    " ).append( XMLHandler.addTagValue( "rownum_field", rowNumberField ) );
 
     retval.append( "    <file>" ).append( Const.CR );
@@ -698,6 +736,8 @@ public class JsonInputMeta extends
       ignoreMissingPath = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "ignoreMissingPath" ) );
       defaultPathLeafToNull = getDefaultPathLeafToNull( stepnode );
       includeNulls = getincludeNulls( stepnode );
+      jsonLines = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "jsonLines" ) );
+      runningInParallel = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "parallel" ) );
       doNotFailIfNoFile = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "doNotFailIfNoFile" ) );
       includeRowNumber = "Y".equalsIgnoreCase( XMLHandler.getTagValue( stepnode, "rownum" ) );
       rowNumberField = XMLHandler.getTagValue( stepnode, "rownum_field" );
@@ -792,6 +832,8 @@ public class JsonInputMeta extends
     ignoreMissingPath = true;
     defaultPathLeafToNull = true;
     includeNulls = getIncludeNullsProperty();
+    jsonLines = false;
+    runningInParallel = false;
     doNotFailIfNoFile = true;
     includeFilename = false;
     filenameField = "";
@@ -876,6 +918,8 @@ public class JsonInputMeta extends
       ignoreMissingPath = rep.getStepAttributeBoolean( id_step, "ignoreMissingPath" );
       defaultPathLeafToNull = rep.getStepAttributeBoolean( id_step, 0, "defaultPathLeafToNull", true );
       includeNulls = rep.getStepAttributeBoolean( id_step, 0, INCLUDE_NULLS, getIncludeNullsProperty() );
+      jsonLines = rep.getStepAttributeBoolean( id_step, "jsonLines" );
+      runningInParallel = rep.getStepAttributeBoolean( id_step, "parallel" );
 
       doNotFailIfNoFile = rep.getStepAttributeBoolean( id_step, "doNotFailIfNoFile" );
 
@@ -948,6 +992,8 @@ public class JsonInputMeta extends
       rep.saveStepAttribute( id_transformation, id_step, "ignoreMissingPath", ignoreMissingPath );
       rep.saveStepAttribute( id_transformation, id_step, "defaultPathLeafToNull", defaultPathLeafToNull );
       rep.saveStepAttribute( id_transformation, id_step, INCLUDE_NULLS, includeNulls );
+      rep.saveStepAttribute( id_transformation, id_step, "jsonLines", jsonLines );
+      rep.saveStepAttribute( id_transformation, id_step, "parallel", runningInParallel );
 
       rep.saveStepAttribute( id_transformation, id_step, "doNotFailIfNoFile", doNotFailIfNoFile );
 
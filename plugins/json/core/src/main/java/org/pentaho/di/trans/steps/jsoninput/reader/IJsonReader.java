@@ -17,6 +17,7 @@ package org.pentaho.di.trans.steps.jsoninput.reader;
 import org.pentaho.di.core.RowSet;
 import org.pentaho.di.core.exception.KettleException;
 
+import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 
 public interface IJsonReader {
@@ -25,4 +26,18 @@ public interface IJsonReader {
    * Parse compiled Json Paths into a rowset
    */
   RowSet parse( InputStream in ) throws KettleException;
+
+  /**
+   * Parse a document in a part of an array, which the rowset may read until all its rows are got
+   */
+  default RowSet parse( byte[] bytes, int offset, int length ) throws KettleException {
+    return parse( new ByteArrayInputStream( bytes, offset, length ) );
+  }
+
+  /**
+   * @return true if the rowset reads the input while its rows are got, in which case it's closed by the rowset
+   */
+  default boolean isStreaming() {
+    return false;
+  }
 }
@@ -148,7 +148,18 @@ public class InputsReader implements Iterable<InputStream> {
     }
 
     @Override
-    public InputStream tryNext() {
+    public boolean hasNext() {
+      // Running in parallel, skip the files without lines starting in the block of the step copy
+      long[][] ranges = InputsReader.this.data.parallelRanges;
+      while ( ranges != null && super.hasNext() && ranges[ data.currentFileIndex ] == null ) {
+        inner.next();
+        data.currentFileIndex++;
+      }
+      return super.hasNext();
+    }
+
+    @Override
+    public InputStream tryNext() throws IOException {
       if ( hasNext() ) {
         if ( data.file != null ) {
           try {
@@ -161,7 +172,7 @@ public class InputsReader implements Iterable<InputStream> {
           data.file = inner.next();
           data.currentFileIndex++;
           if ( step.onNewFile( data.file ) ) {
-            return KettleVFS.getInputStream( data.file );
+            return step.openFile( data.file );
           }
         } catch ( FileSystemException e ) {
           handler.fileOpenError( data.file, e );
@@ -0,0 +1,208 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.jsoninput.reader;
+
+import org.pentaho.di.core.RowSet;
+import org.pentaho.di.core.SingleRowRowSet;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.i18n.BaseMessages;
+import org.pentaho.di.trans.steps.csvinput.ByteScanner;
+import org.pentaho.di.trans.steps.jsoninput.JsonInputMeta;
+import org.pentaho.di.trans.steps.jsoninput.exception.JsonInputException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Reads JSON lines (newline delimited JSON): each line of the input is a document, read by another reader. Blank lines
+ * are skipped. A line that can't be read fails with a {@link LineException}, the rows of the next lines can still be
+ * read after it.
+ * <p>
+ * The lines are read in a buffer reused from line to line, and given to the reader of the lines from it, with the
+ * paths of the fields it compiled once.
+ *
+ * @since 11.1
+ */
+public class JsonLinesReader implements IJsonReader {
+  private static Class<?> PKG = JsonInputMeta.class; // for i18n purposes, needed by Translator2!!
+
+  private static final int BUFFER_SIZE = 65536;
+  private static final ByteScanner NEW_LINES = new ByteScanner( (byte) '\n' );
+
+  private final IJsonReader lineReader;
+
+  /**
+   * @param lineReader the reader of each line
+   */
+  public JsonLinesReader( IJsonReader lineReader ) {
+    this.lineReader = lineReader;
+  }
+
+  @Override
+  public RowSet parse( InputStream in ) throws KettleException {
+    return new LinesRowSet( in );
+  }
+
+  @Override
+  public boolean isStreaming() {
+    return true;
+  }
+
+  /**
+   * The rows of the lines of the input, read on demand. It closes the input once all the lines are read.
+   */
+  private class LinesRowSet extends SingleRowRowSet implements Closeable {
+    private final InputStream in;
+    private byte[] buffer = new byte[ BUFFER_SIZE ];
+    private int start;
+    private int end;
+    private boolean endOfInput;
+    private boolean finished;
+    private long lineNr;
+    private RowSet lineRows;
+
+    LinesRowSet( InputStream in ) {
+      this.in = in;
+    }
+
+    @Override
+    public Object[] getRow() {
+      if ( finished ) {
+        return null;
+      }
+      try {
+        while ( true ) {
+          if ( lineRows != null ) {
+            Object[] row = lineRows.getRow();
+            if ( row != null ) {
+              return row;
+            }
+            lineRows = null;
+          }
+          if ( !nextLine() ) {
+            close();
+            return null;
+          }
+        }
+      } catch ( IOException e ) {
+        close();
+        throw new StreamingJsonReader.ReadException( new JsonInputException( e ) );
+      } catch ( KettleException e ) {
+        lineRows = null;
+        throw new LineException( new JsonInputException(
+          BaseMessages.getString( PKG, "JsonReader.Error.ParsingLine", Long.toString( lineNr ) ), e ) );
+      } catch ( StreamingJsonReader.ReadException e ) {
+        lineRows = null;
+        throw new LineException( new JsonInputException(
+          BaseMessages.getString( PKG, "JsonReader.Error.ParsingLine", Long.toString( lineNr ) ), e.getCause() ) );
+      }
+    }
+
+    /**
+     * Find the next line that isn't blank and start reading its rows.
+     *
+     * @return false at the end of the input
+     */
+    private boolean nextLine() throws IOException, KettleException {
+      while ( true ) {
+        int newLine = NEW_LINES.indexOf( buffer, start, end );
+        if ( newLine == end && !endOfInput ) {
+          fill();
+          continue;
+        }
+        if ( start == end ) {
+          return false;
+        }
+        int lineStart = start;
+        int lineEnd = newLine;
+        start = newLine == end ? end : newLine + 1;
+        lineNr++;
+        while ( lineStart < lineEnd && isWhitespace( buffer[ lineStart ] ) ) {
+          lineStart++;
+        }
+        while ( lineEnd > lineStart && isWhitespace( buffer[ lineEnd - 1 ] ) ) {
+          lineEnd--;
+        }
+        if ( lineStart < lineEnd ) {
+          lineRows = lineReader.parse( buffer, lineStart, lineEnd - lineStart );
+          return true;
+        }
+      }
+    }
+
+    private boolean isWhitespace( byte b ) {
+      return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+
+    /**
+     * Read more of the input after the rest of the buffer, moved to its start or in a larger buffer for a long line.
+     */
+    private void fill() throws IOException {
+      int remaining = end - start;
+      if ( start == 0 && remaining == buffer.length ) {
+        buffer = Arrays.copyOf( buffer, buffer.length * 2 );
+      } else {
+        System.arraycopy( buffer, start, buffer, 0, remaining );
+      }
+      start = 0;
+      end = remaining;
+      int n = in.read( buffer, end, buffer.length - end );
+      if ( n < 0 ) {
+        endOfInput = true;
+      } else {
+        end += n;
+      }
+    }
+
+    @Override
+    public int size() {
+      return finished ? 0 : 1;
+    }
+
+    @Override
+    public boolean isDone() {
+      return true;
+    }
+
+    @Override
+    public void clear() {
+      close();
+    }
+
+    @Override
+    public void close() {
+      if ( !finished ) {
+        finished = true;
+        lineRows = null;
+        try {
+          in.close();
+        } catch ( IOException e ) {
+          // Nothing left to read from it
+        }
+      }
+    }
+  }
+
+  /**
+   * A failure reading the rows of a line: the input stays open, the next call to {@link RowSet#getRow()} goes on with
+   * the next line.
+   */
+  public static class LineException extends StreamingJsonReader.ReadException {
+    public LineException( JsonInputException cause ) {
+      super( cause );
+    }
+  }
+}
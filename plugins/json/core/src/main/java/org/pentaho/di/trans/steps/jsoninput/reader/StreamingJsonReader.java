@@ -0,0 +1,515 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.jsoninput.reader;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadConstraints;
+import com.fasterxml.jackson.core.json.JsonReadFeature;
+import net.minidev.json.JSONArray;
+import org.pentaho.di.core.Const;
+import org.pentaho.di.core.RowSet;
+import org.pentaho.di.core.SingleRowRowSet;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.logging.LogChannelInterface;
+import org.pentaho.di.core.row.value.ValueMetaBase;
+import org.pentaho.di.i18n.BaseMessages;
+import org.pentaho.di.trans.steps.jsoninput.JsonInput;
+import org.pentaho.di.trans.steps.jsoninput.JsonInputField;
+import org.pentaho.di.trans.steps.jsoninput.JsonInputMeta;
+import org.pentaho.di.trans.steps.jsoninput.exception.JsonInputException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the rows of a JSON document while it's parsed, without the whole document in memory: a row is returned as soon
+ * as the value it comes from is parsed, for instance an element of a large array.
+ * <p>
+ * Only the paths made of names and wildcards are supported, like $.records[*].field or $.a[*].b[*]['c'], the
+ * wildcards all in the part common to the paths: that part selects the values of the rows, the rest of each path
+ * selects a field in them. See {@link #isSupported(JsonInput, JsonInputField[])}, the other paths are read with
+ * {@link FastJsonReader}.
+ * <p>
+ * The rows are the same as with FastJsonReader when a missing leaf defaults to null, the only case supported: without
+ * it, FastJsonReader fails on the whole document when a leaf is missing in some values. A path not found fails before
+ * any row, the rows being held back until a value was found for every path.
+ *
+ * @since 11.1
+ */
+public class StreamingJsonReader implements IJsonReader {
+  private static Class<?> PKG = JsonInputMeta.class; // for i18n purposes, needed by Translator2!!
+
+  private static final JsonFactory JSON_FACTORY = JsonFactory.builder()
+    .enable( JsonReadFeature.ALLOW_SINGLE_QUOTES, JsonReadFeature.ALLOW_UNQUOTED_FIELD_NAMES,
+      JsonReadFeature.ALLOW_JAVA_COMMENTS, JsonReadFeature.ALLOW_NON_NUMERIC_NUMBERS,
+      JsonReadFeature.ALLOW_UNESCAPED_CONTROL_CHARS, JsonReadFeature.ALLOW_TRAILING_COMMA )
+    .streamReadConstraints( StreamReadConstraints.builder().maxStringLength( Integer.MAX_VALUE ).build() )
+    .build();
+
+  private final String[] paths;
+  private final boolean ignoreMissingPath;
+  private final boolean includeNulls;
+  private final LogChannelInterface log;
+
+  /**
+   * The segments of the path to the values of the rows, null for a wildcard.
+   */
+  private final List<String> rowPath;
+
+  /**
+   * The fields in the values of the rows.
+   */
+  private final Node fields = new Node();
+
+  public StreamingJsonReader( JsonInput step, JsonInputField[] inputFields, boolean ignoreMissingPath,
+                              boolean includeNulls, LogChannelInterface log ) throws KettleException {
+    this.ignoreMissingPath = ignoreMissingPath;
+    this.includeNulls = includeNulls;
+    this.log = log;
+
+    paths = new String[ inputFields.length ];
+    List<List<String>> compiledPaths = new ArrayList<>();
+    for ( int i = 0; i < inputFields.length; i++ ) {
+      paths[ i ] = inputFields[ i ].getPath();
+      compiledPaths.add( compile( step.environmentSubstitute( inputFields[ i ].getPath(), true ) ) );
+    }
+    rowPath = getRowPath( compiledPaths );
+    if ( rowPath == null ) {
+      throw new KettleException( "Unsupported JSON paths for streaming: " + String.join( ", ", paths ) );
+    }
+    for ( int i = 0; i < compiledPaths.size(); i++ ) {
+      Node node = fields;
+      for ( String name : compiledPaths.get( i ).subList( rowPath.size(), compiledPaths.get( i ).size() ) ) {
+        node = node.children.computeIfAbsent( name, key -> new Node() );
+      }
+      node.indexes.add( i );
+    }
+  }
+
+  /**
+   * @param defaultPathLeafToNull true if a leaf missing in a value is null, only then the rows can be read while parsing
+   * @return true if the paths of the fields can be read while parsing, unless that's turned off with {@link
+   * Const#KETTLE_JSON_INPUT_STREAMING} or in legacy mode
+   */
+  public static boolean isSupported( JsonInput step, JsonInputField[] inputFields, boolean defaultPathLeafToNull ) {
+    String streaming = Const.NVL( step.getVariable( Const.KETTLE_JSON_INPUT_STREAMING ), "Y" );
+    if ( !defaultPathLeafToNull || inputFields == null || inputFields.length == 0
+      || !ValueMetaBase.convertStringToBoolean( streaming )
+      || System.getProperty( Const.KETTLE_COMPATIBILITY_JSON_INPUT_LEGACY_MODE, "N" ).equals( "Y" ) ) {
+      return false;
+    }
+    List<List<String>> compiledPaths = new ArrayList<>();
+    for ( JsonInputField inputField : inputFields ) {
+      compiledPaths.add( compile( step.environmentSubstitute( inputField.getPath(), true ) ) );
+    }
+    return getRowPath( compiledPaths ) != null;
+  }
+
+  /**
+   * Compile a path made of names and wildcards: $.a.b, $['a'][*], $.a.*, a.b, $.['a']
+   *
+   * @return the segments of the path, null for a wildcard, or null if the path isn't supported
+   */
+  static List<String> compile( String path ) {
+    if ( path == null ) {
+      return null;
+    }
+    path = path.trim();
+    if ( !path.startsWith( "$" ) ) {
+      path = "$." + path;
+    }
+    List<String> segments = new ArrayList<>();
+    int i = 1;
+    while ( i < path.length() ) {
+      char c = path.charAt( i );
+      if ( path.startsWith( "[*]", i ) ) {
+        segments.add( null );
+        i += 3;
+      } else if ( c == '[' && ( path.startsWith( "'", i + 1 ) || path.startsWith( "\"", i + 1 ) ) ) {
+        char quote = path.charAt( i + 1 );
+        int end = path.indexOf( quote, i + 2 );
+        if ( end < 0 || !path.startsWith( "]", end + 1 ) ) {
+          return null;
+        }
+        String name = path.substring( i + 2, end );
+        if ( name.indexOf( '\\' ) >= 0 ) {
+          return null;
+        }
+        segments.add( name );
+        i = end + 2;
+      } else if ( c == '.' && path.startsWith( "[", i + 1 ) ) {
+        // $.['a'] is $['a']
+        i++;
+      } else if ( c == '.' && path.startsWith( "*", i + 1 ) ) {
+        segments.add( null );
+        i += 2;
+      } else if ( c == '.' ) {
+        int end = i + 1;
+        while ( end < path.length() && path.charAt( end ) != '.' && path.charAt( end ) != '[' ) {
+          end++;
+        }
+        String name = path.substring( i + 1, end );
+        if ( name.isEmpty() || !isSimpleName( name ) ) {
+          return null;
+        }
+        segments.add( name );
+        i = end;
+      } else {
+        // Indexes, slices, filters, functions...
+        return null;
+      }
+    }
+    return segments;
+  }
+
+  private static boolean isSimpleName( String name ) {
+    for ( int i = 0; i < name.length(); i++ ) {
+      char c = name.charAt( i );
+      if ( Character.isWhitespace( c ) || "*()?@$,:'\"\\]".indexOf( c ) >= 0 ) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return the part of the paths up to their last wildcard, which must be the same for all, or null if there's none
+   */
+  private static List<String> getRowPath( List<List<String>> compiledPaths ) {
+    List<String> rowPath = null;
+    for ( List<String> path : compiledPaths ) {
+      if ( path == null ) {
+        return null;
+      }
+      List<String> prefix = path.subList( 0, path.lastIndexOf( null ) + 1 );
+      if ( rowPath == null ) {
+        rowPath = prefix;
+      } else if ( !rowPath.equals( prefix ) ) {
+        return null;
+      }
+    }
+    return rowPath == null ? null : new ArrayList<>( rowPath );
+  }
+
+  @Override
+  public RowSet parse( InputStream in ) throws KettleException {
+    try {
+      return new StreamingRowSet( JSON_FACTORY.createParser( in ) );
+    } catch ( IOException e ) {
+      throw new KettleException( e );
+    }
+  }
+
+  @Override
+  public RowSet parse( byte[] bytes, int offset, int length ) throws KettleException {
+    try {
+      return new StreamingRowSet( JSON_FACTORY.createParser( bytes, offset, length ) );
+    } catch ( IOException e ) {
+      throw new KettleException( e );
+    }
+  }
+
+  @Override
+  public boolean isStreaming() {
+    return true;
+  }
+
+  /**
+   * The fields found under a name in a value of the rows.
+   */
+  private static class Node {
+    private final Map<String, Node> children = new LinkedHashMap<>();
+    private final List<Integer> indexes = new ArrayList<>();
+  }
+
+  /**
+   * A failure reading the rows of a document, thrown by {@link RowSet#getRow()}.
+   */
+  public static class ReadException extends RuntimeException {
+    public ReadException( JsonInputException cause ) {
+      super( cause );
+    }
+
+    @Override
+    public synchronized JsonInputException getCause() {
+      return (JsonInputException) super.getCause();
+    }
+  }
+
+  /**
+   * The rows of a document, read from the parser on demand. It closes the input once all the rows are read.
+   */
+  private class StreamingRowSet extends SingleRowRowSet implements Closeable {
+    private final JsonParser parser;
+    private final boolean[] found = new boolean[ paths.length ];
+
+    /**
+     * The rows read before a value was found for every path, unless missing paths are ignored.
+     */
+    private final Deque<Object[]> pending = new ArrayDeque<>();
+    private boolean allFound = ignoreMissingPath;
+
+    /**
+     * For each array or object being parsed on the path to the values of the rows, the segment of the path its
+     * children are matched with.
+     */
+    private final Deque<Integer> segments = new ArrayDeque<>();
+    private boolean started;
+    private boolean finished;
+    private long values;
+    private long rows;
+
+    StreamingRowSet( JsonParser parser ) {
+      this.parser = parser;
+    }
+
+    @Override
+    public Object[] getRow() {
+      if ( !pending.isEmpty() ) {
+        return pending.poll();
+      }
+      if ( finished ) {
+        return null;
+      }
+      try {
+        Object[] row;
+        while ( ( row = nextRow() ) != null ) {
+          if ( includeNulls || !isAllNull( row ) ) {
+            rows++;
+            if ( allFound ) {
+              return row;
+            }
+            // A path not found fails before any row, as with FastJsonReader
+            pending.add( row );
+            allFound = isAllFound();
+            if ( allFound ) {
+              return pending.poll();
+            }
+          }
+        }
+        close();
+        for ( int i = 0; i < paths.length; i++ ) {
+          if ( !found[ i ] && !ignoreMissingPath ) {
+            pending.clear();
+            throw new JsonInputException(
+              BaseMessages.getString( PKG, "JsonReader.Error.CanNotFindPath", paths[ i ] ) );
+          }
+        }
+        if ( log.isDetailed() ) {
+          log.logDetailed( BaseMessages.getString( PKG, "JsonInput.Log.NrRecords", Long.toString( values ) ) );
+        }
+        // Like a document without any value, a single value with nulls only gives a row of nulls
+        if ( rows == 0 && values <= 1 ) {
+          rows++;
+          return new Object[ paths.length ];
+        }
+        return null;
+      } catch ( IOException e ) {
+        pending.clear();
+        close();
+        throw new ReadException( new JsonInputException( e ) );
+      } catch ( JsonInputException e ) {
+        throw new ReadException( e );
+      }
+    }
+
+    /**
+     * Parse up to the next value of the rows, and read its fields.
+     *
+     * @return the values of the fields, or null at the end of the document
+     */
+    private Object[] nextRow() throws IOException {
+      if ( !started ) {
+        started = true;
+        JsonToken token = parser.nextToken();
+        if ( token == null ) {
+          return null;
+        }
+        if ( rowPath.isEmpty() ) {
+          return readRow();
+        }
+        if ( token.isStructStart() ) {
+          segments.push( 0 );
+        }
+      }
+      while ( !segments.isEmpty() ) {
+        int segment = segments.peek();
+        JsonToken token = parser.nextToken();
+        if ( token == null || token.isStructEnd() ) {
+          segments.pop();
+          continue;
+        }
+        String name = rowPath.get( segment );
+        boolean matches;
+        if ( token == JsonToken.FIELD_NAME ) {
+          matches = name == null || name.equals( parser.currentName() );
+          token = parser.nextToken();
+        } else {
+          // The elements of an array only match a wildcard
+          matches = name == null;
+        }
+        if ( !matches ) {
+          parser.skipChildren();
+        } else if ( segment + 1 == rowPath.size() ) {
+          return readRow();
+        } else if ( token.isStructStart() ) {
+          segments.push( segment + 1 );
+        }
+      }
+      return null;
+    }
+
+    private Object[] readRow() throws IOException {
+      values++;
+      Object[] row = new Object[ paths.length ];
+      readFields( fields, row );
+      for ( int i = 0; i < row.length; i++ ) {
+        found[ i ] |= row[ i ] != null;
+      }
+      return row;
+    }
+
+    /**
+     * Read the fields of the value the parser is at, skipping the rest of it.
+     */
+    private void readFields( Node node, Object[] row ) throws IOException {
+      if ( !node.indexes.isEmpty() ) {
+        Object value = readValue();
+        setFields( node, value, row );
+      } else if ( parser.currentToken() == JsonToken.START_OBJECT ) {
+        while ( parser.nextToken() == JsonToken.FIELD_NAME ) {
+          Node child = node.children.get( parser.currentName() );
+          parser.nextToken();
+          if ( child == null ) {
+            parser.skipChildren();
+          } else {
+            readFields( child, row );
+          }
+        }
+      } else {
+        parser.skipChildren();
+      }
+    }
+
+    /**
+     * Set the fields of a value already read, and those inside it.
+     */
+    private void setFields( Node node, Object value, Object[] row ) {
+      for ( int index : node.indexes ) {
+        row[ index ] = value;
+      }
+      if ( value instanceof Map ) {
+        for ( Map.Entry<String, Node> child : node.children.entrySet() ) {
+          setFields( child.getValue(), ( (Map<?, ?>) value ).get( child.getKey() ), row );
+        }
+      }
+    }
+
+    /**
+     * Read the value the parser is at, as it would be by {@link FastJsonReader}: objects as maps, arrays as lists.
+     */
+    private Object readValue() throws IOException {
+      JsonToken token = parser.currentToken();
+      if ( token == null ) {
+        return null;
+      }
+      switch ( token ) {
+        case START_OBJECT:
+          Map<String, Object> object = new LinkedHashMap<>();
+          while ( parser.nextToken() == JsonToken.FIELD_NAME ) {
+            String name = parser.currentName();
+            parser.nextToken();
+            object.put( name, readValue() );
+          }
+          return object;
+        case START_ARRAY:
+          JSONArray array = new JSONArray();
+          while ( parser.nextToken() != JsonToken.END_ARRAY ) {
+            array.add( readValue() );
+          }
+          return array;
+        case VALUE_STRING:
+          return parser.getText();
+        case VALUE_NUMBER_INT:
+          return parser.getNumberValue();
+        case VALUE_NUMBER_FLOAT:
+          // Long numbers keep their precision, as with json-smart
+          return parser.getTextLength() > 18 ? parser.getDecimalValue() : parser.getDoubleValue();
+        case VALUE_TRUE:
+          return Boolean.TRUE;
+        case VALUE_FALSE:
+          return Boolean.FALSE;
+        default:
+          return null;
+      }
+    }
+
+    private boolean isAllFound() {
+      for ( boolean pathFound : found ) {
+        if ( !pathFound ) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private boolean isAllNull( Object[] row ) {
+      for ( Object value : row ) {
+        if ( value != null ) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public int size() {
+      return finished ? pending.size() : pending.size() + 1;
+    }
+
+    @Override
+    public boolean isDone() {
+      return true;
+    }
+
+    @Override
+    public void clear() {
+      pending.clear();
+      close();
+    }
+
+    @Override
+    public void close() {
+      if ( !finished ) {
+        finished = true;
+        try {
+          parser.close();
+        } catch ( IOException e ) {
+          if ( log.isDebug() ) {
+            log.logDebug( e.getLocalizedMessage(), e );
+          }
+        }
+      }
+    }
+  }
+}
@@ -137,6 +137,11 @@ public class JsonInputDialog extends BaseStepDialog implements StepDialogInterfa
   // include null values
   private Button wIncludeNulls;
 
+  private Button wJsonLines;
+
+  private Label wlRunningInParallel;
+  private Button wRunningInParallel;
+
   // do not fail if no files?
   private Button wdoNotFailIfNoFile;
 
@@ -608,13 +613,63 @@ public class JsonInputDialog extends BaseStepDialog implements StepDialogInterfa
     wIncludeNulls.setLayoutData( fdIncludeNulls );
     // Include nulls - end
 
+    Label wlJsonLines = new Label( wConf, SWT.RIGHT );
+    wlJsonLines.setText( BaseMessages.getString( PKG, "JsonInputDialog.JsonLines.Label" ) );
+    props.setLook( wlJsonLines );
+
+    FormData fdlJsonLines = new FormData();
+    fdlJsonLines.left = new FormAttachment( 0, 0 );
+    fdlJsonLines.top = new FormAttachment( wIncludeNulls, margin );
+    fdlJsonLines.right = new FormAttachment( middle, -margin );
+    wlJsonLines.setLayoutData( fdlJsonLines );
+    wJsonLines = new Button( wConf, SWT.CHECK );
+    props.setLook( wJsonLines );
+    wJsonLines.addSelectionListener( new SelectionAdapter() {
+      @Override
+      public void widgetSelected( SelectionEvent e ) {
+        input.setChanged();
+        activeRunningInParallel();
+      }
+    } );
+    wJsonLines.setToolTipText( BaseMessages.getString( PKG, "JsonInputDialog.JsonLines.Tooltip" ) );
+
+    FormData fdJsonLines = new FormData();
+    fdJsonLines.left = new FormAttachment( middle, 0 );
+    fdJsonLines.top = new FormAttachment( wIncludeNulls, margin );
+    wJsonLines.setLayoutData( fdJsonLines );
+
+    wlRunningInParallel = new Label( wConf, SWT.RIGHT );
+    wlRunningInParallel.setText( BaseMessages.getString( PKG, "JsonInputDialog.RunningInParallel.Label" ) );
+    props.setLook( wlRunningInParallel );
+
+    FormData fdlRunningInParallel = new FormData();
+    fdlRunningInParallel.left = new FormAttachment( 0, 0 );
+    fdlRunningInParallel.top = new FormAttachment( wJsonLines, margin );
+    fdlRunningInParallel.right = new FormAttachment( middle, -margin );
+    wlRunningInParallel.setLayoutData( fdlRunningInParallel );
+    wRunningInParallel = new Button( wConf, SWT.CHECK );
+    props.setLook( wRunningInParallel );
+    wRunningInParallel.addSelectionListener( new SelectionAdapter() {
+      @Override
+      public void widgetSelected( SelectionEvent e ) {
+        input.setChanged();
+      }
+    } );
+    wRunningInParallel.setToolTipText( BaseMessages.getString( PKG, "JsonInputDialog.RunningInParallel.Tooltip" ) );
+
+    FormData fdRunningInParallel = new FormData();
+    fdRunningInParallel.left = new FormAttachment( middle, 0 );
+    fdRunningInParallel.top = new FormAttachment( wJsonLines, margin );
+    wRunningInParallel.setLayoutData( fdRunningInParallel );
+    // JSON lines - end
+
     wlLimit = new Label( wConf, SWT.RIGHT );
     wlLimit.setText( BaseMessages.getString( PKG, "JsonInputDialog.Limit.Label" ) );
     props.setLook( wlLimit );
 
     FormData fdlLimit = new FormData();
     fdlLimit.left = new FormAttachment( 0, 0 );
-    fdlLimit.top = new FormAttachment( wIncludeNulls, margin );
+    fdlLimit.top = new FormAttachment( wRunningInParallel, margin );
     fdlLimit.right = new FormAttachment( middle, -margin );
     wlLimit.setLayoutData( fdlLimit );
     wLimit = new Text( wConf, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
@@ -623,7 +678,7 @@ public class JsonInputDialog extends BaseStepDialog implements StepDialogInterfa
 
     FormData fdLimit = new FormData();
     fdLimit.left = new FormAttachment( middle, 0 );
-    fdLimit.top = new FormAttachment( wIncludeNulls, margin );
+    fdLimit.top = new FormAttachment( wRunningInParallel, margin );
     fdLimit.right = new FormAttachment( 100, 0 );
     wLimit.setLayoutData( fdLimit );
 
@@ -1201,6 +1256,13 @@ public class JsonInputDialog extends BaseStepDialog implements StepDialogInterfa
     wLimit.setEnabled( !wSourceStreamField.getSelection() );
     wlLimit.setEnabled( !wSourceStreamField.getSelection() );
     wPreview.setEnabled( !wSourceStreamField.getSelection() );
+    activeRunningInParallel();
+  }
+
+  private void activeRunningInParallel() {
+    boolean enabled = wJsonLines.getSelection() && !wSourceStreamField.getSelection();
+    wlRunningInParallel.setEnabled( enabled );
+    wRunningInParallel.setEnabled( enabled );
   }
 
   private void setCompositeEnabled( Composite comp, boolean enabled ) {
@@ -1251,6 +1313,8 @@ public class JsonInputDialog extends BaseStepDialog implements StepDialogInterfa
     wIgnoreMissingPath.setSelection( in.isIgnoreMissingPath() );
     wDefaultPathLeafToNull.setSelection( in.isDefaultPathLeafToNull() );
     wIncludeNulls.setSelection( in.isIncludeNulls() || JsonInputMeta.getIncludeNullsProperty() );
+    wJsonLines.setSelection( in.isJsonLines() );
+    wRunningInParallel.setSelection( in.isRunningInParallel() );
     wremoveSourceField.setSelection( in.isRemoveSourceField() );
     wSourceStreamField.setSelection( in.isInFields() );
     wSourceIsAFile.setSelection( in.getIsAFile() );
@@ -1393,6 +1457,8 @@ public class JsonInputDialog extends BaseStepDialog implements StepDialogInterfa
     in.setIgnoreMissingPath( wIgnoreMissingPath.getSelection() );
     in.setDefaultPathLeafToNull( wDefaultPathLeafToNull.getSelection() );
     in.setIncludeNulls( wIncludeNulls.getSelection() );
+    in.setJsonLines( wJsonLines.getSelection() );
+    in.setRunningInParallel( wRunningInParallel.getSelection() );
     in.setRemoveSourceField( wremoveSourceField.getSelection() );
     in.setInFields( wSourceStreamField.getSelection() );
     in.setIsAFile( wSourceIsAFile.getSelection() );
@@ -78,6 +78,16 @@ public class JsonInputMetaInjectionTest extends BaseMetadataInjectionTest<JsonIn
         return meta.isIgnoreMissingPath();
       }
     } );
+    check( "JSON_LINES", new BooleanGetter() {
+      public boolean get() {
+        return meta.isJsonLines();
+      }
+    } );
+    check( "RUNNING_IN_PARALLEL", new BooleanGetter() {
+      public boolean get() {
+        return meta.isRunningInParallel();
+      }
+    } );
     check( "READ_SOURCE_AS_URL", new BooleanGetter() {
       public boolean get() {
         return meta.isReadUrl();
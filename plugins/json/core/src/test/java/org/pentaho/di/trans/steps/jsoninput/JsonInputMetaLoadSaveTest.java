@@ -42,7 +42,8 @@ public class JsonInputMetaLoadSaveTest implements InitializerInterface<StepMetaI
       "ReadUrl", "removeSourceField", "IgnoreEmptyFile", "doNotFailIfNoFile", "ignoreMissingPath", "defaultPathLeafToNull", "rowNumberField",
       "FileName", "FileMask", "ExcludeFileMask", "FileRequired", "IncludeSubFolders", "InputFields", "rowLimit",
       "inFields", "isAFile", "FieldValue", "ShortFileNameField", "PathField", "HiddenField",
-      "LastModificationDateField", "UriField", "UriField", "ExtensionField", "SizeField" );
+      "LastModificationDateField", "UriField", "UriField", "ExtensionField", "SizeField", "jsonLines",
+      "runningInParallel" );
 
     Map<String, String> getterMap = new HashMap<String, String>();
     Map<String, String> setterMap = new HashMap<String, String>();
@@ -1162,6 +1162,35 @@ public class JsonInputTest {
     Assert.assertEquals( "rows written", 1, jsonInput.getLinesWritten() );
   }
 
+  @Test
+  public void testErrorRedirectOfAJsonLine() throws Exception {
+    JsonInputField field = new JsonInputField( "value" );
+    field.setPath( "$.value" );
+    field.setType( ValueMetaInterface.TYPE_STRING );
+
+    String input = "{ \"value\": \"a\" }\n{{\n{ \"value\": \"c\" }\n";
+
+    JsonInputMeta meta = createSimpleMeta( "json", field );
+    meta.setRemoveSourceField( true );
+    meta.setJsonLines( true );
+    when( helper.stepMeta.isDoingErrorHandling() ).thenReturn( true );
+    JsonInput jsonInput = createJsonInput( "json", meta, new Object[] { input } );
+    StepErrorMeta errMeta = new StepErrorMeta( jsonInput, helper.stepMeta );
+    errMeta.setEnabled( true );
+    errMeta.setErrorFieldsValuename( "err field" );
+    when( helper.stepMeta.getStepErrorMeta() ).thenReturn( errMeta );
+    final List<Object[]> errorLines = new ArrayList<>();
+    jsonInput.addRowListener( new RowComparatorListener( new Object[] { "a" }, new Object[] { "c" } ) {
+      @Override
+      public void errorRowWrittenEvent( RowMetaInterface rowMeta, Object[] row ) throws KettleStepException {
+        errorLines.add( row );
+      }
+    } );
+    processRows( jsonInput, 5 );
+    Assert.assertEquals( "fwd error", 1, errorLines.size() );
+    Assert.assertEquals( "rows written after the bad line", 2, jsonInput.getLinesWritten() );
+  }
+
   @Test
   public void testUrlInput() throws Exception {
     JsonInputField field = new JsonInputField( "value" );
@@ -0,0 +1,124 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.jsoninput.reader;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.di.core.RowSet;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.logging.LogChannelInterface;
+import org.pentaho.di.trans.steps.jsoninput.JsonInput;
+import org.pentaho.di.trans.steps.jsoninput.JsonInputField;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class JsonLinesReaderTest {
+  private final LogChannelInterface logMock = mock( LogChannelInterface.class );
+  private JsonInput step;
+
+  @Before
+  public void setUp() {
+    step = mock( JsonInput.class );
+    when( step.environmentSubstitute( anyString(), eq( true ) ) )
+      .thenAnswer( invocation -> invocation.getArgument( 0 ) );
+  }
+
+  private JsonLinesReader createReader( String... paths ) throws KettleException {
+    JsonInputField[] fields = new JsonInputField[ paths.length ];
+    for ( int i = 0; i < paths.length; i++ ) {
+      fields[ i ] = new JsonInputField( "field" + i );
+      fields[ i ].setPath( paths[ i ] );
+    }
+    return new JsonLinesReader( new StreamingJsonReader( step, fields, true, false, logMock ) );
+  }
+
+  private static RowSet parse( JsonLinesReader reader, String json ) throws KettleException {
+    return reader.parse( new ByteArrayInputStream( json.getBytes( StandardCharsets.UTF_8 ) ) );
+  }
+
+  private static List<Object[]> readAll( RowSet rowSet ) {
+    List<Object[]> rows = new ArrayList<>();
+    Object[] row;
+    while ( ( row = rowSet.getRow() ) != null ) {
+      rows.add( row );
+    }
+    return rows;
+  }
+
+  @Test
+  public void testRowsOfEachLine() throws Exception {
+    JsonLinesReader reader = createReader( "$.id", "$.name" );
+    List<Object[]> rows =
+      readAll( parse( reader, "{\"id\":1,\"name\":\"a\"}\r\n\n  \n{\"id\":2}\n{\"name\":\"c\",\"id\":3}" ) );
+
+    assertTrue( reader.isStreaming() );
+    assertEquals( 3, rows.size() );
+    assertArrayEquals( new Object[] { 1, "a" }, rows.get( 0 ) );
+    assertArrayEquals( new Object[] { 2, null }, rows.get( 1 ) );
+    assertArrayEquals( new Object[] { 3, "c" }, rows.get( 2 ) );
+  }
+
+  @Test
+  public void testSeveralRowsPerLine() throws Exception {
+    List<Object[]> rows = readAll( parse( createReader( "$.items[*].v" ), "{\"items\":[{\"v\":1},{\"v\":2}]}\n"
+      + "{\"items\":[{\"v\":3}]}\n" ) );
+
+    assertEquals( 3, rows.size() );
+    assertArrayEquals( new Object[] { 3 }, rows.get( 2 ) );
+  }
+
+  @Test
+  public void testLinesLongerThanTheBuffer() throws Exception {
+    StringBuilder value = new StringBuilder();
+    while ( value.length() < 200000 ) {
+      value.append( "0123456789" );
+    }
+    StringBuilder json = new StringBuilder();
+    for ( int i = 0; i < 3; i++ ) {
+      json.append( "{\"id\":" ).append( i ).append( ",\"value\":\"" ).append( value ).append( "\"}\n" );
+    }
+    List<Object[]> rows = readAll( parse( createReader( "$.id", "$.value" ), json.toString() ) );
+
+    assertEquals( 3, rows.size() );
+    assertArrayEquals( new Object[] { 2, value.toString() }, rows.get( 2 ) );
+  }
+
+  @Test
+  public void testErrorGivesLineNumberAndGoesOnWithTheNextLine() throws Exception {
+    RowSet rowSet = parse( createReader( "$.id" ), "{\"id\":1}\n{\"id\":\n{\"id\":3}\n" );
+
+    assertArrayEquals( new Object[] { 1 }, rowSet.getRow() );
+    try {
+      rowSet.getRow();
+      fail( "The second line is invalid" );
+    } catch ( JsonLinesReader.LineException e ) {
+      assertTrue( e.getCause().getMessage(), e.getCause().getMessage().contains( "[2]" ) );
+    }
+    assertArrayEquals( new Object[] { 3 }, rowSet.getRow() );
+    assertNull( rowSet.getRow() );
+  }
+}
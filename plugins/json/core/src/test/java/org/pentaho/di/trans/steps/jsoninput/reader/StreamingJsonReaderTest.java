@@ -0,0 +1,237 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.jsoninput.reader;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.di.core.RowSet;
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.logging.LogChannelInterface;
+import org.pentaho.di.trans.steps.jsoninput.JsonInput;
+import org.pentaho.di.trans.steps.jsoninput.JsonInputField;
+import org.pentaho.di.trans.steps.jsoninput.exception.JsonInputException;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class StreamingJsonReaderTest {
+  private static final String STORE = "{ \"store\": { \"book\": [ "
+    + "{ \"author\": \"Nigel Rees\", \"price\": 8.95 }, "
+    + "{ \"author\": \"Herman Melville\", \"isbn\": \"0-553-21311-3\", \"price\": 8 } ], "
+    + "\"bicycle\": { \"color\": \"red\", \"price\": 19.95 } } }";
+
+  private final LogChannelInterface logMock = mock( LogChannelInterface.class );
+  private JsonInput step;
+
+  @Before
+  public void setUp() {
+    step = mock( JsonInput.class );
+    when( step.environmentSubstitute( anyString(), eq( true ) ) )
+      .thenAnswer( invocation -> invocation.getArgument( 0 ) );
+  }
+
+  private static JsonInputField[] fields( String... paths ) {
+    JsonInputField[] fields = new JsonInputField[ paths.length ];
+    for ( int i = 0; i < paths.length; i++ ) {
+      fields[ i ] = new JsonInputField( "field" + i );
+      fields[ i ].setPath( paths[ i ] );
+    }
+    return fields;
+  }
+
+  private List<Object[]> read( String json, boolean ignoreMissingPath, boolean includeNulls, String... paths )
+    throws KettleException {
+    StreamingJsonReader reader = new StreamingJsonReader( step, fields( paths ), ignoreMissingPath, includeNulls,
+      logMock );
+    RowSet rowSet = reader.parse( new ByteArrayInputStream( json.getBytes( StandardCharsets.UTF_8 ) ) );
+    List<Object[]> rows = new ArrayList<>();
+    Object[] row;
+    while ( ( row = rowSet.getRow() ) != null ) {
+      rows.add( row );
+    }
+    return rows;
+  }
+
+  @Test
+  public void testCompile() {
+    assertEquals( Arrays.asList( "a", null, "b c" ), StreamingJsonReader.compile( "$.a[*]['b c']" ) );
+    assertEquals( Arrays.asList( "a", null, "b" ), StreamingJsonReader.compile( " a.*.b " ) );
+    assertEquals( Arrays.asList( "a", "b" ), StreamingJsonReader.compile( "$.['a'][\"b\"]" ) );
+    assertNull( StreamingJsonReader.compile( "$..a" ) );
+    assertNull( StreamingJsonReader.compile( "$.a[0]" ) );
+    assertNull( StreamingJsonReader.compile( "$.a[?(@.b)]" ) );
+    assertNull( StreamingJsonReader.compile( "$.a.length()" ) );
+  }
+
+  @Test
+  public void testIsSupported() {
+    assertTrue( StreamingJsonReader.isSupported( step, fields( "$.a[*].b", "$.a[*].c.d" ), true ) );
+    assertTrue( StreamingJsonReader.isSupported( step, fields( "$.a", "$.b.c" ), true ) );
+    assertFalse( StreamingJsonReader.isSupported( step, fields( "$.a[*].b", "$.c[*].d" ), true ) );
+    assertFalse( StreamingJsonReader.isSupported( step, fields( "$..book[*].price" ), true ) );
+    assertFalse( StreamingJsonReader.isSupported( step, fields(), true ) );
+    // Without a default, a missing leaf fails the document
+    assertFalse( StreamingJsonReader.isSupported( step, fields( "$.a[*].b" ), false ) );
+
+    when( step.getVariable( "KETTLE_JSON_INPUT_STREAMING" ) ).thenReturn( "N" );
+    assertFalse( StreamingJsonReader.isSupported( step, fields( "$.a[*].b" ), true ) );
+  }
+
+  @Test
+  public void testRowPerElement() throws Exception {
+    List<Object[]> rows = read( STORE, true, true, "$.store.book[*].author", "$.store.book[*].isbn",
+      "['store'].book[*].price" );
+
+    assertEquals( 2, rows.size() );
+    assertArrayEquals( new Object[] { "Nigel Rees", null, 8.95 }, rows.get( 0 ) );
+    assertArrayEquals( new Object[] { "Herman Melville", "0-553-21311-3", 8 }, rows.get( 1 ) );
+  }
+
+  @Test
+  public void testWildcardOverObject() throws Exception {
+    List<Object[]> rows = read( STORE, false, false, "$.store.bicycle[*]" );
+
+    assertEquals( 2, rows.size() );
+    assertArrayEquals( new Object[] { "red" }, rows.get( 0 ) );
+    assertArrayEquals( new Object[] { 19.95 }, rows.get( 1 ) );
+  }
+
+  @Test
+  public void testObjectsAndArraysAreRead() throws Exception {
+    List<Object[]> rows = read( STORE, false, false, "$.store.bicycle", "$.store.book" );
+
+    assertEquals( 1, rows.size() );
+    assertEquals( "{color=red, price=19.95}", rows.get( 0 )[ 0 ].toString() );
+    assertTrue( rows.get( 0 )[ 0 ] instanceof Map );
+    assertEquals( 2, ( (List<?>) rows.get( 0 )[ 1 ] ).size() );
+  }
+
+  @Test
+  public void testNullRowsAreSkipped() throws Exception {
+    List<Object[]> rows = read( STORE, true, false, "$.store.book[*].isbn" );
+
+    assertEquals( 1, rows.size() );
+    assertArrayEquals( new Object[] { "0-553-21311-3" }, rows.get( 0 ) );
+  }
+
+  @Test
+  public void testPermissiveSyntax() throws Exception {
+    List<Object[]> rows = read( "{ value1: '1', // comment\n \"value2\": 2, }", true, false, "$.value1", "$.value2",
+      "$.missing.value3" );
+
+    assertEquals( 1, rows.size() );
+    assertArrayEquals( new Object[] { "1", 2, null }, rows.get( 0 ) );
+  }
+
+  @Test
+  public void testEmptyDocumentGivesNullRow() throws Exception {
+    List<Object[]> rows = read( "{}", true, false, "$.value1", "$.value2" );
+
+    assertEquals( 1, rows.size() );
+    assertArrayEquals( new Object[ 2 ], rows.get( 0 ) );
+  }
+
+  @Test
+  public void testMissingPath() throws Exception {
+    RowSet rowSet = new StreamingJsonReader( step, fields( "$.store.book[*].title" ), false, false, logMock )
+      .parse( new ByteArrayInputStream( STORE.getBytes( StandardCharsets.UTF_8 ) ) );
+    try {
+      rowSet.getRow();
+      fail( "No row should be found" );
+    } catch ( StreamingJsonReader.ReadException e ) {
+      assertTrue( e.getCause().getMessage().contains( "$.store.book[*].title" ) );
+    }
+    assertNull( rowSet.getRow() );
+  }
+
+  @Test
+  public void testMissingLeafAsFastJsonReader() throws Exception {
+    String[] paths = { "$.store.book[*].author", "$.store.book[*].isbn", "$.store.book[*].price" };
+    List<Object[]> rows = read( STORE, false, true, paths );
+
+    RowSet rowSet = new FastJsonReader( step, fields( paths ), true, false, true, logMock )
+      .parse( new ByteArrayInputStream( STORE.getBytes( StandardCharsets.UTF_8 ) ) );
+    List<Object[]> expected = new ArrayList<>();
+    Object[] row;
+    while ( ( row = rowSet.getRow() ) != null ) {
+      expected.add( row );
+    }
+    assertEquals( 2, rows.size() );
+    assertEquals( expected.size(), rows.size() );
+    for ( int i = 0; i < expected.size(); i++ ) {
+      assertArrayEquals( expected.get( i ), rows.get( i ) );
+    }
+
+    // Without a default the missing isbn fails the document, the rows aren't read while parsing then
+    try {
+      new FastJsonReader( step, fields( paths ), false, false, true, logMock )
+        .parse( new ByteArrayInputStream( STORE.getBytes( StandardCharsets.UTF_8 ) ) );
+      fail( "The isbn is missing in a book" );
+    } catch ( JsonInputException e ) {
+      assertFalse( StreamingJsonReader.isSupported( step, fields( paths ), false ) );
+    }
+  }
+
+  @Test
+  public void testMissingPathFailsBeforeAnyRow() throws Exception {
+    RowSet rowSet = new StreamingJsonReader( step, fields( "$.store.book[*].author", "$.store.book[*].title" ), false,
+      false, logMock ).parse( new ByteArrayInputStream( STORE.getBytes( StandardCharsets.UTF_8 ) ) );
+    try {
+      rowSet.getRow();
+      fail( "No row should be returned" );
+    } catch ( StreamingJsonReader.ReadException e ) {
+      assertTrue( e.getCause().getMessage().contains( "$.store.book[*].title" ) );
+    }
+    assertNull( rowSet.getRow() );
+  }
+
+  @Test
+  public void testRowsHeldBackUntilAllPathsFound() throws Exception {
+    List<Object[]> rows = read( STORE, false, false, "$.store.book[*].author", "$.store.book[*].isbn" );
+
+    assertEquals( 2, rows.size() );
+    assertArrayEquals( new Object[] { "Nigel Rees", null }, rows.get( 0 ) );
+    assertArrayEquals( new Object[] { "Herman Melville", "0-553-21311-3" }, rows.get( 1 ) );
+  }
+
+  @Test
+  public void testParseErrorAfterRows() throws Exception {
+    RowSet rowSet = new StreamingJsonReader( step, fields( "$.a[*]" ), true, false, logMock )
+      .parse( new ByteArrayInputStream( "{ \"a\": [ 1, 2, ".getBytes( StandardCharsets.UTF_8 ) ) );
+
+    assertArrayEquals( new Object[] { 1 }, rowSet.getRow() );
+    assertArrayEquals( new Object[] { 2 }, rowSet.getRow() );
+    try {
+      rowSet.getRow();
+      fail( "The document is truncated" );
+    } catch ( StreamingJsonReader.ReadException e ) {
+      assertTrue( e.getCause() instanceof JsonInputException );
+    }
+  }
+}
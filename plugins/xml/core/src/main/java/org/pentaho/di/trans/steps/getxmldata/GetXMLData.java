@@ -594,6 +594,16 @@ public class GetXMLData extends BaseStep implements StepInterface {
           logDetailed( BaseMessages.getString( PKG, "GetXMLData.Log.OpeningFile", data.file.toString() ) );
         }
 
+        if ( data.streamingReader != null ) {
+          // Read the rows while parsing the file
+          data.streamingRows = data.streamingReader.open( KettleVFS.getInputStream( data.file ), meta.getEncoding() );
+          addFileToResultFilesname( data.file );
+          if ( log.isDetailed() ) {
+            logDetailed( BaseMessages.getString( PKG, "GetXMLData.Log.FileOpened", data.file.toString() ) );
+          }
+          return true;
+        }
+
         // Open the XML document
         if ( !setDocument( null, data.file, false, false ) ) {
           if ( data.stopPruning ) {
@@ -683,6 +693,9 @@ public class GetXMLData extends BaseStep implements StepInterface {
 
   private Object[] getXMLRow() throws KettleException {
 
+    if ( data.streamingReader != null ) {
+      return getStreamingXMLRow();
+    }
     if ( !meta.isInFields() ) {
       while ( ( data.nodenr >= data.nodesize || data.file == null ) ) {
         if ( !openNextFile() ) {
@@ -694,6 +707,30 @@ public class GetXMLData extends BaseStep implements StepInterface {
     return getXMLRowPutRowWithErrorhandling();
   }
 
+  /**
+   * Read the next row of the files while parsing them, without building their documents.
+   */
+  private Object[] getStreamingXMLRow() throws KettleException {
+    data.errorInRowButContinue = false;
+    while ( true ) {
+      if ( data.streamingRows != null ) {
+        String[] values;
+        try {
+          values = data.streamingRows.next();
+        } catch ( Exception e ) {
+          throw new KettleException( BaseMessages.getString( PKG, "GetXMLData.Error.UnableReadFile" ), e );
+        }
+        if ( values != null ) {
+          return processPutRow( null, values );
+        }
+        data.streamingRows = null;
+      }
+      if ( !openNextFile() ) {
+        return null;
+      }
+    }
+  }
+
   private Object[] getXMLRowPutRowWithErrorhandling() throws KettleException {
     // Build an empty row based on the meta-data
     Object[] r;
@@ -710,7 +747,7 @@ public class GetXMLData extends BaseStep implements StepInterface {
         }
       }
 
-      r = processPutRow( data.an.get( data.nodenr ) );
+      r = processPutRow( data.an.get( data.nodenr ), null );
     } catch ( Exception e ) {
       throw new KettleException( BaseMessages.getString( PKG, "GetXMLData.Error.UnableReadFile" ), e );
     }
@@ -718,7 +755,10 @@ public class GetXMLData extends BaseStep implements StepInterface {
     return r;
   }
 
-  private Object[] processPutRow( Node node ) throws KettleException {
+  /**
+   * Build the output row of a loop node, with the values of its fields when they were read while parsing.
+   */
+  private Object[] processPutRow( Node node, String[] values ) throws KettleException {
     // Create new row...
     Object[] outputRowData = buildEmptyRow();
 
@@ -753,8 +793,10 @@ public class GetXMLData extends BaseStep implements StepInterface {
         Boolean xmlMissingTagYieldsNullValue = convertStringToBoolean(
           Const.NVL( System.getProperty( Const.KETTLE_XML_MISSING_TAG_YIELDS_NULL_VALUE, "N" ), "N" ) );
 
-        // Handle namespaces
-        if ( meta.isNamespaceAware() ) {
+        if ( values != null ) {
+          nodevalue = values[i];
+        } else if ( meta.isNamespaceAware() ) {
+          // Handle namespaces
           XPath xpathField = node.createXPath( addNSPrefix( XPathValue, data.PathValue ) );
           xpathField.setNamespaceURIs( data.NAMESPACE );
           if ( xmlDataField.getResultType() == GetXMLDataField.RESULT_TYPE_VALUE_OF ) {
@@ -986,11 +1028,43 @@ public class GetXMLData extends BaseStep implements StepInterface {
         }
       }
 
+      data.streamingReader = createStreamingReader();
+      if ( data.streamingReader != null ) {
+        // no document to prune
+        data.prunePath = null;
+        if ( log.isDetailed() ) {
+          logDetailed( BaseMessages.getString( PKG, "GetXMLData.Log.StAXStreamingMode.Activated" ) );
+        }
+      }
+
       return true;
     }
     return false;
   }
 
+  /**
+   * The files are read while parsing them when the paths of the loop and of the fields are simple enough, and the
+   * fields take the text of their nodes. The rows before an error in a file are then passed on before the step fails.
+   *
+   * @return the reader of the rows, or null to build the documents
+   */
+  private StreamingXMLReader createStreamingReader() {
+    if ( !convertStringToBoolean( Const.NVL( getVariable( Const.KETTLE_GET_XML_DATA_STREAMING ), "Y" ) )
+      || meta.isInFields() || meta.isValidating() || meta.isNamespaceAware() || meta.isuseToken() ) {
+      return null;
+    }
+    String[] fieldPaths = new String[data.nrInputFields];
+    for ( int i = 0; i < data.nrInputFields; i++ ) {
+      GetXMLDataField xmlDataField = meta.getInputFields()[i];
+      if ( xmlDataField.getResultType() != GetXMLDataField.RESULT_TYPE_VALUE_OF ) {
+        return null;
+      }
+      fieldPaths[i] = xmlDataField.getResolvedXPath();
+    }
+    return StreamingXMLReader.create( data.PathValue, fieldPaths, convertStringToBoolean(
+      Const.NVL( System.getProperty( Const.KETTLE_XML_MISSING_TAG_YIELDS_NULL_VALUE, "N" ), "N" ) ) );
+  }
+
   public void dispose( StepMetaInterface smi, StepDataInterface sdi ) {
     meta = (GetXMLDataMeta) smi;
     data = (GetXMLDataData) sdi;
@@ -1019,6 +1093,10 @@ public class GetXMLData extends BaseStep implements StepInterface {
     if ( data.document != null ) {
       data.document = null;
     }
+    if ( data.streamingRows != null ) {
+      data.streamingRows.close();
+      data.streamingRows = null;
+    }
     if ( data.fr != null ) {
       BaseStep.closeQuietly( data.fr );
     }
@@ -82,6 +82,8 @@ public class GetXMLDataData extends BaseStepData implements StepDataInterface {
   public FileInputStream fr;
   public BufferedInputStream is;
   public Document document;
+  public StreamingXMLReader streamingReader; // reads the rows while parsing the files, null when not possible
+  public StreamingXMLReader.Rows streamingRows;
   public String itemElement;
   public int itemCount;
   public int itemPosition;
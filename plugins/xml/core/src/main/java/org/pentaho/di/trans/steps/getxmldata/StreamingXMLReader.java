@@ -0,0 +1,520 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.getxmldata;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.List;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.pentaho.di.core.exception.KettleException;
+import org.pentaho.di.core.util.Utils;
+import org.pentaho.di.core.xml.XMLParserFactoryProducer;
+import org.pentaho.di.trans.step.BaseStep;
+
+/**
+ * Reads the rows of an XML document while parsing it with StAX, without building the document: only the values of the
+ * fields of the loop nodes being read are kept.
+ * <p>
+ * It reads paths in a subset of XPath, compiled in state machines run on the elements being parsed:
+ * <ul>
+ * <li>the loop path is absolute, made of child (/) and descendant (//) steps, naming an element or any (*), each with
+ * attribute predicates ([@a] or [@a='v'])</li>
+ * <li>the paths of the fields are relative to the loop node, made of the same steps, and may end with an attribute
+ * (@a). "." is the loop node itself.</li>
+ * </ul>
+ * As with XPath, the value of a field is the text of the first element found, or the value of the first attribute
+ * found, in document order. The names are matched without namespace.
+ * <p>
+ * Unlike a document built before reading it, a malformed document only fails once the parser gets to the error: the
+ * rows before it are already returned, as with a prune path.
+ *
+ * @since 11.1
+ */
+public class StreamingXMLReader {
+  private static final char[] NAME_CHARACTERS = { '_', '-', '.' };
+
+  private final Step[] loop;
+  private final Path[] fields;
+  private final boolean missingYieldsNull;
+
+  /** For each state of the machine of the fields, the index of its field and of the step it is about to match */
+  private final int[] stateFields;
+  private final int[] stateSteps;
+  private final int[] fieldStates;
+
+  private StreamingXMLReader( Path loopPath, Path[] fields, boolean missingYieldsNull ) {
+    this.loop = loopPath.steps;
+    this.fields = fields;
+    this.missingYieldsNull = missingYieldsNull;
+
+    int states = 0;
+    fieldStates = new int[ fields.length ];
+    for ( int i = 0; i < fields.length; i++ ) {
+      fieldStates[ i ] = states;
+      states += fields[ i ].steps.length;
+    }
+    stateFields = new int[ states ];
+    stateSteps = new int[ states ];
+    for ( int i = 0; i < fields.length; i++ ) {
+      for ( int j = 0; j < fields[ i ].steps.length; j++ ) {
+        stateFields[ fieldStates[ i ] + j ] = i;
+        stateSteps[ fieldStates[ i ] + j ] = j;
+      }
+    }
+  }
+
+  /**
+   * @param loopPath          the absolute path of the loop nodes
+   * @param fieldPaths        the paths of the fields, relative to the loop nodes
+   * @param missingYieldsNull true to give null to the fields not found, an empty string otherwise
+   * @return the reader of the rows, or null if one of the paths is not supported
+   */
+  public static StreamingXMLReader create( String loopPath, String[] fieldPaths, boolean missingYieldsNull ) {
+    Path loopSteps = compile( loopPath, true );
+    if ( loopSteps == null ) {
+      return null;
+    }
+    Path[] fields = new Path[ fieldPaths.length ];
+    for ( int i = 0; i < fieldPaths.length; i++ ) {
+      fields[ i ] = compile( fieldPaths[ i ], false );
+      if ( fields[ i ] == null ) {
+        return null;
+      }
+    }
+    return new StreamingXMLReader( loopSteps, fields, missingYieldsNull );
+  }
+
+  /**
+   * @return the steps of the path, or null if it is not supported
+   */
+  static Path compile( String xpath, boolean loop ) {
+    if ( Utils.isEmpty( xpath ) ) {
+      return null;
+    }
+    String path = xpath.trim();
+    if ( loop != path.startsWith( "/" ) ) {
+      return null;
+    }
+    if ( !loop ) {
+      if ( path.equals( "." ) ) {
+        return new Path( new Step[ 0 ], null );
+      }
+      path = path.startsWith( "./" ) ? path.substring( 1 ) : "/" + path;
+    }
+
+    List<Step> steps = new ArrayList<>();
+    String attribute = null;
+    int pos = 0;
+    while ( pos < path.length() ) {
+      if ( attribute != null || path.charAt( pos ) != '/' ) {
+        return null;
+      }
+      pos++;
+      boolean descendant = pos < path.length() && path.charAt( pos ) == '/';
+      if ( descendant ) {
+        pos++;
+      }
+      if ( pos < path.length() && path.charAt( pos ) == '@' ) {
+        int end = nameEnd( path, pos + 1 );
+        if ( loop || descendant || end == pos + 1 ) {
+          return null;
+        }
+        attribute = path.substring( pos + 1, end );
+        pos = end;
+        continue;
+      }
+
+      String name = null;
+      int end;
+      if ( pos < path.length() && path.charAt( pos ) == '*' ) {
+        pos++;
+      } else {
+        end = nameEnd( path, pos );
+        if ( end == pos ) {
+          return null;
+        }
+        name = path.substring( pos, end );
+        pos = end;
+      }
+
+      List<String> attributeNames = new ArrayList<>();
+      List<String> attributeValues = new ArrayList<>();
+      while ( pos < path.length() && path.charAt( pos ) == '[' ) {
+        end = path.indexOf( ']', pos );
+        if ( end < 0 || !addPredicate( path.substring( pos + 1, end ).trim(), attributeNames, attributeValues ) ) {
+          return null;
+        }
+        pos = end + 1;
+      }
+      steps.add( new Step( descendant, name, attributeNames.toArray( new String[ 0 ] ),
+        attributeValues.toArray( new String[ 0 ] ) ) );
+    }
+    if ( steps.isEmpty() && attribute == null ) {
+      return null;
+    }
+    return new Path( steps.toArray( new Step[ 0 ] ), attribute );
+  }
+
+  private static boolean addPredicate( String predicate, List<String> names, List<String> values ) {
+    if ( !predicate.startsWith( "@" ) ) {
+      return false;
+    }
+    int end = nameEnd( predicate, 1 );
+    if ( end == 1 ) {
+      return false;
+    }
+    String rest = predicate.substring( end ).trim();
+    String value = null;
+    if ( !rest.isEmpty() ) {
+      if ( rest.charAt( 0 ) != '=' ) {
+        return false;
+      }
+      rest = rest.substring( 1 ).trim();
+      if ( rest.length() < 2 || ( rest.charAt( 0 ) != '\'' && rest.charAt( 0 ) != '"' )
+        || rest.charAt( rest.length() - 1 ) != rest.charAt( 0 ) ) {
+        return false;
+      }
+      value = rest.substring( 1, rest.length() - 1 );
+      if ( value.indexOf( rest.charAt( 0 ) ) >= 0 ) {
+        return false;
+      }
+    }
+    names.add( predicate.substring( 1, end ) );
+    values.add( value );
+    return true;
+  }
+
+  private static int nameEnd( String path, int start ) {
+    int end = start;
+    while ( end < path.length() && isNameCharacter( path.charAt( end ), end == start ) ) {
+      end++;
+    }
+    return end;
+  }
+
+  private static boolean isNameCharacter( char c, boolean first ) {
+    if ( Character.isLetter( c ) || c == '_' ) {
+      return true;
+    }
+    if ( first ) {
+      return false;
+    }
+    if ( Character.isDigit( c ) ) {
+      return true;
+    }
+    for ( char nameCharacter : NAME_CHARACTERS ) {
+      if ( c == nameCharacter ) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static String getAttribute( XMLStreamReader reader, String name ) {
+    for ( int i = 0; i < reader.getAttributeCount(); i++ ) {
+      if ( name.equals( reader.getAttributeLocalName( i ) ) && Utils.isEmpty( reader.getAttributeNamespace( i ) ) ) {
+        return reader.getAttributeValue( i );
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Start reading the rows of a document.
+   *
+   * @param in       the document, closed with the rows
+   * @param encoding the encoding of the document, or empty to detect it from its BOM and XML declaration
+   */
+  public Rows open( InputStream in, String encoding ) throws KettleException {
+    XMLInputFactory factory = XMLParserFactoryProducer.createSecureXMLInputFactory();
+    // Ignore DTD declarations, as IgnoreDTDEntityResolver does
+    factory.setXMLResolver( ( publicID, systemID, baseURI, namespace ) -> new ByteArrayInputStream( new byte[ 0 ] ) );
+    try {
+      return new Rows( in, Utils.isEmpty( encoding ) ? factory.createXMLStreamReader( in )
+        : factory.createXMLStreamReader( in, encoding ) );
+    } catch ( XMLStreamException e ) {
+      BaseStep.closeQuietly( in );
+      throw new KettleException( e );
+    }
+  }
+
+  /**
+   * The rows of a document, read on demand: each is the values of the fields of a loop node, in the order of the
+   * loop nodes. Nested loop nodes are kept until the ones around them are read.
+   */
+  public class Rows implements Closeable {
+    private final InputStream in;
+    private final XMLStreamReader reader;
+    private final Deque<LoopNode> loopNodes = new ArrayDeque<>();
+    /** The states of the machine of the loop path, by depth */
+    private final List<BitSet> states = new ArrayList<>();
+    private int depth;
+    private boolean closed;
+
+    Rows( InputStream in, XMLStreamReader reader ) {
+      this.in = in;
+      this.reader = reader;
+      BitSet initial = new BitSet();
+      initial.set( 0 );
+      states.add( initial );
+    }
+
+    /**
+     * @return the values of the fields of the next loop node, or null at the end of the document
+     */
+    public String[] next() throws KettleException {
+      try {
+        while ( !closed ) {
+          LoopNode first = loopNodes.peekFirst();
+          if ( first != null && first.read ) {
+            loopNodes.removeFirst();
+            return first.values;
+          }
+          if ( !reader.hasNext() ) {
+            close();
+            break;
+          }
+          switch ( reader.next() ) {
+            case XMLStreamConstants.START_ELEMENT:
+              startElement();
+              break;
+            case XMLStreamConstants.END_ELEMENT:
+              endElement();
+              break;
+            case XMLStreamConstants.CHARACTERS:
+            case XMLStreamConstants.CDATA:
+              for ( LoopNode loopNode : loopNodes ) {
+                loopNode.characters();
+              }
+              break;
+            default:
+              break;
+          }
+        }
+        return null;
+      } catch ( XMLStreamException e ) {
+        close();
+        throw new KettleException( e );
+      }
+    }
+
+    private void startElement() {
+      depth++;
+      BitSet parent = states.get( depth - 1 );
+      BitSet current = getStates( states, depth );
+      for ( int state = parent.nextSetBit( 0 ); state >= 0; state = parent.nextSetBit( state + 1 ) ) {
+        Step step = loop[ state ];
+        if ( step.descendant ) {
+          current.set( state );
+        }
+        if ( step.matches( reader ) ) {
+          current.set( state + 1 );
+        }
+      }
+      for ( LoopNode loopNode : loopNodes ) {
+        loopNode.startElement();
+      }
+      if ( current.get( loop.length ) ) {
+        current.clear( loop.length );
+        loopNodes.addLast( new LoopNode( depth ) );
+      }
+    }
+
+    private void endElement() {
+      for ( LoopNode loopNode : loopNodes ) {
+        loopNode.endElement();
+      }
+      depth--;
+    }
+
+    @Override
+    public void close() {
+      if ( !closed ) {
+        closed = true;
+        loopNodes.clear();
+        try {
+          reader.close();
+        } catch ( XMLStreamException e ) {
+          // Nothing left to read from it
+        }
+        BaseStep.closeQuietly( in );
+      }
+    }
+
+    /**
+     * The values of the fields of a loop node being read.
+     */
+    private class LoopNode {
+      private final int loopDepth;
+      private final String[] values = new String[ fields.length ];
+      private final StringBuilder[] texts = new StringBuilder[ fields.length ];
+      /** The depth of the element of which the text of a field is being read, 0 when none */
+      private final int[] textDepths = new int[ fields.length ];
+      /** The states of the machines of the paths of the fields, by depth under the loop node */
+      private final List<BitSet> levels = new ArrayList<>();
+      private int textsRead;
+      private boolean read;
+
+      LoopNode( int loopDepth ) {
+        this.loopDepth = loopDepth;
+        BitSet initial = new BitSet();
+        for ( int i = 0; i < fields.length; i++ ) {
+          if ( fields[ i ].steps.length == 0 ) {
+            found( i );
+          } else {
+            initial.set( fieldStates[ i ] );
+          }
+        }
+        levels.add( initial );
+      }
+
+      void startElement() {
+        if ( read ) {
+          return;
+        }
+        int level = depth - loopDepth;
+        BitSet parent = levels.get( level - 1 );
+        BitSet current = getStates( levels, level );
+        for ( int state = parent.nextSetBit( 0 ); state >= 0; state = parent.nextSetBit( state + 1 ) ) {
+          int field = stateFields[ state ];
+          if ( values[ field ] != null || textDepths[ field ] != 0 ) {
+            continue;
+          }
+          Step step = fields[ field ].steps[ stateSteps[ state ] ];
+          if ( step.descendant ) {
+            current.set( state );
+          }
+          if ( step.matches( reader ) ) {
+            if ( stateSteps[ state ] + 1 < fields[ field ].steps.length ) {
+              current.set( state + 1 );
+            } else {
+              found( field );
+            }
+          }
+        }
+      }
+
+      /**
+       * The current element is the node of a field: take its attribute, or start reading its text.
+       */
+      private void found( int field ) {
+        if ( fields[ field ].attribute != null ) {
+          values[ field ] = getAttribute( reader, fields[ field ].attribute );
+        } else {
+          if ( texts[ field ] == null ) {
+            texts[ field ] = new StringBuilder();
+          }
+          textDepths[ field ] = depth;
+          textsRead++;
+        }
+      }
+
+      void characters() {
+        if ( textsRead == 0 || read ) {
+          return;
+        }
+        for ( int i = 0; i < fields.length; i++ ) {
+          if ( textDepths[ i ] != 0 ) {
+            texts[ i ].append( reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength() );
+          }
+        }
+      }
+
+      void endElement() {
+        if ( read ) {
+          return;
+        }
+        for ( int i = 0; textsRead > 0 && i < fields.length; i++ ) {
+          if ( textDepths[ i ] == depth ) {
+            values[ i ] = texts[ i ].toString();
+            textDepths[ i ] = 0;
+            textsRead--;
+          }
+        }
+        if ( depth == loopDepth ) {
+          read = true;
+          if ( !missingYieldsNull ) {
+            for ( int i = 0; i < fields.length; i++ ) {
+              if ( values[ i ] == null ) {
+                values[ i ] = "";
+              }
+            }
+          }
+        }
+      }
+    }
+  }
+
+  private static BitSet getStates( List<BitSet> states, int index ) {
+    if ( index == states.size() ) {
+      states.add( new BitSet() );
+    }
+    BitSet current = states.get( index );
+    current.clear();
+    return current;
+  }
+
+  /**
+   * A step of a path: an element, named or any, having some attributes.
+   */
+  static class Step {
+    final boolean descendant;
+    final String name;
+    final String[] attributeNames;
+    final String[] attributeValues;
+
+    Step( boolean descendant, String name, String[] attributeNames, String[] attributeValues ) {
+      this.descendant = descendant;
+      this.name = name;
+      this.attributeNames = attributeNames;
+      this.attributeValues = attributeValues;
+    }
+
+    boolean matches( XMLStreamReader reader ) {
+      if ( name != null && ( !name.equals( reader.getLocalName() ) || !Utils.isEmpty( reader.getNamespaceURI() ) ) ) {
+        return false;
+      }
+      for ( int i = 0; i < attributeNames.length; i++ ) {
+        String value = getAttribute( reader, attributeNames[ i ] );
+        if ( value == null || ( attributeValues[ i ] != null && !attributeValues[ i ].equals( value ) ) ) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  /**
+   * The steps of a path, and the attribute it ends with if any.
+   */
+  static class Path {
+    final Step[] steps;
+    final String attribute;
+
+    Path( Step[] steps, String attribute ) {
+      this.steps = steps;
+      this.attribute = attribute;
+    }
+  }
+}
@@ -0,0 +1,141 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 - 2026 by Pentaho Canada Inc. : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2030-06-15
+ ******************************************************************************/
+
+
+package org.pentaho.di.trans.steps.getxmldata;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.pentaho.di.core.exception.KettleException;
+
+public class StreamingXMLReaderTest {
+  private static final String ORDERS = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+    + "<orders>"
+    + " <order id=\"1\" status=\"open\"><customer><name>Ann</name></customer><line sku=\"A\">2</line>"
+    + "  <line sku=\"B\">3</line></order>"
+    + " <order id=\"2\" status=\"closed\"><!-- no lines --><customer><name><![CDATA[Bob & co]]></name></customer>"
+    + " </order>"
+    + " <archive><order id=\"3\" status=\"open\"><customer/></order></archive>"
+    + "</orders>";
+
+  private static List<String[]> read( String xml, String loopPath, boolean missingYieldsNull, String... fieldPaths )
+    throws KettleException {
+    StreamingXMLReader reader = StreamingXMLReader.create( loopPath, fieldPaths, missingYieldsNull );
+    assertNotNull( loopPath, reader );
+    StreamingXMLReader.Rows rows =
+      reader.open( new ByteArrayInputStream( xml.getBytes( StandardCharsets.UTF_8 ) ), "UTF-8" );
+    List<String[]> result = new ArrayList<>();
+    String[] row;
+    while ( ( row = rows.next() ) != null ) {
+      result.add( row );
+    }
+    return result;
+  }
+
+  @Test
+  public void testUnsupportedPaths() {
+    assertNull( StreamingXMLReader.create( "orders/order", new String[ 0 ], false ) );
+    assertNull( StreamingXMLReader.create( "/orders/order[1]", new String[ 0 ], false ) );
+    assertNull( StreamingXMLReader.create( "/orders/@id", new String[ 0 ], false ) );
+    assertNull( StreamingXMLReader.create( "/ns:orders", new String[ 0 ], false ) );
+    assertNull( StreamingXMLReader.create( "/orders", new String[] { "../id" }, false ) );
+    assertNull( StreamingXMLReader.create( "/orders", new String[] { "/orders/order" }, false ) );
+    assertNull( StreamingXMLReader.create( "/orders", new String[] { "order/text()" }, false ) );
+    assertNull( StreamingXMLReader.create( "/orders", new String[] { "count(order)" }, false ) );
+    assertNull( StreamingXMLReader.create( "/orders", new String[] { "order[2]" }, false ) );
+    assertNotNull( StreamingXMLReader.create( "//order[@status = 'open'][@id]", new String[] { "." }, false ) );
+  }
+
+  @Test
+  public void testChildSteps() throws Exception {
+    List<String[]> rows = read( ORDERS, "/orders/order", false, "@id", "customer/name", "line", "line/@sku",
+      "./missing" );
+
+    assertEquals( 2, rows.size() );
+    assertArrayEquals( new String[] { "1", "Ann", "2", "A", "" }, rows.get( 0 ) );
+    assertArrayEquals( new String[] { "2", "Bob & co", "", "", "" }, rows.get( 1 ) );
+  }
+
+  @Test
+  public void testDescendantStepsAndPredicates() throws Exception {
+    List<String[]> rows = read( ORDERS, "//order[@status='open']", true, "@id", ".//name", "*[@sku=\"B\"]" );
+
+    assertEquals( 2, rows.size() );
+    assertArrayEquals( new String[] { "1", "Ann", "3" }, rows.get( 0 ) );
+    assertArrayEquals( new String[] { "3", null, null }, rows.get( 1 ) );
+  }
+
+  @Test
+  public void testTextOfTheLoopNode() throws Exception {
+    List<String[]> rows = read( ORDERS, "/orders/order/line", false, ".", "@sku" );
+
+    assertEquals( 2, rows.size() );
+    assertArrayEquals( new String[] { "3", "B" }, rows.get( 1 ) );
+    assertArrayEquals( new String[] { "Ann2  3" }, read( ORDERS, "/orders/order[@id='1']", false, "." ).get( 0 ) );
+  }
+
+  @Test
+  public void testNestedLoopNodesInDocumentOrder() throws Exception {
+    List<String[]> rows = read( "<a n='1'><a n='2'><b>x</b></a><b>y</b><a n='3'/></a>", "//a", false, "@n", "b" );
+
+    assertEquals( 3, rows.size() );
+    assertArrayEquals( new String[] { "1", "y" }, rows.get( 0 ) );
+    assertArrayEquals( new String[] { "2", "x" }, rows.get( 1 ) );
+    assertArrayEquals( new String[] { "3", "" }, rows.get( 2 ) );
+  }
+
+  @Test
+  public void testNamespacedElementsAreNotMatched() throws Exception {
+    assertEquals( 0, read( "<a xmlns='urn:x'><b/></a>", "/a/b", false ).size() );
+  }
+
+  @Test
+  public void testEncodingDetectedFromDocument() throws Exception {
+    StreamingXMLReader reader = StreamingXMLReader.create( "/a/b", new String[] { "." }, false );
+
+    String latin1 = "<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?><a><b>caf\u00e9</b></a>";
+    StreamingXMLReader.Rows rows =
+      reader.open( new ByteArrayInputStream( latin1.getBytes( StandardCharsets.ISO_8859_1 ) ), null );
+    assertArrayEquals( new String[] { "caf\u00e9" }, rows.next() );
+    assertNull( rows.next() );
+
+    // UTF-16 with a BOM, without a declaration
+    rows = reader.open( new ByteArrayInputStream( "<a><b>\u00fc</b></a>".getBytes( StandardCharsets.UTF_16 ) ), "" );
+    assertArrayEquals( new String[] { "\u00fc" }, rows.next() );
+    assertNull( rows.next() );
+  }
+
+  @Test
+  public void testParseErrorAfterRows() throws Exception {
+    StreamingXMLReader.Rows rows = StreamingXMLReader.create( "/a/b", new String[] { "." }, false )
+      .open( new ByteArrayInputStream( "<a><b>1</b><b>2</c></a>".getBytes( StandardCharsets.UTF_8 ) ), "UTF-8" );
+
+    assertArrayEquals( new String[] { "1" }, rows.next() );
+    try {
+      rows.next();
+      fail( "The document is not well formed" );
+    } catch ( KettleException e ) {
+      // expected
+    }
+    assertNull( rows.next() );
+  }
+}
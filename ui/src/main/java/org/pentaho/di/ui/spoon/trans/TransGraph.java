@@ -3884,6 +3884,7 @@ public class TransGraph extends AbstractGraph implements XulEventHandler, Redraw
 
           trans.setSafeModeEnabled( executionConfiguration.isSafeModeEnabled() );
           trans.setGatheringMetrics( executionConfiguration.isGatheringMetrics() );
+          trans.setUsingVirtualThreads( executionConfiguration.isUsingVirtualThreads() );
 
           // Launch the step preparation in a different thread.
           // That way Spoon doesn't block anymore and that way we can follow the progress of the initialization
@@ -4003,6 +4004,7 @@ public class TransGraph extends AbstractGraph implements XulEventHandler, Redraw
         trans.setSafeModeEnabled( executionConfiguration.isSafeModeEnabled() );
         trans.setPreview( true );
         trans.setGatheringMetrics( executionConfiguration.isGatheringMetrics() );
+        trans.setUsingVirtualThreads( executionConfiguration.isUsingVirtualThreads() );
         trans.setMetaStore( spoon.getMetaStore() );
         trans.prepareExecution( args );
         trans.setRepository( spoon.rep );
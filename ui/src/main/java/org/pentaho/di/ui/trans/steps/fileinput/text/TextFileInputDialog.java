@@ -249,6 +249,10 @@ public class TextFileInputDialog extends BaseStepDialog implements StepDialogInt
   private Button wNoempty;
   private FormData fdlNoempty, fdNoempty;
 
+  private Label wlRunningInParallel;
+  private Button wRunningInParallel;
+  private FormData fdlRunningInParallel, fdRunningInParallel;
+
   private Label wlInclFilename;
   private Button wInclFilename;
   private FormData fdlInclFilename, fdInclFilename;
@@ -1294,12 +1298,29 @@ public class TextFileInputDialog extends BaseStepDialog implements StepDialogInt
     fdNoempty.right = new FormAttachment( 100, 0 );
     wNoempty.setLayoutData( fdNoempty );
 
+    wlRunningInParallel = new Label( wContentComp, SWT.RIGHT );
+    wlRunningInParallel.setText( BaseMessages.getString( PKG, "TextFileInputDialog.RunningInParallel.Label" ) );
+    props.setLook( wlRunningInParallel );
+    fdlRunningInParallel = new FormData();
+    fdlRunningInParallel.left = new FormAttachment( 0, 0 );
+    fdlRunningInParallel.top = new FormAttachment( wNoempty, margin );
+    fdlRunningInParallel.right = new FormAttachment( middle, -margin );
+    wlRunningInParallel.setLayoutData( fdlRunningInParallel );
+    wRunningInParallel = new Button( wContentComp, SWT.CHECK );
+    props.setLook( wRunningInParallel );
+    wRunningInParallel.setToolTipText( BaseMessages.getString( PKG, "TextFileInputDialog.RunningInParallel.Tooltip" ) );
+    fdRunningInParallel = new FormData();
+    fdRunningInParallel.left = new FormAttachment( middle, 0 );
+    fdRunningInParallel.top = new FormAttachment( wNoempty, margin );
+    fdRunningInParallel.right = new FormAttachment( 100, 0 );
+    wRunningInParallel.setLayoutData( fdRunningInParallel );
+
     wlInclFilename = new Label( wContentComp, SWT.RIGHT );
     wlInclFilename.setText( BaseMessages.getString( PKG, "TextFileInputDialog.InclFilename.Label" ) );
     props.setLook( wlInclFilename );
     fdlInclFilename = new FormData();
     fdlInclFilename.left = new FormAttachment( 0, 0 );
-    fdlInclFilename.top = new FormAttachment( wNoempty, margin );
+    fdlInclFilename.top = new FormAttachment( wRunningInParallel, margin );
     fdlInclFilename.right = new FormAttachment( middle, -margin );
     wlInclFilename.setLayoutData( fdlInclFilename );
     wInclFilename = new Button( wContentComp, SWT.CHECK );
@@ -1307,7 +1328,7 @@ public class TextFileInputDialog extends BaseStepDialog implements StepDialogInt
     wInclFilename.setToolTipText( BaseMessages.getString( PKG, "TextFileInputDialog.InclFilename.Tooltip" ) );
     fdInclFilename = new FormData();
     fdInclFilename.left = new FormAttachment( middle, 0 );
-    fdInclFilename.top = new FormAttachment( wNoempty, margin );
+    fdInclFilename.top = new FormAttachment( wRunningInParallel, margin );
     wInclFilename.setLayoutData( fdInclFilename );
 
     wlInclFilenameField = new Label( wContentComp, SWT.LEFT );
@@ -1315,14 +1336,14 @@ public class TextFileInputDialog extends BaseStepDialog implements StepDialogInt
     props.setLook( wlInclFilenameField );
     fdlInclFilenameField = new FormData();
     fdlInclFilenameField.left = new FormAttachment( wInclFilename, margin );
-    fdlInclFilenameField.top = new FormAttachment( wNoempty, margin );
+    fdlInclFilenameField.top = new FormAttachment( wRunningInParallel, margin );
     wlInclFilenameField.setLayoutData( fdlInclFilenameField );
     wInclFilenameField = new Text( wContentComp, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
     props.setLook( wInclFilenameField );
     wInclFilenameField.addModifyListener( lsMod );
     fdInclFilenameField = new FormData();
     fdInclFilenameField.left = new FormAttachment( wlInclFilenameField, margin );
-    fdInclFilenameField.top = new FormAttachment( wNoempty, margin );
+    fdInclFilenameField.top = new FormAttachment( wRunningInParallel, margin );
     fdInclFilenameField.right = new FormAttachment( 100, 0 );
     wInclFilenameField.setLayoutData( fdInclFilenameField );
 
@@ -2204,6 +2225,7 @@ public class TextFileInputDialog extends BaseStepDialog implements StepDialogInt
       wCompression.setText( meta.content.fileCompression );
     }
     wNoempty.setSelection( meta.content.noEmptyLines );
+    wRunningInParallel.setSelection( meta.content.runningInParallel );
     wInclFilename.setSelection( meta.content.includeFilename );
     wInclRownum.setSelection( meta.content.includeRowNumber );
     wRownumByFile.setSelection( meta.content.rowNumberByFile );
@@ -2492,6 +2514,7 @@ public class TextFileInputDialog extends BaseStepDialog implements StepDialogInt
     meta.content.fileCompression = wCompression.getText();
     meta.content.dateFormatLenient = wDateLenient.getSelection();
     meta.content.noEmptyLines = wNoempty.getSelection();
+    meta.content.runningInParallel = wRunningInParallel.getSelection();
     meta.content.encoding = wEncoding.getText();
     meta.content.length = wLength.getText();
 
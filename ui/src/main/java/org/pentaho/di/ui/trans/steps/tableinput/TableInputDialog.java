@@ -86,6 +86,18 @@ public class TableInputDialog extends BaseStepDialog implements StepDialogInterf
   private TextVar wLimit;
   private FormData fdlLimit, fdLimit;
 
+  private Label wlSplitField;
+  private TextVar wSplitField;
+  private FormData fdlSplitField, fdSplitField;
+
+  private Label wlSplitCount;
+  private TextVar wSplitCount;
+  private FormData fdlSplitCount, fdSplitCount;
+
+  private Label wlSplitOrdered;
+  private Button wSplitOrdered;
+  private FormData fdlSplitOrdered, fdSplitOrdered;
+
   private Label wlEachRow;
   private Button wEachRow;
   private FormData fdlEachRow, fdEachRow;
@@ -198,6 +210,64 @@ public class TableInputDialog extends BaseStepDialog implements StepDialogInterf
     fdLimit.bottom = new FormAttachment( wOK, -2 * margin );
     wLimit.setLayoutData( fdLimit );
 
+    // Keep the order of the split field?
+    wlSplitOrdered = new Label( shell, SWT.RIGHT );
+    wlSplitOrdered.setText( BaseMessages.getString( PKG, "TableInputDialog.SplitOrdered" ) );
+    props.setLook( wlSplitOrdered );
+    fdlSplitOrdered = new FormData();
+    fdlSplitOrdered.left = new FormAttachment( 0, 0 );
+    fdlSplitOrdered.right = new FormAttachment( middle, -margin );
+    fdlSplitOrdered.bottom = new FormAttachment( wLimit, -margin );
+    wlSplitOrdered.setLayoutData( fdlSplitOrdered );
+    wSplitOrdered = new Button( shell, SWT.CHECK );
+    props.setLook( wSplitOrdered );
+    fdSplitOrdered = new FormData();
+    fdSplitOrdered.left = new FormAttachment( middle, 0 );
+    fdSplitOrdered.right = new FormAttachment( 100, 0 );
+    fdSplitOrdered.bottom = new FormAttachment( wLimit, -margin );
+    wSplitOrdered.setLayoutData( fdSplitOrdered );
+    wSplitOrdered.addSelectionListener( new SelectionAdapter() {
+      public void widgetSelected( SelectionEvent arg0 ) {
+        input.setChanged();
+      }
+    } );
+
+    // Number of parallel queries...
+    wlSplitCount = new Label( shell, SWT.RIGHT );
+    wlSplitCount.setText( BaseMessages.getString( PKG, "TableInputDialog.SplitCount" ) );
+    props.setLook( wlSplitCount );
+    fdlSplitCount = new FormData();
+    fdlSplitCount.left = new FormAttachment( 0, 0 );
+    fdlSplitCount.right = new FormAttachment( middle, -margin );
+    fdlSplitCount.bottom = new FormAttachment( wSplitOrdered, -margin );
+    wlSplitCount.setLayoutData( fdlSplitCount );
+    wSplitCount = new TextVar( transMeta, shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    props.setLook( wSplitCount );
+    wSplitCount.addModifyListener( lsMod );
+    fdSplitCount = new FormData();
+    fdSplitCount.left = new FormAttachment( middle, 0 );
+    fdSplitCount.right = new FormAttachment( 100, 0 );
+    fdSplitCount.bottom = new FormAttachment( wSplitOrdered, -margin );
+    wSplitCount.setLayoutData( fdSplitCount );
+
+    // Split query on field...
+    wlSplitField = new Label( shell, SWT.RIGHT );
+    wlSplitField.setText( BaseMessages.getString( PKG, "TableInputDialog.SplitField" ) );
+    props.setLook( wlSplitField );
+    fdlSplitField = new FormData();
+    fdlSplitField.left = new FormAttachment( 0, 0 );
+    fdlSplitField.right = new FormAttachment( middle, -margin );
+    fdlSplitField.bottom = new FormAttachment( wSplitCount, -margin );
+    wlSplitField.setLayoutData( fdlSplitField );
+    wSplitField = new TextVar( transMeta, shell, SWT.SINGLE | SWT.LEFT | SWT.BORDER );
+    props.setLook( wSplitField );
+    wSplitField.addModifyListener( lsMod );
+    fdSplitField = new FormData();
+    fdSplitField.left = new FormAttachment( middle, 0 );
+    fdSplitField.right = new FormAttachment( 100, 0 );
+    fdSplitField.bottom = new FormAttachment( wSplitCount, -margin );
+    wSplitField.setLayoutData( fdSplitField );
+
     // Execute for each row?
     wlEachRow = new Label( shell, SWT.RIGHT );
     wlEachRow.setText( BaseMessages.getString( PKG, "TableInputDialog.ExecuteForEachRow" ) );
@@ -205,14 +275,14 @@ public class TableInputDialog extends BaseStepDialog implements StepDialogInterf
     fdlEachRow = new FormData();
     fdlEachRow.left = new FormAttachment( 0, 0 );
     fdlEachRow.right = new FormAttachment( middle, -margin );
-    fdlEachRow.bottom = new FormAttachment( wLimit, -margin );
+    fdlEachRow.bottom = new FormAttachment( wSplitField, -margin );
     wlEachRow.setLayoutData( fdlEachRow );
     wEachRow = new Button( shell, SWT.CHECK );
     props.setLook( wEachRow );
     fdEachRow = new FormData();
     fdEachRow.left = new FormAttachment( middle, 0 );
     fdEachRow.right = new FormAttachment( 100, 0 );
-    fdEachRow.bottom = new FormAttachment( wLimit, -margin );
+    fdEachRow.bottom = new FormAttachment( wSplitField, -margin );
     wEachRow.setLayoutData( fdEachRow );
     SelectionAdapter lsSelMod = new SelectionAdapter() {
       public void widgetSelected( SelectionEvent arg0 ) {
@@ -435,6 +505,8 @@ public class TableInputDialog extends BaseStepDialog implements StepDialogInterf
 
     wStepname.addSelectionListener( lsDef );
     wLimit.addSelectionListener( lsDef );
+    wSplitField.addSelectionListener( lsDef );
+    wSplitCount.addSelectionListener( lsDef );
 
     // Detect X or ALT-F4 or something that kills this window...
     shell.addShellListener( new ShellAdapter() {
@@ -492,6 +564,9 @@ public class TableInputDialog extends BaseStepDialog implements StepDialogInterf
       wConnection.setText( input.getDatabaseMeta().getName() );
     }
     wLimit.setText( Const.NVL( input.getRowLimit(), "" ) );
+    wSplitField.setText( Const.NVL( input.getSplitField(), "" ) );
+    wSplitCount.setText( Const.NVL( input.getSplitCount(), "" ) );
+    wSplitOrdered.setSelection( input.isSplitOrdered() );
 
     StreamInterface infoStream = input.getStepIOMeta().getInfoStreams().get( 0 );
     if ( infoStream.getStepMeta() != null ) {
@@ -538,6 +613,9 @@ public class TableInputDialog extends BaseStepDialog implements StepDialogInterf
     meta.setSQL( preview && !Utils.isEmpty( wSQL.getSelectionText() ) ? wSQL.getSelectionText() : wSQL.getText() );
     meta.setDatabaseMeta( transMeta.findDatabase( wConnection.getText() ) );
     meta.setRowLimit( wLimit.getText() );
+    meta.setSplitField( wSplitField.getText() );
+    meta.setSplitCount( wSplitCount.getText() );
+    meta.setSplitOrdered( wSplitOrdered.getSelection() );
     StreamInterface infoStream = input.getStepIOMeta().getInfoStreams().get( 0 );
     infoStream.setStepMeta( transMeta.findStep( wDatefrom.getText() ) );
     meta.setExecuteEachInputRow( wEachRow.getSelection() );
@@ -127,6 +127,10 @@ public class TableOutputDialog extends BaseStepDialog implements StepDialogInter
   private Button wBatch;
   private FormData fdlBatch, fdBatch;
 
+  private Label wlBulkMode;
+  private Button wBulkMode;
+  private FormData fdlBulkMode, fdBulkMode;
+
   private Label wlUsePart;
   private Button wUsePart;
   private FormData fdlUsePart, fdUsePart;
@@ -558,20 +562,40 @@ public class TableOutputDialog extends BaseStepDialog implements StepDialogInter
       }
     } );
 
+    // Bulk mode
+    wlBulkMode = new Label( wMainComp, SWT.RIGHT );
+    wlBulkMode.setText( BaseMessages.getString( PKG, "TableOutputDialog.BulkMode.Label" ) );
+    wlBulkMode.setToolTipText( BaseMessages.getString( PKG, "TableOutputDialog.BulkMode.Tooltip" ) );
+    props.setLook( wlBulkMode );
+    fdlBulkMode = new FormData();
+    fdlBulkMode.left = new FormAttachment( 0, 0 );
+    fdlBulkMode.top = new FormAttachment( wBatch, margin );
+    fdlBulkMode.right = new FormAttachment( middle, -margin );
+    wlBulkMode.setLayoutData( fdlBulkMode );
+    wBulkMode = new Button( wMainComp, SWT.CHECK );
+    wBulkMode.setToolTipText( BaseMessages.getString( PKG, "TableOutputDialog.BulkMode.Tooltip" ) );
+    props.setLook( wBulkMode );
+    fdBulkMode = new FormData();
+    fdBulkMode.left = new FormAttachment( middle, 0 );
+    fdBulkMode.top = new FormAttachment( wBatch, margin );
+    fdBulkMode.right = new FormAttachment( 100, 0 );
+    wBulkMode.setLayoutData( fdBulkMode );
+    wBulkMode.addSelectionListener( lsSelMod );
+
     // NameInField
     wlNameInField = new Label( wMainComp, SWT.RIGHT );
     wlNameInField.setText( BaseMessages.getString( PKG, "TableOutputDialog.NameInField.Label" ) );
     props.setLook( wlNameInField );
     fdlNameInField = new FormData();
     fdlNameInField.left = new FormAttachment( 0, 0 );
-    fdlNameInField.top = new FormAttachment( wBatch, margin * 5 );
+    fdlNameInField.top = new FormAttachment( wBulkMode, margin * 5 );
     fdlNameInField.right = new FormAttachment( middle, -margin );
     wlNameInField.setLayoutData( fdlNameInField );
     wNameInField = new Button( wMainComp, SWT.CHECK );
     props.setLook( wNameInField );
     fdNameInField = new FormData();
     fdNameInField.left = new FormAttachment( middle, 0 );
-    fdNameInField.top = new FormAttachment( wBatch, margin * 5 );
+    fdNameInField.top = new FormAttachment( wBulkMode, margin * 5 );
     fdNameInField.right = new FormAttachment( 100, 0 );
     wNameInField.setLayoutData( fdNameInField );
     wNameInField.addSelectionListener( new SelectionAdapter() {
@@ -1236,6 +1260,10 @@ public class TableOutputDialog extends BaseStepDialog implements StepDialogInter
     wlBatch.setEnabled( enableBatch );
     wBatch.setEnabled( enableBatch );
 
+    // Bulk mode doesn't return keys
+    wlBulkMode.setEnabled( !returnKeys );
+    wBulkMode.setEnabled( !returnKeys );
+
     boolean specifyFields = wSpecifyFields.getSelection();
     wFields.setEnabled( specifyFields );
     wGetFields.setEnabled( specifyFields );
@@ -1281,6 +1309,7 @@ public class TableOutputDialog extends BaseStepDialog implements StepDialogInter
     wTruncate.setSelection( input.truncateTable() );
     wIgnore.setSelection( input.ignoreErrors() );
     wBatch.setSelection( input.useBatchUpdate() );
+    wBulkMode.setSelection( input.isBulkMode() );
 
     wCommit.setText( input.getCommitSize() );
 
@@ -1334,6 +1363,7 @@ public class TableOutputDialog extends BaseStepDialog implements StepDialogInter
     info.setTruncateTable( wTruncate.getSelection() );
     info.setIgnoreErrors( wIgnore.getSelection() );
     info.setUseBatchUpdate( wBatch.getSelection() );
+    info.setBulkMode( wBulkMode.getSelection() );
     info.setPartitioningEnabled( wUsePart.getSelection() );
     info.setPartitioningField( wPartField.getText() );
     info.setPartitioningDaily( wPartDaily.getSelection() );